@@ -0,0 +1,11 @@
+package nbu.cscb869.common.exceptions;
+
+/**
+ * Thrown when a change feed cursor is older than the retention of deletes, so the changes after it can no longer be
+ * listed completely.
+ */
+public class ChangeCursorExpiredException extends RuntimeException {
+    public ChangeCursorExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,37 @@
+package nbu.cscb869.common.exceptions;
+
+import java.util.List;
+
+/**
+ * Thrown when an edit based on an older version of a record changes fields that someone else has changed differently
+ * in the meantime, so neither change can be kept without the user deciding.
+ */
+public class EditConflictException extends RuntimeException {
+
+    /**
+     * A field both sides changed: its value in the edited version, in the rejected edit and in the current record.
+     */
+    public record FieldConflict(String field, Object base, Object yours, Object current) {
+    }
+
+    private final Long currentVersion;
+    private final List<FieldConflict> conflicts;
+
+    public EditConflictException(String message, Long currentVersion, List<FieldConflict> conflicts) {
+        super(message);
+        this.currentVersion = currentVersion;
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    /**
+     * Returns the version to base the edit on when it is submitted again.
+     * @return the current version
+     */
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    public List<FieldConflict> getConflicts() {
+        return conflicts;
+    }
+}
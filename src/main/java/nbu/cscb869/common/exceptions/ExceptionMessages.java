@@ -38,6 +38,7 @@ public final class ExceptionMessages {
     public static final String DIAGNOSIS_NOT_FOUND_BY_ID = "Diagnosis not found with ID: {0}";
     public static final String DIAGNOSIS_NOT_FOUND_BY_NAME = "Diagnosis not found with name: {0}";
     public static final String DIAGNOSIS_IN_USE = "Cannot delete diagnosis with ID: {0} because it is referenced by active visits.";
+    public static final String DIAGNOSIS_CODE_PREFIX_INVALID = "No ICD-10 code starts with ''{0}''.";
 
     public static final String TREATMENT_NOT_FOUND_BY_ID = "Treatment not found with ID: {0}";
     public static final String VISIT_NOT_FOUND_BY_ID = "Visit not found with ID: {0}";
@@ -56,6 +57,18 @@ public final class ExceptionMessages {
     public static final String AUTHENTICATION_REQUIRED = "Authentication required.";
     public static final String INVALID_PRINCIPAL_TYPE = "Invalid principal type for patient authorization.";
     public static final String UNAUTHORIZED_ACCESS = "Unauthorized access.";
+    public static final String SQL_BUDGET_EXCEEDED = "{0} {1} issued {2} SQL statements, exceeding its budget of {3}.";
+    public static final String CHANGE_CURSOR_INVALID = "Invalid change feed cursor: {0}";
+    public static final String CHANGE_CURSOR_EXPIRED = "The change feed cursor is older than the {0} days deletes are kept for; synchronize again from the beginning";
+    public static final String CHANGE_LIMIT_INVALID = "The change feed limit must be between 1 and {0}";
+    public static final String VISIT_EDIT_CONFLICT = "Visit {0} was changed by someone else since version {1}; review the current values of: {2}";
+    public static final String ANALYTICS_RANGE_INVALID = "The analytics range must not end ({1}) before it starts ({0}).";
+    public static final String ANALYTICS_DIMENSION_REPEATED = "The analytics dimension {0} is grouped by more than once.";
+    public static final String PATIENT_REACH_DIMENSION_INVALID = "Patient reach is counted by DOCTOR or DIAGNOSIS, not {0}.";
+    public static final String REPORT_JOB_NOT_FOUND_BY_ID = "Report job not found with ID: {0}";
+    public static final String REPORT_JOB_PARAMETER_MISSING = "The {0} report requires the {1} parameter.";
+    public static final String REPORT_JOB_NOT_COMPLETED = "Report job {0} is {1}; it has no result.";
+    public static final String RANKING_LIMIT_INVALID = "The ranking limit must be between 1 and {0}";
 
 
     private ExceptionMessages() {
@@ -183,6 +196,10 @@ public final class ExceptionMessages {
         return MessageFormat.format(DIAGNOSIS_IN_USE, id);
     }
 
+    public static String formatInvalidDiagnosisCodePrefix(String prefix) {
+        return MessageFormat.format(DIAGNOSIS_CODE_PREFIX_INVALID, prefix);
+    }
+
     public static String formatTreatmentNotFoundById(Long id) {
         return MessageFormat.format(TREATMENT_NOT_FOUND_BY_ID, id);
     }
@@ -226,4 +243,52 @@ public final class ExceptionMessages {
     public static String formatDoctorAlreadyApproved(Long doctorId) {
         return MessageFormat.format(DOCTOR_ALREADY_APPROVED, doctorId);
     }
+
+    public static String formatSqlBudgetExceeded(String method, String uri, int statements, int budget) {
+        return MessageFormat.format(SQL_BUDGET_EXCEEDED, method, uri, statements, budget);
+    }
+
+    public static String formatChangeCursorInvalid(String cursor) {
+        return MessageFormat.format(CHANGE_CURSOR_INVALID, cursor);
+    }
+
+    public static String formatChangeCursorExpired(long retentionDays) {
+        return MessageFormat.format(CHANGE_CURSOR_EXPIRED, retentionDays);
+    }
+
+    public static String formatChangeLimitInvalid(int maxLimit) {
+        return MessageFormat.format(CHANGE_LIMIT_INVALID, maxLimit);
+    }
+
+    public static String formatVisitEditConflict(Long visitId, Long baseVersion, String fields) {
+        return MessageFormat.format(VISIT_EDIT_CONFLICT, String.valueOf(visitId), String.valueOf(baseVersion), fields);
+    }
+
+    public static String formatAnalyticsRangeInvalid(LocalDate from, LocalDate to) {
+        return MessageFormat.format(ANALYTICS_RANGE_INVALID, String.valueOf(from), String.valueOf(to));
+    }
+
+    public static String formatAnalyticsDimensionRepeated(Object dimension) {
+        return MessageFormat.format(ANALYTICS_DIMENSION_REPEATED, dimension);
+    }
+
+    public static String formatPatientReachDimensionInvalid(Object dimension) {
+        return MessageFormat.format(PATIENT_REACH_DIMENSION_INVALID, dimension);
+    }
+
+    public static String formatReportJobNotFoundById(Long id) {
+        return MessageFormat.format(REPORT_JOB_NOT_FOUND_BY_ID, String.valueOf(id));
+    }
+
+    public static String formatReportJobParameterMissing(Object reportType, String parameter) {
+        return MessageFormat.format(REPORT_JOB_PARAMETER_MISSING, reportType, parameter);
+    }
+
+    public static String formatReportJobNotCompleted(Long id, Object status) {
+        return MessageFormat.format(REPORT_JOB_NOT_COMPLETED, String.valueOf(id), status);
+    }
+
+    public static String formatRankingLimitInvalid(int maxLimit) {
+        return MessageFormat.format(RANKING_LIMIT_INVALID, maxLimit);
+    }
 }
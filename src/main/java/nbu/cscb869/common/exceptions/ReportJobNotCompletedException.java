@@ -0,0 +1,10 @@
+package nbu.cscb869.common.exceptions;
+
+/**
+ * Thrown when the result of a report job is requested before the job has completed, or after it has failed.
+ */
+public class ReportJobNotCompletedException extends RuntimeException {
+    public ReportJobNotCompletedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package nbu.cscb869.common.exceptions;
+
+/**
+ * Thrown when an endpoint issues more SQL statements than its {@link nbu.cscb869.config.annotations.SqlBudget} allows
+ * and budgets are enforced.
+ */
+public class SqlBudgetExceededException extends RuntimeException {
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
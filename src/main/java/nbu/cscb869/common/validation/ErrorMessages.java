@@ -75,7 +75,7 @@ public class ErrorMessages {
     public static final String IMAGE_FILE_SIZE_EXCEEDED = "Image file must be less than {0}MB";
     public static final String IMAGE_FILE_INVALID_TYPE = "File must be an image";
     public static final String IMAGE_UPLOAD_FAILED = "Failed to upload image: {0}";
-    public static final String IMAGE_DELETE_FAILED = "Failed to delete image: {0}";
+    public static final String IMAGE_FETCH_FAILED = "Failed to fetch image {0}: {1}";
 
 
     // Utility method for formatting parameterized messages
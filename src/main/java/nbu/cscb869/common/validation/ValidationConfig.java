@@ -18,6 +18,7 @@ public final class ValidationConfig {
 
     // Diagnosis validation
     public static final int DIAGNOSIS_NAME_MAX_LENGTH = 100;
+    public static final int DIAGNOSIS_CODE_MAX_LENGTH = 10;
 
     // Description validation
     public static final int DESCRIPTION_MAX_LENGTH = 500;
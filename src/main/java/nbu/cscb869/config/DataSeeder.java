@@ -1,5 +1,7 @@
 package nbu.cscb869.config;
 
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
 import nbu.cscb869.data.models.*;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.data.repositories.*;
@@ -23,6 +25,7 @@ import java.util.*;
  */
 @Component
 @Profile("dev")
+@DatabaseWorkload(Workload.BACKGROUND)
 public class DataSeeder implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
@@ -111,6 +111,7 @@ public class ModelMapperConfig {
             destination.setVisitTime(source.getVisitTime());
             destination.setNotes(source.getNotes());
             destination.setStatus(source.getStatus());
+            destination.setVersion(source.getVersion());
             if (source.getPatient() != null) {
                 destination.setPatientId(source.getPatient().getId());
             }
@@ -17,6 +17,7 @@ public final class OpenApiConstants {
     public static final String NOT_FOUND = "Not Found - The requested resource could not be found.";
     public static final String CONFLICT = "Conflict - The request could not be completed due to a conflict with the current state of the resource.";
     public static final String SERVER_ERROR = "Internal Server Error - An unexpected error occurred on the server.";
+    public static final String GONE = "Gone - The requested data is no longer available.";
 
     private OpenApiConstants() {
         // Private constructor to prevent instantiation
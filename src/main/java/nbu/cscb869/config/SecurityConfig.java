@@ -61,15 +61,34 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Secures the actuator endpoints for machine clients such as a Prometheus scraper, which cannot perform the
+     * browser login: apart from {@code /actuator/health}, requests need a bearer token with the {@code ADMIN} role,
+     * e.g. one issued by Keycloak to a service account through the client credentials grant.
+     */
     @Bean
     @Order(2)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/actuator/**")
+                .authorizeHttpRequests(authorize -> authorize
+                        .requestMatchers("/actuator/health").permitAll()
+                        .anyRequest().hasRole("ADMIN"))
+                .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .csrf(csrf -> csrf.disable());
+        return http.build();
+    }
+
+    @Bean
+    @Order(3)
     public SecurityFilterChain webSecurityFilterChain(HttpSecurity http, AuthenticationSuccessHandler customAuthenticationSuccessHandler, LogoutSuccessHandler oidcLogoutSuccessHandler) throws Exception {
         http
                 .addFilterAfter(new ProfileCompletionFilter(patientService, doctorService, roleHierarchy), BasicAuthenticationFilter.class)
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers(
                                 "/", "/welcome", "/logout-success",
-                                "/doctors", "/doctors/search",
+                                "/doctors", "/doctors/search", "/media/**",
                                 "/css/**", "/js/**", "/images/**", "/webjars/**",
                                 "/error", "/favicon.ico", "/.well-known/**",
                                 "/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**"
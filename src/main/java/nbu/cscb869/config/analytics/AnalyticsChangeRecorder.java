@@ -0,0 +1,114 @@
+package nbu.cscb869.config.analytics;
+
+import nbu.cscb869.config.changes.EntityUpdates;
+import nbu.cscb869.data.models.Patient;
+import nbu.cscb869.data.models.SickLeave;
+import nbu.cscb869.data.models.Visit;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Marks the days whose visit facts a change makes out of date in {@code analytics_dirty_days}, for
+ * {@link nbu.cscb869.services.services.utility.AnalyticsRollup} to rebuild.
+ * <p>
+ * A visit changes the facts of its day and of the start of its sick leave; a sick leave those of its start; and a
+ * patient moving to another general practitioner those of every day with one of the patient's visits or sick leaves.
+ * Like the {@link nbu.cscb869.config.changes.TombstoneRecorder}, the marks are written with plain JDBC on the changing
+ * session's connection, so they commit or roll back with the change.
+ */
+public class AnalyticsChangeRecorder implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    static final String MARK_DAY = "INSERT IGNORE INTO analytics_dirty_days (day) VALUES (?)";
+    static final String MARK_PATIENT_DAYS = "INSERT IGNORE INTO analytics_dirty_days (day) "
+            + "SELECT visit_date FROM visits WHERE patient_id = ? "
+            + "UNION SELECT s.start_date FROM sick_leaves s JOIN visits v ON v.id = s.visit_id WHERE v.patient_id = ?";
+
+    private static final Set<String> VISIT_FACTS = Set.of("visitDate", "doctor", "diagnosis", "patient", "status");
+    private static final Set<String> SICK_LEAVE_FACTS = Set.of("startDate", "durationDays", "visit");
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Visit visit) {
+            mark(event.getSession(), visit.getVisitDate());
+        } else if (event.getEntity() instanceof SickLeave sickLeave) {
+            mark(event.getSession(), sickLeave.getStartDate());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EventSource session = event.getSession();
+        if (event.getEntity() instanceof Visit visit && EntityUpdates.changed(event, VISIT_FACTS)) {
+            markMoved(session, (LocalDate) EntityUpdates.oldValue(event, "visitDate"), visit.getVisitDate());
+            if (visit.getSickLeave() != null) {
+                mark(session, visit.getSickLeave().getStartDate());
+            }
+        } else if (event.getEntity() instanceof SickLeave sickLeave && EntityUpdates.changed(event, SICK_LEAVE_FACTS)) {
+            markMoved(session, (LocalDate) EntityUpdates.oldValue(event, "startDate"), sickLeave.getStartDate());
+        } else if (event.getEntity() instanceof Patient patient
+                && EntityUpdates.changed(event, Set.of("generalPractitioner"))) {
+            doWork(session, connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(MARK_PATIENT_DAYS)) {
+                    statement.setLong(1, patient.getId());
+                    statement.setLong(2, patient.getId());
+                    statement.executeUpdate();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Visit visit) {
+            mark(event.getSession(), visit.getVisitDate());
+        } else if (event.getEntity() instanceof SickLeave sickLeave) {
+            mark(event.getSession(), sickLeave.getStartDate());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void markMoved(EventSource session, LocalDate previous, LocalDate current) {
+        if (!Objects.equals(previous, current)) {
+            mark(session, previous);
+        }
+        mark(session, current);
+    }
+
+    private void mark(EventSource session, LocalDate day) {
+        if (day == null) {
+            return;
+        }
+        doWork(session, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MARK_DAY)) {
+                statement.setDate(1, Date.valueOf(day));
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Runs JDBC work on the connection of the changing session.
+     * @param session the session of the change
+     * @param work the work
+     */
+    protected void doWork(EventSource session, Work work) {
+        session.doWork(work);
+    }
+}
@@ -0,0 +1,35 @@
+package nbu.cscb869.config.analytics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the visit analytics and records the days whose facts change.
+ */
+@Configuration
+@EnableConfigurationProperties(AnalyticsProperties.class)
+public class AnalyticsConfig {
+
+    /**
+     * Registers the change recorder with Hibernate, so that it sees every insert, update and delete of a visit, sick
+     * leave or patient.
+     * @param entityManagerFactory the entity manager factory
+     * @return the recorder
+     */
+    @Bean
+    public AnalyticsChangeRecorder analyticsChangeRecorder(EntityManagerFactory entityManagerFactory) {
+        AnalyticsChangeRecorder recorder = new AnalyticsChangeRecorder();
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, recorder);
+        registry.appendListeners(EventType.POST_UPDATE, recorder);
+        registry.appendListeners(EventType.POST_DELETE, recorder);
+        return recorder;
+    }
+}
@@ -0,0 +1,25 @@
+package nbu.cscb869.config.analytics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the visit analytics, bound from {@code app.analytics}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.analytics")
+public class AnalyticsProperties {
+
+    /** How often the facts of changed days are rebuilt; analytics lag behind visits by up to this long. */
+    private Duration refreshInterval = Duration.ofMinutes(1);
+
+    /** Changed days rebuilt per transaction. */
+    private int refreshBatchSize = 50;
+
+    /** The most groups a query returns; larger results are cut short and flagged as truncated. */
+    private int maxRows = 10000;
+}
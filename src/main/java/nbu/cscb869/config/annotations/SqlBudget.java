@@ -0,0 +1,21 @@
+package nbu.cscb869.config.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the most SQL statements a controller method may issue while handling one request.
+ * Depending on {@code app.sql-budget.mode}, exceeding the budget is ignored, logged, or fails the request.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SqlBudget {
+    /**
+     * @return the maximum number of SQL statements per request
+     */
+    int value();
+}
@@ -0,0 +1,32 @@
+package nbu.cscb869.config.changes;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the change feed and records tombstones for deleted entities.
+ */
+@Configuration
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfig {
+
+    /**
+     * Registers the tombstone recorder with Hibernate, so that it sees every entity delete, including cascaded ones.
+     * @param entityManagerFactory the entity manager factory
+     * @return the recorder
+     */
+    @Bean
+    public TombstoneRecorder tombstoneRecorder(EntityManagerFactory entityManagerFactory) {
+        TombstoneRecorder recorder = new TombstoneRecorder();
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_DELETE, recorder);
+        return recorder;
+    }
+}
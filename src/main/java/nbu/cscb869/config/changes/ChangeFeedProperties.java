@@ -0,0 +1,32 @@
+package nbu.cscb869.config.changes;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the change feed, bound from {@code app.changes}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.changes")
+public class ChangeFeedProperties {
+
+    /**
+     * How long a change is held back before it is listed. Rows are stamped when they are written, not when their
+     * transaction commits, so this must exceed the longest write transaction; otherwise a client that has already
+     * read past a row's time could miss it.
+     */
+    private Duration settleTime = Duration.ofSeconds(5);
+
+    /** The largest number of changes returned per request. */
+    private int maxLimit = 1000;
+
+    /** How long tombstones of deleted rows are kept. Cursors older than this are rejected. */
+    private Duration tombstoneRetention = Duration.ofDays(30);
+
+    /** How often tombstones past their retention are deleted. */
+    private Duration purgeInterval = Duration.ofHours(6);
+}
@@ -0,0 +1,46 @@
+package nbu.cscb869.config.changes;
+
+import org.hibernate.event.spi.PostUpdateEvent;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Reads what an update changed from Hibernate's {@link PostUpdateEvent}, for the listeners that keep derived data
+ * (rankings, analytics, history snapshots) in step with the entities.
+ */
+public final class EntityUpdates {
+
+    private EntityUpdates() {
+    }
+
+    /**
+     * Returns whether an update changed any of the given properties.
+     * @param event the update
+     * @param properties the property names
+     * @return true if one of the properties is dirty, or if Hibernate could not tell which properties are
+     */
+    public static boolean changed(PostUpdateEvent event, Set<String> properties) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null) {
+            return true;
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        return Arrays.stream(dirty).anyMatch(index -> properties.contains(names[index]));
+    }
+
+    /**
+     * Returns the value a property had before an update.
+     * @param event the update
+     * @param property the property name
+     * @return the previous value, or null if the entity has no such property or Hibernate does not know the old state
+     */
+    public static Object oldValue(PostUpdateEvent event, String property) {
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            return null;
+        }
+        int index = Arrays.asList(event.getPersister().getPropertyNames()).indexOf(property);
+        return index < 0 ? null : oldState[index];
+    }
+}
@@ -0,0 +1,53 @@
+package nbu.cscb869.config.changes;
+
+import nbu.cscb869.data.base.BaseEntity;
+import nbu.cscb869.data.models.enums.ChangeEntityType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a {@link nbu.cscb869.data.models.ChangeTombstone} for every deleted entity published in the change feed.
+ * <p>
+ * The row is inserted on the deleting session's connection right after the delete statement, so it commits or rolls
+ * back with the delete. It is written with plain JDBC because entities cannot be persisted while the session flushes.
+ */
+public class TombstoneRecorder implements PostDeleteEventListener {
+
+    static final String INSERT_TOMBSTONE = "INSERT INTO change_tombstones "
+            + "(entity_type, entity_id, entity_version, created_on, modified_on, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        ChangeEntityType type = ChangeEntityType.of(event.getEntity());
+        if (type == null) {
+            return;
+        }
+        Long version = ((BaseEntity) event.getEntity()).getVersion();
+        Timestamp deletedOn = Timestamp.valueOf(LocalDateTime.now());
+        event.getSession().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_TOMBSTONE)) {
+                statement.setString(1, type.name());
+                statement.setLong(2, ((Number) event.getId()).longValue());
+                if (version == null) {
+                    statement.setNull(3, Types.BIGINT);
+                } else {
+                    statement.setLong(3, version);
+                }
+                statement.setTimestamp(4, deletedOn);
+                statement.setTimestamp(5, deletedOn);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
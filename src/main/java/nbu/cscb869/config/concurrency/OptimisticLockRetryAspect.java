@@ -0,0 +1,76 @@
+package nbu.cscb869.config.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Applies {@link RetryOnOptimisticLock}. Runs after the {@link nbu.cscb869.config.datasource.DatabaseWorkloadAspect}
+ * but before the transaction interceptor, so that every attempt gets a transaction of its own.
+ * <p>
+ * Records, per class and method, {@code medical.optimistic.retries} for every retried attempt and
+ * {@code medical.optimistic.failures} for calls that still failed after the last attempt.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class OptimisticLockRetryAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticLockRetryAspect.class);
+    private static final long BACKOFF_MILLIS = 20;
+
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticLockRetryAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(retry)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnOptimisticLock retry) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String className = signature.getDeclaringType().getSimpleName();
+        String method = signature.getName();
+        int maxAttempts = Math.max(1, retry.maxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    counter("medical.optimistic.failures", className, method).increment();
+                    logger.warn("{}.{} still conflicted after {} attempt(s): {}", className, method, attempt, e.getMessage());
+                    throw e;
+                }
+                counter("medical.optimistic.retries", className, method).increment();
+                logger.info("{}.{} lost an optimistic lock race; retrying (attempt {} of {})", className, method,
+                        attempt + 1, maxAttempts);
+                backOff(attempt);
+            }
+        }
+    }
+
+    private Counter counter(String name, String className, String method) {
+        return Counter.builder(name).tag("class", className).tag("method", method).register(meterRegistry);
+    }
+
+    /**
+     * Waits a little, randomized so that two writers that collided do not collide again on their retries.
+     */
+    private static void backOff(int attempt) throws InterruptedException {
+        Thread.sleep(ThreadLocalRandom.current().nextLong(BACKOFF_MILLIS * attempt, BACKOFF_MILLIS * attempt * 2 + 1));
+    }
+}
@@ -0,0 +1,20 @@
+package nbu.cscb869.config.concurrency;
+
+import java.lang.annotation.*;
+
+/**
+ * Runs the annotated method again, in a new transaction, when it fails because a record it changed was committed by
+ * someone else first. Only safe for methods that re-read what they change and re-apply the caller's intent to it, so
+ * that a retry merges with the other change instead of overwriting it.
+ * <p>
+ * The retry applies only where the method starts the transaction; a method joining the caller's transaction fails as
+ * usual, and the caller decides.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnOptimisticLock {
+
+    /** How often the method runs at most, including the first attempt. */
+    int maxAttempts() default 3;
+}
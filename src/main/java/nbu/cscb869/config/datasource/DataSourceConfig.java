@@ -0,0 +1,116 @@
+package nbu.cscb869.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Builds the application's data source: one Hikari pool per {@link Workload}. With read-replica routing enabled
+ * (see {@link DataSourceRoutingConfig}), each workload first picks its primary pool or its pool on a replica, so
+ * the workloads stay apart on the replicas too. The primary pools are beans of their own so that Spring Boot exports
+ * their {@code hikaricp.connections.*} metrics, tagged by pool name.
+ */
+@Configuration
+@EnableConfigurationProperties(WorkloadPoolProperties.class)
+public class DataSourceConfig {
+
+    /**
+     * Creates the pool for user-facing requests.
+     * @param properties the Spring Boot data source properties
+     * @param poolProperties the per-workload pool settings
+     * @return the interactive pool
+     */
+    @Bean(destroyMethod = "close")
+    public HikariDataSource interactiveDataSource(DataSourceProperties properties, WorkloadPoolProperties poolProperties) {
+        return createPool(properties, Workload.INTERACTIVE, poolProperties);
+    }
+
+    /**
+     * Creates the pool for report aggregations.
+     * @param properties the Spring Boot data source properties
+     * @param poolProperties the per-workload pool settings
+     * @return the reporting pool
+     */
+    @Bean(destroyMethod = "close")
+    public HikariDataSource reportingDataSource(DataSourceProperties properties, WorkloadPoolProperties poolProperties) {
+        return createPool(properties, Workload.REPORTING, poolProperties);
+    }
+
+    /**
+     * Creates the pool for bulk and scheduled work.
+     * @param properties the Spring Boot data source properties
+     * @param poolProperties the per-workload pool settings
+     * @return the background pool
+     */
+    @Bean(destroyMethod = "close")
+    public HikariDataSource backgroundDataSource(DataSourceProperties properties, WorkloadPoolProperties poolProperties) {
+        return createPool(properties, Workload.BACKGROUND, poolProperties);
+    }
+
+    /**
+     * Exposes the data source used by JPA, Flyway and everything else that needs a connection.
+     * Connections are only fetched on first use, once the workload and the transaction's read-only flag are known.
+     * @param interactive the interactive pool
+     * @param reporting the reporting pool
+     * @param background the background pool
+     * @param replicaLagMonitor the replica health registry, present when replica routing is enabled
+     * @param readYourWritesTracker the read-your-writes tracker, present when replica routing is enabled
+     * @return the application's data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("interactiveDataSource") HikariDataSource interactive,
+                                 @Qualifier("reportingDataSource") HikariDataSource reporting,
+                                 @Qualifier("backgroundDataSource") HikariDataSource background,
+                                 ObjectProvider<ReplicaLagMonitor> replicaLagMonitor,
+                                 ObjectProvider<ReadYourWritesTracker> readYourWritesTracker) {
+        Map<Workload, DataSource> pools = new EnumMap<>(Workload.class);
+        pools.put(Workload.INTERACTIVE, interactive);
+        pools.put(Workload.REPORTING, reporting);
+        pools.put(Workload.BACKGROUND, background);
+
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+        if (monitor != null) {
+            ReadYourWritesTracker tracker = readYourWritesTracker.getObject();
+            pools.replaceAll((workload, primary) -> {
+                ReplicaRoutingDataSource replicaRouting = new ReplicaRoutingDataSource(workload, primary, monitor, tracker);
+                replicaRouting.afterPropertiesSet();
+                return replicaRouting;
+            });
+        }
+        WorkloadRoutingDataSource workloadDataSource = new WorkloadRoutingDataSource(pools);
+        workloadDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(workloadDataSource);
+    }
+
+    private static HikariDataSource createPool(DataSourceProperties properties, Workload workload, WorkloadPoolProperties poolProperties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(workload.name().toLowerCase());
+        configurePool(dataSource, poolProperties.forWorkload(workload));
+        return dataSource;
+    }
+
+    /**
+     * Applies a workload's pool settings, shared by the primary and the replica pools.
+     * @param dataSource the pool to configure
+     * @param pool the settings of the workload it serves
+     */
+    static void configurePool(HikariDataSource dataSource, WorkloadPoolProperties.Pool pool) {
+        dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        dataSource.setMinimumIdle(pool.getMinimumIdle());
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        if (!pool.getStatementTimeout().isZero()) {
+            dataSource.setConnectionInitSql("SET SESSION max_execution_time = " + pool.getStatementTimeout().toMillis());
+        }
+    }
+}
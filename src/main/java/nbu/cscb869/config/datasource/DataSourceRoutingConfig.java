@@ -0,0 +1,69 @@
+package nbu.cscb869.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Provides the replica pools and bookkeeping used by {@link DataSourceConfig} to send read-only transactions to
+ * read replicas. Only active when {@code app.datasource.routing.enabled} is true.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    /**
+     * Creates a read-only connection pool per {@link Workload} on every configured replica, sized like the
+     * workload's primary pool, and monitors the replicas' replication lag.
+     * @param routingProperties the routing settings
+     * @param poolProperties the per-workload pool settings
+     * @param meterRegistry the registry receiving the replica pool metrics, if metrics are enabled
+     * @return the lag monitor owning the replica pools
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceRoutingProperties routingProperties, WorkloadPoolProperties poolProperties,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, Map<Workload, DataSource>> replicas = new LinkedHashMap<>();
+        for (DataSourceRoutingProperties.Replica replica : routingProperties.getReplicas()) {
+            Map<Workload, DataSource> pools = new EnumMap<>(Workload.class);
+            for (Workload workload : Workload.values()) {
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setPoolName("replica-" + replica.getName() + "-" + workload.name().toLowerCase());
+                dataSource.setJdbcUrl(replica.getUrl());
+                dataSource.setUsername(replica.getUsername());
+                dataSource.setPassword(replica.getPassword());
+                dataSource.setDriverClassName(replica.getDriverClassName());
+                DataSourceConfig.configurePool(dataSource, poolProperties.forWorkload(workload));
+                dataSource.setReadOnly(true);
+                meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+                pools.put(workload, dataSource);
+            }
+            replicas.put(replica.getName(), pools);
+        }
+        return new ReplicaLagMonitor(replicas, routingProperties.getMaxReplicaLag());
+    }
+
+    /**
+     * Creates the tracker that keeps a user's reads on the primary right after they wrote.
+     * @param routingProperties the routing settings
+     * @return the read-your-writes tracker
+     */
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(DataSourceRoutingProperties routingProperties) {
+        return new ReadYourWritesTracker(routingProperties.getReadYourWritesWindow(), Clock.systemUTC());
+    }
+}
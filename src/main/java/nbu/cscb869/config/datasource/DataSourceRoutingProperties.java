@@ -0,0 +1,58 @@
+package nbu.cscb869.config.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for sending read-only transactions to MySQL read replicas, bound from {@code app.datasource.routing}.
+ * The primary connection is still configured through the standard {@code spring.datasource} properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    /**
+     * Enables replica routing. When disabled the application uses the single auto-configured data source.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The read replicas that may serve read-only transactions.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Replicas lagging further behind the primary than this are taken out of rotation until they catch up.
+     */
+    private Duration maxReplicaLag = Duration.ofSeconds(5);
+
+    /**
+     * How often the replication lag of every replica is checked.
+     */
+    private Duration lagCheckInterval = Duration.ofSeconds(10);
+
+    /**
+     * How long a user's reads stay on the primary after one of their transactions wrote to it.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(10);
+
+    /**
+     * Connection settings of a single read replica. Its pools take their sizes and timeouts from
+     * {@link WorkloadPoolProperties}, one per workload.
+     */
+    @Getter
+    @Setter
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName = "com.mysql.cj.jdbc.Driver";
+    }
+}
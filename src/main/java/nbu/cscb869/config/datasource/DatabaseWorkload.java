@@ -0,0 +1,18 @@
+package nbu.cscb869.config.datasource;
+
+import java.lang.annotation.*;
+
+/**
+ * Selects the connection pool used by the annotated method, or by every method of the annotated class.
+ * A method-level annotation takes precedence over a class-level one. Work that is not annotated runs on the
+ * {@link Workload#INTERACTIVE} pool.
+ * <p>
+ * The pool is chosen when a connection is first needed. A method that joins a transaction which already holds
+ * a connection keeps using that connection.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DatabaseWorkload {
+    Workload value();
+}
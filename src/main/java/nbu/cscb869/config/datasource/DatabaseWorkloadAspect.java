@@ -0,0 +1,45 @@
+package nbu.cscb869.config.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * Applies {@link DatabaseWorkload} annotations. Runs before the transaction interceptor, so the connection of a
+ * transaction started by the annotated method already comes from the selected pool.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DatabaseWorkloadAspect {
+
+    @Around("@annotation(nbu.cscb869.config.datasource.DatabaseWorkload) || @within(nbu.cscb869.config.datasource.DatabaseWorkload)")
+    public Object applyWorkload(ProceedingJoinPoint joinPoint) throws Throwable {
+        Workload previous = WorkloadContext.enter(resolveWorkload(joinPoint));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            WorkloadContext.restore(previous);
+        }
+    }
+
+    private static Workload resolveWorkload(ProceedingJoinPoint joinPoint) {
+        Method signatureMethod = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Class<?> targetClass = joinPoint.getTarget() != null
+                ? AopUtils.getTargetClass(joinPoint.getTarget()) : signatureMethod.getDeclaringClass();
+        Method method = AopUtils.getMostSpecificMethod(signatureMethod, targetClass);
+        DatabaseWorkload annotation = AnnotatedElementUtils.findMergedAnnotation(method, DatabaseWorkload.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, DatabaseWorkload.class);
+        }
+        return annotation != null ? annotation.value() : Workload.INTERACTIVE;
+    }
+}
@@ -0,0 +1,99 @@
+package nbu.cscb869.config.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a user's reads on the primary for a short window after one of their transactions committed a write,
+ * so that a replica that has not yet caught up never hides the user's own changes from them.
+ * <p>
+ * Users are identified by the name of the current {@link Authentication}, which covers both browser sessions
+ * and API tokens. Work done without an authenticated user is never pinned.
+ */
+public class ReadYourWritesTracker {
+
+    private final Duration window;
+    private final Clock clock;
+    private final Map<String, Instant> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    /**
+     * Registers the current read-write transaction so that its commit pins the current user to the primary.
+     * Calling this more than once per transaction has no further effect.
+     */
+    public void registerWriteTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String user = currentUser();
+        if (user == null) {
+            return;
+        }
+        boolean alreadyRegistered = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(WriteCommitSynchronization.class::isInstance);
+        if (!alreadyRegistered) {
+            TransactionSynchronizationManager.registerSynchronization(new WriteCommitSynchronization(user));
+        }
+    }
+
+    /**
+     * Checks whether the current user committed a write recently enough that their reads must go to the primary.
+     * @return true if reads must be served by the primary
+     */
+    public boolean hasRecentWrite() {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Instant lastWrite = lastWrites.get(user);
+        return lastWrite != null && lastWrite.plus(window).isAfter(clock.instant());
+    }
+
+    /**
+     * Records a committed write by the given user.
+     * @param user the authentication name of the user
+     */
+    public void recordWrite(String user) {
+        lastWrites.put(user, clock.instant());
+    }
+
+    /**
+     * Forgets users whose stickiness window has passed.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.routing.read-your-writes-window:PT10S}")
+    public void evictExpired() {
+        Instant cutoff = clock.instant().minus(window);
+        lastWrites.values().removeIf(lastWrite -> !lastWrite.isAfter(cutoff));
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    private final class WriteCommitSynchronization implements TransactionSynchronization {
+        private final String user;
+
+        private WriteCommitSynchronization(String user) {
+            this.user = user;
+        }
+
+        @Override
+        public void afterCommit() {
+            recordWrite(user);
+        }
+    }
+}
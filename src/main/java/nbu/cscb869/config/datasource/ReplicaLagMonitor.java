@@ -0,0 +1,142 @@
+package nbu.cscb869.config.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the replication lag of every read replica and hands out the replicas that are fit to serve reads.
+ * <p>
+ * A replica is healthy when {@code SHOW REPLICA STATUS} reports a {@code Seconds_Behind_Source} within the
+ * configured maximum. A replica whose replication threads are stopped (lag reported as {@code NULL}) or which
+ * cannot be queried is taken out of rotation. A server that reports no replication status at all is treated as
+ * caught up, since managed services and test databases often expose replicas that way. Replicas start out of
+ * rotation and join it after their first successful check.
+ * <p>
+ * The monitor owns a pool per {@link Workload} for every replica, so reports read from a replica never wait for
+ * the connections of interactive reads there. The lag is checked through the background pool.
+ */
+public class ReplicaLagMonitor implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final String REPLICA_STATUS_QUERY = "SHOW REPLICA STATUS";
+    private static final String LAG_COLUMN = "Seconds_Behind_Source";
+
+    private final Map<String, Map<Workload, DataSource>> replicas;
+    private final List<String> replicaNames;
+    private final Duration maxLag;
+    private final Map<String, Boolean> health = new ConcurrentHashMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    public ReplicaLagMonitor(Map<String, Map<Workload, DataSource>> replicas, Duration maxLag) {
+        Map<String, Map<Workload, DataSource>> copy = new LinkedHashMap<>();
+        replicas.forEach((name, pools) -> copy.put(name, Collections.unmodifiableMap(new EnumMap<>(pools))));
+        this.replicas = Collections.unmodifiableMap(copy);
+        this.replicaNames = List.copyOf(this.replicas.keySet());
+        this.maxLag = maxLag;
+        this.replicaNames.forEach(name -> health.put(name, false));
+    }
+
+    /**
+     * Returns the pools serving the given workload on every configured replica, keyed by replica name, in
+     * configuration order.
+     * @param workload the workload
+     * @return the replica data sources
+     */
+    public Map<String, DataSource> getReplicas(Workload workload) {
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        replicas.forEach((name, workloadPools) -> pools.put(name, workloadPools.get(workload)));
+        return pools;
+    }
+
+    /**
+     * Picks the next healthy replica in round-robin order.
+     * @return the name of a healthy replica, or empty if none is currently fit to serve reads
+     */
+    public Optional<String> nextHealthyReplica() {
+        int count = replicaNames.size();
+        if (count == 0) {
+            return Optional.empty();
+        }
+        int start = Math.floorMod(roundRobin.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            String name = replicaNames.get((start + i) % count);
+            if (health.getOrDefault(name, false)) {
+                return Optional.of(name);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Checks whether the named replica is currently in rotation.
+     * @param name the replica name
+     * @return true if the replica may serve reads
+     */
+    public boolean isHealthy(String name) {
+        return health.getOrDefault(name, false);
+    }
+
+    /**
+     * Queries the replication lag of every replica and updates the rotation accordingly.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.routing.lag-check-interval:PT10S}")
+    public void checkReplicas() {
+        replicas.forEach((name, pools) -> {
+            boolean healthy = isWithinLag(name, pools.get(Workload.BACKGROUND));
+            Boolean previous = health.put(name, healthy);
+            if (previous == null || previous != healthy) {
+                logger.info("Read replica '{}' is now {}.", name, healthy ? "in rotation" : "out of rotation");
+            }
+        });
+    }
+
+    private boolean isWithinLag(String name, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(REPLICA_STATUS_QUERY)) {
+            if (!resultSet.next()) {
+                return true;
+            }
+            long lagSeconds = resultSet.getLong(LAG_COLUMN);
+            if (resultSet.wasNull()) {
+                logger.warn("Read replica '{}' reports no lag; its replication threads are not running.", name);
+                return false;
+            }
+            if (lagSeconds > maxLag.toSeconds()) {
+                logger.warn("Read replica '{}' is {}s behind the primary (max {}s).", name, lagSeconds, maxLag.toSeconds());
+                return false;
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Could not check replication lag of read replica '{}': {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Closes the connection pools of every replica.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Map<Workload, DataSource> pools : replicas.values()) {
+            for (DataSource dataSource : pools.values()) {
+                if (dataSource instanceof Closeable closeable) {
+                    closeable.close();
+                }
+            }
+        }
+    }
+}
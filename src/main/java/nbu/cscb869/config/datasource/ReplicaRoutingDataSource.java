@@ -0,0 +1,52 @@
+package nbu.cscb869.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes connections of read-only transactions to a healthy read replica and everything else to the primary.
+ * <p>
+ * Reads fall back to the primary when no replica is within the allowed lag, or when the current user has just
+ * committed a write (see {@link ReadYourWritesTracker}). This data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction's read-only flag is
+ * only known once the transaction has started, after the JPA transaction manager has asked for a connection.
+ * <p>
+ * There is one instance per {@link Workload}, behind the {@link WorkloadRoutingDataSource}, so a workload's reads
+ * only use that workload's pools on the replicas.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReplicaRoutingDataSource(Workload workload, DataSource primary, ReplicaLagMonitor lagMonitor,
+                                    ReadYourWritesTracker readYourWritesTracker) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+
+        Map<Object, Object> targets = new HashMap<>(lagMonitor.getReplicas(workload));
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWritesTracker.registerWriteTransaction();
+            }
+            return PRIMARY;
+        }
+        if (readYourWritesTracker.hasRecentWrite()) {
+            return PRIMARY;
+        }
+        return lagMonitor.nextHealthyReplica().orElse(PRIMARY);
+    }
+}
@@ -0,0 +1,19 @@
+package nbu.cscb869.config.datasource;
+
+/**
+ * The kinds of database work that get their own connection pool, so that one kind cannot starve another.
+ */
+public enum Workload {
+    /**
+     * Short, user-facing requests such as booking and documenting visits. The default.
+     */
+    INTERACTIVE,
+    /**
+     * Long-running aggregations behind the report endpoints.
+     */
+    REPORTING,
+    /**
+     * Bulk and scheduled work that no user is waiting on.
+     */
+    BACKGROUND
+}
@@ -0,0 +1,62 @@
+package nbu.cscb869.config.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the {@link Workload} of the code running on the current thread.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    /**
+     * Returns the workload of the current thread.
+     * @return the current workload, {@link Workload#INTERACTIVE} if none was set
+     */
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        return workload != null ? workload : Workload.INTERACTIVE;
+    }
+
+    /**
+     * Runs the given action under the given workload and restores the previous workload afterwards.
+     * @param workload the workload to run under
+     * @param action the action to run
+     * @param <T> the result type
+     * @return the result of the action
+     */
+    public static <T> T callWithin(Workload workload, Supplier<T> action) {
+        Workload previous = enter(workload);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Switches the current thread to the given workload.
+     * @param workload the workload to switch to
+     * @return the previous workload, to be handed to {@link #restore(Workload)}; null if none was set
+     */
+    static Workload enter(Workload workload) {
+        Workload previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+
+    /**
+     * Restores the workload that was current before {@link #enter(Workload)}.
+     * @param previous the value returned by {@link #enter(Workload)}
+     */
+    static void restore(Workload previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
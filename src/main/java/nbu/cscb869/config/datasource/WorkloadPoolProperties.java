@@ -0,0 +1,68 @@
+package nbu.cscb869.config.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection pool settings per {@link Workload}, bound from {@code app.datasource.pools}.
+ * All pools connect to the database configured by the standard {@code spring.datasource} properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.datasource.pools")
+public class WorkloadPoolProperties {
+
+    private Pool interactive = new Pool(10, 2, Duration.ofSeconds(5), Duration.ofSeconds(10));
+    private Pool reporting = new Pool(4, 1, Duration.ofSeconds(30), Duration.ofMinutes(2));
+    private Pool background = new Pool(3, 1, Duration.ofSeconds(30), Duration.ZERO);
+
+    /**
+     * Returns the settings of the pool serving the given workload.
+     * @param workload the workload
+     * @return the pool settings
+     */
+    public Pool forWorkload(Workload workload) {
+        return switch (workload) {
+            case INTERACTIVE -> interactive;
+            case REPORTING -> reporting;
+            case BACKGROUND -> background;
+        };
+    }
+
+    /**
+     * Settings of a single pool.
+     */
+    @Getter
+    @Setter
+    public static class Pool {
+        /**
+         * The largest number of connections the pool may hold.
+         */
+        private int maximumPoolSize;
+        /**
+         * The number of idle connections the pool keeps open.
+         */
+        private int minimumIdle;
+        /**
+         * How long a caller waits for a free connection before failing.
+         */
+        private Duration connectionTimeout;
+        /**
+         * The longest a single SELECT may run (MySQL {@code max_execution_time}); zero disables the limit.
+         */
+        private Duration statementTimeout;
+
+        public Pool() {
+        }
+
+        public Pool(int maximumPoolSize, int minimumIdle, Duration connectionTimeout, Duration statementTimeout) {
+            this.maximumPoolSize = maximumPoolSize;
+            this.minimumIdle = minimumIdle;
+            this.connectionTimeout = connectionTimeout;
+            this.statementTimeout = statementTimeout;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package nbu.cscb869.config.diagnoses;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the ICD-10 diagnosis code loader.
+ */
+@Configuration
+@EnableConfigurationProperties(DiagnosisCodeProperties.class)
+public class DiagnosisCodeConfig {
+}
@@ -0,0 +1,17 @@
+package nbu.cscb869.config.diagnoses;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the ICD-10 diagnosis code loader, bound from {@code app.diagnosis-codes}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.diagnosis-codes")
+public class DiagnosisCodeProperties {
+
+    /** How many codes are written per upsert statement. */
+    private int batchSize = 500;
+}
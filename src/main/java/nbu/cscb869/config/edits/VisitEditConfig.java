@@ -0,0 +1,12 @@
+package nbu.cscb869.config.edits;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of concurrent visit editing.
+ */
+@Configuration
+@EnableConfigurationProperties(VisitEditProperties.class)
+public class VisitEditConfig {
+}
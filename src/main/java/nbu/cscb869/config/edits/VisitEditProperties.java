@@ -0,0 +1,25 @@
+package nbu.cscb869.config.edits;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of concurrent visit editing, bound from {@code app.visit-edits}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.visit-edits")
+public class VisitEditProperties {
+
+    /**
+     * How long the superseded versions of a visit are kept. An edit based on a version older than this can no longer
+     * be merged; every field it changes that has changed since is reported as a conflict.
+     */
+    private Duration revisionRetention = Duration.ofDays(30);
+
+    /** How often revisions past their retention are deleted. */
+    private Duration purgeInterval = Duration.ofHours(6);
+}
@@ -0,0 +1,12 @@
+package nbu.cscb869.config.events;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the {@link nbu.cscb869.services.services.utility.DomainEventBus}.
+ */
+@Configuration
+@EnableConfigurationProperties(DomainEventProperties.class)
+public class DomainEventConfig {
+}
@@ -0,0 +1,52 @@
+package nbu.cscb869.config.events;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the domain event bus, bound from {@code app.events}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.events")
+public class DomainEventProperties {
+
+    /** Delivery lanes. Events of one aggregate always use the same lane, so they are delivered in order. */
+    private int lanes = 4;
+
+    /** Events each lane holds while its listeners catch up. */
+    private int queueCapacity = 1000;
+
+    /**
+     * How long a publisher waits for room in a full lane before delivering the lane's queued events itself, and then
+     * for the lane's thread to leave a listener before the event is dropped from live delivery.
+     */
+    private Duration publishTimeout = Duration.ofMillis(100);
+
+    /** How long queued events may take to be delivered on shutdown. */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    private Log log = new Log();
+
+    /**
+     * The durable event log in {@code domain_events}, used to replay events into new or rebuilt projections.
+     */
+    @Getter
+    @Setter
+    public static class Log {
+        /** Whether events are also written to the log, in the transaction that publishes them. */
+        private boolean enabled = true;
+
+        /** How long logged events are kept. */
+        private Duration retention = Duration.ofDays(30);
+
+        /** How often events past their retention are deleted. */
+        private Duration purgeInterval = Duration.ofHours(6);
+
+        /** Events read from the log per query while replaying. */
+        private int replayBatchSize = 500;
+    }
+}
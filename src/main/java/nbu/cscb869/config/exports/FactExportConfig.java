@@ -0,0 +1,12 @@
+package nbu.cscb869.config.exports;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the columnar visit export.
+ */
+@Configuration
+@EnableConfigurationProperties(FactExportProperties.class)
+public class FactExportConfig {
+}
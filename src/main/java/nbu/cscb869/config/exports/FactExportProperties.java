@@ -0,0 +1,33 @@
+package nbu.cscb869.config.exports;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the columnar visit export, bound from {@code app.fact-export}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.fact-export")
+public class FactExportProperties {
+
+    /** The directory the monthly partitions and their manifest are written to. */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "medical-record", "exports");
+
+    /** Whether an incremental export runs every {@link #interval}; exports can always be started through the API. */
+    private boolean enabled = false;
+
+    /** The delay between the end of one scheduled export and the start of the next. */
+    private Duration interval = Duration.ofHours(1);
+
+    /** How many rows are buffered before they are written out as one record batch. */
+    private int batchRows = 8192;
+
+    /** The most off-heap memory an export may hold, for the dictionaries and the batch being filled. */
+    private DataSize bufferLimit = DataSize.ofMegabytes(64);
+}
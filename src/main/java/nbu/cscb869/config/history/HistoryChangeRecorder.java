@@ -0,0 +1,110 @@
+package nbu.cscb869.config.history;
+
+import nbu.cscb869.config.changes.EntityUpdates;
+import nbu.cscb869.data.models.Diagnosis;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.Medicine;
+import nbu.cscb869.data.models.Patient;
+import nbu.cscb869.data.models.SickLeave;
+import nbu.cscb869.data.models.Specialty;
+import nbu.cscb869.data.models.Treatment;
+import nbu.cscb869.data.models.Visit;
+import nbu.cscb869.services.data.events.DiagnosisCodesLoaded;
+import nbu.cscb869.services.data.events.DoctorImageChanged;
+import nbu.cscb869.services.data.events.DomainEvent;
+import nbu.cscb869.services.services.utility.PatientHistoryCache;
+import nbu.cscb869.services.services.utility.contracts.DomainEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Evicts the {@link PatientHistoryCache} snapshots a change makes stale, once the transaction commits. Doctors,
+ * specialties and diagnoses may appear in any timeline, so changing or deleting one evicts every snapshot; a patient
+ * evicts that patient's snapshot. Visits themselves are applied to the snapshots in place by the visit service, and
+ * a sick leave, treatment or medicine of a visit evicts the patient's snapshot unless the visit service applies its
+ * visit in the same transaction (see {@link PatientHistoryCache#visitRecordChanged}).
+ * <p>
+ * Bulk updates bypass Hibernate's listeners, so the ones changing timeline data are announced as domain events
+ * instead: {@link DoctorImageChanged} and {@link DiagnosisCodesLoaded}. Changes made outside the application are
+ * picked up once snapshots expire after {@code app.history-cache.time-to-live}.
+ */
+public class HistoryChangeRecorder implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        DomainEventListener {
+
+    private final PatientHistoryCache patientHistoryCache;
+
+    public HistoryChangeRecorder(PatientHistoryCache patientHistoryCache) {
+        this.patientHistoryCache = patientHistoryCache;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        recordChangeTo(visitOf(event.getEntity()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        if (isSharedByTimelines(entity)) {
+            patientHistoryCache.evictAll();
+        } else if (entity instanceof Patient patient) {
+            patientHistoryCache.evict(patient.getId());
+        } else if (visitOf(entity) != null) {
+            recordChangeTo(visitOf(entity));
+            // A sick leave or treatment moved to another visit also leaves the history of the previous one.
+            if (EntityUpdates.oldValue(event, "visit") instanceof Visit previous) {
+                recordChangeTo(previous);
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (isSharedByTimelines(entity)) {
+            patientHistoryCache.evictAll();
+        } else if (entity instanceof Patient patient) {
+            patientHistoryCache.evict(patient.getId());
+        } else {
+            recordChangeTo(visitOf(entity));
+        }
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof DoctorImageChanged
+                || (event instanceof DiagnosisCodesLoaded loaded && loaded.updated() > 0)) {
+            patientHistoryCache.evictAll();
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static boolean isSharedByTimelines(Object entity) {
+        return entity instanceof Doctor || entity instanceof Specialty || entity instanceof Diagnosis;
+    }
+
+    /** Returns the visit a record embedded in visits belongs to, or null for any other entity. */
+    private static Visit visitOf(Object entity) {
+        return switch (entity) {
+            case SickLeave sickLeave -> sickLeave.getVisit();
+            case Treatment treatment -> treatment.getVisit();
+            case Medicine medicine -> medicine.getTreatment() == null ? null : medicine.getTreatment().getVisit();
+            case null, default -> null;
+        };
+    }
+
+    private void recordChangeTo(Visit visit) {
+        if (visit != null && visit.getPatient() != null) {
+            patientHistoryCache.visitRecordChanged(visit.getPatient().getId(), visit.getId());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package nbu.cscb869.config.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import nbu.cscb869.config.datasource.DataSourceRoutingProperties;
+import nbu.cscb869.services.services.utility.PatientHistoryCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Creates the {@link PatientHistoryCache} and evicts its snapshots when the data they embed changes.
+ */
+@Configuration
+@EnableConfigurationProperties(PatientHistoryCacheProperties.class)
+public class PatientHistoryCacheConfig {
+
+    /**
+     * Creates the cache of the patients' history timelines.
+     * @param properties the cache settings
+     * @param objectMapper the mapper the snapshots are serialized with
+     * @param routingProperties the read replica settings, if replicas are enabled
+     * @param meterRegistry the registry receiving the cache metrics
+     * @return the history cache
+     */
+    @Bean
+    public PatientHistoryCache patientHistoryCache(PatientHistoryCacheProperties properties, ObjectMapper objectMapper,
+                                                   ObjectProvider<DataSourceRoutingProperties> routingProperties,
+                                                   MeterRegistry meterRegistry) {
+        return new PatientHistoryCache(properties, objectMapper, routingProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    /**
+     * Registers the change recorder with Hibernate, so that it sees every insert, update and delete of an entity
+     * embedded in the patients' timelines. Being a domain event listener, it also receives the bulk changes.
+     * @param entityManagerFactory the entity manager factory
+     * @param patientHistoryCache the cache to evict snapshots from
+     * @return the recorder
+     */
+    @Bean
+    public HistoryChangeRecorder historyChangeRecorder(EntityManagerFactory entityManagerFactory,
+                                                       PatientHistoryCache patientHistoryCache) {
+        HistoryChangeRecorder recorder = new HistoryChangeRecorder(patientHistoryCache);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, recorder);
+        registry.appendListeners(EventType.POST_UPDATE, recorder);
+        registry.appendListeners(EventType.POST_DELETE, recorder);
+        return recorder;
+    }
+}
@@ -0,0 +1,29 @@
+package nbu.cscb869.config.history;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of the patient medical-history snapshot cache, bound from {@code app.history-cache}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.history-cache")
+public class PatientHistoryCacheProperties {
+
+    /** Whether history pages are served from snapshots. When disabled, every view reads the database. */
+    private boolean enabled = true;
+
+    /** Total size of the serialized snapshots kept in memory; least recently viewed patients are evicted first. */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * How long a snapshot is served after it was read from the database. Bounds how long changes the application is
+     * not told about, such as edits made directly in the database, stay invisible.
+     */
+    private Duration timeToLive = Duration.ofMinutes(30);
+}
@@ -0,0 +1,51 @@
+package nbu.cscb869.config.images;
+
+import com.cloudinary.Cloudinary;
+import nbu.cscb869.services.services.utility.CloudinaryImageStore;
+import nbu.cscb869.services.services.utility.LocalImageStore;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Wires the doctor image pipeline: the image store selected by {@code app.images.store} and the bounded executor that
+ * uploads images in the background.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ImagePipelineProperties.class)
+public class ImagePipelineConfig {
+
+    /**
+     * Creates the image store.
+     * @param properties the image pipeline settings
+     * @param cloudinary the Cloudinary client
+     * @return a Cloudinary-backed store, or a local directory store when {@code app.images.store} is {@code LOCAL}
+     */
+    @Bean
+    public ImageStore imageStore(ImagePipelineProperties properties, Cloudinary cloudinary) {
+        return switch (properties.getStore()) {
+            case CLOUDINARY -> new CloudinaryImageStore(cloudinary);
+            case LOCAL -> new LocalImageStore(properties.getLocalStoreDir());
+        };
+    }
+
+    /**
+     * Creates the executor for image uploads. Tasks that do not fit the queue are rejected rather than run on the
+     * caller, because the caller may be a request thread that still holds a database connection.
+     * @param properties the image pipeline settings
+     * @return the upload executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageUploadExecutor(ImagePipelineProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkerThreads());
+        executor.setMaxPoolSize(properties.getWorkerThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("ImageUpload-");
+        return executor;
+    }
+}
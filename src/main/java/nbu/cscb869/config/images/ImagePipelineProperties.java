@@ -0,0 +1,126 @@
+package nbu.cscb869.config.images;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the doctor image pipeline, bound from {@code app.images}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.images")
+public class ImagePipelineProperties {
+
+    private static final Path WORK_DIR = Path.of(System.getProperty("java.io.tmpdir"), "medical-record");
+
+    /** Where uploaded images are stored. */
+    private Store store = Store.CLOUDINARY;
+
+    /** Directory of the {@link Store#LOCAL} store. */
+    private Path localStoreDir = WORK_DIR.resolve("images");
+
+    /** Directory holding uploads until they have been sent to the store. */
+    private Path stagingDir = WORK_DIR.resolve("staging");
+
+    /** Directory holding the thumbnails shown on list pages. */
+    private Path thumbnailDir = WORK_DIR.resolve("thumbnails");
+
+    /** Longest side of a thumbnail, in pixels. */
+    private int thumbnailSize = 160;
+
+    /** Largest accepted upload. */
+    private DataSize maxFileSize = DataSize.ofMegabytes(10);
+
+    /** Upload attempts per pass before the image is left for the next resume pass. */
+    private int uploadAttempts = 4;
+
+    /** Delay before the first retry; doubled on every further retry. */
+    private Duration uploadBackoff = Duration.ofSeconds(1);
+
+    /** Threads uploading images in the background. */
+    private int workerThreads = 2;
+
+    /** Uploads waiting for a worker before new ones are left for the next resume pass. */
+    private int queueCapacity = 100;
+
+    /** How often images still pending are picked up again, e.g. after a restart or a full queue. */
+    private Duration resumeInterval = Duration.ofMinutes(5);
+
+    /** Settings of the image endpoint that serves stored images through a local disk cache. */
+    private Proxy proxy = new Proxy();
+
+    /**
+     * Settings of the image proxy.
+     */
+    @Getter
+    @Setter
+    public static class Proxy {
+
+        /** Directory of the disk cache. */
+        private Path cacheDir = WORK_DIR.resolve("image-cache");
+
+        /** Size of the disk cache; the least recently used images are evicted beyond it. */
+        private DataSize maxCacheSize = DataSize.ofMegabytes(256);
+
+        /** Widths the proxy resizes to; a requested width is rounded up to the next one. */
+        private List<Integer> widths = List.of(64, 160, 320, 640);
+
+        /** How long browsers may reuse an image before revalidating it with its ETag. */
+        private Duration maxAge = Duration.ofHours(1);
+
+        /** Timeout for fetching an image from the store. */
+        private Duration fetchTimeout = Duration.ofSeconds(10);
+
+        /**
+         * How long an evicted image handed to Tomcat's sendfile support stays on disk after the request handler
+         * returned, because the connector only opens it by name afterwards.
+         */
+        private Duration sendfileLinger = Duration.ofMinutes(1);
+    }
+
+    /** Settings of the queue that deletes images from the store and of the orphan reconciliation. */
+    private Deletion deletion = new Deletion();
+
+    /**
+     * Settings of image deletion.
+     */
+    @Getter
+    @Setter
+    public static class Deletion {
+
+        /** Images deleted per store call; capped at what the store accepts. */
+        private int batchSize = 100;
+
+        /** How often the deletion queue is drained. */
+        private Duration interval = Duration.ofMinutes(1);
+
+        /** Delay before a failed batch is retried; doubled on every further failure. */
+        private Duration retryBackoff = Duration.ofMinutes(1);
+
+        /** Longest delay between retries of a failed batch. */
+        private Duration maxRetryBackoff = Duration.ofHours(6);
+
+        /** How often the store is compared with the database to find orphaned images. */
+        private Duration reconcileInterval = Duration.ofHours(24);
+
+        /** Delay after startup before the first reconciliation. */
+        private Duration reconcileInitialDelay = Duration.ofMinutes(10);
+
+        /** Images younger than this are never treated as orphans, because their upload may not be recorded yet. */
+        private Duration orphanGracePeriod = Duration.ofHours(1);
+    }
+
+    /**
+     * Image store implementations.
+     */
+    public enum Store {
+        CLOUDINARY,
+        LOCAL
+    }
+}
@@ -0,0 +1,12 @@
+package nbu.cscb869.config.live;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the {@link nbu.cscb869.services.services.utility.LiveUpdateHub}.
+ */
+@Configuration
+@EnableConfigurationProperties(LiveUpdateProperties.class)
+public class LiveUpdateConfig {
+}
@@ -0,0 +1,37 @@
+package nbu.cscb869.config.live;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the live dashboard updates, bound from {@code app.live}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.live")
+public class LiveUpdateProperties {
+
+    /** Open connections allowed at once; further clients are told to retry later. */
+    private int maxConnections = 10000;
+
+    /** Updates queued per connection. A client that falls this far behind is told to reload instead. */
+    private int bufferSize = 32;
+
+    /** Threads writing queued updates to the connections. */
+    private int senderThreads = 4;
+
+    /** How long a connection stays open before the browser is made to reconnect. */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    /** How often an idle connection is sent a comment, so that dead connections are noticed and closed. */
+    private Duration heartbeatInterval = Duration.ofSeconds(25);
+
+    /** How long the browser waits before reconnecting after the connection closes. */
+    private Duration retry = Duration.ofSeconds(5);
+
+    /** How long a client turned away because of {@link #maxConnections} waits before trying again. */
+    private Duration rejectedRetry = Duration.ofMinutes(1);
+}
@@ -0,0 +1,12 @@
+package nbu.cscb869.config.medications;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the medication catalogue.
+ */
+@Configuration
+@EnableConfigurationProperties(MedicationCatalogueProperties.class)
+public class MedicationCatalogueConfig {
+}
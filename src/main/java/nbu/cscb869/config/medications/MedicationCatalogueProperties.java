@@ -0,0 +1,25 @@
+package nbu.cscb869.config.medications;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the medication catalogue, bound from {@code app.medications}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.medications")
+public class MedicationCatalogueProperties {
+
+    /** The most names a suggestion request returns. */
+    private int maxSuggestions = 10;
+
+    /**
+     * How often the in-memory catalogue is reloaded from the database, to pick up medications added by other
+     * instances of the application.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(15);
+}
@@ -0,0 +1,73 @@
+package nbu.cscb869.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wires the application-level metrics into Hibernate and Spring MVC.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Registers the statement counter as Hibernate's statement inspector so that SQL statements can be counted per request.
+     * @param statementCounter the statement counter
+     * @return the customizer adding the inspector to the Hibernate settings
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(SqlStatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    /**
+     * Registers the filter recording SQL statements per HTTP request, ahead of the security filter chain.
+     * @param statementCounter the statement counter
+     * @param meterRegistry the registry receiving the metric
+     * @return the filter registration
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatementMetricsFilter> sqlStatementMetricsFilter(SqlStatementCounter statementCounter,
+                                                                                      MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatementMetricsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementMetricsFilter(statementCounter, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    /**
+     * Creates the interceptor enforcing {@link nbu.cscb869.config.annotations.SqlBudget} declarations; it is shared with
+     * {@link SqlBudgetResponseBodyAdvice}, which fails handlers writing a response body.
+     * @param statementCounter the statement counter
+     * @param meterRegistry the registry receiving budget violations
+     * @param mode whether budgets are ignored, logged or enforced
+     * @return the interceptor
+     */
+    @Bean
+    public SqlBudgetInterceptor sqlBudgetInterceptor(SqlStatementCounter statementCounter, MeterRegistry meterRegistry,
+                                                     @Value("${app.sql-budget.mode:OFF}") SqlBudgetMode mode) {
+        return new SqlBudgetInterceptor(statementCounter, meterRegistry, mode);
+    }
+
+    /**
+     * Registers the SQL budget interceptor with Spring MVC.
+     * @param interceptor the SQL budget interceptor
+     * @return the MVC configurer adding the interceptor
+     */
+    @Bean
+    public WebMvcConfigurer sqlBudgetConfigurer(SqlBudgetInterceptor interceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor);
+            }
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package nbu.cscb869.config.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Times every public method of the service implementations and records, per class and method:
+ * <ul>
+ *     <li>{@code medical.service.invocations}: latency histogram, tagged with the outcome and exception</li>
+ *     <li>{@code medical.service.errors}: number of invocations that threw</li>
+ *     <li>{@code medical.service.result.size}: elements returned by methods that return a page, collection or map</li>
+ * </ul>
+ * Repository calls are timed by Spring Boot's {@code spring.data.repository.invocations} metric.
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    public static final String INVOCATIONS = "medical.service.invocations";
+    public static final String ERRORS = "medical.service.errors";
+    public static final String RESULT_SIZE = "medical.service.result.size";
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * nbu.cscb869.services.services.*.*(..))")
+    public Object recordInvocation(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName();
+        String methodName = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed();
+            recordResultSize(className, methodName, result);
+            return result;
+        } catch (Throwable t) {
+            exception = t.getClass().getSimpleName();
+            meterRegistry.counter(ERRORS, "class", className, "method", methodName, "exception", exception).increment();
+            throw t;
+        } finally {
+            sample.stop(Timer.builder(INVOCATIONS)
+                    .description("Latency of service method invocations")
+                    .tags("class", className, "method", methodName,
+                            "outcome", "none".equals(exception) ? "SUCCESS" : "ERROR", "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private void recordResultSize(String className, String methodName, Object result) {
+        Integer size = sizeOf(result);
+        if (size != null) {
+            DistributionSummary.builder(RESULT_SIZE)
+                    .description("Number of elements returned by service methods")
+                    .tags("class", className, "method", methodName)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(size);
+        }
+    }
+
+    private static Integer sizeOf(Object result) {
+        if (result instanceof CompletableFuture<?> future) {
+            return future.isDone() && !future.isCompletedExceptionally() ? sizeOf(future.getNow(null)) : null;
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,94 @@
+package nbu.cscb869.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import nbu.cscb869.common.exceptions.ExceptionMessages;
+import nbu.cscb869.common.exceptions.SqlBudgetExceededException;
+import nbu.cscb869.config.annotations.SqlBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Checks the statements counted by {@link SqlStatementCounter} against the {@link SqlBudget} of the handler method.
+ * <p>
+ * Violations are logged and counted as {@code http.server.requests.sql.budget.exceeded} once the request has completed,
+ * so statements issued while rendering the view or serializing the response body are included. By then the response
+ * is committed, so in {@link SqlBudgetMode#FAIL} the request is failed earlier, on the statements issued so far: before
+ * the view renders (here, in {@link #postHandle}) or before the body is written ({@link SqlBudgetResponseBodyAdvice}).
+ */
+public class SqlBudgetInterceptor implements HandlerInterceptor {
+
+    public static final String EXCEEDED_METRIC_NAME = "http.server.requests.sql.budget.exceeded";
+    private static final String BUDGET_ATTRIBUTE = SqlBudgetInterceptor.class.getName() + ".budget";
+    private static final Logger logger = LoggerFactory.getLogger(SqlBudgetInterceptor.class);
+
+    private final SqlStatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+    private final SqlBudgetMode mode;
+
+    public SqlBudgetInterceptor(SqlStatementCounter statementCounter, MeterRegistry meterRegistry, SqlBudgetMode mode) {
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (mode != SqlBudgetMode.OFF && handler instanceof HandlerMethod handlerMethod) {
+            SqlBudget budget = handlerMethod.getMethodAnnotation(SqlBudget.class);
+            if (budget != null) {
+                request.setAttribute(BUDGET_ATTRIBUTE, budget.value());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        // Without a model and view the response body has already been written; see SqlBudgetResponseBodyAdvice.
+        if (modelAndView != null) {
+            failIfExceeded(request);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(BUDGET_ATTRIBUTE) instanceof Integer budget)) {
+            return;
+        }
+        int statements = statementCounter.currentCount();
+        if (statements <= budget) {
+            return;
+        }
+
+        String uri = uriOf(request);
+        meterRegistry.counter(EXCEEDED_METRIC_NAME, "method", request.getMethod(), "uri", uri).increment();
+        logger.warn(ExceptionMessages.formatSqlBudgetExceeded(request.getMethod(), uri, statements, budget));
+    }
+
+    /**
+     * Fails the request if it runs in {@link SqlBudgetMode#FAIL} and has already gone over the budget of its handler.
+     * @param request the current request
+     * @throws SqlBudgetExceededException if the budget has been exceeded
+     */
+    void failIfExceeded(HttpServletRequest request) {
+        if (mode != SqlBudgetMode.FAIL || !(request.getAttribute(BUDGET_ATTRIBUTE) instanceof Integer budget)) {
+            return;
+        }
+        int statements = statementCounter.currentCount();
+        if (statements > budget) {
+            throw new SqlBudgetExceededException(
+                    ExceptionMessages.formatSqlBudgetExceeded(request.getMethod(), uriOf(request), statements, budget));
+        }
+    }
+
+    private static String uriOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+}
@@ -0,0 +1,19 @@
+package nbu.cscb869.config.metrics;
+
+/**
+ * What happens when a request exceeds its {@link nbu.cscb869.config.annotations.SqlBudget}.
+ */
+public enum SqlBudgetMode {
+    /**
+     * Budgets are not checked.
+     */
+    OFF,
+    /**
+     * Violations are logged and counted.
+     */
+    LOG,
+    /**
+     * Violations are logged, counted and fail the request.
+     */
+    FAIL
+}
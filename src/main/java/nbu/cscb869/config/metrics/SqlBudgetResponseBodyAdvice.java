@@ -0,0 +1,44 @@
+package nbu.cscb869.config.metrics;
+
+import nbu.cscb869.config.annotations.SqlBudget;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Fails {@link SqlBudget} handlers that return a response body ({@code @ResponseBody}, {@code @RestController},
+ * {@code ResponseEntity}) before the body is written, while the response can still be turned into an error.
+ * The interceptor's {@code postHandle} runs only after the body has been written.
+ * <p>
+ * The interceptor is looked up lazily because web slice tests pick up this advice without {@link MetricsConfig}.
+ */
+@ControllerAdvice
+public class SqlBudgetResponseBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ObjectProvider<SqlBudgetInterceptor> interceptor;
+
+    public SqlBudgetResponseBodyAdvice(ObjectProvider<SqlBudgetInterceptor> interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(SqlBudget.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            interceptor.ifAvailable(budgets -> budgets.failIfExceeded(servletRequest.getServletRequest()));
+        }
+        return body;
+    }
+}
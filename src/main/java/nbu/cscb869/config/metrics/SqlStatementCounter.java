@@ -0,0 +1,51 @@
+package nbu.cscb869.config.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while counting is active.
+ * Registered with Hibernate as its {@link StatementInspector}; the statements themselves are passed through unchanged.
+ * <p>
+ * Work handed off to other threads, such as {@code @Async} service methods, is not counted.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Starts counting statements on the current thread from zero.
+     */
+    public void startCounting() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Returns the number of statements counted on the current thread so far.
+     * @return the statement count, or 0 if counting is not active
+     */
+    public int currentCount() {
+        int[] count = COUNT.get();
+        return count != null ? count[0] : 0;
+    }
+
+    /**
+     * Stops counting on the current thread.
+     * @return the number of statements counted since {@link #startCounting()}
+     */
+    public int stopCounting() {
+        int count = currentCount();
+        COUNT.remove();
+        return count;
+    }
+}
@@ -0,0 +1,94 @@
+package nbu.cscb869.config.rankings;
+
+import nbu.cscb869.config.changes.EntityUpdates;
+import nbu.cscb869.data.models.Diagnosis;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.SickLeave;
+import nbu.cscb869.data.models.Visit;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Tells the {@link FrequencyRankings} how a change moves the counts they rank: a visit counts for its diagnosis and
+ * month, and a sick leave for the doctor of its visit and the month it starts in. The rankings apply the change once
+ * the transaction commits.
+ * <p>
+ * An update is only reported when Hibernate knows the previous values; otherwise the next recount corrects the
+ * rankings, as it does for bulk updates.
+ */
+public class RankingChangeRecorder implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Set<String> VISIT_RANKS = Set.of("diagnosis", "visitDate", "doctor");
+    private static final Set<String> SICK_LEAVE_RANKS = Set.of("startDate", "visit");
+
+    private final FrequencyRankings frequencyRankings;
+
+    public RankingChangeRecorder(FrequencyRankings frequencyRankings) {
+        this.frequencyRankings = frequencyRankings;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Visit visit) {
+            frequencyRankings.visitChanged(null, null, idOf(visit.getDiagnosis()), visit.getVisitDate());
+        } else if (event.getEntity() instanceof SickLeave sickLeave) {
+            frequencyRankings.sickLeaveChanged(null, null, doctorOf(sickLeave.getVisit()), sickLeave.getStartDate());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getOldState() == null) {
+            return;
+        }
+        if (event.getEntity() instanceof Visit visit && EntityUpdates.changed(event, VISIT_RANKS)) {
+            frequencyRankings.visitChanged(idOf((Diagnosis) EntityUpdates.oldValue(event, "diagnosis")),
+                    (LocalDate) EntityUpdates.oldValue(event, "visitDate"), idOf(visit.getDiagnosis()),
+                    visit.getVisitDate());
+            SickLeave sickLeave = visit.getSickLeave();
+            if (sickLeave != null) {
+                frequencyRankings.sickLeaveChanged(idOf((Doctor) EntityUpdates.oldValue(event, "doctor")),
+                        sickLeave.getStartDate(), idOf(visit.getDoctor()), sickLeave.getStartDate());
+            }
+        } else if (event.getEntity() instanceof SickLeave sickLeave && EntityUpdates.changed(event, SICK_LEAVE_RANKS)) {
+            frequencyRankings.sickLeaveChanged(doctorOf((Visit) EntityUpdates.oldValue(event, "visit")),
+                    (LocalDate) EntityUpdates.oldValue(event, "startDate"), doctorOf(sickLeave.getVisit()),
+                    sickLeave.getStartDate());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Visit visit) {
+            frequencyRankings.visitChanged(idOf(visit.getDiagnosis()), visit.getVisitDate(), null, null);
+        } else if (event.getEntity() instanceof SickLeave sickLeave) {
+            frequencyRankings.sickLeaveChanged(doctorOf(sickLeave.getVisit()), sickLeave.getStartDate(), null, null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static Long doctorOf(Visit visit) {
+        return visit == null ? null : idOf(visit.getDoctor());
+    }
+
+    private static Long idOf(Diagnosis diagnosis) {
+        return diagnosis == null ? null : diagnosis.getId();
+    }
+
+    private static Long idOf(Doctor doctor) {
+        return doctor == null ? null : doctor.getId();
+    }
+}
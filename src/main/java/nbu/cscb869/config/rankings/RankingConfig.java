@@ -0,0 +1,38 @@
+package nbu.cscb869.config.rankings;
+
+import jakarta.persistence.EntityManagerFactory;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the "most frequent" rankings and feeds them the visit and sick leave changes.
+ */
+@Configuration
+@EnableConfigurationProperties(RankingProperties.class)
+public class RankingConfig {
+
+    /**
+     * Registers the change recorder with Hibernate, so that it sees every insert, update and delete of a visit or sick
+     * leave.
+     * @param entityManagerFactory the entity manager factory
+     * @param frequencyRankings the rankings to keep up to date
+     * @return the recorder
+     */
+    @Bean
+    public RankingChangeRecorder rankingChangeRecorder(EntityManagerFactory entityManagerFactory,
+                                                       FrequencyRankings frequencyRankings) {
+        RankingChangeRecorder recorder = new RankingChangeRecorder(frequencyRankings);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, recorder);
+        registry.appendListeners(EventType.POST_UPDATE, recorder);
+        registry.appendListeners(EventType.POST_DELETE, recorder);
+        return recorder;
+    }
+}
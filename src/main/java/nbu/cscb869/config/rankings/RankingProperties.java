@@ -0,0 +1,31 @@
+package nbu.cscb869.config.rankings;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-memory "most frequent" rankings, bound from {@code app.rankings}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.rankings")
+public class RankingProperties {
+
+    /** The most entries a ranked report returns, and the number returned when no limit is given. */
+    private int maxLimit = 100;
+
+    /**
+     * How many months, counting back from the current one, diagnoses are ranked for in memory. Earlier months are
+     * ranked by the database.
+     */
+    private int retainedMonths = 13;
+
+    /**
+     * How often the rankings are recounted from the database, after the first recount at startup. Changes made through
+     * this instance are counted at once; those made by other instances, or by bulk updates, on the next recount.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(15);
+}
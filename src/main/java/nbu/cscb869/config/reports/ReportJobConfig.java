@@ -0,0 +1,32 @@
+package nbu.cscb869.config.reports;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Wires the bounded executor that computes background report jobs.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ReportJobProperties.class)
+public class ReportJobConfig {
+
+    /**
+     * Creates the executor for report jobs. Jobs that do not fit the queue are rejected rather than run on the caller;
+     * they stay queued in the database and are picked up by a later poll.
+     * @param properties the report job settings
+     * @return the report job executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportJobExecutor(ReportJobProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkerThreads());
+        executor.setMaxPoolSize(properties.getWorkerThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("ReportJob-");
+        return executor;
+    }
+}
@@ -0,0 +1,31 @@
+package nbu.cscb869.config.reports;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the admin reports computed as background jobs, bound from {@code app.reports.jobs}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.reports.jobs")
+public class ReportJobProperties {
+
+    /** How many jobs are computed at the same time on this instance, each on a reporting connection. */
+    private int workerThreads = 2;
+
+    /** How many jobs may wait for a free worker; the rest wait in the database for the next poll. */
+    private int queueCapacity = 20;
+
+    /** How long a result, or the error of a failed job, is kept after the job finishes. */
+    private Duration resultTtl = Duration.ofHours(1);
+
+    /** How often queued jobs are picked up from the database, and expired ones purged. */
+    private Duration pollInterval = Duration.ofSeconds(10);
+
+    /** How long a job may run before it is assumed lost, such as with a stopped instance, and queued again. */
+    private Duration runTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,45 @@
+package nbu.cscb869.config.reports;
+
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadPoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Wires the bounded executor that runs the partitions of date range reports.
+ */
+@Configuration
+@EnableConfigurationProperties(ReportPartitionProperties.class)
+public class ReportPartitionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportPartitionConfig.class);
+
+    /**
+     * Creates the executor for report partitions. Every worker holds a connection while its partition runs, so there
+     * are never as many workers as reporting connections: the reports that do not run in partitions, and the requests
+     * waiting for theirs, always find one.
+     * @param properties the report partition settings
+     * @param poolProperties the connection pool settings
+     * @return the partition executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportPartitionExecutor(ReportPartitionProperties properties,
+                                                          WorkloadPoolProperties poolProperties) {
+        int connections = poolProperties.forWorkload(Workload.REPORTING).getMaximumPoolSize();
+        int workers = Math.max(1, Math.min(properties.getParallelism(), connections - 1));
+        if (workers != properties.getParallelism()) {
+            logger.warn("Running {} report partition(s) at a time instead of app.reports.parallelism={}, as the reporting pool has {} connection(s)",
+                    workers, properties.getParallelism(), connections);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("ReportPartition-");
+        return executor;
+    }
+}
@@ -0,0 +1,28 @@
+package nbu.cscb869.config.reports;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Period;
+
+/**
+ * Settings of the date range reports that run as concurrent partitions, bound from {@code app.reports}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.reports")
+public class ReportPartitionProperties {
+
+    /** The length of the date partitions a range is split into, such as {@code 3m} for quarters. */
+    private Period partitionLength = Period.ofMonths(3);
+
+    /**
+     * How many partitions run at the same time across all requests, each on a connection of its workload's pool. At
+     * most one less than the reporting pool size is used, so that other reports always find a connection.
+     */
+    private int parallelism = 3;
+
+    /** How many partitions may wait for a free worker before further reports are rejected. */
+    private int queueCapacity = 200;
+}
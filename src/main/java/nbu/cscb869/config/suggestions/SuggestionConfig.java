@@ -0,0 +1,12 @@
+package nbu.cscb869.config.suggestions;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the settings of the diagnosis and specialty suggestions.
+ */
+@Configuration
+@EnableConfigurationProperties(SuggestionProperties.class)
+public class SuggestionConfig {
+}
@@ -0,0 +1,25 @@
+package nbu.cscb869.config.suggestions;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the diagnosis and specialty suggestions, bound from {@code app.suggestions}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.suggestions")
+public class SuggestionProperties {
+
+    /** The most entries a suggestion request returns. */
+    private int maxResults = 10;
+
+    /**
+     * How often the visit counts the suggestions are ranked by are recounted. Catalogue changes made through this
+     * instance are picked up at once; those made by other instances on the next recount.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(10);
+}
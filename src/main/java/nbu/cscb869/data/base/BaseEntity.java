@@ -39,6 +39,8 @@ public abstract class BaseEntity {
     @PrePersist
     public void prePersist() {
         this.createdOn = LocalDateTime.now();
+        // A new row counts as modified when created, so that modifiedOn orders all changes (see the change feed).
+        this.modifiedOn = this.createdOn;
     }
 
     @PreUpdate
@@ -46,6 +48,14 @@ public abstract class BaseEntity {
         this.modifiedOn = LocalDateTime.now();
     }
 
+    /**
+     * Marks the entity as changed even if none of its own columns did, e.g. when only rows that belong to it changed,
+     * so that its version and modifiedOn move on at the next flush.
+     */
+    public void touch() {
+        this.modifiedOn = LocalDateTime.now();
+    }
+
     // equals/hashCode based on ID only
     @Override
     public boolean equals(Object o) {
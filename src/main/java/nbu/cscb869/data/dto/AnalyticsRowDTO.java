@@ -0,0 +1,26 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.AnalyticsMeasure;
+
+import java.util.Map;
+
+/**
+ * One group of a visit analytics query: its value of each grouped dimension and its totals.
+ */
+@Getter
+public class AnalyticsRowDTO {
+    /** The value of each grouped dimension, in grouping order; the ID for doctors, diagnoses and specialties. */
+    private final Map<AnalyticsDimension, String> dimensions;
+    /** The names of the grouped doctors, diagnoses and specialties. */
+    private final Map<AnalyticsDimension, String> labels;
+    private final Map<AnalyticsMeasure, Long> measures;
+
+    public AnalyticsRowDTO(Map<AnalyticsDimension, String> dimensions, Map<AnalyticsDimension, String> labels,
+                           Map<AnalyticsMeasure, Long> measures) {
+        this.dimensions = dimensions;
+        this.labels = labels;
+        this.measures = measures;
+    }
+}
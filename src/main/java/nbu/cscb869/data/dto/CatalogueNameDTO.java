@@ -0,0 +1,17 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+/**
+ * The ID and name of a catalogue entry, such as a diagnosis or a specialty, read without loading the entity.
+ */
+@Getter
+public class CatalogueNameDTO {
+    private final Long id;
+    private final String name;
+
+    public CatalogueNameDTO(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
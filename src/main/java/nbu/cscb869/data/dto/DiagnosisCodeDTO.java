@@ -0,0 +1,23 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+/**
+ * An ICD-10 coded diagnosis, as written by the bulk loader.
+ */
+@Getter
+public class DiagnosisCodeDTO {
+    private final String code;
+    private final String category;
+    private final String chapter;
+    private final String name;
+    private final String description;
+
+    public DiagnosisCodeDTO(String code, String category, String chapter, String name, String description) {
+        this.code = code;
+        this.category = category;
+        this.chapter = chapter;
+        this.name = name;
+        this.description = description;
+    }
+}
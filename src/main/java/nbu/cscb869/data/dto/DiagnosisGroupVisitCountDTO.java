@@ -0,0 +1,17 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+/**
+ * The number of visits diagnosed within an ICD-10 chapter or category.
+ */
+@Getter
+public class DiagnosisGroupVisitCountDTO {
+    private final String group;
+    private final long visitCount;
+
+    public DiagnosisGroupVisitCountDTO(String group, long visitCount) {
+        this.group = group;
+        this.visitCount = visitCount;
+    }
+}
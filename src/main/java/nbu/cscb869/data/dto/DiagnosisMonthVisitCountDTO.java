@@ -0,0 +1,21 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+/**
+ * The number of visits with a diagnosis in a calendar month.
+ */
+@Getter
+public class DiagnosisMonthVisitCountDTO {
+    private final int year;
+    private final int month;
+    private final Long diagnosisId;
+    private final long visitCount;
+
+    public DiagnosisMonthVisitCountDTO(int year, int month, Long diagnosisId, long visitCount) {
+        this.year = year;
+        this.month = month;
+        this.diagnosisId = diagnosisId;
+        this.visitCount = visitCount;
+    }
+}
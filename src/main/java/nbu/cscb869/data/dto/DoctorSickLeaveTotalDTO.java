@@ -0,0 +1,17 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+/**
+ * The number of sick leaves a doctor has issued, without the doctor.
+ */
+@Getter
+public class DoctorSickLeaveTotalDTO {
+    private final Long doctorId;
+    private final long sickLeaveCount;
+
+    public DoctorSickLeaveTotalDTO(Long doctorId, long sickLeaveCount) {
+        this.doctorId = doctorId;
+        this.sickLeaveCount = sickLeaveCount;
+    }
+}
@@ -0,0 +1,21 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * The current state of an entity published in the change feed, read as a flat row without loading the entity.
+ */
+@Getter
+public abstract class EntityChangeDTO {
+    private final Long id;
+    private final Long version;
+    private final LocalDateTime modifiedOn;
+
+    protected EntityChangeDTO(Long id, Long version, LocalDateTime modifiedOn) {
+        this.id = id;
+        this.version = version;
+        this.modifiedOn = modifiedOn;
+    }
+}
@@ -0,0 +1,20 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+@Getter
+public class MedicineChangeDTO {
+    private final Long treatmentId;
+    private final Long id;
+    private final String name;
+    private final String dosage;
+    private final String frequency;
+
+    public MedicineChangeDTO(Long treatmentId, Long id, String name, String dosage, String frequency) {
+        this.treatmentId = treatmentId;
+        this.id = id;
+        this.name = name;
+        this.dosage = dosage;
+        this.frequency = frequency;
+    }
+}
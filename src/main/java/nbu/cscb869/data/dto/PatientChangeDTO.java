@@ -0,0 +1,25 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+public class PatientChangeDTO extends EntityChangeDTO {
+    private final String name;
+    private final String egn;
+    private final LocalDate lastInsurancePaymentDate;
+    private final Long generalPractitionerId;
+    private final String keycloakId;
+
+    public PatientChangeDTO(Long id, Long version, LocalDateTime modifiedOn, String name, String egn,
+                            LocalDate lastInsurancePaymentDate, Long generalPractitionerId, String keycloakId) {
+        super(id, version, modifiedOn);
+        this.name = name;
+        this.egn = egn;
+        this.lastInsurancePaymentDate = lastInsurancePaymentDate;
+        this.generalPractitionerId = generalPractitionerId;
+        this.keycloakId = keycloakId;
+    }
+}
@@ -0,0 +1,31 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * The columns of a patient that reports list, read in one query without loading the patient, its general practitioner
+ * or its visits. The field names match {@code PatientViewDTO}, which it is mapped to.
+ */
+@Getter
+public class PatientSummaryDTO {
+    private final Long id;
+    private final String name;
+    private final String egn;
+    private final LocalDate lastInsurancePaymentDate;
+    private final Long generalPractitionerId;
+    private final String generalPractitionerName;
+    private final String keycloakId;
+
+    public PatientSummaryDTO(Long id, String name, String egn, LocalDate lastInsurancePaymentDate,
+                             Long generalPractitionerId, String generalPractitionerName, String keycloakId) {
+        this.id = id;
+        this.name = name;
+        this.egn = egn;
+        this.lastInsurancePaymentDate = lastInsurancePaymentDate;
+        this.generalPractitionerId = generalPractitionerId;
+        this.generalPractitionerName = generalPractitionerName;
+        this.keycloakId = keycloakId;
+    }
+}
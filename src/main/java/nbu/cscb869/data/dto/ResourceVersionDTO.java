@@ -0,0 +1,79 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The version of an API resource, read without loading the resource itself. The fingerprint is an MD5 digest of the
+ * IDs and versions of the resource and of every row embedded in its representation, taken in a fixed order, so it
+ * changes whenever any of them is updated, added or removed and can serve as a strong ETag.
+ */
+@Getter
+public class ResourceVersionDTO {
+    private final String fingerprint;
+    private final LocalDateTime lastModified;
+    private final String ownerKeycloakId;
+
+    /**
+     * Creates the version of a single entity and of the single rows embedded in it.
+     * @param id the entity ID
+     * @param version the entity's optimistic-lock version
+     * @param embedded the embedded rows as {@code id:version} pairs separated by {@code ;} in a fixed order, with
+     *                 {@code -} in place of a missing row
+     * @param lastModified the latest creation or modification time of those rows
+     * @param ownerKeycloakId the Keycloak ID of the user the resource belongs to, used for authorization
+     */
+    public ResourceVersionDTO(Long id, Long version, String embedded, LocalDateTime lastModified, String ownerKeycloakId) {
+        this(digest(id + ":" + version + ";" + embedded), lastModified, ownerKeycloakId);
+    }
+
+    private ResourceVersionDTO(String fingerprint, LocalDateTime lastModified, String ownerKeycloakId) {
+        this.fingerprint = fingerprint;
+        this.lastModified = lastModified;
+        this.ownerKeycloakId = ownerKeycloakId;
+    }
+
+    /**
+     * Creates the version of a collection.
+     * @param rows the rows of the collection, ordered by ID
+     * @return the version of the collection
+     */
+    public static ResourceVersionDTO ofCollection(List<RowVersionDTO> rows) {
+        return new ResourceVersionDTO(digest(pairs(rows)), latest(null, rows), null);
+    }
+
+    /**
+     * Adds a collection embedded in the resource, such as a doctor's specialties, to this version.
+     * @param rows the rows of the embedded collection, ordered by ID
+     * @return the version of the resource including the collection
+     */
+    public ResourceVersionDTO embedding(List<RowVersionDTO> rows) {
+        return new ResourceVersionDTO(digest(fingerprint + "|" + pairs(rows)), latest(lastModified, rows), ownerKeycloakId);
+    }
+
+    private static String pairs(List<RowVersionDTO> rows) {
+        StringBuilder pairs = new StringBuilder();
+        for (RowVersionDTO row : rows) {
+            pairs.append(row.getId()).append(':').append(row.getVersion()).append(';');
+        }
+        return pairs.toString();
+    }
+
+    private static LocalDateTime latest(LocalDateTime current, List<RowVersionDTO> rows) {
+        LocalDateTime latest = current;
+        for (RowVersionDTO row : rows) {
+            if (row.getLastModified() != null && (latest == null || row.getLastModified().isAfter(latest))) {
+                latest = row.getLastModified();
+            }
+        }
+        return latest;
+    }
+
+    private static String digest(String source) {
+        return DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8));
+    }
+}
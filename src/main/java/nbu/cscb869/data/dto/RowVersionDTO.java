@@ -0,0 +1,22 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * The ID, optimistic-lock version and modification time of one row, read without loading the entity. Used to
+ * fingerprint the collections embedded in an API resource.
+ */
+@Getter
+public class RowVersionDTO {
+    private final Long id;
+    private final Long version;
+    private final LocalDateTime lastModified;
+
+    public RowVersionDTO(Long id, Long version, LocalDateTime lastModified) {
+        this.id = id;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+}
@@ -0,0 +1,21 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+public class SickLeaveChangeDTO extends EntityChangeDTO {
+    private final LocalDate startDate;
+    private final int durationDays;
+    private final Long visitId;
+
+    public SickLeaveChangeDTO(Long id, Long version, LocalDateTime modifiedOn, LocalDate startDate, int durationDays,
+                              Long visitId) {
+        super(id, version, modifiedOn);
+        this.startDate = startDate;
+        this.durationDays = durationDays;
+        this.visitId = visitId;
+    }
+}
@@ -0,0 +1,16 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+
+@Getter
+public class SpecialtyVisitCountDTO {
+    private final Long specialtyId;
+    private final String specialtyName;
+    private final long visitCount;
+
+    public SpecialtyVisitCountDTO(Long specialtyId, String specialtyName, long visitCount) {
+        this.specialtyId = specialtyId;
+        this.specialtyName = specialtyName;
+        this.visitCount = visitCount;
+    }
+}
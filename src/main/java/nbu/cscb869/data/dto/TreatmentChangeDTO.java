@@ -0,0 +1,23 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+public class TreatmentChangeDTO extends EntityChangeDTO {
+    private final String description;
+    private final Long visitId;
+
+    /** The prescribed medicines, read separately for all treatments of a feed page. */
+    @Setter
+    private List<MedicineChangeDTO> medicines = List.of();
+
+    public TreatmentChangeDTO(Long id, Long version, LocalDateTime modifiedOn, String description, Long visitId) {
+        super(id, version, modifiedOn);
+        this.description = description;
+        this.visitId = visitId;
+    }
+}
@@ -0,0 +1,31 @@
+package nbu.cscb869.data.dto;
+
+import lombok.Getter;
+import nbu.cscb869.data.models.enums.VisitStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Getter
+public class VisitChangeDTO extends EntityChangeDTO {
+    private final LocalDate visitDate;
+    private final LocalTime visitTime;
+    private final VisitStatus status;
+    private final String notes;
+    private final Long patientId;
+    private final Long doctorId;
+    private final Long diagnosisId;
+
+    public VisitChangeDTO(Long id, Long version, LocalDateTime modifiedOn, LocalDate visitDate, LocalTime visitTime,
+                          VisitStatus status, String notes, Long patientId, Long doctorId, Long diagnosisId) {
+        super(id, version, modifiedOn);
+        this.visitDate = visitDate;
+        this.visitTime = visitTime;
+        this.status = status;
+        this.notes = notes;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.diagnosisId = diagnosisId;
+    }
+}
@@ -0,0 +1,34 @@
+package nbu.cscb869.data.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import nbu.cscb869.data.base.BaseEntity;
+import nbu.cscb869.data.models.enums.ChangeEntityType;
+
+/**
+ * Records the deletion of an entity published in the change feed, so that downstream systems learn about deletes.
+ * Rows are written by {@link nbu.cscb869.config.changes.TombstoneRecorder} in the deleting transaction, including
+ * for cascaded deletes; the creation time is the time of the delete.
+ */
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "change_tombstones", indexes = {
+        @Index(name = "idx_change_tombstones_created_on_id", columnList = "createdOn, id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeTombstone extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private ChangeEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    /** The optimistic-lock version the entity had when it was deleted. */
+    @Column(name = "entity_version")
+    private Long entityVersion;
+}
@@ -15,7 +15,11 @@ import java.util.Set;
 @Setter
 @Builder
 @Entity
-@Table(name = "diagnoses", indexes = {@Index(columnList = "name")})
+@Table(name = "diagnoses", indexes = {
+        @Index(columnList = "name"),
+        @Index(name = "idx_diagnoses_category", columnList = "category"),
+        @Index(name = "idx_diagnoses_chapter", columnList = "chapter")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Diagnosis extends BaseEntity {
@@ -29,6 +33,19 @@ public class Diagnosis extends BaseEntity {
     @Column(columnDefinition = "TEXT")
     private String description;
 
+    /** The ICD-10 code, such as {@code J45.9}; null for a diagnosis entered by name only. */
+    @Size(max = ValidationConfig.DIAGNOSIS_CODE_MAX_LENGTH)
+    @Column(unique = true, length = ValidationConfig.DIAGNOSIS_CODE_MAX_LENGTH)
+    private String code;
+
+    /** The three-character ICD-10 category of the code, such as {@code J45}. */
+    @Column(length = 3)
+    private String category;
+
+    /** The ICD-10 chapter of the code, as a Roman numeral such as {@code X}. */
+    @Column(length = 5)
+    private String chapter;
+
     @OneToMany(mappedBy = "diagnosis", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Visit> visits = new HashSet<>();
 }
\ No newline at end of file
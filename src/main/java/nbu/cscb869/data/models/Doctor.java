@@ -8,6 +8,7 @@ import lombok.*;
 import nbu.cscb869.common.validation.ErrorMessages;
 import nbu.cscb869.common.validation.ValidationConfig;
 import nbu.cscb869.data.base.BaseEntity;
+import nbu.cscb869.data.models.enums.ImageStatus;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -49,6 +50,15 @@ public class Doctor extends BaseEntity {
     @Column
     private String imageUrl;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "image_status", nullable = false)
+    @Builder.Default
+    private ImageStatus imageStatus = ImageStatus.NONE;
+
+    /** Local file holding an image that is still waiting to be uploaded; null once the upload finished. */
+    @Column(name = "image_staging_path")
+    private String imageStagingPath;
+
     @ManyToMany
     @JoinTable(
             name = "doctor_specialties",
@@ -0,0 +1,41 @@
+package nbu.cscb869.data.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import nbu.cscb869.data.base.BaseEntity;
+import org.hibernate.Length;
+
+import java.time.LocalDateTime;
+
+/**
+ * A published domain event in the durable event log. Rows are written in the transaction that publishes the event,
+ * so the log holds exactly the events of committed changes, in ID order.
+ */
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "domain_events", indexes = {
+        @Index(name = "idx_domain_events_aggregate", columnList = "aggregate_type, aggregate_id, id"),
+        @Index(name = "idx_domain_events_created_on", columnList = "createdOn")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainEventRecord extends BaseEntity {
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    /** The event serialized as JSON. */
+    @Column(nullable = false, length = Length.LONG32)
+    private String payload;
+}
@@ -0,0 +1,36 @@
+package nbu.cscb869.data.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import nbu.cscb869.data.base.BaseEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored image waiting to be deleted from the image store. Rows are written in the same transaction as the change
+ * that stops referencing the image, so the database and the store cannot disagree about it for long.
+ */
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "image_deletions", indexes = {
+        @Index(name = "idx_image_deletions_next_attempt", columnList = "next_attempt_at")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageDeletion extends BaseEntity {
+
+    @Column(name = "public_id", nullable = false)
+    private String publicId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 512)
+    private String lastError;
+}
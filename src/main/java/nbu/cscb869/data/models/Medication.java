@@ -0,0 +1,28 @@
+package nbu.cscb869.data.models;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import nbu.cscb869.common.validation.ErrorMessages;
+import nbu.cscb869.common.validation.ValidationConfig;
+import nbu.cscb869.data.base.BaseEntity;
+
+/**
+ * A medication in the catalogue. Each name is stored once, and every prescription of it is a {@link Medicine} row
+ * referring to it.
+ */
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "medications")
+@NoArgsConstructor
+@AllArgsConstructor
+public class Medication extends BaseEntity {
+
+    @NotBlank(message = ErrorMessages.NAME_NOT_BLANK)
+    @Size(max = ValidationConfig.NAME_MAX_LENGTH)
+    @Column(nullable = false, unique = true)
+    private String name;
+}
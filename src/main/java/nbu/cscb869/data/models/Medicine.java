@@ -8,21 +8,24 @@ import nbu.cscb869.common.validation.ErrorMessages;
 import nbu.cscb869.common.validation.ValidationConfig;
 import nbu.cscb869.data.base.BaseEntity;
 
+/**
+ * A medication prescribed in a treatment, with its dosage and frequency. The medication's name is kept once in the
+ * {@link Medication} catalogue.
+ */
 @Getter
 @Setter
 @Builder
 @Entity
 @Table(name = "medicines", indexes = {
-        @Index(columnList = "name")
+        @Index(name = "idx_medicines_medication", columnList = "medication_id")
 })
 @NoArgsConstructor
 @AllArgsConstructor
 public class Medicine extends BaseEntity {
 
-    @NotBlank(message = ErrorMessages.NAME_NOT_BLANK)
-    @Size(max = ValidationConfig.NAME_MAX_LENGTH)
-    @Column(nullable = false, unique = true)
-    private String name;
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "medication_id", nullable = false)
+    private Medication medication;
 
     @NotBlank(message = ErrorMessages.DOSAGE_NOT_BLANK)
     @Size(max = ValidationConfig.DOSAGE_MAX_LENGTH)
@@ -37,4 +40,12 @@ public class Medicine extends BaseEntity {
     @ManyToOne
     @JoinColumn(name = "treatment_id", nullable = false)
     private Treatment treatment;
-}
\ No newline at end of file
+
+    /**
+     * Returns the name of the prescribed medication.
+     * @return the name, or null if no medication is set
+     */
+    public String getName() {
+        return medication != null ? medication.getName() : null;
+    }
+}
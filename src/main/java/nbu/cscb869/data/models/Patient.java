@@ -20,7 +20,8 @@ import java.util.List;
 @Entity
 @Table(name = "patients", indexes = {
         @Index(columnList = "keycloak_id"),
-        @Index(columnList = "egn")
+        @Index(columnList = "egn"),
+        @Index(name = "idx_patients_modified_on_id", columnList = "modifiedOn, id")
 })
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,66 @@
+package nbu.cscb869.data.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import nbu.cscb869.data.base.BaseEntity;
+import nbu.cscb869.data.models.enums.ReportJobStatus;
+import nbu.cscb869.data.models.enums.ReportType;
+
+import java.time.LocalDateTime;
+
+/**
+ * An admin report computed in the background. The compressed result is not mapped, so that loading a job to check
+ * its status never reads it; {@link nbu.cscb869.data.repositories.ReportJobRepository} stores and reads it directly.
+ */
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "report_jobs", indexes = {
+        @Index(name = "idx_report_jobs_status_created_on", columnList = "status, createdOn"),
+        @Index(name = "idx_report_jobs_expires_at", columnList = "expires_at")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJob extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "report_type", nullable = false)
+    private ReportType reportType;
+
+    /** The report parameters, as JSON. */
+    @Column(nullable = false, length = 1024)
+    private String parameters;
+
+    /** The hash of the report type and parameters, shared by identical requests. */
+    @Column(name = "request_key", nullable = false, length = 64)
+    private String requestKey;
+
+    /** The request key while the job can still be shared with identical requests, otherwise null. */
+    @Column(name = "live_key", unique = true, length = 64)
+    private String liveKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReportJobStatus status;
+
+    /** The Keycloak ID of the admin who requested the report. */
+    @Column(name = "requested_by")
+    private String requestedBy;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    /** The size of the compressed result, in bytes. */
+    @Column(name = "result_size")
+    private Long resultSize;
+
+    @Column(length = 512)
+    private String error;
+}
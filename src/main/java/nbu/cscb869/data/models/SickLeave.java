@@ -15,7 +15,9 @@ import java.time.LocalDate;
 @Builder
 @Entity
 @Table(name = "sick_leaves", indexes = {
-        @Index(columnList = "visit_id")
+        @Index(columnList = "visit_id"),
+        @Index(name = "idx_sick_leaves_start_date", columnList = "start_date"),
+        @Index(name = "idx_sick_leaves_modified_on_id", columnList = "modifiedOn, id")
 })
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,7 +14,8 @@ import java.util.List;
 @Builder
 @Entity
 @Table(name = "treatments", indexes = {
-        @Index(columnList = "visit_id")
+        @Index(columnList = "visit_id"),
+        @Index(name = "idx_treatments_modified_on_id", columnList = "modifiedOn, id")
 })
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,7 +18,12 @@ import java.time.LocalTime;
         @Index(columnList = "patient_id"),
         @Index(columnList = "doctor_id"),
         @Index(columnList = "diagnosis_id"),
-        @Index(columnList = "visit_date")
+        @Index(columnList = "visit_date"),
+        @Index(name = "idx_visits_doctor_date_time", columnList = "doctor_id, visit_date, visit_time"),
+        @Index(name = "idx_visits_doctor_status_date_time", columnList = "doctor_id, status, visit_date, visit_time"),
+        @Index(name = "idx_visits_patient_date_time", columnList = "patient_id, visit_date, visit_time"),
+        @Index(name = "idx_visits_diagnosis_patient", columnList = "diagnosis_id, patient_id"),
+        @Index(name = "idx_visits_modified_on_id", columnList = "modifiedOn, id")
 })
 @NoArgsConstructor
 @AllArgsConstructor
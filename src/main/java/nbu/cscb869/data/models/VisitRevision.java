@@ -0,0 +1,34 @@
+package nbu.cscb869.data.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import nbu.cscb869.data.base.BaseEntity;
+import org.hibernate.Length;
+
+/**
+ * The documented content of a visit as it was at one version, kept once the version has been superseded so that an
+ * edit started from it can be merged with the changes made since.
+ */
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "visit_revisions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_visit_revisions_visit_version", columnNames = {"visit_id", "visit_version"})
+}, indexes = {
+        @Index(name = "idx_visit_revisions_created_on", columnList = "createdOn")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitRevision extends BaseEntity {
+
+    @Column(name = "visit_id", nullable = false)
+    private Long visitId;
+
+    @Column(name = "visit_version", nullable = false)
+    private Long visitVersion;
+
+    /** The visit's fields, treatment and sick leave serialized as JSON. */
+    @Column(nullable = false, length = Length.LONG32)
+    private String snapshot;
+}
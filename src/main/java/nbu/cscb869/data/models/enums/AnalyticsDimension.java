@@ -0,0 +1,32 @@
+package nbu.cscb869.data.models.enums;
+
+/**
+ * The dimensions visit analytics can be grouped and filtered by.
+ */
+public enum AnalyticsDimension {
+    /** The day, as {@code yyyy-MM-dd}. */
+    DAY,
+    /** The month, as {@code yyyy-MM}. */
+    MONTH,
+    YEAR,
+    DOCTOR,
+    /**
+     * A specialty of the doctor. A visit to a doctor with several specialties counts once under each of them, so the
+     * groups can add up to more than the total.
+     */
+    SPECIALTY,
+    DIAGNOSIS,
+    /** The ICD-10 chapter of the diagnosis; none for diagnoses without a code. */
+    DIAGNOSIS_CHAPTER,
+    /** The current general practitioner of the patient. */
+    GENERAL_PRACTITIONER,
+    STATUS;
+
+    /**
+     * Returns whether the dimension is a period of time.
+     * @return true for days, months and years
+     */
+    public boolean isTime() {
+        return this == DAY || this == MONTH || this == YEAR;
+    }
+}
@@ -0,0 +1,13 @@
+package nbu.cscb869.data.models.enums;
+
+/**
+ * The totals visit analytics report per group.
+ */
+public enum AnalyticsMeasure {
+    /** The visits on the days of the group. */
+    VISITS,
+    /** The sick leaves starting on the days of the group. */
+    SICK_LEAVES,
+    /** The days of sick leave granted by those sick leaves. */
+    SICK_LEAVE_DAYS
+}
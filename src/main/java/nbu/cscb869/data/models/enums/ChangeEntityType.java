@@ -0,0 +1,36 @@
+package nbu.cscb869.data.models.enums;
+
+import nbu.cscb869.data.models.Patient;
+import nbu.cscb869.data.models.SickLeave;
+import nbu.cscb869.data.models.Treatment;
+import nbu.cscb869.data.models.Visit;
+
+/**
+ * The entities published in the change feed. Changes made at the same instant are listed in declaration order.
+ */
+public enum ChangeEntityType {
+    PATIENT(Patient.class),
+    VISIT(Visit.class),
+    TREATMENT(Treatment.class),
+    SICK_LEAVE(SickLeave.class);
+
+    private final Class<?> entityClass;
+
+    ChangeEntityType(Class<?> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Returns the change feed type of an entity.
+     * @param entity the entity
+     * @return the type, or null if changes to the entity are not published
+     */
+    public static ChangeEntityType of(Object entity) {
+        for (ChangeEntityType type : values()) {
+            if (type.entityClass.isInstance(entity)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package nbu.cscb869.data.models.enums;
+
+public enum ImageStatus {
+    NONE,
+    PENDING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,23 @@
+package nbu.cscb869.data.models.enums;
+
+/**
+ * The stages of a background report job.
+ */
+public enum ReportJobStatus {
+    /** Waiting for a worker. */
+    QUEUED,
+    /** Being computed by a worker. */
+    RUNNING,
+    /** Computed; the result can be downloaded until the job expires. */
+    COMPLETED,
+    /** The computation failed; the error is kept until the job expires. */
+    FAILED;
+
+    /**
+     * Tells whether the job has not finished yet.
+     * @return true if the job is queued or running
+     */
+    public boolean isPending() {
+        return this == QUEUED || this == RUNNING;
+    }
+}
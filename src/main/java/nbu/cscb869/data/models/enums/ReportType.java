@@ -0,0 +1,50 @@
+package nbu.cscb869.data.models.enums;
+
+/**
+ * The admin reports that can be computed as background jobs, with the parameters each one takes. The result of a job
+ * is the body the matching {@code /api/reports} endpoint returns.
+ */
+public enum ReportType {
+    PATIENTS_BY_DIAGNOSIS(true, false, false, true),
+    MOST_FREQUENT_DIAGNOSES(false, false, false, false),
+    DIAGNOSIS_CHAPTERS(false, false, false, false),
+    DIAGNOSIS_CATEGORIES(false, false, false, false),
+    GP_PATIENT_COUNTS(false, false, false, false),
+    DOCTOR_VISIT_COUNTS(false, false, false, false),
+    DOCTORS_WITH_MOST_SICK_LEAVES(false, false, false, false),
+    MOST_FREQUENT_SICK_LEAVE_MONTH(false, false, false, false),
+    VISITS_BY_DATE(false, false, true, true),
+    DOCTOR_VISITS_BY_DATE(false, true, true, true);
+
+    private final boolean byDiagnosis;
+    private final boolean byDoctor;
+    private final boolean byDateRange;
+    private final boolean paged;
+
+    ReportType(boolean byDiagnosis, boolean byDoctor, boolean byDateRange, boolean paged) {
+        this.byDiagnosis = byDiagnosis;
+        this.byDoctor = byDoctor;
+        this.byDateRange = byDateRange;
+        this.paged = paged;
+    }
+
+    /** @return whether the report takes a diagnosis ID */
+    public boolean isByDiagnosis() {
+        return byDiagnosis;
+    }
+
+    /** @return whether the report takes a doctor ID */
+    public boolean isByDoctor() {
+        return byDoctor;
+    }
+
+    /** @return whether the report takes a start and an end date */
+    public boolean isByDateRange() {
+        return byDateRange;
+    }
+
+    /** @return whether the report returns one page */
+    public boolean isPaged() {
+        return paged;
+    }
+}
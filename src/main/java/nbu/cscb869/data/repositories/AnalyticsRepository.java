@@ -0,0 +1,245 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.dto.AnalyticsRowDTO;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.AnalyticsMeasure;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Reads and maintains the visit fact tables of migration {@code V11}: {@code visit_daily_facts}, its monthly rollup
+ * {@code visit_monthly_facts}, and the {@code analytics_dirty_days} whose rows are out of date. The tables have no
+ * entities, as they are only ever written and read in bulk; every method joins the caller's transaction.
+ */
+@Repository
+public class AnalyticsRepository {
+
+    private static final String FACT_COLUMNS = "period_start, month_start, year, doctor_id, diagnosis_id, "
+            + "general_practitioner_id, status, visit_count, sick_leave_count, sick_leave_days";
+
+    private static final String REBUILD_DAYS = "insert into visit_daily_facts (" + FACT_COLUMNS + ") "
+            + "select f.day, f.day - interval (dayofmonth(f.day) - 1) day, year(f.day), f.doctor_id, f.diagnosis_id, "
+            + "f.gp_id, f.status, sum(f.visits), sum(f.sick_leaves), sum(f.sick_leave_days) "
+            + "from (select v.visit_date as day, v.doctor_id, v.diagnosis_id, p.general_practitioner_id as gp_id, "
+            + "v.status, 1 as visits, 0 as sick_leaves, 0 as sick_leave_days "
+            + "from visits v join patients p on p.id = v.patient_id where v.visit_date in (:days) "
+            + "union all select s.start_date, v.doctor_id, v.diagnosis_id, p.general_practitioner_id, v.status, "
+            + "0, 1, s.duration_days "
+            + "from sick_leaves s join visits v on v.id = s.visit_id join patients p on p.id = v.patient_id "
+            + "where s.start_date in (:days)) f "
+            + "group by f.day, f.doctor_id, f.diagnosis_id, f.gp_id, f.status";
+
+    private static final String REBUILD_MONTHS = "insert into visit_monthly_facts (" + FACT_COLUMNS + ") "
+            + "select month_start, month_start, year, doctor_id, diagnosis_id, general_practitioner_id, status, "
+            + "sum(visit_count), sum(sick_leave_count), sum(sick_leave_days) "
+            + "from visit_daily_facts where month_start in (:months) "
+            + "group by month_start, year, doctor_id, diagnosis_id, general_practitioner_id, status";
+
+    private static final String MARK_RANGE = "insert ignore into analytics_dirty_days (day) "
+            + "select visit_date from visits where visit_date between :from and :to "
+            + "union select start_date from sick_leaves where start_date between :from and :to "
+            + "union select period_start from visit_daily_facts where period_start between :from and :to";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public AnalyticsRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks the earliest days that are out of date, so that a concurrent refresh waits for this one and days
+     * marked again meanwhile stay marked.
+     * @param limit the most days to lock
+     * @return the days, in order
+     */
+    public List<LocalDate> lockDirtyDays(int limit) {
+        return jdbcTemplate.queryForList("select day from analytics_dirty_days order by day limit :limit for update",
+                Map.of("limit", limit), LocalDate.class);
+    }
+
+    /**
+     * Marks every day of a range that has visits, sick leaves or facts as out of date.
+     * @param from the first day
+     * @param to the last day
+     * @return how many days were not marked already
+     */
+    public int markDirty(LocalDate from, LocalDate to) {
+        return jdbcTemplate.update(MARK_RANGE, new MapSqlParameterSource("from", Date.valueOf(from)).addValue("to", Date.valueOf(to)));
+    }
+
+    /**
+     * Rebuilds the daily facts of some days from the visits and sick leaves.
+     * @param days the days
+     */
+    public void rebuildDays(Collection<LocalDate> days) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("days", days.stream().map(Date::valueOf).toList());
+        jdbcTemplate.update("delete from visit_daily_facts where period_start in (:days)", parameters);
+        jdbcTemplate.update(REBUILD_DAYS, parameters);
+    }
+
+    /**
+     * Rebuilds the monthly facts of some months from the daily facts.
+     * @param months the first days of the months
+     */
+    public void rebuildMonths(Collection<LocalDate> months) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("months", months.stream().map(Date::valueOf).toList());
+        jdbcTemplate.update("delete from visit_monthly_facts where period_start in (:months)", parameters);
+        jdbcTemplate.update(REBUILD_MONTHS, parameters);
+    }
+
+    /**
+     * Marks days as up to date.
+     * @param days the days, as locked by {@link #lockDirtyDays}
+     */
+    public void clearDirtyDays(Collection<LocalDate> days) {
+        jdbcTemplate.update("delete from analytics_dirty_days where day in (:days)",
+                Map.of("days", days.stream().map(Date::valueOf).toList()));
+    }
+
+    /**
+     * Totals the facts of a date range per group.
+     * @param grain {@link AnalyticsDimension#DAY} to read the daily facts, {@link AnalyticsDimension#MONTH} for the
+     *              monthly ones, which only answer ranges of whole months
+     * @param groupBy the dimensions to group by; none for a single grand total
+     * @param measures the totals to compute
+     * @param from the first day; null for no lower bound
+     * @param to the last day; null for no upper bound
+     * @param filters the value each dimension is restricted to, such as a doctor ID or an ICD-10 chapter
+     * @param limit the most groups to return
+     * @return the groups, ordered by their dimension values
+     */
+    public List<AnalyticsRowDTO> aggregate(AnalyticsDimension grain, List<AnalyticsDimension> groupBy,
+                                           List<AnalyticsMeasure> measures, LocalDate from, LocalDate to,
+                                           Map<AnalyticsDimension, ?> filters, int limit) {
+        Set<AnalyticsDimension> used = EnumSet.noneOf(AnalyticsDimension.class);
+        used.addAll(groupBy);
+        used.addAll(filters.keySet());
+
+        StringJoiner select = new StringJoiner(", ");
+        StringJoiner group = new StringJoiner(", ");
+        for (AnalyticsDimension dimension : groupBy) {
+            select.add(column(dimension));
+            group.add(column(dimension));
+            if (label(dimension) != null) {
+                select.add(label(dimension));
+                group.add(label(dimension));
+            }
+        }
+        for (AnalyticsMeasure measure : measures) {
+            select.add("coalesce(sum(" + measure(measure) + "), 0)");
+        }
+
+        StringBuilder sql = new StringBuilder("select ").append(select)
+                .append(" from ").append(grain == AnalyticsDimension.MONTH ? "visit_monthly_facts" : "visit_daily_facts").append(" f");
+        if (used.contains(AnalyticsDimension.SPECIALTY)) {
+            sql.append(" left join doctor_specialties ds on ds.doctor_id = f.doctor_id");
+        }
+        if (groupBy.contains(AnalyticsDimension.SPECIALTY)) {
+            sql.append(" left join specialties sp on sp.id = ds.specialty_id");
+        }
+        if (groupBy.contains(AnalyticsDimension.DOCTOR)) {
+            sql.append(" left join doctors doc on doc.id = f.doctor_id");
+        }
+        if (groupBy.contains(AnalyticsDimension.DIAGNOSIS) || used.contains(AnalyticsDimension.DIAGNOSIS_CHAPTER)) {
+            sql.append(" left join diagnoses dg on dg.id = f.diagnosis_id");
+        }
+        if (groupBy.contains(AnalyticsDimension.GENERAL_PRACTITIONER)) {
+            sql.append(" left join doctors gp on gp.id = f.general_practitioner_id");
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        if (from != null) {
+            where.add("f.period_start >= :from");
+            parameters.addValue("from", Date.valueOf(from));
+        }
+        if (to != null) {
+            where.add("f.period_start <= :to");
+            parameters.addValue("to", Date.valueOf(to));
+        }
+        for (Map.Entry<AnalyticsDimension, ?> filter : filters.entrySet()) {
+            String name = "filter" + filter.getKey().ordinal();
+            where.add(column(filter.getKey()) + " = :" + name);
+            parameters.addValue(name, filter.getValue());
+        }
+        sql.append(where);
+        if (!groupBy.isEmpty()) {
+            sql.append(" group by ").append(group).append(" order by ").append(group);
+        }
+        sql.append(" limit :limit");
+
+        return jdbcTemplate.query(sql.toString(), parameters, (rs, rowNum) -> {
+            Map<AnalyticsDimension, String> dimensions = new LinkedHashMap<>();
+            Map<AnalyticsDimension, String> labels = new EnumMap<>(AnalyticsDimension.class);
+            int index = 1;
+            for (AnalyticsDimension dimension : groupBy) {
+                dimensions.put(dimension, switch (dimension) {
+                    case DAY -> format(rs.getObject(index, LocalDate.class), false);
+                    case MONTH -> format(rs.getObject(index, LocalDate.class), true);
+                    default -> rs.getString(index);
+                });
+                index++;
+                if (label(dimension) != null) {
+                    labels.put(dimension, rs.getString(index++));
+                }
+            }
+            Map<AnalyticsMeasure, Long> totals = new EnumMap<>(AnalyticsMeasure.class);
+            for (AnalyticsMeasure measure : measures) {
+                totals.put(measure, rs.getLong(index++));
+            }
+            return new AnalyticsRowDTO(dimensions, labels, totals);
+        });
+    }
+
+    private static String column(AnalyticsDimension dimension) {
+        return switch (dimension) {
+            case DAY -> "f.period_start";
+            case MONTH -> "f.month_start";
+            case YEAR -> "f.year";
+            case DOCTOR -> "f.doctor_id";
+            case SPECIALTY -> "ds.specialty_id";
+            case DIAGNOSIS -> "f.diagnosis_id";
+            case DIAGNOSIS_CHAPTER -> "dg.chapter";
+            case GENERAL_PRACTITIONER -> "f.general_practitioner_id";
+            case STATUS -> "f.status";
+        };
+    }
+
+    private static String label(AnalyticsDimension dimension) {
+        return switch (dimension) {
+            case DOCTOR -> "doc.name";
+            case SPECIALTY -> "sp.name";
+            case DIAGNOSIS -> "dg.name";
+            case GENERAL_PRACTITIONER -> "gp.name";
+            default -> null;
+        };
+    }
+
+    private static String measure(AnalyticsMeasure measure) {
+        return switch (measure) {
+            case VISITS -> "f.visit_count";
+            case SICK_LEAVES -> "f.sick_leave_count";
+            case SICK_LEAVE_DAYS -> "f.sick_leave_days";
+        };
+    }
+
+    private static String format(LocalDate date, boolean month) {
+        if (date == null) {
+            return null;
+        }
+        return month ? YearMonth.from(date).toString() : date.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.models.ChangeTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ChangeTombstoneRepository extends JpaRepository<ChangeTombstone, Long> {
+
+    /**
+     * Reads the tombstones after a position of the change feed, ordered by deletion time and ID.
+     * @param after the deletion time of the position
+     * @param afterId the ID after which tombstones deleted exactly at {@code after} are returned
+     * @param until the latest deletion time to return
+     * @param pageable the number of tombstones to read
+     * @return the tombstones
+     */
+    @Query("SELECT t FROM ChangeTombstone t WHERE t.createdOn <= :until " +
+            "AND (t.createdOn > :after OR (t.createdOn = :after AND t.id > :afterId)) ORDER BY t.createdOn, t.id")
+    List<ChangeTombstone> findChangesAfter(@Param("after") LocalDateTime after, @Param("afterId") long afterId,
+            @Param("until") LocalDateTime until, Pageable pageable);
+
+    /**
+     * Deletes the tombstones of deletes made before the given time.
+     * @param cutoff the time
+     * @return the number of deleted tombstones
+     */
+    @Modifying
+    @Query("DELETE FROM ChangeTombstone t WHERE t.createdOn < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,18 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.dto.DiagnosisCodeDTO;
+
+import java.util.List;
+
+/**
+ * Bulk writes of diagnoses that bypass the persistence context, added to {@link DiagnosisRepository}.
+ */
+public interface DiagnosisBulkOperations {
+    /**
+     * Inserts coded diagnoses, or updates the existing diagnosis with the same code or name, in one statement.
+     * A description that is null keeps the existing one. Rows that do not change keep their version.
+     * The diagnoses must not conflict with each other, nor match one existing row by code and another by name.
+     * @param diagnoses the diagnoses to write
+     */
+    void upsertCoded(List<DiagnosisCodeDTO> diagnoses);
+}
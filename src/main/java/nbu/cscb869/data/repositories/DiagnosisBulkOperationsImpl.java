@@ -0,0 +1,49 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.dto.DiagnosisCodeDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes coded diagnoses with one multi-row {@code INSERT ... ON DUPLICATE KEY UPDATE} per call, in the caller's
+ * transaction. Entities of the written rows that are already loaded are not refreshed.
+ */
+public class DiagnosisBulkOperationsImpl implements DiagnosisBulkOperations {
+
+    private static final String INSERT = "insert into diagnoses "
+            + "(code, category, chapter, name, description, created_on, modified_on, version) values ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, 0)";
+    // MySQL assigns left to right, so whether the row changes is decided before code, name and description are set.
+    private static final String UNCHANGED = "code <=> values(code) and name <=> values(name) "
+            + "and (values(description) is null or description <=> values(description))";
+    private static final String UPDATE = " on duplicate key update "
+            + "modified_on = if(" + UNCHANGED + ", modified_on, values(modified_on)), "
+            + "version = if(" + UNCHANGED + ", version, version + 1), "
+            + "code = values(code), category = values(category), chapter = values(chapter), name = values(name), "
+            + "description = coalesce(values(description), description)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DiagnosisBulkOperationsImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertCoded(List<DiagnosisCodeDTO> diagnoses) {
+        if (diagnoses.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> args = new ArrayList<>(diagnoses.size() * 7);
+        for (DiagnosisCodeDTO diagnosis : diagnoses) {
+            Collections.addAll(args, diagnosis.getCode(), diagnosis.getCategory(), diagnosis.getChapter(),
+                    diagnosis.getName(), diagnosis.getDescription(), now, now);
+        }
+        jdbcTemplate.update(INSERT + String.join(", ", Collections.nCopies(diagnoses.size(), ROW)) + UPDATE, args.toArray());
+    }
+}
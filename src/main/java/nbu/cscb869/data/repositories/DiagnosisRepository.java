@@ -1,5 +1,8 @@
 package nbu.cscb869.data.repositories;
 
+import nbu.cscb869.data.dto.CatalogueNameDTO;
+import nbu.cscb869.data.dto.DiagnosisCodeDTO;
+import nbu.cscb869.data.dto.DiagnosisGroupVisitCountDTO;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.PatientDiagnosisDTO;
 import nbu.cscb869.data.models.Diagnosis;
@@ -12,7 +15,7 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
-public interface DiagnosisRepository extends JpaRepository<Diagnosis, Long> {
+public interface DiagnosisRepository extends JpaRepository<Diagnosis, Long>, DiagnosisBulkOperations {
     /**
      * Finds a diagnosis by name
      * @param name the diagnosis name
@@ -21,14 +24,17 @@ public interface DiagnosisRepository extends JpaRepository<Diagnosis, Long> {
     Optional<Diagnosis> findByName(String name);
 
     /**
-     * Finds patients diagnosed with a specific diagnosis.
+     * Finds patients diagnosed with a specific diagnosis, each once however many such visits they had. Like
+     * {@link PatientRepository#findByDiagnosis}, the visits are only probed with {@code EXISTS}.
      * @param diagnosis the diagnosis to filter by
      * @param pageable pagination information
-     * @return a page of DTOs with patients and diagnosis names
+     * @return a page of DTOs with patients and diagnosis names, with the number of distinct patients as its total
      */
-    @Query("SELECT new nbu.cscb869.data.dto.PatientDiagnosisDTO(p, d.name) " +
-            "FROM Patient p JOIN Visit v ON v.patient = p JOIN Diagnosis d ON v.diagnosis = d " +
-            "WHERE d = :diagnosis")
+    @Query(value = "SELECT new nbu.cscb869.data.dto.PatientDiagnosisDTO(p, d.name) " +
+            "FROM Patient p, Diagnosis d " +
+            "WHERE d = :diagnosis AND EXISTS (SELECT 1 FROM Visit v WHERE v.patient = p AND v.diagnosis = d)",
+            countQuery = "SELECT COUNT(p) FROM Patient p " +
+                    "WHERE EXISTS (SELECT 1 FROM Visit v WHERE v.patient = p AND v.diagnosis = :diagnosis)")
     Page<PatientDiagnosisDTO> findPatientsByDiagnosis(Diagnosis diagnosis, Pageable pageable);
 
     /**
@@ -50,6 +56,49 @@ public interface DiagnosisRepository extends JpaRepository<Diagnosis, Long> {
     @Query("SELECT d FROM Diagnosis d WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :name, '%')) ORDER BY d.name")
     Page<Diagnosis> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
 
+    /**
+     * Reads the ID and name of every diagnosis.
+     * @return the names, in no particular order
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.CatalogueNameDTO(d.id, d.name) FROM Diagnosis d")
+    List<CatalogueNameDTO> findAllNames();
+
+    /**
+     * Reads the code, name and description of every diagnosis, coded or not, for the bulk loader.
+     * @return the diagnoses, in no particular order; the code, category and chapter are null for uncoded ones
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.DiagnosisCodeDTO(d.code, d.category, d.chapter, d.name, d.description) FROM Diagnosis d")
+    List<DiagnosisCodeDTO> findAllCodes();
+
+    /**
+     * Finds coded diagnoses whose code starts with a prefix, such as every code of a category, in code order.
+     * The prefix is matched against the start of the unique code index.
+     * @param prefix the normalized code prefix, free of wildcards
+     * @param pageable pagination information
+     * @return a page of diagnoses
+     */
+    @Query(value = "SELECT d FROM Diagnosis d WHERE d.code LIKE CONCAT(:prefix, '%') ORDER BY d.code",
+            countQuery = "SELECT COUNT(d) FROM Diagnosis d WHERE d.code LIKE CONCAT(:prefix, '%')")
+    Page<Diagnosis> findByCodeStartingWith(@Param("prefix") String prefix, Pageable pageable);
+
+    /**
+     * Counts visits per ICD-10 chapter of their diagnosis. Visits with an uncoded diagnosis are not counted.
+     * @return the chapters with their visit counts, sorted by count descending
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.DiagnosisGroupVisitCountDTO(d.chapter, COUNT(v)) " +
+            "FROM Visit v JOIN v.diagnosis d WHERE d.chapter IS NOT NULL " +
+            "GROUP BY d.chapter ORDER BY COUNT(v) DESC")
+    List<DiagnosisGroupVisitCountDTO> findVisitCountsByChapter();
+
+    /**
+     * Counts visits per ICD-10 category of their diagnosis. Visits with an uncoded diagnosis are not counted.
+     * @return the categories with their visit counts, sorted by count descending
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.DiagnosisGroupVisitCountDTO(d.category, COUNT(v)) " +
+            "FROM Visit v JOIN v.diagnosis d WHERE d.category IS NOT NULL " +
+            "GROUP BY d.category ORDER BY COUNT(v) DESC")
+    List<DiagnosisGroupVisitCountDTO> findVisitCountsByCategory();
+
     /**
      * Returns the number of entities available.
      * @return the number of entities.
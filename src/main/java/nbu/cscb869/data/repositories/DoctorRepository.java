@@ -3,15 +3,19 @@ package nbu.cscb869.data.repositories;
 import nbu.cscb869.data.dto.DoctorPatientCountDTO;
 import nbu.cscb869.data.dto.DoctorSickLeaveCountDTO;
 import nbu.cscb869.data.dto.DoctorVisitCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
+import nbu.cscb869.data.dto.RowVersionDTO;
 import nbu.cscb869.data.models.Doctor;
 import nbu.cscb869.data.models.Patient;
 import nbu.cscb869.data.models.Specialty;
+import nbu.cscb869.data.models.enums.ImageStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -116,4 +120,64 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long>, JpaSpecif
      * @return a page of Doctor entities.
      */
     Page<Doctor> findByIsApproved(boolean isApproved, Pageable pageable);
+
+    /**
+     * Finds doctors whose image is in the given pipeline state.
+     * @param imageStatus the image state
+     * @return the matching doctors
+     */
+    List<Doctor> findByImageStatus(ImageStatus imageStatus);
+
+    /**
+     * Retrieves the URLs of all stored doctor images.
+     * @return the image URLs
+     */
+    @Query("SELECT d.imageUrl FROM Doctor d WHERE d.imageUrl IS NOT NULL")
+    List<String> findAllImageUrls();
+
+    /**
+     * Records a finished background upload, unless the doctor's image was replaced or removed in the meantime.
+     * The row is updated in place so that the upload never conflicts with a concurrent edit of the doctor.
+     * @param id the doctor ID
+     * @param stagingPath the staging file the upload was made from
+     * @param imageUrl the URL of the uploaded image
+     * @return 1 if the doctor was updated, 0 if the upload is stale
+     */
+    @Modifying
+    @Query("UPDATE Doctor d SET d.imageUrl = :imageUrl, d.imageStatus = nbu.cscb869.data.models.enums.ImageStatus.READY, " +
+            "d.imageStagingPath = NULL, d.version = d.version + 1, d.modifiedOn = LOCAL DATETIME " +
+            "WHERE d.id = :id AND d.imageStagingPath = :stagingPath")
+    int completeImageUpload(@Param("id") Long id, @Param("stagingPath") String stagingPath,
+                            @Param("imageUrl") String imageUrl);
+
+    /**
+     * Marks a background upload as failed, unless the doctor's image was replaced or removed in the meantime.
+     * @param id the doctor ID
+     * @param stagingPath the staging file the upload was made from
+     * @return 1 if the doctor was updated, 0 if the upload is stale
+     */
+    @Modifying
+    @Query("UPDATE Doctor d SET d.imageStatus = nbu.cscb869.data.models.enums.ImageStatus.FAILED, " +
+            "d.imageStagingPath = NULL, d.version = d.version + 1, d.modifiedOn = LOCAL DATETIME " +
+            "WHERE d.id = :id AND d.imageStagingPath = :stagingPath")
+    int failImageUpload(@Param("id") Long id, @Param("stagingPath") String stagingPath);
+
+    /**
+     * Reads the version of a doctor, without loading it. The specialties embedded in its representation are read by
+     * {@link #findSpecialtyVersions(Long)}.
+     * @param id the doctor ID
+     * @return an Optional containing the version if the doctor exists
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.ResourceVersionDTO(d.id, d.version, '', " +
+            "COALESCE(d.modifiedOn, d.createdOn), d.keycloakId) FROM Doctor d WHERE d.id = :id")
+    Optional<ResourceVersionDTO> findVersionById(@Param("id") Long id);
+
+    /**
+     * Reads the versions of a doctor's specialties, without loading them.
+     * @param id the doctor ID
+     * @return the specialty versions, ordered by ID
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.RowVersionDTO(s.id, s.version, COALESCE(s.modifiedOn, s.createdOn)) " +
+            "FROM Doctor d JOIN d.specialties s WHERE d.id = :id ORDER BY s.id")
+    List<RowVersionDTO> findSpecialtyVersions(@Param("id") Long id);
 }
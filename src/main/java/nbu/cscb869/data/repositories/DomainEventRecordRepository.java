@@ -0,0 +1,31 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.models.DomainEventRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DomainEventRecordRepository extends JpaRepository<DomainEventRecord, Long> {
+    /**
+     * Retrieves the logged events after a position in the log, in the order they were logged.
+     * @param afterId the ID of the last event already processed; 0 to start at the beginning
+     * @param pageable the batch size
+     * @return the next events
+     */
+    @Query("SELECT e FROM DomainEventRecord e WHERE e.id > :afterId ORDER BY e.id")
+    List<DomainEventRecord> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Deletes the events logged before a point in time.
+     * @param cutoff the oldest creation time to keep
+     * @return the number of deleted events
+     */
+    @Modifying
+    @Query("DELETE FROM DomainEventRecord e WHERE e.createdOn < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,43 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.models.ImageDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ImageDeletionRepository extends JpaRepository<ImageDeletion, Long> {
+    /**
+     * Retrieves the deletions that are due, oldest due first.
+     * @param now the current time
+     * @param pageable the batch size
+     * @return the due deletions
+     */
+    @Query("SELECT d FROM ImageDeletion d WHERE d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt, d.id")
+    List<ImageDeletion> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Retrieves the public IDs of all queued deletions.
+     * @return the queued public IDs
+     */
+    @Query("SELECT DISTINCT d.publicId FROM ImageDeletion d")
+    List<String> findAllPublicIds();
+
+    /**
+     * Records a failed attempt for a batch of deletions and postpones them.
+     * @param ids the deletion IDs
+     * @param nextAttemptAt when to try again
+     * @param lastError the failure reason
+     * @return the number of postponed deletions
+     */
+    @Modifying
+    @Query("UPDATE ImageDeletion d SET d.attempts = d.attempts + 1, d.nextAttemptAt = :nextAttemptAt, " +
+            "d.lastError = :lastError, d.version = d.version + 1, d.modifiedOn = LOCAL DATETIME WHERE d.id IN :ids")
+    int postpone(@Param("ids") Collection<Long> ids, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                 @Param("lastError") String lastError);
+}
@@ -0,0 +1,41 @@
+package nbu.cscb869.data.repositories;
+
+import jakarta.persistence.LockModeType;
+import nbu.cscb869.data.models.Medication;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface MedicationRepository extends JpaRepository<Medication, Long> {
+    /**
+     * Finds a medication by name. The name column's collation ignores case.
+     * @param name the name
+     * @return the medication, if catalogued
+     */
+    Optional<Medication> findByName(String name);
+
+    /**
+     * Finds a medication by name with a shared lock, so that the latest committed row is read whatever the snapshot of
+     * the caller's transaction, and the row cannot be renamed or deleted before it commits.
+     * @param name the name
+     * @return the medication, if catalogued
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT m FROM Medication m WHERE m.name = :name")
+    Optional<Medication> findLockedByName(@Param("name") String name);
+
+    /**
+     * Adds a medication unless one with an equal name, by the column's collation, exists. If another transaction has
+     * added the name and not yet committed, waits for it instead of failing.
+     * @param name the normalized name
+     * @return the number of affected rows, as reported by the driver
+     */
+    @Modifying
+    @Query(value = "INSERT INTO medications (created_on, version, name) VALUES (now(6), 0, :name) " +
+            "ON DUPLICATE KEY UPDATE id = id", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+}
@@ -1,9 +1,15 @@
 package nbu.cscb869.data.repositories;
 
+import nbu.cscb869.data.dto.MedicineChangeDTO;
 import nbu.cscb869.data.models.Medicine;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface MedicineRepository extends JpaRepository<Medicine, Long> {
     /**
@@ -12,4 +18,13 @@ public interface MedicineRepository extends JpaRepository<Medicine, Long> {
      * @return a page of medicine entities
      */
     Page<Medicine> findAll(Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Reads the medicines of the given treatments as flat rows.
+     * @param treatmentIds the treatment IDs
+     * @return the medicines, ordered by ID
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.MedicineChangeDTO(m.treatment.id, m.id, m.medication.name, m.dosage, m.frequency) " +
+            "FROM Medicine m WHERE m.treatment.id IN :treatmentIds ORDER BY m.id")
+    List<MedicineChangeDTO> findChangesByTreatmentIds(@Param("treatmentIds") Collection<Long> treatmentIds);
+}
@@ -0,0 +1,163 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes the patient reach sketches of migration {@code V14}: one serialized
+ * {@link nbu.cscb869.services.services.utility.HyperLogLog} of the patients with a completed visit per doctor or
+ * diagnosis and month. Like the {@link AnalyticsRepository}, the table has no entity and every method joins the
+ * caller's transaction.
+ */
+@Repository
+public class PatientReachRepository {
+
+    /**
+     * A doctor or diagnosis in a month.
+     * @param dimension {@link AnalyticsDimension#DOCTOR} or {@link AnalyticsDimension#DIAGNOSIS}
+     * @param id the doctor's or diagnosis' ID
+     * @param month the first day of the month
+     */
+    public record Key(AnalyticsDimension dimension, long id, LocalDate month) {
+    }
+
+    /**
+     * A stored sketch.
+     * @param id the doctor's or diagnosis' ID
+     * @param name the doctor's or diagnosis' name
+     * @param sketch the serialized sketch
+     */
+    public record Sketch(long id, String name, byte[] sketch) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public PatientReachRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Finds the doctors and diagnoses with facts on some days, in their months.
+     * @param days the days
+     * @return the keys, possibly repeated
+     */
+    public List<Key> findKeysOfDays(Collection<LocalDate> days) {
+        List<Key> keys = new ArrayList<>();
+        jdbcTemplate.query("select distinct month_start, doctor_id, diagnosis_id from visit_daily_facts where period_start in (:days)",
+                Map.of("days", days.stream().map(Date::valueOf).toList()), (RowCallbackHandler) rs -> {
+                    LocalDate month = rs.getObject(1, LocalDate.class);
+                    keys.add(new Key(AnalyticsDimension.DOCTOR, rs.getLong(2), month));
+                    long diagnosisId = rs.getLong(3);
+                    if (!rs.wasNull()) {
+                        keys.add(new Key(AnalyticsDimension.DIAGNOSIS, diagnosisId, month));
+                    }
+                });
+        return keys;
+    }
+
+    /**
+     * Reads the patients of the completed visits of some doctors or diagnoses in a month.
+     * @param dimension {@link AnalyticsDimension#DOCTOR} or {@link AnalyticsDimension#DIAGNOSIS}
+     * @param month the first day of the month
+     * @param ids the doctors' or diagnoses' IDs
+     * @param consumer given the doctor's or diagnosis' ID and the patient's ID of each visit
+     */
+    public void forEachPatient(AnalyticsDimension dimension, LocalDate month, Collection<Long> ids, PatientConsumer consumer) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("from", Date.valueOf(month))
+                .addValue("to", Date.valueOf(month.plusMonths(1)))
+                .addValue("status", VisitStatus.COMPLETED.name())
+                .addValue("ids", ids);
+        String column = column(dimension);
+        jdbcTemplate.query("select " + column + ", patient_id from visits where " + column + " in (:ids) "
+                        + "and status = :status and visit_date >= :from and visit_date < :to",
+                parameters, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2)));
+    }
+
+    /**
+     * Replaces the sketches of some doctors or diagnoses in a month.
+     * @param dimension {@link AnalyticsDimension#DOCTOR} or {@link AnalyticsDimension#DIAGNOSIS}
+     * @param month the first day of the month
+     * @param ids the doctors' or diagnoses' IDs whose sketches are replaced
+     * @param sketches the new sketches by ID; IDs without one are left without a sketch
+     */
+    public void replace(AnalyticsDimension dimension, LocalDate month, Collection<Long> ids, Map<Long, byte[]> sketches) {
+        jdbcTemplate.update("delete from patient_reach_sketches where dimension = :dimension and month_start = :month "
+                        + "and dimension_id in (:ids)",
+                new MapSqlParameterSource("dimension", dimension.name())
+                        .addValue("month", Date.valueOf(month))
+                        .addValue("ids", ids));
+        SqlParameterSource[] rows = sketches.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource("dimension", dimension.name())
+                        .addValue("id", entry.getKey())
+                        .addValue("month", Date.valueOf(month))
+                        .addValue("sketch", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("insert into patient_reach_sketches (dimension, dimension_id, month_start, sketch) "
+                + "values (:dimension, :id, :month, :sketch)", rows);
+    }
+
+    /**
+     * Reads the sketches of a range of months.
+     * @param dimension {@link AnalyticsDimension#DOCTOR} or {@link AnalyticsDimension#DIAGNOSIS}
+     * @param id only the sketches of this doctor or diagnosis; null for all
+     * @param from the first day of the first month; null for no lower bound
+     * @param to the first day of the last month; null for no upper bound
+     * @param consumer given each sketch, ordered by ID
+     */
+    public void forEachSketch(AnalyticsDimension dimension, Long id, LocalDate from, LocalDate to, Consumer<Sketch> consumer) {
+        StringBuilder sql = new StringBuilder("select s.dimension_id, n.name, s.sketch from patient_reach_sketches s left join ")
+                .append(table(dimension))
+                .append(" n on n.id = s.dimension_id where s.dimension = :dimension");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("dimension", dimension.name());
+        if (id != null) {
+            sql.append(" and s.dimension_id = :id");
+            parameters.addValue("id", id);
+        }
+        if (from != null) {
+            sql.append(" and s.month_start >= :from");
+            parameters.addValue("from", Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" and s.month_start <= :to");
+            parameters.addValue("to", Date.valueOf(to));
+        }
+        sql.append(" order by s.dimension_id");
+        jdbcTemplate.query(sql.toString(), parameters,
+                (RowCallbackHandler) rs -> consumer.accept(new Sketch(rs.getLong(1), rs.getString(2), rs.getBytes(3))));
+    }
+
+    /** Receives the patient of a visit, without boxing. */
+    @FunctionalInterface
+    public interface PatientConsumer {
+        void accept(long id, long patientId);
+    }
+
+    private static String table(AnalyticsDimension dimension) {
+        return switch (dimension) {
+            case DOCTOR -> "doctors";
+            case DIAGNOSIS -> "diagnoses";
+            default -> throw new IllegalArgumentException("No patient reach sketches by " + dimension);
+        };
+    }
+
+    private static String column(AnalyticsDimension dimension) {
+        return switch (dimension) {
+            case DOCTOR -> "doctor_id";
+            case DIAGNOSIS -> "diagnosis_id";
+            default -> throw new IllegalArgumentException("No patient reach sketches by " + dimension);
+        };
+    }
+}
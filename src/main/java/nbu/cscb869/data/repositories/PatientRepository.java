@@ -1,6 +1,9 @@
 package nbu.cscb869.data.repositories;
 
 import nbu.cscb869.data.dto.DoctorPatientCountDTO;
+import nbu.cscb869.data.dto.PatientChangeDTO;
+import nbu.cscb869.data.dto.PatientSummaryDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.models.Doctor;
 import nbu.cscb869.data.models.Patient;
 import org.springframework.data.domain.Page;
@@ -9,6 +12,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -60,11 +64,45 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     Page<Patient> findByEgnContaining(String filter, Pageable pageable);
 
     /**
-     * Retrieves a paginated list of unique patients who have at least one visit with the specified diagnosis.
+     * Retrieves a page of the patients who have at least one visit with the specified diagnosis, each once. The visits
+     * are only probed with {@code EXISTS}, which MySQL runs as a semijoin on {@code idx_visits_diagnosis_patient}, so
+     * neither the page nor its count reads more than one visit per patient, and only the listed columns are loaded.
      * @param diagnosisId The ID of the diagnosis to search for.
-     * @param pageable Pagination information.
-     * @return A Page of unique {@link Patient} entities.
+     * @param pageable Pagination information; sorted by patient properties such as {@code name}.
+     * @return A Page of {@link PatientSummaryDTO}, with the number of distinct patients as its total.
      */
-    @Query("SELECT DISTINCT v.patient FROM Visit v WHERE v.diagnosis.id = :diagnosisId")
-    Page<Patient> findByDiagnosis(@Param("diagnosisId") Long diagnosisId, Pageable pageable);
+    @Query(value = "SELECT new nbu.cscb869.data.dto.PatientSummaryDTO(p.id, p.name, p.egn, p.lastInsurancePaymentDate, " +
+            "gp.id, gp.name, p.keycloakId) " +
+            "FROM Patient p LEFT JOIN p.generalPractitioner gp " +
+            "WHERE EXISTS (SELECT 1 FROM Visit v WHERE v.patient = p AND v.diagnosis.id = :diagnosisId)",
+            countQuery = "SELECT COUNT(p) FROM Patient p " +
+                    "WHERE EXISTS (SELECT 1 FROM Visit v WHERE v.patient = p AND v.diagnosis.id = :diagnosisId)")
+    Page<PatientSummaryDTO> findByDiagnosis(@Param("diagnosisId") Long diagnosisId, Pageable pageable);
+
+    /**
+     * Reads the version of a patient and of its general practitioner, without loading either.
+     * @param id the patient ID
+     * @return an Optional containing the version if the patient exists
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.ResourceVersionDTO(p.id, p.version, " +
+            "COALESCE(CAST(gp.id AS String) || ':' || CAST(gp.version AS String), '-'), " +
+            "GREATEST(COALESCE(p.modifiedOn, p.createdOn), COALESCE(gp.modifiedOn, gp.createdOn, p.createdOn)), " +
+            "p.keycloakId) " +
+            "FROM Patient p LEFT JOIN p.generalPractitioner gp WHERE p.id = :id")
+    Optional<ResourceVersionDTO> findVersionById(@Param("id") Long id);
+
+    /**
+     * Reads the patients changed after a position of the change feed, ordered by modification time and ID, as flat rows.
+     * @param after the modification time of the position
+     * @param afterId the ID after which patients modified exactly at {@code after} are returned
+     * @param until the latest modification time to return
+     * @param pageable the number of rows to read
+     * @return the changed patients
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.PatientChangeDTO(p.id, p.version, p.modifiedOn, p.name, p.egn, " +
+            "p.lastInsurancePaymentDate, p.generalPractitioner.id, p.keycloakId) FROM Patient p " +
+            "WHERE p.modifiedOn <= :until AND (p.modifiedOn > :after OR (p.modifiedOn = :after AND p.id > :afterId)) " +
+            "ORDER BY p.modifiedOn, p.id")
+    List<PatientChangeDTO> findChangesAfter(@Param("after") LocalDateTime after, @Param("afterId") long afterId,
+            @Param("until") LocalDateTime until, Pageable pageable);
 }
@@ -0,0 +1,111 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.models.ReportJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+    /**
+     * Retrieves the job that identical requests currently share.
+     * @param liveKey the request key
+     * @return the job, if any
+     */
+    Optional<ReportJob> findByLiveKey(String liveKey);
+
+    /**
+     * Retrieves the IDs of the jobs queued before a given time, oldest first.
+     * @param createdBefore the latest creation time
+     * @param pageable the batch size
+     * @return the job IDs
+     */
+    @Query("SELECT j.id FROM ReportJob j WHERE j.status = nbu.cscb869.data.models.enums.ReportJobStatus.QUEUED " +
+            "AND j.createdOn < :createdBefore ORDER BY j.createdOn, j.id")
+    List<Long> findQueuedIds(@Param("createdBefore") LocalDateTime createdBefore, Pageable pageable);
+
+    /**
+     * Marks a queued job as running, unless another worker took it first.
+     * @param id the job ID
+     * @param now the current time
+     * @return 1 if the job was claimed, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = nbu.cscb869.data.models.enums.ReportJobStatus.RUNNING, j.startedAt = :now, " +
+            "j.version = j.version + 1, j.modifiedOn = :now " +
+            "WHERE j.id = :id AND j.status = nbu.cscb869.data.models.enums.ReportJobStatus.QUEUED")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Queues again the jobs whose worker has not finished them in time, such as after the instance running them died.
+     * @param startedBefore the latest start time of a job still considered running
+     * @param now the current time
+     * @return the number of jobs queued again
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = nbu.cscb869.data.models.enums.ReportJobStatus.QUEUED, j.startedAt = null, " +
+            "j.version = j.version + 1, j.modifiedOn = :now " +
+            "WHERE j.status = nbu.cscb869.data.models.enums.ReportJobStatus.RUNNING AND j.startedAt < :startedBefore")
+    int requeueStale(@Param("startedBefore") LocalDateTime startedBefore, @Param("now") LocalDateTime now);
+
+    /**
+     * Stores the result of a running job and marks it completed.
+     * @param id the job ID
+     * @param result the gzip-compressed JSON result
+     * @param now the current time
+     * @param expiresAt when the result is purged
+     * @return 1 if the job was still running, 0 otherwise
+     */
+    @Modifying
+    @Query(value = "UPDATE report_jobs SET status = 'COMPLETED', result = :result, result_size = length(:result), " +
+            "completed_at = :now, expires_at = :expiresAt, version = version + 1, modified_on = :now " +
+            "WHERE id = :id AND status = 'RUNNING'", nativeQuery = true)
+    int complete(@Param("id") Long id, @Param("result") byte[] result, @Param("now") LocalDateTime now,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Marks a running job failed and releases its request key, so that the next identical request starts over.
+     * @param id the job ID
+     * @param error the failure reason
+     * @param now the current time
+     * @param expiresAt when the job is purged
+     * @return 1 if the job was still running, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = nbu.cscb869.data.models.enums.ReportJobStatus.FAILED, j.error = :error, " +
+            "j.liveKey = null, j.completedAt = :now, j.expiresAt = :expiresAt, j.version = j.version + 1, j.modifiedOn = :now " +
+            "WHERE j.id = :id AND j.status = nbu.cscb869.data.models.enums.ReportJobStatus.RUNNING")
+    int fail(@Param("id") Long id, @Param("error") String error, @Param("now") LocalDateTime now,
+             @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Releases the request key of an expired job, so that an identical request computes the report again.
+     * @param id the job ID
+     * @return 1 if the key was released, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.liveKey = null, j.version = j.version + 1 WHERE j.id = :id")
+    int releaseLiveKey(@Param("id") Long id);
+
+    /**
+     * Reads the result of a completed job.
+     * @param id the job ID
+     * @return the gzip-compressed JSON result, or null if the job has none
+     */
+    @Query(value = "SELECT result FROM report_jobs WHERE id = :id", nativeQuery = true)
+    byte[] findResultById(@Param("id") Long id);
+
+    /**
+     * Deletes the jobs that have expired.
+     * @param now the current time
+     * @return the number of jobs deleted
+     */
+    @Modifying
+    @Query("DELETE FROM ReportJob j WHERE j.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,13 +1,17 @@
 package nbu.cscb869.data.repositories;
 
 import nbu.cscb869.data.dto.DoctorSickLeaveCountDTO;
+import nbu.cscb869.data.dto.DoctorSickLeaveTotalDTO;
+import nbu.cscb869.data.dto.SickLeaveChangeDTO;
 import nbu.cscb869.data.dto.YearMonthSickLeaveCountDTO;
 import nbu.cscb869.data.models.SickLeave;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -40,9 +44,33 @@ public interface SickLeaveRepository extends JpaRepository<SickLeave, Long> {
             "FROM SickLeave s JOIN s.visit v GROUP BY v.doctor ORDER BY COUNT(s) DESC")
     List<DoctorSickLeaveCountDTO> findDoctorsWithMostSickLeaves();
 
+    /**
+     * Counts the sick leaves issued by every doctor, without loading the doctors.
+     *
+     * @return a list of DTOs with doctor ID and sick leave count, in no particular order
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.DoctorSickLeaveTotalDTO(v.doctor.id, COUNT(s)) " +
+            "FROM SickLeave s JOIN s.visit v GROUP BY v.doctor.id")
+    List<DoctorSickLeaveTotalDTO> countByDoctor();
+
     /**
      * Returns the number of entities available.
      * @return the number of entities.
      */
     long count();
+
+    /**
+     * Reads the sick leaves changed after a position of the change feed, ordered by modification time and ID, as flat rows.
+     * @param after the modification time of the position
+     * @param afterId the ID after which sick leaves modified exactly at {@code after} are returned
+     * @param until the latest modification time to return
+     * @param pageable the number of rows to read
+     * @return the changed sick leaves
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.SickLeaveChangeDTO(s.id, s.version, s.modifiedOn, s.startDate, " +
+            "s.durationDays, s.visit.id) FROM SickLeave s " +
+            "WHERE s.modifiedOn <= :until AND (s.modifiedOn > :after OR (s.modifiedOn = :after AND s.id > :afterId)) " +
+            "ORDER BY s.modifiedOn, s.id")
+    List<SickLeaveChangeDTO> findChangesAfter(@Param("after") LocalDateTime after, @Param("afterId") long afterId,
+            @Param("until") LocalDateTime until, Pageable pageable);
 }
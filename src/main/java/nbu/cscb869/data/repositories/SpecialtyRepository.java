@@ -1,11 +1,15 @@
 package nbu.cscb869.data.repositories;
 
+import nbu.cscb869.data.dto.CatalogueNameDTO;
+import nbu.cscb869.data.dto.RowVersionDTO;
+import nbu.cscb869.data.dto.SpecialtyVisitCountDTO;
 import nbu.cscb869.data.models.Specialty;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface SpecialtyRepository extends JpaRepository<Specialty, Long> {
@@ -23,4 +27,27 @@ public interface SpecialtyRepository extends JpaRepository<Specialty, Long> {
      * @return a Page containing active specialties
      */
     Page<Specialty> findAll(Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Reads the ID and version of every specialty, from which the version of the specialty collection is built.
+     * @return the specialty versions, ordered by ID
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.RowVersionDTO(s.id, s.version, COALESCE(s.modifiedOn, s.createdOn)) " +
+            "FROM Specialty s ORDER BY s.id")
+    List<RowVersionDTO> findAllVersions();
+
+    /**
+     * Reads the ID and name of every specialty.
+     * @return the names, in no particular order
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.CatalogueNameDTO(s.id, s.name) FROM Specialty s")
+    List<CatalogueNameDTO> findAllNames();
+
+    /**
+     * Counts the visits to doctors of each specialty. A visit to a doctor with several specialties counts for each.
+     * @return the specialties with visits and their visit counts, sorted by count descending
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.SpecialtyVisitCountDTO(s.id, s.name, COUNT(v)) " +
+            "FROM Visit v JOIN v.doctor d JOIN d.specialties s GROUP BY s.id, s.name ORDER BY COUNT(v) DESC")
+    List<SpecialtyVisitCountDTO> findMostFrequentSpecialties();
+}
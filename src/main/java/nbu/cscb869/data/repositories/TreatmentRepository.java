@@ -1,9 +1,15 @@
 package nbu.cscb869.data.repositories;
 
+import nbu.cscb869.data.dto.TreatmentChangeDTO;
 import nbu.cscb869.data.models.Treatment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface TreatmentRepository extends JpaRepository<Treatment, Long> {
     /**
@@ -12,4 +18,19 @@ public interface TreatmentRepository extends JpaRepository<Treatment, Long> {
      * @return a page of treatment entities
      */
     Page<Treatment> findAll(Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Reads the treatments changed after a position of the change feed, ordered by modification time and ID, as flat rows.
+     * @param after the modification time of the position
+     * @param afterId the ID after which treatments modified exactly at {@code after} are returned
+     * @param until the latest modification time to return
+     * @param pageable the number of rows to read
+     * @return the changed treatments
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.TreatmentChangeDTO(t.id, t.version, t.modifiedOn, t.description, t.visit.id) " +
+            "FROM Treatment t " +
+            "WHERE t.modifiedOn <= :until AND (t.modifiedOn > :after OR (t.modifiedOn = :after AND t.id > :afterId)) " +
+            "ORDER BY t.modifiedOn, t.id")
+    List<TreatmentChangeDTO> findChangesAfter(@Param("after") LocalDateTime after, @Param("afterId") long afterId,
+            @Param("until") LocalDateTime until, Pageable pageable);
+}
@@ -0,0 +1,169 @@
+package nbu.cscb869.data.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads visits, their treatments, prescriptions and sick leaves month by month for the columnar export.
+ * <p>
+ * The rows of a month are streamed from MySQL one at a time rather than read into memory, so the month size does not
+ * matter; the connection stays busy until the last row has been handed over. Nothing here takes part in a transaction.
+ */
+@Repository
+public class VisitExportRepository {
+
+    private static final String MONTHS = "select year(v.visit_date) as y, month(v.visit_date) as m, count(*) as visits, "
+            + "count(t.id) as treatments, count(s.id) as sick_leaves, coalesce(sum(p.prescriptions), 0) as prescriptions, "
+            + "max(coalesce(v.modified_on, v.created_on)) as visit_modified, "
+            + "max(coalesce(t.modified_on, t.created_on)) as treatment_modified, "
+            + "max(coalesce(s.modified_on, s.created_on)) as sick_leave_modified, "
+            + "max(p.modified) as prescription_modified "
+            + "from visits v "
+            + "left join treatments t on t.visit_id = v.id "
+            + "left join sick_leaves s on s.visit_id = v.id "
+            + "left join (select treatment_id, count(*) as prescriptions, max(coalesce(modified_on, created_on)) as modified "
+            + "from medicines group by treatment_id) p on p.treatment_id = t.id "
+            + "group by year(v.visit_date), month(v.visit_date)";
+
+    private static final String VISITS = "select v.id, v.visit_date, v.status, v.patient_id, p.general_practitioner_id, "
+            + "v.doctor_id, v.diagnosis_id, dg.code, t.id as treatment_id, t.description, s.start_date, s.duration_days "
+            + "from visits v "
+            + "join patients p on p.id = v.patient_id "
+            + "left join diagnoses dg on dg.id = v.diagnosis_id "
+            + "left join treatments t on t.visit_id = v.id "
+            + "left join sick_leaves s on s.visit_id = v.id "
+            + "where v.visit_date between :from and :to "
+            + "order by v.visit_date, v.id";
+
+    private static final String PRESCRIPTIONS = "select t.visit_id, m.treatment_id, m.medication_id, m.dosage, m.frequency "
+            + "from medicines m "
+            + "join treatments t on t.id = m.treatment_id "
+            + "join visits v on v.id = t.visit_id "
+            + "where v.visit_date between :from and :to "
+            + "order by v.visit_date, t.visit_id, m.id";
+
+    /** The catalogues whose names are written as dictionaries. */
+    public enum Catalogue {
+        DOCTORS("doctors"), DIAGNOSES("diagnoses"), MEDICATIONS("medications");
+
+        private final String table;
+
+        Catalogue(String table) {
+            this.table = table;
+        }
+    }
+
+    /**
+     * The size and the latest change of one month of visits; a month whose signature is unchanged since it was
+     * exported needs no new export. Deleting a row changes a count, and adding or editing one the latest change.
+     */
+    public record MonthSignature(long visits, long treatments, long sickLeaves, long prescriptions,
+                                 LocalDateTime lastModified) {
+    }
+
+    /** One visit, with its treatment and sick leave if it has them. */
+    public record VisitRow(long id, LocalDate visitDate, String status, long patientId, Long generalPractitionerId,
+                           long doctorId, Long diagnosisId, String diagnosisCode, Long treatmentId,
+                           String treatmentDescription, LocalDate sickLeaveStart, Integer sickLeaveDays) {
+    }
+
+    /** One medicine prescribed in a visit's treatment. */
+    public record PrescriptionRow(long visitId, long treatmentId, long medicationId, String dosage, String frequency) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingTemplate;
+
+    public VisitExportRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        // Connector/J streams a result set row by row, instead of reading it whole, only for this fetch size.
+        streaming.setFetchSize(Integer.MIN_VALUE);
+        this.streamingTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    /**
+     * Computes the signature of every month with visits.
+     * @return the signatures, by month
+     */
+    public Map<YearMonth, MonthSignature> findMonthSignatures() {
+        Map<YearMonth, MonthSignature> months = new LinkedHashMap<>();
+        jdbcTemplate.query(MONTHS, rs -> {
+            LocalDateTime lastModified = latest(rs, "visit_modified", "treatment_modified", "sick_leave_modified",
+                    "prescription_modified");
+            months.put(YearMonth.of(rs.getInt("y"), rs.getInt("m")), new MonthSignature(rs.getLong("visits"),
+                    rs.getLong("treatments"), rs.getLong("sick_leaves"), rs.getLong("prescriptions"), lastModified));
+        });
+        return months;
+    }
+
+    /**
+     * Reads the names of a catalogue.
+     * @param catalogue the catalogue
+     * @return the name of each entry, by ID in ascending order; null for doctors without a name
+     */
+    public Map<Long, String> findNames(Catalogue catalogue) {
+        Map<Long, String> names = new LinkedHashMap<>();
+        jdbcTemplate.query("select id, name from " + catalogue.table + " order by id", rs -> {
+            names.put(rs.getLong("id"), rs.getString("name"));
+        });
+        return names;
+    }
+
+    /**
+     * Streams the visits of a month, ordered by date.
+     * @param month the month
+     * @param consumer receives the visits one at a time
+     */
+    public void streamVisits(YearMonth month, Consumer<VisitRow> consumer) {
+        streamingTemplate.query(VISITS, range(month), rs -> {
+            consumer.accept(new VisitRow(rs.getLong("id"), rs.getObject("visit_date", LocalDate.class),
+                    rs.getString("status"), rs.getLong("patient_id"), rs.getObject("general_practitioner_id", Long.class),
+                    rs.getLong("doctor_id"), rs.getObject("diagnosis_id", Long.class), rs.getString("code"),
+                    rs.getObject("treatment_id", Long.class), rs.getString("description"),
+                    rs.getObject("start_date", LocalDate.class), rs.getObject("duration_days", Integer.class)));
+        });
+    }
+
+    /**
+     * Streams the prescriptions of the visits of a month, ordered by visit date.
+     * @param month the month
+     * @param consumer receives the prescriptions one at a time
+     */
+    public void streamPrescriptions(YearMonth month, Consumer<PrescriptionRow> consumer) {
+        streamingTemplate.query(PRESCRIPTIONS, range(month), rs -> {
+            consumer.accept(new PrescriptionRow(rs.getLong("visit_id"), rs.getLong("treatment_id"),
+                    rs.getLong("medication_id"), rs.getString("dosage"), rs.getString("frequency")));
+        });
+    }
+
+    private static MapSqlParameterSource range(YearMonth month) {
+        return new MapSqlParameterSource("from", Date.valueOf(month.atDay(1)))
+                .addValue("to", Date.valueOf(month.atEndOfMonth()));
+    }
+
+    private static LocalDateTime latest(ResultSet rs, String... columns) throws SQLException {
+        LocalDateTime latest = null;
+        for (String column : List.of(columns)) {
+            Timestamp value = rs.getTimestamp(column);
+            if (value != null && (latest == null || value.toLocalDateTime().isAfter(latest))) {
+                latest = value.toLocalDateTime();
+            }
+        }
+        return latest;
+    }
+}
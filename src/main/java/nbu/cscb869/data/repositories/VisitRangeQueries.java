@@ -0,0 +1,33 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.models.Visit;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Queries of the visits within a date range that start at any row rather than at a page boundary, added to
+ * {@link VisitRepository} for reports that split a range into partitions.
+ */
+public interface VisitRangeQueries {
+    /**
+     * Counts the visits within a date range.
+     * @param doctorId the doctor whose visits to count; null for all doctors
+     * @param startDate the first day (inclusive)
+     * @param endDate the last day (inclusive)
+     * @return the number of visits
+     */
+    long countInRange(Long doctorId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Reads a slice of the visits within a date range, ordered by date, time and ID, with the patient, doctor,
+     * diagnosis, treatment and sick leave of each.
+     * @param doctorId the doctor whose visits to read; null for all doctors
+     * @param startDate the first day (inclusive)
+     * @param endDate the last day (inclusive)
+     * @param offset how many visits of the range to skip
+     * @param limit the most visits to return
+     * @return the visits
+     */
+    List<Visit> findInRange(Long doctorId, LocalDate startDate, LocalDate endDate, int offset, int limit);
+}
@@ -0,0 +1,51 @@
+package nbu.cscb869.data.repositories;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import nbu.cscb869.data.models.Visit;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Runs the range queries with the offset and limit set directly on the query, which a {@link
+ * org.springframework.data.domain.Pageable} can only express as whole pages.
+ */
+public class VisitRangeQueriesImpl implements VisitRangeQueries {
+
+    private static final String RANGE = "v.visitDate BETWEEN :startDate AND :endDate";
+    private static final String DOCTOR = " AND v.doctor.id = :doctorId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public long countInRange(Long doctorId, LocalDate startDate, LocalDate endDate) {
+        String jpql = "SELECT COUNT(v) FROM Visit v WHERE " + RANGE + (doctorId == null ? "" : DOCTOR);
+        return bind(entityManager.createQuery(jpql, Long.class), doctorId, startDate, endDate).getSingleResult();
+    }
+
+    @Override
+    public List<Visit> findInRange(Long doctorId, LocalDate startDate, LocalDate endDate, int offset, int limit) {
+        String jpql = "SELECT v FROM Visit v WHERE " + RANGE + (doctorId == null ? "" : DOCTOR)
+                + " ORDER BY v.visitDate, v.visitTime, v.id";
+        EntityGraph<Visit> graph = entityManager.createEntityGraph(Visit.class);
+        graph.addAttributeNodes("doctor", "diagnosis", "treatment", "sickLeave");
+        graph.addSubgraph("patient").addAttributeNodes("generalPractitioner");
+        return bind(entityManager.createQuery(jpql, Visit.class), doctorId, startDate, endDate)
+                .setHint("jakarta.persistence.fetchgraph", graph)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, Long doctorId, LocalDate startDate, LocalDate endDate) {
+        query.setParameter("startDate", startDate).setParameter("endDate", endDate);
+        if (doctorId != null) {
+            query.setParameter("doctorId", doctorId);
+        }
+        return query;
+    }
+}
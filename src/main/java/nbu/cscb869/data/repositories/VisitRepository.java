@@ -1,20 +1,27 @@
 package nbu.cscb869.data.repositories;
 
+import nbu.cscb869.data.dto.DiagnosisMonthVisitCountDTO;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.DoctorVisitCountDTO;
 import nbu.cscb869.data.dto.MonthSickLeaveCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
+import nbu.cscb869.data.dto.RowVersionDTO;
+import nbu.cscb869.data.dto.VisitChangeDTO;
 import nbu.cscb869.data.models.Diagnosis;
 import nbu.cscb869.data.models.Doctor;
 import nbu.cscb869.data.models.Patient;
+import nbu.cscb869.data.models.Treatment;
 import nbu.cscb869.data.models.Visit;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
@@ -22,7 +29,7 @@ import java.util.Optional;
 /**
  * Repository for managing {@link Visit} entities.
  */
-public interface VisitRepository extends JpaRepository<Visit, Long> {
+public interface VisitRepository extends JpaRepository<Visit, Long>, VisitRangeQueries {
 
     /**
      * Retrieves a single Visit by its ID, eagerly fetching all its child relationships
@@ -31,17 +38,49 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
      * @param id The ID of the visit.
      * @return An Optional containing the fully initialized Visit entity.
      */
-    @Query("SELECT v FROM Visit v LEFT JOIN FETCH v.treatment t LEFT JOIN FETCH t.medicines LEFT JOIN FETCH v.sickLeave WHERE v.id = :id")
+    @Query("SELECT v FROM Visit v LEFT JOIN FETCH v.treatment t LEFT JOIN FETCH t.medicines m LEFT JOIN FETCH m.medication " +
+            "LEFT JOIN FETCH v.sickLeave WHERE v.id = :id")
     Optional<Visit> findByIdWithChildren(@Param("id") Long id);
 
     /**
-     * Retrieves a page of visits for a specific patient.
+     * Retrieves a page of visits for a specific patient, fetching the doctor, diagnosis, treatment and sick leave
+     * of every visit in the same query so that mapping the page does not issue a statement per visit.
      * @param patient the patient whose visits are to be retrieved
      * @param pageable pagination information
      * @return a page of visit entities
      */
+    @EntityGraph(attributePaths = {"patient", "patient.generalPractitioner", "doctor", "diagnosis", "treatment", "sickLeave"})
     Page<Visit> findByPatient(Patient patient, Pageable pageable);
 
+    /**
+     * Retrieves every visit of a patient, newest first, fetching the same associations as {@link #findByPatient}.
+     * Used to build the patient's cached history timeline.
+     * @param patientId the ID of the patient
+     * @return the patient's visits
+     */
+    @EntityGraph(attributePaths = {"patient", "patient.generalPractitioner", "doctor", "diagnosis", "treatment", "sickLeave"})
+    List<Visit> findByPatientIdOrderByVisitDateDescVisitTimeDescIdDesc(Long patientId);
+
+    /**
+     * Loads the treatments of a patient's visits together with their medicines, so that the medicines are already
+     * initialized when the visits loaded in the same transaction are mapped.
+     * @param patientId the ID of the patient
+     * @return the treatments with their medicines
+     */
+    @Query("SELECT DISTINCT t FROM Treatment t LEFT JOIN FETCH t.medicines m LEFT JOIN FETCH m.medication " +
+            "WHERE t.visit.patient.id = :patientId")
+    List<Treatment> fetchTreatmentMedicinesByPatientId(@Param("patientId") Long patientId);
+
+    /**
+     * Loads the doctors who saw a patient together with their specialties, so that the specialties are already
+     * initialized when the visits loaded in the same transaction are mapped.
+     * @param patientId the ID of the patient
+     * @return the doctors with their specialties
+     */
+    @Query("SELECT DISTINCT d FROM Doctor d LEFT JOIN FETCH d.specialties " +
+            "WHERE d.id IN (SELECT v.doctor.id FROM Visit v WHERE v.patient.id = :patientId)")
+    List<Doctor> fetchDoctorSpecialtiesByPatientId(@Param("patientId") Long patientId);
+
     /**
      * Retrieves a page of all visits for a specific patient, ordered by date and time descending.
      * @param patient the patient whose visits are to be retrieved
@@ -124,6 +163,29 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
             "FROM Visit v GROUP BY v.diagnosis.id, v.diagnosis.name ORDER BY COUNT(v) DESC")
     List<DiagnosisVisitCountDTO> findMostFrequentDiagnoses();
 
+    /**
+     * Retrieves the diagnoses with the most visits within a date range.
+     * @param from the first day of the range
+     * @param to the last day of the range
+     * @param pageable the number of diagnoses to return
+     * @return a list of DTOs with diagnosis and visit count, sorted by count descending
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.DiagnosisVisitCountDTO(v.diagnosis.id, v.diagnosis.name, COUNT(v)) " +
+            "FROM Visit v WHERE v.visitDate BETWEEN :from AND :to " +
+            "GROUP BY v.diagnosis.id, v.diagnosis.name ORDER BY COUNT(v) DESC, v.diagnosis.id")
+    List<DiagnosisVisitCountDTO> findMostFrequentDiagnosesBetween(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                                   Pageable pageable);
+
+    /**
+     * Counts the visits of every diagnosis in each month from a given day on.
+     * @param from the first day counted
+     * @return a list of DTOs with month, diagnosis and visit count, in no particular order
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.DiagnosisMonthVisitCountDTO(YEAR(v.visitDate), MONTH(v.visitDate), v.diagnosis.id, COUNT(v)) " +
+            "FROM Visit v WHERE v.visitDate >= :from AND v.diagnosis IS NOT NULL " +
+            "GROUP BY YEAR(v.visitDate), MONTH(v.visitDate), v.diagnosis.id")
+    List<DiagnosisMonthVisitCountDTO> countDiagnosesByMonthSince(@Param("from") LocalDate from);
+
     /**
      * Retrieves a list of doctors with their visit counts, sorted by count descending.
      * @return a list of DTOs with doctor and visit count
@@ -162,4 +224,61 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
     @Query("SELECT new nbu.cscb869.data.dto.MonthSickLeaveCountDTO(MONTH(sl.startDate), COUNT(sl)) " +
             "FROM SickLeave sl GROUP BY MONTH(sl.startDate) ORDER BY COUNT(sl) DESC")
     List<MonthSickLeaveCountDTO> findMostFrequentSickLeaveMonth();
+
+    /**
+     * Reads the version of a visit and of the single rows embedded in its representation (patient, general
+     * practitioner, doctor, diagnosis, sick leave and treatment), without loading any of them. The doctor's
+     * specialties and the medicines are read by {@link #findSpecialtyVersions(Long)} and
+     * {@link #findMedicineVersions(Long)}.
+     * @param id the visit ID
+     * @return an Optional containing the version if the visit exists
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.ResourceVersionDTO(v.id, v.version, " +
+            "CAST(p.id AS String) || ':' || CAST(p.version AS String) || ';' " +
+            "|| CAST(d.id AS String) || ':' || CAST(d.version AS String) || ';' " +
+            "|| COALESCE(CAST(gp.id AS String) || ':' || CAST(gp.version AS String), '-') || ';' " +
+            "|| COALESCE(CAST(dg.id AS String) || ':' || CAST(dg.version AS String), '-') || ';' " +
+            "|| COALESCE(CAST(sl.id AS String) || ':' || CAST(sl.version AS String), '-') || ';' " +
+            "|| COALESCE(CAST(t.id AS String) || ':' || CAST(t.version AS String), '-'), " +
+            "GREATEST(COALESCE(v.modifiedOn, v.createdOn), COALESCE(p.modifiedOn, p.createdOn), " +
+            "COALESCE(d.modifiedOn, d.createdOn), COALESCE(gp.modifiedOn, gp.createdOn, v.createdOn), " +
+            "COALESCE(dg.modifiedOn, dg.createdOn, v.createdOn), COALESCE(sl.modifiedOn, sl.createdOn, v.createdOn), " +
+            "COALESCE(t.modifiedOn, t.createdOn, v.createdOn)), " +
+            "p.keycloakId) " +
+            "FROM Visit v JOIN v.patient p JOIN v.doctor d LEFT JOIN p.generalPractitioner gp " +
+            "LEFT JOIN v.diagnosis dg LEFT JOIN v.sickLeave sl LEFT JOIN v.treatment t WHERE v.id = :id")
+    Optional<ResourceVersionDTO> findVersionById(@Param("id") Long id);
+
+    /**
+     * Reads the versions of the specialties of a visit's doctor, without loading them.
+     * @param id the visit ID
+     * @return the specialty versions, ordered by ID
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.RowVersionDTO(s.id, s.version, COALESCE(s.modifiedOn, s.createdOn)) " +
+            "FROM Visit v JOIN v.doctor d JOIN d.specialties s WHERE v.id = :id ORDER BY s.id")
+    List<RowVersionDTO> findSpecialtyVersions(@Param("id") Long id);
+
+    /**
+     * Reads the versions of the medicines of a visit's treatment, without loading them.
+     * @param id the visit ID
+     * @return the medicine versions, ordered by ID
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.RowVersionDTO(m.id, m.version, COALESCE(m.modifiedOn, m.createdOn)) " +
+            "FROM Medicine m WHERE m.treatment.visit.id = :id ORDER BY m.id")
+    List<RowVersionDTO> findMedicineVersions(@Param("id") Long id);
+
+    /**
+     * Reads the visits changed after a position of the change feed, ordered by modification time and ID, as flat rows.
+     * @param after the modification time of the position
+     * @param afterId the ID after which visits modified exactly at {@code after} are returned
+     * @param until the latest modification time to return
+     * @param pageable the number of rows to read
+     * @return the changed visits
+     */
+    @Query("SELECT new nbu.cscb869.data.dto.VisitChangeDTO(v.id, v.version, v.modifiedOn, v.visitDate, v.visitTime, " +
+            "v.status, v.notes, v.patient.id, v.doctor.id, v.diagnosis.id) FROM Visit v " +
+            "WHERE v.modifiedOn <= :until AND (v.modifiedOn > :after OR (v.modifiedOn = :after AND v.id > :afterId)) " +
+            "ORDER BY v.modifiedOn, v.id")
+    List<VisitChangeDTO> findChangesAfter(@Param("after") LocalDateTime after, @Param("afterId") long afterId,
+            @Param("until") LocalDateTime until, Pageable pageable);
 }
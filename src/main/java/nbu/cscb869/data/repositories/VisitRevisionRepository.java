@@ -0,0 +1,37 @@
+package nbu.cscb869.data.repositories;
+
+import nbu.cscb869.data.models.VisitRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface VisitRevisionRepository extends JpaRepository<VisitRevision, Long> {
+    /**
+     * Retrieves a superseded version of a visit.
+     * @param visitId the ID of the visit
+     * @param visitVersion the version
+     * @return the revision, or empty if it was never recorded or has been purged
+     */
+    Optional<VisitRevision> findByVisitIdAndVisitVersion(Long visitId, Long visitVersion);
+
+    /**
+     * Checks whether a version of a visit has already been recorded.
+     * @param visitId the ID of the visit
+     * @param visitVersion the version
+     * @return true if a revision of that version exists
+     */
+    boolean existsByVisitIdAndVisitVersion(Long visitId, Long visitVersion);
+
+    /**
+     * Deletes the revisions recorded before a point in time.
+     * @param cutoff the oldest creation time to keep
+     * @return the number of deleted revisions
+     */
+    @Modifying
+    @Query("DELETE FROM VisitRevision r WHERE r.createdOn < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,45 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.*;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.AnalyticsMeasure;
+import nbu.cscb869.data.models.enums.VisitStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A visit analytics query: the dimensions to group by, the totals to compute, and the slice to compute them over.
+ * Unset filters do not restrict the slice.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsQueryDTO {
+    /** The dimensions to group by, in order; none for a single grand total. */
+    private List<AnalyticsDimension> groupBy;
+
+    /** The totals to compute; the visits if none are given. */
+    private List<AnalyticsMeasure> measures;
+
+    /** The first day of the slice. */
+    private LocalDate from;
+
+    /** The last day of the slice. */
+    private LocalDate to;
+
+    private Long doctorId;
+
+    private Long specialtyId;
+
+    private Long diagnosisId;
+
+    /** The ICD-10 chapter, as a Roman numeral. */
+    private String diagnosisChapter;
+
+    private Long generalPractitionerId;
+
+    private VisitStatus status;
+}
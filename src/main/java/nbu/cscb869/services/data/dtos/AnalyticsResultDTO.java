@@ -0,0 +1,38 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.*;
+import nbu.cscb869.data.dto.AnalyticsRowDTO;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.AnalyticsMeasure;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The answer to an {@link AnalyticsQueryDTO}.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsResultDTO {
+    private List<AnalyticsDimension> groupBy;
+
+    private List<AnalyticsMeasure> measures;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    /** The rollup the answer was computed from: {@code DAY} or, for ranges of whole months, {@code MONTH}. */
+    private AnalyticsDimension grain;
+
+    /** The groups, ordered by their dimension values. */
+    private List<AnalyticsRowDTO> rows;
+
+    /** Whether there were more groups than {@code app.analytics.max-rows} and the rest were left out. */
+    private boolean truncated;
+
+    private long elapsedMillis;
+}
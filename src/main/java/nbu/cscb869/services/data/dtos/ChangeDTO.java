@@ -0,0 +1,32 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import nbu.cscb869.data.models.enums.ChangeEntityType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the change feed: the current state of an inserted or updated entity, or the tombstone of a deleted one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeDTO {
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    private ChangeEntityType entityType;
+    private Long entityId;
+    private Operation operation;
+    private Long version;
+    private LocalDateTime changedAt;
+
+    /** The entity's current state as a flat row; null for deletes. */
+    private Object data;
+}
@@ -0,0 +1,23 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of the change feed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDTO {
+    private List<ChangeDTO> changes;
+
+    /** The cursor to pass as {@code since} in the next request. */
+    private String nextCursor;
+
+    /** Whether more changes are available right away; if false, poll again later. */
+    private boolean hasMore;
+}
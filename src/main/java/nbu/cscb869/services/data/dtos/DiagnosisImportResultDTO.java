@@ -0,0 +1,33 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.*;
+
+/**
+ * The outcome of loading an ICD-10 code list.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiagnosisImportResultDTO {
+    /** The entries read from the list. */
+    private int read;
+
+    /** The codes added as new diagnoses, including diagnoses entered by name that were given their code. */
+    private int inserted;
+
+    /** The codes whose name or description changed. */
+    private int updated;
+
+    /** The codes that were already loaded as they are. */
+    private int unchanged;
+
+    /** The codes whose title was already the name of another diagnosis, loaded with the code appended to it. */
+    private int renamed;
+
+    /** The entries skipped because their code was invalid or repeated, or their title was empty. */
+    private int rejected;
+
+    private long elapsedMillis;
+}
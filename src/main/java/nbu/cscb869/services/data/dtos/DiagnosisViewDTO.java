@@ -13,4 +13,6 @@ public class DiagnosisViewDTO {
     private String name;
 
     private String description;
+
+    private String code;
 }
\ No newline at end of file
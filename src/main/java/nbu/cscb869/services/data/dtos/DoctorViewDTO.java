@@ -1,6 +1,7 @@
 package nbu.cscb869.services.data.dtos;
 
 import lombok.*;
+import nbu.cscb869.data.models.enums.ImageStatus;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -15,4 +16,5 @@ public class DoctorViewDTO {
     private boolean isGeneralPractitioner;
     private boolean isApproved;
     private String imageUrl;
+    private ImageStatus imageStatus;
 }
\ No newline at end of file
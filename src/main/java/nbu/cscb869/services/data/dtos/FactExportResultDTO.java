@@ -0,0 +1,33 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * The outcome of a columnar visit export.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FactExportResultDTO {
+    /** The directory holding the partitions. */
+    private String directory;
+
+    /** The months written, as {@code yyyy-MM}. */
+    private List<String> exportedMonths;
+
+    /** The months left without visits, whose partitions were deleted. */
+    private List<String> removedMonths;
+
+    /** How many months were already up to date. */
+    private int unchangedMonths;
+
+    private long visits;
+
+    private long prescriptions;
+
+    private long elapsedMillis;
+}
@@ -0,0 +1,25 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.Data;
+import nbu.cscb869.data.models.enums.VisitStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * An update pushed to the open doctor and admin dashboards. {@code type} is the name of the domain event it was made
+ * from, or, for the doctors of a reassigned visit, {@code VisitRemoved} or {@code VisitAdded}; fields the event does not
+ * carry are null.
+ */
+@Data
+public class LiveUpdateDTO {
+    private String type;
+    private Long visitId;
+    private Long doctorId;
+    private Long patientId;
+    private LocalDate visitDate;
+    private LocalTime visitTime;
+    private VisitStatus status;
+    private Instant occurredAt;
+}
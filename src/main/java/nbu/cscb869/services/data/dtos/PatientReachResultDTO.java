@@ -0,0 +1,35 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.*;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Estimated distinct patients per doctor or diagnosis over a range of months.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientReachResultDTO {
+    /** {@code DOCTOR} or {@code DIAGNOSIS}. */
+    private AnalyticsDimension dimension;
+
+    private YearMonth from;
+
+    private YearMonth to;
+
+    /** The relative standard error of each estimate, such as 0.016 for 1.6%. */
+    private double standardError;
+
+    /** The estimates, ordered by the doctor's or diagnosis' ID. */
+    private List<PatientReachRowDTO> rows;
+
+    /** Whether there were more doctors or diagnoses than {@code app.analytics.max-rows} and the rest were left out. */
+    private boolean truncated;
+
+    private long elapsedMillis;
+}
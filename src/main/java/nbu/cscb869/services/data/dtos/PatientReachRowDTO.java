@@ -0,0 +1,21 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.*;
+
+/**
+ * The estimated number of distinct patients seen by a doctor, or with a diagnosis, over a range of months.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientReachRowDTO {
+    /** The doctor's or diagnosis' ID. */
+    private Long id;
+
+    private String name;
+
+    /** The estimated number of distinct patients with a completed visit. */
+    private long patients;
+}
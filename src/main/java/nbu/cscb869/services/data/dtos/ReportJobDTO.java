@@ -0,0 +1,41 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.*;
+import nbu.cscb869.data.models.enums.ReportJobStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The state of a background report job.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDTO {
+    private Long id;
+
+    /** The report type and the parameters it is computed with. */
+    private ReportJobRequestDTO request;
+
+    private ReportJobStatus status;
+
+    /** The Keycloak ID of the admin whose request created the job. */
+    private String requestedBy;
+
+    private LocalDateTime requestedAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    /** When the result, or the error, is deleted. */
+    private LocalDateTime expiresAt;
+
+    /** The size of the compressed result, in bytes. */
+    private Long resultSize;
+
+    /** Why the job failed. */
+    private String error;
+}
@@ -0,0 +1,39 @@
+package nbu.cscb869.services.data.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import nbu.cscb869.data.models.enums.ReportType;
+
+import java.time.LocalDate;
+
+/**
+ * A request for a report to be computed in the background. Only the parameters the report type takes are kept; two
+ * requests with the same report type and parameters share one job.
+ */
+@Getter
+@Setter
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportJobRequestDTO {
+    private ReportType type;
+
+    /** The diagnosis, for {@link ReportType#PATIENTS_BY_DIAGNOSIS}. */
+    private Long diagnosisId;
+
+    /** The doctor, for {@link ReportType#DOCTOR_VISITS_BY_DATE}. */
+    private Long doctorId;
+
+    /** The first day, for the reports by date range. */
+    private LocalDate startDate;
+
+    /** The last day, for the reports by date range. */
+    private LocalDate endDate;
+
+    /** The zero-based page, for the paged reports; the first one if omitted. */
+    private Integer page;
+
+    /** The page size, for the paged reports; 20 if omitted. */
+    private Integer size;
+}
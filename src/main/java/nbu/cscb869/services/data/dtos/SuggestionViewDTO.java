@@ -0,0 +1,19 @@
+package nbu.cscb869.services.data.dtos;
+
+import lombok.*;
+
+/**
+ * A suggested catalogue entry, with the number of visits it is ranked by.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionViewDTO {
+    private Long id;
+
+    private String name;
+
+    private long visitCount;
+}
@@ -11,4 +11,7 @@ public class VisitDocumentationDTO {
 
     private TreatmentUpdateDTO treatment;
     private SickLeaveUpdateDTO sickLeave;
+
+    /** The version of the visit this documentation was made from; see {@link VisitUpdateDTO#getVersion()}. */
+    private Long version;
 }
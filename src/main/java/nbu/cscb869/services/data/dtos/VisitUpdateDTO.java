@@ -42,4 +42,10 @@ public class VisitUpdateDTO {
 
     private SickLeaveUpdateDTO sickLeave;
     private TreatmentUpdateDTO treatment;
+
+    /**
+     * The version of the visit this update was made from. Fields changed by others since are kept unless this update
+     * changes them too, which is a conflict. Without a version the update overwrites the visit.
+     */
+    private Long version;
 }
\ No newline at end of file
@@ -18,4 +18,6 @@ public class VisitViewDTO {
     private DiagnosisViewDTO diagnosis;
     private SickLeaveViewDTO sickLeave;
     private TreatmentViewDTO treatment;
+    /** The version to base an update or documentation of this visit on. */
+    private Long version;
 }
@@ -0,0 +1,20 @@
+package nbu.cscb869.services.data.events;
+
+import java.time.Instant;
+
+/**
+ * An ICD-10 code list was loaded into the diagnosis catalogue. The codes are written in bulk, so the event stands in
+ * for the individual diagnoses and belongs to no single one of them.
+ */
+public record DiagnosisCodesLoaded(int inserted, int updated, Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return DIAGNOSIS;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return null;
+    }
+}
@@ -0,0 +1,19 @@
+package nbu.cscb869.services.data.events;
+
+import java.time.Instant;
+
+/**
+ * An administrator approved a doctor's registration.
+ */
+public record DoctorApproved(Long doctorId, Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return DOCTOR;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return doctorId;
+    }
+}
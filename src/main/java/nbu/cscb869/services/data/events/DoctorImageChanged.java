@@ -0,0 +1,21 @@
+package nbu.cscb869.services.data.events;
+
+import nbu.cscb869.data.models.enums.ImageStatus;
+
+import java.time.Instant;
+
+/**
+ * The background upload of a doctor's image finished, either replacing the image or marking the upload as failed.
+ */
+public record DoctorImageChanged(Long doctorId, ImageStatus imageStatus, Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return DOCTOR;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return doctorId;
+    }
+}
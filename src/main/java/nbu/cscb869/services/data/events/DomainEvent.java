@@ -0,0 +1,57 @@
+package nbu.cscb869.services.data.events;
+
+import java.time.Instant;
+
+/**
+ * A change to the domain, published by the service that made it once its transaction has committed.
+ * Events of the same aggregate are delivered to listeners in the order they were published.
+ */
+public sealed interface DomainEvent
+        permits VisitScheduled, VisitRescheduled, VisitDocumented, VisitCancelled, VisitDeleted, SickLeaveIssued,
+                DoctorApproved, DoctorImageChanged, PatientReassigned, DiagnosisCodesLoaded {
+
+    String VISIT = "Visit";
+    String DOCTOR = "Doctor";
+    String PATIENT = "Patient";
+    String DIAGNOSIS = "Diagnosis";
+
+    /**
+     * Returns the type of the aggregate the event belongs to, e.g. {@value #VISIT}.
+     * @return the aggregate type
+     */
+    String aggregateType();
+
+    /**
+     * Returns the ID of the aggregate the event belongs to.
+     * @return the aggregate ID, or null for a change spanning all aggregates of its type
+     */
+    Long aggregateId();
+
+    /**
+     * Returns when the change was made.
+     * @return the time of the change
+     */
+    Instant occurredAt();
+
+    /**
+     * Returns the name of the event type, as stored in the event log.
+     * @return the simple name of the event class
+     */
+    default String type() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Resolves an event type name as returned by {@link #type()}.
+     * @param type the event type name
+     * @return the event class, or null if the type is unknown
+     */
+    static Class<? extends DomainEvent> classOf(String type) {
+        for (Class<?> eventClass : DomainEvent.class.getPermittedSubclasses()) {
+            if (eventClass.getSimpleName().equals(type)) {
+                return eventClass.asSubclass(DomainEvent.class);
+            }
+        }
+        return null;
+    }
+}
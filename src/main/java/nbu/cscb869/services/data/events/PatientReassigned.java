@@ -0,0 +1,20 @@
+package nbu.cscb869.services.data.events;
+
+import java.time.Instant;
+
+/**
+ * A patient was assigned to a different general practitioner.
+ */
+public record PatientReassigned(Long patientId, Long previousGeneralPractitionerId, Long generalPractitionerId,
+                                Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return PATIENT;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return patientId;
+    }
+}
@@ -0,0 +1,21 @@
+package nbu.cscb869.services.data.events;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A sick leave was issued for a visit. Belongs to the visit, so it is delivered after the visit's earlier events.
+ */
+public record SickLeaveIssued(Long sickLeaveId, Long visitId, Long patientId, LocalDate startDate, int durationDays,
+                              Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return VISIT;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return visitId;
+    }
+}
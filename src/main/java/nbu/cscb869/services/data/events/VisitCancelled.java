@@ -0,0 +1,23 @@
+package nbu.cscb869.services.data.events;
+
+import nbu.cscb869.data.models.enums.VisitStatus;
+
+import java.time.Instant;
+
+/**
+ * A scheduled visit was called off: cancelled by the patient or the doctor, or marked as a no-show. {@code status} is
+ * the cancelled status it was given; it is null in events logged before it was recorded.
+ */
+public record VisitCancelled(Long visitId, Long patientId, Long doctorId, VisitStatus status, Instant occurredAt)
+        implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return VISIT;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return visitId;
+    }
+}
@@ -0,0 +1,19 @@
+package nbu.cscb869.services.data.events;
+
+import java.time.Instant;
+
+/**
+ * A visit was deleted, together with its treatment and sick leave.
+ */
+public record VisitDeleted(Long visitId, Long patientId, Long doctorId, Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return VISIT;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return visitId;
+    }
+}
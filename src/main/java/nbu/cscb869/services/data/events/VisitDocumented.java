@@ -0,0 +1,22 @@
+package nbu.cscb869.services.data.events;
+
+import nbu.cscb869.data.models.enums.VisitStatus;
+
+import java.time.Instant;
+
+/**
+ * A doctor documented a visit: its diagnosis, notes, status, treatment or sick leave.
+ */
+public record VisitDocumented(Long visitId, Long patientId, Long doctorId, Long diagnosisId, VisitStatus status,
+                              Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return VISIT;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return visitId;
+    }
+}
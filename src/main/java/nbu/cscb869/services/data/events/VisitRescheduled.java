@@ -0,0 +1,23 @@
+package nbu.cscb869.services.data.events;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A visit was moved to another date or time, or reassigned to another doctor. {@code previousDoctorId} equals
+ * {@code doctorId} unless the visit was reassigned.
+ */
+public record VisitRescheduled(Long visitId, Long patientId, Long previousDoctorId, Long doctorId, LocalDate visitDate,
+                               LocalTime visitTime, Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return VISIT;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return visitId;
+    }
+}
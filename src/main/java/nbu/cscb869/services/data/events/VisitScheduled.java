@@ -0,0 +1,22 @@
+package nbu.cscb869.services.data.events;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A visit was scheduled, by staff or by the patient.
+ */
+public record VisitScheduled(Long visitId, Long patientId, Long doctorId, LocalDate visitDate, LocalTime visitTime,
+                             Instant occurredAt) implements DomainEvent {
+
+    @Override
+    public String aggregateType() {
+        return VISIT;
+    }
+
+    @Override
+    public Long aggregateId() {
+        return visitId;
+    }
+}
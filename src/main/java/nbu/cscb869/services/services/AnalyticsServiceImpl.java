@@ -0,0 +1,198 @@
+package nbu.cscb869.services.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import nbu.cscb869.common.exceptions.ExceptionMessages;
+import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.analytics.AnalyticsProperties;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.data.dto.AnalyticsRowDTO;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.AnalyticsMeasure;
+import nbu.cscb869.data.repositories.AnalyticsRepository;
+import nbu.cscb869.services.data.dtos.AnalyticsQueryDTO;
+import nbu.cscb869.services.data.dtos.AnalyticsResultDTO;
+import nbu.cscb869.services.data.dtos.FactExportResultDTO;
+import nbu.cscb869.services.data.dtos.PatientReachResultDTO;
+import nbu.cscb869.services.data.dtos.PatientReachRowDTO;
+import nbu.cscb869.services.services.contracts.AnalyticsService;
+import nbu.cscb869.services.services.utility.HyperLogLog;
+import nbu.cscb869.services.services.utility.PatientReachSketches;
+import nbu.cscb869.services.services.utility.VisitFactExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of {@link AnalyticsService} over the visit fact tables.
+ */
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsServiceImpl.class);
+
+    private final AnalyticsRepository analyticsRepository;
+    private final AnalyticsProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final VisitFactExporter visitFactExporter;
+    private final PatientReachSketches patientReachSketches;
+
+    public AnalyticsServiceImpl(AnalyticsRepository analyticsRepository, AnalyticsProperties properties, MeterRegistry meterRegistry,
+                                VisitFactExporter visitFactExporter, PatientReachSketches patientReachSketches) {
+        this.analyticsRepository = analyticsRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.visitFactExporter = visitFactExporter;
+        this.patientReachSketches = patientReachSketches;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
+    @PreAuthorize("hasRole('ADMIN')")
+    public AnalyticsResultDTO query(AnalyticsQueryDTO query) {
+        if (query == null) {
+            throw new InvalidDTOException(ExceptionMessages.formatInvalidFieldNull("Analytics query"));
+        }
+        validateRange(query.getFrom(), query.getTo());
+        List<AnalyticsDimension> groupBy = query.getGroupBy() == null ? List.of() : query.getGroupBy();
+        Set<AnalyticsDimension> seen = EnumSet.noneOf(AnalyticsDimension.class);
+        for (AnalyticsDimension dimension : groupBy) {
+            if (!seen.add(dimension)) {
+                throw new InvalidInputException(ExceptionMessages.formatAnalyticsDimensionRepeated(dimension));
+            }
+        }
+        List<AnalyticsMeasure> measures = query.getMeasures() == null || query.getMeasures().isEmpty()
+                ? List.of(AnalyticsMeasure.VISITS) : query.getMeasures().stream().distinct().toList();
+        AnalyticsDimension grain = wholeMonths(query.getFrom(), query.getTo()) && !groupBy.contains(AnalyticsDimension.DAY)
+                ? AnalyticsDimension.MONTH : AnalyticsDimension.DAY;
+
+        long start = System.nanoTime();
+        List<AnalyticsRowDTO> rows = analyticsRepository.aggregate(grain, groupBy, measures, query.getFrom(), query.getTo(),
+                filters(query), properties.getMaxRows() + 1);
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("medical.analytics.query").tag("grain", grain.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+
+        boolean truncated = rows.size() > properties.getMaxRows();
+        logger.debug("Analytics by {} over {} to {} from the {} facts: {} group(s)", groupBy, query.getFrom(), query.getTo(),
+                grain, rows.size());
+        return AnalyticsResultDTO.builder()
+                .groupBy(groupBy)
+                .measures(measures)
+                .from(query.getFrom())
+                .to(query.getTo())
+                .grain(grain)
+                .rows(truncated ? rows.subList(0, properties.getMaxRows()) : rows)
+                .truncated(truncated)
+                .elapsedMillis(elapsed / 1_000_000)
+                .build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
+    @PreAuthorize("hasRole('ADMIN')")
+    public PatientReachResultDTO patientReach(AnalyticsDimension dimension, Long id, YearMonth from, YearMonth to) {
+        if (dimension == null) {
+            throw new InvalidDTOException(ExceptionMessages.formatInvalidFieldNull("Patient reach dimension"));
+        }
+        if (dimension != AnalyticsDimension.DOCTOR && dimension != AnalyticsDimension.DIAGNOSIS) {
+            throw new InvalidInputException(ExceptionMessages.formatPatientReachDimensionInvalid(dimension));
+        }
+        LocalDate fromMonth = from == null ? null : from.atDay(1);
+        LocalDate toMonth = to == null ? null : to.atDay(1);
+        validateRange(fromMonth, toMonth);
+
+        long start = System.nanoTime();
+        List<PatientReachRowDTO> rows = patientReachSketches.estimate(dimension, id, fromMonth, toMonth, properties.getMaxRows() + 1);
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("medical.analytics.patient-reach").tag("dimension", dimension.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+
+        boolean truncated = rows.size() > properties.getMaxRows();
+        logger.debug("Patient reach by {} from {} to {}: {} row(s)", dimension, from, to, rows.size());
+        return PatientReachResultDTO.builder()
+                .dimension(dimension)
+                .from(from)
+                .to(to)
+                .standardError(HyperLogLog.standardError(HyperLogLog.DEFAULT_PRECISION))
+                .rows(truncated ? rows.subList(0, properties.getMaxRows()) : rows)
+                .truncated(truncated)
+                .elapsedMillis(elapsed / 1_000_000)
+                .build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional
+    @DatabaseWorkload(Workload.BACKGROUND)
+    @PreAuthorize("hasRole('ADMIN')")
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new InvalidDTOException(ExceptionMessages.formatInvalidFieldNull("Analytics range"));
+        }
+        validateRange(from, to);
+        int marked = analyticsRepository.markDirty(from, to);
+        logger.info("Marked the visit facts of {} day(s) from {} to {} for rebuilding", marked, from, to);
+        return marked;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @PreAuthorize("hasRole('ADMIN')")
+    public FactExportResultDTO export(boolean full) {
+        logger.info("Starting a {} export of the visits", full ? "full" : "incremental");
+        return visitFactExporter.export(full);
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new InvalidInputException(ExceptionMessages.formatAnalyticsRangeInvalid(from, to));
+        }
+    }
+
+    /** Whether a range covers whole months only, so the monthly rollup answers it. */
+    private static boolean wholeMonths(LocalDate from, LocalDate to) {
+        return (from == null || from.getDayOfMonth() == 1)
+                && (to == null || to.equals(YearMonth.from(to).atEndOfMonth()));
+    }
+
+    private static Map<AnalyticsDimension, Object> filters(AnalyticsQueryDTO query) {
+        Map<AnalyticsDimension, Object> filters = new EnumMap<>(AnalyticsDimension.class);
+        if (query.getDoctorId() != null) {
+            filters.put(AnalyticsDimension.DOCTOR, query.getDoctorId());
+        }
+        if (query.getSpecialtyId() != null) {
+            filters.put(AnalyticsDimension.SPECIALTY, query.getSpecialtyId());
+        }
+        if (query.getDiagnosisId() != null) {
+            filters.put(AnalyticsDimension.DIAGNOSIS, query.getDiagnosisId());
+        }
+        if (query.getDiagnosisChapter() != null && !query.getDiagnosisChapter().isBlank()) {
+            filters.put(AnalyticsDimension.DIAGNOSIS_CHAPTER, query.getDiagnosisChapter().trim().toUpperCase(Locale.ROOT));
+        }
+        if (query.getGeneralPractitionerId() != null) {
+            filters.put(AnalyticsDimension.GENERAL_PRACTITIONER, query.getGeneralPractitionerId());
+        }
+        if (query.getStatus() != null) {
+            filters.put(AnalyticsDimension.STATUS, query.getStatus().name());
+        }
+        return filters;
+    }
+}
@@ -0,0 +1,232 @@
+package nbu.cscb869.services.services;
+
+import nbu.cscb869.common.exceptions.ChangeCursorExpiredException;
+import nbu.cscb869.common.exceptions.ExceptionMessages;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.changes.ChangeFeedProperties;
+import nbu.cscb869.config.datasource.DataSourceRoutingProperties;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.data.dto.EntityChangeDTO;
+import nbu.cscb869.data.dto.MedicineChangeDTO;
+import nbu.cscb869.data.dto.TreatmentChangeDTO;
+import nbu.cscb869.data.models.ChangeTombstone;
+import nbu.cscb869.data.models.enums.ChangeEntityType;
+import nbu.cscb869.data.repositories.ChangeTombstoneRepository;
+import nbu.cscb869.data.repositories.MedicineRepository;
+import nbu.cscb869.data.repositories.PatientRepository;
+import nbu.cscb869.data.repositories.SickLeaveRepository;
+import nbu.cscb869.data.repositories.TreatmentRepository;
+import nbu.cscb869.data.repositories.VisitRepository;
+import nbu.cscb869.services.data.dtos.ChangeDTO;
+import nbu.cscb869.services.data.dtos.ChangeDTO.Operation;
+import nbu.cscb869.services.data.dtos.ChangeFeedDTO;
+import nbu.cscb869.services.services.contracts.ChangeFeedService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link ChangeFeedService}.
+ * <p>
+ * Every published entity is stamped with {@code modifiedOn} whenever it is written, and every delete leaves a
+ * {@link ChangeTombstone}. A page is read with one range scan per table over the {@code (modified_on, id)} indexes,
+ * so a client that keeps up pays for the changes only, not for the size of the tables. The cursor is the position of
+ * the last listed change: its time, its table and its ID.
+ */
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedServiceImpl.class);
+
+    /** Tombstones are listed after the entities changed at the same instant. */
+    private static final int TOMBSTONES = ChangeEntityType.values().length;
+    private static final Position START = new Position(LocalDateTime.of(1970, 1, 1, 0, 0), -1, 0);
+    private static final Comparator<Entry> FEED_ORDER = Comparator.comparing(Entry::position);
+
+    private final PatientRepository patientRepository;
+    private final VisitRepository visitRepository;
+    private final TreatmentRepository treatmentRepository;
+    private final SickLeaveRepository sickLeaveRepository;
+    private final MedicineRepository medicineRepository;
+    private final ChangeTombstoneRepository changeTombstoneRepository;
+    private final ChangeFeedProperties properties;
+    private final Duration replicaLag;
+
+    /**
+     * Constructs a new ChangeFeedServiceImpl with the specified dependencies.
+     *
+     * @param patientRepository         the repository for patient entities
+     * @param visitRepository           the repository for visit entities
+     * @param treatmentRepository       the repository for treatment entities
+     * @param sickLeaveRepository       the repository for sick leave entities
+     * @param medicineRepository        the repository for the medicines listed with treatments
+     * @param changeTombstoneRepository the repository for tombstones of deleted entities
+     * @param properties                the change feed settings
+     * @param routingProperties         the read replica settings, if replicas are enabled
+     */
+    public ChangeFeedServiceImpl(PatientRepository patientRepository, VisitRepository visitRepository,
+                                 TreatmentRepository treatmentRepository, SickLeaveRepository sickLeaveRepository,
+                                 MedicineRepository medicineRepository, ChangeTombstoneRepository changeTombstoneRepository,
+                                 ChangeFeedProperties properties, ObjectProvider<DataSourceRoutingProperties> routingProperties) {
+        this.patientRepository = patientRepository;
+        this.visitRepository = visitRepository;
+        this.treatmentRepository = treatmentRepository;
+        this.sickLeaveRepository = sickLeaveRepository;
+        this.medicineRepository = medicineRepository;
+        this.changeTombstoneRepository = changeTombstoneRepository;
+        this.properties = properties;
+        // A page may be read from a replica; changes it has not received yet must be held back as well.
+        DataSourceRoutingProperties routing = routingProperties.getIfAvailable();
+        this.replicaLag = routing == null ? Duration.ZERO : routing.getMaxReplicaLag().plus(routing.getLagCheckInterval());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.BACKGROUND)
+    public ChangeFeedDTO getChanges(String cursor, int limit) {
+        if (limit < 1 || limit > properties.getMaxLimit()) {
+            throw new InvalidInputException(ExceptionMessages.formatChangeLimitInvalid(properties.getMaxLimit()));
+        }
+        Position from = cursor == null || cursor.isBlank() ? START : Position.decode(cursor);
+        LocalDateTime now = LocalDateTime.now();
+        if (from != START && from.at().isBefore(now.minus(properties.getTombstoneRetention()))) {
+            throw new ChangeCursorExpiredException(
+                    ExceptionMessages.formatChangeCursorExpired(properties.getTombstoneRetention().toDays()));
+        }
+        LocalDateTime until = now.minus(properties.getSettleTime()).minus(replicaLag);
+        logger.debug("Listing up to {} changes after {} until {}", limit, from, until);
+
+        // Each table contributes at most limit + 1 rows; the first limit of all of them, in feed order, form the page.
+        Pageable rows = PageRequest.of(0, limit + 1);
+        List<Entry> entries = new ArrayList<>();
+        addRows(entries, ChangeEntityType.PATIENT, patientRepository.findChangesAfter(
+                from.at(), from.afterId(ChangeEntityType.PATIENT.ordinal()), until, rows));
+        addRows(entries, ChangeEntityType.VISIT, visitRepository.findChangesAfter(
+                from.at(), from.afterId(ChangeEntityType.VISIT.ordinal()), until, rows));
+        addRows(entries, ChangeEntityType.TREATMENT, treatmentRepository.findChangesAfter(
+                from.at(), from.afterId(ChangeEntityType.TREATMENT.ordinal()), until, rows));
+        addRows(entries, ChangeEntityType.SICK_LEAVE, sickLeaveRepository.findChangesAfter(
+                from.at(), from.afterId(ChangeEntityType.SICK_LEAVE.ordinal()), until, rows));
+        for (ChangeTombstone tombstone : changeTombstoneRepository.findChangesAfter(
+                from.at(), from.afterId(TOMBSTONES), until, rows)) {
+            entries.add(new Entry(new Position(tombstone.getCreatedOn(), TOMBSTONES, tombstone.getId()),
+                    new ChangeDTO(tombstone.getEntityType(), tombstone.getEntityId(), Operation.DELETE,
+                            tombstone.getEntityVersion(), tombstone.getCreatedOn(), null)));
+        }
+        entries.sort(FEED_ORDER);
+
+        boolean hasMore = entries.size() > limit;
+        List<Entry> page = hasMore ? entries.subList(0, limit) : entries;
+        attachMedicines(page);
+        // Everything up to the horizon has been listed once the feed is drained, so the cursor can move up to it
+        // even when nothing changed; this keeps the cursor of an idle client from expiring.
+        Position next = hasMore ? page.get(page.size() - 1).position()
+                : later(from, new Position(until, TOMBSTONES, Long.MAX_VALUE));
+        return new ChangeFeedDTO(page.stream().map(Entry::change).toList(), next.encode(), hasMore);
+    }
+
+    /**
+     * Deletes tombstones older than {@code app.changes.tombstone-retention}.
+     */
+    @Scheduled(fixedDelayString = "${app.changes.purge-interval:PT6H}", initialDelayString = "PT5M")
+    @Transactional
+    @DatabaseWorkload(Workload.BACKGROUND)
+    public void purgeTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getTombstoneRetention());
+        int purged = changeTombstoneRepository.deleteCreatedBefore(cutoff);
+        if (purged > 0) {
+            logger.info("Purged {} change tombstone(s) recorded before {}", purged, cutoff);
+        }
+    }
+
+    private static void addRows(List<Entry> entries, ChangeEntityType type, List<? extends EntityChangeDTO> rows) {
+        for (EntityChangeDTO row : rows) {
+            Operation operation = row.getVersion() == null || row.getVersion() == 0 ? Operation.INSERT : Operation.UPDATE;
+            entries.add(new Entry(new Position(row.getModifiedOn(), type.ordinal(), row.getId()),
+                    new ChangeDTO(type, row.getId(), operation, row.getVersion(), row.getModifiedOn(), row)));
+        }
+    }
+
+    private void attachMedicines(List<Entry> page) {
+        Map<Long, TreatmentChangeDTO> treatments = page.stream()
+                .map(entry -> entry.change().getData())
+                .filter(TreatmentChangeDTO.class::isInstance)
+                .map(TreatmentChangeDTO.class::cast)
+                .collect(Collectors.toMap(TreatmentChangeDTO::getId, treatment -> treatment));
+        if (treatments.isEmpty()) {
+            return;
+        }
+        medicineRepository.findChangesByTreatmentIds(treatments.keySet()).stream()
+                .collect(Collectors.groupingBy(MedicineChangeDTO::getTreatmentId))
+                .forEach((treatmentId, medicines) -> treatments.get(treatmentId).setMedicines(medicines));
+    }
+
+    private static Position later(Position a, Position b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    /**
+     * A change listed in a page, with its position in the feed.
+     */
+    private record Entry(Position position, ChangeDTO change) {
+    }
+
+    /**
+     * A position in the feed: the time of a change, the table it was read from and the row's ID. Changes are ordered
+     * by time, then by table, then by ID.
+     */
+    private record Position(LocalDateTime at, int source, long id) implements Comparable<Position> {
+
+        /**
+         * Returns the ID after which rows of a table changed exactly at {@link #at} follow this position.
+         */
+        long afterId(int otherSource) {
+            if (otherSource > source) {
+                return 0;
+            }
+            return otherSource == source ? id : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            return Comparator.comparing(Position::at)
+                    .thenComparingInt(Position::source)
+                    .thenComparingLong(Position::id)
+                    .compare(this, other);
+        }
+
+        String encode() {
+            String plain = at + "|" + source + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Position decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("expected 3 parts");
+                }
+                return new Position(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new InvalidInputException(ExceptionMessages.formatChangeCursorInvalid(cursor));
+            }
+        }
+    }
+}
@@ -3,15 +3,26 @@ package nbu.cscb869.services.services;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.ExceptionMessages;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.data.dto.DiagnosisGroupVisitCountDTO;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.PatientDiagnosisDTO;
 import nbu.cscb869.data.models.Diagnosis;
 import nbu.cscb869.data.repositories.DiagnosisRepository;
 import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.services.data.dtos.DiagnosisCreateDTO;
+import nbu.cscb869.services.data.dtos.DiagnosisImportResultDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisUpdateDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import nbu.cscb869.services.services.contracts.DiagnosisService;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions.Catalogue;
+import nbu.cscb869.services.services.utility.DiagnosisCodeLoader;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader;
+import nbu.cscb869.services.services.utility.DiagnosisCodes;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +35,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -36,11 +48,15 @@ public class DiagnosisServiceImpl implements DiagnosisService {
     private final DiagnosisRepository diagnosisRepository;
     private final VisitRepository visitRepository;
     private final ModelMapper modelMapper;
+    private final CatalogueSuggestions catalogueSuggestions;
+    private final DiagnosisCodeLoader diagnosisCodeLoader;
 
-    public DiagnosisServiceImpl(final DiagnosisRepository diagnosisRepository, final VisitRepository visitRepository, final ModelMapper modelMapper) {
+    public DiagnosisServiceImpl(final DiagnosisRepository diagnosisRepository, final VisitRepository visitRepository, final ModelMapper modelMapper, final CatalogueSuggestions catalogueSuggestions, final DiagnosisCodeLoader diagnosisCodeLoader) {
         this.diagnosisRepository = diagnosisRepository;
         this.visitRepository = visitRepository;
         this.modelMapper = modelMapper;
+        this.catalogueSuggestions = catalogueSuggestions;
+        this.diagnosisCodeLoader = diagnosisCodeLoader;
     }
 
     /** {@inheritDoc} */
@@ -60,6 +76,7 @@ public class DiagnosisServiceImpl implements DiagnosisService {
         logger.debug("Creating {} with name: {}", ENTITY_NAME, dto.getName());
         Diagnosis diagnosis = modelMapper.map(dto, Diagnosis.class);
         Diagnosis savedDiagnosis = diagnosisRepository.save(diagnosis);
+        catalogueSuggestions.catalogueChanged(Catalogue.DIAGNOSES);
         logger.info("Created {} with ID: {}", ENTITY_NAME, savedDiagnosis.getId());
 
         return modelMapper.map(savedDiagnosis, DiagnosisViewDTO.class);
@@ -87,6 +104,7 @@ public class DiagnosisServiceImpl implements DiagnosisService {
         logger.debug("Updating {} with ID: {}", ENTITY_NAME, dto.getId());
         modelMapper.map(dto, diagnosis);
         Diagnosis updatedDiagnosis = diagnosisRepository.save(diagnosis);
+        catalogueSuggestions.catalogueChanged(Catalogue.DIAGNOSES);
         logger.info("Updated {} with ID: {}", ENTITY_NAME, updatedDiagnosis.getId());
 
         return modelMapper.map(updatedDiagnosis, DiagnosisViewDTO.class);
@@ -111,6 +129,7 @@ public class DiagnosisServiceImpl implements DiagnosisService {
 
         logger.debug("Deleting {} with ID: {}", ENTITY_NAME, id);
         diagnosisRepository.delete(diagnosis);
+        catalogueSuggestions.catalogueChanged(Catalogue.DIAGNOSES);
         logger.info("Deleted {} with ID: {}", ENTITY_NAME, id);
     }
 
@@ -146,6 +165,7 @@ public class DiagnosisServiceImpl implements DiagnosisService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     @Async
     @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
     public CompletableFuture<Page<DiagnosisViewDTO>> getAll(final int page, final int size, final String orderBy, final boolean ascending, final String filter) {
@@ -168,6 +188,63 @@ public class DiagnosisServiceImpl implements DiagnosisService {
     /** {@inheritDoc} */
     @Override
     @PreAuthorize("hasRole('ADMIN')")
+    public DiagnosisImportResultDTO importCodes(final InputStream input, final DiagnosisCodeReader.Format format) {
+        if (input == null || format == null) {
+            throw new InvalidDTOException(ExceptionMessages.formatInvalidFieldNull("ICD-10 code list"));
+        }
+        return diagnosisCodeLoader.load(input, format);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public Page<DiagnosisViewDTO> getByCodePrefix(final String prefix, final int page, final int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            logger.error("Invalid pagination: page={}, size={}", page, size);
+            throw new InvalidDTOException("Invalid pagination parameters.");
+        }
+        String normalized = DiagnosisCodes.normalizePrefix(prefix);
+        if (normalized == null) {
+            throw new InvalidInputException(ExceptionMessages.formatInvalidDiagnosisCodePrefix(prefix));
+        }
+        logger.debug("Retrieving {} with codes starting with: {}", ENTITY_NAME, normalized);
+        return diagnosisRepository.findByCodeStartingWith(normalized, PageRequest.of(page, size))
+                .map(d -> modelMapper.map(d, DiagnosisViewDTO.class));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<DiagnosisGroupVisitCountDTO> getVisitCountsByChapter() {
+        return diagnosisRepository.findVisitCountsByChapter();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<DiagnosisGroupVisitCountDTO> getVisitCountsByCategory() {
+        return diagnosisRepository.findVisitCountsByCategory();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public List<SuggestionViewDTO> suggest(final String query, final int limit) {
+        return catalogueSuggestions.suggest(Catalogue.DIAGNOSES, query, limit).stream()
+                .map(entry -> new SuggestionViewDTO(entry.id(), entry.name(), entry.weight()))
+                .toList();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
+    @PreAuthorize("hasRole('ADMIN')")
     public Page<PatientDiagnosisDTO> getPatientsByDiagnosis(final Long diagnosisId, final int page, final int size) {
         if (diagnosisId == null) {
             throw new InvalidDTOException(ExceptionMessages.formatInvalidFieldNull("Diagnosis ID"));
@@ -181,6 +258,8 @@ public class DiagnosisServiceImpl implements DiagnosisService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     @PreAuthorize("hasRole('ADMIN')")
     public List<DiagnosisVisitCountDTO> getMostFrequentDiagnoses() {
         return diagnosisRepository.findMostFrequentDiagnoses();
@@ -188,6 +267,8 @@ public class DiagnosisServiceImpl implements DiagnosisService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     @PreAuthorize("hasRole('ADMIN')")
     public long getTotalDiagnosesCount() {
         logger.debug("Retrieving total count of diagnoses.");
@@ -1,22 +1,31 @@
 package nbu.cscb869.services.services;
 
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.common.exceptions.ImageProcessingException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
 import nbu.cscb869.common.exceptions.InvalidDoctorException;
 import nbu.cscb869.common.exceptions.InvalidInputException;
 import nbu.cscb869.common.exceptions.ExceptionMessages;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
 import nbu.cscb869.data.dto.DoctorPatientCountDTO;
 import nbu.cscb869.data.dto.DoctorSickLeaveCountDTO;
 import nbu.cscb869.data.dto.DoctorVisitCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.models.Doctor;
 import nbu.cscb869.data.models.Specialty;
+import nbu.cscb869.data.models.enums.ImageStatus;
 import nbu.cscb869.data.repositories.DoctorRepository;
 import nbu.cscb869.data.repositories.SpecialtyRepository;
 import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.data.specifications.DoctorSpecification;
 import nbu.cscb869.services.data.dtos.*;
+import nbu.cscb869.services.data.events.DoctorApproved;
 import nbu.cscb869.services.services.contracts.DoctorService;
-import nbu.cscb869.services.services.utility.CloudinaryService;
+import nbu.cscb869.services.services.utility.DoctorImagePipeline;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import nbu.cscb869.services.services.utility.RankedCounts.Ranked;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,12 +39,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -51,16 +63,21 @@ public class DoctorServiceImpl implements DoctorService {
     private final SpecialtyRepository specialtyRepository;
     private final VisitRepository visitRepository;
     private final ModelMapper modelMapper;
-    private final CloudinaryService cloudinaryService;
+    private final DoctorImagePipeline doctorImagePipeline;
+    private final DomainEventBus domainEventBus;
+    private final FrequencyRankings frequencyRankings;
 
     public DoctorServiceImpl(DoctorRepository doctorRepository, SpecialtyRepository specialtyRepository,
                              VisitRepository visitRepository, ModelMapper modelMapper,
-                             CloudinaryService cloudinaryService) {
+                             DoctorImagePipeline doctorImagePipeline, DomainEventBus domainEventBus,
+                             FrequencyRankings frequencyRankings) {
         this.doctorRepository = doctorRepository;
         this.specialtyRepository = specialtyRepository;
         this.visitRepository = visitRepository;
         this.modelMapper = modelMapper;
-        this.cloudinaryService = cloudinaryService;
+        this.doctorImagePipeline = doctorImagePipeline;
+        this.domainEventBus = domainEventBus;
+        this.frequencyRankings = frequencyRankings;
     }
 
     /** {@inheritDoc} */
@@ -116,9 +133,8 @@ public class DoctorServiceImpl implements DoctorService {
         Doctor doctor = doctorRepository.findById(dto.getId())
                 .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatDoctorNotFoundById(dto.getId())));
 
-        if (dto.isDeleteImage() && doctor.getImageUrl() != null) {
-            cloudinaryService.deleteImage(cloudinaryService.getPublicIdFromUrl(doctor.getImageUrl()));
-            doctor.setImageUrl(null);
+        if (dto.isDeleteImage() && hasImage(doctor)) {
+            doctorImagePipeline.remove(doctor);
         }
 
         modelMapper.map(dto, doctor);
@@ -168,6 +184,16 @@ public class DoctorServiceImpl implements DoctorService {
         return modelMapper.map(doctor, DoctorViewDTO.class);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public ResourceVersionDTO getVersion(Long id) {
+        validateIdNotNull(id, "getVersion");
+        return doctorRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatDoctorNotFoundById(id)))
+                .embedding(doctorRepository.findSpecialtyVersions(id));
+    }
+
     /** {@inheritDoc} */
     @Override
     public DoctorViewDTO getByUniqueIdNumber(String uniqueIdNumber) {
@@ -182,6 +208,7 @@ public class DoctorServiceImpl implements DoctorService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     @Async
     public CompletableFuture<Page<DoctorViewDTO>> getAllAsync(int page, int size, String orderBy, boolean ascending, String filter) {
         validatePagination(page, size, "getAllAsync");
@@ -200,6 +227,7 @@ public class DoctorServiceImpl implements DoctorService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     public Page<DoctorViewDTO> findByCriteria(Specification<Doctor> spec, int page, int size, String orderBy, boolean ascending) {
         validatePagination(page, size, "findByCriteria");
         logger.debug("Retrieving {} by criteria: page={}, size={}, orderBy={}, ascending={}",
@@ -215,6 +243,7 @@ public class DoctorServiceImpl implements DoctorService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     public Page<DoctorViewDTO> findAllBySpecialty(Long specialtyId, int page, int size, String sortBy, boolean asc) {
         validateIdNotNull(specialtyId, "findAllBySpecialty");
         logger.debug("Finding all doctors by specialty ID: {}", specialtyId);
@@ -229,6 +258,7 @@ public class DoctorServiceImpl implements DoctorService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     public Page<PatientViewDTO> getPatientsByGeneralPractitioner(Long generalPractitionerId, int page, int size) {
         validateIdNotNull(generalPractitionerId, "getPatientsByGeneralPractitioner");
         validatePagination(page, size, "getPatientsByGeneralPractitioner");
@@ -250,6 +280,8 @@ public class DoctorServiceImpl implements DoctorService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<DoctorPatientCountDTO> getPatientCountByGeneralPractitioner() {
         logger.debug("Retrieving patient count by General Practitioner for internal use.");
         return doctorRepository.findPatientCountByGeneralPractitioner();
@@ -257,12 +289,16 @@ public class DoctorServiceImpl implements DoctorService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<DoctorVisitCountDTO> getVisitCount() {
         logger.debug("Retrieving visit count by Doctor");
         return doctorRepository.findVisitCountByDoctor();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public Page<VisitViewDTO> getVisitsByPeriod(Long doctorId, LocalDate startDate, LocalDate endDate, int page, int size) {
         validateParamsNotNull(doctorId, startDate, endDate, "getVisitsByPeriod");
         validatePagination(page, size, "getVisitsByPeriod");
@@ -280,6 +316,8 @@ public class DoctorServiceImpl implements DoctorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<DoctorSickLeaveCountDTO> getDoctorsWithMostSickLeaves() {
         logger.debug("Retrieving doctors with most sick leaves");
         List<DoctorSickLeaveCountDTO> result = doctorRepository.findDoctorsWithMostSickLeaves();
@@ -287,6 +325,26 @@ public class DoctorServiceImpl implements DoctorService {
         return result;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<DoctorSickLeaveCountDTO> getDoctorsWithMostSickLeaves(Integer limit) {
+        logger.debug("Retrieving the top {} doctors by sick leaves", limit);
+        Optional<List<Ranked<Long>>> inMemory = frequencyRankings.topDoctorsBySickLeaves(limit);
+        if (inMemory.isEmpty()) {
+            logger.debug("The rankings are not ready; ranking the doctors in the database");
+            return doctorRepository.findDoctorsWithMostSickLeaves().stream()
+                    .limit(frequencyRankings.limitOf(limit))
+                    .toList();
+        }
+        List<Ranked<Long>> ranked = inMemory.get();
+        Map<Long, Doctor> doctors = doctorRepository.findAllById(ranked.stream().map(Ranked::key).toList()).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        return ranked.stream()
+                .filter(entry -> doctors.containsKey(entry.key()))
+                .map(entry -> new DoctorSickLeaveCountDTO(doctors.get(entry.key()), entry.count()))
+                .toList();
+    }
+
     @Override
     public DoctorViewDTO getByKeycloakId(String keycloakId) {
         if (keycloakId == null || keycloakId.isBlank()) {
@@ -308,9 +366,8 @@ public class DoctorServiceImpl implements DoctorService {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatDoctorNotFoundById(doctorId)));
 
-        if (doctor.getImageUrl() != null) {
-            cloudinaryService.deleteImage(cloudinaryService.getPublicIdFromUrl(doctor.getImageUrl()));
-            doctor.setImageUrl(null);
+        if (hasImage(doctor)) {
+            doctorImagePipeline.remove(doctor);
             doctorRepository.save(doctor);
             logger.info("Successfully deleted image for doctor ID: {}", doctorId);
         }
@@ -318,6 +375,7 @@ public class DoctorServiceImpl implements DoctorService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     public Page<DoctorViewDTO> getUnapprovedDoctors(int page, int size) {
         validatePagination(page, size, "getUnapprovedDoctors");
         logger.debug("Retrieving unapproved doctors: page={}, size={}", page, size);
@@ -347,12 +405,15 @@ public class DoctorServiceImpl implements DoctorService {
 
         doctor.setApproved(true);
         doctorRepository.save(doctor);
+        domainEventBus.publish(new DoctorApproved(doctorId, Instant.now()));
 
         logger.info("Successfully approved doctor with ID: {}.", doctorId);
     }
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<DoctorPatientCountReportDTO> getPatientCountReport() {
         logger.debug("Retrieving patient count report for API.");
         List<DoctorPatientCountDTO> resultsFromRepo = doctorRepository.findPatientCountByGeneralPractitioner();
@@ -423,14 +484,18 @@ public class DoctorServiceImpl implements DoctorService {
     private void handleImageUpload(Doctor doctor, MultipartFile image, String uniqueIdNumber) {
         if (image != null && !image.isEmpty()) {
             try {
-                String imageUrl = cloudinaryService.uploadImage(image).get(); // .get() blocks and waits for the async result
-                doctor.setImageUrl(imageUrl);
-                logger.info("Uploaded image for {} with unique ID: {}", ENTITY_NAME, uniqueIdNumber);
-            } catch (InterruptedException | ExecutionException e) {
-                logger.error("Failed to upload image for {} with unique ID {}: {}", ENTITY_NAME, uniqueIdNumber, e.getMessage());
-                Thread.currentThread().interrupt(); // Restore the interrupted status
+                // Only stages the file; the upload runs in the background once this transaction has committed.
+                doctorImagePipeline.stage(doctor, image);
+                logger.info("Staged image for {} with unique ID: {}", ENTITY_NAME, uniqueIdNumber);
+            } catch (ImageProcessingException e) {
+                logger.error("Failed to stage image for {} with unique ID {}: {}", ENTITY_NAME, uniqueIdNumber, e.getMessage());
                 throw new InvalidInputException(ExceptionMessages.formatFailedToCreateDoctor(e.getMessage()));
             }
         }
     }
+
+    private boolean hasImage(Doctor doctor) {
+        return doctor.getImageUrl() != null
+                || (doctor.getImageStatus() != null && doctor.getImageStatus() != ImageStatus.NONE);
+    }
 }
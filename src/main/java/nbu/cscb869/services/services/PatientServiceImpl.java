@@ -1,7 +1,10 @@
 package nbu.cscb869.services.services;
 
 import nbu.cscb869.common.exceptions.*;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
 import nbu.cscb869.data.dto.DoctorPatientCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.models.Doctor;
 import nbu.cscb869.data.models.Patient;
 import nbu.cscb869.data.repositories.DoctorRepository;
@@ -10,7 +13,9 @@ import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.services.data.dtos.PatientCreateDTO;
 import nbu.cscb869.services.data.dtos.PatientUpdateDTO;
 import nbu.cscb869.services.data.dtos.PatientViewDTO;
+import nbu.cscb869.services.data.events.PatientReassigned;
 import nbu.cscb869.services.services.contracts.PatientService;
+import nbu.cscb869.services.services.utility.DomainEventBus;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,8 +32,10 @@ import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -45,12 +52,14 @@ public class PatientServiceImpl implements PatientService {
     private final DoctorRepository doctorRepository;
     private final VisitRepository visitRepository;
     private final ModelMapper modelMapper;
+    private final DomainEventBus domainEventBus;
 
-    public PatientServiceImpl(PatientRepository patientRepository, DoctorRepository doctorRepository, VisitRepository visitRepository, ModelMapper modelMapper) {
+    public PatientServiceImpl(PatientRepository patientRepository, DoctorRepository doctorRepository, VisitRepository visitRepository, ModelMapper modelMapper, DomainEventBus domainEventBus) {
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
         this.visitRepository = visitRepository;
         this.modelMapper = modelMapper;
+        this.domainEventBus = domainEventBus;
     }
 
     /** {@inheritDoc} */
@@ -145,6 +154,7 @@ public class PatientServiceImpl implements PatientService {
         if (dto.getKeycloakId() != null) patient.setKeycloakId(dto.getKeycloakId());
         if (dto.getLastInsurancePaymentDate() != null) patient.setLastInsurancePaymentDate(dto.getLastInsurancePaymentDate());
 
+        Long previousGpId = patient.getGeneralPractitioner() != null ? patient.getGeneralPractitioner().getId() : null;
         if (dto.getGeneralPractitionerId() != null) {
             Doctor gp = findDoctorById(dto.getGeneralPractitionerId());
             if (!gp.isGeneralPractitioner()) {
@@ -155,6 +165,10 @@ public class PatientServiceImpl implements PatientService {
         }
 
         patientRepository.save(patient);
+        Long gpId = patient.getGeneralPractitioner() != null ? patient.getGeneralPractitioner().getId() : null;
+        if (!Objects.equals(previousGpId, gpId)) {
+            domainEventBus.publish(new PatientReassigned(patient.getId(), previousGpId, gpId, Instant.now()));
+        }
         logger.info("Updated {} with ID: {}", ENTITY_NAME, patient.getId());
         return modelMapper.map(patient, PatientViewDTO.class);
     }
@@ -197,6 +211,17 @@ public class PatientServiceImpl implements PatientService {
         return modelMapper.map(patient, PatientViewDTO.class);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    public ResourceVersionDTO getVersion(Long id) {
+        validateIdNotNull(id, "getVersion");
+        ResourceVersionDTO version = patientRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatPatientNotFoundById(id)));
+        authorizePatientAccess(version.getOwnerKeycloakId());
+        return version;
+    }
+
     /** {@inheritDoc} */
     @Override
     public PatientViewDTO getByEgn(String egn) {
@@ -233,6 +258,7 @@ public class PatientServiceImpl implements PatientService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     @Async
     public CompletableFuture<Page<PatientViewDTO>> getAll(int page, int size, String orderBy, boolean ascending, String filter) {
         validatePagination(page, size, "getAll");
@@ -242,6 +268,7 @@ public class PatientServiceImpl implements PatientService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     public Page<PatientViewDTO> findAll(Pageable pageable, String keyword) {
         return findPatients(pageable, keyword);
     }
@@ -255,6 +282,7 @@ public class PatientServiceImpl implements PatientService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     public Page<PatientViewDTO> getByGeneralPractitioner(Long generalPractitionerId, int page, int size) {
         validateIdNotNull(generalPractitionerId, "getByGeneralPractitioner");
         validatePagination(page, size, "getByGeneralPractitioner");
@@ -270,6 +298,8 @@ public class PatientServiceImpl implements PatientService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<DoctorPatientCountDTO> getPatientCountByGeneralPractitioner() {
         logger.debug("Retrieving patient count by general practitioner.");
         return doctorRepository.findPatientCountByGeneralPractitioner();
@@ -277,6 +307,7 @@ public class PatientServiceImpl implements PatientService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     public Page<PatientViewDTO> findPatientsForDoctor(Long doctorId, Pageable pageable) {
         validateIdNotNull(doctorId, "findPatientsForDoctor");
         logger.debug("Retrieving patients for doctor ID: {}", doctorId);
@@ -328,9 +359,15 @@ public class PatientServiceImpl implements PatientService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public Page<PatientViewDTO> findByDiagnosis(Long diagnosisId, Pageable pageable) {
         validateIdNotNull(diagnosisId, "findByDiagnosis");
         logger.debug("Retrieving patients for diagnosis ID: {}", diagnosisId);
+        // Without an order, rows of the semijoin could move between pages from one query to the next
+        if (pageable.isPaged() && pageable.getSort().isUnsorted()) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("name", "id"));
+        }
         return patientRepository.findByDiagnosis(diagnosisId, pageable)
                 .map(patient -> modelMapper.map(patient, PatientViewDTO.class));
     }
@@ -0,0 +1,250 @@
+package nbu.cscb869.services.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.common.exceptions.ExceptionMessages;
+import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.common.exceptions.ReportJobNotCompletedException;
+import nbu.cscb869.data.models.ReportJob;
+import nbu.cscb869.data.models.enums.ReportJobStatus;
+import nbu.cscb869.data.models.enums.ReportType;
+import nbu.cscb869.data.repositories.ReportJobRepository;
+import nbu.cscb869.services.data.dtos.ReportJobDTO;
+import nbu.cscb869.services.data.dtos.ReportJobRequestDTO;
+import nbu.cscb869.services.services.contracts.ReportJobService;
+import nbu.cscb869.services.services.utility.ReportJobWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Implementation of {@link ReportJobService} over the {@code report_jobs} table; the jobs are computed by the
+ * {@link ReportJobWorker}.
+ * <p>
+ * Identical requests are recognised by the SHA-256 hash of their report type and parameters. A job holds that hash in
+ * a unique column while it can be shared, so two identical requests arriving at the same time cannot both create one:
+ * the second insert fails and its request is given the first job instead.
+ */
+@Service
+public class ReportJobServiceImpl implements ReportJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobServiceImpl.class);
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private record Submission(ReportJob job, boolean created) {
+    }
+
+    private final ReportJobRepository reportJobRepository;
+    private final ReportJobWorker reportJobWorker;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter created;
+    private final Counter shared;
+
+    public ReportJobServiceImpl(ReportJobRepository reportJobRepository, ReportJobWorker reportJobWorker,
+                                ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.reportJobRepository = reportJobRepository;
+        this.reportJobWorker = reportJobWorker;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.created = Counter.builder("medical.reports.jobs.submitted").tag("result", "created").register(meterRegistry);
+        this.shared = Counter.builder("medical.reports.jobs.submitted").tag("result", "shared").register(meterRegistry);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @PreAuthorize("hasRole('ADMIN')")
+    public ReportJobDTO submit(ReportJobRequestDTO request) {
+        ReportJobRequestDTO normalized = normalize(request);
+        String parameters = toJson(normalized);
+        String key = hash(parameters);
+        Submission submission;
+        try {
+            submission = transactionTemplate.execute(status -> findOrCreate(normalized.getType(), parameters, key));
+        } catch (DataIntegrityViolationException e) {
+            // An identical request created its job between our lookup and our insert.
+            submission = transactionTemplate.execute(status -> reportJobRepository.findByLiveKey(key)
+                    .map(job -> new Submission(job, false))
+                    .orElseThrow(() -> e));
+        }
+        ReportJob job = submission.job();
+        if (submission.created()) {
+            created.increment();
+            logger.info("Queued report job {} ({} {})", job.getId(), job.getReportType(), parameters);
+            reportJobWorker.dispatch(job.getId());
+        } else {
+            shared.increment();
+            logger.debug("Sharing report job {} ({}) with an identical request", job.getId(), job.getStatus());
+        }
+        return toDto(job);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ReportJobDTO getJob(Long id) {
+        return toDto(findJobById(id));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasRole('ADMIN')")
+    public byte[] getResult(Long id, boolean compressed) {
+        ReportJob job = findJobById(id);
+        if (job.getStatus() != ReportJobStatus.COMPLETED) {
+            throw new ReportJobNotCompletedException(ExceptionMessages.formatReportJobNotCompleted(id, job.getStatus()));
+        }
+        byte[] result = reportJobRepository.findResultById(id);
+        return compressed ? result : decompress(result);
+    }
+
+    private Submission findOrCreate(ReportType type, String parameters, String key) {
+        Optional<ReportJob> live = reportJobRepository.findByLiveKey(key);
+        if (live.isPresent() && !isExpired(live.get())) {
+            return new Submission(live.get(), false);
+        }
+        live.ifPresent(job -> reportJobRepository.releaseLiveKey(job.getId()));
+        ReportJob job = ReportJob.builder()
+                .reportType(type)
+                .parameters(parameters)
+                .requestKey(key)
+                .liveKey(key)
+                .status(ReportJobStatus.QUEUED)
+                .requestedBy(currentUser())
+                .build();
+        return new Submission(reportJobRepository.saveAndFlush(job), true);
+    }
+
+    /**
+     * Checks the parameters the report type takes, fills in the default page, and drops the other parameters, so that
+     * requests for the same report hash the same.
+     */
+    private ReportJobRequestDTO normalize(ReportJobRequestDTO request) {
+        if (request == null) {
+            throw new InvalidDTOException(ExceptionMessages.formatInvalidDTONull("ReportJobRequestDTO"));
+        }
+        ReportType type = request.getType();
+        if (type == null) {
+            throw new InvalidDTOException(ExceptionMessages.formatInvalidFieldNull("Report type"));
+        }
+        ReportJobRequestDTO.ReportJobRequestDTOBuilder normalized = ReportJobRequestDTO.builder().type(type);
+        if (type.isByDiagnosis()) {
+            normalized.diagnosisId(require(type, "diagnosisId", request.getDiagnosisId()));
+        }
+        if (type.isByDoctor()) {
+            normalized.doctorId(require(type, "doctorId", request.getDoctorId()));
+        }
+        if (type.isByDateRange()) {
+            require(type, "startDate", request.getStartDate());
+            require(type, "endDate", request.getEndDate());
+            if (request.getStartDate().isAfter(request.getEndDate())) {
+                throw new InvalidInputException(ExceptionMessages.formatInvalidDateRange(request.getStartDate(), request.getEndDate()));
+            }
+            normalized.startDate(request.getStartDate()).endDate(request.getEndDate());
+        }
+        if (type.isPaged()) {
+            int page = request.getPage() == null ? 0 : request.getPage();
+            int size = request.getSize() == null ? DEFAULT_PAGE_SIZE : request.getSize();
+            if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+                throw new InvalidInputException(ExceptionMessages.formatInvalidPagination("report job"));
+            }
+            normalized.page(page).size(size);
+        }
+        return normalized.build();
+    }
+
+    private static <T> T require(ReportType type, String parameter, T value) {
+        if (value == null) {
+            throw new InvalidInputException(ExceptionMessages.formatReportJobParameterMissing(type, parameter));
+        }
+        return value;
+    }
+
+    private ReportJob findJobById(Long id) {
+        if (id == null) {
+            throw new InvalidDTOException(ExceptionMessages.formatInvalidFieldNull("ID"));
+        }
+        return reportJobRepository.findById(id)
+                .filter(job -> !isExpired(job))
+                .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatReportJobNotFoundById(id)));
+    }
+
+    private static boolean isExpired(ReportJob job) {
+        return job.getExpiresAt() != null && job.getExpiresAt().isBefore(LocalDateTime.now());
+    }
+
+    private ReportJobDTO toDto(ReportJob job) {
+        try {
+            return ReportJobDTO.builder()
+                    .id(job.getId())
+                    .request(objectMapper.readValue(job.getParameters(), ReportJobRequestDTO.class))
+                    .status(job.getStatus())
+                    .requestedBy(job.getRequestedBy())
+                    .requestedAt(job.getCreatedOn())
+                    .startedAt(job.getStartedAt())
+                    .completedAt(job.getCompletedAt())
+                    .expiresAt(job.getExpiresAt())
+                    .resultSize(job.getResultSize())
+                    .error(job.getError())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable parameters of report job " + job.getId(), e);
+        }
+    }
+
+    private String toJson(ReportJobRequestDTO request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize report job parameters", e);
+        }
+    }
+
+    private static String hash(String parameters) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(parameters.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] decompress(byte[] result) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(result))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
@@ -3,6 +3,8 @@ package nbu.cscb869.services.services;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.ExceptionMessages;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
 import nbu.cscb869.data.dto.YearMonthSickLeaveCountDTO;
 import nbu.cscb869.data.models.SickLeave;
 import nbu.cscb869.data.models.Visit;
@@ -11,7 +13,10 @@ import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.services.data.dtos.SickLeaveCreateDTO;
 import nbu.cscb869.services.data.dtos.SickLeaveUpdateDTO;
 import nbu.cscb869.services.data.dtos.SickLeaveViewDTO;
+import nbu.cscb869.services.data.events.SickLeaveIssued;
 import nbu.cscb869.services.services.contracts.SickLeaveService;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import nbu.cscb869.services.services.utility.VisitVersions;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +30,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -40,6 +46,8 @@ public class SickLeaveServiceImpl implements SickLeaveService {
     private final SickLeaveRepository sickLeaveRepository;
     private final VisitRepository visitRepository;
     private final ModelMapper modelMapper;
+    private final VisitVersions visitVersions;
+    private final DomainEventBus domainEventBus;
 
     /**
      * Constructs a new SickLeaveServiceImpl with the specified dependencies.
@@ -47,11 +55,15 @@ public class SickLeaveServiceImpl implements SickLeaveService {
      * @param sickLeaveRepository the repository for sick leave entities
      * @param visitRepository     the repository for visit entities
      * @param modelMapper         the ModelMapper for DTO conversions
+     * @param visitVersions       records changes to the visits these records belong to
+     * @param domainEventBus      the bus issued sick leaves are published on
      */
-    public SickLeaveServiceImpl(SickLeaveRepository sickLeaveRepository, VisitRepository visitRepository, ModelMapper modelMapper) {
+    public SickLeaveServiceImpl(SickLeaveRepository sickLeaveRepository, VisitRepository visitRepository, ModelMapper modelMapper, VisitVersions visitVersions, DomainEventBus domainEventBus) {
         this.sickLeaveRepository = sickLeaveRepository;
         this.visitRepository = visitRepository;
         this.modelMapper = modelMapper;
+        this.visitVersions = visitVersions;
+        this.domainEventBus = domainEventBus;
     }
 
     /** {@inheritDoc} */
@@ -70,6 +82,9 @@ public class SickLeaveServiceImpl implements SickLeaveService {
         sickLeave.setDurationDays(dto.getDurationDays());
 
         SickLeave savedSickLeave = sickLeaveRepository.save(sickLeave);
+        visitVersions.touch(visit);
+        domainEventBus.publish(new SickLeaveIssued(savedSickLeave.getId(), visit.getId(), visit.getPatient().getId(),
+                savedSickLeave.getStartDate(), savedSickLeave.getDurationDays(), Instant.now()));
         logger.info("Created {} with ID: {}", ENTITY_NAME, savedSickLeave.getId());
         return modelMapper.map(savedSickLeave, SickLeaveViewDTO.class);
     }
@@ -88,11 +103,13 @@ public class SickLeaveServiceImpl implements SickLeaveService {
         Visit visit = visitRepository.findById(dto.getVisitId())
                 .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatVisitNotFoundById(dto.getVisitId())));
 
+        Visit previousVisit = sickLeave.getVisit();
         sickLeave.setVisit(visit);
         sickLeave.setStartDate(dto.getStartDate());
         sickLeave.setDurationDays(dto.getDurationDays());
 
         SickLeave savedSickLeave = sickLeaveRepository.save(sickLeave);
+        visitVersions.touch(previousVisit, visit);
         logger.info("Updated {} with ID: {}", ENTITY_NAME, savedSickLeave.getId());
         return modelMapper.map(savedSickLeave, SickLeaveViewDTO.class);
     }
@@ -114,6 +131,7 @@ public class SickLeaveServiceImpl implements SickLeaveService {
         }
 
         sickLeaveRepository.delete(sickLeave);
+        visitVersions.touch(visit);
         logger.info("Deleted {} with ID: {}", ENTITY_NAME, id);
     }
 
@@ -142,6 +160,7 @@ public class SickLeaveServiceImpl implements SickLeaveService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     @Async
     public CompletableFuture<Page<SickLeaveViewDTO>> getAll(int page, int size, String orderBy, boolean ascending) {
         validatePagination(page, size, "getAll");
@@ -158,6 +177,8 @@ public class SickLeaveServiceImpl implements SickLeaveService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<YearMonthSickLeaveCountDTO> getMonthsWithMostSickLeaves() {
         logger.debug("Retrieving months with most sick leaves");
         List<YearMonthSickLeaveCountDTO> result = sickLeaveRepository.findYearMonthWithMostSickLeaves();
@@ -167,6 +188,8 @@ public class SickLeaveServiceImpl implements SickLeaveService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public long getTotalSickLeavesCount() {
         logger.debug("Retrieving total count of sick leaves.");
         return sickLeaveRepository.count();
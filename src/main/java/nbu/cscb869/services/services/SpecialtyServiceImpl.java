@@ -4,13 +4,17 @@ import nbu.cscb869.common.exceptions.EntityInUseException;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.ExceptionMessages;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.models.Specialty;
 import nbu.cscb869.data.repositories.DoctorRepository;
 import nbu.cscb869.data.repositories.SpecialtyRepository;
 import nbu.cscb869.services.data.dtos.SpecialtyCreateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyUpdateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import nbu.cscb869.services.services.contracts.SpecialtyService;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions.Catalogue;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +27,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -37,11 +42,13 @@ public class SpecialtyServiceImpl implements SpecialtyService {
     private final SpecialtyRepository specialtyRepository;
     private final DoctorRepository doctorRepository;
     private final ModelMapper modelMapper;
+    private final CatalogueSuggestions catalogueSuggestions;
 
-    public SpecialtyServiceImpl(SpecialtyRepository specialtyRepository, DoctorRepository doctorRepository, ModelMapper modelMapper) {
+    public SpecialtyServiceImpl(SpecialtyRepository specialtyRepository, DoctorRepository doctorRepository, ModelMapper modelMapper, CatalogueSuggestions catalogueSuggestions) {
         this.specialtyRepository = specialtyRepository;
         this.doctorRepository = doctorRepository;
         this.modelMapper = modelMapper;
+        this.catalogueSuggestions = catalogueSuggestions;
     }
 
     /** {@inheritDoc} */
@@ -58,6 +65,7 @@ public class SpecialtyServiceImpl implements SpecialtyService {
 
         Specialty specialty = modelMapper.map(dto, Specialty.class);
         Specialty savedSpecialty = specialtyRepository.save(specialty);
+        catalogueSuggestions.catalogueChanged(Catalogue.SPECIALTIES);
 
         logger.info("Created {} with ID: {}", ENTITY_NAME, savedSpecialty.getId());
         return modelMapper.map(savedSpecialty, SpecialtyViewDTO.class);
@@ -84,6 +92,7 @@ public class SpecialtyServiceImpl implements SpecialtyService {
         specialty.setDescription(dto.getDescription());
 
         Specialty updatedSpecialty = specialtyRepository.save(specialty);
+        catalogueSuggestions.catalogueChanged(Catalogue.SPECIALTIES);
         logger.info("Updated {} with ID: {}", ENTITY_NAME, updatedSpecialty.getId());
         return modelMapper.map(updatedSpecialty, SpecialtyViewDTO.class);
     }
@@ -103,6 +112,7 @@ public class SpecialtyServiceImpl implements SpecialtyService {
         }
 
         specialtyRepository.delete(specialty);
+        catalogueSuggestions.catalogueChanged(Catalogue.SPECIALTIES);
         logger.info("Deleted {} with ID: {}", ENTITY_NAME, id);
     }
 
@@ -128,6 +138,7 @@ public class SpecialtyServiceImpl implements SpecialtyService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     @Async
     @PreAuthorize("permitAll()")
     public CompletableFuture<Page<SpecialtyViewDTO>> getAll(int page, int size, String orderBy, boolean ascending) {
@@ -143,6 +154,23 @@ public class SpecialtyServiceImpl implements SpecialtyService {
         return CompletableFuture.completedFuture(result);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    @PreAuthorize("permitAll()")
+    public List<SuggestionViewDTO> suggest(String query, int limit) {
+        return catalogueSuggestions.suggest(Catalogue.SPECIALTIES, query, limit).stream()
+                .map(entry -> new SuggestionViewDTO(entry.id(), entry.name(), entry.weight()))
+                .toList();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("permitAll()")
+    public ResourceVersionDTO getCollectionVersion() {
+        return ResourceVersionDTO.ofCollection(specialtyRepository.findAllVersions());
+    }
+
     private void validateDtoNotNull(Object dto, String operation) {
         if (dto == null) {
             logger.error("Cannot {} {}: DTO is null", operation, ENTITY_NAME);
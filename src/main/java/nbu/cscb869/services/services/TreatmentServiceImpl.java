@@ -12,6 +12,9 @@ import nbu.cscb869.services.data.dtos.TreatmentCreateDTO;
 import nbu.cscb869.services.data.dtos.TreatmentUpdateDTO;
 import nbu.cscb869.services.data.dtos.TreatmentViewDTO;
 import nbu.cscb869.services.services.contracts.TreatmentService;
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
+import nbu.cscb869.services.services.utility.MedicineReconciler;
+import nbu.cscb869.services.services.utility.VisitVersions;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +42,8 @@ public class TreatmentServiceImpl implements TreatmentService {
     private final TreatmentRepository treatmentRepository;
     private final VisitRepository visitRepository;
     private final ModelMapper modelMapper;
+    private final VisitVersions visitVersions;
+    private final MedicationCatalogue medicationCatalogue;
 
     /**
      * Constructs a new TreatmentServiceImpl with the specified dependencies.
@@ -46,11 +51,15 @@ public class TreatmentServiceImpl implements TreatmentService {
      * @param treatmentRepository the repository for treatment entities
      * @param visitRepository     the repository for visit entities
      * @param modelMapper         the ModelMapper for DTO conversions
+     * @param visitVersions       records changes to the visits these records belong to
+     * @param medicationCatalogue the catalogue the prescribed medicines are taken from
      */
-    public TreatmentServiceImpl(TreatmentRepository treatmentRepository, VisitRepository visitRepository, ModelMapper modelMapper) {
+    public TreatmentServiceImpl(TreatmentRepository treatmentRepository, VisitRepository visitRepository, ModelMapper modelMapper, VisitVersions visitVersions, MedicationCatalogue medicationCatalogue) {
         this.treatmentRepository = treatmentRepository;
         this.visitRepository = visitRepository;
         this.modelMapper = modelMapper;
+        this.visitVersions = visitVersions;
+        this.medicationCatalogue = medicationCatalogue;
     }
 
     /** {@inheritDoc} */
@@ -70,7 +79,7 @@ public class TreatmentServiceImpl implements TreatmentService {
         if (dto.getMedicines() != null) {
             dto.getMedicines().forEach(medDto -> {
                 Medicine medicine = new Medicine();
-                medicine.setName(medDto.getName());
+                medicine.setMedication(medicationCatalogue.intern(medDto.getName()));
                 medicine.setDosage(medDto.getDosage());
                 medicine.setFrequency(medDto.getFrequency());
                 medicine.setTreatment(treatment);
@@ -79,6 +88,7 @@ public class TreatmentServiceImpl implements TreatmentService {
         }
 
         Treatment savedTreatment = treatmentRepository.save(treatment);
+        visitVersions.touch(visit);
         logger.info("Created {} with ID: {}", ENTITY_NAME, savedTreatment.getId());
         return modelMapper.map(savedTreatment, TreatmentViewDTO.class);
     }
@@ -97,23 +107,15 @@ public class TreatmentServiceImpl implements TreatmentService {
         Visit visit = visitRepository.findById(dto.getVisitId())
                 .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatVisitNotFoundById(dto.getVisitId())));
 
+        Visit previousVisit = treatment.getVisit();
         treatment.setDescription(dto.getDescription());
         treatment.setVisit(visit);
 
-        // Reconcile medicines: clear the old list and add the new one
-        treatment.getMedicines().clear();
-        if (dto.getMedicines() != null) {
-            dto.getMedicines().forEach(medDto -> {
-                Medicine medicine = new Medicine();
-                medicine.setName(medDto.getName());
-                medicine.setDosage(medDto.getDosage());
-                medicine.setFrequency(medDto.getFrequency());
-                medicine.setTreatment(treatment);
-                treatment.getMedicines().add(medicine);
-            });
-        }
+        MedicineReconciler.Changes changes = MedicineReconciler.reconcile(treatment, dto.getMedicines(), medicationCatalogue::intern);
+        logger.debug("Medicines of {} with ID {}: {}", ENTITY_NAME, dto.getId(), changes);
 
         Treatment savedTreatment = treatmentRepository.save(treatment);
+        visitVersions.touch(previousVisit, visit);
         logger.info("Updated {} with ID: {}", ENTITY_NAME, savedTreatment.getId());
         return modelMapper.map(savedTreatment, TreatmentViewDTO.class);
     }
@@ -125,11 +127,15 @@ public class TreatmentServiceImpl implements TreatmentService {
         validateIdNotNull(id, "delete");
         logger.debug("Deleting {} with ID: {}", ENTITY_NAME, id);
 
-        if (!treatmentRepository.existsById(id)) {
-            throw new EntityNotFoundException(ExceptionMessages.formatTreatmentNotFoundById(id));
-        }
+        Treatment treatment = treatmentRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatTreatmentNotFoundById(id)));
 
-        treatmentRepository.deleteById(id);
+        Visit visit = treatment.getVisit();
+        if (visit != null) {
+            visit.setTreatment(null);
+        }
+        treatmentRepository.delete(treatment);
+        visitVersions.touch(visit);
         logger.info("Deleted {} with ID: {}", ENTITY_NAME, id);
     }
 
@@ -158,6 +164,7 @@ public class TreatmentServiceImpl implements TreatmentService {
 
     /** {@inheritDoc} */
     @Override
+    @Transactional(readOnly = true)
     @Async
     public CompletableFuture<Page<TreatmentViewDTO>> getAll(int page, int size, String orderBy, boolean ascending) {
         validatePagination(page, size, "getAll");
@@ -1,9 +1,13 @@
 package nbu.cscb869.services.services;
 
 import nbu.cscb869.common.exceptions.*;
+import nbu.cscb869.config.concurrency.RetryOnOptimisticLock;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.DoctorVisitCountDTO;
 import nbu.cscb869.data.dto.MonthSickLeaveCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.models.*;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.data.repositories.DiagnosisRepository;
@@ -11,11 +15,33 @@ import nbu.cscb869.data.repositories.DoctorRepository;
 import nbu.cscb869.data.repositories.PatientRepository;
 import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.services.data.dtos.*;
+import nbu.cscb869.services.data.events.SickLeaveIssued;
+import nbu.cscb869.services.data.events.VisitCancelled;
+import nbu.cscb869.services.data.events.VisitDeleted;
+import nbu.cscb869.services.data.events.VisitDocumented;
+import nbu.cscb869.services.data.events.VisitRescheduled;
+import nbu.cscb869.services.data.events.VisitScheduled;
 import nbu.cscb869.services.services.contracts.VisitService;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
+import nbu.cscb869.services.services.utility.MedicineReconciler;
+import nbu.cscb869.services.services.utility.PartitionedReports;
+import nbu.cscb869.services.services.utility.PartitionedReports.DateRange;
+import nbu.cscb869.services.services.utility.PartitionedReports.RangeSource;
+import nbu.cscb869.services.services.utility.PatientHistoryCache;
+import nbu.cscb869.services.services.utility.PatientHistoryCache.PatientTimeline;
+import nbu.cscb869.services.services.utility.RankedCounts.Ranked;
+import nbu.cscb869.services.services.utility.VisitEditMerger;
+import nbu.cscb869.services.services.utility.VisitEditMerger.Field;
+import nbu.cscb869.services.services.utility.VisitEditMerger.SickLeaveSnapshot;
+import nbu.cscb869.services.services.utility.VisitEditMerger.TreatmentSnapshot;
+import nbu.cscb869.services.services.utility.VisitEditMerger.VisitSnapshot;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -25,9 +51,16 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -36,19 +69,34 @@ public class VisitServiceImpl implements VisitService {
     private static final Logger logger = LoggerFactory.getLogger(VisitServiceImpl.class);
     private static final String ENTITY_NAME = "Visit";
     private static final int MAX_PAGE_SIZE = 100;
+    /** The statuses of a visit that was called off, announced with {@link VisitCancelled}. */
+    private static final Set<VisitStatus> CANCELLED_STATUSES =
+            EnumSet.of(VisitStatus.CANCELLED_BY_PATIENT, VisitStatus.CANCELLED_BY_DOCTOR, VisitStatus.NO_SHOW);
 
     private final VisitRepository visitRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
     private final DiagnosisRepository diagnosisRepository;
     private final ModelMapper modelMapper;
-
-    public VisitServiceImpl(VisitRepository visitRepository, PatientRepository patientRepository, DoctorRepository doctorRepository, DiagnosisRepository diagnosisRepository, ModelMapper modelMapper) {
+    private final PatientHistoryCache patientHistoryCache;
+    private final DomainEventBus domainEventBus;
+    private final VisitEditMerger visitEditMerger;
+    private final MedicationCatalogue medicationCatalogue;
+    private final PartitionedReports partitionedReports;
+    private final FrequencyRankings frequencyRankings;
+
+    public VisitServiceImpl(VisitRepository visitRepository, PatientRepository patientRepository, DoctorRepository doctorRepository, DiagnosisRepository diagnosisRepository, ModelMapper modelMapper, PatientHistoryCache patientHistoryCache, DomainEventBus domainEventBus, VisitEditMerger visitEditMerger, MedicationCatalogue medicationCatalogue, PartitionedReports partitionedReports, FrequencyRankings frequencyRankings) {
         this.visitRepository = visitRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
         this.diagnosisRepository = diagnosisRepository;
         this.modelMapper = modelMapper;
+        this.patientHistoryCache = patientHistoryCache;
+        this.domainEventBus = domainEventBus;
+        this.visitEditMerger = visitEditMerger;
+        this.medicationCatalogue = medicationCatalogue;
+        this.partitionedReports = partitionedReports;
+        this.frequencyRankings = frequencyRankings;
     }
 
     @Override
@@ -71,7 +119,9 @@ public class VisitServiceImpl implements VisitService {
 
         Visit savedVisit = visitRepository.save(visit);
         logger.info("Successfully created {} with ID: {}", ENTITY_NAME, savedVisit.getId());
-        return modelMapper.map(savedVisit, VisitViewDTO.class);
+        publishScheduled(savedVisit, patient, doctor);
+        publishSickLeaveIfIssued(savedVisit, patient, false);
+        return mapAndRecordInHistory(savedVisit, patient);
     }
 
     /** {@inheritDoc} */
@@ -91,7 +141,8 @@ public class VisitServiceImpl implements VisitService {
 
         Visit savedVisit = visitRepository.save(visit);
         logger.info("Patient successfully scheduled {} with ID: {}", ENTITY_NAME, savedVisit.getId());
-        return modelMapper.map(savedVisit, VisitViewDTO.class);
+        publishScheduled(savedVisit, patient, doctor);
+        return mapAndRecordInHistory(savedVisit, patient);
     }
 
     /** {@inheritDoc} */
@@ -113,32 +164,80 @@ public class VisitServiceImpl implements VisitService {
 
         Visit savedVisit = visitRepository.save(visit);
         logger.info("User {} successfully scheduled {} with ID: {}", userKeycloakId, ENTITY_NAME, savedVisit.getId());
-        return modelMapper.map(savedVisit, VisitViewDTO.class);
+        publishScheduled(savedVisit, patient, doctor);
+        return mapAndRecordInHistory(savedVisit, patient);
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * An update based on an older version is merged with the changes made since (see {@link VisitEditMerger}); if it
+     * loses a race with a concurrent update while saving, it is merged again with that one.
+     * <p>
+     * Publishes {@link VisitRescheduled} if the visit is moved or reassigned, and {@link VisitCancelled} if it is
+     * given a cancelled status.
+     */
     @Override
     @Transactional
+    @RetryOnOptimisticLock
     public VisitViewDTO update(VisitUpdateDTO dto) {
         logger.debug("Attempting to update {} with ID: {}", ENTITY_NAME, dto.getId());
         validateDtoNotNull(dto);
         validateIdNotNull(dto.getId());
         Visit visit = findVisitById(dto.getId());
-        Patient patient = findPatientById(dto.getPatientId());
-        Doctor doctor = findDoctorById(dto.getDoctorId());
-        Diagnosis diagnosis = dto.getDiagnosisId() != null ? findDiagnosisById(dto.getDiagnosisId()) : null;
-        validateBusinessRules(patient, doctor, dto.getVisitDate(), dto.getVisitTime(), visit.getId());
-        mapVisitData(visit, dto.getVisitDate(), dto.getVisitTime(), patient, doctor, diagnosis);
-        visit.setNotes(dto.getNotes());
-        visit.setStatus(dto.getStatus());
-        mapChildrenToVisit(visit, dto.getSickLeave(), dto.getTreatment());
+        Set<Field> keep = visitEditMerger.resolve(visit, dto.getVersion(), new VisitSnapshot(dto.getVisitDate(),
+                dto.getVisitTime(), dto.getPatientId(), dto.getDoctorId(), dto.getDiagnosisId(), dto.getNotes(),
+                dto.getStatus(), TreatmentSnapshot.of(dto.getTreatment()), SickLeaveSnapshot.of(dto.getSickLeave())));
+        LocalDate visitDate = keep.contains(Field.VISIT_DATE) ? visit.getVisitDate() : dto.getVisitDate();
+        LocalTime visitTime = keep.contains(Field.VISIT_TIME) ? visit.getVisitTime() : dto.getVisitTime();
+        Patient patient = keep.contains(Field.PATIENT) ? visit.getPatient() : findPatientById(dto.getPatientId());
+        Doctor doctor = keep.contains(Field.DOCTOR) ? visit.getDoctor() : findDoctorById(dto.getDoctorId());
+        Diagnosis diagnosis = keep.contains(Field.DIAGNOSIS) ? visit.getDiagnosis()
+                : dto.getDiagnosisId() != null ? findDiagnosisById(dto.getDiagnosisId()) : null;
+        validateBusinessRules(patient, doctor, visitDate, visitTime, visit.getId());
+        visitEditMerger.recordSuperseded(visit);
+        Doctor previousDoctor = visit.getDoctor();
+        boolean rescheduled = !Objects.equals(visit.getVisitDate(), visitDate) || !Objects.equals(visit.getVisitTime(), visitTime)
+                || !Objects.equals(idOf(previousDoctor), doctor.getId());
+        VisitStatus previousStatus = visit.getStatus();
+        Patient previousPatient = visit.getPatient();
+        if (previousPatient != null && !Objects.equals(previousPatient.getId(), patient.getId())) {
+            patientHistoryCache.removeVisit(previousPatient.getId(), visit.getId());
+        }
+        mapVisitData(visit, visitDate, visitTime, patient, doctor, diagnosis);
+        if (!keep.contains(Field.NOTES)) {
+            visit.setNotes(dto.getNotes());
+        }
+        if (!keep.contains(Field.STATUS)) {
+            visit.setStatus(dto.getStatus());
+        }
+        boolean hadSickLeave = visit.getSickLeave() != null;
+        mapChildrenToVisit(visit, dto.getSickLeave(), dto.getTreatment(), keep);
         Visit savedVisit = visitRepository.save(visit);
+        // Flushed now, so that the returned view carries the new version to base the next edit on.
+        visitRepository.flush();
         logger.info("Successfully updated {} with ID: {}", ENTITY_NAME, savedVisit.getId());
-        return modelMapper.map(savedVisit, VisitViewDTO.class);
+        if (rescheduled) {
+            domainEventBus.publish(new VisitRescheduled(savedVisit.getId(), patient.getId(), idOf(previousDoctor),
+                    doctor.getId(), visitDate, visitTime, Instant.now()));
+        }
+        if (CANCELLED_STATUSES.contains(visit.getStatus()) && !CANCELLED_STATUSES.contains(previousStatus)) {
+            domainEventBus.publish(new VisitCancelled(savedVisit.getId(), patient.getId(), doctor.getId(),
+                    visit.getStatus(), Instant.now()));
+        }
+        publishSickLeaveIfIssued(savedVisit, patient, hadSickLeave);
+        return mapAndRecordInHistory(savedVisit, patient);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Documentation based on an older version is merged with the changes made since, as in {@link #update}.
+     */
     @Override
     @Transactional
+    @RetryOnOptimisticLock
     public VisitViewDTO documentVisit(Long visitId, VisitDocumentationDTO dto) {
         validateIdNotNull(visitId);
         validateDtoNotNull(dto);
@@ -146,29 +245,47 @@ public class VisitServiceImpl implements VisitService {
 
         Visit visit = findVisitById(visitId);
 
-        if (dto.getDiagnosisId() != null) {
-            Diagnosis diagnosis = findDiagnosisById(dto.getDiagnosisId());
-            visit.setDiagnosis(diagnosis);
-        }
-
-        visit.setNotes(dto.getNotes());
+        VisitStatus status = visit.getStatus();
         if (dto.getStatus() != null) {
             try {
-                visit.setStatus(VisitStatus.valueOf(dto.getStatus().toUpperCase()));
+                status = VisitStatus.valueOf(dto.getStatus().toUpperCase());
             } catch (IllegalArgumentException e) {
                 throw new InvalidInputException("Invalid visit status provided: " + dto.getStatus());
             }
         }
+        VisitSnapshot current = VisitSnapshot.of(visit);
+        Set<Field> keep = visitEditMerger.resolve(visit, dto.getVersion(), new VisitSnapshot(current.visitDate(),
+                current.visitTime(), current.patientId(), current.doctorId(),
+                dto.getDiagnosisId() != null ? dto.getDiagnosisId() : current.diagnosisId(), dto.getNotes(), status,
+                TreatmentSnapshot.of(dto.getTreatment()), SickLeaveSnapshot.of(dto.getSickLeave())));
+        visitEditMerger.recordSuperseded(visit);
+
+        if (dto.getDiagnosisId() != null && !keep.contains(Field.DIAGNOSIS)) {
+            Diagnosis diagnosis = findDiagnosisById(dto.getDiagnosisId());
+            visit.setDiagnosis(diagnosis);
+        }
+        if (!keep.contains(Field.NOTES)) {
+            visit.setNotes(dto.getNotes());
+        }
+        if (!keep.contains(Field.STATUS)) {
+            visit.setStatus(status);
+        }
 
-        mapChildrenToVisit(visit, dto.getSickLeave(), dto.getTreatment());
+        boolean hadSickLeave = visit.getSickLeave() != null;
+        mapChildrenToVisit(visit, dto.getSickLeave(), dto.getTreatment(), keep);
 
         Visit savedVisit = visitRepository.save(visit);
+        visitRepository.flush();
         logger.info("Successfully added documentation to {} with ID: {}", ENTITY_NAME, savedVisit.getId());
-        return modelMapper.map(savedVisit, VisitViewDTO.class);
+        domainEventBus.publish(new VisitDocumented(savedVisit.getId(), visit.getPatient().getId(), visit.getDoctor().getId(),
+                visit.getDiagnosis() != null ? visit.getDiagnosis().getId() : null, visit.getStatus(), Instant.now()));
+        publishSickLeaveIfIssued(savedVisit, visit.getPatient(), hadSickLeave);
+        return mapAndRecordInHistory(savedVisit, visit.getPatient());
     }
 
     @Override
     @Transactional
+    @RetryOnOptimisticLock
     public void cancelVisit(Long visitId) {
         validateIdNotNull(visitId);
         logger.debug("Attempting to cancel {} with ID: {} by patient", ENTITY_NAME, visitId);
@@ -181,8 +298,12 @@ public class VisitServiceImpl implements VisitService {
             throw new InvalidInputException("Only scheduled visits can be cancelled.");
         }
 
+        visitEditMerger.recordSuperseded(visit);
         visit.setStatus(VisitStatus.CANCELLED_BY_PATIENT);
-        visitRepository.save(visit);
+        Visit savedVisit = visitRepository.save(visit);
+        mapAndRecordInHistory(savedVisit, visit.getPatient());
+        domainEventBus.publish(new VisitCancelled(visitId, visit.getPatient().getId(), visit.getDoctor().getId(),
+                VisitStatus.CANCELLED_BY_PATIENT, Instant.now()));
         logger.info("Patient successfully cancelled {} with ID: {}", ENTITY_NAME, visitId);
     }
 
@@ -191,11 +312,15 @@ public class VisitServiceImpl implements VisitService {
     public void delete(Long id) {
         validateIdNotNull(id);
         logger.debug("Attempting to delete {} with ID: {}", ENTITY_NAME, id);
-        if (!visitRepository.existsById(id)) {
+        Visit visit = visitRepository.findById(id).orElseThrow(() -> {
             logger.error("Attempted to delete a non-existent {}. ID: {}", ENTITY_NAME, id);
-            throw new EntityNotFoundException(ExceptionMessages.formatVisitNotFoundById(id));
-        }
-        visitRepository.deleteById(id);
+            return new EntityNotFoundException(ExceptionMessages.formatVisitNotFoundById(id));
+        });
+        Long patientId = visit.getPatient().getId();
+        Long doctorId = visit.getDoctor().getId();
+        visitRepository.delete(visit);
+        patientHistoryCache.removeVisit(patientId, id);
+        domainEventBus.publish(new VisitDeleted(id, patientId, doctorId, Instant.now()));
         logger.info("Successfully deleted {} with ID: {}", ENTITY_NAME, id);
     }
 
@@ -212,6 +337,18 @@ public class VisitServiceImpl implements VisitService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ResourceVersionDTO getVersion(Long id) {
+        validateIdNotNull(id);
+        ResourceVersionDTO version = visitRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatVisitNotFoundById(id)));
+        authorizePatientAccess(version.getOwnerKeycloakId());
+        return version.embedding(visitRepository.findSpecialtyVersions(id))
+                .embedding(visitRepository.findMedicineVersions(id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     @Async
     public CompletableFuture<Page<VisitViewDTO>> getAll(int page, int size, String orderBy, boolean ascending, String filter) {
         validatePagination(page, size);
@@ -226,18 +363,46 @@ public class VisitServiceImpl implements VisitService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<VisitViewDTO> getVisitsByPatient(Long patientId, int page, int size) {
         validateIdNotNull(patientId);
         validatePagination(page, size);
         logger.debug("Retrieving visits for patient ID: {}", patientId);
-        Patient patient = findPatientById(patientId);
-        authorizePatientAccess(patient.getKeycloakId());
-        Page<VisitViewDTO> result = visitRepository.findByPatient(patient, PageRequest.of(page, size)).map(v -> modelMapper.map(v, VisitViewDTO.class));
+        PatientTimeline timeline = patientHistoryCache.get(patientId).orElse(null);
+        if (timeline != null) {
+            authorizePatientAccess(timeline.ownerKeycloakId());
+        } else {
+            long readSequence = patientHistoryCache.currentSequence();
+            Patient patient = findPatientById(patientId);
+            authorizePatientAccess(patient.getKeycloakId());
+            timeline = loadTimeline(patient);
+            patientHistoryCache.put(patientId, timeline, readSequence);
+        }
+        List<VisitViewDTO> visits = timeline.visits();
+        int from = (int) Math.min((long) page * size, visits.size());
+        int to = Math.min(from + size, visits.size());
+        Page<VisitViewDTO> result = new PageImpl<>(visits.subList(from, to), PageRequest.of(page, size), visits.size());
         logger.info("Found {} visits for patient ID: {}", result.getTotalElements(), patientId);
         return result;
     }
 
+    /**
+     * Reads a patient's whole history, newest visit first. The medicines and the doctors' specialties are fetched
+     * up front, so the read costs a fixed number of statements however many visits the patient has.
+     */
+    private PatientTimeline loadTimeline(Patient patient) {
+        List<Visit> visits = visitRepository.findByPatientIdOrderByVisitDateDescVisitTimeDescIdDesc(patient.getId());
+        if (!visits.isEmpty()) {
+            visitRepository.fetchTreatmentMedicinesByPatientId(patient.getId());
+            visitRepository.fetchDoctorSpecialtiesByPatientId(patient.getId());
+        }
+        List<VisitViewDTO> views = visits.stream().map(v -> modelMapper.map(v, VisitViewDTO.class)).toList();
+        return new PatientTimeline(patient.getKeycloakId(), views);
+    }
+
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public Page<VisitViewDTO> getVisitsByDiagnosis(Long diagnosisId, int page, int size) {
         validateIdNotNull(diagnosisId);
         validatePagination(page, size);
@@ -248,33 +413,47 @@ public class VisitServiceImpl implements VisitService {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Not transactional: the range is read as concurrent date partitions, each in its own transaction, so that the
+     * caller holds no connection while it waits for them.
+     */
     @Override
+    @DatabaseWorkload(Workload.REPORTING)
     public Page<VisitViewDTO> getVisitsByDateRange(LocalDate startDate, LocalDate endDate, int page, int size) {
         validatePagination(page, size);
         if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
             throw new InvalidInputException(ExceptionMessages.formatInvalidDateRange(startDate, endDate));
         }
         logger.debug("Retrieving visits between {} and {}", startDate, endDate);
-        Page<VisitViewDTO> result = visitRepository.findByDateRange(startDate, endDate, PageRequest.of(page, size)).map(v -> modelMapper.map(v, VisitViewDTO.class));
+        Page<VisitViewDTO> result = partitionedReports.page(startDate, endDate, PageRequest.of(page, size), visitsInRange(null));
         logger.info("Found {} visits in date range.", result.getTotalElements());
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Not transactional, like {@link #getVisitsByDateRange}.
+     */
     @Override
+    @DatabaseWorkload(Workload.REPORTING)
     public Page<VisitViewDTO> getVisitsByDoctorAndDateRange(Long doctorId, LocalDate startDate, LocalDate endDate, int page, int size) {
         validateIdNotNull(doctorId);
         validatePagination(page, size);
-        Doctor doctor = findDoctorById(doctorId);
+        findDoctorById(doctorId);
         if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
             throw new InvalidInputException(ExceptionMessages.formatInvalidDateRange(startDate, endDate));
         }
         logger.debug("Retrieving visits for doctor ID {} between {} and {}", doctorId, startDate, endDate);
-        Page<VisitViewDTO> result = visitRepository.findByDoctorAndDateRange(doctor, startDate, endDate, PageRequest.of(page, size)).map(v -> modelMapper.map(v, VisitViewDTO.class));
+        Page<VisitViewDTO> result = partitionedReports.page(startDate, endDate, PageRequest.of(page, size), visitsInRange(doctorId));
         logger.info("Found {} visits for doctor ID {} in date range.", result.getTotalElements(), doctorId);
         return result;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<VisitViewDTO> getVisitsByDoctorAndStatusAndDateRange(Long doctorId, VisitStatus status, LocalDate startDate, LocalDate endDate, int page, int size) {
         validateIdNotNull(doctorId);
         validatePagination(page, size);
@@ -291,6 +470,8 @@ public class VisitServiceImpl implements VisitService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<DoctorVisitCountReportDTO> getVisitCountByDoctor() {
         logger.debug("Retrieving visit count per doctor.");
         List<DoctorVisitCountDTO> resultsFromRepo = visitRepository.countVisitsByDoctor();
@@ -303,17 +484,113 @@ public class VisitServiceImpl implements VisitService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<DiagnosisVisitCountDTO> getMostFrequentDiagnoses() {
         logger.debug("Retrieving most frequent diagnoses.");
         return visitRepository.findMostFrequentDiagnoses();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.REPORTING)
     public List<MonthSickLeaveCountDTO> getMostFrequentSickLeaveMonth() {
         logger.debug("Retrieving most frequent sick leave month.");
         return visitRepository.findMostFrequentSickLeaveMonth();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<DiagnosisVisitCountDTO> getMostFrequentDiagnoses(YearMonth month, Integer limit) {
+        logger.debug("Retrieving the top {} diagnoses for {}.", limit, month == null ? "all visits" : month);
+        List<Ranked<Long>> ranked;
+        if (month == null) {
+            Optional<List<Ranked<Long>>> inMemory = frequencyRankings.topDiagnoses(limit);
+            if (inMemory.isEmpty()) {
+                logger.debug("The rankings are not ready; ranking the diagnoses in the database.");
+                return visitRepository.findMostFrequentDiagnoses().stream()
+                        .limit(frequencyRankings.limitOf(limit))
+                        .toList();
+            }
+            ranked = inMemory.get();
+        } else {
+            Optional<List<Ranked<Long>>> inMemory = frequencyRankings.topDiagnoses(month, limit);
+            if (inMemory.isEmpty()) {
+                logger.debug("{} is not ranked in memory; ranking it in the database.", month);
+                return visitRepository.findMostFrequentDiagnosesBetween(month.atDay(1), month.atEndOfMonth(),
+                        PageRequest.of(0, frequencyRankings.limitOf(limit)));
+            }
+            ranked = inMemory.get();
+        }
+        Map<Long, String> names = diagnosisRepository.findAllById(ranked.stream().map(Ranked::key).toList()).stream()
+                .collect(Collectors.toMap(Diagnosis::getId, Diagnosis::getName));
+        return ranked.stream()
+                .filter(entry -> names.containsKey(entry.key()))
+                .map(entry -> new DiagnosisVisitCountDTO(entry.key(), names.get(entry.key()), entry.count()))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MonthSickLeaveCountDTO> getMostFrequentSickLeaveMonth(Integer limit) {
+        logger.debug("Retrieving the top {} sick leave months.", limit);
+        Optional<List<Ranked<Integer>>> inMemory = frequencyRankings.topSickLeaveMonths(limit);
+        if (inMemory.isEmpty()) {
+            logger.debug("The rankings are not ready; ranking the sick leave months in the database.");
+            return visitRepository.findMostFrequentSickLeaveMonth().stream()
+                    .limit(frequencyRankings.limitOf(limit))
+                    .toList();
+        }
+        return inMemory.get().stream()
+                .map(entry -> new MonthSickLeaveCountDTO(entry.key(), entry.count()))
+                .toList();
+    }
+
+    /**
+     * Maps a saved visit and applies it to the patient's cached history once the transaction commits.
+     */
+    private VisitViewDTO mapAndRecordInHistory(Visit savedVisit, Patient patient) {
+        VisitViewDTO view = modelMapper.map(savedVisit, VisitViewDTO.class);
+        patientHistoryCache.upsertVisit(patient.getId(), view);
+        return view;
+    }
+
+    private void publishScheduled(Visit savedVisit, Patient patient, Doctor doctor) {
+        domainEventBus.publish(new VisitScheduled(savedVisit.getId(), patient.getId(), doctor.getId(),
+                savedVisit.getVisitDate(), savedVisit.getVisitTime(), Instant.now()));
+    }
+
+    /**
+     * Publishes {@link SickLeaveIssued} if the saved visit has a sick leave it did not have before.
+     */
+    private void publishSickLeaveIfIssued(Visit savedVisit, Patient patient, boolean hadSickLeave) {
+        SickLeave sickLeave = savedVisit.getSickLeave();
+        if (sickLeave != null && !hadSickLeave) {
+            domainEventBus.publish(new SickLeaveIssued(sickLeave.getId(), savedVisit.getId(), patient.getId(),
+                    sickLeave.getStartDate(), sickLeave.getDurationDays(), Instant.now()));
+        }
+    }
+
+    private RangeSource<VisitViewDTO> visitsInRange(Long doctorId) {
+        return new RangeSource<>() {
+            @Override
+            public long count(DateRange range) {
+                return visitRepository.countInRange(doctorId, range.from(), range.to());
+            }
+
+            @Override
+            public List<VisitViewDTO> fetch(DateRange range, int offset, int limit) {
+                return visitRepository.findInRange(doctorId, range.from(), range.to(), offset, limit).stream()
+                        .map(v -> modelMapper.map(v, VisitViewDTO.class))
+                        .toList();
+            }
+        };
+    }
+
+    private static Long idOf(Doctor doctor) {
+        return doctor != null ? doctor.getId() : null;
+    }
+
     private Visit findVisitById(Long id) {
         return visitRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(ExceptionMessages.formatVisitNotFoundById(id)));
     }
@@ -347,7 +624,7 @@ public class VisitServiceImpl implements VisitService {
             if (treatmentDto.getMedicines() != null) {
                 treatmentDto.getMedicines().forEach(medDto -> {
                     Medicine medicine = new Medicine();
-                    medicine.setName(medDto.getName());
+                    medicine.setMedication(medicationCatalogue.intern(medDto.getName()));
                     medicine.setDosage(medDto.getDosage());
                     medicine.setFrequency(medDto.getFrequency());
                     medicine.setTreatment(treatment);
@@ -367,8 +644,26 @@ public class VisitServiceImpl implements VisitService {
         }
     }
 
-    private void mapChildrenToVisit(Visit visit, SickLeaveUpdateDTO sickLeaveDto, TreatmentUpdateDTO treatmentDto) {
-        // Handle Treatment
+    /**
+     * Applies a submitted treatment and sick leave, except those that must keep their current value.
+     */
+    private void mapChildrenToVisit(Visit visit, SickLeaveUpdateDTO sickLeaveDto, TreatmentUpdateDTO treatmentDto, Set<Field> keep) {
+        VisitSnapshot before = VisitSnapshot.of(visit);
+        if (!keep.contains(Field.TREATMENT)) {
+            mapTreatmentToVisit(visit, treatmentDto);
+        }
+        if (!keep.contains(Field.SICK_LEAVE)) {
+            mapSickLeaveToVisit(visit, sickLeaveDto);
+        }
+        // The treatment and sick leave map the relation from their side, so changing only them would leave the visit's
+        // version as it was, and a concurrent edit of them would not be detected.
+        VisitSnapshot after = VisitSnapshot.of(visit);
+        if (!Objects.equals(before.treatment(), after.treatment()) || !Objects.equals(before.sickLeave(), after.sickLeave())) {
+            visit.touch();
+        }
+    }
+
+    private void mapTreatmentToVisit(Visit visit, TreatmentUpdateDTO treatmentDto) {
         if (treatmentDto != null && treatmentDto.getDescription() != null && !treatmentDto.getDescription().isBlank()) {
             Treatment treatment = visit.getTreatment();
             if (treatment == null) {
@@ -377,21 +672,15 @@ public class VisitServiceImpl implements VisitService {
                 visit.setTreatment(treatment);
             }
             treatment.setDescription(treatmentDto.getDescription());
-            treatment.getMedicines().clear();
-            if (treatmentDto.getMedicines() != null) {
-                final Treatment finalTreatment = treatment;
-                treatmentDto.getMedicines().forEach(medDto -> {
-                    Medicine medicine = new Medicine();
-                    modelMapper.map(medDto, medicine);
-                    medicine.setTreatment(finalTreatment);
-                    finalTreatment.getMedicines().add(medicine);
-                });
-            }
+            MedicineReconciler.Changes changes = MedicineReconciler.reconcile(treatment, treatmentDto.getMedicines(),
+                    medicationCatalogue::intern);
+            logger.debug("Medicines of {} with ID {}: {}", ENTITY_NAME, visit.getId(), changes);
         } else {
             visit.setTreatment(null);
         }
+    }
 
-        // Handle Sick Leave
+    private void mapSickLeaveToVisit(Visit visit, SickLeaveUpdateDTO sickLeaveDto) {
         if (sickLeaveDto != null && sickLeaveDto.getStartDate() != null && sickLeaveDto.getDurationDays() != null && sickLeaveDto.getDurationDays() > 0) {
             SickLeave sickLeave = visit.getSickLeave();
             if (sickLeave == null) {
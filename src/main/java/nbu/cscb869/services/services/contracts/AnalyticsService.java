@@ -0,0 +1,61 @@
+package nbu.cscb869.services.services.contracts;
+
+import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.services.data.dtos.AnalyticsQueryDTO;
+import nbu.cscb869.services.data.dtos.AnalyticsResultDTO;
+import nbu.cscb869.services.data.dtos.FactExportResultDTO;
+import nbu.cscb869.services.data.dtos.PatientReachResultDTO;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Service interface for ad-hoc visit and sick leave analytics over the pre-aggregated visit facts.
+ * The facts are rebuilt in the background and lag behind the visits by up to {@code app.analytics.refresh-interval}.
+ */
+public interface AnalyticsService {
+    /**
+     * Totals visits and sick leaves per group of the requested dimensions over a slice of the facts. Ranges of whole
+     * months are answered from the monthly rollup unless grouped by day.
+     * @param query the dimensions, totals and slice
+     * @return the groups and their totals
+     * @throws InvalidDTOException if the query is null
+     * @throws InvalidInputException if the range ends before it starts, or a dimension is grouped by twice
+     */
+    AnalyticsResultDTO query(AnalyticsQueryDTO query);
+
+    /**
+     * Estimates the distinct patients seen per doctor or per diagnosis over a range of months, from HyperLogLog sketches
+     * of each month. Each estimate is within {@link PatientReachResultDTO#getStandardError()} of the true count about
+     * two times in three.
+     * @param dimension {@code DOCTOR} or {@code DIAGNOSIS}
+     * @param id only this doctor or diagnosis; null for all
+     * @param from the first month; null for no lower bound
+     * @param to the last month; null for no upper bound
+     * @return the estimates
+     * @throws InvalidDTOException if the dimension is null
+     * @throws InvalidInputException if the dimension is another one, or the range ends before it starts
+     */
+    PatientReachResultDTO patientReach(AnalyticsDimension dimension, Long id, YearMonth from, YearMonth to);
+
+    /**
+     * Marks the facts of a date range for rebuilding on the next refresh, for data changed other than through the
+     * application.
+     * @param from the first day
+     * @param to the last day
+     * @return the number of days marked
+     * @throws InvalidDTOException if a date is null
+     * @throws InvalidInputException if the range ends before it starts
+     */
+    int rebuild(LocalDate from, LocalDate to);
+
+    /**
+     * Exports the visits of every month changed since the last export, or of all months, as Arrow IPC files
+     * partitioned by month under {@code app.fact-export.directory}.
+     * @param full whether to rewrite the months that have not changed as well
+     * @return the months written and removed, and the rows written
+     */
+    FactExportResultDTO export(boolean full);
+}
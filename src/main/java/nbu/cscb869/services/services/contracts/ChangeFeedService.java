@@ -0,0 +1,27 @@
+package nbu.cscb869.services.services.contracts;
+
+import nbu.cscb869.common.exceptions.ChangeCursorExpiredException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.services.data.dtos.ChangeFeedDTO;
+import org.springframework.security.access.prepost.PreAuthorize;
+
+/**
+ * Service interface for the change feed, which lets downstream systems synchronize patients, visits, treatments and
+ * sick leaves incrementally.
+ */
+public interface ChangeFeedService {
+
+    /**
+     * Lists the changes made after a cursor: inserted and updated entities with their current state, and tombstones
+     * of deleted ones, ordered by the time of the change. An entity changed several times since the cursor is listed
+     * once, with its latest state. Changes younger than {@code app.changes.settle-time} are held back, so that a
+     * change whose transaction commits late is never skipped.
+     * @param cursor the {@code nextCursor} of the previous page, or null to start from the beginning
+     * @param limit the maximum number of changes to return
+     * @return the changes and the cursor to continue from
+     * @throws InvalidInputException if the cursor is malformed or the limit is out of range
+     * @throws ChangeCursorExpiredException if the cursor is older than the retention of deletes
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    ChangeFeedDTO getChanges(String cursor, int limit);
+}
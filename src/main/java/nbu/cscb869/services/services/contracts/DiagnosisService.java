@@ -2,13 +2,19 @@ package nbu.cscb869.services.services.contracts;
 
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.data.dto.DiagnosisGroupVisitCountDTO;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.PatientDiagnosisDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisCreateDTO;
+import nbu.cscb869.services.data.dtos.DiagnosisImportResultDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisUpdateDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader;
 import org.springframework.data.domain.Page;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -75,6 +81,46 @@ public interface DiagnosisService {
      */
     CompletableFuture<Page<DiagnosisViewDTO>> getAll(int page, int size, String orderBy, boolean ascending, String filter);
 
+    /**
+     * Loads an ICD-10 code list, adding diagnoses for new codes and updating those already loaded.
+     * @param input the list, streamed without being held in memory
+     * @param format the format of the list
+     * @return how many codes were added, changed, kept and skipped
+     * @throws InvalidInputException if the list is malformed
+     */
+    DiagnosisImportResultDTO importCodes(InputStream input, DiagnosisCodeReader.Format format);
+
+    /**
+     * Retrieves the coded diagnoses below a point of the ICD-10 hierarchy, in code order.
+     * @param prefix the start of the codes, such as {@code J4} for a block or {@code J45} for a category
+     * @param page the page number (0-based)
+     * @param size the number of items per page
+     * @return a page of diagnosis view DTOs
+     * @throws InvalidInputException if no ICD-10 code can start with the prefix
+     * @throws InvalidDTOException if pagination parameters are invalid
+     */
+    Page<DiagnosisViewDTO> getByCodePrefix(String prefix, int page, int size);
+
+    /**
+     * Counts the visits per ICD-10 chapter of their diagnosis.
+     * @return the chapters with their visit counts, most visits first
+     */
+    List<DiagnosisGroupVisitCountDTO> getVisitCountsByChapter();
+
+    /**
+     * Counts the visits per ICD-10 category of their diagnosis.
+     * @return the categories with their visit counts, most visits first
+     */
+    List<DiagnosisGroupVisitCountDTO> getVisitCountsByCategory();
+
+    /**
+     * Suggests diagnoses whose names match typed text, the most diagnosed first. Served from memory.
+     * @param query the text typed so far
+     * @param limit the maximum number of suggestions
+     * @return the matching diagnoses with their visit counts
+     */
+    List<SuggestionViewDTO> suggest(String query, int limit);
+
     /**
      * Retrieves patients diagnosed with a specific diagnosis.
      * @param diagnosisId the ID of the diagnosis
@@ -7,6 +7,7 @@ import nbu.cscb869.common.exceptions.InvalidInputException;
 import nbu.cscb869.data.dto.DoctorPatientCountDTO;
 import nbu.cscb869.data.dto.DoctorSickLeaveCountDTO;
 import nbu.cscb869.data.dto.DoctorVisitCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.models.Doctor;
 import nbu.cscb869.services.data.dtos.*;
 import org.springframework.data.domain.Page;
@@ -41,31 +42,29 @@ public interface DoctorService {
     DoctorViewDTO updateDoctor(DoctorUpdateDTO dto);
 
     /**
-     * Creates a new doctor with the provided DTO and optional image.
+     * Creates a new doctor with the provided DTO and optional image. The image is only staged here; it is uploaded in
+     * the background once the transaction has committed.
      * @param dto the DTO containing doctor creation data
      * @param image optional image file for the doctor
      * @return the created doctor's view DTO
      * @throws InvalidDTOException if the DTO is null or invalid
      * @throws InvalidDoctorException if the unique ID number already exists
      * @throws EntityNotFoundException if specialties are not found
-     * @throws InvalidInputException if image upload fails
-     * @deprecated Use {@link #createDoctor(DoctorCreateDTO)} and handle image separately.
+     * @throws InvalidInputException if the image cannot be staged
      */
-    @Deprecated
     DoctorViewDTO create(DoctorCreateDTO dto, MultipartFile image);
 
     /**
-     * Updates an existing doctor with the provided DTO and optional image.
+     * Updates an existing doctor with the provided DTO and optional image. The image is staged as in
+     * {@link #create(DoctorCreateDTO, MultipartFile)}.
      * @param dto the DTO containing updated doctor data
      * @param image optional image file for the doctor
      * @return the updated doctor's view DTO
      * @throws InvalidDTOException if the DTO or ID is null
      * @throws EntityNotFoundException if the doctor or specialties are not found
      * @throws InvalidDoctorException if the unique ID number is already in use
-     * @throws InvalidInputException if image upload fails
-     * @deprecated Use {@link #updateDoctor(DoctorUpdateDTO)} and handle image separately.
+     * @throws InvalidInputException if the image cannot be staged
      */
-    @Deprecated
     DoctorViewDTO update(DoctorUpdateDTO dto, MultipartFile image);
 
     /**
@@ -86,6 +85,15 @@ public interface DoctorService {
      */
     DoctorViewDTO getById(Long id);
 
+    /**
+     * Reads the version of a doctor's representation without loading it, for conditional requests.
+     * @param id the ID of the doctor
+     * @return the version of the doctor and its specialties
+     * @throws InvalidDTOException if the ID is null
+     * @throws EntityNotFoundException if the doctor is not found
+     */
+    ResourceVersionDTO getVersion(Long id);
+
     /**
      * Retrieves a doctor by unique ID number.
      * @param uniqueIdNumber the doctor's unique ID number
@@ -175,6 +183,15 @@ public interface DoctorService {
      */
     List<DoctorSickLeaveCountDTO> getDoctorsWithMostSickLeaves();
 
+    /**
+     * Retrieves the doctors with the highest sick leave counts from the in-memory rankings, or from the database before
+     * they are ready.
+     * @param limit the number of doctors, at most {@code app.rankings.max-limit}; null for that many
+     * @return a list of DTOs containing doctors and their sick leave counts, most sick leaves first
+     * @throws InvalidInputException if the limit is out of range
+     */
+    List<DoctorSickLeaveCountDTO> getDoctorsWithMostSickLeaves(Integer limit);
+
     /**
      * Retrieves a doctor by their Keycloak user ID.
      * @param keycloakId the user's unique Keycloak ID (sub)
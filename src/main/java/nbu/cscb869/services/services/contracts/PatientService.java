@@ -4,6 +4,7 @@ import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
 import nbu.cscb869.common.exceptions.InvalidPatientException;
 import nbu.cscb869.data.dto.DoctorPatientCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.services.data.dtos.PatientCreateDTO;
 import nbu.cscb869.services.data.dtos.PatientUpdateDTO;
 import nbu.cscb869.services.data.dtos.PatientViewDTO;
@@ -79,6 +80,16 @@ public interface PatientService {
      */
     PatientViewDTO getById(Long id);
 
+    /**
+     * Reads the version of a patient's representation without loading it, for conditional requests.
+     * Access is checked exactly as in {@link #getById(Long)}.
+     * @param id the ID of the patient.
+     * @return the version of the patient and its general practitioner.
+     * @throws InvalidDTOException if the ID is null.
+     * @throws EntityNotFoundException if the patient is not found.
+     */
+    ResourceVersionDTO getVersion(Long id);
+
     /**
      * Retrieves a patient by EGN.
      * @param egn the patient's EGN.
@@ -166,10 +177,11 @@ public interface PatientService {
     boolean isPatientAssociatedWithDoctor(Long patientId, Long doctorId);
 
     /**
-     * Retrieves a paginated list of patients who have been diagnosed with a specific diagnosis.
+     * Retrieves a paginated list of patients who have been diagnosed with a specific diagnosis. Each patient is listed
+     * once, however many visits they had with the diagnosis, and the total counts patients, not visits.
      *
      * @param diagnosisId The ID of the diagnosis.
-     * @param pageable    Pagination information.
+     * @param pageable    Pagination information; ordered by name and ID when it has no sort.
      * @return A Page of {@link PatientViewDTO} objects.
      */
     @PreAuthorize("hasRole('ADMIN')")
@@ -0,0 +1,41 @@
+package nbu.cscb869.services.services.contracts;
+
+import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.common.exceptions.ReportJobNotCompletedException;
+import nbu.cscb869.services.data.dtos.ReportJobDTO;
+import nbu.cscb869.services.data.dtos.ReportJobRequestDTO;
+
+/**
+ * Service interface for admin reports computed as background jobs, for reports too slow to wait for in a request.
+ */
+public interface ReportJobService {
+    /**
+     * Queues a report for computation. While an identical request is queued, running, or has a result that has not
+     * expired, its job is returned instead and the report is computed only once.
+     * @param request the report type and parameters
+     * @return the new or shared job
+     * @throws InvalidDTOException if the request or its report type is null
+     * @throws InvalidInputException if a parameter the report takes is missing or invalid
+     */
+    ReportJobDTO submit(ReportJobRequestDTO request);
+
+    /**
+     * Retrieves the state of a job.
+     * @param id the job ID
+     * @return the job
+     * @throws EntityNotFoundException if no job has the ID, including once it has expired
+     */
+    ReportJobDTO getJob(Long id);
+
+    /**
+     * Retrieves the result of a completed job: the JSON the matching {@code /api/reports} endpoint returns.
+     * @param id the job ID
+     * @param compressed whether to return the JSON gzip-compressed, as it is stored
+     * @return the JSON
+     * @throws EntityNotFoundException if no job has the ID, including once it has expired
+     * @throws ReportJobNotCompletedException if the job is still pending or has failed
+     */
+    byte[] getResult(Long id, boolean compressed);
+}
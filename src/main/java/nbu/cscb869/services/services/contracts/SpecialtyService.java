@@ -3,11 +3,14 @@ package nbu.cscb869.services.services.contracts;
 import nbu.cscb869.common.exceptions.EntityInUseException;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyCreateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyUpdateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import org.springframework.data.domain.Page;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -63,4 +66,20 @@ public interface SpecialtyService {
      * @return A CompletableFuture containing a page of specialty view DTOs.
      */
     CompletableFuture<Page<SpecialtyViewDTO>> getAll(int page, int size, String orderBy, boolean ascending);
+
+    /**
+     * Suggests specialties whose names match typed text, those of the most visits first. Served from memory.
+     *
+     * @param query The text typed so far.
+     * @param limit The maximum number of suggestions.
+     * @return The matching specialties with the number of visits to their doctors.
+     */
+    List<SuggestionViewDTO> suggest(String query, int limit);
+
+    /**
+     * Reads the version of the whole specialty collection, for conditional requests.
+     *
+     * @return A version that changes whenever a specialty is created, updated or deleted.
+     */
+    ResourceVersionDTO getCollectionVersion();
 }
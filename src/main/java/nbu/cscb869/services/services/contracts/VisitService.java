@@ -5,12 +5,14 @@ import nbu.cscb869.common.exceptions.InvalidDTOException;
 import nbu.cscb869.common.exceptions.InvalidInputException;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.MonthSickLeaveCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.services.data.dtos.*;
 import org.springframework.data.domain.Page;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -95,6 +97,17 @@ public interface VisitService {
     @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
     VisitViewDTO getById(Long id);
 
+    /**
+     * Reads the version of a visit's representation without loading it, for conditional requests.
+     * Access is checked exactly as in {@link #getById(Long)}.
+     * @param id the ID of the visit.
+     * @return the version of the visit and every row embedded in its view DTO.
+     * @throws InvalidDTOException if the ID is null.
+     * @throws EntityNotFoundException if the visit is not found.
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
+    ResourceVersionDTO getVersion(Long id);
+
     /**
      * Asynchronously retrieves all visits with pagination, sorting, and optional filtering.
      * @param page the page number (0-based).
@@ -177,10 +190,31 @@ public interface VisitService {
     @PreAuthorize("hasRole('ADMIN')")
     List<DiagnosisVisitCountDTO> getMostFrequentDiagnoses();
 
+    /**
+     * Retrieves the diagnoses with the most visits from the in-memory rankings, overall or in one month. A month before
+     * the months ranked in memory, or any request before the rankings are ready, is ranked by the database.
+     * @param month the month whose visits are counted, or null to count all visits
+     * @param limit the number of diagnoses, at most {@code app.rankings.max-limit}; null for that many
+     * @return a list of DTOs with diagnoses and their visit counts, most visits first
+     * @throws InvalidInputException if the limit is out of range
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    List<DiagnosisVisitCountDTO> getMostFrequentDiagnoses(YearMonth month, Integer limit);
+
     /**
      * Retrieves the month with the most issued sick leaves.
      * @return a list of DTOs with the month and the count of sick leaves.
      */
     @PreAuthorize("hasRole('ADMIN')")
     List<MonthSickLeaveCountDTO> getMostFrequentSickLeaveMonth();
+
+    /**
+     * Retrieves the months of the year with the most sick leaves starting in them, from the in-memory rankings, or from
+     * the database before they are ready.
+     * @param limit the number of months, at most {@code app.rankings.max-limit}; null for that many
+     * @return a list of DTOs with the month and the count of sick leaves, most sick leaves first
+     * @throws InvalidInputException if the limit is out of range
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    List<MonthSickLeaveCountDTO> getMostFrequentSickLeaveMonth(Integer limit);
 }
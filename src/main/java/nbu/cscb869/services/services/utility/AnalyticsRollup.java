@@ -0,0 +1,101 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.config.analytics.AnalyticsProperties;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.data.repositories.AnalyticsRepository;
+import nbu.cscb869.data.repositories.PatientReachRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps the visit fact tables up to date.
+ * <p>
+ * Writes to visits, sick leaves and patients only mark the days they affect, through the
+ * {@link nbu.cscb869.config.analytics.AnalyticsChangeRecorder}. Every {@code app.analytics.refresh-interval} the marked
+ * days are rebuilt from scratch, {@code app.analytics.refresh-batch-size} days per transaction, together with the
+ * monthly rollups of their months. The marks of a batch are locked while it is rebuilt: a write marking one of its days
+ * meanwhile waits and leaves the day marked for the next refresh, and several instances refreshing at the same time
+ * take turns. The rebuild reads at {@code READ COMMITTED}, so it sees every write committed before it started. The
+ * {@link PatientReachSketches} of the marked days' doctors and diagnoses are rebuilt in the same transaction.
+ */
+@Service
+public class AnalyticsRollup {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsRollup.class);
+
+    private final AnalyticsRepository analyticsRepository;
+    private final PatientReachSketches patientReachSketches;
+    private final AnalyticsProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter refreshedDays;
+
+    public AnalyticsRollup(AnalyticsRepository analyticsRepository, PatientReachSketches patientReachSketches,
+                           AnalyticsProperties properties, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.analyticsRepository = analyticsRepository;
+        this.patientReachSketches = patientReachSketches;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.refreshedDays = Counter.builder("medical.analytics.refreshed-days").register(meterRegistry);
+    }
+
+    /**
+     * Rebuilds the facts of all marked days, one batch after another.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.refresh-interval:PT1M}")
+    public void refresh() {
+        int batchSize = properties.getRefreshBatchSize();
+        int refreshed;
+        int total = 0;
+        do {
+            refreshed = refreshBatch(batchSize);
+            total += refreshed;
+        } while (refreshed == batchSize);
+        if (total > 0) {
+            logger.debug("Rebuilt the visit facts of {} day(s)", total);
+        }
+    }
+
+    /**
+     * Rebuilds the facts of the earliest marked days and of their months, and the patient reach sketches of the
+     * doctors and diagnoses the days had facts of before or have after.
+     * @param batchSize the most days to rebuild
+     * @return the number of days rebuilt
+     */
+    int refreshBatch(int batchSize) {
+        Integer refreshed = WorkloadContext.callWithin(Workload.BACKGROUND, () -> transactionTemplate.execute(status -> {
+            List<LocalDate> days = analyticsRepository.lockDirtyDays(batchSize);
+            if (days.isEmpty()) {
+                return 0;
+            }
+            Set<LocalDate> months = new TreeSet<>();
+            days.forEach(day -> months.add(day.withDayOfMonth(1)));
+            Set<PatientReachRepository.Key> reach = new HashSet<>(patientReachSketches.keysOf(days));
+            analyticsRepository.rebuildDays(days);
+            reach.addAll(patientReachSketches.keysOf(days));
+            analyticsRepository.rebuildMonths(months);
+            patientReachSketches.rebuild(reach);
+            analyticsRepository.clearDirtyDays(days);
+            return days.size();
+        }));
+        int count = refreshed == null ? 0 : refreshed;
+        refreshedDays.increment(count);
+        return count;
+    }
+}
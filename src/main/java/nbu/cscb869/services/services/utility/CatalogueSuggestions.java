@@ -0,0 +1,166 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.suggestions.SuggestionProperties;
+import nbu.cscb869.data.dto.CatalogueNameDTO;
+import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
+import nbu.cscb869.data.dto.SpecialtyVisitCountDTO;
+import nbu.cscb869.data.repositories.DiagnosisRepository;
+import nbu.cscb869.data.repositories.SpecialtyRepository;
+import nbu.cscb869.services.services.utility.SuggestionIndex.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Suggests diagnoses and specialties as their names are typed, from an in-memory {@link SuggestionIndex} per
+ * catalogue, ranking the matches by how many visits they have.
+ * <p>
+ * An index is never changed once published; a change builds a new one and replaces it, so suggestions are served
+ * without locks or database access. {@link #catalogueChanged} rebuilds a catalogue's index from its names once the
+ * changing transaction commits, keeping the last visit counts. The visit counts, and with them the names changed by
+ * other instances, are reloaded every {@code app.suggestions.refresh-interval}.
+ * <p>
+ * Lookups are timed in {@code medical.suggestions.latency}, tagged with the catalogue.
+ */
+@Service
+public class CatalogueSuggestions {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueSuggestions.class);
+
+    /**
+     * The catalogues that are suggested from.
+     */
+    public enum Catalogue {
+        DIAGNOSES,
+        SPECIALTIES
+    }
+
+    /** The names and visit counts an index was built from, kept to rebuild it when only one of them changes. */
+    private record State(List<CatalogueNameDTO> names, Map<Long, Long> visits, SuggestionIndex index) {
+
+        static State of(List<CatalogueNameDTO> names, Map<Long, Long> visits) {
+            return new State(names, visits, SuggestionIndex.of(names.stream()
+                    .map(name -> new Entry(name.getId(), name.getName(), visits.getOrDefault(name.getId(), 0L)))
+                    .toList()));
+        }
+    }
+
+    private final DiagnosisRepository diagnosisRepository;
+    private final SpecialtyRepository specialtyRepository;
+    private final SuggestionProperties properties;
+    private volatile Map<Catalogue, State> states = Map.of();
+    private final Map<Catalogue, Timer> timers = new EnumMap<>(Catalogue.class);
+
+    public CatalogueSuggestions(DiagnosisRepository diagnosisRepository, SpecialtyRepository specialtyRepository,
+                                SuggestionProperties properties, MeterRegistry meterRegistry) {
+        this.diagnosisRepository = diagnosisRepository;
+        this.specialtyRepository = specialtyRepository;
+        this.properties = properties;
+        for (Catalogue catalogue : Catalogue.values()) {
+            timers.put(catalogue, Timer.builder("medical.suggestions.latency")
+                    .tag("catalogue", catalogue.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Returns the entries of a catalogue that match typed text, the most visited first. Text of three or more
+     * characters matches anywhere in a name; shorter text matches the start of any word.
+     * @param catalogue the catalogue
+     * @param text the text typed so far
+     * @param limit the maximum number of entries, capped at {@code app.suggestions.max-results}
+     * @return the matching entries
+     */
+    public List<Entry> suggest(Catalogue catalogue, String text, int limit) {
+        long start = System.nanoTime();
+        List<Entry> entries = state(catalogue).index().top(text, Math.min(limit, properties.getMaxResults()));
+        timers.get(catalogue).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return entries;
+    }
+
+    /**
+     * Rebuilds the index of a catalogue from its current names once the caller's transaction commits, or at once
+     * without one.
+     * @param catalogue the catalogue whose entries were created, renamed or deleted
+     */
+    public void catalogueChanged(Catalogue catalogue) {
+        Runnable reload = () -> {
+            synchronized (this) {
+                State current = states.get(catalogue);
+                if (current != null) {
+                    publish(catalogue, State.of(readNames(catalogue), current.visits()));
+                }
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload.run();
+            }
+        });
+    }
+
+    /**
+     * Reloads the names and visit counts of every catalogue and replaces their indexes.
+     */
+    @Scheduled(fixedDelayString = "${app.suggestions.refresh-interval:PT10M}",
+            initialDelayString = "${app.suggestions.refresh-interval:PT10M}")
+    @Transactional(readOnly = true)
+    @DatabaseWorkload(Workload.BACKGROUND)
+    public void refresh() {
+        for (Catalogue catalogue : Catalogue.values()) {
+            load(catalogue);
+        }
+    }
+
+    private State state(Catalogue catalogue) {
+        State state = states.get(catalogue);
+        return state != null ? state : load(catalogue);
+    }
+
+    private State load(Catalogue catalogue) {
+        State loaded = State.of(readNames(catalogue), readVisits(catalogue));
+        publish(catalogue, loaded);
+        logger.debug("Indexed {} {} for suggestions", loaded.index().size(), catalogue.name().toLowerCase());
+        return loaded;
+    }
+
+    private synchronized void publish(Catalogue catalogue, State state) {
+        Map<Catalogue, State> updated = new HashMap<>(states);
+        updated.put(catalogue, state);
+        states = Map.copyOf(updated);
+    }
+
+    private List<CatalogueNameDTO> readNames(Catalogue catalogue) {
+        return catalogue == Catalogue.DIAGNOSES ? diagnosisRepository.findAllNames() : specialtyRepository.findAllNames();
+    }
+
+    private Map<Long, Long> readVisits(Catalogue catalogue) {
+        if (catalogue == Catalogue.DIAGNOSES) {
+            return diagnosisRepository.findMostFrequentDiagnoses().stream()
+                    .collect(Collectors.toUnmodifiableMap(DiagnosisVisitCountDTO::getDiagnosisId, DiagnosisVisitCountDTO::getVisitCount));
+        }
+        return specialtyRepository.findMostFrequentSpecialties().stream()
+                .collect(Collectors.toUnmodifiableMap(SpecialtyVisitCountDTO::getSpecialtyId, SpecialtyVisitCountDTO::getVisitCount));
+    }
+}
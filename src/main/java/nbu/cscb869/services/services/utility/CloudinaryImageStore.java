@@ -0,0 +1,101 @@
+package nbu.cscb869.services.services.utility;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.utils.ObjectUtils;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ImageStore} backed by Cloudinary. The SDK streams the file from disk, so the image is never held in memory.
+ * Deletions and listings use the Admin API, which is rate limited per hour, so images are deleted in batches of up
+ * to {@link #MAX_DELETE_BATCH} per call.
+ */
+public class CloudinaryImageStore implements ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudinaryImageStore.class);
+    private static final int LIST_PAGE_SIZE = 500;
+
+    private final Cloudinary cloudinary;
+
+    public CloudinaryImageStore(Cloudinary cloudinary) {
+        this.cloudinary = cloudinary;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String upload(Path file) throws IOException {
+        logger.info("Uploading image {} to Cloudinary", file.getFileName());
+        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.toFile(), ObjectUtils.asMap(
+                "resource_type", "image",
+                "folder", DOCTOR_FOLDER
+        ));
+        return (String) uploadResult.get("secure_url");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAll(Collection<String> publicIds) throws IOException {
+        if (publicIds.isEmpty()) {
+            return;
+        }
+        if (publicIds.size() > MAX_DELETE_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_DELETE_BATCH + " images can be deleted per call");
+        }
+        ApiResponse response = callApi(() -> cloudinary.api().deleteResources(publicIds, ObjectUtils.asMap(
+                "resource_type", "image",
+                "type", "upload"
+        )));
+        logger.info("Deleted {} image(s) from Cloudinary: {}", publicIds.size(), response.get("deleted"));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<StoredImage> list() throws IOException {
+        List<StoredImage> images = new ArrayList<>();
+        String cursor = null;
+        do {
+            Map<String, Object> options = new HashMap<>();
+            options.put("resource_type", "image");
+            options.put("type", "upload");
+            options.put("prefix", DOCTOR_FOLDER + "/");
+            options.put("max_results", LIST_PAGE_SIZE);
+            if (cursor != null) {
+                options.put("next_cursor", cursor);
+            }
+            ApiResponse page = callApi(() -> cloudinary.api().resources(options));
+            for (Object resource : (List<?>) page.get("resources")) {
+                Map<?, ?> attributes = (Map<?, ?>) resource;
+                images.add(new StoredImage((String) attributes.get("public_id"),
+                        Instant.parse((String) attributes.get("created_at"))));
+            }
+            cursor = (String) page.get("next_cursor");
+        } while (cursor != null);
+        return images;
+    }
+
+    private static ApiResponse callApi(ApiCall call) throws IOException {
+        try {
+            return call.execute();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ApiCall {
+        ApiResponse execute() throws Exception;
+    }
+}
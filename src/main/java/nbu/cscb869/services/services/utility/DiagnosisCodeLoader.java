@@ -0,0 +1,172 @@
+package nbu.cscb869.services.services.utility;
+
+import nbu.cscb869.common.validation.ValidationConfig;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.diagnoses.DiagnosisCodeProperties;
+import nbu.cscb869.data.dto.DiagnosisCodeDTO;
+import nbu.cscb869.data.repositories.DiagnosisRepository;
+import nbu.cscb869.services.data.dtos.DiagnosisImportResultDTO;
+import nbu.cscb869.services.data.events.DiagnosisCodesLoaded;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions.Catalogue;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader.Format;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Loads an ICD-10 code list into the diagnoses, such as the full catalogue of about 70,000 codes.
+ * <p>
+ * The list is streamed and written {@code app.diagnosis-codes.batch-size} codes per upsert statement, in one
+ * transaction, without creating entities. Loading the same list again changes nothing, and a newer edition updates the
+ * titles of the codes it shares with the loaded one. Every diagnosis is read once up front, so that the conflicts the
+ * unique names would otherwise fail a statement on are resolved in memory: a diagnosis entered by name is given the
+ * code with that title, and a title already used by another code is loaded with its code appended. Titles longer than
+ * a diagnosis name are cut short, and kept whole in the description if the list has none.
+ */
+@Service
+public class DiagnosisCodeLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosisCodeLoader.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+
+    private final DiagnosisRepository diagnosisRepository;
+    private final DiagnosisCodeProperties properties;
+    private final CatalogueSuggestions catalogueSuggestions;
+    private final DomainEventBus domainEventBus;
+
+    public DiagnosisCodeLoader(DiagnosisRepository diagnosisRepository, DiagnosisCodeProperties properties,
+                               CatalogueSuggestions catalogueSuggestions, DomainEventBus domainEventBus) {
+        this.diagnosisRepository = diagnosisRepository;
+        this.properties = properties;
+        this.catalogueSuggestions = catalogueSuggestions;
+        this.domainEventBus = domainEventBus;
+    }
+
+    /**
+     * Loads a code list.
+     * @param input the list; not closed
+     * @param format its format
+     * @return how many codes were added, changed, kept and skipped
+     * @throws nbu.cscb869.common.exceptions.InvalidInputException if the list is malformed; nothing is loaded then
+     */
+    @Transactional
+    @DatabaseWorkload(Workload.BACKGROUND)
+    public DiagnosisImportResultDTO load(InputStream input, Format format) {
+        long start = System.nanoTime();
+        Run run = new Run(diagnosisRepository.findAllCodes());
+        DiagnosisCodeReader.read(input, format, run::add);
+        run.flush();
+        DiagnosisImportResultDTO result = run.result;
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+
+        if (result.getInserted() > 0 || result.getUpdated() > 0) {
+            catalogueSuggestions.catalogueChanged(Catalogue.DIAGNOSES);
+            // The upserts bypass the entity listeners, so the diagnoses' readers are told with an event instead.
+            domainEventBus.publish(new DiagnosisCodesLoaded(result.getInserted(), result.getUpdated(), Instant.now()));
+        }
+        logger.info("Loaded {} ICD-10 code(s) in {} ms: {} inserted, {} updated, {} unchanged, {} renamed, {} rejected",
+                result.getRead(), result.getElapsedMillis(), result.getInserted(), result.getUpdated(),
+                result.getUnchanged(), result.getRenamed(), result.getRejected());
+        return result;
+    }
+
+    /** The state of one load: the diagnoses as they will be once the pending batch is written. */
+    private final class Run {
+        private final Map<String, DiagnosisCodeDTO> byCode = new HashMap<>();
+        /** The code of the diagnosis holding each name, by {@link #key}; empty for a diagnosis without a code. */
+        private final Map<String, String> owners = new HashMap<>();
+        private final Set<String> seen = new HashSet<>();
+        private final List<DiagnosisCodeDTO> batch = new ArrayList<>();
+        private final DiagnosisImportResultDTO result = new DiagnosisImportResultDTO();
+
+        Run(List<DiagnosisCodeDTO> existing) {
+            for (DiagnosisCodeDTO diagnosis : existing) {
+                owners.put(key(diagnosis.getName()), diagnosis.getCode() != null ? diagnosis.getCode() : "");
+                if (diagnosis.getCode() != null) {
+                    byCode.put(diagnosis.getCode(), diagnosis);
+                }
+            }
+        }
+
+        void add(Row row) {
+            result.setRead(result.getRead() + 1);
+            String code = DiagnosisCodes.normalize(row.code());
+            String title = row.title() == null ? "" : row.title().trim().replaceAll("\\s+", " ");
+            if (code == null || title.isEmpty() || !seen.add(code)) {
+                result.setRejected(result.getRejected() + 1);
+                return;
+            }
+            DiagnosisCodeDTO existing = byCode.get(code);
+            String name = fit(title, "");
+            String owner = owners.get(key(name));
+            // A diagnosis entered by name can take the code, unless the code is already another diagnosis's.
+            if (owner != null && !owner.equals(code) && (!owner.isEmpty() || existing != null)) {
+                name = fit(title, " (" + code + ")");
+                owner = owners.get(key(name));
+                if (owner != null && !owner.equals(code)) {
+                    result.setRejected(result.getRejected() + 1);
+                    return;
+                }
+                result.setRenamed(result.getRenamed() + 1);
+            }
+            String description = row.description() != null ? cut(row.description().trim(), ValidationConfig.DESCRIPTION_MAX_LENGTH)
+                    : title.length() > ValidationConfig.DIAGNOSIS_NAME_MAX_LENGTH ? cut(title, ValidationConfig.DESCRIPTION_MAX_LENGTH) : null;
+            DiagnosisCodeDTO loaded = new DiagnosisCodeDTO(code, DiagnosisCodes.category(code), DiagnosisCodes.chapter(code), name, description);
+
+            if (existing == null) {
+                result.setInserted(result.getInserted() + 1);
+            } else if (Objects.equals(existing.getName(), name)
+                    && (description == null || description.equals(existing.getDescription()))) {
+                result.setUnchanged(result.getUnchanged() + 1);
+            } else {
+                result.setUpdated(result.getUpdated() + 1);
+            }
+            if (existing != null && !key(existing.getName()).equals(key(name))) {
+                owners.remove(key(existing.getName()));
+            }
+            owners.put(key(name), code);
+            byCode.put(code, loaded);
+            batch.add(loaded);
+            if (batch.size() >= properties.getBatchSize()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                diagnosisRepository.upsertCoded(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static String fit(String title, String suffix) {
+        int max = ValidationConfig.DIAGNOSIS_NAME_MAX_LENGTH;
+        return title.length() + suffix.length() <= max ? title + suffix : title.substring(0, max - suffix.length()).trim() + suffix;
+    }
+
+    private static String cut(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max);
+    }
+
+    /** Compares names the way the unique name column does: ignoring case and accents. */
+    private static String key(String name) {
+        return MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
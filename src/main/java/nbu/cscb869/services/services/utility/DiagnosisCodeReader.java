@@ -0,0 +1,205 @@
+package nbu.cscb869.services.services.utility;
+
+import nbu.cscb869.common.exceptions.InvalidInputException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams the entries of an ICD-10 code list, one at a time, so that a list of any size is read in constant memory.
+ * <p>
+ * A CSV list has the code, the title and optionally a description in its first three columns, with an optional header
+ * row. An XML list is either the ICD-10-CM tabular list, whose {@code diag} elements hold a {@code name} and a
+ * {@code desc}, or a WHO ClaML file, whose category {@code Class} elements hold a preferred {@code Rubric} label.
+ * Codes are passed on as written; checking them is up to the caller.
+ */
+public final class DiagnosisCodeReader {
+
+    /**
+     * The formats a code list can be read from.
+     */
+    public enum Format {
+        CSV,
+        XML
+    }
+
+    /**
+     * An entry of a code list.
+     * @param code the code as written
+     * @param title the title of the code
+     * @param description a longer description; null if the list has none
+     */
+    public record Row(String code, String title, String description) {
+    }
+
+    private DiagnosisCodeReader() {
+    }
+
+    /**
+     * Reads a code list.
+     * @param input the list; not closed
+     * @param format its format
+     * @param rows receives each entry in list order
+     * @throws InvalidInputException if the list is malformed
+     */
+    public static void read(InputStream input, Format format, Consumer<Row> rows) {
+        try {
+            if (format == Format.CSV) {
+                readCsv(input, rows);
+            } else {
+                readXml(input, rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new InvalidInputException("Malformed ICD-10 XML: " + e.getMessage());
+        }
+    }
+
+    private static void readCsv(InputStream input, Consumer<Row> rows) throws IOException {
+        PushbackReader reader = new PushbackReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        int first = reader.read();
+        if (first != -1 && first != '\uFEFF') {
+            reader.unread(first);
+        }
+        boolean header = true;
+        List<String> fields;
+        while ((fields = nextRecord(reader)) != null) {
+            String code = fields.get(0).trim();
+            if (header && DiagnosisCodes.normalize(code) == null) {
+                header = false;
+                continue;
+            }
+            header = false;
+            if (code.isEmpty() && fields.size() == 1) {
+                continue;
+            }
+            String title = fields.size() > 1 ? fields.get(1).trim() : "";
+            String description = fields.size() > 2 && !fields.get(2).isBlank() ? fields.get(2).trim() : null;
+            rows.accept(new Row(code, title, description));
+        }
+    }
+
+    /** Reads one RFC 4180 record: comma-separated fields, optionally quoted, where quotes are doubled. */
+    private static List<String> nextRecord(PushbackReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                if (quoted) {
+                    throw new InvalidInputException("Malformed ICD-10 CSV: unterminated quoted field.");
+                }
+                if (!any) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            any = true;
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                } else {
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.unread(next);
+                        }
+                    }
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private static void readXml(InputStream input, Consumer<Row> rows) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader xml = factory.createXMLStreamReader(input, StandardCharsets.UTF_8.name());
+        try {
+            Deque<String> path = new ArrayDeque<>();
+            String code = null;
+            boolean emitted = true;
+            boolean preferred = false;
+            StringBuilder text = null;
+            int textDepth = 0;
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        String parent = path.peek();
+                        String name = xml.getLocalName();
+                        path.push(name);
+                        if (name.equals("diag")) {
+                            code = null;
+                            emitted = false;
+                        } else if (name.equals("Class")) {
+                            String kind = xml.getAttributeValue(null, "kind");
+                            code = xml.getAttributeValue(null, "code");
+                            emitted = kind != null && !kind.equals("category");
+                        } else if (name.equals("Rubric")) {
+                            preferred = "preferred".equals(xml.getAttributeValue(null, "kind"));
+                        }
+                        boolean field = "diag".equals(parent) && (name.equals("name") || name.equals("desc"))
+                                || "Rubric".equals(parent) && preferred && name.equals("Label");
+                        if (text == null && field) {
+                            text = new StringBuilder();
+                            textDepth = path.size();
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                        if (text != null) {
+                            text.append(xml.getText());
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        String name = path.pop();
+                        if (text != null && path.size() == textDepth - 1) {
+                            String value = text.toString().trim().replaceAll("\\s+", " ");
+                            text = null;
+                            if (name.equals("name")) {
+                                code = value;
+                            } else if (code != null && !emitted) {
+                                rows.accept(new Row(code, value, null));
+                                emitted = true;
+                            }
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+}
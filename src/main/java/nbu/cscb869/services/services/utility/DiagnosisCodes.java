@@ -0,0 +1,86 @@
+package nbu.cscb869.services.services.utility;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Parses ICD-10 codes and places them in the classification.
+ * <p>
+ * Codes are stored upper case with a dot after the three-character category, such as {@code J45.9}, whether they
+ * were written {@code j45.9}, {@code J459} or with the dagger and asterisk marks of the WHO tabular list. Ranges such
+ * as {@code J40-J47} name blocks rather than codes and are not accepted. A category falls in the chapter whose first
+ * category is the nearest one at or before it, which covers both the WHO edition and ICD-10-CM.
+ */
+public final class DiagnosisCodes {
+
+    private static final Pattern CODE = Pattern.compile("[A-Z][0-9][0-9A-Z][0-9A-Z]{0,4}");
+    private static final Pattern PREFIX = Pattern.compile("[A-Z][0-9A-Z]{0,6}");
+    private static final Pattern MARKS = Pattern.compile("[.\\s*+†]");
+
+    private static final TreeMap<String, String> CHAPTERS = new TreeMap<>(Map.ofEntries(
+            Map.entry("A00", "I"), Map.entry("C00", "II"), Map.entry("D50", "III"), Map.entry("E00", "IV"),
+            Map.entry("F00", "V"), Map.entry("G00", "VI"), Map.entry("H00", "VII"), Map.entry("H60", "VIII"),
+            Map.entry("I00", "IX"), Map.entry("J00", "X"), Map.entry("K00", "XI"), Map.entry("L00", "XII"),
+            Map.entry("M00", "XIII"), Map.entry("N00", "XIV"), Map.entry("O00", "XV"), Map.entry("P00", "XVI"),
+            Map.entry("Q00", "XVII"), Map.entry("R00", "XVIII"), Map.entry("S00", "XIX"), Map.entry("U00", "XXII"),
+            Map.entry("V00", "XX"), Map.entry("Z00", "XXI")));
+
+    private DiagnosisCodes() {
+    }
+
+    /**
+     * Returns a code in its stored form.
+     * @param code the code as written
+     * @return the code, such as {@code J45.9}; null if it is not an ICD-10 code
+     */
+    public static String normalize(String code) {
+        if (code == null || code.indexOf('-') >= 0) {
+            return null;
+        }
+        String compact = MARKS.matcher(code.toUpperCase(Locale.ROOT)).replaceAll("");
+        if (!CODE.matcher(compact).matches()) {
+            return null;
+        }
+        return dotted(compact);
+    }
+
+    /**
+     * Returns the start of a code in its stored form, for looking up every code below it.
+     * @param prefix the prefix as typed, such as {@code j4} or {@code J45.}
+     * @return the prefix, such as {@code J4} or {@code J45}; null if no code starts with it
+     */
+    public static String normalizePrefix(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        String compact = MARKS.matcher(prefix.toUpperCase(Locale.ROOT)).replaceAll("");
+        if (!PREFIX.matcher(compact).matches()) {
+            return null;
+        }
+        return dotted(compact);
+    }
+
+    /**
+     * Returns the category of a stored code.
+     * @param code the code, as returned by {@link #normalize}
+     * @return its first three characters
+     */
+    public static String category(String code) {
+        return code.substring(0, 3);
+    }
+
+    /**
+     * Returns the chapter of a stored code.
+     * @param code the code, as returned by {@link #normalize}
+     * @return the chapter as a Roman numeral
+     */
+    public static String chapter(String code) {
+        return CHAPTERS.floorEntry(category(code)).getValue();
+    }
+
+    private static String dotted(String compact) {
+        return compact.length() > 3 ? compact.substring(0, 3) + "." + compact.substring(3) : compact;
+    }
+}
@@ -0,0 +1,344 @@
+package nbu.cscb869.services.services.utility;
+
+import nbu.cscb869.common.exceptions.ImageProcessingException;
+import nbu.cscb869.common.validation.ErrorMessages;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.enums.ImageStatus;
+import nbu.cscb869.data.repositories.DoctorRepository;
+import nbu.cscb869.services.data.events.DoctorImageChanged;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Moves doctor profile images from the request to the {@link ImageStore} without keeping a request thread or a
+ * database connection busy while the store is called.
+ * <ol>
+ *     <li>The request streams the upload to a local staging file and the doctor is committed with a
+ *     {@link ImageStatus#PENDING} image.</li>
+ *     <li>After the commit a worker generates the list-page thumbnail and uploads the staging file, retrying with
+ *     exponential backoff.</li>
+ *     <li>The worker records the URL in a short transaction of its own and deletes the staging file. The update
+ *     bypasses the entity listeners, so it is announced as a {@link DoctorImageChanged} event.</li>
+ * </ol>
+ * Images that are replaced or removed are queued on the {@link ImageDeletionQueue} in the same transaction that
+ * drops their URL.
+ * Uploads that cannot be finished (the store is down, the queue is full or the application stopped) stay pending
+ * together with their staging file and are resumed by {@link #resumePendingUploads()}.
+ */
+@Service
+public class DoctorImagePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorImagePipeline.class);
+    private static final long TRANSFER_CHUNK_SIZE = 1024 * 1024;
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("\\.[A-Za-z0-9]{1,5}");
+
+    private final DoctorRepository doctorRepository;
+    private final ImageStore imageStore;
+    private final ImageDeletionQueue imageDeletionQueue;
+    private final ImagePipelineProperties properties;
+    private final TaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final RetryTemplate retryTemplate;
+    private final DomainEventBus domainEventBus;
+    private final Set<String> uploadsInFlight = ConcurrentHashMap.newKeySet();
+
+    public DoctorImagePipeline(DoctorRepository doctorRepository, ImageStore imageStore,
+                               ImageDeletionQueue imageDeletionQueue, ImagePipelineProperties properties,
+                               PlatformTransactionManager transactionManager,
+                               @Qualifier("imageUploadExecutor") TaskExecutor executor,
+                               DomainEventBus domainEventBus) {
+        this.doctorRepository = doctorRepository;
+        this.imageStore = imageStore;
+        this.imageDeletionQueue = imageDeletionQueue;
+        this.properties = properties;
+        this.executor = executor;
+        this.domainEventBus = domainEventBus;
+        // Uploads may be started from a transaction's completion callback, where a joined transaction would be stale.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager, transactionTemplate);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.retryTemplate = RetryTemplate.builder()
+                .maxAttempts(properties.getUploadAttempts())
+                .exponentialBackoff(properties.getUploadBackoff(), 2, properties.getUploadBackoff().multipliedBy(30))
+                .retryOn(IOException.class)
+                .build();
+    }
+
+    /**
+     * Streams an uploaded image to a staging file and marks the doctor's image as pending.
+     * The upload to the image store starts once the current transaction has committed; if it rolls back, the
+     * staging file is discarded. The doctor's current image stays visible until the new one has been uploaded.
+     * @param doctor the doctor the image belongs to; its ID may still be unassigned
+     * @param image the uploaded image
+     * @throws ImageProcessingException if the image is empty, too large, not an image or cannot be staged
+     */
+    public void stage(Doctor doctor, MultipartFile image) {
+        validate(image);
+        Path stagingFile;
+        try {
+            stagingFile = writeStagingFile(image);
+        } catch (IOException e) {
+            logger.error("Failed to stage image {}: {}", image.getOriginalFilename(), e.getMessage(), e);
+            throw new ImageProcessingException(ErrorMessages.IMAGE_UPLOAD_FAILED, e, e.getMessage());
+        }
+
+        String previousStagingPath = doctor.getImageStagingPath();
+        String replacedImageUrl = doctor.getImageUrl();
+        doctor.setImageStatus(ImageStatus.PENDING);
+        doctor.setImageStagingPath(stagingFile.toString());
+        logger.debug("Staged image {} as {}", image.getOriginalFilename(), stagingFile);
+
+        onCompletion(
+                () -> {
+                    deleteQuietly(previousStagingPath);
+                    submit(new UploadTask(doctor.getId(), stagingFile.toString(), replacedImageUrl));
+                },
+                () -> deleteQuietly(stagingFile.toString()));
+    }
+
+    /**
+     * Removes the doctor's image, including a pending one. The stored image is queued for deletion in the current
+     * transaction; the staging file and the thumbnail are deleted once it has committed.
+     * @param doctor the doctor whose image is removed
+     */
+    public void remove(Doctor doctor) {
+        Long doctorId = doctor.getId();
+        String imageUrl = doctor.getImageUrl();
+        String stagingPath = doctor.getImageStagingPath();
+        doctor.setImageUrl(null);
+        doctor.setImageStatus(ImageStatus.NONE);
+        doctor.setImageStagingPath(null);
+        if (imageUrl != null) {
+            imageDeletionQueue.enqueue(imageUrl);
+        }
+
+        onCompletion(
+                () -> {
+                    deleteQuietly(stagingPath);
+                    deleteQuietly(thumbnailPath(doctorId).toString());
+                },
+                () -> { });
+    }
+
+    /**
+     * Returns the locally generated thumbnail of a doctor's image.
+     * @param doctorId the doctor ID
+     * @return the thumbnail file, or empty if none has been generated on this instance
+     */
+    public Optional<Path> findThumbnail(Long doctorId) {
+        Path thumbnail = thumbnailPath(doctorId);
+        return Files.isRegularFile(thumbnail) ? Optional.of(thumbnail) : Optional.empty();
+    }
+
+    /**
+     * Queues the uploads of all pending images that are not being uploaded already. Runs at startup and then
+     * periodically, so that uploads interrupted by a restart, a full queue or a long store outage are finished.
+     */
+    @Scheduled(fixedDelayString = "${app.images.resume-interval:PT5M}")
+    public void resumePendingUploads() {
+        List<Doctor> pending = inBackgroundTransaction(readOnlyTransactionTemplate,
+                () -> doctorRepository.findByImageStatus(ImageStatus.PENDING));
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        logger.info("Resuming {} pending image upload(s)", pending.size());
+        pending.stream()
+                .filter(doctor -> doctor.getImageStagingPath() != null)
+                .forEach(doctor -> submit(new UploadTask(doctor.getId(), doctor.getImageStagingPath(), doctor.getImageUrl())));
+    }
+
+    /**
+     * Uploads a staged image and records the result. Runs on the upload executor, outside any transaction.
+     * @param task the upload to perform
+     */
+    void upload(UploadTask task) {
+        Path stagingFile = Path.of(task.stagingPath());
+        try {
+            if (!Files.isRegularFile(stagingFile)) {
+                logger.error("Staging file {} of doctor {} is missing; marking the image as failed", stagingFile, task.doctorId());
+                markFailed(task);
+                return;
+            }
+
+            writeThumbnail(task.doctorId(), stagingFile);
+            String imageUrl = retryTemplate.execute((RetryCallback<String, IOException>) context -> {
+                if (context.getRetryCount() > 0) {
+                    logger.warn("Retrying upload of image for doctor {} (attempt {})", task.doctorId(), context.getRetryCount() + 1);
+                }
+                return imageStore.upload(stagingFile);
+            });
+
+            inBackgroundTransaction(transactionTemplate, () -> {
+                if (doctorRepository.completeImageUpload(task.doctorId(), task.stagingPath(), imageUrl) > 0) {
+                    logger.info("Uploaded image for doctor {}: {}", task.doctorId(), imageUrl);
+                    domainEventBus.publish(new DoctorImageChanged(task.doctorId(), ImageStatus.READY, Instant.now()));
+                    if (task.replacedImageUrl() != null) {
+                        imageDeletionQueue.enqueue(task.replacedImageUrl());
+                    }
+                } else {
+                    logger.info("Image of doctor {} changed during the upload; discarding {}", task.doctorId(), imageUrl);
+                    imageDeletionQueue.enqueue(imageUrl);
+                }
+                return null;
+            });
+            deleteQuietly(task.stagingPath());
+        } catch (IOException e) {
+            logger.warn("Upload of image for doctor {} failed after {} attempts, leaving it pending: {}",
+                    task.doctorId(), properties.getUploadAttempts(), e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Upload of image for doctor {} was rejected: {}", task.doctorId(), e.getMessage(), e);
+            markFailed(task);
+            deleteQuietly(task.stagingPath());
+        } finally {
+            uploadsInFlight.remove(task.stagingPath());
+        }
+    }
+
+    private void markFailed(UploadTask task) {
+        inBackgroundTransaction(transactionTemplate, () -> {
+            if (doctorRepository.failImageUpload(task.doctorId(), task.stagingPath()) > 0) {
+                domainEventBus.publish(new DoctorImageChanged(task.doctorId(), ImageStatus.FAILED, Instant.now()));
+            }
+            return null;
+        });
+    }
+
+    private void submit(UploadTask task) {
+        if (!uploadsInFlight.add(task.stagingPath())) {
+            return;
+        }
+        try {
+            executor.execute(() -> upload(task));
+        } catch (TaskRejectedException e) {
+            uploadsInFlight.remove(task.stagingPath());
+            logger.warn("Image upload queue is full; the image of doctor {} stays pending", task.doctorId());
+        }
+    }
+
+    private void validate(MultipartFile image) {
+        if (image == null || image.isEmpty()) {
+            throw new ImageProcessingException(ErrorMessages.IMAGE_FILE_NULL_OR_EMPTY);
+        }
+        if (image.getSize() > properties.getMaxFileSize().toBytes()) {
+            throw new ImageProcessingException(ErrorMessages.IMAGE_FILE_SIZE_EXCEEDED, properties.getMaxFileSize().toMegabytes());
+        }
+        if (image.getContentType() == null || !image.getContentType().startsWith("image/")) {
+            throw new ImageProcessingException(ErrorMessages.IMAGE_FILE_INVALID_TYPE);
+        }
+    }
+
+    private Path writeStagingFile(MultipartFile image) throws IOException {
+        Path stagingDir = Files.createDirectories(properties.getStagingDir());
+        Path stagingFile = Files.createTempFile(stagingDir, "doctor-", extensionOf(image.getOriginalFilename()));
+        try (ReadableByteChannel in = Channels.newChannel(image.getInputStream());
+             FileChannel out = FileChannel.open(stagingFile, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK_SIZE)) > 0) {
+                position += transferred;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(stagingFile);
+            throw e;
+        }
+        return stagingFile;
+    }
+
+    private void writeThumbnail(Long doctorId, Path image) {
+        try {
+            if (!ImageResizer.resize(image, thumbnailPath(doctorId), properties.getThumbnailSize())) {
+                logger.warn("No thumbnail for doctor {}: unsupported image format", doctorId);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to generate thumbnail for doctor {}: {}", doctorId, e.getMessage());
+        }
+    }
+
+    private Path thumbnailPath(Long doctorId) {
+        return properties.getThumbnailDir().resolve("doctor-" + doctorId + "." + ImageResizer.FORMAT);
+    }
+
+    private static <T> T inBackgroundTransaction(TransactionTemplate template, Supplier<T> work) {
+        return WorkloadContext.callWithin(Workload.BACKGROUND, () -> template.execute(status -> work.get()));
+    }
+
+    private static void onCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    private static void deleteQuietly(String path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Path.of(path));
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        String extension = dot >= 0 ? filename.substring(dot) : "";
+        return SAFE_EXTENSION.matcher(extension).matches() ? extension.toLowerCase() : "";
+    }
+
+    /**
+     * A staged image waiting to be uploaded.
+     * @param doctorId the doctor the image belongs to
+     * @param stagingPath the staging file
+     * @param replacedImageUrl the stored image the upload replaces, deleted once the upload is recorded; may be null
+     */
+    record UploadTask(Long doctorId, String stagingPath, String replacedImageUrl) {
+    }
+}
@@ -0,0 +1,328 @@
+package nbu.cscb869.services.services.utility;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.events.DomainEventProperties;
+import nbu.cscb869.data.models.DomainEventRecord;
+import nbu.cscb869.data.repositories.DomainEventRecordRepository;
+import nbu.cscb869.services.data.events.DomainEvent;
+import nbu.cscb869.services.services.utility.contracts.DomainEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process bus for {@link DomainEvent}s. Services {@link #publish} events from their write paths; the events are
+ * delivered to every {@link DomainEventListener} bean once the publishing transaction has committed, and never if it
+ * rolls back.
+ * <p>
+ * Delivery is asynchronous, on a fixed number of lanes with one thread and a bounded queue each. All events of an
+ * aggregate go to the same lane, so listeners see them in the order they were published. A full lane pushes back on
+ * its publishers: a publisher waits up to {@code app.events.publish-timeout} for room, and then delivers the oldest
+ * queued events of the lane itself until its own fits, which keeps the lane's order. Events are handed over after
+ * commit, while the request still holds its pooled connection, so neither wait is unbounded: if the lane's thread is
+ * stuck in a listener for another timeout, the event is dropped from live delivery and counted. It is still in the
+ * log, from which it can be replayed.
+ * <p>
+ * With {@code app.events.log.enabled}, the default, every event is also written to {@code domain_events} in the
+ * publishing transaction, so a projection that missed events, or is built from scratch, can {@link #replay} them.
+ * <p>
+ * The bus carries business events to consumers that may lag behind the write, such as the live dashboards. Projections
+ * that must change in the writing transaction, or be ordered against its commit, such as the change feed's tombstones,
+ * the analytics marks and the rankings, are fed by Hibernate listeners on the entities instead.
+ */
+@Service
+public class DomainEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventBus.class);
+
+    private final DomainEventProperties properties;
+    private final ObjectProvider<DomainEventListener> listeners;
+    private final DomainEventRecordRepository domainEventRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final List<Lane> lanes = new ArrayList<>();
+    private final Counter deliveredByPublisher;
+    private final Counter dropped;
+    private final Counter listenerFailures;
+    private volatile boolean running = true;
+
+    public DomainEventBus(DomainEventProperties properties, ObjectProvider<DomainEventListener> listeners,
+                          DomainEventRecordRepository domainEventRecordRepository, ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.listeners = listeners;
+        this.domainEventRecordRepository = domainEventRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager, transactionTemplate);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.deliveredByPublisher = Counter.builder("medical.events.delivered.by-publisher").register(meterRegistry);
+        this.dropped = Counter.builder("medical.events.dropped").register(meterRegistry);
+        this.listenerFailures = Counter.builder("medical.events.listener.failures").register(meterRegistry);
+        for (int i = 0; i < Math.max(1, properties.getLanes()); i++) {
+            lanes.add(new Lane(i, properties.getQueueCapacity()));
+        }
+        Gauge.builder("medical.events.queued", this, DomainEventBus::getQueuedEvents).register(meterRegistry);
+    }
+
+    /**
+     * Publishes an event. Joins the caller's transaction, if any: the event is logged in it and delivered once it
+     * commits. Without a transaction the event is delivered immediately.
+     * @param event the event
+     */
+    public void publish(DomainEvent event) {
+        Counter.builder("medical.events.published").tag("type", event.type()).register(meterRegistry).increment();
+        if (properties.getLog().isEnabled()) {
+            domainEventRecordRepository.save(toRecord(event));
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(event);
+            }
+        });
+    }
+
+    /**
+     * Delivers logged events to a single listener, synchronously and in log order, e.g. to rebuild a projection.
+     * @param afterId the ID of the last logged event the listener has already seen; 0 to replay the whole log
+     * @param listener the listener
+     * @return the ID of the last replayed event, or {@code afterId} if there were none
+     * @throws IllegalStateException if the event log is disabled
+     */
+    public long replay(long afterId, DomainEventListener listener) {
+        if (!properties.getLog().isEnabled()) {
+            throw new IllegalStateException("The domain event log is disabled; set app.events.log.enabled to replay events.");
+        }
+        int batchSize = properties.getLog().getReplayBatchSize();
+        long position = afterId;
+        List<DomainEventRecord> batch;
+        do {
+            long from = position;
+            batch = inBackgroundTransaction(readOnlyTransactionTemplate,
+                    () -> domainEventRecordRepository.findAfter(from, PageRequest.of(0, batchSize)));
+            for (DomainEventRecord record : batch) {
+                DomainEvent event = fromRecord(record);
+                if (event != null) {
+                    listener.onEvent(event);
+                }
+                position = record.getId();
+            }
+        } while (batch.size() == batchSize);
+        logger.info("Replayed domain events {} to {}", afterId + 1, position);
+        return position;
+    }
+
+    /**
+     * Deletes logged events older than {@code app.events.log.retention}.
+     */
+    @Scheduled(fixedDelayString = "${app.events.log.purge-interval:PT6H}", initialDelayString = "PT5M")
+    public void purgeLog() {
+        if (!properties.getLog().isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getLog().getRetention());
+        int purged = inBackgroundTransaction(transactionTemplate,
+                () -> domainEventRecordRepository.deleteCreatedBefore(cutoff));
+        if (purged > 0) {
+            logger.info("Purged {} domain event(s) logged before {}", purged, cutoff);
+        }
+    }
+
+    /**
+     * Returns the number of events waiting for delivery on all lanes.
+     * @return the queued events
+     */
+    public int getQueuedEvents() {
+        return lanes.stream().mapToInt(lane -> lane.queue.size()).sum();
+    }
+
+    /**
+     * Stops accepting events and waits up to {@code app.events.shutdown-timeout} for the queued ones to be delivered.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (lane.thread.isAlive()) {
+                logger.warn("Discarding {} undelivered domain event(s) on lane {}", lane.queue.size(), lane.index);
+                lane.thread.interrupt();
+            }
+        }
+    }
+
+    private void enqueue(DomainEvent event) {
+        Lane lane = lanes.get(Math.floorMod(Objects.hash(event.aggregateType(), event.aggregateId()), lanes.size()));
+        long timeout = properties.getPublishTimeout().toNanos();
+        try {
+            if (running && lane.queue.offer(event, timeout, TimeUnit.NANOSECONDS)) {
+                LockSupport.unpark(lane.thread);
+                return;
+            }
+            if (running && lane.deliverOnPublisher(event, timeout)) {
+                deliveredByPublisher.increment();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        logger.warn("Dropped {} of {} {} from live delivery: lane {} is {}", event.type(), event.aggregateType(),
+                event.aggregateId(), lane.index, running ? "full and busy" : "stopped");
+    }
+
+    private void deliver(DomainEvent event) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                WorkloadContext.callWithin(Workload.BACKGROUND, () -> {
+                    listener.onEvent(event);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                listenerFailures.increment();
+                logger.error("Listener {} failed to handle {} of {} {}", listener.getClass().getSimpleName(),
+                        event.type(), event.aggregateType(), event.aggregateId(), e);
+            }
+        });
+    }
+
+    private DomainEventRecord toRecord(DomainEvent event) {
+        try {
+            return DomainEventRecord.builder()
+                    .eventType(event.type())
+                    .aggregateType(event.aggregateType())
+                    .aggregateId(event.aggregateId())
+                    .occurredAt(LocalDateTime.ofInstant(event.occurredAt(), ZoneId.systemDefault()))
+                    .payload(objectMapper.writeValueAsString(event))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + event.type(), e);
+        }
+    }
+
+    private DomainEvent fromRecord(DomainEventRecord record) {
+        Class<? extends DomainEvent> type = DomainEvent.classOf(record.getEventType());
+        if (type == null) {
+            logger.warn("Skipping logged domain event {} of unknown type {}", record.getId(), record.getEventType());
+            return null;
+        }
+        try {
+            return objectMapper.readValue(record.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            logger.warn("Skipping unreadable logged domain event {}: {}", record.getId(), e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private static <T> T inBackgroundTransaction(TransactionTemplate template, Supplier<T> work) {
+        return WorkloadContext.callWithin(Workload.BACKGROUND, () -> template.execute(status -> work.get()));
+    }
+
+    /**
+     * A bounded queue drained by one thread, so the events on it are delivered one at a time and in order. Events are
+     * taken from the queue and delivered holding {@link #delivering}, so a publisher holding it may deliver in the
+     * thread's place without overtaking an event the thread has already taken.
+     */
+    private final class Lane {
+        private final int index;
+        private final BlockingQueue<DomainEvent> queue;
+        private final ReentrantLock delivering = new ReentrantLock();
+        private final Thread thread;
+
+        private Lane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            this.thread = new Thread(this::run, "DomainEvents-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        /**
+         * Delivers queued events on the publisher's thread, oldest first, until the event fits in the queue.
+         * @return false if the lane's thread kept delivering for longer than the timeout
+         */
+        private boolean deliverOnPublisher(DomainEvent event, long timeoutNanos) throws InterruptedException {
+            if (!delivering.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            try {
+                while (!queue.offer(event)) {
+                    DomainEvent queued = queue.poll();
+                    if (queued != null) {
+                        deliver(queued);
+                    }
+                }
+            } finally {
+                delivering.unlock();
+            }
+            LockSupport.unpark(thread);
+            return true;
+        }
+
+        private void run() {
+            while (running || !queue.isEmpty()) {
+                if (!deliverNext()) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+        }
+
+        private boolean deliverNext() {
+            delivering.lock();
+            try {
+                DomainEvent event = queue.poll();
+                if (event == null) {
+                    return false;
+                }
+                deliver(event);
+                return true;
+            } finally {
+                delivering.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import nbu.cscb869.common.exceptions.ExceptionMessages;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.rankings.RankingProperties;
+import nbu.cscb869.data.dto.DiagnosisMonthVisitCountDTO;
+import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
+import nbu.cscb869.data.dto.DoctorSickLeaveTotalDTO;
+import nbu.cscb869.data.dto.MonthSickLeaveCountDTO;
+import nbu.cscb869.data.repositories.SickLeaveRepository;
+import nbu.cscb869.data.repositories.VisitRepository;
+import nbu.cscb869.services.services.utility.RankedCounts.Ranked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranks diagnoses by visits, overall and per month, doctors by the sick leaves they issued, and months of the year by
+ * the sick leaves starting in them, in memory, so that the top k of a ranking are read in O(k) without touching the
+ * database.
+ * <p>
+ * The counts are kept in {@link RankedCounts}. The {@link nbu.cscb869.config.rankings.RankingChangeRecorder} reports
+ * every visit and sick leave change, which is applied once its transaction commits. Every
+ * {@code app.rankings.refresh-interval} all counts are recounted from the database, picking up the changes of other
+ * instances and of bulk updates. A recount reads one REPEATABLE READ snapshot of the primary, opened while no
+ * transaction with recorded changes is open, and the changes committed after the snapshot are applied to its result;
+ * changes committed before it are already counted by the recount and are not applied again. Diagnoses are ranked per
+ * month for the last {@code app.rankings.retained-months} months and the months after them.
+ * <p>
+ * The first recount runs on the scheduler when the application starts. Until it completes the rankings are not ready
+ * and every read returns empty, for the caller to rank in the database instead; requests never wait for a recount.
+ * <p>
+ * Reads are timed in {@code medical.rankings.latency}, tagged with the ranking.
+ */
+@Service
+public class FrequencyRankings {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrequencyRankings.class);
+
+    /** The rankings recounted from the database, with the changes committed since. Guarded by {@link #lock}. */
+    private record State(YearMonth firstMonth, RankedCounts<Long> diagnoses,
+                         NavigableMap<YearMonth, RankedCounts<Long>> diagnosesByMonth,
+                         RankedCounts<Long> doctorsBySickLeaves, RankedCounts<Integer> sickLeaveMonths) {
+
+        void addToMonth(YearMonth month, Long diagnosisId, int delta) {
+            if (month == null || diagnosisId == null || month.isBefore(firstMonth)) {
+                return;
+            }
+            RankedCounts<Long> ranking = delta > 0
+                    ? diagnosesByMonth.computeIfAbsent(month, key -> new RankedCounts<>())
+                    : diagnosesByMonth.get(month);
+            if (ranking != null) {
+                ranking.add(diagnosisId, delta);
+            }
+        }
+    }
+
+    /** The changes of one transaction, applied when it commits. */
+    private final class Pending implements TransactionSynchronization {
+        private final List<Consumer<State>> changes = new ArrayList<>();
+        private boolean holding;
+        /** The replay of the recount whose snapshot was open when the first change was recorded, or null. */
+        private List<Consumer<State>> committedAfter;
+
+        FrequencyRankings owner() {
+            return FrequencyRankings.this;
+        }
+
+        /**
+         * Holds {@link #commits} shared until the transaction completes. Changes are recorded when Hibernate flushes,
+         * which for most writes happens inside the commit, after the before-commit callbacks have run, so the
+         * transaction is ordered against the snapshots from its first recorded change instead.
+         */
+        void hold() {
+            commits.readLock().lock();
+            holding = true;
+            synchronized (lock) {
+                committedAfter = replay;
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            synchronized (lock) {
+                apply(changes, committedAfter);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (holding) {
+                holding = false;
+                commits.readLock().unlock();
+            }
+        }
+    }
+
+    private final VisitRepository visitRepository;
+    private final SickLeaveRepository sickLeaveRepository;
+    private final RankingProperties properties;
+    private final Timer diagnosesTimer;
+    private final Timer doctorsTimer;
+    private final Timer monthsTimer;
+    private final TransactionTemplate snapshotTemplate;
+    private final Object lock = new Object();
+    /**
+     * Held shared by transactions from their first recorded change until they complete, and exclusively while a
+     * recount opens its snapshot, so that every change is committed either before the snapshot or after it.
+     */
+    private final ReadWriteLock commits = new ReentrantReadWriteLock();
+    private State state;
+    /**
+     * The changes committed after the snapshot of a recount, to be applied to its result; null when no recount is
+     * reading.
+     */
+    private List<Consumer<State>> replay;
+
+    public FrequencyRankings(VisitRepository visitRepository, SickLeaveRepository sickLeaveRepository,
+                             RankingProperties properties, PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.visitRepository = visitRepository;
+        this.sickLeaveRepository = sickLeaveRepository;
+        this.properties = properties;
+        // Not read-only: a replica may not have received changes committed before the snapshot yet.
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.diagnosesTimer = timer(meterRegistry, "diagnoses");
+        this.doctorsTimer = timer(meterRegistry, "doctors-by-sick-leaves");
+        this.monthsTimer = timer(meterRegistry, "sick-leave-months");
+    }
+
+    /**
+     * Returns the diagnoses with the most visits, if the rankings are ready.
+     * @param limit the number of diagnoses, at most {@code app.rankings.max-limit}; null for that many
+     * @return the diagnosis IDs and their visit counts, most visits first, or empty before the first recount
+     */
+    public Optional<List<Ranked<Long>>> topDiagnoses(Integer limit) {
+        int top = limitOf(limit);
+        return read(diagnosesTimer, current -> current.diagnoses().top(top));
+    }
+
+    /**
+     * Returns the diagnoses with the most visits in a month, if the month is ranked in memory.
+     * @param month the month
+     * @param limit the number of diagnoses, at most {@code app.rankings.max-limit}; null for that many
+     * @return the diagnosis IDs and their visit counts, most visits first, or empty before the first recount or if
+     * the month is before the retained months
+     */
+    public Optional<List<Ranked<Long>>> topDiagnoses(YearMonth month, Integer limit) {
+        int top = limitOf(limit);
+        Optional<Optional<List<Ranked<Long>>>> ranked = read(diagnosesTimer, current -> {
+            if (month.isBefore(current.firstMonth())) {
+                return Optional.empty();
+            }
+            RankedCounts<Long> ranking = current.diagnosesByMonth().get(month);
+            return Optional.of(ranking == null ? List.of() : ranking.top(top));
+        });
+        return ranked.flatMap(Function.identity());
+    }
+
+    /**
+     * Returns the doctors who issued the most sick leaves, if the rankings are ready.
+     * @param limit the number of doctors, at most {@code app.rankings.max-limit}; null for that many
+     * @return the doctor IDs and their sick leave counts, most sick leaves first, or empty before the first recount
+     */
+    public Optional<List<Ranked<Long>>> topDoctorsBySickLeaves(Integer limit) {
+        int top = limitOf(limit);
+        return read(doctorsTimer, current -> current.doctorsBySickLeaves().top(top));
+    }
+
+    /**
+     * Returns the months of the year in which the most sick leaves start, if the rankings are ready.
+     * @param limit the number of months, at most {@code app.rankings.max-limit}; null for that many
+     * @return the months, 1 to 12, and their sick leave counts, most sick leaves first, or empty before the first
+     * recount
+     */
+    public Optional<List<Ranked<Integer>>> topSickLeaveMonths(Integer limit) {
+        int top = limitOf(limit);
+        return read(monthsTimer, current -> current.sickLeaveMonths().top(top));
+    }
+
+    /**
+     * Checks the number of entries requested from a ranking.
+     * @param limit the requested number, or null for {@code app.rankings.max-limit}
+     * @return the number of entries to return
+     * @throws InvalidInputException if the limit is below 1 or above {@code app.rankings.max-limit}
+     */
+    public int limitOf(Integer limit) {
+        if (limit == null) {
+            return properties.getMaxLimit();
+        }
+        if (limit < 1 || limit > properties.getMaxLimit()) {
+            throw new InvalidInputException(ExceptionMessages.formatRankingLimitInvalid(properties.getMaxLimit()));
+        }
+        return limit;
+    }
+
+    /**
+     * Records that a visit was created, changed or deleted, to be counted once the caller's transaction commits, or at
+     * once without one.
+     * @param oldDiagnosisId the diagnosis of the visit before the change, or null
+     * @param oldDate the date of the visit before the change, or null if it was created
+     * @param newDiagnosisId the diagnosis of the visit after the change, or null
+     * @param newDate the date of the visit after the change, or null if it was deleted
+     */
+    public void visitChanged(Long oldDiagnosisId, LocalDate oldDate, Long newDiagnosisId, LocalDate newDate) {
+        YearMonth oldMonth = oldDate == null ? null : YearMonth.from(oldDate);
+        YearMonth newMonth = newDate == null ? null : YearMonth.from(newDate);
+        boolean sameDiagnosis = Objects.equals(oldDiagnosisId, newDiagnosisId);
+        if (sameDiagnosis && Objects.equals(oldMonth, newMonth)) {
+            return;
+        }
+        record(current -> {
+            if (!sameDiagnosis) {
+                add(current.diagnoses(), oldDiagnosisId, -1);
+                add(current.diagnoses(), newDiagnosisId, 1);
+            }
+            current.addToMonth(oldMonth, oldDiagnosisId, -1);
+            current.addToMonth(newMonth, newDiagnosisId, 1);
+        });
+    }
+
+    /**
+     * Records that a sick leave was issued, changed or deleted, to be counted once the caller's transaction commits, or
+     * at once without one.
+     * @param oldDoctorId the doctor of the sick leave's visit before the change, or null if it was issued
+     * @param oldStartDate the start of the sick leave before the change, or null if it was issued
+     * @param newDoctorId the doctor of the sick leave's visit after the change, or null if it was deleted
+     * @param newStartDate the start of the sick leave after the change, or null if it was deleted
+     */
+    public void sickLeaveChanged(Long oldDoctorId, LocalDate oldStartDate, Long newDoctorId, LocalDate newStartDate) {
+        Integer oldMonth = oldStartDate == null ? null : oldStartDate.getMonthValue();
+        Integer newMonth = newStartDate == null ? null : newStartDate.getMonthValue();
+        boolean sameDoctor = Objects.equals(oldDoctorId, newDoctorId);
+        boolean sameMonth = Objects.equals(oldMonth, newMonth);
+        if (sameDoctor && sameMonth) {
+            return;
+        }
+        record(current -> {
+            if (!sameDoctor) {
+                add(current.doctorsBySickLeaves(), oldDoctorId, -1);
+                add(current.doctorsBySickLeaves(), newDoctorId, 1);
+            }
+            if (!sameMonth) {
+                add(current.sickLeaveMonths(), oldMonth, -1);
+                add(current.sickLeaveMonths(), newMonth, 1);
+            }
+        });
+    }
+
+    /**
+     * Recounts every ranking from the database and replaces the counts in memory. Runs first when the application
+     * starts, which makes the rankings ready.
+     */
+    @Scheduled(fixedDelayString = "${app.rankings.refresh-interval:PT15M}")
+    @DatabaseWorkload(Workload.BACKGROUND)
+    public void refresh() {
+        load();
+    }
+
+    private <T> Optional<T> read(Timer timer, Function<State, T> query) {
+        long start = System.nanoTime();
+        T result;
+        synchronized (lock) {
+            if (state == null) {
+                return Optional.empty();
+            }
+            result = query.apply(state);
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return Optional.of(result);
+    }
+
+    private void record(Consumer<State> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Written without a transaction, so there is no commit to order against a snapshot: counted as of now.
+            synchronized (lock) {
+                apply(List.of(change), replay);
+            }
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Pending pending && pending.owner() == this) {
+                pending.changes.add(change);
+                return;
+            }
+        }
+        Pending pending = new Pending();
+        pending.changes.add(change);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        pending.hold();
+    }
+
+    /**
+     * Applies committed changes to the counts in memory. Must be called holding {@link #lock}.
+     * @param committedAfter the replay of the recount whose snapshot does not contain the changes, or null
+     */
+    private void apply(List<Consumer<State>> changes, List<Consumer<State>> committedAfter) {
+        if (state != null) {
+            changes.forEach(change -> change.accept(state));
+        }
+        if (committedAfter != null && committedAfter == replay) {
+            replay.addAll(changes);
+        }
+    }
+
+    private synchronized void load() {
+        try {
+            State loaded = snapshotTemplate.execute(status -> {
+                openSnapshot();
+                return readState();
+            });
+            synchronized (lock) {
+                replay.forEach(change -> change.accept(loaded));
+                state = loaded;
+            }
+            logger.debug("Ranked {} diagnoses, {} doctors and {} months of sick leaves", loaded.diagnoses().size(),
+                    loaded.doctorsBySickLeaves().size(), loaded.sickLeaveMonths().size());
+        } finally {
+            synchronized (lock) {
+                replay = null;
+            }
+        }
+    }
+
+    /**
+     * Opens the snapshot of the current transaction while no transaction with recorded changes is open, and
+     * starts collecting the changes committed after it.
+     */
+    private void openSnapshot() {
+        commits.writeLock().lock();
+        try {
+            // MySQL takes the snapshot of a REPEATABLE READ transaction at its first read.
+            visitRepository.existsById(0L);
+            synchronized (lock) {
+                replay = new ArrayList<>();
+            }
+        } finally {
+            commits.writeLock().unlock();
+        }
+    }
+
+    private State readState() {
+        YearMonth firstMonth = YearMonth.now().minusMonths(Math.max(1, properties.getRetainedMonths()) - 1L);
+        Map<Long, Long> diagnoses = visitRepository.findMostFrequentDiagnoses().stream()
+                .collect(Collectors.toMap(DiagnosisVisitCountDTO::getDiagnosisId, DiagnosisVisitCountDTO::getVisitCount));
+        Map<YearMonth, Map<Long, Long>> byMonth = new HashMap<>();
+        for (DiagnosisMonthVisitCountDTO count : visitRepository.countDiagnosesByMonthSince(firstMonth.atDay(1))) {
+            byMonth.computeIfAbsent(YearMonth.of(count.getYear(), count.getMonth()), month -> new HashMap<>())
+                    .put(count.getDiagnosisId(), count.getVisitCount());
+        }
+        NavigableMap<YearMonth, RankedCounts<Long>> diagnosesByMonth = new TreeMap<>();
+        byMonth.forEach((month, counts) -> diagnosesByMonth.put(month, RankedCounts.of(counts)));
+        Map<Long, Long> doctors = sickLeaveRepository.countByDoctor().stream()
+                .collect(Collectors.toMap(DoctorSickLeaveTotalDTO::getDoctorId, DoctorSickLeaveTotalDTO::getSickLeaveCount));
+        Map<Integer, Long> months = visitRepository.findMostFrequentSickLeaveMonth().stream()
+                .collect(Collectors.toMap(MonthSickLeaveCountDTO::getMonth, MonthSickLeaveCountDTO::getSickLeaveCount));
+        return new State(firstMonth, RankedCounts.of(diagnoses), diagnosesByMonth, RankedCounts.of(doctors),
+                RankedCounts.of(months));
+    }
+
+    private static <K extends Comparable<K>> void add(RankedCounts<K> counts, K key, int delta) {
+        if (key != null) {
+            counts.add(key, delta);
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String ranking) {
+        return Timer.builder("medical.rankings.latency")
+                .tag("ranking", ranking)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
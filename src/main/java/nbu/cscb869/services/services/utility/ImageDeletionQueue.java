@@ -0,0 +1,151 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.data.models.ImageDeletion;
+import nbu.cscb869.data.repositories.ImageDeletionRepository;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Deletes images from the {@link ImageStore} in the background.
+ * <p>
+ * Callers {@link #enqueue(String) enqueue} an image in the transaction that stops referencing it, so the deletion is
+ * recorded if and only if that change commits. {@link #processQueue()} then deletes due images in batches of up to
+ * {@link ImageStore#MAX_DELETE_BATCH} per store call. A batch that fails is postponed with exponential backoff and
+ * the rows behind it are processed in the meantime. Deleting an image twice is harmless, so several instances may
+ * drain the queue at the same time.
+ */
+@Service
+public class ImageDeletionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDeletionQueue.class);
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    private final ImageDeletionRepository imageDeletionRepository;
+    private final ImageStore imageStore;
+    private final CloudinaryService cloudinaryService;
+    private final ImagePipelineProperties.Deletion properties;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Counter deleted;
+    private final Counter failed;
+
+    public ImageDeletionQueue(ImageDeletionRepository imageDeletionRepository, ImageStore imageStore,
+                              CloudinaryService cloudinaryService, ImagePipelineProperties properties,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.imageDeletionRepository = imageDeletionRepository;
+        this.imageStore = imageStore;
+        this.cloudinaryService = cloudinaryService;
+        this.properties = properties.getDeletion();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager, transactionTemplate);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.deleted = Counter.builder("medical.image.deletions").tag("result", "deleted").register(meterRegistry);
+        this.failed = Counter.builder("medical.image.deletions").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Queues the deletion of a stored image. Joins the caller's transaction, if any.
+     * @param imageUrl the URL of the image; URLs without a public ID are ignored
+     */
+    public void enqueue(String imageUrl) {
+        String publicId = cloudinaryService.getPublicIdFromUrl(imageUrl);
+        if (publicId == null) {
+            logger.warn("Ignoring deletion of image without a public ID: {}", imageUrl);
+            return;
+        }
+        enqueuePublicIds(List.of(publicId));
+    }
+
+    /**
+     * Queues the deletion of stored images by public ID. Joins the caller's transaction, if any.
+     * @param publicIds the public IDs of the images
+     */
+    public void enqueuePublicIds(Collection<String> publicIds) {
+        LocalDateTime now = LocalDateTime.now();
+        imageDeletionRepository.saveAll(publicIds.stream()
+                .map(publicId -> ImageDeletion.builder().publicId(publicId).nextAttemptAt(now).build())
+                .toList());
+        logger.debug("Queued deletion of {} image(s)", publicIds.size());
+    }
+
+    /**
+     * Deletes all due images, one batch after another, until the queue is empty or a batch fails.
+     */
+    @Scheduled(fixedDelayString = "${app.images.deletion.interval:PT1M}")
+    public void processQueue() {
+        int batchSize = Math.min(properties.getBatchSize(), ImageStore.MAX_DELETE_BATCH);
+        int processed;
+        do {
+            processed = processBatch(batchSize);
+        } while (processed == batchSize);
+    }
+
+    /**
+     * Deletes one batch of due images. The store is called outside any transaction.
+     * @param batchSize the largest number of images to delete
+     * @return the number of deletions completed, 0 if none were due or the batch failed
+     */
+    int processBatch(int batchSize) {
+        List<ImageDeletion> batch = inBackgroundTransaction(readOnlyTransactionTemplate,
+                () -> imageDeletionRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize)));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = batch.stream().map(ImageDeletion::getId).toList();
+        List<String> publicIds = batch.stream().map(ImageDeletion::getPublicId).distinct().toList();
+        try {
+            imageStore.deleteAll(publicIds);
+        } catch (IOException | RuntimeException e) {
+            int attempts = batch.stream().mapToInt(ImageDeletion::getAttempts).max().orElse(0) + 1;
+            Duration backoff = backoff(attempts);
+            logger.warn("Failed to delete {} image(s) (attempt {}), retrying in {}: {}",
+                    publicIds.size(), attempts, backoff, e.getMessage());
+            failed.increment(publicIds.size());
+            inBackgroundTransaction(transactionTemplate, () -> imageDeletionRepository.postpone(
+                    ids, LocalDateTime.now().plus(backoff), truncate(e.getMessage())));
+            return 0;
+        }
+        inBackgroundTransaction(transactionTemplate, () -> {
+            imageDeletionRepository.deleteAllByIdInBatch(ids);
+            return null;
+        });
+        deleted.increment(publicIds.size());
+        return batch.size();
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = properties.getRetryBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(properties.getMaxRetryBackoff()) > 0 ? properties.getMaxRetryBackoff() : backoff;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static <T> T inBackgroundTransaction(TransactionTemplate template, Supplier<T> work) {
+        return WorkloadContext.callWithin(Workload.BACKGROUND, () -> template.execute(status -> work.get()));
+    }
+}
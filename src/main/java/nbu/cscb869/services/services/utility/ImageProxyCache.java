@@ -0,0 +1,386 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.common.exceptions.ImageProcessingException;
+import nbu.cscb869.common.validation.ErrorMessages;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Disk cache of stored doctor images and their resized variants, bounded by total size in bytes and evicting the
+ * least recently used files first. Misses are filled from the image's URL: {@code http(s)} URLs are fetched with the
+ * JDK HTTP client, {@code file:} URLs of the {@link LocalImageStore} are copied. Resized variants are made from the
+ * cached original, so every stored image is fetched at most once while it stays cached.
+ * <p>
+ * Each variant is identified by a key derived from the image URL and the width. Stored image URLs are never reused
+ * for different content, so the key doubles as a strong ETag.
+ * <p>
+ * {@link #get(ImageVariant)} pins the file it returns until the caller {@link #release(CachedImage, Duration) releases}
+ * it. An evicted file that is pinned stays on disk, outside the size limit, and is deleted once the last pin is gone.
+ * Concurrent misses of the same variant share one fill, and its failure.
+ */
+@Service
+public class ImageProxyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageProxyCache.class);
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String ORIGINAL_WIDTH = "original";
+
+    private final ImagePipelineProperties.Proxy properties;
+    private final Path cacheDir;
+    private final HttpClient httpClient;
+    private final LinkedHashMap<String, CachedImage> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Pins by key, guarded by this cache. */
+    private final Map<String, Pin> pins = new HashMap<>();
+    /** Evicted files still pinned, by key, guarded by this cache. */
+    private final Map<String, Path> retired = new HashMap<>();
+    private final Map<String, CompletableFuture<CachedImage>> fills = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private long totalBytes;
+
+    public ImageProxyCache(ImagePipelineProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getProxy();
+        this.cacheDir = this.properties.getCacheDir().toAbsolutePath().normalize();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(this.properties.getFetchTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.hits = Counter.builder("medical.image.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("medical.image.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("medical.image.cache.size", this, ImageProxyCache::getTotalBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        loadIndex();
+    }
+
+    /**
+     * Describes the variant of a stored image that a request asks for, without touching the cache.
+     * @param imageUrl the URL of the stored image
+     * @param requestedWidth the requested width in pixels, or null for the original image
+     * @return the variant; its width is the smallest configured width not below the requested one
+     */
+    public ImageVariant variantOf(String imageUrl, Integer requestedWidth) {
+        Integer width = requestedWidth == null ? null : snapWidth(requestedWidth);
+        String key = sha256(imageUrl + "#" + (width == null ? ORIGINAL_WIDTH : width));
+        return new ImageVariant(imageUrl, width, key);
+    }
+
+    /**
+     * Returns a variant from the cache, fetching and resizing the image first if it is not cached. The file is pinned:
+     * the caller must {@link #release(CachedImage, Duration) release} it once it has been read.
+     * @param variant the variant, from {@link #variantOf(String, Integer)}
+     * @return the cached file
+     * @throws ImageProcessingException if the image cannot be fetched or decoded
+     */
+    public CachedImage get(ImageVariant variant) {
+        while (true) {
+            CachedImage cached = lookup(variant.key());
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            CompletableFuture<CachedImage> fill = new CompletableFuture<>();
+            CompletableFuture<CachedImage> running = fills.putIfAbsent(variant.key(), fill);
+            if (running == null) {
+                return fill(variant, fill);
+            }
+            // Another request is filling the variant: share its outcome, then pin the file by looking it up again
+            try {
+                running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+    }
+
+    /**
+     * Unpins a file returned by {@link #get(ImageVariant)}. If it was evicted meanwhile and nothing else pins it, it
+     * is deleted once the linger has passed.
+     * @param image the file
+     * @param linger how long the file must stay on disk after the release, for readers that open it by name later
+     */
+    public synchronized void release(CachedImage image, Duration linger) {
+        String key = image.file().getFileName().toString();
+        Pin pin = pins.get(key);
+        if (pin == null) {
+            return;
+        }
+        pin.count--;
+        pin.until = Math.max(pin.until, System.nanoTime() + linger.toNanos());
+        deleteUnpinned();
+    }
+
+    /**
+     * Returns the number of bytes currently cached.
+     * @return the cache size in bytes
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private CachedImage fill(ImageVariant variant, CompletableFuture<CachedImage> fill) {
+        misses.increment();
+        try {
+            CachedImage cached = download(variant);
+            fill.complete(cached);
+            return cached;
+        } catch (IOException e) {
+            logger.error("Failed to cache image {}: {}", variant.imageUrl(), e.getMessage());
+            ImageProcessingException failure = new ImageProcessingException(ErrorMessages.IMAGE_FETCH_FAILED, e,
+                    variant.imageUrl(), e.getMessage());
+            fill.completeExceptionally(failure);
+            throw failure;
+        } catch (RuntimeException e) {
+            fill.completeExceptionally(e);
+            throw e;
+        } finally {
+            fills.remove(variant.key(), fill);
+        }
+    }
+
+    private CachedImage download(ImageVariant variant) throws IOException {
+        Files.createDirectories(cacheDir);
+        Path target = cacheDir.resolve(variant.key());
+        if (variant.width() == null) {
+            Path download = Files.createTempFile(cacheDir, "download-", TEMP_SUFFIX);
+            try {
+                fetch(variant.imageUrl(), download);
+                Files.move(download, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(download);
+            }
+        } else {
+            CachedImage original = get(variantOf(variant.imageUrl(), null));
+            try {
+                if (!ImageResizer.resize(original.file(), target, variant.width())) {
+                    throw new IOException("unsupported image format");
+                }
+            } finally {
+                release(original, Duration.ZERO);
+            }
+        }
+        CachedImage cached = new CachedImage(target, Files.size(target), detectContentType(target));
+        add(variant.key(), cached);
+        logger.debug("Cached image {} (width {}) as {}", variant.imageUrl(), variant.width(), target.getFileName());
+        return cached;
+    }
+
+    private void fetch(String imageUrl, Path target) throws IOException {
+        URI uri = URI.create(imageUrl);
+        if ("file".equals(uri.getScheme())) {
+            Files.copy(Path.of(uri), target, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(properties.getFetchTimeout()).GET().build();
+        try {
+            HttpResponse<Path> response = httpClient.send(request, HttpResponse.BodyHandlers.ofFile(target));
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+    }
+
+    /** Looks an entry up and pins it. */
+    private synchronized CachedImage lookup(String key) {
+        CachedImage cached = entries.get(key);
+        if (cached != null) {
+            pin(key);
+        }
+        return cached;
+    }
+
+    /** Adds an entry pinned for the request that filled it. */
+    private synchronized void add(String key, CachedImage image) {
+        addUnpinned(key, image);
+        pin(key);
+    }
+
+    private synchronized void addUnpinned(String key, CachedImage image) {
+        CachedImage previous = entries.put(key, image);
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+        totalBytes += image.size();
+        evict(key);
+    }
+
+    private void pin(String key) {
+        pins.computeIfAbsent(key, k -> new Pin()).count++;
+    }
+
+    private boolean isPinned(String key, long now) {
+        Pin pin = pins.get(key);
+        return pin != null && (pin.count > 0 || now - pin.until < 0);
+    }
+
+    /**
+     * Evicts least recently used entries until the cache fits its limit. The entry just added is kept even if it
+     * alone exceeds the limit, because a request is about to stream it. Pinned files are only retired.
+     */
+    private void evict(String keep) {
+        long maxBytes = properties.getMaxCacheSize().toBytes();
+        Iterator<Map.Entry<String, CachedImage>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedImage> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue().size();
+            retired.put(eldest.getKey(), eldest.getValue().file());
+        }
+        deleteUnpinned();
+    }
+
+    /**
+     * Deletes the retired files nothing pins any more, unless their key was cached again meanwhile, and forgets the
+     * pins that are over.
+     */
+    private void deleteUnpinned() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Path>> iterator = retired.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Path> file = iterator.next();
+            if (isPinned(file.getKey(), now)) {
+                continue;
+            }
+            iterator.remove();
+            if (entries.containsKey(file.getKey())) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file.getValue());
+            } catch (IOException e) {
+                logger.warn("Failed to evict cached image {}: {}", file.getValue(), e.getMessage());
+            }
+        }
+        pins.values().removeIf(pin -> pin.count <= 0 && now - pin.until >= 0);
+    }
+
+    private Integer snapWidth(int requestedWidth) {
+        List<Integer> widths = properties.getWidths().stream().sorted().toList();
+        return widths.stream()
+                .filter(width -> width >= requestedWidth)
+                .findFirst()
+                .orElse(widths.get(widths.size() - 1));
+    }
+
+    /**
+     * Rebuilds the index from the files left by a previous run, oldest first, so that they are evicted first.
+     */
+    private void loadIndex() {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            List<Path> sorted = files
+                    .filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(ImageProxyCache::lastModified))
+                    .toList();
+            for (Path file : sorted) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else {
+                    addUnpinned(file.getFileName().toString(), new CachedImage(file, Files.size(file), detectContentType(file)));
+                }
+            }
+            logger.info("Loaded {} cached image(s), {} bytes", entries.size(), totalBytes);
+        } catch (IOException e) {
+            logger.warn("Failed to load image cache index from {}: {}", cacheDir, e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static String detectContentType(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            String contentType = URLConnection.guessContentTypeFromStream(in);
+            return contentType != null ? contentType : "application/octet-stream";
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** The readers of a cached file. */
+    private static final class Pin {
+        /** Readers that have not released the file. */
+        private int count;
+        /** {@link System#nanoTime()} until which released readers may still open the file. */
+        private long until = System.nanoTime();
+    }
+
+    /**
+     * A variant of a stored image.
+     * @param imageUrl the URL of the stored image
+     * @param width the width in pixels, or null for the original image
+     * @param key the cache key, also used as the ETag
+     */
+    public record ImageVariant(String imageUrl, Integer width, String key) {
+
+        /**
+         * Returns the strong ETag of the variant.
+         * @return the quoted ETag
+         */
+        public String etag() {
+            return "\"" + key + "\"";
+        }
+    }
+
+    /**
+     * A cached file.
+     * @param file the file in the cache directory
+     * @param size the file size in bytes
+     * @param contentType the media type of the file
+     */
+    public record CachedImage(Path file, long size, String contentType) {
+    }
+}
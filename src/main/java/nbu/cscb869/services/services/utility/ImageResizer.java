@@ -0,0 +1,64 @@
+package nbu.cscb869.services.services.utility;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Produces downscaled JPEG copies of images on local disk.
+ */
+public final class ImageResizer {
+
+    /**
+     * Format of the images written by {@link #resize(Path, Path, int)}.
+     */
+    public static final String FORMAT = "jpg";
+
+    private ImageResizer() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Writes a copy of an image whose longer side is at most {@code maxSize} pixels. Smaller images are not
+     * enlarged. The target is replaced atomically, so readers never see a partially written file.
+     * @param source the image to resize
+     * @param target the file to write the JPEG copy to
+     * @param maxSize the maximum width and height, in pixels
+     * @return false if the source is not in a format ImageIO can read
+     * @throws IOException if the source cannot be read or the target cannot be written
+     */
+    public static boolean resize(Path source, Path target, int maxSize) throws IOException {
+        BufferedImage image = ImageIO.read(source.toFile());
+        if (image == null) {
+            return false;
+        }
+        double scale = Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Path directory = Files.createDirectories(target.toAbsolutePath().getParent());
+        Path tempFile = Files.createTempFile(directory, "resize-", ".tmp");
+        try {
+            ImageIO.write(resized, FORMAT, tempFile.toFile());
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,322 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import nbu.cscb869.config.live.LiveUpdateProperties;
+import nbu.cscb869.services.data.dtos.LiveUpdateDTO;
+import nbu.cscb869.services.data.events.DoctorApproved;
+import nbu.cscb869.services.data.events.DomainEvent;
+import nbu.cscb869.services.data.events.SickLeaveIssued;
+import nbu.cscb869.services.data.events.VisitCancelled;
+import nbu.cscb869.services.data.events.VisitDeleted;
+import nbu.cscb869.services.data.events.VisitDocumented;
+import nbu.cscb869.services.data.events.VisitRescheduled;
+import nbu.cscb869.services.data.events.VisitScheduled;
+import nbu.cscb869.services.services.utility.contracts.DomainEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pushes visit bookings, reschedules, cancellations, deletions and documentation to the open doctor and admin
+ * dashboards as Server-Sent Events, so they no longer have to be reloaded to show them. A visit reassigned to another
+ * doctor is sent to the previous doctor as {@value #VISIT_REMOVED} and to the new one as {@value #VISIT_ADDED}.
+ * <p>
+ * Connections are held by the servlet container in async mode and use no thread while idle. Each has a bounded queue,
+ * drained by a small shared pool of sender threads, so a slow client never holds up the event bus or other clients.
+ * A client whose queue overflows has its backlog dropped and is sent a single {@value #RESYNC} event instead, telling
+ * it to reload the page: the database, not the stream, is the source of truth.
+ */
+@Service
+public class LiveUpdateHub implements DomainEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveUpdateHub.class);
+
+    /** The event a client is sent when it has missed updates and must reload. */
+    public static final String RESYNC = "resync";
+
+    /** The event carrying a {@link LiveUpdateDTO}. */
+    public static final String UPDATE = "update";
+
+    /** The update type a doctor is sent when one of their visits is reassigned to another doctor. */
+    public static final String VISIT_REMOVED = "VisitRemoved";
+
+    /** The update type a doctor is sent when another doctor's visit is reassigned to them. */
+    public static final String VISIT_ADDED = "VisitAdded";
+
+    private final LiveUpdateProperties properties;
+    private final ExecutorService senders;
+    private final Set<Connection> admins = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Connection>> doctors = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter overflows;
+    private final Counter rejected;
+
+    public LiveUpdateHub(LiveUpdateProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, properties.getSenderThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "LiveUpdates-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.overflows = Counter.builder("medical.live.overflows").register(meterRegistry);
+        this.rejected = Counter.builder("medical.live.rejected").register(meterRegistry);
+        Gauge.builder("medical.live.connections", connections, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of the updates to a doctor's visits.
+     * @param doctorId the doctor's ID
+     * @return the emitter to return from the request handler
+     */
+    public SseEmitter subscribeDoctor(Long doctorId) {
+        return subscribe(connection -> doctors.compute(doctorId, (id, audience) -> {
+            Set<Connection> set = audience == null ? ConcurrentHashMap.newKeySet() : audience;
+            set.add(connection);
+            return set;
+        }), connection -> doctors.computeIfPresent(doctorId, (id, audience) -> {
+            audience.remove(connection);
+            return audience.isEmpty() ? null : audience;
+        }));
+    }
+
+    /**
+     * Opens a stream of the updates to all visits, sick leaves and doctor approvals.
+     * @return the emitter to return from the request handler
+     */
+    public SseEmitter subscribeAdmin() {
+        return subscribe(admins::add, admins::remove);
+    }
+
+    /**
+     * Returns the number of open connections.
+     * @return the open connections
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onEvent(DomainEvent event) {
+        LiveUpdateDTO update = toUpdate(event);
+        if (update == null) {
+            return;
+        }
+        if (event instanceof VisitRescheduled rescheduled
+                && !Objects.equals(rescheduled.previousDoctorId(), rescheduled.doctorId())) {
+            sendToDoctor(rescheduled.previousDoctorId(), retyped(event, VISIT_REMOVED));
+            sendToDoctor(rescheduled.doctorId(), retyped(event, VISIT_ADDED));
+        } else if (update.getVisitId() != null) {
+            sendToDoctor(update.getDoctorId(), update);
+        }
+        admins.forEach(connection -> connection.offer(update));
+    }
+
+    /**
+     * Sends a comment to idle connections, so that the container notices the ones the client has gone away from.
+     */
+    @Scheduled(fixedDelayString = "${app.live.heartbeat-interval:PT25S}", initialDelayString = "${app.live.heartbeat-interval:PT25S}")
+    public void sendHeartbeats() {
+        admins.forEach(Connection::heartbeat);
+        doctors.values().forEach(audience -> audience.forEach(Connection::heartbeat));
+    }
+
+    /**
+     * Closes every connection; browsers reconnect to another instance, or to this one once it is back.
+     */
+    @PreDestroy
+    public void shutdown() {
+        admins.forEach(Connection::close);
+        doctors.values().forEach(audience -> audience.forEach(Connection::close));
+        senders.shutdownNow();
+    }
+
+    private SseEmitter subscribe(Consumer<Connection> register,
+                                 Consumer<Connection> unregister) {
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        if (connections.incrementAndGet() > properties.getMaxConnections()) {
+            connections.decrementAndGet();
+            rejected.increment();
+            logger.warn("Turning away a live update client: {} connections are open", properties.getMaxConnections());
+            try {
+                emitter.send(SseEmitter.event().reconnectTime(properties.getRejectedRetry().toMillis()).comment("busy"));
+            } catch (IOException e) {
+                logger.debug("Could not tell a rejected live update client to back off", e);
+            }
+            emitter.complete();
+            return emitter;
+        }
+        Connection connection = new Connection(emitter, unregister);
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(error -> connection.close());
+        register.accept(connection);
+        connection.enqueue(SseEmitter.event().reconnectTime(properties.getRetry().toMillis()).comment("connected"));
+        return emitter;
+    }
+
+    private void sendToDoctor(Long doctorId, LiveUpdateDTO update) {
+        Set<Connection> audience = doctorId != null ? doctors.get(doctorId) : null;
+        if (audience != null) {
+            audience.forEach(connection -> connection.offer(update));
+        }
+    }
+
+    private static LiveUpdateDTO retyped(DomainEvent event, String type) {
+        LiveUpdateDTO update = toUpdate(event);
+        update.setType(type);
+        return update;
+    }
+
+    private static LiveUpdateDTO toUpdate(DomainEvent event) {
+        LiveUpdateDTO update = new LiveUpdateDTO();
+        update.setType(event.type());
+        update.setOccurredAt(event.occurredAt());
+        if (event instanceof VisitScheduled scheduled) {
+            update.setVisitId(scheduled.visitId());
+            update.setDoctorId(scheduled.doctorId());
+            update.setPatientId(scheduled.patientId());
+            update.setVisitDate(scheduled.visitDate());
+            update.setVisitTime(scheduled.visitTime());
+        } else if (event instanceof VisitRescheduled rescheduled) {
+            update.setVisitId(rescheduled.visitId());
+            update.setDoctorId(rescheduled.doctorId());
+            update.setPatientId(rescheduled.patientId());
+            update.setVisitDate(rescheduled.visitDate());
+            update.setVisitTime(rescheduled.visitTime());
+        } else if (event instanceof VisitCancelled cancelled) {
+            update.setVisitId(cancelled.visitId());
+            update.setDoctorId(cancelled.doctorId());
+            update.setPatientId(cancelled.patientId());
+            update.setStatus(cancelled.status());
+        } else if (event instanceof VisitDeleted deleted) {
+            update.setVisitId(deleted.visitId());
+            update.setDoctorId(deleted.doctorId());
+            update.setPatientId(deleted.patientId());
+        } else if (event instanceof VisitDocumented documented) {
+            update.setVisitId(documented.visitId());
+            update.setDoctorId(documented.doctorId());
+            update.setPatientId(documented.patientId());
+            update.setStatus(documented.status());
+        } else if (event instanceof SickLeaveIssued issued) {
+            update.setVisitId(issued.visitId());
+            update.setPatientId(issued.patientId());
+        } else if (event instanceof DoctorApproved approved) {
+            update.setDoctorId(approved.doctorId());
+        } else {
+            return null;
+        }
+        return update;
+    }
+
+    /**
+     * One open stream: a bounded queue of events, written out by at most one sender thread at a time.
+     */
+    private final class Connection {
+        private final SseEmitter emitter;
+        private final Consumer<Connection> unregister;
+        private final BlockingQueue<SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean overflowed;
+
+        private Connection(SseEmitter emitter, Consumer<Connection> unregister) {
+            this.emitter = emitter;
+            this.unregister = unregister;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getBufferSize()));
+        }
+
+        private void offer(LiveUpdateDTO update) {
+            enqueue(SseEmitter.event().name(UPDATE).data(update));
+        }
+
+        private void heartbeat() {
+            if (queue.isEmpty()) {
+                enqueue(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+
+        private void enqueue(SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            // Never wait for a slow client: drop its backlog and have it reload instead.
+            if (!queue.offer(event)) {
+                overflowed = true;
+                queue.clear();
+                overflows.increment();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed.get()) {
+                    SseEventBuilder event;
+                    if (overflowed) {
+                        overflowed = false;
+                        queue.clear();
+                        event = SseEmitter.event().name(RESYNC).data("");
+                    } else {
+                        event = queue.poll();
+                    }
+                    if (event == null) {
+                        break;
+                    }
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Closing live update connection: {}", e.getMessage());
+                emitter.completeWithError(e);
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // An event queued after the last poll but before the flag was cleared would otherwise wait for the next one.
+            if (!closed.get() && (overflowed || !queue.isEmpty())) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                unregister.accept(this);
+                connections.decrementAndGet();
+                queue.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package nbu.cscb869.services.services.utility;
+
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * {@link ImageStore} that keeps images in a local directory. It stands in for Cloudinary in tests and local
+ * development. Files are laid out as {@code <root>/upload/<folder>/<id>.<ext>}, so the returned {@code file:} URLs
+ * have the same shape as Cloudinary delivery URLs and {@link CloudinaryService#getPublicIdFromUrl(String)} works on
+ * them.
+ */
+public class LocalImageStore implements ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalImageStore.class);
+
+    private final Path root;
+    private final Path uploadDir;
+
+    public LocalImageStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.uploadDir = this.root.resolve("upload");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String upload(Path file) throws IOException {
+        Path folder = Files.createDirectories(uploadDir.resolve(DOCTOR_FOLDER));
+        Path target = folder.resolve(UUID.randomUUID() + extensionOf(file));
+        Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Stored image {} as {}", file.getFileName(), target);
+        return target.toUri().toString();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAll(Collection<String> publicIds) throws IOException {
+        for (String publicId : publicIds) {
+            Path path = resolve(publicId);
+            if (path == null) {
+                logger.warn("Ignoring deletion of image outside the store: {}", publicId);
+                continue;
+            }
+            try (Stream<Path> files = Files.list(path.getParent())) {
+                for (Path file : files.filter(file -> publicIdOf(file).equals(publicId)).toList()) {
+                    Files.deleteIfExists(file);
+                    logger.info("Deleted stored image {}", file);
+                }
+            } catch (NoSuchFileException e) {
+                // Nothing has been stored in the folder yet.
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<StoredImage> list() throws IOException {
+        Path folder = uploadDir.resolve(DOCTOR_FOLDER);
+        if (!Files.isDirectory(folder)) {
+            return List.of();
+        }
+        List<StoredImage> images = new ArrayList<>();
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                images.add(new StoredImage(publicIdOf(file), Files.getLastModifiedTime(file).toInstant()));
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Returns the root directory of the store.
+     * @return the absolute root directory
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    private Path resolve(String publicId) {
+        if (publicId == null || publicId.isEmpty()) {
+            return null;
+        }
+        Path path = uploadDir.resolve(publicId).normalize();
+        return path.startsWith(uploadDir) && !path.equals(uploadDir) ? path : null;
+    }
+
+    /**
+     * Returns the public ID of a stored file: its path below the upload directory, without the extension.
+     */
+    private String publicIdOf(Path file) {
+        String relative = uploadDir.relativize(file).toString().replace(File.separatorChar, '/');
+        int dot = relative.lastIndexOf('.');
+        return dot > relative.lastIndexOf('/') ? relative.substring(0, dot) : relative;
+    }
+
+    private static String extensionOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot) : "";
+    }
+}
@@ -0,0 +1,213 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.common.validation.ErrorMessages;
+import nbu.cscb869.config.medications.MedicationCatalogueProperties;
+import nbu.cscb869.data.models.Medication;
+import nbu.cscb869.data.repositories.MedicationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * The catalogue of medication names, kept in memory so that prescribing a medication does not have to look it up.
+ * <p>
+ * {@link #intern} turns a prescribed name into a reference to its {@link Medication}: a known name costs no statement,
+ * so saving a prescription only inserts its {@code medicines} row. Names are matched ignoring case, accents and surplus
+ * whitespace, like the accent- and case-insensitive collation of the catalogue's unique name column. An unknown name
+ * is resolved by the database on the caller's connection, so a prescription never needs a second connection: it is
+ * read with a shared lock, which sees rows committed after the caller's snapshot, and added with an insert that
+ * leaves an existing row alone. Two prescriptions adding the same name at once do not fail on the unique column; the
+ * second waits for the first to commit and then reads its row. The name is known in memory once the caller's
+ * transaction commits, and is not catalogued if it rolls back.
+ * <p>
+ * {@link #suggest} completes a name from any of its words, for the medicine fields of the documentation form. The
+ * catalogue is loaded on first use, replaced as a whole when it is reloaded every
+ * {@code app.medications.refresh-interval}, and never locks out readers while it changes.
+ */
+@Service
+public class MedicationCatalogue {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicationCatalogue.class);
+    /** The combining marks a decomposed name carries its accents in. */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * The names by key, and every word start of every key mapped to its name. Both are replaced, never
+     * changed, once published.
+     */
+    private record Index(Map<String, Long> ids, PrefixTrie<String> names) {
+
+        static Index of(List<Medication> medications) {
+            Map<String, Long> ids = new HashMap<>();
+            PrefixTrie<String> names = PrefixTrie.empty();
+            for (Medication medication : medications) {
+                if (ids.putIfAbsent(key(medication.getName()), medication.getId()) == null) {
+                    names = withWords(names, medication.getName());
+                }
+            }
+            return new Index(Map.copyOf(ids), names);
+        }
+
+        Index with(Long id, String name) {
+            if (ids.containsKey(key(name))) {
+                return this;
+            }
+            Map<String, Long> updatedIds = new HashMap<>(ids);
+            updatedIds.put(key(name), id);
+            return new Index(Map.copyOf(updatedIds), withWords(names, name));
+        }
+
+        private static PrefixTrie<String> withWords(PrefixTrie<String> names, String name) {
+            String key = key(name);
+            for (int i = 0; i < key.length(); i++) {
+                if (i == 0 || key.charAt(i - 1) == ' ') {
+                    names = names.with(key.substring(i), name);
+                }
+            }
+            return names;
+        }
+    }
+
+    private final MedicationRepository medicationRepository;
+    private final MedicationCatalogueProperties properties;
+    private final Counter added;
+    private volatile Index index;
+
+    public MedicationCatalogue(MedicationRepository medicationRepository, MedicationCatalogueProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.medicationRepository = medicationRepository;
+        this.properties = properties;
+        this.added = Counter.builder("medical.medications.added").register(meterRegistry);
+        Gauge.builder("medical.medications.catalogued", this, catalogue -> catalogue.index == null ? 0 : catalogue.index.ids().size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the catalogued medication with a name, adding it in the caller's transaction if it is new.
+     * @param name the prescribed name
+     * @return the medication, or a reference to it, to be set on a prescription in the caller's transaction
+     * @throws InvalidInputException if the name is blank
+     */
+    public Medication intern(String name) {
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            throw new InvalidInputException(ErrorMessages.NAME_NOT_BLANK);
+        }
+        Long id = index().ids().get(key(normalized));
+        if (id != null) {
+            return medicationRepository.getReferenceById(id);
+        }
+        Medication medication = catalogue(normalized);
+        registerOnCommit(medication.getId(), medication.getName());
+        return medication;
+    }
+
+    /**
+     * Suggests catalogued names that contain a word starting with the given text, ignoring case.
+     * @param text the text typed so far
+     * @param limit the maximum number of names, capped at {@code app.medications.max-suggestions}
+     * @return the names, in alphabetical order of the matching word
+     */
+    public List<String> suggest(String text, int limit) {
+        String key = key(text);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return index().names().find(key, Math.min(limit, properties.getMaxSuggestions()));
+    }
+
+    /**
+     * Reloads the catalogue from the database.
+     */
+    @Scheduled(fixedDelayString = "${app.medications.refresh-interval:PT15M}", initialDelayString = "PT15M")
+    public void refresh() {
+        Index loaded = Index.of(medicationRepository.findAll());
+        synchronized (this) {
+            index = loaded;
+        }
+        logger.debug("Loaded {} medication(s) into the catalogue", loaded.ids().size());
+    }
+
+    /**
+     * Returns a name as the catalogue stores it: trimmed, with each run of whitespace replaced by a single space.
+     * @param name the name
+     * @return the normalized name; empty for null
+     */
+    public static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Returns the key under which a name is catalogued; names with the same key are the same medication, as they are
+     * equal by the name column's collation.
+     * @param name the name
+     * @return the normalized, lowercase name without accents
+     */
+    public static String key(String name) {
+        String decomposed = Normalizer.normalize(normalize(name), Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private Index index() {
+        Index current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    refresh();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    private synchronized void register(Long id, String name) {
+        index = index().with(id, name);
+    }
+
+    /**
+     * Registers a name in memory once the caller's transaction commits, or at once without one.
+     */
+    private void registerOnCommit(Long id, String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            register(id, name);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                register(id, name);
+            }
+        });
+    }
+
+    /**
+     * Reads the medication with a normalized name, adding it if there is none, on the caller's connection.
+     */
+    private Medication catalogue(String normalized) {
+        Optional<Medication> existing = medicationRepository.findLockedByName(normalized);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        medicationRepository.insertIfAbsent(normalized);
+        Medication medication = medicationRepository.findLockedByName(normalized).orElseThrow();
+        added.increment();
+        logger.info("Added medication '{}' to the catalogue with ID {}", medication.getName(), medication.getId());
+        return medication;
+    }
+}
@@ -0,0 +1,123 @@
+package nbu.cscb869.services.services.utility;
+
+import nbu.cscb869.data.models.Medication;
+import nbu.cscb869.data.models.Medicine;
+import nbu.cscb869.data.models.Treatment;
+import nbu.cscb869.services.data.dtos.MedicineUpdateDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Brings the medicines of a treatment in line with a submitted list by changing only what differs.
+ * <p>
+ * A submitted medicine is matched to an existing one by ID, or else by its {@link MedicationCatalogue#key catalogue key}.
+ * Matched medicines are updated in place, and Hibernate writes them only if a value actually changed; unmatched
+ * submitted medicines are added and unmatched existing ones removed. Saving a treatment whose medicines did not change
+ * therefore writes no medicine rows at all, where clearing and re-adding the list deleted and re-inserted every one.
+ * Matching by name also lets a form that does not send medicine IDs keep the existing rows. A name that differs from
+ * the current one only in case or spacing names the same medication and is not a change.
+ * <p>
+ * Any change touches the treatment as well, so that its version and {@code modifiedOn} move on with its medicines:
+ * the change feed and conditional requests only look at the treatment.
+ */
+public final class MedicineReconciler {
+
+    /**
+     * The number of medicines a reconciliation added, changed and removed.
+     */
+    public record Changes(int inserted, int updated, int deleted) {
+
+        /**
+         * Returns whether nothing was changed.
+         */
+        public boolean isEmpty() {
+            return inserted == 0 && updated == 0 && deleted == 0;
+        }
+    }
+
+    private MedicineReconciler() {
+    }
+
+    /**
+     * Reconciles the medicines of a treatment with a submitted list.
+     * @param treatment the treatment, attached to the persistence context if it already exists
+     * @param submitted the medicines it should have; null for none
+     * @param medications resolves a submitted name to its catalogued medication
+     * @return what was changed
+     */
+    public static Changes reconcile(Treatment treatment, List<MedicineUpdateDTO> submitted,
+                                    Function<String, Medication> medications) {
+        List<Medicine> medicines = treatment.getMedicines();
+        Map<Long, Medicine> byId = new HashMap<>();
+        Map<String, Medicine> byName = new HashMap<>();
+        for (Medicine medicine : medicines) {
+            if (medicine.getId() != null) {
+                byId.put(medicine.getId(), medicine);
+            }
+            byName.putIfAbsent(key(medicine.getName()), medicine);
+        }
+
+        Set<Medicine> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Medicine> added = new ArrayList<>();
+        int updated = 0;
+        for (MedicineUpdateDTO dto : submitted != null ? submitted : List.<MedicineUpdateDTO>of()) {
+            Medicine medicine = dto.getId() != null ? byId.get(dto.getId()) : null;
+            if (medicine == null || kept.contains(medicine)) {
+                medicine = byName.get(key(dto.getName()));
+            }
+            if (medicine == null || kept.contains(medicine)) {
+                Medicine created = new Medicine();
+                apply(created, dto, medications);
+                created.setTreatment(treatment);
+                added.add(created);
+                continue;
+            }
+            kept.add(medicine);
+            if (apply(medicine, dto, medications)) {
+                updated++;
+            }
+        }
+
+        int before = medicines.size();
+        // Orphan removal deletes the rows of the medicines dropped here.
+        medicines.removeIf(medicine -> !kept.contains(medicine));
+        int deleted = before - medicines.size();
+        medicines.addAll(added);
+        Changes changes = new Changes(added.size(), updated, deleted);
+        if (!changes.isEmpty()) {
+            treatment.touch();
+        }
+        return changes;
+    }
+
+    /**
+     * Copies the submitted values onto a medicine.
+     * @return whether any value changed
+     */
+    private static boolean apply(Medicine medicine, MedicineUpdateDTO dto, Function<String, Medication> medications) {
+        boolean renamed = medicine.getMedication() == null || !key(medicine.getName()).equals(key(dto.getName()));
+        boolean changed = renamed
+                || !Objects.equals(medicine.getDosage(), dto.getDosage())
+                || !Objects.equals(medicine.getFrequency(), dto.getFrequency());
+        if (renamed) {
+            medicine.setMedication(medications.apply(dto.getName()));
+        }
+        if (changed) {
+            medicine.setDosage(dto.getDosage());
+            medicine.setFrequency(dto.getFrequency());
+        }
+        return changed;
+    }
+
+    private static String key(String name) {
+        return MedicationCatalogue.key(name);
+    }
+}
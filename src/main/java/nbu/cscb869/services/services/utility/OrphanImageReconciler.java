@@ -0,0 +1,112 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.data.repositories.DoctorRepository;
+import nbu.cscb869.data.repositories.ImageDeletionRepository;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import nbu.cscb869.services.services.utility.contracts.ImageStore.StoredImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Finds images in the {@link ImageStore} that no doctor references, e.g. because the application stopped between an
+ * upload and recording its URL, and queues them on the {@link ImageDeletionQueue}.
+ * <p>
+ * The store is listed before the database is read, and images younger than
+ * {@code app.images.deletion.orphan-grace-period} are skipped, so an upload that is about to be recorded is never
+ * mistaken for an orphan.
+ */
+@Service
+public class OrphanImageReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanImageReconciler.class);
+
+    private final ImageStore imageStore;
+    private final DoctorRepository doctorRepository;
+    private final ImageDeletionRepository imageDeletionRepository;
+    private final ImageDeletionQueue imageDeletionQueue;
+    private final CloudinaryService cloudinaryService;
+    private final ImagePipelineProperties.Deletion properties;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Counter orphans;
+
+    public OrphanImageReconciler(ImageStore imageStore, DoctorRepository doctorRepository,
+                                 ImageDeletionRepository imageDeletionRepository, ImageDeletionQueue imageDeletionQueue,
+                                 CloudinaryService cloudinaryService, ImagePipelineProperties properties,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.imageStore = imageStore;
+        this.doctorRepository = doctorRepository;
+        this.imageDeletionRepository = imageDeletionRepository;
+        this.imageDeletionQueue = imageDeletionQueue;
+        this.cloudinaryService = cloudinaryService;
+        this.properties = properties.getDeletion();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager, transactionTemplate);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.orphans = Counter.builder("medical.image.orphans").register(meterRegistry);
+    }
+
+    /**
+     * Compares the store with the database and queues the deletion of orphaned images.
+     * @return the number of orphans queued
+     */
+    @Scheduled(fixedDelayString = "${app.images.deletion.reconcile-interval:PT24H}",
+            initialDelayString = "${app.images.deletion.reconcile-initial-delay:PT10M}")
+    public int reconcile() {
+        List<StoredImage> storedImages;
+        try {
+            storedImages = imageStore.list();
+        } catch (IOException e) {
+            logger.warn("Skipping image reconciliation, the store could not be listed: {}", e.getMessage());
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(properties.getOrphanGracePeriod());
+        Set<String> known = WorkloadContext.callWithin(Workload.BACKGROUND,
+                () -> readOnlyTransactionTemplate.execute(status -> knownPublicIds()));
+
+        List<String> orphanIds = storedImages.stream()
+                .filter(image -> image.createdAt().isBefore(cutoff))
+                .map(StoredImage::publicId)
+                .filter(publicId -> !known.contains(publicId))
+                .toList();
+        if (!orphanIds.isEmpty()) {
+            WorkloadContext.callWithin(Workload.BACKGROUND, () -> transactionTemplate.execute(status -> {
+                imageDeletionQueue.enqueuePublicIds(orphanIds);
+                return null;
+            }));
+            orphans.increment(orphanIds.size());
+        }
+        logger.info("Reconciled {} stored image(s); queued {} orphan(s) for deletion", storedImages.size(), orphanIds.size());
+        return orphanIds.size();
+    }
+
+    /**
+     * Returns the public IDs that are referenced by a doctor or already queued for deletion.
+     */
+    private Set<String> knownPublicIds() {
+        Set<String> known = new HashSet<>(imageDeletionRepository.findAllPublicIds());
+        doctorRepository.findAllImageUrls().stream()
+                .map(cloudinaryService::getPublicIdFromUrl)
+                .filter(Objects::nonNull)
+                .forEach(known::add);
+        return known;
+    }
+}
@@ -0,0 +1,179 @@
+package nbu.cscb869.services.services.utility;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.reports.ReportPartitionProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs date range reports as partitions of {@code app.reports.partition-length} that are queried at the same time,
+ * each in a read-only transaction of its own on the bounded {@code reportPartitionExecutor}, and merges their results.
+ * <p>
+ * A page of a range is read in two rounds: the partitions are counted, which also gives the total, and then only the
+ * partitions the page falls into are read, from the right offset within each, and concatenated in date order. A long
+ * range therefore never scans its earlier rows to skip them. The partitions run with the caller's workload and user,
+ * and each sees the data committed when it starts rather than one snapshot of the whole range.
+ * <p>
+ * A range that fits one partition runs on the caller's thread. So does every range requested within a transaction:
+ * the caller already holds a connection then, and only its own transaction sees its uncommitted writes.
+ */
+@Service
+public class PartitionedReports {
+
+    /**
+     * A range of days, both inclusive.
+     * @param from the first day
+     * @param to the last day
+     */
+    public record DateRange(LocalDate from, LocalDate to) {
+    }
+
+    /**
+     * The rows of a report within any date range, ordered by date.
+     * @param <T> the row type
+     */
+    public interface RangeSource<T> {
+        /**
+         * Counts the rows of a range.
+         * @param range the range
+         * @return the number of rows
+         */
+        long count(DateRange range);
+
+        /**
+         * Reads a slice of the rows of a range. Entities must be mapped here, while their transaction is open.
+         * @param range the range
+         * @param offset how many rows of the range to skip
+         * @param limit the most rows to return
+         * @return the rows
+         */
+        List<T> fetch(DateRange range, int offset, int limit);
+    }
+
+    private record Slice(DateRange range, int offset, int limit) {
+    }
+
+    private final ReportPartitionProperties properties;
+    private final TaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer parallelTimer;
+    private final Timer inlineTimer;
+
+    public PartitionedReports(ReportPartitionProperties properties,
+                              @Qualifier("reportPartitionExecutor") TaskExecutor executor,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.parallelTimer = Timer.builder("medical.reports.partitioned").tag("mode", "parallel").register(meterRegistry);
+        this.inlineTimer = Timer.builder("medical.reports.partitioned").tag("mode", "inline").register(meterRegistry);
+    }
+
+    /**
+     * Splits a range into consecutive partitions, the first starting on its first day and the last one cut short.
+     * @param from the first day
+     * @param to the last day, not before the first
+     * @param length the length of a partition; the whole range is one partition if it is not positive
+     * @return the partitions, in date order
+     */
+    public static List<DateRange> partition(LocalDate from, LocalDate to, Period length) {
+        if (length.isZero() || length.isNegative()) {
+            return List.of(new DateRange(from, to));
+        }
+        List<DateRange> ranges = new ArrayList<>();
+        LocalDate start = from;
+        while (!start.isAfter(to)) {
+            LocalDate next = start.plus(length);
+            LocalDate end = next.minusDays(1).isBefore(to) ? next.minusDays(1) : to;
+            ranges.add(new DateRange(start, end));
+            start = end.plusDays(1);
+        }
+        return ranges;
+    }
+
+    /**
+     * Reads one page of the rows of a range.
+     * @param from the first day
+     * @param to the last day, not before the first
+     * @param pageable the page to read
+     * @param source the rows
+     * @param <T> the row type
+     * @return the page, with the total number of rows of the range
+     */
+    public <T> Page<T> page(LocalDate from, LocalDate to, Pageable pageable, RangeSource<T> source) {
+        List<DateRange> ranges = partition(from, to, properties.getPartitionLength());
+        List<Long> counts = runAll(ranges, source::count);
+
+        long total = 0;
+        long pageStart = pageable.getOffset();
+        long pageEnd = pageStart + pageable.getPageSize();
+        List<Slice> slices = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            long rangeStart = total;
+            total += counts.get(i);
+            if (total > pageStart && rangeStart < pageEnd) {
+                long sliceStart = Math.max(rangeStart, pageStart);
+                long sliceEnd = Math.min(total, pageEnd);
+                slices.add(new Slice(ranges.get(i), (int) (sliceStart - rangeStart), (int) (sliceEnd - sliceStart)));
+            }
+        }
+
+        List<T> content = new ArrayList<>(pageable.getPageSize());
+        runAll(slices, slice -> source.fetch(slice.range(), slice.offset(), slice.limit())).forEach(content::addAll);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private <I, R> List<R> runAll(List<I> items, Function<I, R> task) {
+        if (items.size() <= 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inlineTimer.record(() -> items.stream().map(item -> transactionTemplate.execute(status -> task.apply(item))).toList());
+        }
+        return parallelTimer.record(() -> {
+            SecurityContext securityContext = SecurityContextHolder.getContext();
+            Workload workload = WorkloadContext.current();
+            List<CompletableFuture<R>> futures = items.stream()
+                    .map(item -> CompletableFuture.supplyAsync(() -> runAs(securityContext, workload, () -> task.apply(item)), executor))
+                    .toList();
+            try {
+                return futures.stream().map(CompletableFuture::join).toList();
+            } catch (CompletionException e) {
+                futures.forEach(future -> future.cancel(false));
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        });
+    }
+
+    private <R> R runAs(SecurityContext securityContext, Workload workload, Supplier<R> task) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            return WorkloadContext.callWithin(workload, () -> transactionTemplate.execute(status -> task.get()));
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+}
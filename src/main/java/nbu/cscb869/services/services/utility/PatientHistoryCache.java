@@ -0,0 +1,423 @@
+package nbu.cscb869.services.services.utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.config.datasource.DataSourceRoutingProperties;
+import nbu.cscb869.config.history.PatientHistoryCacheProperties;
+import nbu.cscb869.services.data.dtos.VisitViewDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * In-memory cache of each patient's medical-history timeline, kept as a serialized JSON snapshot and bounded by
+ * total size, evicting the least recently viewed patients first. Snapshots are deserialized on every read, so callers
+ * always get their own copy.
+ * <p>
+ * Visit changes are applied to an existing snapshot in place once their transaction commits, so a patient's history
+ * is read from the database only on the first view after a restart or eviction. Changes to data embedded in the
+ * timeline from elsewhere (patients, doctors, diagnoses, sick leaves, treatments) evict the affected snapshots; the
+ * {@link nbu.cscb869.config.history.HistoryChangeRecorder} sees them as they are flushed. A sick leave or treatment
+ * saved together with its visit, as documenting a visit does, is already part of the visit applied in place and does
+ * not evict the snapshot. A snapshot is read again
+ * once it is older than {@code app.history-cache.time-to-live}, so changes the application is not told about do not
+ * stay hidden for long.
+ * <p>
+ * A snapshot built from a read that may have missed a change committed meanwhile is discarded: {@link #put} only
+ * stores a timeline if the patient has not changed since the {@link #currentSequence() sequence} taken before the read.
+ * When read replicas are enabled, the read may also have been served by a replica that had not yet received a change
+ * committed before it started, so timelines of patients changed within the replicas' tolerated lag are not stored
+ * either.
+ */
+public class PatientHistoryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientHistoryCache.class);
+
+    /** Patients whose last change is remembered individually; older changes only raise {@link #changeFloor}. */
+    private static final int MAX_TRACKED_CHANGES = 10_000;
+
+    /** Newest visit first, matching the order of the history pages. */
+    public static final Comparator<VisitViewDTO> NEWEST_FIRST = Comparator
+            .comparing(VisitViewDTO::getVisitDate, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+            .thenComparing(VisitViewDTO::getVisitTime, Comparator.nullsFirst(Comparator.<LocalTime>naturalOrder()))
+            .thenComparing(VisitViewDTO::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .reversed();
+
+    private final PatientHistoryCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final LinkedHashMap<Long, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Long, Change> lastChanges = new LinkedHashMap<>();
+    private final Duration staleReadWindow;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+    private long totalBytes;
+    private long sequence;
+    private Change changeFloor = Change.NONE;
+
+    public PatientHistoryCache(PatientHistoryCacheProperties properties, ObjectMapper objectMapper,
+                               ObjectProvider<DataSourceRoutingProperties> routingProperties, MeterRegistry meterRegistry,
+                               Clock clock) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        DataSourceRoutingProperties routing = routingProperties.getIfAvailable();
+        this.staleReadWindow = routing == null ? Duration.ZERO
+                : routing.getMaxReplicaLag().plus(routing.getLagCheckInterval());
+        this.hits = Counter.builder("medical.history.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("medical.history.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("medical.history.cache.size", this, PatientHistoryCache::getTotalBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A patient's complete timeline.
+     * @param ownerKeycloakId the Keycloak ID of the patient, used to authorize reads without loading the patient
+     * @param visits all of the patient's visits, newest first
+     */
+    public record PatientTimeline(String ownerKeycloakId, List<VisitViewDTO> visits) {
+    }
+
+    /**
+     * A serialized timeline and the time it was read from the database at.
+     */
+    private record Snapshot(byte[] json, Instant readAt) {
+    }
+
+    /**
+     * A visit of a patient.
+     */
+    private record VisitKey(Long patientId, Long visitId) {
+    }
+
+    /**
+     * The visits of a transaction whose sick leaves, treatments or medicines changed, and the visits applied to the
+     * snapshots in place. Once the transaction commits, the snapshots of patients with a changed visit that was not
+     * applied are evicted.
+     */
+    private final class TransactionVisits implements TransactionSynchronization {
+        private final Set<VisitKey> changed = new LinkedHashSet<>();
+        private final Set<VisitKey> applied = new HashSet<>();
+
+        @Override
+        public void afterCommit() {
+            changed.stream()
+                    .filter(visit -> !applied.contains(visit))
+                    .map(VisitKey::patientId)
+                    .distinct()
+                    .forEach(PatientHistoryCache.this::evictNow);
+        }
+
+        private PatientHistoryCache cache() {
+            return PatientHistoryCache.this;
+        }
+    }
+
+    /**
+     * The sequence and time of a recorded change.
+     */
+    private record Change(long sequence, Instant at) {
+        static final Change NONE = new Change(0, Instant.EPOCH);
+    }
+
+    /**
+     * Returns the cached timeline of a patient.
+     * @param patientId the patient ID
+     * @return a fresh copy of the timeline, or empty if the patient's history is not cached
+     */
+    public Optional<PatientTimeline> get(Long patientId) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        byte[] snapshot = lookup(patientId);
+        if (snapshot == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        try {
+            PatientTimeline timeline = objectMapper.readValue(snapshot, PatientTimeline.class);
+            hits.increment();
+            return Optional.of(timeline);
+        } catch (IOException e) {
+            logger.warn("Dropping unreadable history snapshot of patient {}: {}", patientId, e.getMessage());
+            remove(patientId);
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the sequence to pass to {@link #put} for a timeline read from the database after this call.
+     * @return the current change sequence
+     */
+    public synchronized long currentSequence() {
+        return sequence;
+    }
+
+    /**
+     * Caches a timeline read from the database, unless the patient's visits changed since the read started.
+     * @param patientId the patient ID
+     * @param timeline the timeline
+     * @param readSequence the {@link #currentSequence()} taken before the read
+     */
+    public void put(Long patientId, PatientTimeline timeline, long readSequence) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        byte[] json = serialize(sorted(timeline));
+        if (json == null) {
+            return;
+        }
+        synchronized (this) {
+            Change lastChange = lastChangeOf(patientId);
+            if (lastChange.sequence() > readSequence || isWithinStaleReadWindow(lastChange)) {
+                logger.debug("Discarding history snapshot of patient {}: it changed during the read", patientId);
+                return;
+            }
+            add(patientId, new Snapshot(json, clock.instant()));
+        }
+    }
+
+    /**
+     * Adds or replaces a visit in the patient's snapshot once the current transaction commits.
+     * @param patientId the ID of the patient the visit belongs to
+     * @param visit the visit as it was committed
+     */
+    public void upsertVisit(Long patientId, VisitViewDTO visit) {
+        markApplied(patientId, visit.getId());
+        afterCommit(() -> update(patientId, visits -> {
+            visits.removeIf(existing -> Objects.equals(existing.getId(), visit.getId()));
+            visits.add(visit);
+        }));
+    }
+
+    /**
+     * Removes a visit from the patient's snapshot once the current transaction commits.
+     * @param patientId the ID of the patient the visit belonged to
+     * @param visitId the ID of the visit
+     */
+    public void removeVisit(Long patientId, Long visitId) {
+        markApplied(patientId, visitId);
+        afterCommit(() -> update(patientId, visits -> visits.removeIf(visit -> Objects.equals(visit.getId(), visitId))));
+    }
+
+    /**
+     * Evicts a patient's snapshot once the current transaction commits, e.g. because data embedded in every visit of
+     * the timeline changed.
+     * @param patientId the patient ID
+     */
+    public void evict(Long patientId) {
+        afterCommit(() -> evictNow(patientId));
+    }
+
+    /**
+     * Evicts a patient's snapshot once the current transaction commits because a sick leave, treatment or medicine of
+     * one of their visits changed, unless the visit itself is {@link #upsertVisit upserted} or
+     * {@link #removeVisit removed} in the same transaction and so already carries the change.
+     * @param patientId the ID of the patient the visit belongs to
+     * @param visitId the ID of the visit, or null if it is not known
+     */
+    public void visitRecordChanged(Long patientId, Long visitId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (visitId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(patientId);
+            return;
+        }
+        transactionVisits().changed.add(new VisitKey(patientId, visitId));
+    }
+
+    /**
+     * Evicts every snapshot once the current transaction commits, e.g. because a doctor or diagnosis that may appear
+     * in any timeline changed.
+     */
+    public void evictAll() {
+        afterCommit(() -> {
+            synchronized (this) {
+                changeFloor = new Change(++sequence, clock.instant());
+                lastChanges.clear();
+                snapshots.clear();
+                totalBytes = 0;
+            }
+        });
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void evictNow(Long patientId) {
+        recordChange(patientId);
+        remove(patientId);
+    }
+
+    private void markApplied(Long patientId, Long visitId) {
+        if (properties.isEnabled() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionVisits().applied.add(new VisitKey(patientId, visitId));
+        }
+    }
+
+    /**
+     * Returns the visits of the current transaction, kept with its synchronizations so that a suspended outer
+     * transaction keeps its own.
+     */
+    private TransactionVisits transactionVisits() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionVisits visits && visits.cache() == this) {
+                return visits;
+            }
+        }
+        TransactionVisits visits = new TransactionVisits();
+        TransactionSynchronizationManager.registerSynchronization(visits);
+        return visits;
+    }
+
+    private void update(Long patientId, Consumer<List<VisitViewDTO>> change) {
+        Snapshot current;
+        synchronized (this) {
+            recordChange(patientId);
+            current = snapshots.get(patientId);
+        }
+        if (current == null) {
+            return;
+        }
+        // Applied outside the lock; a concurrent change to the same patient invalidates this result below.
+        long appliedAt = currentSequence();
+        byte[] updated = null;
+        try {
+            PatientTimeline timeline = objectMapper.readValue(current.json(), PatientTimeline.class);
+            List<VisitViewDTO> visits = new ArrayList<>(timeline.visits());
+            change.accept(visits);
+            updated = serialize(sorted(new PatientTimeline(timeline.ownerKeycloakId(), visits)));
+        } catch (IOException e) {
+            logger.warn("Could not update history snapshot of patient {}: {}", patientId, e.getMessage());
+        }
+        synchronized (this) {
+            if (updated != null && snapshots.get(patientId) == current && lastChangeOf(patientId).sequence() <= appliedAt) {
+                // An updated snapshot still expires as read: the change does not refresh the rest of the timeline.
+                add(patientId, new Snapshot(updated, current.readAt()));
+            } else {
+                remove(patientId);
+            }
+        }
+    }
+
+    private static PatientTimeline sorted(PatientTimeline timeline) {
+        List<VisitViewDTO> visits = new ArrayList<>(timeline.visits());
+        visits.sort(NEWEST_FIRST);
+        return new PatientTimeline(timeline.ownerKeycloakId(), visits);
+    }
+
+    private byte[] serialize(PatientTimeline timeline) {
+        try {
+            return objectMapper.writeValueAsBytes(timeline);
+        } catch (IOException e) {
+            logger.warn("Could not serialize a history snapshot: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized byte[] lookup(Long patientId) {
+        Snapshot snapshot = snapshots.get(patientId);
+        if (snapshot == null) {
+            return null;
+        }
+        if (snapshot.readAt().plus(properties.getTimeToLive()).isBefore(clock.instant())) {
+            remove(patientId);
+            return null;
+        }
+        return snapshot.json();
+    }
+
+    private synchronized void remove(Long patientId) {
+        Snapshot removed = snapshots.remove(patientId);
+        if (removed != null) {
+            totalBytes -= removed.json().length;
+        }
+    }
+
+    /**
+     * Stores a snapshot and evicts least recently viewed snapshots until the cache fits its limit. A snapshot larger
+     * than the whole cache is not stored.
+     */
+    private void add(Long patientId, Snapshot snapshot) {
+        long maxBytes = properties.getMaxSize().toBytes();
+        remove(patientId);
+        if (snapshot.json().length > maxBytes) {
+            return;
+        }
+        snapshots.put(patientId, snapshot);
+        totalBytes += snapshot.json().length;
+        Iterator<Map.Entry<Long, Snapshot>> iterator = snapshots.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Long, Snapshot> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().json().length;
+        }
+    }
+
+    private void recordChange(Long patientId) {
+        lastChanges.remove(patientId);
+        lastChanges.put(patientId, new Change(++sequence, clock.instant()));
+        if (lastChanges.size() > MAX_TRACKED_CHANGES) {
+            Iterator<Map.Entry<Long, Change>> eldest = lastChanges.entrySet().iterator();
+            changeFloor = eldest.next().getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Returns the latest change that may have affected the patient: its own, or a change older than every tracked
+     * one that is no longer remembered per patient.
+     */
+    private Change lastChangeOf(Long patientId) {
+        Change own = lastChanges.get(patientId);
+        return own != null && own.sequence() > changeFloor.sequence() ? own : changeFloor;
+    }
+
+    private boolean isWithinStaleReadWindow(Change change) {
+        return !staleReadWindow.isZero() && change != Change.NONE
+                && change.at().plus(staleReadWindow).isAfter(clock.instant());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package nbu.cscb869.services.services.utility;
+
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.repositories.PatientReachRepository;
+import nbu.cscb869.data.repositories.PatientReachRepository.Key;
+import nbu.cscb869.services.data.dtos.PatientReachRowDTO;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a {@link HyperLogLog} of the patients seen, that is with a completed visit, per doctor and per diagnosis and
+ * month, and merges them into estimates for ranges of months.
+ * <p>
+ * Sketches cannot forget a patient, so they are not updated visit by visit: the {@link AnalyticsRollup} rebuilds the
+ * sketches of the doctors and diagnoses on the days that visit writes marked, reading only their visits of the month.
+ */
+@Service
+public class PatientReachSketches {
+
+    /** The sketches of a doctor or diagnosis merged so far. */
+    private record Merged(long id, String name, HyperLogLog sketch) {
+        PatientReachRowDTO toRow() {
+            return new PatientReachRowDTO(id, name, sketch.estimate());
+        }
+    }
+
+    private final PatientReachRepository patientReachRepository;
+
+    public PatientReachSketches(PatientReachRepository patientReachRepository) {
+        this.patientReachRepository = patientReachRepository;
+    }
+
+    /**
+     * Finds the sketches whose visits lie on some days: those of the doctors and diagnoses with facts on the days. Read
+     * before and after the facts of the days are rebuilt, they include the sketches visits left and joined.
+     * @param days the days
+     * @return the sketches' keys, possibly repeated
+     */
+    public List<Key> keysOf(Collection<LocalDate> days) {
+        return patientReachRepository.findKeysOfDays(days);
+    }
+
+    /**
+     * Rebuilds sketches from the completed visits, in the caller's transaction. A doctor or diagnosis without any
+     * visits left in the month loses its sketch.
+     * @param keys the sketches to rebuild
+     */
+    public void rebuild(Collection<Key> keys) {
+        Map<AnalyticsDimension, Map<LocalDate, List<Long>>> groups = keys.stream()
+                .distinct()
+                .collect(Collectors.groupingBy(Key::dimension, TreeMap::new,
+                        Collectors.groupingBy(Key::month, TreeMap::new, Collectors.mapping(Key::id, Collectors.toList()))));
+        groups.forEach((dimension, months) -> months.forEach((month, ids) -> {
+            Map<Long, HyperLogLog> sketches = new HashMap<>();
+            patientReachRepository.forEachPatient(dimension, month, ids,
+                    (id, patientId) -> sketches.computeIfAbsent(id, key -> new HyperLogLog()).add(patientId));
+            Map<Long, byte[]> serialized = new HashMap<>();
+            sketches.forEach((id, sketch) -> serialized.put(id, sketch.toBytes()));
+            patientReachRepository.replace(dimension, month, ids, serialized);
+        }));
+    }
+
+    /**
+     * Estimates the distinct patients seen per doctor or diagnosis over a range of months, merging their monthly
+     * sketches, so a patient seen in several months is counted once. The sketches arrive ordered by ID, so only one
+     * merged sketch is held at a time.
+     * @param dimension {@link AnalyticsDimension#DOCTOR} or {@link AnalyticsDimension#DIAGNOSIS}
+     * @param id only this doctor or diagnosis; null for all
+     * @param from the first day of the first month; null for no lower bound
+     * @param to the first day of the last month; null for no upper bound
+     * @param limit the most doctors or diagnoses to estimate
+     * @return the estimates, ordered by ID
+     */
+    public List<PatientReachRowDTO> estimate(AnalyticsDimension dimension, Long id, LocalDate from, LocalDate to, int limit) {
+        List<PatientReachRowDTO> rows = new ArrayList<>();
+        Merged[] current = new Merged[1];
+        patientReachRepository.forEachSketch(dimension, id, from, to, sketch -> {
+            if (current[0] != null && current[0].id() == sketch.id()) {
+                current[0].sketch().merge(HyperLogLog.fromBytes(sketch.sketch()));
+                return;
+            }
+            if (current[0] != null) {
+                rows.add(current[0].toRow());
+            }
+            current[0] = rows.size() < limit ? new Merged(sketch.id(), sketch.name(), HyperLogLog.fromBytes(sketch.sketch())) : null;
+        });
+        if (current[0] != null) {
+            rows.add(current[0].toRow());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,123 @@
+package nbu.cscb869.services.services.utility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable trie mapping string keys to values, for prefix lookups such as autocompletion.
+ * <p>
+ * {@link #with} returns a new trie that shares every node off the path of the added key with this one, so a trie can
+ * be published to concurrent readers and replaced on a change without copying it or locking the readers out. Keys are
+ * used as given; callers that want case-insensitive lookups normalize them first.
+ * @param <V> the type of the values
+ */
+public final class PrefixTrie<V> {
+
+    private static final PrefixTrie<?> EMPTY = new PrefixTrie<>(new Node<>(Map.of(), List.of()), 0);
+
+    private final Node<V> root;
+    private final int size;
+
+    private PrefixTrie(Node<V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty trie.
+     * @param <V> the type of the values
+     * @return a trie without keys
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PrefixTrie<V> empty() {
+        return (PrefixTrie<V>) EMPTY;
+    }
+
+    /**
+     * Returns a trie that also maps a key to a value. A key may map to several values; adding a value the key already
+     * maps to returns this trie.
+     * @param key the key
+     * @param value the value
+     * @return the new trie
+     */
+    public PrefixTrie<V> with(String key, V value) {
+        Node<V> updated = root.with(key, 0, value);
+        return updated == root ? this : new PrefixTrie<>(updated, size + 1);
+    }
+
+    /**
+     * Returns the values of the keys that start with a prefix, in alphabetical order of their keys. A value reached
+     * through several keys is returned once.
+     * @param prefix the prefix; empty to list from the first key
+     * @param limit the maximum number of values to return
+     * @return at most {@code limit} values
+     */
+    public List<V> find(String prefix, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Set<V> found = new LinkedHashSet<>();
+        node.collect(found, limit);
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Returns the number of key-value pairs in the trie.
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    private record Node<V>(Map<Character, Node<V>> children, List<V> values) {
+
+        Node<V> with(String key, int depth, V value) {
+            if (depth == key.length()) {
+                if (values.contains(value)) {
+                    return this;
+                }
+                List<V> updated = new ArrayList<>(values.size() + 1);
+                updated.addAll(values);
+                updated.add(value);
+                return new Node<>(children, Collections.unmodifiableList(updated));
+            }
+            char c = key.charAt(depth);
+            Node<V> child = children.get(c);
+            Node<V> updatedChild = (child != null ? child : new Node<V>(Map.of(), List.of())).with(key, depth + 1, value);
+            if (updatedChild == child) {
+                return this;
+            }
+            TreeMap<Character, Node<V>> updated = new TreeMap<>(children);
+            updated.put(c, updatedChild);
+            return new Node<>(Collections.unmodifiableMap(updated), values);
+        }
+
+        /** Adds the values of this node and its descendants, depth first in key order, until the limit is reached. */
+        boolean collect(Set<V> found, int limit) {
+            for (V value : values) {
+                found.add(value);
+                if (found.size() >= limit) {
+                    return true;
+                }
+            }
+            for (Node<V> child : children.values()) {
+                if (child.collect(found, limit)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
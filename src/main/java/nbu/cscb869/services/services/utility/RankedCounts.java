@@ -0,0 +1,99 @@
+package nbu.cscb869.services.services.utility;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Counts per key, kept in order of count so that the most frequent keys are read without sorting.
+ * <p>
+ * Every key with a positive count has one entry in a tree ordered by count, highest first, and then by key. Changing a
+ * count moves its entry in O(log n), and the top k entries are read in O(log n + k). A count that drops to zero or
+ * below removes its key. Not thread-safe.
+ * @param <K> the type of the keys
+ */
+public final class RankedCounts<K extends Comparable<K>> {
+
+    /**
+     * A key and its count.
+     * @param key the key
+     * @param count the count
+     * @param <K> the type of the key
+     */
+    public record Ranked<K>(K key, long count) {
+    }
+
+    private final Map<K, Long> counts = new HashMap<>();
+    private final NavigableSet<Ranked<K>> ranking = new TreeSet<>(
+            Comparator.<Ranked<K>>comparingLong(Ranked::count).reversed().thenComparing(Ranked::key));
+
+    /**
+     * Creates the ranking of given counts.
+     * @param counts the count of every key
+     * @param <K> the type of the keys
+     * @return the ranking
+     */
+    public static <K extends Comparable<K>> RankedCounts<K> of(Map<K, Long> counts) {
+        RankedCounts<K> ranked = new RankedCounts<>();
+        counts.forEach(ranked::add);
+        return ranked;
+    }
+
+    /**
+     * Adds to the count of a key.
+     * @param key the key
+     * @param delta the amount to add, negative to subtract
+     */
+    public void add(K key, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        Long current = counts.get(key);
+        if (current != null) {
+            ranking.remove(new Ranked<>(key, current));
+        }
+        long updated = (current == null ? 0 : current) + delta;
+        if (updated > 0) {
+            counts.put(key, updated);
+            ranking.add(new Ranked<>(key, updated));
+        } else {
+            counts.remove(key);
+        }
+    }
+
+    /**
+     * Returns the count of a key.
+     * @param key the key
+     * @return the count, 0 if the key has none
+     */
+    public long count(K key) {
+        return counts.getOrDefault(key, 0L);
+    }
+
+    /**
+     * Returns the keys with the highest counts.
+     * @param limit the most keys to return
+     * @return the keys and their counts, highest first
+     */
+    public List<Ranked<K>> top(int limit) {
+        List<Ranked<K>> top = new ArrayList<>(Math.min(limit, counts.size()));
+        Iterator<Ranked<K>> entries = ranking.iterator();
+        while (top.size() < limit && entries.hasNext()) {
+            top.add(entries.next());
+        }
+        return top;
+    }
+
+    /**
+     * Returns the number of keys with a positive count.
+     * @return the number of keys
+     */
+    public int size() {
+        return counts.size();
+    }
+}
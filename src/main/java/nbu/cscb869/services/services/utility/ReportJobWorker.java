@@ -0,0 +1,207 @@
+package nbu.cscb869.services.services.utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.reports.ReportJobProperties;
+import nbu.cscb869.data.models.ReportJob;
+import nbu.cscb869.data.models.enums.ReportType;
+import nbu.cscb869.data.repositories.ReportJobRepository;
+import nbu.cscb869.services.data.dtos.ReportJobRequestDTO;
+import nbu.cscb869.services.services.contracts.DiagnosisService;
+import nbu.cscb869.services.services.contracts.DoctorService;
+import nbu.cscb869.services.services.contracts.PatientService;
+import nbu.cscb869.services.services.contracts.VisitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Computes queued report jobs in the background, on the bounded {@code reportJobExecutor}.
+ * <p>
+ * A job is {@link #dispatch(Long) dispatched} as soon as it is created. Every {@code app.reports.jobs.poll-interval}
+ * the jobs still queued, because the executor was full or the instance stopped, are dispatched again, and so are the
+ * jobs that have been running for longer than {@code app.reports.jobs.run-timeout}. A worker first claims its job with
+ * a conditional update, so a job dispatched twice, or by several instances, is computed once. The report is computed
+ * on the reporting pool as the admin who requested it, and its JSON is stored gzip-compressed until
+ * {@code app.reports.jobs.result-ttl} has passed; expired jobs are deleted by the same poll.
+ */
+@Service
+public class ReportJobWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobWorker.class);
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    private final ReportJobRepository reportJobRepository;
+    private final VisitService visitService;
+    private final DoctorService doctorService;
+    private final DiagnosisService diagnosisService;
+    private final PatientService patientService;
+    private final ReportJobProperties properties;
+    private final TaskExecutor executor;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public ReportJobWorker(ReportJobRepository reportJobRepository, VisitService visitService,
+                           DoctorService doctorService, DiagnosisService diagnosisService, PatientService patientService,
+                           ReportJobProperties properties, @Qualifier("reportJobExecutor") TaskExecutor executor,
+                           ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.reportJobRepository = reportJobRepository;
+        this.visitService = visitService;
+        this.doctorService = doctorService;
+        this.diagnosisService = diagnosisService;
+        this.patientService = patientService;
+        this.properties = properties;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Hands a job to a worker. A job the executor has no room for stays queued for the next poll.
+     * @param jobId the job ID
+     */
+    public void dispatch(Long jobId) {
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (TaskRejectedException e) {
+            logger.debug("Report job {} left queued, all workers are busy", jobId);
+        }
+    }
+
+    /**
+     * Queues again the jobs whose worker was lost, dispatches the queued jobs and deletes the expired ones.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.jobs.poll-interval:PT10S}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> queued = inBackgroundTransaction(() -> {
+            int requeued = reportJobRepository.requeueStale(now.minus(properties.getRunTimeout()), now);
+            if (requeued > 0) {
+                logger.warn("Queued {} report job(s) again that ran for longer than {}", requeued, properties.getRunTimeout());
+            }
+            int deleted = reportJobRepository.deleteExpired(now);
+            if (deleted > 0) {
+                logger.debug("Deleted {} expired report job(s)", deleted);
+            }
+            // Jobs created since the last poll have just been dispatched by the request that created them.
+            return reportJobRepository.findQueuedIds(now.minus(properties.getPollInterval()),
+                    PageRequest.of(0, properties.getWorkerThreads() + properties.getQueueCapacity()));
+        });
+        queued.forEach(this::dispatch);
+    }
+
+    /**
+     * Computes a job, unless another worker has claimed it.
+     * @param jobId the job ID
+     */
+    void run(Long jobId) {
+        ReportJob job = inBackgroundTransaction(() -> reportJobRepository.claim(jobId, LocalDateTime.now()) == 0
+                ? null : reportJobRepository.findById(jobId).orElse(null));
+        if (job == null) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "completed";
+        try {
+            ReportJobRequestDTO request = objectMapper.readValue(job.getParameters(), ReportJobRequestDTO.class);
+            byte[] result = compress(objectMapper.writeValueAsBytes(computeAs(job.getRequestedBy(), request)));
+            LocalDateTime now = LocalDateTime.now();
+            inBackgroundTransaction(() -> reportJobRepository.complete(jobId, result, now, now.plus(properties.getResultTtl())));
+            logger.info("Computed report job {} ({}), {} compressed byte(s)", jobId, job.getReportType(), result.length);
+        } catch (IOException | RuntimeException e) {
+            outcome = "failed";
+            logger.warn("Report job {} ({}) failed: {}", jobId, job.getReportType(), e.getMessage());
+            LocalDateTime now = LocalDateTime.now();
+            inBackgroundTransaction(() -> reportJobRepository.fail(jobId, truncate(String.valueOf(e.getMessage())), now,
+                    now.plus(properties.getResultTtl())));
+        } finally {
+            sample.stop(meterRegistry.timer("medical.reports.jobs", "type", job.getReportType().name(), "outcome", outcome));
+        }
+    }
+
+    /**
+     * Computes a report on the reporting pool. Creating the job required the admin role, so the report is computed as
+     * the requesting admin even when the job runs long after the request.
+     */
+    private Object computeAs(String requestedBy, ReportJobRequestDTO request) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(requestedBy, null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        SecurityContextHolder.setContext(context);
+        try {
+            return WorkloadContext.callWithin(Workload.REPORTING, () -> compute(request));
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    /**
+     * Computes a report as the matching {@code /api/reports} endpoint does.
+     * @param request the report type and parameters
+     * @return the report
+     */
+    Object compute(ReportJobRequestDTO request) {
+        ReportType type = request.getType();
+        int page = type.isPaged() ? request.getPage() : 0;
+        int size = type.isPaged() ? request.getSize() : 0;
+        return switch (type) {
+            case PATIENTS_BY_DIAGNOSIS -> patientService.findByDiagnosis(request.getDiagnosisId(), PageRequest.of(page, size));
+            case MOST_FREQUENT_DIAGNOSES -> visitService.getMostFrequentDiagnoses();
+            case DIAGNOSIS_CHAPTERS -> diagnosisService.getVisitCountsByChapter();
+            case DIAGNOSIS_CATEGORIES -> diagnosisService.getVisitCountsByCategory();
+            case GP_PATIENT_COUNTS -> doctorService.getPatientCountReport();
+            case DOCTOR_VISIT_COUNTS -> visitService.getVisitCountByDoctor();
+            case DOCTORS_WITH_MOST_SICK_LEAVES -> doctorService.getDoctorsWithMostSickLeaves();
+            case MOST_FREQUENT_SICK_LEAVE_MONTH -> visitService.getMostFrequentSickLeaveMonth();
+            case VISITS_BY_DATE -> visitService.getVisitsByDateRange(request.getStartDate(), request.getEndDate(), page, size);
+            case DOCTOR_VISITS_BY_DATE -> visitService.getVisitsByDoctorAndDateRange(request.getDoctorId(),
+                    request.getStartDate(), request.getEndDate(), page, size);
+        };
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private <T> T inBackgroundTransaction(Supplier<T> work) {
+        return WorkloadContext.callWithin(Workload.BACKGROUND, () -> transactionTemplate.execute(status -> work.get()));
+    }
+}
@@ -0,0 +1,189 @@
+package nbu.cscb869.services.services.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable index of named entries for autocompletion, returning the highest-ranked entries that match typed text.
+ * <p>
+ * Entries are ranked by weight, then by name, and stored in rank order, so the position of an entry is its rank.
+ * Text of {@value #GRAM} or more characters matches names that contain it anywhere, ignoring case: each
+ * {@value #GRAM}-character gram of a name lists the ranks of the entries containing it in ascending order, so the
+ * shortest list of the text's grams is walked from the best rank down and the walk stops once enough entries
+ * contain the whole text. Shorter text matches names with a word starting with it: the word starts of all names are
+ * kept sorted, the matching ones form one range, and the best ranks in that range are picked.
+ */
+public final class SuggestionIndex {
+
+    /** The length of the grams that substring matches are looked up by. */
+    public static final int GRAM = 3;
+
+    private static final SuggestionIndex EMPTY = of(List.of());
+
+    /**
+     * An entry that can be suggested.
+     * @param id the ID of the entity
+     * @param name its name
+     * @param weight its popularity; higher is suggested first
+     */
+    public record Entry(Long id, String name, long weight) {
+    }
+
+    private final Entry[] entries;
+    private final String[] keys;
+    private final String[] words;
+    private final int[] wordRanks;
+    private final Map<String, int[]> grams;
+
+    private SuggestionIndex(Entry[] entries, String[] keys, String[] words, int[] wordRanks, Map<String, int[]> grams) {
+        this.entries = entries;
+        this.keys = keys;
+        this.words = words;
+        this.wordRanks = wordRanks;
+        this.grams = grams;
+    }
+
+    /**
+     * Returns the index without entries.
+     * @return the empty index
+     */
+    public static SuggestionIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds an index.
+     * @param entries the entries, in any order
+     * @return the index
+     */
+    public static SuggestionIndex of(Collection<Entry> entries) {
+        Entry[] ranked = entries.stream()
+                .sorted(Comparator.comparingLong(Entry::weight).reversed()
+                        .thenComparing(Entry::name, String.CASE_INSENSITIVE_ORDER))
+                .toArray(Entry[]::new);
+        String[] keys = new String[ranked.length];
+        List<String> words = new ArrayList<>();
+        List<Integer> wordRanks = new ArrayList<>();
+        Map<String, List<Integer>> grams = new HashMap<>();
+        for (int rank = 0; rank < ranked.length; rank++) {
+            String key = key(ranked[rank].name());
+            keys[rank] = key;
+            for (int i = 0; i < key.length(); i++) {
+                if (i == 0 || key.charAt(i - 1) == ' ') {
+                    words.add(key.substring(i));
+                    wordRanks.add(rank);
+                }
+            }
+            for (String gram : gramsOf(key)) {
+                grams.computeIfAbsent(gram, g -> new ArrayList<>()).add(rank);
+            }
+        }
+
+        Integer[] order = new Integer[words.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(words::get));
+        String[] sortedWords = new String[order.length];
+        int[] sortedRanks = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedWords[i] = words.get(order[i]);
+            sortedRanks[i] = wordRanks.get(order[i]);
+        }
+        Map<String, int[]> postings = new HashMap<>(grams.size() * 2);
+        grams.forEach((gram, ranks) -> postings.put(gram, ranks.stream().mapToInt(Integer::intValue).toArray()));
+        return new SuggestionIndex(ranked, keys, sortedWords, sortedRanks, Map.copyOf(postings));
+    }
+
+    /**
+     * Returns the best-ranked entries matching typed text.
+     * @param text the text typed so far
+     * @param limit the maximum number of entries
+     * @return at most {@code limit} entries, best first
+     */
+    public List<Entry> top(String text, int limit) {
+        String key = key(text);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int[] ranks = key.length() >= GRAM ? containing(key, limit) : withWordStarting(key, limit);
+        List<Entry> result = new ArrayList<>(ranks.length);
+        for (int rank : ranks) {
+            result.add(entries[rank]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the size
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    private int[] containing(String key, int limit) {
+        int[] shortest = null;
+        for (String gram : gramsOf(key)) {
+            int[] posting = grams.get(gram);
+            if (posting == null) {
+                return new int[0];
+            }
+            if (shortest == null || posting.length < shortest.length) {
+                shortest = posting;
+            }
+        }
+        int[] found = new int[Math.min(limit, shortest.length)];
+        int count = 0;
+        for (int i = 0; i < shortest.length && count < found.length; i++) {
+            if (keys[shortest[i]].contains(key)) {
+                found[count++] = shortest[i];
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private int[] withWordStarting(String key, int limit) {
+        int from = Arrays.binarySearch(words, key);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        // The best ranks seen so far, ascending; an entry with several matching words is kept once.
+        int[] best = new int[limit];
+        int count = 0;
+        for (int i = from; i < words.length && words[i].startsWith(key); i++) {
+            int rank = wordRanks[i];
+            if (count == limit && rank >= best[count - 1]) {
+                continue;
+            }
+            int at = Arrays.binarySearch(best, 0, count, rank);
+            if (at >= 0) {
+                continue;
+            }
+            at = -at - 1;
+            int moved = Math.min(count, limit - 1) - at;
+            System.arraycopy(best, at, best, at + 1, moved);
+            best[at] = rank;
+            count = Math.min(count + 1, limit);
+        }
+        return Arrays.copyOf(best, count);
+    }
+
+    private static Set<String> gramsOf(String key) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            result.add(key.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private static String key(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
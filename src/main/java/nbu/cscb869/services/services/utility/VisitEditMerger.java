@@ -0,0 +1,289 @@
+package nbu.cscb869.services.services.utility;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.common.exceptions.EditConflictException;
+import nbu.cscb869.common.exceptions.EditConflictException.FieldConflict;
+import nbu.cscb869.common.exceptions.ExceptionMessages;
+import nbu.cscb869.config.datasource.DatabaseWorkload;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.edits.VisitEditProperties;
+import nbu.cscb869.data.models.Medicine;
+import nbu.cscb869.data.models.SickLeave;
+import nbu.cscb869.data.models.Treatment;
+import nbu.cscb869.data.models.Visit;
+import nbu.cscb869.data.models.VisitRevision;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import nbu.cscb869.data.repositories.VisitRevisionRepository;
+import nbu.cscb869.services.data.dtos.SickLeaveUpdateDTO;
+import nbu.cscb869.services.data.dtos.TreatmentUpdateDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Merges an edit of a visit that was started from an older version with the changes made since.
+ * <p>
+ * Before a visit is changed, {@link #recordSuperseded} keeps its content at the current version. An edit names the
+ * version it started from; {@link #resolve} compares three states of every field: that version (the base), the edit
+ * and the visit as it is now. A field only the edit changed takes the edit's value, a field only others changed keeps
+ * its current value, and a field both changed to the same value is simply kept. A field both changed to different
+ * values is a true conflict: the edit is rejected with an {@link EditConflictException} listing the three values.
+ * <p>
+ * Outcomes are counted in {@code medical.visits.edits}, tagged {@code current}, {@code merged} or {@code conflict}.
+ */
+@Service
+public class VisitEditMerger {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitEditMerger.class);
+
+    /**
+     * The fields of a visit that are merged one by one. A treatment, with its medicines, and a sick leave are merged
+     * as a whole.
+     */
+    public enum Field {
+        VISIT_DATE(VisitSnapshot::visitDate),
+        VISIT_TIME(VisitSnapshot::visitTime),
+        PATIENT(VisitSnapshot::patientId),
+        DOCTOR(VisitSnapshot::doctorId),
+        DIAGNOSIS(VisitSnapshot::diagnosisId),
+        NOTES(VisitSnapshot::notes),
+        STATUS(VisitSnapshot::status),
+        TREATMENT(VisitSnapshot::treatment),
+        SICK_LEAVE(VisitSnapshot::sickLeave);
+
+        private final Function<VisitSnapshot, Object> value;
+
+        Field(Function<VisitSnapshot, Object> value) {
+            this.value = value;
+        }
+
+        Object of(VisitSnapshot snapshot) {
+            return value.apply(snapshot);
+        }
+    }
+
+    /**
+     * The content of a visit as far as edits are concerned. Blank notes count as none.
+     */
+    public record VisitSnapshot(LocalDate visitDate, LocalTime visitTime, Long patientId, Long doctorId,
+                                Long diagnosisId, String notes, VisitStatus status, TreatmentSnapshot treatment,
+                                SickLeaveSnapshot sickLeave) {
+
+        public VisitSnapshot {
+            notes = notes == null || notes.isBlank() ? null : notes;
+        }
+
+        /**
+         * Returns the content of a visit.
+         * @param visit the visit
+         * @return its snapshot
+         */
+        public static VisitSnapshot of(Visit visit) {
+            return new VisitSnapshot(visit.getVisitDate(), visit.getVisitTime(),
+                    visit.getPatient() != null ? visit.getPatient().getId() : null,
+                    visit.getDoctor() != null ? visit.getDoctor().getId() : null,
+                    visit.getDiagnosis() != null ? visit.getDiagnosis().getId() : null,
+                    visit.getNotes(), visit.getStatus(),
+                    TreatmentSnapshot.of(visit.getTreatment()), SickLeaveSnapshot.of(visit.getSickLeave()));
+        }
+    }
+
+    /**
+     * A treatment with its medicines, ordered by name so that reordering them is not a change.
+     */
+    public record TreatmentSnapshot(String description, List<MedicineSnapshot> medicines) {
+
+        public TreatmentSnapshot {
+            medicines = medicines == null ? List.of()
+                    : medicines.stream().sorted(Comparator.comparing(MedicineSnapshot::name,
+                    Comparator.nullsFirst(Comparator.naturalOrder()))).toList();
+        }
+
+        static TreatmentSnapshot of(Treatment treatment) {
+            if (treatment == null) {
+                return null;
+            }
+            return new TreatmentSnapshot(treatment.getDescription(),
+                    treatment.getMedicines().stream().map(MedicineSnapshot::of).toList());
+        }
+
+        /**
+         * Returns the treatment a form or request describes; one without a description means no treatment.
+         * @param dto the submitted treatment, or null
+         * @return its snapshot, or null
+         */
+        public static TreatmentSnapshot of(TreatmentUpdateDTO dto) {
+            if (dto == null || dto.getDescription() == null || dto.getDescription().isBlank()) {
+                return null;
+            }
+            return new TreatmentSnapshot(dto.getDescription(), dto.getMedicines() == null ? List.of()
+                    : dto.getMedicines().stream()
+                    .map(m -> new MedicineSnapshot(m.getName(), m.getDosage(), m.getFrequency()))
+                    .toList());
+        }
+    }
+
+    public record MedicineSnapshot(String name, String dosage, String frequency) {
+        static MedicineSnapshot of(Medicine medicine) {
+            return new MedicineSnapshot(medicine.getName(), medicine.getDosage(), medicine.getFrequency());
+        }
+    }
+
+    public record SickLeaveSnapshot(LocalDate startDate, int durationDays) {
+
+        static SickLeaveSnapshot of(SickLeave sickLeave) {
+            return sickLeave == null ? null : new SickLeaveSnapshot(sickLeave.getStartDate(), sickLeave.getDurationDays());
+        }
+
+        /**
+         * Returns the sick leave a form or request describes; one without a start date or duration means none.
+         * @param dto the submitted sick leave, or null
+         * @return its snapshot, or null
+         */
+        public static SickLeaveSnapshot of(SickLeaveUpdateDTO dto) {
+            if (dto == null || dto.getStartDate() == null || dto.getDurationDays() == null || dto.getDurationDays() <= 0) {
+                return null;
+            }
+            return new SickLeaveSnapshot(dto.getStartDate(), dto.getDurationDays());
+        }
+    }
+
+    private final VisitRevisionRepository visitRevisionRepository;
+    private final VisitEditProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public VisitEditMerger(VisitRevisionRepository visitRevisionRepository, VisitEditProperties properties,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.visitRevisionRepository = visitRevisionRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Decides which fields of an edit to apply.
+     * @param visit the visit as it is now
+     * @param baseVersion the version the edit started from; null to apply the whole edit
+     * @param edit the content the edit asks for
+     * @return the fields that must keep their current value instead of taking the edit's
+     * @throws EditConflictException if the edit and a change made since set a field to different values
+     */
+    public Set<Field> resolve(Visit visit, Long baseVersion, VisitSnapshot edit) {
+        if (baseVersion == null || baseVersion.equals(visit.getVersion())) {
+            count("current");
+            return EnumSet.noneOf(Field.class);
+        }
+        VisitSnapshot current = VisitSnapshot.of(visit);
+        VisitSnapshot base = findRevision(visit.getId(), baseVersion);
+
+        Set<Field> keep = EnumSet.noneOf(Field.class);
+        List<FieldConflict> conflicts = new ArrayList<>();
+        for (Field field : Field.values()) {
+            Object yours = field.of(edit);
+            Object now = field.of(current);
+            if (Objects.equals(yours, now)) {
+                continue;
+            }
+            // Without the base, any difference may be a change made since, which the edit must not silently undo.
+            Object was = base == null ? null : field.of(base);
+            boolean changedByEdit = base == null || !Objects.equals(yours, was);
+            boolean changedSince = base == null || !Objects.equals(now, was);
+            if (changedByEdit && changedSince) {
+                conflicts.add(new FieldConflict(field.name(), was, yours, now));
+            } else if (changedSince) {
+                keep.add(field);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            count("conflict");
+            String fields = conflicts.stream().map(FieldConflict::field).collect(Collectors.joining(", "));
+            logger.info("Rejected edit of visit {} based on version {} (now {}): conflicting fields {}",
+                    visit.getId(), baseVersion, visit.getVersion(), fields);
+            throw new EditConflictException(ExceptionMessages.formatVisitEditConflict(visit.getId(), baseVersion, fields),
+                    visit.getVersion(), conflicts);
+        }
+        count("merged");
+        logger.debug("Merged edit of visit {} based on version {} (now {}), keeping {}",
+                visit.getId(), baseVersion, visit.getVersion(), keep);
+        return keep;
+    }
+
+    /**
+     * Keeps the content of a visit at its current version, before it is changed. Joins the caller's transaction.
+     * <p>
+     * A version is recorded once: an edit that changed nothing left the version as it was, and its content is already
+     * kept. Two edits recording the same version at once are racing to change the visit, so the one that loses the
+     * insert fails as an optimistic lock failure, to be retried against the winner's change.
+     * @param visit the visit, not yet changed
+     * @throws OptimisticLockingFailureException if a concurrent edit recorded the same version first
+     */
+    public void recordSuperseded(Visit visit) {
+        if (visit.getId() == null || visit.getVersion() == null
+                || visitRevisionRepository.existsByVisitIdAndVisitVersion(visit.getId(), visit.getVersion())) {
+            return;
+        }
+        try {
+            visitRevisionRepository.save(VisitRevision.builder()
+                    .visitId(visit.getId())
+                    .visitVersion(visit.getVersion())
+                    .snapshot(objectMapper.writeValueAsString(VisitSnapshot.of(visit)))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize visit " + visit.getId(), e);
+        } catch (DataIntegrityViolationException e) {
+            throw new OptimisticLockingFailureException("Version " + visit.getVersion() + " of visit " + visit.getId()
+                    + " was superseded by a concurrent edit", e);
+        }
+    }
+
+    /**
+     * Deletes revisions older than {@code app.visit-edits.revision-retention}.
+     */
+    @Scheduled(fixedDelayString = "${app.visit-edits.purge-interval:PT6H}", initialDelayString = "PT5M")
+    @Transactional
+    @DatabaseWorkload(Workload.BACKGROUND)
+    public void purgeRevisions() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRevisionRetention());
+        int purged = visitRevisionRepository.deleteCreatedBefore(cutoff);
+        if (purged > 0) {
+            logger.info("Purged {} visit revision(s) recorded before {}", purged, cutoff);
+        }
+    }
+
+    private VisitSnapshot findRevision(Long visitId, Long version) {
+        return visitRevisionRepository.findByVisitIdAndVisitVersion(visitId, version)
+                .map(revision -> {
+                    try {
+                        return objectMapper.readValue(revision.getSnapshot(), VisitSnapshot.class);
+                    } catch (JsonProcessingException e) {
+                        logger.warn("Ignoring unreadable revision {} of visit {}: {}", version, visitId, e.getOriginalMessage());
+                        return null;
+                    }
+                })
+                .orElse(null);
+    }
+
+    private void count(String outcome) {
+        Counter.builder("medical.visits.edits").tag("outcome", outcome).register(meterRegistry).increment();
+    }
+}
@@ -0,0 +1,419 @@
+package nbu.cscb869.services.services.utility;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.exports.FactExportProperties;
+import nbu.cscb869.data.repositories.VisitExportRepository;
+import nbu.cscb869.data.repositories.VisitExportRepository.Catalogue;
+import nbu.cscb869.data.repositories.VisitExportRepository.MonthSignature;
+import nbu.cscb869.services.data.dtos.FactExportResultDTO;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Exports visits, their diagnoses, treatments, prescriptions and sick leaves as Arrow IPC files, for analysts who load
+ * them into pandas, DuckDB or Spark instead of paging through the API.
+ * <p>
+ * The export directory holds one {@code month=yyyy-MM} partition per month with visits, each with a
+ * {@code visits.arrow} and a {@code prescriptions.arrow} file, and a {@code _manifest.json} recording the
+ * {@link MonthSignature} every partition was written from. An incremental export only rewrites the months whose
+ * signature has changed since and removes the months left without visits; a full one rewrites every month. The rows of
+ * a month are streamed from the database into record batches of {@code app.fact-export.batch-rows} rows, so memory use
+ * does not grow with the month. Doctor, diagnosis and medication names are dictionary-encoded against their whole
+ * catalogue, and every file is written next to its partition and then moved into place, so readers never see one half
+ * written.
+ */
+@Service
+public class VisitFactExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitFactExporter.class);
+
+    static final String MANIFEST = "_manifest.json";
+    static final String VISITS_FILE = "visits.arrow";
+    static final String PRESCRIPTIONS_FILE = "prescriptions.arrow";
+
+    private static final ArrowType INT64 = new ArrowType.Int(64, true);
+    private static final ArrowType.Int INT32 = new ArrowType.Int(32, true);
+    private static final ArrowType DATE = new ArrowType.Date(DateUnit.DAY);
+    private static final DictionaryEncoding DOCTOR_NAMES = new DictionaryEncoding(0L, false, INT32);
+    private static final DictionaryEncoding DIAGNOSIS_NAMES = new DictionaryEncoding(1L, false, INT32);
+    private static final DictionaryEncoding MEDICATION_NAMES = new DictionaryEncoding(2L, false, INT32);
+
+    static final Schema VISITS_SCHEMA = new Schema(List.of(
+            column("visit_id", INT64, false),
+            column("visit_date", DATE, false),
+            column("status", ArrowType.Utf8.INSTANCE, false),
+            column("patient_id", INT64, false),
+            column("general_practitioner_id", INT64, true),
+            column("doctor_id", INT64, false),
+            new Field("doctor", new FieldType(true, INT32, DOCTOR_NAMES), null),
+            column("diagnosis_id", INT64, true),
+            new Field("diagnosis", new FieldType(true, INT32, DIAGNOSIS_NAMES), null),
+            column("icd10_code", ArrowType.Utf8.INSTANCE, true),
+            column("treatment_id", INT64, true),
+            column("treatment", ArrowType.Utf8.INSTANCE, true),
+            column("sick_leave_start", DATE, true),
+            column("sick_leave_days", INT32, true)));
+
+    static final Schema PRESCRIPTIONS_SCHEMA = new Schema(List.of(
+            column("visit_id", INT64, false),
+            column("treatment_id", INT64, false),
+            column("medication_id", INT64, false),
+            new Field("medication", new FieldType(true, INT32, MEDICATION_NAMES), null),
+            column("dosage", ArrowType.Utf8.INSTANCE, true),
+            column("frequency", ArrowType.Utf8.INSTANCE, true)));
+
+    /** What the manifest records of a written partition. */
+    record Partition(MonthSignature signature, Instant exportedOn) {
+    }
+
+    private final VisitExportRepository visitExportRepository;
+    private final FactExportProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Counter exportedRows;
+
+    public VisitFactExporter(VisitExportRepository visitExportRepository, FactExportProperties properties,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.visitExportRepository = visitExportRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.exportedRows = Counter.builder("medical.export.rows").register(meterRegistry);
+    }
+
+    /**
+     * Runs an incremental export every {@code app.fact-export.interval}, if {@code app.fact-export.enabled}.
+     */
+    @Scheduled(fixedDelayString = "${app.fact-export.interval:PT1H}")
+    public void scheduledExport() {
+        if (properties.isEnabled()) {
+            export(false);
+        }
+    }
+
+    /**
+     * Writes the months changed since the last export, or all of them. Exports run one at a time.
+     * @param full whether to rewrite the months that have not changed as well
+     * @return the months written and removed, and the rows written
+     * @throws UncheckedIOException if the export directory cannot be written; the months written until then are kept
+     */
+    public synchronized FactExportResultDTO export(boolean full) {
+        return WorkloadContext.callWithin(Workload.BACKGROUND, () -> {
+            try {
+                return run(full);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private FactExportResultDTO run(boolean full) throws IOException {
+        long start = System.nanoTime();
+        Path directory = Files.createDirectories(properties.getDirectory());
+        Map<String, Partition> manifest = readManifest(directory);
+        Map<YearMonth, MonthSignature> months = visitExportRepository.findMonthSignatures();
+
+        FactExportResultDTO result = FactExportResultDTO.builder()
+                .directory(directory.toAbsolutePath().toString())
+                .exportedMonths(new ArrayList<>())
+                .removedMonths(new ArrayList<>())
+                .build();
+        for (String month : List.copyOf(manifest.keySet())) {
+            if (!months.containsKey(YearMonth.parse(month))) {
+                deletePartition(directory, month);
+                manifest.remove(month);
+                writeManifest(directory, manifest);
+                result.getRemovedMonths().add(month);
+            }
+        }
+
+        List<YearMonth> stale = months.entrySet().stream()
+                .filter(month -> full || !manifest.containsKey(month.getKey().toString())
+                        || !manifest.get(month.getKey().toString()).signature().equals(month.getValue()))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        result.setUnchangedMonths(months.size() - stale.size());
+        if (!stale.isEmpty()) {
+            try (BufferAllocator allocator = new RootAllocator(properties.getBufferLimit().toBytes());
+                 Dictionaries dictionaries = new Dictionaries(allocator)) {
+                for (YearMonth month : stale) {
+                    writePartition(directory, month, allocator, dictionaries, result);
+                    manifest.put(month.toString(), new Partition(months.get(month), Instant.now()));
+                    writeManifest(directory, manifest);
+                    result.getExportedMonths().add(month.toString());
+                }
+            }
+        }
+
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        logger.info("Exported {} month(s) of visits to {} ({} visits, {} prescriptions, {} month(s) removed) in {} ms",
+                stale.size(), directory, result.getVisits(), result.getPrescriptions(), result.getRemovedMonths().size(),
+                result.getElapsedMillis());
+        return result;
+    }
+
+    private void writePartition(Path directory, YearMonth month, BufferAllocator allocator, Dictionaries dictionaries,
+                                FactExportResultDTO result) throws IOException {
+        Path partition = Files.createDirectories(directory.resolve(partitionName(month.toString())));
+
+        long visits = write(partition.resolve(VISITS_FILE), VISITS_SCHEMA, allocator, dictionaries, batch ->
+                visitExportRepository.streamVisits(month, visit -> {
+                    int row = batch.next();
+                    ((BigIntVector) batch.vector(0)).setSafe(row, visit.id());
+                    ((DateDayVector) batch.vector(1)).setSafe(row, (int) visit.visitDate().toEpochDay());
+                    setString(batch.vector(2), row, visit.status());
+                    ((BigIntVector) batch.vector(3)).setSafe(row, visit.patientId());
+                    setLong(batch.vector(4), row, visit.generalPractitionerId());
+                    ((BigIntVector) batch.vector(5)).setSafe(row, visit.doctorId());
+                    setInt(batch.vector(6), row, dictionaries.doctors.get(visit.doctorId()));
+                    setLong(batch.vector(7), row, visit.diagnosisId());
+                    setInt(batch.vector(8), row, dictionaries.diagnoses.get(visit.diagnosisId()));
+                    setString(batch.vector(9), row, visit.diagnosisCode());
+                    setLong(batch.vector(10), row, visit.treatmentId());
+                    setString(batch.vector(11), row, visit.treatmentDescription());
+                    setDate(batch.vector(12), row, visit.sickLeaveStart());
+                    setInt(batch.vector(13), row, visit.sickLeaveDays());
+                }));
+        long prescriptions = write(partition.resolve(PRESCRIPTIONS_FILE), PRESCRIPTIONS_SCHEMA, allocator, dictionaries,
+                batch -> visitExportRepository.streamPrescriptions(month, prescription -> {
+                    int row = batch.next();
+                    ((BigIntVector) batch.vector(0)).setSafe(row, prescription.visitId());
+                    ((BigIntVector) batch.vector(1)).setSafe(row, prescription.treatmentId());
+                    ((BigIntVector) batch.vector(2)).setSafe(row, prescription.medicationId());
+                    setInt(batch.vector(3), row, dictionaries.medications.get(prescription.medicationId()));
+                    setString(batch.vector(4), row, prescription.dosage());
+                    setString(batch.vector(5), row, prescription.frequency());
+                }));
+
+        result.setVisits(result.getVisits() + visits);
+        result.setPrescriptions(result.getPrescriptions() + prescriptions);
+        exportedRows.increment(visits + prescriptions);
+    }
+
+    /**
+     * Writes one Arrow IPC file, to a temporary file first, which then replaces the file.
+     * @return the number of rows written
+     */
+    private long write(Path file, Schema schema, BufferAllocator allocator, Dictionaries dictionaries,
+                       BatchFiller filler) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows;
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
+             FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING);
+             ArrowFileWriter writer = new ArrowFileWriter(root, dictionaries.provider, channel)) {
+            writer.start();
+            Batch batch = new Batch(root, writer, properties.getBatchRows());
+            filler.fill(batch);
+            batch.flush();
+            writer.end();
+            rows = batch.total;
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temporary);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    private Map<String, Partition> readManifest(Path directory) throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return new TreeMap<>();
+        }
+        return new TreeMap<>(objectMapper.readValue(manifest.toFile(), new TypeReference<Map<String, Partition>>() {
+        }));
+    }
+
+    private void writeManifest(Path directory, Map<String, Partition> manifest) throws IOException {
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporary.toFile(), manifest);
+        Files.move(temporary, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void deletePartition(Path directory, String month) throws IOException {
+        Path partition = directory.resolve(partitionName(month));
+        if (!Files.isDirectory(partition)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(partition)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(partition);
+    }
+
+    static String partitionName(String month) {
+        return "month=" + month;
+    }
+
+    private static Field column(String name, ArrowType type, boolean nullable) {
+        return new Field(name, new FieldType(nullable, type, null), null);
+    }
+
+    private static void setLong(Object vector, int row, Long value) {
+        if (value == null) {
+            ((BigIntVector) vector).setNull(row);
+        } else {
+            ((BigIntVector) vector).setSafe(row, value);
+        }
+    }
+
+    private static void setInt(Object vector, int row, Integer value) {
+        if (value == null) {
+            ((IntVector) vector).setNull(row);
+        } else {
+            ((IntVector) vector).setSafe(row, value);
+        }
+    }
+
+    private static void setDate(Object vector, int row, LocalDate value) {
+        if (value == null) {
+            ((DateDayVector) vector).setNull(row);
+        } else {
+            ((DateDayVector) vector).setSafe(row, (int) value.toEpochDay());
+        }
+    }
+
+    private static void setString(Object vector, int row, String value) {
+        if (value == null) {
+            ((VarCharVector) vector).setNull(row);
+        } else {
+            ((VarCharVector) vector).setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Fills the batches of one file. */
+    @FunctionalInterface
+    private interface BatchFiller {
+        void fill(Batch batch) throws IOException;
+    }
+
+    /**
+     * The record batch being filled. It is written out and refilled from the start every {@code size} rows.
+     */
+    private static final class Batch {
+        private final VectorSchemaRoot root;
+        private final ArrowFileWriter writer;
+        private final int size;
+        private int rows;
+        private long total;
+
+        Batch(VectorSchemaRoot root, ArrowFileWriter writer, int size) {
+            this.root = root;
+            this.writer = writer;
+            this.size = size;
+            root.allocateNew();
+        }
+
+        /** Returns the index of the next row, writing the batch out first if it is full. */
+        int next() {
+            if (rows == size) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                root.allocateNew();
+            }
+            total++;
+            return rows++;
+        }
+
+        Object vector(int column) {
+            return root.getVector(column);
+        }
+
+        void flush() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            root.setRowCount(rows);
+            writer.writeBatch();
+            rows = 0;
+        }
+    }
+
+    /**
+     * The doctor, diagnosis and medication names of one export, each with the dictionary index of every ID.
+     */
+    private final class Dictionaries implements AutoCloseable {
+        private final Map<Long, Integer> doctors;
+        private final Map<Long, Integer> diagnoses;
+        private final Map<Long, Integer> medications;
+        private final DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+
+        Dictionaries(BufferAllocator allocator) {
+            doctors = load(Catalogue.DOCTORS, DOCTOR_NAMES, allocator);
+            diagnoses = load(Catalogue.DIAGNOSES, DIAGNOSIS_NAMES, allocator);
+            medications = load(Catalogue.MEDICATIONS, MEDICATION_NAMES, allocator);
+        }
+
+        private Map<Long, Integer> load(Catalogue catalogue, DictionaryEncoding encoding, BufferAllocator allocator) {
+            Map<Long, String> names = visitExportRepository.findNames(catalogue);
+            Map<Long, Integer> indexes = new HashMap<>();
+            VarCharVector values = new VarCharVector(catalogue.name().toLowerCase(), allocator);
+            values.allocateNew(names.size());
+            int index = 0;
+            for (Map.Entry<Long, String> name : names.entrySet()) {
+                setString(values, index, name.getValue());
+                indexes.put(name.getKey(), index++);
+            }
+            values.setValueCount(index);
+            provider.put(new Dictionary(values, encoding));
+            return indexes;
+        }
+
+        @Override
+        public void close() {
+            for (long id : provider.getDictionaryIds()) {
+                provider.lookup(id).getVector().close();
+            }
+        }
+    }
+}
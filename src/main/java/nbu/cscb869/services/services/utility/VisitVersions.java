@@ -0,0 +1,25 @@
+package nbu.cscb869.services.services.utility;
+
+import nbu.cscb869.data.models.Visit;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Records that records embedded in visits, such as sick leaves and treatments, changed, so that the visit edits of
+ * {@link VisitEditMerger} see the change. The patients' history snapshots are evicted by the
+ * {@link nbu.cscb869.config.history.HistoryChangeRecorder} as the records themselves are flushed.
+ */
+@Component
+public class VisitVersions {
+
+    /**
+     * Touches some visits, so that their version moves on and a visit edit started before this change is merged with it
+     * instead of overwriting it.
+     * @param visits the visits the record belongs or belonged to; nulls are skipped
+     */
+    public void touch(Visit... visits) {
+        Arrays.stream(visits).filter(Objects::nonNull).forEach(Visit::touch);
+    }
+}
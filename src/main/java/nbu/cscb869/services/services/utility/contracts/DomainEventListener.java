@@ -0,0 +1,18 @@
+package nbu.cscb869.services.services.utility.contracts;
+
+import nbu.cscb869.services.data.events.DomainEvent;
+
+/**
+ * Receives the domain events published on the {@link nbu.cscb869.services.services.utility.DomainEventBus}.
+ * Every bean implementing this interface is subscribed to all events.
+ */
+public interface DomainEventListener {
+
+    /**
+     * Handles an event. Called on one of the bus's delivery threads, outside any transaction, after the change has
+     * committed. Events of the same aggregate arrive one at a time and in order; a slow listener holds up the events
+     * behind it in its lane. Exceptions are logged and do not stop delivery to other listeners.
+     * @param event the event
+     */
+    void onEvent(DomainEvent event);
+}
@@ -0,0 +1,55 @@
+package nbu.cscb869.services.services.utility.contracts;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Remote storage for doctor profile images. Stored images are addressed by their Cloudinary-style public ID, as
+ * returned by {@code CloudinaryService.getPublicIdFromUrl} for the URL of the image.
+ * Implementations are blocking and must not be called while a database transaction is open.
+ */
+public interface ImageStore {
+
+    /**
+     * Folder, relative to the store root, that holds doctor images.
+     */
+    String DOCTOR_FOLDER = "medical_record/doctors";
+
+    /**
+     * Largest number of images {@link #deleteAll(Collection)} accepts in one call.
+     */
+    int MAX_DELETE_BATCH = 100;
+
+    /**
+     * Uploads an image file to the doctor folder.
+     * @param file the local file to upload
+     * @return the public URL of the stored image
+     * @throws IOException if the store could not be reached; the upload may be retried
+     */
+    String upload(Path file) throws IOException;
+
+    /**
+     * Deletes previously uploaded images in one call. Unknown public IDs are ignored.
+     * @param publicIds at most {@link #MAX_DELETE_BATCH} public IDs
+     * @throws IOException if the store could not be reached or refused the call; the deletion may be retried
+     */
+    void deleteAll(Collection<String> publicIds) throws IOException;
+
+    /**
+     * Lists all images in the doctor folder.
+     * @return the stored images
+     * @throws IOException if the store could not be reached
+     */
+    List<StoredImage> list() throws IOException;
+
+    /**
+     * An image in the store.
+     * @param publicId the public ID of the image
+     * @param createdAt when the image was uploaded
+     */
+    record StoredImage(String publicId, Instant createdAt) {
+    }
+}
@@ -0,0 +1,49 @@
+package nbu.cscb869.web.api.caching;
+
+import nbu.cscb869.data.dto.ResourceVersionDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZoneId;
+import java.util.function.Supplier;
+
+/**
+ * Builds responses to conditional GET requests from a {@link ResourceVersionDTO}, so that a client holding the
+ * current representation gets a 304 before the resource is loaded and mapped.
+ * <p>
+ * Only the ETag is used for validation: deleting a child row (e.g. a medicine) changes the fingerprint but not any
+ * modification time, so {@code Last-Modified} is sent for information only.
+ */
+public final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Answers a GET request for a versioned resource.
+     * @param webRequest the current request
+     * @param policy the caching policy of the resource type
+     * @param version the current version of the resource
+     * @param body loads the representation; only called when the client's copy is stale
+     * @param <T> the representation type
+     * @return a 304 without a body if the request's {@code If-None-Match} matches, otherwise a 200 with the body
+     */
+    public static <T> ResponseEntity<T> get(WebRequest webRequest, ResourceCachePolicy policy,
+                                            ResourceVersionDTO version, Supplier<T> body) {
+        String etag = policy.etag(version.getFingerprint());
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(policy.getCacheControl())
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(policy.getCacheControl());
+        if (version.getLastModified() != null) {
+            builder.lastModified(version.getLastModified().atZone(ZoneId.systemDefault()));
+        }
+        return builder.body(body.get());
+    }
+}
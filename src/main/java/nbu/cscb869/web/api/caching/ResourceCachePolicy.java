@@ -0,0 +1,38 @@
+package nbu.cscb869.web.api.caching;
+
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+/**
+ * How long clients may reuse each kind of API resource without revalidating it. Medical records are always
+ * revalidated; reference data that changes rarely may be reused for a short while.
+ */
+public enum ResourceCachePolicy {
+    DOCTOR("doctor", CacheControl.maxAge(Duration.ofMinutes(1)).cachePrivate()),
+    PATIENT("patient", CacheControl.noCache().cachePrivate()),
+    VISIT("visit", CacheControl.noCache().cachePrivate()),
+    SPECIALTIES("specialties", CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate());
+
+    private final String etagPrefix;
+    private final CacheControl cacheControl;
+
+    ResourceCachePolicy(String etagPrefix, CacheControl cacheControl) {
+        this.etagPrefix = etagPrefix;
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Returns the strong ETag of a resource version, prefixed with the resource type so that ETags of different
+     * resources never collide.
+     * @param fingerprint the fingerprint of the resource version
+     * @return the quoted ETag
+     */
+    public String etag(String fingerprint) {
+        return "\"" + etagPrefix + "-" + fingerprint + "\"";
+    }
+
+    public CacheControl getCacheControl() {
+        return cacheControl;
+    }
+}
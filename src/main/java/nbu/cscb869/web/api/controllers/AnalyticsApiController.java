@@ -0,0 +1,146 @@
+package nbu.cscb869.web.api.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import nbu.cscb869.config.OpenApiConstants;
+import nbu.cscb869.config.annotations.ApiStandardResponses;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.AnalyticsMeasure;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import nbu.cscb869.services.data.dtos.AnalyticsQueryDTO;
+import nbu.cscb869.services.data.dtos.AnalyticsResultDTO;
+import nbu.cscb869.services.data.dtos.FactExportResultDTO;
+import nbu.cscb869.services.data.dtos.PatientReachResultDTO;
+import nbu.cscb869.services.services.contracts.AnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * RESTful API Controller for ad-hoc visit and sick leave analytics.
+ * All endpoints are restricted to users with the 'ADMIN' role.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Analytics API", description = "Visit and sick leave totals grouped by any combination of time, doctor, specialty, diagnosis, general practitioner and status.")
+@ApiStandardResponses
+public class AnalyticsApiController {
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsApiController.class);
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsApiController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @Operation(summary = "Query visit analytics", description = "Totals visits, sick leaves and sick leave days per group of the given dimensions over a date range, from pre-aggregated daily and monthly facts. For example ?groupBy=MONTH,SPECIALTY&measures=VISITS,SICK_LEAVE_DAYS&from=2024-01-01&to=2024-12-31.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Totals visits and sick leaves per group over a slice of the visit facts.
+     *
+     * @param groupBy               The dimensions to group by, in order; omit for a grand total.
+     * @param measures              The totals to compute; the visits if omitted.
+     * @param from                  The first day of the range (format YYYY-MM-DD).
+     * @param to                    The last day of the range (format YYYY-MM-DD).
+     * @param doctorId              Only the visits of this doctor.
+     * @param specialtyId           Only the visits to doctors with this specialty.
+     * @param diagnosisId           Only the visits with this diagnosis.
+     * @param diagnosisChapter      Only the visits with a diagnosis in this ICD-10 chapter.
+     * @param generalPractitionerId Only the visits of patients of this general practitioner.
+     * @param status                Only the visits with this status.
+     * @return A ResponseEntity containing the {@link AnalyticsResultDTO}.
+     */
+    @GetMapping
+    public ResponseEntity<AnalyticsResultDTO> query(
+            @Parameter(description = "The dimensions to group by, in order; omit for a grand total.") @RequestParam(required = false) List<AnalyticsDimension> groupBy,
+            @Parameter(description = "The totals to compute; the visits if omitted.") @RequestParam(required = false) List<AnalyticsMeasure> measures,
+            @Parameter(description = "The first day of the range (format YYYY-MM-DD).") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "The last day of the range (format YYYY-MM-DD).") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Only the visits of this doctor.") @RequestParam(required = false) Long doctorId,
+            @Parameter(description = "Only the visits to doctors with this specialty.") @RequestParam(required = false) Long specialtyId,
+            @Parameter(description = "Only the visits with this diagnosis.") @RequestParam(required = false) Long diagnosisId,
+            @Parameter(description = "Only the visits with a diagnosis in this ICD-10 chapter, such as X.") @RequestParam(required = false) String diagnosisChapter,
+            @Parameter(description = "Only the visits of patients of this general practitioner.") @RequestParam(required = false) Long generalPractitionerId,
+            @Parameter(description = "Only the visits with this status.") @RequestParam(required = false) VisitStatus status) {
+        logger.info("API GET request for analytics by {} of {} from {} to {}", groupBy, measures, from, to);
+        AnalyticsQueryDTO query = AnalyticsQueryDTO.builder()
+                .groupBy(groupBy)
+                .measures(measures)
+                .from(from)
+                .to(to)
+                .doctorId(doctorId)
+                .specialtyId(specialtyId)
+                .diagnosisId(diagnosisId)
+                .diagnosisChapter(diagnosisChapter)
+                .generalPractitionerId(generalPractitionerId)
+                .status(status)
+                .build();
+        return ResponseEntity.ok(analyticsService.query(query));
+    }
+
+    @Operation(summary = "Estimate distinct patients seen", description = "Estimates the distinct patients with a completed visit per doctor or per diagnosis over a range of months, from HyperLogLog sketches of each month; a patient seen in several months is counted once. Estimates are within the returned standardError of the true count about two times in three. For example ?dimension=DOCTOR&from=2024-01&to=2024-06.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Estimates the distinct patients seen per doctor or diagnosis over a range of months.
+     *
+     * @param dimension DOCTOR or DIAGNOSIS.
+     * @param id        Only this doctor or diagnosis.
+     * @param from      The first month of the range (format YYYY-MM).
+     * @param to        The last month of the range (format YYYY-MM).
+     * @return A ResponseEntity containing the {@link PatientReachResultDTO}.
+     */
+    @GetMapping("/patient-reach")
+    public ResponseEntity<PatientReachResultDTO> patientReach(
+            @Parameter(description = "DOCTOR or DIAGNOSIS.") @RequestParam AnalyticsDimension dimension,
+            @Parameter(description = "Only this doctor or diagnosis.") @RequestParam(required = false) Long id,
+            @Parameter(description = "The first month of the range (format YYYY-MM).") @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @Parameter(description = "The last month of the range (format YYYY-MM).") @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        logger.info("API GET request for patient reach by {} {} from {} to {}", dimension, id, from, to);
+        return ResponseEntity.ok(analyticsService.patientReach(dimension, id, from, to));
+    }
+
+    @Operation(summary = "Rebuild visit analytics", description = "Marks the facts of a date range for rebuilding on the next refresh, after visits or sick leaves were changed directly in the database.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Marks the facts of a date range for rebuilding.
+     *
+     * @param from The first day of the range (format YYYY-MM-DD).
+     * @param to   The last day of the range (format YYYY-MM-DD).
+     * @return A ResponseEntity containing the number of days marked.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Integer> rebuild(
+            @Parameter(description = "The first day of the range (format YYYY-MM-DD).") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "The last day of the range (format YYYY-MM-DD).") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("API POST request to rebuild analytics from {} to {}", from, to);
+        return ResponseEntity.ok(analyticsService.rebuild(from, to));
+    }
+
+    @Operation(summary = "Export visits for offline analytics", description = "Writes the visits, treatments, prescriptions and sick leaves of every month changed since the last export as Arrow IPC files partitioned by month, or of all months if full is true.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Exports the visits as Arrow IPC files.
+     *
+     * @param full Whether to rewrite the months that have not changed since the last export.
+     * @return A ResponseEntity containing the {@link FactExportResultDTO}.
+     */
+    @PostMapping("/export")
+    public ResponseEntity<FactExportResultDTO> export(
+            @Parameter(description = "Whether to rewrite the months that have not changed since the last export.") @RequestParam(defaultValue = "false") boolean full) {
+        logger.info("API POST request to export visits, full: {}", full);
+        return ResponseEntity.ok(analyticsService.export(full));
+    }
+}
@@ -1,10 +1,15 @@
 package nbu.cscb869.web.api.controllers;
 
+import nbu.cscb869.common.exceptions.ChangeCursorExpiredException;
+import nbu.cscb869.common.exceptions.EditConflictException;
 import nbu.cscb869.common.exceptions.EntityInUseException;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.common.exceptions.ReportJobNotCompletedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -13,7 +18,10 @@ import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -56,6 +64,49 @@ public class ApiGlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    /**
+     * Reports an edit that conflicts with changes made since the version it was based on, with the base, rejected
+     * and current value of every conflicting field, so the client can resolve them and retry with the current version.
+     */
+    @ExceptionHandler(EditConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<Map<String, Object>> handleEditConflictException(EditConflictException ex) {
+        logger.warn("API Conflict - Concurrent Edit: {}", ex.getMessage());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", ex.getMessage());
+        body.put("currentVersion", ex.getCurrentVersion());
+        body.put("conflicts", ex.getConflicts());
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        logger.warn("API Conflict - Concurrent Update: {}", ex.getMessage());
+        return new ResponseEntity<>("The record was changed by someone else at the same time. Please reload it and try again.", HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InvalidInputException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleInvalidInputException(InvalidInputException ex) {
+        logger.warn("API Bad Request: {}", ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ReportJobNotCompletedException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<String> handleReportJobNotCompletedException(ReportJobNotCompletedException ex) {
+        logger.warn("API Conflict - Report Job Not Completed: {}", ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ChangeCursorExpiredException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public ResponseEntity<String> handleChangeCursorExpiredException(ChangeCursorExpiredException ex) {
+        logger.warn("API Gone - Change Cursor Expired: {}", ex.getMessage());
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.GONE);
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ResponseEntity<String> handleAccessDeniedException(AccessDeniedException ex) {
@@ -70,6 +121,13 @@ public class ApiGlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        logger.warn("API Bad Request: Invalid value '{}' for parameter '{}'", ex.getValue(), ex.getName());
+        return new ResponseEntity<>("Invalid value '" + ex.getValue() + "' for parameter '" + ex.getName() + "'.", HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<String> handleGenericException(Exception ex) {
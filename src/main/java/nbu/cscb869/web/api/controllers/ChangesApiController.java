@@ -0,0 +1,54 @@
+package nbu.cscb869.web.api.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import nbu.cscb869.config.OpenApiConstants;
+import nbu.cscb869.config.annotations.ApiStandardResponses;
+import nbu.cscb869.services.data.dtos.ChangeFeedDTO;
+import nbu.cscb869.services.services.contracts.ChangeFeedService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * RESTful API Controller for the change feed used by downstream systems to synchronize incrementally.
+ * All endpoints are restricted to users with the 'ADMIN' role.
+ */
+@RestController
+@RequestMapping("/api/changes")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Changes API", description = "Change feed of patients, visits, treatments and sick leaves.")
+@ApiStandardResponses
+public class ChangesApiController {
+    private static final Logger logger = LoggerFactory.getLogger(ChangesApiController.class);
+    private final ChangeFeedService changeFeedService;
+
+    public ChangesApiController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @Operation(summary = "Get changes", description = "Lists the patients, visits, treatments and sick leaves inserted, updated or deleted after a cursor, oldest change first. Pass the returned nextCursor as 'since' in the next request.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    @ApiResponse(responseCode = "410", description = OpenApiConstants.GONE)
+    /**
+     * Retrieves the changes made after a cursor.
+     *
+     * @param since The nextCursor of the previous response; omit to start from the beginning.
+     * @param limit The maximum number of changes to return.
+     * @return A ResponseEntity containing a {@link ChangeFeedDTO}.
+     */
+    @GetMapping
+    public ResponseEntity<ChangeFeedDTO> getChanges(
+            @Parameter(description = "The nextCursor of the previous response; omit to start from the beginning.") @RequestParam(required = false) String since,
+            @Parameter(description = "The maximum number of changes to return.") @RequestParam(defaultValue = "100") int limit) {
+        logger.info("API GET request for changes since cursor {} (limit {})", since, limit);
+        return ResponseEntity.ok(changeFeedService.getChanges(since, limit));
+    }
+}
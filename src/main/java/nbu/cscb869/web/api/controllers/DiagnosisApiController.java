@@ -8,19 +8,26 @@ import jakarta.validation.Valid;
 import nbu.cscb869.config.OpenApiConstants;
 import nbu.cscb869.config.annotations.ApiStandardResponses;
 import nbu.cscb869.services.data.dtos.DiagnosisCreateDTO;
+import nbu.cscb869.services.data.dtos.DiagnosisImportResultDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisUpdateDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import nbu.cscb869.services.services.contracts.DiagnosisService;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -59,6 +66,64 @@ public class DiagnosisApiController {
         return ResponseEntity.ok(diagnoses);
     }
 
+    @Operation(summary = "Suggest diagnoses", description = "Completes a typed name from memory, the most diagnosed first.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Suggests diagnoses whose names match typed text, for autocompletion. Text of three or more characters matches
+     * anywhere in a name; shorter text matches the start of a word.
+     *
+     * @param q The text typed so far.
+     * @param limit The maximum number of suggestions.
+     * @return A ResponseEntity containing the matching {@link SuggestionViewDTO} objects, the most diagnosed first.
+     */
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<List<SuggestionViewDTO>> suggestDiagnoses(
+            @Parameter(description = "The text typed so far.") @RequestParam("q") String q,
+            @Parameter(description = "The maximum number of suggestions.") @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        logger.debug("API GET request for diagnosis suggestions. Query: {}", q);
+        return ResponseEntity.ok(diagnosisService.suggest(q, limit));
+    }
+
+    @Operation(summary = "Get diagnoses by ICD-10 code prefix", description = "Retrieves the coded diagnoses below a chapter block, category or code, in code order.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Retrieves the coded diagnoses whose ICD-10 code starts with a prefix.
+     *
+     * @param prefix The start of the codes, such as {@code J45}; the dot is optional.
+     * @param pageable Pagination information.
+     * @return A ResponseEntity containing a Page of {@link DiagnosisViewDTO} objects, in code order.
+     */
+    @GetMapping("/codes")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<Page<DiagnosisViewDTO>> getDiagnosesByCodePrefix(
+            @Parameter(description = "The start of the ICD-10 codes.") @RequestParam("prefix") String prefix,
+            @Parameter(description = "Pagination information.") Pageable pageable) {
+        logger.info("API GET request for diagnoses with codes starting with: {}", prefix);
+        Pageable pageRequest = pageable.isPaged() ? pageable : PageRequest.of(0, 10);
+        return ResponseEntity.ok(diagnosisService.getByCodePrefix(prefix, pageRequest.getPageNumber(), pageRequest.getPageSize()));
+    }
+
+    @Operation(summary = "Load an ICD-10 code list", description = "Streams a CSV or XML code list from the request body into the diagnoses, adding new codes and updating loaded ones.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Loads an ICD-10 code list sent as the request body, such as
+     * {@code curl --data-binary @icd10.csv -H 'Content-Type: text/csv'}. The body is streamed, not buffered.
+     *
+     * @param contentType The format of the list: {@code text/csv}, or {@code application/xml} for the ICD-10-CM
+     *                    tabular list or a WHO ClaML file.
+     * @param body The list.
+     * @return A ResponseEntity containing the {@link DiagnosisImportResultDTO}.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public ResponseEntity<DiagnosisImportResultDTO> importDiagnosisCodes(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        logger.info("API POST request to load an ICD-10 code list of type {}.", contentType);
+        DiagnosisCodeReader.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? DiagnosisCodeReader.Format.CSV : DiagnosisCodeReader.Format.XML;
+        return ResponseEntity.ok(diagnosisService.importCodes(body, format));
+    }
+
     @Operation(summary = "Get a diagnosis by ID")
     @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
     /**
@@ -11,6 +11,8 @@ import nbu.cscb869.services.data.dtos.DoctorCreateDTO;
 import nbu.cscb869.services.data.dtos.DoctorUpdateDTO;
 import nbu.cscb869.services.data.dtos.DoctorViewDTO;
 import nbu.cscb869.services.services.contracts.DoctorService;
+import nbu.cscb869.web.api.caching.ConditionalResponses;
+import nbu.cscb869.web.api.caching.ResourceCachePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -18,6 +20,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.net.URI;
@@ -68,16 +71,19 @@ public class DoctorApiController {
     @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
     /**
      * Retrieves a single doctor by their ID.
-     * Accessible by any authenticated user.
+     * Accessible by any authenticated user. Answers 304 Not Modified when the client's ETag is still current.
      *
      * @param id The ID of the doctor to retrieve.
+     * @param webRequest The current request, checked for {@code If-None-Match}.
      * @return A ResponseEntity containing the {@link DoctorViewDTO}.
      */
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<DoctorViewDTO> getDoctorById(@Parameter(description = "The ID of the doctor to retrieve.") @PathVariable Long id) {
+    public ResponseEntity<DoctorViewDTO> getDoctorById(@Parameter(description = "The ID of the doctor to retrieve.") @PathVariable Long id,
+                                                       WebRequest webRequest) {
         logger.info("API GET request for doctor with ID: {}", id);
-        return ResponseEntity.ok(doctorService.getById(id));
+        return ConditionalResponses.get(webRequest, ResourceCachePolicy.DOCTOR, doctorService.getVersion(id),
+                () -> doctorService.getById(id));
     }
 
     @Operation(summary = "Get all unapproved doctors", description = "Retrieves a paginated list of doctors awaiting admin approval. Restricted to ADMIN role.")
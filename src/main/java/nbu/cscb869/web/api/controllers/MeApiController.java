@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import nbu.cscb869.config.OpenApiConstants;
 import nbu.cscb869.config.annotations.ApiStandardResponses;
+import nbu.cscb869.config.annotations.SqlBudget;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.services.data.dtos.DoctorViewDTO;
 import nbu.cscb869.services.data.dtos.PatientViewDTO;
@@ -96,6 +97,7 @@ public class MeApiController {
      */
     @GetMapping("/history")
     @PreAuthorize("hasRole('PATIENT')")
+    @SqlBudget(15)
     public ResponseEntity<Page<VisitViewDTO>> getMyHistory(Authentication authentication, @Parameter(description = "Pagination information") Pageable pageable) {
         if (authentication == null) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
@@ -10,6 +10,8 @@ import nbu.cscb869.services.data.dtos.PatientCreateDTO;
 import nbu.cscb869.services.data.dtos.PatientUpdateDTO;
 import nbu.cscb869.services.data.dtos.PatientViewDTO;
 import nbu.cscb869.services.services.contracts.PatientService;
+import nbu.cscb869.web.api.caching.ConditionalResponses;
+import nbu.cscb869.web.api.caching.ResourceCachePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -17,6 +19,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 
@@ -65,17 +68,20 @@ public class PatientApiController {
     /**
      * Retrieves a single patient by their ID.
      * Admins and Doctors can retrieve any patient.
-     * Patients can only retrieve their own profile.
+     * Patients can only retrieve their own profile, which the service checks against the patient's version before
+     * anything is loaded. Answers 304 Not Modified when the client's ETag is still current.
      *
      * @param id The ID of the patient to retrieve.
+     * @param webRequest The current request, checked for {@code If-None-Match}.
      * @return A ResponseEntity containing the {@link PatientViewDTO}.
      */
     @GetMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR') or @patientServiceImpl.getById(#id).keycloakId == authentication.name")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
     public ResponseEntity<PatientViewDTO> getPatientById(
-            @Parameter(description = "The ID of the patient to retrieve") @PathVariable Long id) {
+            @Parameter(description = "The ID of the patient to retrieve") @PathVariable Long id, WebRequest webRequest) {
         logger.info("API GET request for patient with ID: {}", id);
-        return ResponseEntity.ok(patientService.getById(id));
+        return ConditionalResponses.get(webRequest, ResourceCachePolicy.PATIENT, patientService.getVersion(id),
+                () -> patientService.getById(id));
     }
 
     @Operation(summary = "Create a new patient (Admin)", description = "Allows an Admin to create a new patient record from scratch.")
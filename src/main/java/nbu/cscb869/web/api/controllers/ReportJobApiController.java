@@ -0,0 +1,107 @@
+package nbu.cscb869.web.api.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import nbu.cscb869.config.OpenApiConstants;
+import nbu.cscb869.config.annotations.ApiStandardResponses;
+import nbu.cscb869.services.data.dtos.ReportJobDTO;
+import nbu.cscb869.services.data.dtos.ReportJobRequestDTO;
+import nbu.cscb869.services.services.contracts.ReportJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+/**
+ * RESTful API Controller for admin reports computed in the background.
+ * All endpoints are restricted to users with the 'ADMIN' role.
+ */
+@RestController
+@RequestMapping("/api/reports/jobs")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Report Jobs API", description = "Queues slow admin reports for background computation and serves their results.")
+@ApiStandardResponses
+public class ReportJobApiController {
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobApiController.class);
+    /** How long clients are asked to wait before polling a pending job again. */
+    static final String RETRY_AFTER_SECONDS = "2";
+
+    private final ReportJobService reportJobService;
+
+    public ReportJobApiController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    @Operation(summary = "Queue a report", description = "Queues one of the /api/reports reports for background computation and returns its job, to be polled at the Location header. An identical request that is pending, or has a result that has not expired, shares its job instead.")
+    @ApiResponse(responseCode = "202", description = "The report job was queued or is shared with an identical request.")
+    /**
+     * Queues a report for background computation.
+     *
+     * @param request The report type and parameters.
+     * @return A ResponseEntity containing the {@link ReportJobDTO}, with the job URL in the Location header.
+     */
+    @PostMapping
+    public ResponseEntity<ReportJobDTO> submit(@RequestBody ReportJobRequestDTO request) {
+        logger.info("API POST request to queue a {} report", request.getType());
+        ReportJobDTO job = reportJobService.submit(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @Operation(summary = "Get a report job", description = "Retrieves the status of a report job. While it is queued or running, the Retry-After header tells when to poll again.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Retrieves the status of a report job.
+     *
+     * @param id The ID of the job.
+     * @return A ResponseEntity containing the {@link ReportJobDTO}.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJobDTO> getJob(@Parameter(description = "The ID of the job.") @PathVariable Long id) {
+        logger.debug("API GET request for report job {}", id);
+        ReportJobDTO job = reportJobService.getJob(id);
+        if (job.getStatus().isPending()) {
+            return ResponseEntity.ok().header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).body(job);
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @Operation(summary = "Get a report job result", description = "Retrieves the report computed by a completed job, as the matching /api/reports endpoint returns it. Clients accepting gzip receive the stored compressed JSON as is.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    @ApiResponse(responseCode = "409", description = "The job is still pending or has failed.")
+    /**
+     * Retrieves the result of a completed report job.
+     *
+     * @param id             The ID of the job.
+     * @param acceptEncoding The encodings the client accepts.
+     * @return A ResponseEntity containing the report JSON.
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<byte[]> getResult(
+            @Parameter(description = "The ID of the job.") @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        logger.info("API GET request for the result of report job {}", id);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(reportJobService.getResult(id, gzip));
+    }
+}
@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import nbu.cscb869.config.OpenApiConstants;
 import nbu.cscb869.config.annotations.ApiStandardResponses;
+import nbu.cscb869.data.dto.DiagnosisGroupVisitCountDTO;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.DoctorSickLeaveCountDTO;
 import nbu.cscb869.data.dto.MonthSickLeaveCountDTO;
@@ -13,12 +14,13 @@ import nbu.cscb869.services.data.dtos.DoctorPatientCountReportDTO;
 import nbu.cscb869.services.data.dtos.DoctorVisitCountReportDTO;
 import nbu.cscb869.services.data.dtos.PatientViewDTO;
 import nbu.cscb869.services.data.dtos.VisitViewDTO;
+import nbu.cscb869.services.services.contracts.DiagnosisService;
 import nbu.cscb869.services.services.contracts.DoctorService;
+import nbu.cscb869.services.services.contracts.PatientService;
 import nbu.cscb869.services.services.contracts.VisitService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -29,8 +31,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * RESTful API Controller for administrative reports.
@@ -45,13 +47,18 @@ public class ReportsApiController {
     private static final Logger logger = LoggerFactory.getLogger(ReportsApiController.class);
     private final DoctorService doctorService;
     private final VisitService visitService;
+    private final DiagnosisService diagnosisService;
+    private final PatientService patientService;
 
-    public ReportsApiController(DoctorService doctorService, VisitService visitService) {
+    public ReportsApiController(DoctorService doctorService, VisitService visitService, DiagnosisService diagnosisService,
+                                PatientService patientService) {
         this.doctorService = doctorService;
         this.visitService = visitService;
+        this.diagnosisService = diagnosisService;
+        this.patientService = patientService;
     }
 
-    @Operation(summary = "Get patients by diagnosis", description = "Retrieves a paginated list of patients who have been diagnosed with a specific condition.")
+    @Operation(summary = "Get patients by diagnosis", description = "Retrieves a paginated list of the distinct patients who have been diagnosed with a specific condition.")
     @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
     /**
      * Retrieves a paginated list of patients for a specific diagnosis.
@@ -65,26 +72,53 @@ public class ReportsApiController {
             @Parameter(description = "The ID of the diagnosis to filter by.") @RequestParam Long diagnosisId,
             @Parameter(description = "Pagination information.") Pageable pageable) {
         logger.info("API GET request for patients by diagnosis ID: {}", diagnosisId);
-        Page<VisitViewDTO> visits = visitService.getVisitsByDiagnosis(diagnosisId, pageable.getPageNumber(), pageable.getPageSize());
-        List<PatientViewDTO> patients = visits.getContent().stream()
-                .map(VisitViewDTO::getPatient)
-                .distinct()
-                .collect(Collectors.toList());
-        Page<PatientViewDTO> patientPage = new PageImpl<>(patients, pageable, visits.getTotalElements());
-        return ResponseEntity.ok(patientPage);
+        return ResponseEntity.ok(patientService.findByDiagnosis(diagnosisId, pageable));
     }
 
-    @Operation(summary = "Get most frequent diagnoses", description = "Retrieves a list of the most frequent diagnoses based on visit counts.")
+    @Operation(summary = "Get most frequent diagnoses", description = "Retrieves a list of the most frequent diagnoses based on visit counts. With a limit or a month, only the top diagnoses are returned, from counts kept in memory.")
     @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
     /**
      * Retrieves a list of the most frequent diagnoses.
      *
+     * @param limit The number of diagnoses to return, or null for all of them.
+     * @param month The month whose visits are counted, or null to count all visits.
      * @return A ResponseEntity containing a list of {@link DiagnosisVisitCountDTO}.
      */
     @GetMapping("/most-frequent-diagnoses")
-    public ResponseEntity<List<DiagnosisVisitCountDTO>> getMostFrequentDiagnoses() {
-        logger.info("API GET request for most frequent diagnoses report.");
-        return ResponseEntity.ok(visitService.getMostFrequentDiagnoses());
+    public ResponseEntity<List<DiagnosisVisitCountDTO>> getMostFrequentDiagnoses(
+            @Parameter(description = "The number of diagnoses to return, at most app.rankings.max-limit.") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "The month whose visits are counted (yyyy-MM).") @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        logger.info("API GET request for most frequent diagnoses report, limit: {}, month: {}.", limit, month);
+        if (limit == null && month == null) {
+            return ResponseEntity.ok(visitService.getMostFrequentDiagnoses());
+        }
+        return ResponseEntity.ok(visitService.getMostFrequentDiagnoses(month, limit));
+    }
+
+    @Operation(summary = "Get most frequent diagnosis chapters", description = "Retrieves the ICD-10 chapters with the most visits. Visits with an uncoded diagnosis are left out.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Retrieves the visit counts rolled up by the ICD-10 chapter of the diagnosis.
+     *
+     * @return A ResponseEntity containing a list of {@link DiagnosisGroupVisitCountDTO}, most visits first.
+     */
+    @GetMapping("/most-frequent-diagnoses/chapters")
+    public ResponseEntity<List<DiagnosisGroupVisitCountDTO>> getMostFrequentDiagnosisChapters() {
+        logger.info("API GET request for most frequent diagnosis chapters report.");
+        return ResponseEntity.ok(diagnosisService.getVisitCountsByChapter());
+    }
+
+    @Operation(summary = "Get most frequent diagnosis categories", description = "Retrieves the ICD-10 categories with the most visits. Visits with an uncoded diagnosis are left out.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Retrieves the visit counts rolled up by the ICD-10 category of the diagnosis.
+     *
+     * @return A ResponseEntity containing a list of {@link DiagnosisGroupVisitCountDTO}, most visits first.
+     */
+    @GetMapping("/most-frequent-diagnoses/categories")
+    public ResponseEntity<List<DiagnosisGroupVisitCountDTO>> getMostFrequentDiagnosisCategories() {
+        logger.info("API GET request for most frequent diagnosis categories report.");
+        return ResponseEntity.ok(diagnosisService.getVisitCountsByCategory());
     }
 
     @Operation(summary = "Get GP patient counts", description = "Retrieves the number of patients registered to each General Practitioner.")
@@ -113,30 +147,40 @@ public class ReportsApiController {
         return ResponseEntity.ok(visitService.getVisitCountByDoctor());
     }
 
-    @Operation(summary = "Get doctors with most sick leaves", description = "Retrieves a list of doctors who have issued the most sick leaves.")
+    @Operation(summary = "Get doctors with most sick leaves", description = "Retrieves a list of doctors who have issued the most sick leaves. With a limit, only the top doctors are returned, from counts kept in memory.")
     @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
     /**
      * Retrieves a list of doctors who have issued the most sick leaves.
      *
+     * @param limit The number of doctors to return, or null for all of them.
      * @return A ResponseEntity containing a list of {@link DoctorSickLeaveCountDTO}.
      */
     @GetMapping("/doctors-with-most-sick-leaves")
-    public ResponseEntity<List<DoctorSickLeaveCountDTO>> getDoctorsWithMostSickLeaves() {
-        logger.info("API GET request for doctors with most sick leaves report.");
-        return ResponseEntity.ok(doctorService.getDoctorsWithMostSickLeaves());
+    public ResponseEntity<List<DoctorSickLeaveCountDTO>> getDoctorsWithMostSickLeaves(
+            @Parameter(description = "The number of doctors to return, at most app.rankings.max-limit.") @RequestParam(required = false) Integer limit) {
+        logger.info("API GET request for doctors with most sick leaves report, limit: {}.", limit);
+        if (limit == null) {
+            return ResponseEntity.ok(doctorService.getDoctorsWithMostSickLeaves());
+        }
+        return ResponseEntity.ok(doctorService.getDoctorsWithMostSickLeaves(limit));
     }
 
-    @Operation(summary = "Get most frequent sick leave month", description = "Retrieves the month(s) with the highest number of issued sick leaves.")
+    @Operation(summary = "Get most frequent sick leave month", description = "Retrieves the month(s) with the highest number of issued sick leaves. With a limit, only the top months are returned, from counts kept in memory.")
     @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
     /**
      * Retrieves the month(s) with the highest number of issued sick leaves.
      *
+     * @param limit The number of months to return, or null for all of them.
      * @return A ResponseEntity containing a list of {@link MonthSickLeaveCountDTO}.
      */
     @GetMapping("/most-frequent-sick-leave-month")
-    public ResponseEntity<List<MonthSickLeaveCountDTO>> getMostFrequentSickLeaveMonth() {
-        logger.info("API GET request for most frequent sick leave month report.");
-        return ResponseEntity.ok(visitService.getMostFrequentSickLeaveMonth());
+    public ResponseEntity<List<MonthSickLeaveCountDTO>> getMostFrequentSickLeaveMonth(
+            @Parameter(description = "The number of months to return, at most app.rankings.max-limit.") @RequestParam(required = false) Integer limit) {
+        logger.info("API GET request for most frequent sick leave month report, limit: {}.", limit);
+        if (limit == null) {
+            return ResponseEntity.ok(visitService.getMostFrequentSickLeaveMonth());
+        }
+        return ResponseEntity.ok(visitService.getMostFrequentSickLeaveMonth(limit));
     }
 
     @Operation(summary = "Get visits by date range", description = "Retrieves a paginated list of all visits within a given date range.")
@@ -10,7 +10,10 @@ import nbu.cscb869.config.annotations.ApiStandardResponses;
 import nbu.cscb869.services.data.dtos.SpecialtyCreateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyUpdateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import nbu.cscb869.services.services.contracts.SpecialtyService;
+import nbu.cscb869.web.api.caching.ConditionalResponses;
+import nbu.cscb869.web.api.caching.ResourceCachePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -18,9 +21,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
 
 /**
  * RESTful API Controller for managing Specialty entities.
@@ -44,15 +48,37 @@ public class SpecialtyApiController {
     @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
     /**
      * Retrieves a paginated list of all specialties.
+     * Every page shares the ETag of the whole collection and answers 304 Not Modified while no specialty has changed.
      *
      * @param pageable Pagination information.
+     * @param webRequest The current request, checked for {@code If-None-Match}.
      * @return A ResponseEntity containing a Page of {@link SpecialtyViewDTO} objects.
      */
     @GetMapping
-    public ResponseEntity<Page<SpecialtyViewDTO>> getAllSpecialties(@Parameter(description = "Pagination information.") Pageable pageable) throws ExecutionException, InterruptedException {
+    public ResponseEntity<Page<SpecialtyViewDTO>> getAllSpecialties(@Parameter(description = "Pagination information.") Pageable pageable,
+                                                                    WebRequest webRequest) {
         logger.info("API GET request for all specialties. Pageable: {}", pageable);
-        Page<SpecialtyViewDTO> specialties = specialtyService.getAll(pageable.getPageNumber(), pageable.getPageSize(), "name", true).get();
-        return ResponseEntity.ok(specialties);
+        return ConditionalResponses.get(webRequest, ResourceCachePolicy.SPECIALTIES, specialtyService.getCollectionVersion(),
+                () -> specialtyService.getAll(pageable.getPageNumber(), pageable.getPageSize(), "name", true).join());
+    }
+
+    @Operation(summary = "Suggest specialties", description = "Completes a typed name from memory, those of the most visits first.")
+    @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
+    /**
+     * Suggests specialties whose names match typed text, for autocompletion. Text of three or more characters matches
+     * anywhere in a name; shorter text matches the start of a word.
+     *
+     * @param q The text typed so far.
+     * @param limit The maximum number of suggestions.
+     * @return A ResponseEntity containing the matching {@link SuggestionViewDTO} objects, those of the most visits first.
+     */
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<List<SuggestionViewDTO>> suggestSpecialties(
+            @Parameter(description = "The text typed so far.") @RequestParam("q") String q,
+            @Parameter(description = "The maximum number of suggestions.") @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        logger.debug("API GET request for specialty suggestions. Query: {}", q);
+        return ResponseEntity.ok(specialtyService.suggest(q, limit));
     }
 
     @Operation(summary = "Get a specialty by ID")
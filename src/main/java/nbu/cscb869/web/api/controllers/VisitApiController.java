@@ -12,6 +12,8 @@ import nbu.cscb869.services.data.dtos.VisitCreateDTO;
 import nbu.cscb869.services.data.dtos.VisitUpdateDTO;
 import nbu.cscb869.services.data.dtos.VisitViewDTO;
 import nbu.cscb869.services.services.contracts.VisitService;
+import nbu.cscb869.web.api.caching.ConditionalResponses;
+import nbu.cscb869.web.api.caching.ResourceCachePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -20,6 +22,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 import java.util.concurrent.ExecutionException;
@@ -64,16 +67,20 @@ public class VisitApiController {
     @ApiResponse(responseCode = "200", description = OpenApiConstants.SUCCESS_OK)
     /**
      * Retrieves a single visit by its ID.
-     * Accessible by 'ADMIN', 'DOCTOR', or the 'PATIENT' involved in the visit.
+     * Accessible by 'ADMIN', 'DOCTOR', or the 'PATIENT' involved in the visit, which the service checks against the
+     * visit's version before anything is loaded. Answers 304 Not Modified when the client's ETag is still current.
      *
      * @param id The ID of the visit to retrieve.
+     * @param webRequest The current request, checked for {@code If-None-Match}.
      * @return A ResponseEntity containing the {@link VisitViewDTO}.
      */
     @GetMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR') or @visitServiceImpl.getById(#id).patient.keycloakId == authentication.name")
-    public ResponseEntity<VisitViewDTO> getVisitById(@Parameter(description = "The ID of the visit to retrieve.") @PathVariable Long id) {
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
+    public ResponseEntity<VisitViewDTO> getVisitById(@Parameter(description = "The ID of the visit to retrieve.") @PathVariable Long id,
+                                                     WebRequest webRequest) {
         logger.info("API GET request for visit with ID: {}", id);
-        return ResponseEntity.ok(visitService.getById(id));
+        return ConditionalResponses.get(webRequest, ResourceCachePolicy.VISIT, visitService.getVersion(id),
+                () -> visitService.getById(id));
     }
 
     @Operation(summary = "Create a new visit (Admin/Doctor)", description = "Allows an Admin or Doctor to create a new visit record.")
@@ -0,0 +1,165 @@
+package nbu.cscb869.web.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import nbu.cscb869.common.exceptions.ImageProcessingException;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.services.data.dtos.DoctorViewDTO;
+import nbu.cscb869.services.services.contracts.DoctorService;
+import nbu.cscb869.services.services.utility.DoctorImagePipeline;
+import nbu.cscb869.services.services.utility.ImageProxyCache;
+import nbu.cscb869.services.services.utility.ImageProxyCache.CachedImage;
+import nbu.cscb869.services.services.utility.ImageProxyCache.ImageVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Serves doctor profile images from local disk, so that pages do not load them from the image store.
+ */
+@Controller
+public class DoctorImageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorImageController.class);
+    private static final CacheControl THUMBNAIL_CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(10)).cachePublic();
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final DoctorService doctorService;
+    private final DoctorImagePipeline doctorImagePipeline;
+    private final ImageProxyCache imageProxyCache;
+    private final CacheControl imageCacheControl;
+    private final Duration sendfileLinger;
+    private final int thumbnailSize;
+
+    public DoctorImageController(DoctorService doctorService, DoctorImagePipeline doctorImagePipeline,
+                                 ImageProxyCache imageProxyCache, ImagePipelineProperties properties) {
+        this.doctorService = doctorService;
+        this.doctorImagePipeline = doctorImagePipeline;
+        this.imageProxyCache = imageProxyCache;
+        this.imageCacheControl = CacheControl.maxAge(properties.getProxy().getMaxAge()).cachePublic();
+        this.sendfileLinger = properties.getProxy().getSendfileLinger();
+        this.thumbnailSize = properties.getThumbnailSize();
+    }
+
+    /**
+     * Returns the locally generated thumbnail of a doctor's image. Instances that have not generated the thumbnail
+     * themselves redirect to a resized copy from the image proxy instead.
+     * @param id the doctor ID
+     * @return the thumbnail, a redirect to the image proxy, or 404 if the doctor has no image
+     */
+    @GetMapping("/media/doctors/{id}/thumbnail")
+    public ResponseEntity<Resource> getThumbnail(@PathVariable Long id) {
+        Optional<Path> thumbnail = doctorImagePipeline.findThumbnail(id);
+        if (thumbnail.isPresent()) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(THUMBNAIL_CACHE_CONTROL)
+                    .body(new FileSystemResource(thumbnail.get()));
+        }
+
+        DoctorViewDTO doctor = doctorService.getById(id);
+        if (doctor.getImageUrl() == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/media/doctors/{id}/image")
+                        .queryParam("w", thumbnailSize)
+                        .buildAndExpand(id)
+                        .toUri())
+                .build();
+    }
+
+    /**
+     * Returns a doctor's stored image, optionally resized, through the local disk cache. Responses carry a strong
+     * ETag, so revalidation requests are answered with 304 without reading the cache. On Tomcat the file is handed
+     * to the connector's sendfile support; elsewhere it is copied with {@link FileChannel#transferTo}. The cached file
+     * stays pinned while it is copied, and for {@code app.images.proxy.sendfile-linger} after it is handed to sendfile.
+     * @param id the doctor ID
+     * @param width the requested width in pixels, rounded up to a configured width; the original if omitted
+     * @param webRequest the current request
+     * @param response the current response
+     * @throws IOException if the response cannot be written
+     */
+    @GetMapping("/media/doctors/{id}/image")
+    public void getImage(@PathVariable Long id, @RequestParam(value = "w", required = false) Integer width,
+                         ServletWebRequest webRequest, HttpServletResponse response) throws IOException {
+        DoctorViewDTO doctor = doctorService.getById(id);
+        if (doctor.getImageUrl() == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        ImageVariant variant = imageProxyCache.variantOf(doctor.getImageUrl(), width);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, imageCacheControl.getHeaderValue());
+        if (webRequest.checkNotModified(variant.etag())) {
+            return;
+        }
+
+        CachedImage image;
+        try {
+            image = imageProxyCache.get(variant);
+        } catch (ImageProcessingException e) {
+            logger.warn("Cannot serve image of doctor {}: {}", id, e.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+            return;
+        }
+        Duration linger = Duration.ZERO;
+        try {
+            response.setContentType(image.contentType());
+            response.setContentLengthLong(image.size());
+            if (send(image, webRequest.getRequest(), response)) {
+                linger = sendfileLinger;
+            }
+        } finally {
+            imageProxyCache.release(image, linger);
+        }
+    }
+
+    /**
+     * Writes a cached file to the response.
+     * @return true if the file was handed to sendfile, which opens it by name after the handler returns
+     */
+    private static boolean send(CachedImage image, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, image.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, image.size());
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(image.file(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            long transferred;
+            while (position < image.size()
+                    && (transferred = channel.transferTo(position, image.size() - position, out)) > 0) {
+                position += transferred;
+            }
+        }
+        return false;
+    }
+}
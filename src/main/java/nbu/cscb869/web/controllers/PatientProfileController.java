@@ -2,6 +2,7 @@ package nbu.cscb869.web.controllers;
 
 import nbu.cscb869.config.WebConstants;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.config.annotations.SqlBudget;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.services.data.dtos.PatientCreateDTO;
 import nbu.cscb869.services.data.dtos.PatientUpdateDTO;
@@ -103,6 +104,7 @@ public class PatientProfileController {
 
     @GetMapping("/history")
     @PreAuthorize("hasRole('PATIENT')")
+    @SqlBudget(15)
     public String medicalHistory(Model model, @AuthenticationPrincipal OidcUser principal,
                                  @RequestParam(defaultValue = WebConstants.DEFAULT_PAGE_NUMBER) int page,
                                  @RequestParam(defaultValue = WebConstants.DEFAULT_PAGE_SIZE) int size) {
@@ -5,14 +5,17 @@ import nbu.cscb869.services.services.contracts.DoctorService;
 import nbu.cscb869.services.services.contracts.PatientService;
 import nbu.cscb869.services.services.contracts.SickLeaveService;
 import nbu.cscb869.services.services.contracts.VisitService;
+import nbu.cscb869.services.services.utility.LiveUpdateHub;
 import nbu.cscb869.web.viewmodels.AdminDashboardViewModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.concurrent.ExecutionException;
 
@@ -34,6 +37,7 @@ public class AdminDashboardController {
     private final VisitService visitService;
     private final DiagnosisService diagnosisService;
     private final SickLeaveService sickLeaveService;
+    private final LiveUpdateHub liveUpdateHub;
 
     /**
      * Constructs the controller with all necessary services for data aggregation.
@@ -43,13 +47,15 @@ public class AdminDashboardController {
      * @param visitService     Service for visit-related data.
      * @param diagnosisService Service for diagnosis-related data.
      * @param sickLeaveService Service for sick leave-related data.
+     * @param liveUpdateHub    Hub streaming updates to open dashboards.
      */
-    public AdminDashboardController(PatientService patientService, DoctorService doctorService, VisitService visitService, DiagnosisService diagnosisService, SickLeaveService sickLeaveService) {
+    public AdminDashboardController(PatientService patientService, DoctorService doctorService, VisitService visitService, DiagnosisService diagnosisService, SickLeaveService sickLeaveService, LiveUpdateHub liveUpdateHub) {
         this.patientService = patientService;
         this.doctorService = doctorService;
         this.visitService = visitService;
         this.diagnosisService = diagnosisService;
         this.sickLeaveService = sickLeaveService;
+        this.liveUpdateHub = liveUpdateHub;
     }
 
     /**
@@ -89,4 +95,16 @@ public class AdminDashboardController {
         model.addAttribute("dashboard", viewModel);
         return "admin/dashboard";
     }
+
+    /**
+     * Streams new and changed visits, issued sick leaves and doctor approvals to the open dashboard, so that its
+     * counters and recent visits stay current without reloading.
+     *
+     * @return An emitter sending the updates as Server-Sent Events.
+     */
+    @GetMapping(value = "/dashboard/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter liveUpdates() {
+        logger.debug("GET /admin/dashboard/live: Opening live updates.");
+        return liveUpdateHub.subscribeAdmin();
+    }
 }
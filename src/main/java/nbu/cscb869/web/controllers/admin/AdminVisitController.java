@@ -1,6 +1,7 @@
 package nbu.cscb869.web.controllers.admin;
 
 import jakarta.validation.Valid;
+import nbu.cscb869.common.exceptions.EditConflictException;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.services.data.dtos.VisitUpdateDTO;
 import nbu.cscb869.services.data.dtos.VisitViewDTO;
@@ -83,6 +84,13 @@ public class AdminVisitController {
             visitUpdateDTO.setId(id);
             visitService.update(visitUpdateDTO);
             redirectAttributes.addFlashAttribute("successMessage", "Visit updated successfully.");
+        } catch (EditConflictException conflict) {
+            // Submitting the form again, after review, overwrites the conflicting fields with the values shown.
+            logger.info("Update of visit ID {} conflicts with a concurrent change: {}", id, conflict.getConflicts());
+            bindingResult.reject("visit.conflict", conflict.getMessage());
+            visitUpdateDTO.setVersion(conflict.getCurrentVersion());
+            model.addAttribute("conflicts", conflict.getConflicts());
+            return showEditVisitForm(id, model);
         } catch (Exception e) {
             logger.error("An unexpected error occurred while updating visit ID: {}", id, e);
             redirectAttributes.addFlashAttribute("errorMessage", "Error updating visit: " + e.getMessage());
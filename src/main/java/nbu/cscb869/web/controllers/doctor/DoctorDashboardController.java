@@ -5,17 +5,20 @@ import nbu.cscb869.services.data.dtos.DoctorViewDTO;
 import nbu.cscb869.services.data.dtos.VisitViewDTO;
 import nbu.cscb869.services.services.contracts.DoctorService;
 import nbu.cscb869.services.services.contracts.VisitService;
+import nbu.cscb869.services.services.utility.LiveUpdateHub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 
@@ -30,16 +33,20 @@ public class DoctorDashboardController {
     private static final Logger logger = LoggerFactory.getLogger(DoctorDashboardController.class);
     private final DoctorService doctorService;
     private final VisitService visitService;
+    private final LiveUpdateHub liveUpdateHub;
 
     /**
      * Constructs the controller with necessary services.
      *
      * @param doctorService Service for doctor-related operations.
      * @param visitService  Service for visit-related operations.
+     * @param liveUpdateHub Hub streaming visit updates to open dashboards.
      */
-    public DoctorDashboardController(final DoctorService doctorService, final VisitService visitService) {
+    public DoctorDashboardController(final DoctorService doctorService, final VisitService visitService,
+                                     final LiveUpdateHub liveUpdateHub) {
         this.doctorService = doctorService;
         this.visitService = visitService;
+        this.liveUpdateHub = liveUpdateHub;
     }
 
     /**
@@ -77,4 +84,18 @@ public class DoctorDashboardController {
 
         return "doctor/dashboard";
     }
+
+    /**
+     * Streams new bookings, cancellations and documentation of the doctor's visits to the open dashboard.
+     *
+     * @param authentication The current authentication principal.
+     * @return An emitter sending the updates as Server-Sent Events.
+     */
+    @GetMapping(value = "/dashboard/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('DOCTOR')")
+    public SseEmitter liveUpdates(final Authentication authentication) {
+        final DoctorViewDTO doctor = doctorService.getByKeycloakId(authentication.getName());
+        logger.debug("GET /doctor/dashboard/live: Opening live updates for doctor {}", doctor.getId());
+        return liveUpdateHub.subscribeDoctor(doctor.getId());
+    }
 }
@@ -0,0 +1,45 @@
+package nbu.cscb869.web.controllers.doctor;
+
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * Controller for completing medicine names on the visit documentation form from the medication catalogue.
+ */
+@Controller
+@RequestMapping("/doctor/medications")
+@PreAuthorize("hasRole('DOCTOR')")
+public class DoctorMedicationController {
+
+    private final MedicationCatalogue medicationCatalogue;
+
+    /**
+     * Constructs the controller with the medication catalogue.
+     *
+     * @param medicationCatalogue The catalogue the suggestions are taken from.
+     */
+    public DoctorMedicationController(final MedicationCatalogue medicationCatalogue) {
+        this.medicationCatalogue = medicationCatalogue;
+    }
+
+    /**
+     * Suggests catalogued medication names with a word starting with the typed text. Served from memory.
+     *
+     * @param q     The text typed so far.
+     * @param limit The maximum number of names.
+     * @return The matching names, as JSON.
+     */
+    @GetMapping(value = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public List<String> suggest(@RequestParam("q") String q, @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return medicationCatalogue.suggest(q, limit);
+    }
+}
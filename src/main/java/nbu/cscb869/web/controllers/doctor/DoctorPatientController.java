@@ -1,6 +1,7 @@
 package nbu.cscb869.web.controllers.doctor;
 
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.config.annotations.SqlBudget;
 import nbu.cscb869.services.data.dtos.DoctorViewDTO;
 import nbu.cscb869.services.data.dtos.PatientViewDTO;
 import nbu.cscb869.services.data.dtos.VisitViewDTO;
@@ -78,6 +79,7 @@ public class DoctorPatientController {
      * @return The logical name of the patient medical history view.
      */
     @GetMapping("/{id}/history")
+    @SqlBudget(15)
     public String showPatientHistory(@PathVariable final Long id, final Model model) {
         logger.info("GET /doctor/patients/{}/history: Displaying medical history for patient with ID {}", id, id);
 
@@ -1,6 +1,7 @@
 package nbu.cscb869.web.controllers.doctor;
 
 import jakarta.validation.Valid;
+import nbu.cscb869.common.exceptions.EditConflictException;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.config.WebConstants;
 import nbu.cscb869.data.models.enums.VisitStatus;
@@ -71,6 +72,7 @@ public class DoctorVisitController {
                 visitDocumentationDTO.setVisitId(visitId);
                 visitDocumentationDTO.setNotes(visit.getNotes());
                 visitDocumentationDTO.setStatus(visit.getStatus().name());
+                visitDocumentationDTO.setVersion(visit.getVersion());
 
                 if (visit.getDiagnosis() != null) {
                     visitDocumentationDTO.setDiagnosisId(visit.getDiagnosis().getId());
@@ -155,8 +157,16 @@ public class DoctorVisitController {
             redirectAttributes.addFlashAttribute("successMessage", "Visit documented successfully!");
             return "redirect:/doctor/patients/" + visit.getPatient().getId() + "/history";
         } catch (Exception e) {
-            logger.error("Error documenting visit ID {}: {}", visitId, e.getMessage(), e);
-            bindingResult.reject("documentation.failed", "An unexpected error occurred during documentation. Please try again.");
+            if (e instanceof EditConflictException conflict) {
+                // Submitting the form again, after review, overwrites the conflicting fields with the values shown.
+                logger.info("Documentation of visit ID {} conflicts with a concurrent change: {}", visitId, conflict.getConflicts());
+                bindingResult.reject("documentation.conflict", conflict.getMessage());
+                visitDocumentationDTO.setVersion(conflict.getCurrentVersion());
+                model.addAttribute("conflicts", conflict.getConflicts());
+            } else {
+                logger.error("Error documenting visit ID {}: {}", visitId, e.getMessage(), e);
+                bindingResult.reject("documentation.failed", "An unexpected error occurred during documentation. Please try again.");
+            }
             model.addAttribute("visit", visit);
             try {
                 List<DiagnosisViewDTO> allDiagnoses = new ArrayList<>();
@@ -0,0 +1,17 @@
+-- ICD-10 codes for diagnoses. Diagnoses entered by name keep a null code; the ICD-10 loader fills in
+-- code, category and chapter, and reports roll visits up by the indexed category and chapter
+-- columns instead of matching code strings. The unique index on code also serves code-prefix lookups.
+
+alter table diagnoses
+    add column category varchar(3),
+    add column chapter varchar(5),
+    add column code varchar(10);
+
+alter table diagnoses
+    add constraint UK7mke0mpuyafhn64m80iqlmb1a unique (code);
+
+create index idx_diagnoses_category
+    on diagnoses (category);
+
+create index idx_diagnoses_chapter
+    on diagnoses (chapter);
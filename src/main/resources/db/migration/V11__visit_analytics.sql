@@ -0,0 +1,85 @@
+-- Visit analytics. visit_daily_facts is a star-schema fact table at daily grain: one row per day,
+-- doctor, diagnosis, general practitioner and visit status, with the visits on that day and the
+-- sick leaves starting on it. visit_monthly_facts rolls the daily rows up per month. Both carry
+-- month_start and year columns, so slices are grouped by plain columns and date ranges stay
+-- index range scans. analytics_dirty_days lists the days whose rows are rebuilt on the next
+-- refresh; the rows below are built from the existing visits and sick leaves.
+
+create table visit_daily_facts (
+    id bigint not null auto_increment,
+    period_start date not null,
+    month_start date not null,
+    year smallint not null,
+    doctor_id bigint not null,
+    diagnosis_id bigint,
+    general_practitioner_id bigint,
+    status varchar(32) not null,
+    visit_count bigint not null,
+    sick_leave_count bigint not null,
+    sick_leave_days bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_visit_daily_facts_period
+    on visit_daily_facts (period_start);
+
+create index idx_visit_daily_facts_month
+    on visit_daily_facts (month_start);
+
+create index idx_visit_daily_facts_doctor_period
+    on visit_daily_facts (doctor_id, period_start);
+
+create index idx_visit_daily_facts_diagnosis_period
+    on visit_daily_facts (diagnosis_id, period_start);
+
+create table visit_monthly_facts (
+    id bigint not null auto_increment,
+    period_start date not null,
+    month_start date not null,
+    year smallint not null,
+    doctor_id bigint not null,
+    diagnosis_id bigint,
+    general_practitioner_id bigint,
+    status varchar(32) not null,
+    visit_count bigint not null,
+    sick_leave_count bigint not null,
+    sick_leave_days bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_visit_monthly_facts_period
+    on visit_monthly_facts (period_start);
+
+create index idx_visit_monthly_facts_doctor_period
+    on visit_monthly_facts (doctor_id, period_start);
+
+create index idx_visit_monthly_facts_diagnosis_period
+    on visit_monthly_facts (diagnosis_id, period_start);
+
+create table analytics_dirty_days (
+    day date not null,
+    primary key (day)
+) engine=InnoDB;
+
+insert into visit_daily_facts (period_start, month_start, year, doctor_id, diagnosis_id, general_practitioner_id,
+                               status, visit_count, sick_leave_count, sick_leave_days)
+select f.day, f.day - interval (dayofmonth(f.day) - 1) day, year(f.day), f.doctor_id, f.diagnosis_id, f.gp_id,
+       f.status, sum(f.visits), sum(f.sick_leaves), sum(f.sick_leave_days)
+from (select v.visit_date as day, v.doctor_id, v.diagnosis_id, p.general_practitioner_id as gp_id, v.status,
+             1 as visits, 0 as sick_leaves, 0 as sick_leave_days
+      from visits v
+          join patients p on p.id = v.patient_id
+      union all
+      select s.start_date, v.doctor_id, v.diagnosis_id, p.general_practitioner_id, v.status,
+             0, 1, s.duration_days
+      from sick_leaves s
+          join visits v on v.id = s.visit_id
+          join patients p on p.id = v.patient_id) f
+group by f.day, f.doctor_id, f.diagnosis_id, f.gp_id, f.status;
+
+insert into visit_monthly_facts (period_start, month_start, year, doctor_id, diagnosis_id, general_practitioner_id,
+                                 status, visit_count, sick_leave_count, sick_leave_days)
+select month_start, month_start, year, doctor_id, diagnosis_id, general_practitioner_id,
+       status, sum(visit_count), sum(sick_leave_count), sum(sick_leave_days)
+from visit_daily_facts
+group by month_start, year, doctor_id, diagnosis_id, general_practitioner_id, status;
@@ -0,0 +1,37 @@
+-- Admin reports computed in the background (POST /api/reports/jobs). The result is stored gzip-compressed
+-- JSON until expires_at, after which the row is purged. live_key holds the request key while the job is
+-- queued, running or completed, so identical requests share one computation: the unique index lets only
+-- one such job exist, and MySQL allows any number of rows whose key was released with null.
+
+create table report_jobs (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    report_type enum ('DIAGNOSIS_CATEGORIES','DIAGNOSIS_CHAPTERS','DOCTOR_VISITS_BY_DATE','DOCTOR_VISIT_COUNTS',
+        'DOCTORS_WITH_MOST_SICK_LEAVES','GP_PATIENT_COUNTS','MOST_FREQUENT_DIAGNOSES','MOST_FREQUENT_SICK_LEAVE_MONTH',
+        'PATIENTS_BY_DIAGNOSIS','VISITS_BY_DATE') not null,
+    parameters varchar(1024) not null,
+    request_key varchar(64) not null,
+    live_key varchar(64),
+    status enum ('COMPLETED','FAILED','QUEUED','RUNNING') not null,
+    requested_by varchar(255),
+    started_at datetime(6),
+    completed_at datetime(6),
+    expires_at datetime(6),
+    result longblob,
+    result_size bigint,
+    error varchar(512),
+    primary key (id)
+) engine=InnoDB;
+
+alter table report_jobs
+    add constraint uk_report_jobs_live_key unique (live_key);
+
+create index idx_report_jobs_status_created_on
+    on report_jobs (status, created_on);
+
+create index idx_report_jobs_expires_at
+    on report_jobs (expires_at);
@@ -0,0 +1,21 @@
+-- Distinct patients seen per doctor and per diagnosis and month, as HyperLogLog sketches (see HyperLogLog).
+-- dimension is DOCTOR or DIAGNOSIS and dimension_id the doctor's or diagnosis' ID. The sketches of a month
+-- are rebuilt from its completed visits by the analytics refresh, for the doctors and diagnoses of the days
+-- in analytics_dirty_days; every day with a visit is marked below, so the next refresh builds them all.
+
+create table patient_reach_sketches (
+    dimension varchar(16) not null,
+    dimension_id bigint not null,
+    month_start date not null,
+    sketch blob not null,
+    primary key (dimension, dimension_id, month_start)
+) engine=InnoDB;
+
+create index idx_patient_reach_sketches_month
+    on patient_reach_sketches (dimension, month_start);
+
+create index idx_visits_diagnosis_status_date
+    on visits (diagnosis_id, status, visit_date);
+
+insert ignore into analytics_dirty_days (day)
+select distinct visit_date from visits;
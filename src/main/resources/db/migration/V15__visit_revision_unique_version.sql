@@ -0,0 +1,16 @@
+-- A change to a visit's treatment or sick leave now moves the visit's version on too, so every
+-- superseded version is recorded once and an edit's merge base is unambiguous. Duplicates recorded
+-- before are dropped, keeping the earliest: the content the visit had when it reached the version.
+-- The unique key replaces the plain index on the same columns and is built online, like the V2 indexes.
+
+delete newer
+from visit_revisions newer
+    join visit_revisions older
+        on older.visit_id = newer.visit_id
+        and older.visit_version = newer.visit_version
+        and older.id < newer.id;
+
+alter table visit_revisions
+    add constraint uk_visit_revisions_visit_version unique (visit_id, visit_version),
+    drop index idx_visit_revisions_visit_version,
+    algorithm = inplace, lock = none;
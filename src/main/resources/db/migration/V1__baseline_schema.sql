@@ -0,0 +1,231 @@
+-- Baseline schema. Reproduces the schema previously generated by hibernate.ddl-auto=update
+-- for the entity model as of this migration, including Hibernate's generated index and
+-- constraint names, so that existing databases can be baselined at version 1.
+
+create table diagnoses (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    description TEXT,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table doctor_specialties (
+    doctor_id bigint not null,
+    specialty_id bigint not null,
+    primary key (doctor_id, specialty_id)
+) engine=InnoDB;
+
+create table doctors (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    image_url varchar(255),
+    is_approved bit not null,
+    is_general_practitioner bit not null,
+    keycloak_id varchar(255) not null,
+    name varchar(255),
+    unique_id_number varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table medicines (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    dosage varchar(255),
+    frequency varchar(255),
+    name varchar(255) not null,
+    treatment_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table patients (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    egn varchar(255) not null,
+    keycloak_id varchar(255) not null,
+    last_insurance_payment_date date,
+    name varchar(255),
+    general_practitioner_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table sick_leaves (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    duration_days integer not null,
+    start_date date not null,
+    visit_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table specialties (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    description varchar(255),
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table treatments (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    description varchar(255),
+    visit_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table visits (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    notes tinytext,
+    status enum ('CANCELLED_BY_DOCTOR','CANCELLED_BY_PATIENT','COMPLETED','NO_SHOW','SCHEDULED') not null,
+    visit_date date not null,
+    visit_time time(6),
+    diagnosis_id bigint,
+    doctor_id bigint not null,
+    patient_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index IDXg07kjubl109v5pnt6101tg7km
+    on diagnoses (name);
+
+alter table diagnoses
+    add constraint UKg07kjubl109v5pnt6101tg7km unique (name);
+
+create index IDX3m4tpbi5ddpmv2pv83da7p6v3
+    on doctors (keycloak_id);
+
+create index IDXfho9a3asf2v4no38ur28mb444
+    on doctors (unique_id_number);
+
+alter table doctors
+    add constraint UK3m4tpbi5ddpmv2pv83da7p6v3 unique (keycloak_id);
+
+alter table doctors
+    add constraint UK4ey7f2i6bqmfieve9sgo0ue7c unique (unique_id_number);
+
+create index IDXb6dv5kee0aoi485ijmu3n63ic
+    on medicines (name);
+
+alter table medicines
+    add constraint UKb6dv5kee0aoi485ijmu3n63ic unique (name);
+
+create index IDXjacge42ofddmst35s71dkw2l6
+    on patients (keycloak_id);
+
+create index IDXhjfd0ljhcshoky6kyru1rc9hp
+    on patients (egn);
+
+alter table patients
+    add constraint UKhjfd0ljhcshoky6kyru1rc9hp unique (egn);
+
+alter table patients
+    add constraint UKjacge42ofddmst35s71dkw2l6 unique (keycloak_id);
+
+create index IDX4r70t7chlj8ja4pfdy38s8r0j
+    on sick_leaves (visit_id);
+
+alter table sick_leaves
+    add constraint UK4r70t7chlj8ja4pfdy38s8r0j unique (visit_id);
+
+create index IDXbhb8s9o5hv30lkbidtod9cixc
+    on specialties (name);
+
+alter table specialties
+    add constraint UKbhb8s9o5hv30lkbidtod9cixc unique (name);
+
+create index IDXao7r902q71s5cgdq9ij2glg16
+    on treatments (visit_id);
+
+alter table treatments
+    add constraint UKao7r902q71s5cgdq9ij2glg16 unique (visit_id);
+
+create index IDXcuyv55kffl675vy3ikxqul8ae
+    on visits (patient_id);
+
+create index IDXld3do0laf7f5nvm0tdeswn2lu
+    on visits (doctor_id);
+
+create index IDXj181664o4naltrxrtg5mhijmu
+    on visits (diagnosis_id);
+
+create index IDXfspoemwuc2g2to3dbhltbfcsk
+    on visits (visit_date);
+
+alter table doctor_specialties
+    add constraint FK8gbyvkfmm5a01nmd5jberd993
+    foreign key (specialty_id)
+    references specialties (id);
+
+alter table doctor_specialties
+    add constraint FKas1tsi4uakiu7q90rnvsgvhfv
+    foreign key (doctor_id)
+    references doctors (id);
+
+alter table medicines
+    add constraint FK643d3qle1v1bkjo7enwqubrd3
+    foreign key (treatment_id)
+    references treatments (id);
+
+alter table patients
+    add constraint FKkqy65otnxivk9nrq9kr86x806
+    foreign key (general_practitioner_id)
+    references doctors (id);
+
+alter table sick_leaves
+    add constraint FKccfdkwcp929yxmlkypwftyvv6
+    foreign key (visit_id)
+    references visits (id);
+
+alter table treatments
+    add constraint FKmixx3gvml20v86463fw924vmy
+    foreign key (visit_id)
+    references visits (id);
+
+alter table visits
+    add constraint FKsiyeow0kw9hd5g4fb560718fn
+    foreign key (diagnosis_id)
+    references diagnoses (id);
+
+alter table visits
+    add constraint FKth95fndjk3y3nepjfu3f66r63
+    foreign key (doctor_id)
+    references doctors (id);
+
+alter table visits
+    add constraint FKra5p2e0tp6djolm46kdr42cyt
+    foreign key (patient_id)
+    references patients (id);
@@ -0,0 +1,29 @@
+-- Composite indexes for the hottest visit lookups. Every statement is an online, in-place
+-- secondary index build on MySQL 8 (ALGORITHM=INPLACE, LOCK=NONE), so concurrent reads and
+-- writes on the tables continue while the index is built. MySQL rejects the statement instead
+-- of silently falling back to a locking table copy if an online build is not possible.
+
+-- Slot conflict check (findByDoctorAndDateTime) and doctor visits by period.
+alter table visits
+    add index idx_visits_doctor_date_time (doctor_id, visit_date, visit_time),
+    algorithm = inplace, lock = none;
+
+-- Doctor schedule: visits by doctor and status within a date range, ordered by date and time.
+alter table visits
+    add index idx_visits_doctor_status_date_time (doctor_id, status, visit_date, visit_time),
+    algorithm = inplace, lock = none;
+
+-- Patient medical history ordered by date and time.
+alter table visits
+    add index idx_visits_patient_date_time (patient_id, visit_date, visit_time),
+    algorithm = inplace, lock = none;
+
+-- Distinct patients per diagnosis, resolved from the index alone.
+alter table visits
+    add index idx_visits_diagnosis_patient (diagnosis_id, patient_id),
+    algorithm = inplace, lock = none;
+
+-- Sick leave reports grouped and filtered by start date.
+alter table sick_leaves
+    add index idx_sick_leaves_start_date (start_date),
+    algorithm = inplace, lock = none;
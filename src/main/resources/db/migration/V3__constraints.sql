@@ -0,0 +1,7 @@
+-- Database-level guards for invariants that were previously enforced only by bean validation.
+-- CHECK constraints cannot be added in place, so this migration uses a table copy and must run
+-- in a maintenance window on large sick_leaves tables.
+
+alter table sick_leaves
+    add constraint chk_sick_leaves_duration_positive check (duration_days >= 1),
+    algorithm = copy;
@@ -0,0 +1,8 @@
+-- Doctor images are uploaded in the background: the row is committed with a PENDING image whose
+-- bytes wait in a local staging file until the upload succeeds.
+
+alter table doctors
+    add column image_status enum ('FAILED','NONE','PENDING','READY') not null default 'NONE',
+    add column image_staging_path varchar(255);
+
+update doctors set image_status = 'READY' where image_url is not null;
@@ -0,0 +1,20 @@
+-- Images that are no longer referenced wait here until a background worker has deleted them
+-- from the image store. Rows are inserted in the same transaction as the doctor change that
+-- drops the image, so a failed or interrupted store call is retried instead of leaving an orphan.
+
+create table image_deletions (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    attempts integer not null,
+    last_error varchar(512),
+    next_attempt_at datetime(6) not null,
+    public_id varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_image_deletions_next_attempt
+    on image_deletions (next_attempt_at);
@@ -0,0 +1,24 @@
+-- Durable log of published domain events (app.events.log.enabled). Rows are written in the
+-- transaction that publishes the event, so projections can be rebuilt by replaying the log in
+-- ID order. Old rows are purged after app.events.log.retention.
+
+create table domain_events (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    aggregate_id bigint,
+    aggregate_type varchar(32) not null,
+    event_type varchar(64) not null,
+    occurred_at datetime(6) not null,
+    payload longtext not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_domain_events_aggregate
+    on domain_events (aggregate_type, aggregate_id, id);
+
+create index idx_domain_events_created_on
+    on domain_events (created_on);
@@ -0,0 +1,36 @@
+-- Change feed (/api/changes). Every change to patients, visits, treatments and sick leaves is
+-- found through modified_on, which is now also set when a row is created; rows written before
+-- that get their creation time. Deletes are recorded as tombstones in the deleting transaction.
+
+update patients set modified_on = coalesce(created_on, current_timestamp(6)) where modified_on is null;
+update visits set modified_on = coalesce(created_on, current_timestamp(6)) where modified_on is null;
+update treatments set modified_on = coalesce(created_on, current_timestamp(6)) where modified_on is null;
+update sick_leaves set modified_on = coalesce(created_on, current_timestamp(6)) where modified_on is null;
+
+create index idx_patients_modified_on_id
+    on patients (modified_on, id);
+
+create index idx_visits_modified_on_id
+    on visits (modified_on, id);
+
+create index idx_treatments_modified_on_id
+    on treatments (modified_on, id);
+
+create index idx_sick_leaves_modified_on_id
+    on sick_leaves (modified_on, id);
+
+create table change_tombstones (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    entity_id bigint not null,
+    entity_type enum ('PATIENT','SICK_LEAVE','TREATMENT','VISIT') not null,
+    entity_version bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_change_tombstones_created_on_id
+    on change_tombstones (created_on, id);
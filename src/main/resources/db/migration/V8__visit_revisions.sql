@@ -0,0 +1,22 @@
+-- Superseded versions of visits. Before a visit is changed, its content at the current version is
+-- recorded here, so that an edit started from that version can be merged with the changes made
+-- since instead of overwriting them. Old rows are purged after app.visit-edits.revision-retention.
+
+create table visit_revisions (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    snapshot longtext not null,
+    visit_id bigint not null,
+    visit_version bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_visit_revisions_visit_version
+    on visit_revisions (visit_id, visit_version);
+
+create index idx_visit_revisions_created_on
+    on visit_revisions (created_on);
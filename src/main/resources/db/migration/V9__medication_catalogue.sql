@@ -0,0 +1,48 @@
+-- Medication catalogue. Every medicine row used to carry its own copy of the medication name; the
+-- names now live once in medications, and a medicines row is a prescription of a catalogued
+-- medication with its dosage and frequency. Existing names are moved into the catalogue trimmed
+-- and with runs of whitespace collapsed, names differing only in case becoming one medication.
+
+create table medications (
+    id bigint not null auto_increment,
+    created_by varchar(255),
+    created_on datetime(6),
+    modified_by varchar(255),
+    modified_on datetime(6),
+    version bigint,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table medications
+    add constraint UKrnthlywygii0cyvlwdygqb9gy unique (name);
+
+insert into medications (created_on, version, name)
+select now(6), 0, min(normalized)
+from (select trim(regexp_replace(name, '[[:space:]]+', ' ')) as normalized from medicines) names
+group by normalized;
+
+alter table medicines
+    add column medication_id bigint;
+
+update medicines m
+    join medications c on c.name = trim(regexp_replace(m.name, '[[:space:]]+', ' '))
+set m.medication_id = c.id;
+
+alter table medicines
+    modify medication_id bigint not null;
+
+create index idx_medicines_medication
+    on medicines (medication_id);
+
+alter table medicines
+    add constraint FK9u7ce4b2auit5uqio4i6g3phv
+    foreign key (medication_id)
+    references medications (id);
+
+drop index UKb6dv5kee0aoi485ijmu3n63ic on medicines;
+
+drop index IDXb6dv5kee0aoi485ijmu3n63ic on medicines;
+
+alter table medicines
+    drop column name;
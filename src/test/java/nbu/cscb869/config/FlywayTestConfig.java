@@ -0,0 +1,23 @@
+package nbu.cscb869.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Rebuilds the test schema from the Flyway migrations for every application context,
+ * mirroring the clean slate the test suite previously got from {@code ddl-auto: create-drop}.
+ */
+@Configuration
+@Profile("test")
+public class FlywayTestConfig {
+
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package nbu.cscb869.config.integrationtests;
+
+import nbu.cscb869.services.data.dtos.SpecialtyCreateDTO;
+import nbu.cscb869.services.services.contracts.SpecialtyService;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.test.context.TestSecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@Import(MetricsIntegrationTests.TestConfig.class)
+class MetricsIntegrationTests {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ClientRegistrationRepository clientRegistrationRepository() {
+            return Mockito.mock(ClientRegistrationRepository.class);
+        }
+
+        @Bean
+        @Primary
+        public JwtDecoder jwtDecoder() {
+            return Mockito.mock(JwtDecoder.class);
+        }
+    }
+
+    @MockBean
+    private Keycloak keycloak;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SpecialtyService specialtyService;
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    /**
+     * Makes the decoder accept a token carrying the given client roles, as Keycloak issues them to a service account.
+     */
+    private void givenToken(String token, String role) {
+        Jwt jwt = Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("service-account-prometheus")
+                .claim("resource_access", Map.of("medical-record-system", Map.of("roles", List.of(role))))
+                .build();
+        when(jwtDecoder.decode(token)).thenReturn(jwt);
+    }
+
+    @Test
+    void prometheusEndpoint_WithAdminBearerTokenAfterServiceCallAndRequest_ShouldExposeApplicationMetrics_HappyPath() throws Exception {
+        SpecialtyCreateDTO dto = new SpecialtyCreateDTO();
+        dto.setName("Metrics-" + System.nanoTime());
+        dto.setDescription("Instrumented");
+        TestSecurityContextHolder.setAuthentication(new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+        specialtyService.create(dto);
+        // The scrape below must authenticate with its own token, not with the session of a logged-in user.
+        TestSecurityContextHolder.clearContext();
+        mockMvc.perform(get("/welcome"));
+        givenToken("scrape-token", "admin");
+
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, "Bearer scrape-token"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("medical_service_invocations_seconds_bucket{class=\"SpecialtyServiceImpl\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+                .andExpect(content().string(containsString("http_server_requests_sql_statements_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_active{pool=\"interactive\"")));
+    }
+
+    @Test
+    void prometheusEndpoint_WithoutToken_ShouldAskForBearerToken_ErrorCase() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, containsString("Bearer")));
+    }
+
+    @Test
+    void prometheusEndpoint_WithoutAdminRole_ShouldBeForbidden_ErrorCase() throws Exception {
+        givenToken("patient-token", "patient");
+
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, "Bearer patient-token"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void healthEndpoint_WithoutToken_ShouldBeOpen_HappyPath() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,237 @@
+package nbu.cscb869.config.integrationtests;
+
+import nbu.cscb869.config.datasource.ReplicaLagMonitor;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.data.models.Specialty;
+import nbu.cscb869.data.repositories.SpecialtyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.containers.Network;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the application against a real MySQL primary/replica pair to verify that read-only transactions are served
+ * by the replica, through the pool of their workload, that users read their own writes, and that reads fall back to
+ * the primary when the replica lags.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(ReadReplicaRoutingIntegrationTests.TestConfig.class)
+class ReadReplicaRoutingIntegrationTests {
+
+    private static final String PASSWORD = "test";
+    private static final Network NETWORK = Network.newNetwork();
+
+    @SuppressWarnings("resource")
+    private static final MySQLContainer<?> PRIMARY = new MySQLContainer<>("mysql:8.0")
+            .withNetwork(NETWORK)
+            .withNetworkAliases("primary")
+            .withDatabaseName("test_db")
+            .withPassword(PASSWORD)
+            .withCommand("--server-id=1", "--log-bin=mysql-bin");
+
+    @SuppressWarnings("resource")
+    private static final MySQLContainer<?> REPLICA = new MySQLContainer<>("mysql:8.0")
+            .withNetwork(NETWORK)
+            .withDatabaseName("test_db")
+            .withPassword(PASSWORD)
+            .withCommand("--server-id=2", "--read-only=ON");
+
+    static {
+        PRIMARY.start();
+        REPLICA.start();
+        startReplication();
+    }
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ClientRegistrationRepository clientRegistrationRepository() {
+            return Mockito.mock(ClientRegistrationRepository.class);
+        }
+
+        @Bean
+        @Primary
+        public JwtDecoder jwtDecoder() {
+            return Mockito.mock(JwtDecoder.class);
+        }
+    }
+
+    @MockBean
+    private Keycloak keycloak;
+
+    @Autowired
+    private SpecialtyRepository specialtyRepository;
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+
+    @DynamicPropertySource
+    static void routingProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> PASSWORD);
+        registry.add("spring.datasource.driver-class-name", () -> "com.mysql.cj.jdbc.Driver");
+        registry.add("app.datasource.routing.enabled", () -> "true");
+        registry.add("app.datasource.routing.replicas[0].name", () -> "replica-1");
+        registry.add("app.datasource.routing.replicas[0].url", REPLICA::getJdbcUrl);
+        registry.add("app.datasource.routing.replicas[0].username", () -> "root");
+        registry.add("app.datasource.routing.replicas[0].password", () -> PASSWORD);
+        registry.add("app.datasource.routing.read-your-writes-window", () -> "2s");
+    }
+
+    @BeforeEach
+    void setUp() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        replicaLagMonitor.checkReplicas();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        SecurityContextHolder.clearContext();
+        executeOnReplica("START REPLICA");
+    }
+
+    @Test
+    void readOnlyTransaction_AfterReplicationCatchesUp_ShouldReadFromReplica_HappyPath() throws Exception {
+        String name = saveSpecialtyAs("doctor-a");
+
+        authenticateAs("doctor-b");
+        assertTrue(replicaLagMonitor.isHealthy("replica-1"));
+        waitUntil(() -> findInReadOnlyTransaction(name));
+        assertTrue(findInReadOnlyTransaction(name));
+    }
+
+    @Test
+    void readOnlyTransaction_ReplicaBehind_ShouldHideOtherUsersWriteButShowOwnWrite_HappyPath() throws Exception {
+        assertTrue(replicaLagMonitor.isHealthy("replica-1"));
+        // Pausing the applier without a new lag check simulates a write the replica has not applied yet.
+        executeOnReplica("STOP REPLICA SQL_THREAD");
+
+        String name = saveSpecialtyAs("doctor-a");
+
+        authenticateAs("doctor-a");
+        assertTrue(findInReadOnlyTransaction(name), "The writer must see its own write on the primary.");
+
+        authenticateAs("doctor-b");
+        assertFalse(findInReadOnlyTransaction(name), "Other users read from the replica, which has not applied the write.");
+    }
+
+    @Test
+    void readOnlyTransaction_ReportingWorkload_ShouldUseReportingPoolOfReplica_HappyPath() {
+        authenticateAs("doctor-b");
+        assertTrue(replicaLagMonitor.isHealthy("replica-1"));
+
+        long serverId = WorkloadContext.callWithin(Workload.REPORTING, () -> readOnlySessionVariable("@@GLOBAL.server_id"));
+        long timeout = WorkloadContext.callWithin(Workload.REPORTING,
+                () -> readOnlySessionVariable("@@SESSION.max_execution_time"));
+
+        assertEquals(2L, serverId, "Reporting reads must be served by the replica.");
+        assertEquals(120_000L, timeout, "Reporting reads on the replica must use the reporting pool.");
+        assertEquals(10_000L, readOnlySessionVariable("@@SESSION.max_execution_time"),
+                "Interactive reads on the replica must keep using the interactive pool.");
+    }
+
+    @Test
+    void readOnlyTransaction_ReplicationStopped_ShouldFallBackToPrimary_ErrorCase() throws Exception {
+        executeOnReplica("STOP REPLICA");
+        String name = saveSpecialtyAs("doctor-a");
+
+        replicaLagMonitor.checkReplicas();
+
+        authenticateAs("doctor-b");
+        assertFalse(replicaLagMonitor.isHealthy("replica-1"));
+        assertTrue(findInReadOnlyTransaction(name));
+    }
+
+    private String saveSpecialtyAs(String user) {
+        authenticateAs(user);
+        String name = "Specialty-" + UUID.randomUUID().toString().substring(0, 8);
+        readWriteTransaction.executeWithoutResult(status ->
+                specialtyRepository.save(Specialty.builder().name(name).description("Replicated").build()));
+        return name;
+    }
+
+    private boolean findInReadOnlyTransaction(String name) {
+        return Boolean.TRUE.equals(readOnlyTransaction.execute(status -> specialtyRepository.findByName(name).isPresent()));
+    }
+
+    private long readOnlySessionVariable(String variable) {
+        Long value = readOnlyTransaction.execute(status -> jdbcTemplate.queryForObject("SELECT " + variable, Long.class));
+        return value == null ? -1 : value;
+    }
+
+    private static void authenticateAs(String user) {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(user, null, "ROLE_DOCTOR");
+        authentication.setAuthenticated(true);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static void startReplication() {
+        try (Connection primary = DriverManager.getConnection(PRIMARY.getJdbcUrl(), "root", PASSWORD);
+             Statement statement = primary.createStatement();
+             ResultSet status = statement.executeQuery("SHOW MASTER STATUS")) {
+            status.next();
+            String logFile = status.getString("File");
+            long logPosition = status.getLong("Position");
+            executeOnReplica("CHANGE REPLICATION SOURCE TO SOURCE_HOST='primary', SOURCE_PORT=3306, "
+                    + "SOURCE_USER='root', SOURCE_PASSWORD='" + PASSWORD + "', GET_SOURCE_PUBLIC_KEY=1, "
+                    + "SOURCE_LOG_FILE='" + logFile + "', SOURCE_LOG_POS=" + logPosition);
+            executeOnReplica("START REPLICA");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not start replication between the test containers.", e);
+        }
+    }
+
+    private static void executeOnReplica(String sql) throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA.getJdbcUrl(), "root", PASSWORD);
+             Statement statement = replica.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package nbu.cscb869.config.integrationtests;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(WorkloadPoolsIntegrationTests.TestConfig.class)
+class WorkloadPoolsIntegrationTests {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ClientRegistrationRepository clientRegistrationRepository() {
+            return Mockito.mock(ClientRegistrationRepository.class);
+        }
+
+        @Bean
+        @Primary
+        public JwtDecoder jwtDecoder() {
+            return Mockito.mock(JwtDecoder.class);
+        }
+    }
+
+    @MockBean
+    private Keycloak keycloak;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    @Qualifier("reportingDataSource")
+    private HikariDataSource reportingDataSource;
+
+    private long sessionStatementTimeout() {
+        Long timeout = jdbcTemplate.queryForObject("SELECT @@SESSION.max_execution_time", Long.class);
+        return timeout == null ? -1 : timeout;
+    }
+
+    @Test
+    void workloadPools_EachWorkload_ShouldUseItsOwnStatementTimeout_HappyPath() {
+        long interactive = sessionStatementTimeout();
+        long reporting = WorkloadContext.callWithin(Workload.REPORTING, this::sessionStatementTimeout);
+        long background = WorkloadContext.callWithin(Workload.BACKGROUND, this::sessionStatementTimeout);
+
+        assertEquals(10_000L, interactive);
+        assertEquals(120_000L, reporting);
+        assertEquals(0L, background);
+    }
+
+    @Test
+    void workloadPools_ShouldExportPoolMetricsPerPool_HappyPath() {
+        for (String pool : new String[]{"interactive", "reporting", "background"}) {
+            Gauge max = meterRegistry.find("hikaricp.connections.max").tag("pool", pool).gauge();
+            assertNotNull(max, "Missing pool metrics for " + pool);
+        }
+        Gauge reportingMax = meterRegistry.find("hikaricp.connections.max").tag("pool", "reporting").gauge();
+        assertEquals(reportingDataSource.getMaximumPoolSize(), reportingMax.value());
+    }
+}
@@ -0,0 +1,134 @@
+package nbu.cscb869.config.unit;
+
+import nbu.cscb869.config.analytics.AnalyticsChangeRecorder;
+import nbu.cscb869.data.models.Patient;
+import nbu.cscb869.data.models.SickLeave;
+import nbu.cscb869.data.models.Visit;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsChangeRecorderUnitTests {
+
+    private static final String[] VISIT_PROPERTIES = {"diagnosis", "doctor", "notes", "patient", "status", "visitDate"};
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 5);
+
+    @Mock
+    private EntityPersister persister;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    /** The events carry no session; the recorder's JDBC work runs straight against the mocked connection. */
+    private final EventSource session = null;
+    private int workCount;
+
+    private AnalyticsChangeRecorder recorder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        recorder = new AnalyticsChangeRecorder() {
+            @Override
+            protected void doWork(EventSource session, Work work) {
+                workCount++;
+                try {
+                    work.execute(connection);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        lenient().when(connection.prepareStatement(anyString())).thenReturn(statement);
+    }
+
+    private static Visit visit(LocalDate day) {
+        return Visit.builder().visitDate(day).build();
+    }
+
+    private PostUpdateEvent visitUpdate(Visit visit, LocalDate previousDay, int... dirty) {
+        when(persister.getPropertyNames()).thenReturn(VISIT_PROPERTIES);
+        Object[] oldState = new Object[VISIT_PROPERTIES.length];
+        oldState[5] = previousDay;
+        return new PostUpdateEvent(visit, 1L, new Object[VISIT_PROPERTIES.length], oldState, dirty, persister, session);
+    }
+
+    @Test
+    void onPostInsert_WithVisit_ShouldMarkItsDay_HappyPath() throws Exception {
+        recorder.onPostInsert(new PostInsertEvent(visit(DAY), 1L, new Object[0], persister, session));
+
+        verify(statement).setDate(1, Date.valueOf(DAY));
+        verify(statement).executeUpdate();
+    }
+
+    @Test
+    void onPostUpdate_WithMovedVisit_ShouldMarkOldAndNewDays_HappyPath() throws Exception {
+        recorder.onPostUpdate(visitUpdate(visit(DAY), DAY.minusDays(1), 5));
+
+        verify(statement).setDate(1, Date.valueOf(DAY.minusDays(1)));
+        verify(statement).setDate(1, Date.valueOf(DAY));
+        verify(statement, times(2)).executeUpdate();
+    }
+
+    @Test
+    void onPostUpdate_WithVisitWithSickLeave_ShouldMarkSickLeaveStart_HappyPath() throws Exception {
+        Visit visit = visit(DAY);
+        visit.setSickLeave(SickLeave.builder().startDate(DAY.plusDays(1)).build());
+
+        recorder.onPostUpdate(visitUpdate(visit, DAY, 1));
+
+        verify(statement).setDate(1, Date.valueOf(DAY));
+        verify(statement).setDate(1, Date.valueOf(DAY.plusDays(1)));
+    }
+
+    @Test
+    void onPostUpdate_WithOnlyNotesChanged_ShouldMarkNothing_EdgeCase() {
+        recorder.onPostUpdate(visitUpdate(visit(DAY), DAY, 2));
+
+        assertEquals(0, workCount);
+        verifyNoInteractions(connection);
+    }
+
+    @Test
+    void onPostUpdate_WithReassignedPatient_ShouldMarkAllDaysOfPatient_HappyPath() throws Exception {
+        Patient patient = new Patient();
+        patient.setId(7L);
+        when(persister.getPropertyNames()).thenReturn(new String[]{"generalPractitioner", "name"});
+
+        recorder.onPostUpdate(new PostUpdateEvent(patient, 7L, new Object[2], new Object[2], new int[]{0}, persister, session));
+
+        verify(connection).prepareStatement(contains("WHERE patient_id = ?"));
+        verify(statement).setLong(1, 7L);
+        verify(statement).setLong(2, 7L);
+    }
+
+    @Test
+    void onPostDelete_WithSickLeave_ShouldMarkItsStart_HappyPath() throws Exception {
+        SickLeave sickLeave = SickLeave.builder().startDate(DAY).build();
+
+        recorder.onPostDelete(new PostDeleteEvent(sickLeave, 1L, new Object[0], persister, session));
+
+        verify(statement).setDate(1, Date.valueOf(DAY));
+    }
+}
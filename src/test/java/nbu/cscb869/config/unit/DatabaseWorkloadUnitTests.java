@@ -0,0 +1,139 @@
+package nbu.cscb869.config.unit;
+
+import nbu.cscb869.config.datasource.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseWorkloadUnitTests {
+
+    @DatabaseWorkload(Workload.BACKGROUND)
+    static class AnnotatedWork {
+        public Workload classLevel() {
+            return WorkloadContext.current();
+        }
+
+        @DatabaseWorkload(Workload.REPORTING)
+        public Workload methodLevel() {
+            return WorkloadContext.current();
+        }
+
+        @DatabaseWorkload(Workload.REPORTING)
+        public Workload failing() {
+            throw new IllegalStateException("Report failed");
+        }
+    }
+
+    private AnnotatedWork proxy;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new AnnotatedWork());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new DatabaseWorkloadAspect());
+        proxy = factory.getProxy();
+    }
+
+    @Nested
+    @DisplayName("DatabaseWorkloadAspect")
+    class AspectTests {
+        @Test
+        void applyWorkload_MethodAnnotation_ShouldOverrideClassAnnotation_HappyPath() {
+            assertEquals(Workload.REPORTING, proxy.methodLevel());
+        }
+
+        @Test
+        void applyWorkload_ClassAnnotation_ShouldApplyToUnannotatedMethods_HappyPath() {
+            assertEquals(Workload.BACKGROUND, proxy.classLevel());
+        }
+
+        @Test
+        void applyWorkload_AfterCall_ShouldRestoreInteractiveWorkload_HappyPath() {
+            proxy.methodLevel();
+
+            assertEquals(Workload.INTERACTIVE, WorkloadContext.current());
+        }
+
+        @Test
+        void applyWorkload_MethodThrows_ShouldRestoreWorkloadAndRethrow_ErrorCase() {
+            assertThrows(IllegalStateException.class, () -> proxy.failing());
+
+            assertEquals(Workload.INTERACTIVE, WorkloadContext.current());
+        }
+
+        @Test
+        void callWithin_Nested_ShouldRestoreOuterWorkload_EdgeCase() {
+            Workload inner = WorkloadContext.callWithin(Workload.BACKGROUND, () -> proxy.methodLevel());
+            Workload outerAfterInner = WorkloadContext.callWithin(Workload.BACKGROUND, () -> {
+                proxy.methodLevel();
+                return WorkloadContext.current();
+            });
+
+            assertEquals(Workload.REPORTING, inner);
+            assertEquals(Workload.BACKGROUND, outerAfterInner);
+        }
+    }
+
+    @Nested
+    @DisplayName("WorkloadRoutingDataSource")
+    class RoutingTests {
+        @Mock
+        private DataSource interactive;
+        @Mock
+        private DataSource reporting;
+        @Mock
+        private DataSource background;
+        @Mock
+        private Connection reportingConnection;
+        @Mock
+        private Connection interactiveConnection;
+
+        private WorkloadRoutingDataSource routingDataSource;
+
+        @BeforeEach
+        void setUp() {
+            Map<Workload, DataSource> pools = new EnumMap<>(Workload.class);
+            pools.put(Workload.INTERACTIVE, interactive);
+            pools.put(Workload.REPORTING, reporting);
+            pools.put(Workload.BACKGROUND, background);
+            routingDataSource = new WorkloadRoutingDataSource(pools);
+            routingDataSource.afterPropertiesSet();
+        }
+
+        @Test
+        void getConnection_NoWorkload_ShouldUseInteractivePool_HappyPath() throws SQLException {
+            when(interactive.getConnection()).thenReturn(interactiveConnection);
+
+            assertSame(interactiveConnection, routingDataSource.getConnection());
+        }
+
+        @Test
+        void getConnection_ReportingWorkload_ShouldUseReportingPool_HappyPath() {
+            Connection connection = WorkloadContext.callWithin(Workload.REPORTING, () -> {
+                try {
+                    when(reporting.getConnection()).thenReturn(reportingConnection);
+                    return routingDataSource.getConnection();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            assertSame(reportingConnection, connection);
+        }
+    }
+}
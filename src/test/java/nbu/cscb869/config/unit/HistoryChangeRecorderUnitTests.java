@@ -0,0 +1,144 @@
+package nbu.cscb869.config.unit;
+
+import nbu.cscb869.config.history.HistoryChangeRecorder;
+import nbu.cscb869.data.models.Diagnosis;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.Medicine;
+import nbu.cscb869.data.models.Patient;
+import nbu.cscb869.data.models.SickLeave;
+import nbu.cscb869.data.models.Specialty;
+import nbu.cscb869.data.models.Treatment;
+import nbu.cscb869.data.models.Visit;
+import nbu.cscb869.data.models.enums.ImageStatus;
+import nbu.cscb869.services.data.events.DiagnosisCodesLoaded;
+import nbu.cscb869.services.data.events.DoctorApproved;
+import nbu.cscb869.services.data.events.DoctorImageChanged;
+import nbu.cscb869.services.services.utility.PatientHistoryCache;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HistoryChangeRecorderUnitTests {
+
+    private static final String[] SICK_LEAVE_PROPERTIES = {"durationDays", "startDate", "visit"};
+
+    @Mock
+    private EntityPersister persister;
+
+    @Mock
+    private PatientHistoryCache patientHistoryCache;
+
+    private final EventSource session = null;
+
+    private HistoryChangeRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new HistoryChangeRecorder(patientHistoryCache);
+    }
+
+    /** Returns a visit of the given patient, with an ID 100 above the patient's. */
+    private static Visit visitOf(long patientId) {
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        Visit visit = Visit.builder().patient(patient).build();
+        visit.setId(patientId + 100);
+        return visit;
+    }
+
+    private PostUpdateEvent update(Object entity, Object[] oldState) {
+        return new PostUpdateEvent(entity, 1L, new Object[0], oldState, null, persister, session);
+    }
+
+    @Test
+    void onPostUpdate_WithDoctorSpecialtyOrDiagnosis_ShouldEvictAllSnapshots_HappyPath() {
+        recorder.onPostUpdate(update(new Doctor(), null));
+        recorder.onPostUpdate(update(new Specialty(), null));
+        recorder.onPostUpdate(update(new Diagnosis(), null));
+
+        verify(patientHistoryCache, times(3)).evictAll();
+        verify(patientHistoryCache, never()).evict(any());
+    }
+
+    @Test
+    void onPostDelete_WithDoctor_ShouldEvictAllSnapshots_HappyPath() {
+        recorder.onPostDelete(new PostDeleteEvent(new Doctor(), 1L, new Object[0], persister, session));
+
+        verify(patientHistoryCache).evictAll();
+    }
+
+    @Test
+    void onPostUpdate_WithPatient_ShouldEvictOnlyTheirSnapshot_HappyPath() {
+        Patient patient = new Patient();
+        patient.setId(7L);
+
+        recorder.onPostUpdate(update(patient, null));
+
+        verify(patientHistoryCache).evict(7L);
+        verify(patientHistoryCache, never()).evictAll();
+    }
+
+    @Test
+    void onPostInsert_WithSickLeaveTreatmentOrMedicine_ShouldRecordTheChangeToTheirVisit_HappyPath() {
+        Treatment treatment = Treatment.builder().visit(visitOf(8L)).build();
+
+        recorder.onPostInsert(new PostInsertEvent(SickLeave.builder().visit(visitOf(7L)).build(), 1L, new Object[0], persister, session));
+        recorder.onPostInsert(new PostInsertEvent(treatment, 2L, new Object[0], persister, session));
+        recorder.onPostInsert(new PostInsertEvent(Medicine.builder().treatment(treatment).build(), 3L, new Object[0], persister, session));
+
+        verify(patientHistoryCache).visitRecordChanged(7L, 107L);
+        verify(patientHistoryCache, times(2)).visitRecordChanged(8L, 108L);
+        verify(patientHistoryCache, never()).evict(any());
+        verify(patientHistoryCache, never()).evictAll();
+    }
+
+    @Test
+    void onPostUpdate_WithSickLeaveMovedToAnotherPatientsVisit_ShouldRecordTheChangeToBothVisits_EdgeCase() {
+        when(persister.getPropertyNames()).thenReturn(SICK_LEAVE_PROPERTIES);
+        SickLeave sickLeave = SickLeave.builder().visit(visitOf(8L)).build();
+
+        recorder.onPostUpdate(update(sickLeave, new Object[]{3, null, visitOf(7L)}));
+
+        verify(patientHistoryCache).visitRecordChanged(7L, 107L);
+        verify(patientHistoryCache).visitRecordChanged(8L, 108L);
+    }
+
+    @Test
+    void onPostInsertUpdateOrDelete_WithVisit_ShouldLeaveTheInPlaceUpdateToTheVisitService_EdgeCase() {
+        Visit visit = visitOf(7L);
+
+        recorder.onPostInsert(new PostInsertEvent(visit, 1L, new Object[0], persister, session));
+        recorder.onPostUpdate(update(visit, null));
+        recorder.onPostDelete(new PostDeleteEvent(visit, 1L, new Object[0], persister, session));
+
+        verifyNoInteractions(patientHistoryCache);
+    }
+
+    @Test
+    void onEvent_WithBulkChangesToTimelineData_ShouldEvictAllSnapshots_HappyPath() {
+        recorder.onEvent(new DoctorImageChanged(4L, ImageStatus.READY, Instant.now()));
+        recorder.onEvent(new DiagnosisCodesLoaded(0, 2, Instant.now()));
+
+        verify(patientHistoryCache, times(2)).evictAll();
+    }
+
+    @Test
+    void onEvent_WithInsertedCodesOrOtherEvents_ShouldKeepSnapshots_EdgeCase() {
+        recorder.onEvent(new DiagnosisCodesLoaded(5, 0, Instant.now()));
+        recorder.onEvent(new DoctorApproved(4L, Instant.now()));
+
+        verifyNoInteractions(patientHistoryCache);
+    }
+}
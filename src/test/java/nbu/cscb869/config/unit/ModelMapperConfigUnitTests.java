@@ -1,6 +1,7 @@
 package nbu.cscb869.config.unit;
 
 import nbu.cscb869.config.ModelMapperConfig;
+import nbu.cscb869.data.dto.PatientSummaryDTO;
 import nbu.cscb869.data.models.*;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.data.repositories.DoctorRepository;
@@ -266,6 +267,25 @@ class ModelMapperConfigUnitTests {
             assertNull(dto.getGeneralPractitionerName());
         }
 
+        @Test
+        void mapPatientSummaryDTOToPatientViewDTO_ShouldMapAllFieldsCorrectly_HappyPath() {
+            // ARRANGE
+            PatientSummaryDTO summary = new PatientSummaryDTO(1L, "John Doe", TestDataUtils.generateValidEgn(),
+                    LocalDate.of(2023, 1, 15), mockGp.getId(), mockGp.getName(), "kc-patient-1");
+
+            // ACT
+            PatientViewDTO dto = modelMapper.map(summary, PatientViewDTO.class);
+
+            // ASSERT
+            assertEquals(summary.getId(), dto.getId());
+            assertEquals(summary.getName(), dto.getName());
+            assertEquals(summary.getEgn(), dto.getEgn());
+            assertEquals(summary.getKeycloakId(), dto.getKeycloakId());
+            assertEquals(summary.getLastInsurancePaymentDate(), dto.getLastInsurancePaymentDate());
+            assertEquals(mockGp.getId(), dto.getGeneralPractitionerId());
+            assertEquals(mockGp.getName(), dto.getGeneralPractitionerName());
+        }
+
         @Test
         void mapPatientCreateDTOToPatient_ShouldMapAllFieldsCorrectly_HappyPath() {
             // ARRANGE
@@ -452,6 +472,7 @@ class ModelMapperConfigUnitTests {
             source.setPatient(patientViewDTO);
             source.setDoctor(doctorViewDTO);
             source.setDiagnosis(diagnosisViewDTO);
+            source.setVersion(4L);
 
             // ACT
             VisitUpdateDTO destination = modelMapper.map(source, VisitUpdateDTO.class);
@@ -465,6 +486,7 @@ class ModelMapperConfigUnitTests {
             assertEquals(patientViewDTO.getId(), destination.getPatientId());
             assertEquals(doctorViewDTO.getId(), destination.getDoctorId());
             assertEquals(diagnosisViewDTO.getId(), destination.getDiagnosisId());
+            assertEquals(4L, destination.getVersion());
         }
     }
 
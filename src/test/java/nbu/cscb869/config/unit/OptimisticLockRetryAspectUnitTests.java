@@ -0,0 +1,99 @@
+package nbu.cscb869.config.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.concurrency.OptimisticLockRetryAspect;
+import nbu.cscb869.config.concurrency.RetryOnOptimisticLock;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticLockRetryAspectUnitTests {
+
+    static class VisitServiceImpl {
+        @RetryOnOptimisticLock
+        void update() {
+        }
+    }
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+    @Mock
+    private MethodSignature signature;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticLockRetryAspect aspect;
+    private RetryOnOptimisticLock retry;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new OptimisticLockRetryAspect(meterRegistry);
+        retry = VisitServiceImpl.class.getDeclaredMethod("update").getAnnotation(RetryOnOptimisticLock.class);
+        lenient().when(joinPoint.getSignature()).thenReturn(signature);
+        lenient().doReturn(VisitServiceImpl.class).when(signature).getDeclaringType();
+        lenient().when(signature.getName()).thenReturn("update");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    private static OptimisticLockingFailureException lostRace() {
+        return new OptimisticLockingFailureException("Row was updated or deleted by another transaction");
+    }
+
+    @Test
+    void retry_WhenLockFailsOnce_ShouldRunAgainAndCountRetry_HappyPath() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(lostRace()).thenReturn("saved");
+
+        assertEquals("saved", aspect.retry(joinPoint, retry));
+
+        verify(joinPoint, times(2)).proceed();
+        assertEquals(1.0, meterRegistry.get("medical.optimistic.retries")
+                .tags("class", "VisitServiceImpl", "method", "update").counter().count());
+        assertNull(meterRegistry.find("medical.optimistic.failures").counter());
+    }
+
+    @Test
+    void retry_WhenLockKeepsFailing_ShouldGiveUpAfterMaxAttempts_ErrorCase() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(lostRace());
+
+        assertThrows(OptimisticLockingFailureException.class, () -> aspect.retry(joinPoint, retry));
+
+        verify(joinPoint, times(3)).proceed();
+        assertEquals(2.0, meterRegistry.get("medical.optimistic.retries").counter().count());
+        assertEquals(1.0, meterRegistry.get("medical.optimistic.failures").counter().count());
+    }
+
+    @Test
+    void retry_WhenOtherExceptionIsThrown_ShouldNotRetry_EdgeCase() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> aspect.retry(joinPoint, retry));
+
+        verify(joinPoint).proceed();
+    }
+
+    @Test
+    void retry_WithinCallersTransaction_ShouldNotRetry_EdgeCase() throws Throwable {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        when(joinPoint.proceed()).thenThrow(lostRace());
+
+        assertThrows(OptimisticLockingFailureException.class, () -> aspect.retry(joinPoint, retry));
+
+        verify(joinPoint).proceed();
+        assertNull(meterRegistry.find("medical.optimistic.retries").counter());
+    }
+}
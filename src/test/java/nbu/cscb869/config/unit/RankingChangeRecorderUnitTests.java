@@ -0,0 +1,128 @@
+package nbu.cscb869.config.unit;
+
+import nbu.cscb869.config.rankings.RankingChangeRecorder;
+import nbu.cscb869.data.models.Diagnosis;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.SickLeave;
+import nbu.cscb869.data.models.Visit;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RankingChangeRecorderUnitTests {
+
+    private static final String[] VISIT_PROPERTIES = {"diagnosis", "doctor", "notes", "patient", "status", "visitDate"};
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 5);
+
+    @Mock
+    private EntityPersister persister;
+
+    @Mock
+    private FrequencyRankings frequencyRankings;
+
+    private final EventSource session = null;
+
+    private RankingChangeRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new RankingChangeRecorder(frequencyRankings);
+    }
+
+    private static Diagnosis diagnosis(long id) {
+        Diagnosis diagnosis = new Diagnosis();
+        diagnosis.setId(id);
+        return diagnosis;
+    }
+
+    private static Doctor doctor(long id) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        return doctor;
+    }
+
+    private static Visit visit(long diagnosisId, long doctorId) {
+        return Visit.builder().diagnosis(diagnosis(diagnosisId)).doctor(doctor(doctorId)).visitDate(DAY).build();
+    }
+
+    private PostUpdateEvent visitUpdate(Visit visit, Object[] oldState, int... dirty) {
+        when(persister.getPropertyNames()).thenReturn(VISIT_PROPERTIES);
+        return new PostUpdateEvent(visit, 1L, new Object[VISIT_PROPERTIES.length], oldState, dirty, persister, session);
+    }
+
+    @Test
+    void onPostInsert_WithVisit_ShouldCountItsDiagnosis_HappyPath() {
+        recorder.onPostInsert(new PostInsertEvent(visit(4L, 7L), 1L, new Object[0], persister, session));
+
+        verify(frequencyRankings).visitChanged(null, null, 4L, DAY);
+    }
+
+    @Test
+    void onPostInsert_WithSickLeave_ShouldCountItsDoctor_HappyPath() {
+        SickLeave sickLeave = SickLeave.builder().startDate(DAY).visit(visit(4L, 7L)).build();
+
+        recorder.onPostInsert(new PostInsertEvent(sickLeave, 1L, new Object[0], persister, session));
+
+        verify(frequencyRankings).sickLeaveChanged(null, null, 7L, DAY);
+    }
+
+    @Test
+    void onPostUpdate_WithChangedDiagnosis_ShouldMoveTheCount_HappyPath() {
+        Object[] oldState = new Object[VISIT_PROPERTIES.length];
+        oldState[0] = diagnosis(3L);
+        oldState[5] = DAY;
+
+        recorder.onPostUpdate(visitUpdate(visit(4L, 7L), oldState, 0));
+
+        verify(frequencyRankings).visitChanged(3L, DAY, 4L, DAY);
+        verifyNoMoreInteractions(frequencyRankings);
+    }
+
+    @Test
+    void onPostUpdate_WithReassignedDoctorOfSickLeave_ShouldMoveSickLeave_HappyPath() {
+        Visit visit = visit(4L, 7L);
+        visit.setSickLeave(SickLeave.builder().startDate(DAY.plusDays(1)).build());
+        Object[] oldState = new Object[VISIT_PROPERTIES.length];
+        oldState[0] = diagnosis(4L);
+        oldState[1] = doctor(6L);
+        oldState[5] = DAY;
+
+        recorder.onPostUpdate(visitUpdate(visit, oldState, 1));
+
+        verify(frequencyRankings).sickLeaveChanged(6L, DAY.plusDays(1), 7L, DAY.plusDays(1));
+    }
+
+    @Test
+    void onPostUpdate_WithOnlyNotesChanged_ShouldReportNothing_EdgeCase() {
+        recorder.onPostUpdate(visitUpdate(visit(4L, 7L), new Object[VISIT_PROPERTIES.length], 2));
+
+        verifyNoInteractions(frequencyRankings);
+    }
+
+    @Test
+    void onPostUpdate_WithoutOldState_ShouldReportNothing_EdgeCase() {
+        recorder.onPostUpdate(new PostUpdateEvent(visit(4L, 7L), 1L, new Object[0], null, null, persister, session));
+
+        verifyNoInteractions(frequencyRankings);
+    }
+
+    @Test
+    void onPostDelete_WithVisit_ShouldUncountIt_HappyPath() {
+        recorder.onPostDelete(new PostDeleteEvent(visit(4L, 7L), 1L, new Object[0], persister, session));
+
+        verify(frequencyRankings).visitChanged(4L, DAY, null, null);
+    }
+}
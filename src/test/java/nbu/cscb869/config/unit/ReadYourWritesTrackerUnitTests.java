@@ -0,0 +1,163 @@
+package nbu.cscb869.config.unit;
+
+import nbu.cscb869.config.datasource.ReadYourWritesTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesTrackerUnitTests {
+
+    private static final Duration WINDOW = Duration.ofSeconds(10);
+    private static final Instant START = Instant.parse("2024-01-01T10:00:00Z");
+
+    private MutableClock clock;
+    private ReadYourWritesTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        tracker = new ReadYourWritesTracker(WINDOW, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void authenticateAs(String user) {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(user, null, "ROLE_PATIENT");
+        authentication.setAuthenticated(true);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @Nested
+    @DisplayName("hasRecentWrite")
+    class HasRecentWriteTests {
+        @Test
+        void hasRecentWrite_WithinWindow_ShouldReturnTrue_HappyPath() {
+            authenticateAs("alice");
+            tracker.recordWrite("alice");
+            clock.advance(WINDOW.minusSeconds(1));
+
+            assertTrue(tracker.hasRecentWrite());
+        }
+
+        @Test
+        void hasRecentWrite_AfterWindow_ShouldReturnFalse_EdgeCase() {
+            authenticateAs("alice");
+            tracker.recordWrite("alice");
+            clock.advance(WINDOW);
+
+            assertFalse(tracker.hasRecentWrite());
+        }
+
+        @Test
+        void hasRecentWrite_OtherUserWrote_ShouldReturnFalse_HappyPath() {
+            tracker.recordWrite("bob");
+            authenticateAs("alice");
+
+            assertFalse(tracker.hasRecentWrite());
+        }
+
+        @Test
+        void hasRecentWrite_WithoutAuthentication_ShouldReturnFalse_EdgeCase() {
+            assertFalse(tracker.hasRecentWrite());
+        }
+    }
+
+    @Nested
+    @DisplayName("registerWriteTransaction")
+    class RegisterWriteTransactionTests {
+        @Test
+        void registerWriteTransaction_OnCommit_ShouldPinUser_HappyPath() {
+            authenticateAs("alice");
+            TransactionSynchronizationManager.initSynchronization();
+
+            tracker.registerWriteTransaction();
+            tracker.registerWriteTransaction();
+            assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+            assertFalse(tracker.hasRecentWrite());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertTrue(tracker.hasRecentWrite());
+        }
+
+        @Test
+        void registerWriteTransaction_WithoutSynchronization_ShouldDoNothing_EdgeCase() {
+            authenticateAs("alice");
+
+            assertDoesNotThrow(() -> tracker.registerWriteTransaction());
+            assertFalse(tracker.hasRecentWrite());
+        }
+
+        @Test
+        void registerWriteTransaction_WithoutAuthentication_ShouldNotRegister_EdgeCase() {
+            TransactionSynchronizationManager.initSynchronization();
+
+            tracker.registerWriteTransaction();
+
+            assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("evictExpired")
+    class EvictExpiredTests {
+        @Test
+        void evictExpired_ShouldForgetOnlyExpiredUsers_HappyPath() {
+            tracker.recordWrite("bob");
+            clock.advance(WINDOW);
+            tracker.recordWrite("alice");
+
+            tracker.evictExpired();
+
+            authenticateAs("alice");
+            assertTrue(tracker.hasRecentWrite());
+            authenticateAs("bob");
+            assertFalse(tracker.hasRecentWrite());
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package nbu.cscb869.config.unit;
+
+import nbu.cscb869.config.datasource.ReplicaLagMonitor;
+import nbu.cscb869.config.datasource.Workload;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaLagMonitorUnitTests {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+    @Mock
+    private DataSource replicaA;
+    @Mock
+    private DataSource replicaB;
+
+    @Mock
+    private DataSource interactivePool;
+    @Mock
+    private DataSource reportingPool;
+
+    /** Builds a monitor whose replicas check their lag through the given background pools. */
+    private ReplicaLagMonitor monitorFor(DataSource... backgroundPools) {
+        Map<String, Map<Workload, DataSource>> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < backgroundPools.length; i++) {
+            replicas.put("replica-" + i, Map.of(Workload.INTERACTIVE, interactivePool, Workload.REPORTING, reportingPool,
+                    Workload.BACKGROUND, backgroundPools[i]));
+        }
+        return new ReplicaLagMonitor(replicas, MAX_LAG);
+    }
+
+    private void reportLag(DataSource dataSource, Long lagSeconds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SHOW REPLICA STATUS")).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong("Seconds_Behind_Source")).thenReturn(lagSeconds == null ? 0L : lagSeconds);
+        when(resultSet.wasNull()).thenReturn(lagSeconds == null);
+    }
+
+    @Nested
+    @DisplayName("checkReplicas")
+    class CheckReplicasTests {
+        @Test
+        void checkReplicas_LagWithinLimit_ShouldBringReplicaIntoRotation_HappyPath() throws SQLException {
+            reportLag(replicaA, 2L);
+            ReplicaLagMonitor monitor = monitorFor(replicaA);
+            assertFalse(monitor.isHealthy("replica-0"));
+
+            monitor.checkReplicas();
+
+            assertTrue(monitor.isHealthy("replica-0"));
+        }
+
+        @Test
+        void checkReplicas_LagAboveLimit_ShouldTakeReplicaOutOfRotation_ErrorCase() throws SQLException {
+            reportLag(replicaA, 30L);
+            ReplicaLagMonitor monitor = monitorFor(replicaA);
+
+            monitor.checkReplicas();
+
+            assertFalse(monitor.isHealthy("replica-0"));
+        }
+
+        @Test
+        void checkReplicas_ReplicationStopped_ShouldTakeReplicaOutOfRotation_ErrorCase() throws SQLException {
+            reportLag(replicaA, null);
+            ReplicaLagMonitor monitor = monitorFor(replicaA);
+
+            monitor.checkReplicas();
+
+            assertFalse(monitor.isHealthy("replica-0"));
+        }
+
+        @Test
+        void checkReplicas_ConnectionFails_ShouldTakeReplicaOutOfRotation_ErrorCase() throws SQLException {
+            when(replicaA.getConnection()).thenThrow(new SQLException("Connection refused"));
+            ReplicaLagMonitor monitor = monitorFor(replicaA);
+
+            monitor.checkReplicas();
+
+            assertFalse(monitor.isHealthy("replica-0"));
+        }
+
+        @Test
+        void checkReplicas_NoReplicationStatus_ShouldTreatReplicaAsCaughtUp_EdgeCase() throws SQLException {
+            Connection connection = mock(Connection.class);
+            Statement statement = mock(Statement.class);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(replicaA.getConnection()).thenReturn(connection);
+            when(connection.createStatement()).thenReturn(statement);
+            when(statement.executeQuery("SHOW REPLICA STATUS")).thenReturn(resultSet);
+            when(resultSet.next()).thenReturn(false);
+            ReplicaLagMonitor monitor = monitorFor(replicaA);
+
+            monitor.checkReplicas();
+
+            assertTrue(monitor.isHealthy("replica-0"));
+        }
+
+        @Test
+        void checkReplicas_ShouldQueryOnlyTheBackgroundPool_EdgeCase() throws SQLException {
+            reportLag(replicaA, 0L);
+            ReplicaLagMonitor monitor = monitorFor(replicaA);
+
+            monitor.checkReplicas();
+
+            verifyNoInteractions(interactivePool, reportingPool);
+        }
+    }
+
+    @Nested
+    @DisplayName("getReplicas")
+    class GetReplicasTests {
+        @Test
+        void getReplicas_ShouldReturnEachReplicasPoolForTheWorkload_HappyPath() {
+            ReplicaLagMonitor monitor = monitorFor(replicaA, replicaB);
+
+            assertEquals(Map.of("replica-0", reportingPool, "replica-1", reportingPool), monitor.getReplicas(Workload.REPORTING));
+            assertEquals(Map.of("replica-0", replicaA, "replica-1", replicaB), monitor.getReplicas(Workload.BACKGROUND));
+        }
+    }
+
+    @Nested
+    @DisplayName("nextHealthyReplica")
+    class NextHealthyReplicaTests {
+        @Test
+        void nextHealthyReplica_TwoHealthyReplicas_ShouldAlternate_HappyPath() throws SQLException {
+            reportLag(replicaA, 0L);
+            reportLag(replicaB, 0L);
+            ReplicaLagMonitor monitor = monitorFor(replicaA, replicaB);
+            monitor.checkReplicas();
+
+            String first = monitor.nextHealthyReplica().orElseThrow();
+            String second = monitor.nextHealthyReplica().orElseThrow();
+
+            assertNotEquals(first, second);
+        }
+
+        @Test
+        void nextHealthyReplica_OnlyOneHealthy_ShouldAlwaysReturnIt_HappyPath() throws SQLException {
+            reportLag(replicaA, 60L);
+            reportLag(replicaB, 1L);
+            ReplicaLagMonitor monitor = monitorFor(replicaA, replicaB);
+            monitor.checkReplicas();
+
+            assertEquals(Optional.of("replica-1"), monitor.nextHealthyReplica());
+            assertEquals(Optional.of("replica-1"), monitor.nextHealthyReplica());
+        }
+
+        @Test
+        void nextHealthyReplica_BeforeFirstCheck_ShouldReturnEmpty_EdgeCase() {
+            ReplicaLagMonitor monitor = monitorFor(replicaA);
+
+            assertTrue(monitor.nextHealthyReplica().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package nbu.cscb869.config.unit;
+
+import nbu.cscb869.config.datasource.ReadYourWritesTracker;
+import nbu.cscb869.config.datasource.ReplicaLagMonitor;
+import nbu.cscb869.config.datasource.ReplicaRoutingDataSource;
+import nbu.cscb869.config.datasource.Workload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceUnitTests {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        when(lagMonitor.getReplicas(Workload.REPORTING)).thenReturn(Map.of("replica-1", replica));
+        routingDataSource = new ReplicaRoutingDataSource(Workload.REPORTING, primary, lagMonitor, readYourWritesTracker);
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    private void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    @Test
+    void getConnection_ReadOnlyTransaction_ShouldUseHealthyReplica_HappyPath() throws SQLException {
+        beginTransaction(true);
+        when(lagMonitor.nextHealthyReplica()).thenReturn(Optional.of("replica-1"));
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ReadWriteTransaction_ShouldUsePrimaryAndTrackWrite_HappyPath() throws SQLException {
+        beginTransaction(false);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verify(readYourWritesTracker).registerWriteTransaction();
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void getConnection_NoTransaction_ShouldUsePrimaryWithoutTracking_EdgeCase() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verify(readYourWritesTracker, never()).registerWriteTransaction();
+    }
+
+    @Test
+    void getConnection_ReadOnlyAfterOwnWrite_ShouldUsePrimary_HappyPath() throws SQLException {
+        beginTransaction(true);
+        when(readYourWritesTracker.hasRecentWrite()).thenReturn(true);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verify(lagMonitor, never()).nextHealthyReplica();
+    }
+
+    @Test
+    void getConnection_ReadOnlyWithNoHealthyReplica_ShouldFallBackToPrimary_ErrorCase() throws SQLException {
+        beginTransaction(true);
+        when(lagMonitor.nextHealthyReplica()).thenReturn(Optional.empty());
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verifyNoInteractions(replica);
+    }
+}
@@ -0,0 +1,87 @@
+package nbu.cscb869.config.unit;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.metrics.ServiceMetricsAspect;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ServiceMetricsAspectUnitTests {
+
+    static class VisitServiceImpl {
+    }
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+    @Mock
+    private Signature signature;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceMetricsAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new ServiceMetricsAspect(meterRegistry);
+        when(joinPoint.getTarget()).thenReturn(new VisitServiceImpl());
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getName()).thenReturn("getVisitsByPatient");
+    }
+
+    @Test
+    void recordInvocation_ReturnsPage_ShouldRecordLatencyAndPageSize_HappyPath() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(new PageImpl<>(List.of("a", "b", "c")));
+
+        aspect.recordInvocation(joinPoint);
+
+        Timer timer = meterRegistry.find(ServiceMetricsAspect.INVOCATIONS)
+                .tags("class", "VisitServiceImpl", "method", "getVisitsByPatient", "outcome", "SUCCESS").timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+        HistogramSnapshot sizes = meterRegistry.get(ServiceMetricsAspect.RESULT_SIZE).summary().takeSnapshot();
+        assertEquals(3.0, sizes.total());
+    }
+
+    @Test
+    void recordInvocation_ReturnsCompletedFuture_ShouldRecordSizeOfItsValue_HappyPath() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(CompletableFuture.completedFuture(List.of(1, 2)));
+
+        aspect.recordInvocation(joinPoint);
+
+        assertEquals(2.0, meterRegistry.get(ServiceMetricsAspect.RESULT_SIZE).summary().totalAmount());
+    }
+
+    @Test
+    void recordInvocation_ReturnsSingleObject_ShouldNotRecordSize_EdgeCase() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("single");
+
+        aspect.recordInvocation(joinPoint);
+
+        assertNull(meterRegistry.find(ServiceMetricsAspect.RESULT_SIZE).summary());
+    }
+
+    @Test
+    void recordInvocation_Throws_ShouldCountErrorAndRethrow_ErrorCase() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> aspect.recordInvocation(joinPoint));
+
+        assertEquals(1.0, meterRegistry.get(ServiceMetricsAspect.ERRORS)
+                .tag("exception", "IllegalStateException").counter().count());
+        assertEquals(1, meterRegistry.get(ServiceMetricsAspect.INVOCATIONS).tag("outcome", "ERROR").timer().count());
+    }
+}
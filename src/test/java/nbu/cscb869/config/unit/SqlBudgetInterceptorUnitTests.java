@@ -0,0 +1,219 @@
+package nbu.cscb869.config.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.common.exceptions.SqlBudgetExceededException;
+import nbu.cscb869.config.annotations.SqlBudget;
+import nbu.cscb869.config.metrics.SqlBudgetInterceptor;
+import nbu.cscb869.config.metrics.SqlBudgetMode;
+import nbu.cscb869.config.metrics.SqlBudgetResponseBodyAdvice;
+import nbu.cscb869.config.metrics.SqlStatementCounter;
+import nbu.cscb869.config.metrics.SqlStatementMetricsFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SqlBudgetInterceptorUnitTests {
+
+    static class Handlers {
+        @SqlBudget(3)
+        public String budgeted() {
+            return "view";
+        }
+
+        public String unbudgeted() {
+            return "view";
+        }
+    }
+
+    @RestController
+    static class BudgetedApiController {
+        private final SqlStatementCounter statementCounter;
+
+        BudgetedApiController(SqlStatementCounter statementCounter) {
+            this.statementCounter = statementCounter;
+        }
+
+        @SqlBudget(1)
+        @GetMapping("/api/over-budget")
+        public Map<String, String> overBudget() {
+            statementCounter.inspect("select 1");
+            statementCounter.inspect("select 2");
+            return Map.of("status", "loaded");
+        }
+
+        @SqlBudget(1)
+        @GetMapping("/api/lazy")
+        public LazyBody lazy() {
+            statementCounter.inspect("select 1");
+            return new LazyBody(statementCounter);
+        }
+
+        @ExceptionHandler(SqlBudgetExceededException.class)
+        public ResponseEntity<String> budgetExceeded(SqlBudgetExceededException exception) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
+        }
+    }
+
+    /**
+     * A response body issuing a statement while it is serialized, like a lazily loaded association.
+     */
+    public static class LazyBody {
+        private final SqlStatementCounter statementCounter;
+
+        LazyBody(SqlStatementCounter statementCounter) {
+            this.statementCounter = statementCounter;
+        }
+
+        public String getDetails() {
+            statementCounter.inspect("select details");
+            return "details";
+        }
+    }
+
+    private SqlStatementCounter statementCounter;
+    private SimpleMeterRegistry meterRegistry;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        statementCounter = new SqlStatementCounter();
+        meterRegistry = new SimpleMeterRegistry();
+        request = new MockHttpServletRequest("GET", "/doctor/patients/1/history");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/doctor/patients/{id}/history");
+        statementCounter.startCounting();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statementCounter.stopCounting();
+    }
+
+    private HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+    }
+
+    private void issueStatements(int count) {
+        for (int i = 0; i < count; i++) {
+            statementCounter.inspect("select 1");
+        }
+    }
+
+    /**
+     * Runs the interceptor around a view handler; statements issued after {@code postHandle} stand in for view rendering.
+     */
+    private void handleView(SqlBudgetMode mode, String handlerName, int handlerStatements, int renderingStatements)
+            throws Exception {
+        SqlBudgetInterceptor interceptor = new SqlBudgetInterceptor(statementCounter, meterRegistry, mode);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HandlerMethod handler = handler(handlerName);
+        interceptor.preHandle(request, response, handler);
+        issueStatements(handlerStatements);
+        try {
+            interceptor.postHandle(request, response, handler, new ModelAndView("view"));
+            issueStatements(renderingStatements);
+        } finally {
+            interceptor.afterCompletion(request, response, handler, null);
+        }
+    }
+
+    private MockMvc apiMockMvc(SqlBudgetMode mode) {
+        SqlBudgetInterceptor interceptor = new SqlBudgetInterceptor(statementCounter, meterRegistry, mode);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("sqlBudgetInterceptor", interceptor));
+        return MockMvcBuilders.standaloneSetup(new BudgetedApiController(statementCounter))
+                .addFilters(new SqlStatementMetricsFilter(statementCounter, meterRegistry))
+                .addInterceptors(interceptor)
+                .setControllerAdvice(new SqlBudgetResponseBodyAdvice(beanFactory.getBeanProvider(SqlBudgetInterceptor.class)))
+                .build();
+    }
+
+    private double exceeded(String uri) {
+        return meterRegistry.get(SqlBudgetInterceptor.EXCEEDED_METRIC_NAME).tag("uri", uri).counter().count();
+    }
+
+    @Test
+    void handleView_WithinBudget_ShouldPass_HappyPath() {
+        assertDoesNotThrow(() -> handleView(SqlBudgetMode.FAIL, "budgeted", 3, 0));
+        assertNull(meterRegistry.find(SqlBudgetInterceptor.EXCEEDED_METRIC_NAME).counter());
+    }
+
+    @Test
+    void handleView_OverBudgetInFailMode_ShouldThrowBeforeRenderingAndCountOnce_ErrorCase() {
+        SqlBudgetExceededException exception = assertThrows(SqlBudgetExceededException.class,
+                () -> handleView(SqlBudgetMode.FAIL, "budgeted", 4, 0));
+
+        assertTrue(exception.getMessage().contains("/doctor/patients/{id}/history"));
+        assertEquals(1.0, exceeded("/doctor/patients/{id}/history"));
+    }
+
+    @Test
+    void handleView_OverBudgetInLogMode_ShouldOnlyCount_HappyPath() {
+        assertDoesNotThrow(() -> handleView(SqlBudgetMode.LOG, "budgeted", 10, 0));
+        assertEquals(1.0, exceeded("/doctor/patients/{id}/history"));
+    }
+
+    @Test
+    void handleView_OverBudgetWhileRendering_ShouldCountAfterCompletion_EdgeCase() {
+        assertDoesNotThrow(() -> handleView(SqlBudgetMode.FAIL, "budgeted", 3, 2));
+        assertEquals(1.0, exceeded("/doctor/patients/{id}/history"));
+    }
+
+    @Test
+    void handleView_OverBudgetWhenOff_ShouldIgnore_EdgeCase() {
+        assertDoesNotThrow(() -> handleView(SqlBudgetMode.OFF, "budgeted", 10, 0));
+        assertNull(meterRegistry.find(SqlBudgetInterceptor.EXCEEDED_METRIC_NAME).counter());
+    }
+
+    @Test
+    void handleView_HandlerWithoutBudget_ShouldIgnore_EdgeCase() {
+        assertDoesNotThrow(() -> handleView(SqlBudgetMode.FAIL, "unbudgeted", 100, 0));
+        assertNull(meterRegistry.find(SqlBudgetInterceptor.EXCEEDED_METRIC_NAME).counter());
+    }
+
+    @Test
+    void restEndpoint_OverBudgetInFailMode_ShouldFailBeforeWritingBody_ErrorCase() throws Exception {
+        apiMockMvc(SqlBudgetMode.FAIL).perform(get("/api/over-budget"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().string(not(containsString("loaded"))));
+
+        assertEquals(1.0, exceeded("/api/over-budget"));
+    }
+
+    @Test
+    void restEndpoint_OverBudgetInLogMode_ShouldWriteBodyAndCount_HappyPath() throws Exception {
+        apiMockMvc(SqlBudgetMode.LOG).perform(get("/api/over-budget"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("loaded")));
+
+        assertEquals(1.0, exceeded("/api/over-budget"));
+    }
+
+    @Test
+    void restEndpoint_OverBudgetWhileSerializing_ShouldCountAfterCompletion_EdgeCase() throws Exception {
+        apiMockMvc(SqlBudgetMode.FAIL).perform(get("/api/lazy"))
+                .andExpect(status().isOk());
+
+        assertEquals(1.0, exceeded("/api/lazy"));
+    }
+}
@@ -0,0 +1,77 @@
+package nbu.cscb869.config.unit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.metrics.SqlStatementCounter;
+import nbu.cscb869.config.metrics.SqlStatementMetricsFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementMetricsFilterUnitTests {
+
+    private SqlStatementCounter statementCounter;
+    private SimpleMeterRegistry meterRegistry;
+    private SqlStatementMetricsFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        statementCounter = new SqlStatementCounter();
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new SqlStatementMetricsFilter(statementCounter, meterRegistry);
+    }
+
+    private MockFilterChain chainIssuing(int statements) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                for (int i = 0; i < statements; i++) {
+                    statementCounter.inspect("select 1");
+                }
+                request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/doctor/patients/{id}/history");
+            }
+        });
+    }
+
+    @Test
+    void doFilter_ShouldRecordStatementsPerUriTemplate_HappyPath() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/doctor/patients/7/history");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chainIssuing(4));
+
+        DistributionSummary summary = meterRegistry.get(SqlStatementMetricsFilter.METRIC_NAME)
+                .tags("method", "GET", "uri", "/doctor/patients/{id}/history").summary();
+        assertEquals(1, summary.count());
+        assertEquals(4.0, summary.totalAmount());
+    }
+
+    @Test
+    void doFilter_AfterRequest_ShouldStopCounting_HappyPath() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), chainIssuing(2));
+
+        statementCounter.inspect("select 1");
+
+        assertEquals(0, statementCounter.currentCount());
+    }
+
+    @Test
+    void inspect_ShouldReturnStatementUnchanged_HappyPath() {
+        assertEquals("select * from visits", statementCounter.inspect("select * from visits"));
+    }
+
+    @Test
+    void doFilter_UnmappedRequest_ShouldTagUriAsUnknown_EdgeCase() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNotNull(meterRegistry.find(SqlStatementMetricsFilter.METRIC_NAME).tag("uri", "UNKNOWN").summary());
+    }
+}
@@ -0,0 +1,92 @@
+package nbu.cscb869.data.migrations.integrationtests;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(FlywayMigrationIntegrationTests.TestConfig.class)
+class FlywayMigrationIntegrationTests {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ClientRegistrationRepository clientRegistrationRepository() {
+            return Mockito.mock(ClientRegistrationRepository.class);
+        }
+
+        @Bean
+        @Primary
+        public JwtDecoder jwtDecoder() {
+            return Mockito.mock(JwtDecoder.class);
+        }
+    }
+
+    @MockBean
+    private Keycloak keycloak;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrate_OnEmptyDatabase_ShouldApplyAllMigrations_HappyPath() {
+        MigrationInfo[] applied = flyway.info().applied();
+
+        assertTrue(applied.length >= 3);
+        assertEquals("1", applied[0].getVersion().getVersion());
+        assertTrue(Arrays.stream(applied).allMatch(m -> m.getState().isApplied() && !m.getState().isFailed()));
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void migrate_ShouldCreatePerformanceIndexes_HappyPath() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT DISTINCT index_name FROM information_schema.statistics WHERE table_schema = DATABASE()",
+                String.class);
+
+        assertTrue(indexes.containsAll(List.of(
+                "idx_visits_doctor_date_time",
+                "idx_visits_doctor_status_date_time",
+                "idx_visits_patient_date_time",
+                "idx_visits_diagnosis_patient",
+                "idx_sick_leaves_start_date",
+                "idx_visits_date_time",
+                "idx_report_jobs_status_created_on",
+                "idx_report_jobs_expires_at",
+                "idx_patient_reach_sketches_month",
+                "idx_visits_diagnosis_status_date")));
+    }
+
+    @Test
+    void migrate_ShouldCreateSickLeaveDurationConstraint_HappyPath() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.check_constraints " +
+                        "WHERE constraint_schema = DATABASE() AND constraint_name = 'chk_sick_leaves_duration_positive'",
+                Integer.class);
+
+        assertEquals(1, count);
+    }
+}
@@ -1,5 +1,6 @@
 package nbu.cscb869.data.repositories.integrationtests;
 
+import nbu.cscb869.data.dto.DiagnosisCodeDTO;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.PatientDiagnosisDTO;
 import nbu.cscb869.data.models.*;
@@ -251,6 +252,26 @@ class DiagnosisRepositoryIntegrationTests {
         assertEquals(1, patients.getTotalElements());
     }
 
+    // Edge Case: Patient with repeat visits is listed and counted once
+    @Test
+    void findPatientsByDiagnosis_WithRepeatVisits_CountsPatientOnce_EdgeCase() {
+        Doctor doctor = createDoctor(TestDataUtils.generateUniqueIdNumber(), true, "Dr. John Doe");
+        Patient patient = createPatient(TestDataUtils.generateValidEgn(), doctor, LocalDate.now());
+        doctor = doctorRepository.save(doctor);
+        patient = patientRepository.save(patient);
+        Diagnosis diagnosis = createDiagnosis("Asthma", "Chronic respiratory");
+        diagnosis = diagnosisRepository.save(diagnosis);
+        visitRepository.saveAll(List.of(
+                createVisit(patient, doctor, diagnosis, LocalDate.now(), LocalTime.of(10, 30), null),
+                createVisit(patient, doctor, diagnosis, LocalDate.now().minusDays(1), LocalTime.of(11, 0), null)
+        ));
+
+        Page<PatientDiagnosisDTO> patients = diagnosisRepository.findPatientsByDiagnosis(diagnosis, PageRequest.of(0, 10));
+
+        assertEquals(1, patients.getTotalElements());
+        assertEquals(1, patients.getContent().size());
+    }
+
     // Happy Path: Find most frequent diagnoses
     @Test
     void findMostFrequentDiagnoses_WithMultipleVisits_ReturnsSorted_HappyPath() {
@@ -320,4 +341,34 @@ class DiagnosisRepositoryIntegrationTests {
     void delete_WithNonExistentId_DoesNotThrow_ErrorCase() {
         assertDoesNotThrow(() -> diagnosisRepository.delete(Diagnosis.builder().name("Nonexistent").build()));
     }
+
+    // Happy Path: Upsert coded diagnoses, inserting new codes and updating loaded ones
+    @Test
+    void upsertCoded_WithNewAndLoadedCodes_InsertsAndUpdates_HappyPath() {
+        diagnosisRepository.upsertCoded(List.of(new DiagnosisCodeDTO("J45.9", "J45", "X", "Asthma", null)));
+        diagnosisRepository.upsertCoded(List.of(
+                new DiagnosisCodeDTO("J45.9", "J45", "X", "Asthma, unspecified", "Asthmatic bronchitis"),
+                new DiagnosisCodeDTO("J45.0", "J45", "X", "Predominantly allergic asthma", null)));
+
+        List<DiagnosisCodeDTO> codes = diagnosisRepository.findAllCodes();
+
+        assertEquals(2, codes.size());
+        DiagnosisCodeDTO updated = codes.stream().filter(c -> "J45.9".equals(c.getCode())).findFirst().orElseThrow();
+        assertEquals("Asthma, unspecified", updated.getName());
+        assertEquals("Asthmatic bronchitis", updated.getDescription());
+    }
+
+    // Happy Path: Find diagnoses by code prefix in code order
+    @Test
+    void findByCodeStartingWith_WithCategory_ReturnsCodesInOrder_HappyPath() {
+        diagnosisRepository.upsertCoded(List.of(
+                new DiagnosisCodeDTO("J45.9", "J45", "X", "Asthma, unspecified", null),
+                new DiagnosisCodeDTO("J45.0", "J45", "X", "Predominantly allergic asthma", null),
+                new DiagnosisCodeDTO("J46", "J46", "X", "Status asthmaticus", null)));
+
+        Page<Diagnosis> result = diagnosisRepository.findByCodeStartingWith("J45", PageRequest.of(0, 10));
+
+        assertEquals(List.of("J45.0", "J45.9"), result.getContent().stream().map(Diagnosis::getCode).toList());
+        assertEquals(2, result.getTotalElements());
+    }
 }
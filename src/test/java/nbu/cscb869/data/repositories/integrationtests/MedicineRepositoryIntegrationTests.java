@@ -56,6 +56,8 @@ class MedicineRepositoryIntegrationTests {
     @Autowired
     private MedicineRepository medicineRepository;
     @Autowired
+    private MedicationRepository medicationRepository;
+    @Autowired
     private TreatmentRepository treatmentRepository;
     @Autowired
     private VisitRepository visitRepository;
@@ -126,8 +128,10 @@ class MedicineRepositoryIntegrationTests {
     }
 
     private Medicine createMedicine(String name, String dosage, String frequency, Treatment treatment) {
+        Medication medication = medicationRepository.findByName(name)
+                .orElseGet(() -> medicationRepository.save(Medication.builder().name(name).build()));
         return Medicine.builder()
-                .name(name)
+                .medication(medication)
                 .dosage(dosage)
                 .frequency(frequency)
                 .treatment(treatment)
@@ -180,6 +184,40 @@ class MedicineRepositoryIntegrationTests {
         assertTrue(result.getContent().stream().anyMatch(m -> m.getName().equals("Ibuprofen")));
     }
 
+    @Test
+    void save_WithSameMedicationInTwoTreatments_SharesCatalogueEntry_EdgeCase() {
+        Doctor doctor = doctorRepository.save(createDoctor(TestDataUtils.generateUniqueIdNumber(), true, "Dr. Ann Lee"));
+        Patient patient = patientRepository.save(createPatient(TestDataUtils.generateValidEgn(), doctor, LocalDate.now()));
+        Diagnosis diagnosis = diagnosisRepository.save(createDiagnosis("Migraine", "Headache"));
+        Treatment first = treatmentRepository.save(createTreatment(
+                visitRepository.save(createVisit(patient, doctor, diagnosis, LocalDate.now(), LocalTime.of(9, 0), null)), "First"));
+        Treatment second = treatmentRepository.save(createTreatment(
+                visitRepository.save(createVisit(patient, doctor, diagnosis, LocalDate.now(), LocalTime.of(11, 0), null)), "Second"));
+
+        Medicine a = medicineRepository.save(createMedicine("Ibuprofen", "200mg", "Once daily", first));
+        Medicine b = medicineRepository.save(createMedicine("Ibuprofen", "400mg", "Twice daily", second));
+
+        assertEquals(a.getMedication().getId(), b.getMedication().getId());
+        assertEquals(a.getMedication().getId(), medicationRepository.findByName("ibuprofen").orElseThrow().getId());
+        assertEquals("Ibuprofen", medicineRepository.findById(b.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void insertIfAbsent_WithNameEqualByCollation_KeepsExistingRow_EdgeCase() {
+        Medication existing = medicationRepository.save(Medication.builder().name("Café Crème").build());
+
+        medicationRepository.insertIfAbsent("cafe creme");
+
+        assertEquals(existing.getId(), medicationRepository.findLockedByName("CAFE CREME").orElseThrow().getId());
+    }
+
+    @Test
+    void insertIfAbsent_WithNewName_AddsRow_HappyPath() {
+        medicationRepository.insertIfAbsent("Vitamin D3");
+
+        assertEquals("Vitamin D3", medicationRepository.findLockedByName("vitamin d3").orElseThrow().getName());
+    }
+
     @Test
     void findAll_WithNoMedicines_ReturnsEmptyPage_ErrorCase() {
         Page<Medicine> result = medicineRepository.findAll(PageRequest.of(0, 1));
@@ -0,0 +1,160 @@
+package nbu.cscb869.data.repositories.integrationtests;
+
+import jakarta.persistence.EntityManager;
+import nbu.cscb869.data.models.ReportJob;
+import nbu.cscb869.data.models.enums.ReportJobStatus;
+import nbu.cscb869.data.models.enums.ReportType;
+import nbu.cscb869.data.repositories.ReportJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@Import(ReportJobRepositoryIntegrationTests.TestConfig.class)
+class ReportJobRepositoryIntegrationTests {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ClientRegistrationRepository clientRegistrationRepository() {
+            return Mockito.mock(ClientRegistrationRepository.class);
+        }
+
+        @Bean
+        @Primary
+        public JwtDecoder jwtDecoder() {
+            return Mockito.mock(JwtDecoder.class);
+        }
+    }
+
+    @MockBean
+    private Keycloak keycloak;
+
+    @Autowired
+    private ReportJobRepository reportJobRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        reportJobRepository.deleteAll();
+    }
+
+    private ReportJob createJob(String key) {
+        return reportJobRepository.saveAndFlush(ReportJob.builder()
+                .reportType(ReportType.DIAGNOSIS_CHAPTERS)
+                .parameters("{\"type\":\"DIAGNOSIS_CHAPTERS\"}")
+                .requestKey(key)
+                .liveKey(key)
+                .status(ReportJobStatus.QUEUED)
+                .requestedBy("admin-id")
+                .build());
+    }
+
+    @Test
+    void saveAndFlush_WithLiveKeyInUse_ShouldThrowDataIntegrityViolationException_ErrorCase() {
+        createJob("a".repeat(64));
+
+        assertThrows(DataIntegrityViolationException.class, () -> createJob("a".repeat(64)));
+    }
+
+    @Test
+    void releaseLiveKey_WithSharedJob_ShouldLetAnIdenticalJobBeCreated_HappyPath() {
+        ReportJob first = createJob("a".repeat(64));
+
+        assertEquals(1, reportJobRepository.releaseLiveKey(first.getId()));
+        ReportJob second = createJob("a".repeat(64));
+        entityManager.clear();
+
+        assertEquals(second.getId(), reportJobRepository.findByLiveKey("a".repeat(64)).orElseThrow().getId());
+    }
+
+    @Test
+    void claim_WithQueuedJob_ShouldSucceedOnlyOnce_HappyPath() {
+        ReportJob job = createJob("a".repeat(64));
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(1, reportJobRepository.claim(job.getId(), now));
+        assertEquals(0, reportJobRepository.claim(job.getId(), now));
+        entityManager.clear();
+        assertEquals(ReportJobStatus.RUNNING, reportJobRepository.findById(job.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void complete_WithRunningJob_ShouldStoreResultAndSize_HappyPath() {
+        ReportJob job = createJob("a".repeat(64));
+        LocalDateTime now = LocalDateTime.now();
+        reportJobRepository.claim(job.getId(), now);
+        byte[] result = {31, -117, 8, 0, 1, 2, 3};
+
+        assertEquals(1, reportJobRepository.complete(job.getId(), result, now, now.plusHours(1)));
+        entityManager.clear();
+
+        ReportJob completed = reportJobRepository.findById(job.getId()).orElseThrow();
+        assertEquals(ReportJobStatus.COMPLETED, completed.getStatus());
+        assertEquals(7L, completed.getResultSize());
+        assertEquals("a".repeat(64), completed.getLiveKey());
+        assertArrayEquals(result, reportJobRepository.findResultById(job.getId()));
+    }
+
+    @Test
+    void fail_WithRunningJob_ShouldReleaseLiveKey_HappyPath() {
+        ReportJob job = createJob("a".repeat(64));
+        LocalDateTime now = LocalDateTime.now();
+        reportJobRepository.claim(job.getId(), now);
+
+        assertEquals(1, reportJobRepository.fail(job.getId(), "boom", now, now.plusHours(1)));
+        entityManager.clear();
+
+        assertTrue(reportJobRepository.findByLiveKey("a".repeat(64)).isEmpty());
+        assertEquals("boom", reportJobRepository.findById(job.getId()).orElseThrow().getError());
+    }
+
+    @Test
+    void requeueStale_WithJobRunningTooLong_ShouldQueueItAgain_EdgeCase() {
+        ReportJob job = createJob("a".repeat(64));
+        LocalDateTime now = LocalDateTime.now();
+        reportJobRepository.claim(job.getId(), now.minusHours(1));
+
+        assertEquals(0, reportJobRepository.requeueStale(now.minusHours(2), now));
+        assertEquals(1, reportJobRepository.requeueStale(now.minusMinutes(30), now));
+        assertEquals(List.of(job.getId()), reportJobRepository.findQueuedIds(now.plusSeconds(1), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void deleteExpired_WithExpiredAndLiveJobs_ShouldDeleteOnlyExpired_HappyPath() {
+        LocalDateTime now = LocalDateTime.now();
+        ReportJob expired = createJob("a".repeat(64));
+        ReportJob live = createJob("b".repeat(64));
+        reportJobRepository.claim(expired.getId(), now);
+        reportJobRepository.claim(live.getId(), now);
+        reportJobRepository.complete(expired.getId(), new byte[]{1}, now, now.minusMinutes(1));
+        reportJobRepository.complete(live.getId(), new byte[]{1}, now, now.plusMinutes(1));
+
+        assertEquals(1, reportJobRepository.deleteExpired(now));
+        entityManager.clear();
+        assertEquals(List.of(live.getId()), reportJobRepository.findAll().stream().map(ReportJob::getId).toList());
+    }
+}
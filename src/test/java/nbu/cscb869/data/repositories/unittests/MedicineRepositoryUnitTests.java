@@ -30,7 +30,7 @@ class MedicineRepositoryUnitTests {
 
     private Medicine createMedicine(String name, String dosage, String frequency, Treatment treatment) {
         return Medicine.builder()
-                .name(name)
+                .medication(Medication.builder().name(name).build())
                 .dosage(dosage)
                 .frequency(frequency)
                 .treatment(treatment)
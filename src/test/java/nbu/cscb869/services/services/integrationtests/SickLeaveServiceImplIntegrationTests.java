@@ -9,6 +9,8 @@ import nbu.cscb869.services.data.dtos.SickLeaveCreateDTO;
 import nbu.cscb869.services.data.dtos.SickLeaveUpdateDTO;
 import nbu.cscb869.services.data.dtos.SickLeaveViewDTO;
 import nbu.cscb869.services.services.contracts.SickLeaveService;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import nbu.cscb869.services.services.utility.RankedCounts.Ranked;
 import org.junit.jupiter.api.*;
 import org.keycloak.admin.client.Keycloak;
 import org.mockito.Mockito;
@@ -16,12 +18,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
@@ -31,11 +35,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -72,9 +78,12 @@ class SickLeaveServiceImplIntegrationTests {
     @Autowired
     private SickLeaveService sickLeaveService;
 
-    @Autowired
+    @SpyBean
     private SickLeaveRepository sickLeaveRepository;
 
+    @Autowired
+    private FrequencyRankings frequencyRankings;
+
     @Autowired
     private VisitRepository visitRepository;
 
@@ -279,4 +288,53 @@ class SickLeaveServiceImplIntegrationTests {
             assertEquals(1, result.get(0).getCount());
         }
     }
+
+    @Nested
+    @DisplayName("Ranking Tests")
+    class RankingTests {
+        @Test
+        @WithMockKeycloakUser(authorities = "ROLE_DOCTOR")
+        void update_WhileRankingsAreRecounted_ShouldCountTheMoveOnce_EdgeCase() {
+            SickLeave sickLeave = new SickLeave();
+            sickLeave.setVisit(testVisit);
+            sickLeave.setStartDate(LocalDate.of(2024, 1, 10));
+            sickLeave.setDurationDays(3);
+            sickLeave = sickLeaveRepository.save(sickLeave);
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+            frequencyRankings.refresh();
+            long januaryBefore = countOf(frequencyRankings.topSickLeaveMonths(12).orElseThrow(), 1);
+            long julyBefore = countOf(frequencyRankings.topSickLeaveMonths(12).orElseThrow(), 7);
+
+            SickLeaveUpdateDTO updateDTO = new SickLeaveUpdateDTO();
+            updateDTO.setId(sickLeave.getId());
+            updateDTO.setVisitId(testVisit.getId());
+            updateDTO.setStartDate(LocalDate.of(2024, 7, 10));
+            updateDTO.setDurationDays(3);
+            SecurityContext securityContext = SecurityContextHolder.getContext();
+            // The update commits on another thread after the recount has opened its snapshot; SickLeaveService does
+            // not flush, so the ranking change is recorded while the transaction commits.
+            doAnswer(invocation -> {
+                CompletableFuture.runAsync(() -> {
+                    SecurityContextHolder.setContext(securityContext);
+                    try {
+                        sickLeaveService.update(updateDTO);
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                }).join();
+                return invocation.callRealMethod();
+            }).when(sickLeaveRepository).countByDoctor();
+
+            frequencyRankings.refresh();
+
+            List<Ranked<Integer>> months = frequencyRankings.topSickLeaveMonths(12).orElseThrow();
+            assertEquals(januaryBefore - 1, countOf(months, 1));
+            assertEquals(julyBefore + 1, countOf(months, 7));
+        }
+
+        private long countOf(List<Ranked<Integer>> ranking, int month) {
+            return ranking.stream().filter(ranked -> ranked.key() == month).mapToLong(Ranked::count).findFirst().orElse(0L);
+        }
+    }
 }
@@ -1,16 +1,23 @@
 package nbu.cscb869.services.services.integrationtests;
 
+import nbu.cscb869.config.changes.ChangeFeedProperties;
+import nbu.cscb869.data.dto.MedicineChangeDTO;
+import nbu.cscb869.data.dto.TreatmentChangeDTO;
 import nbu.cscb869.data.models.*;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.data.repositories.*;
 import nbu.cscb869.data.utils.TestDataUtils;
 import nbu.cscb869.security.WithMockKeycloakUser;
+import nbu.cscb869.services.data.dtos.ChangeDTO;
+import nbu.cscb869.services.data.dtos.ChangeFeedDTO;
 import nbu.cscb869.services.data.dtos.MedicineCreateDTO;
 import nbu.cscb869.services.data.dtos.MedicineUpdateDTO;
 import nbu.cscb869.services.data.dtos.TreatmentCreateDTO;
 import nbu.cscb869.services.data.dtos.TreatmentUpdateDTO;
 import nbu.cscb869.services.data.dtos.TreatmentViewDTO;
+import nbu.cscb869.services.services.contracts.ChangeFeedService;
 import nbu.cscb869.services.services.contracts.TreatmentService;
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +40,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
@@ -92,6 +100,15 @@ class TreatmentServiceImplIntegrationTests {
     @Autowired
     private DiagnosisRepository diagnosisRepository;
 
+    @Autowired
+    private MedicationCatalogue medicationCatalogue;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ChangeFeedProperties changeFeedProperties;
+
     private Visit testVisit;
     private Patient patientOwner;
 
@@ -162,6 +179,24 @@ class TreatmentServiceImplIntegrationTests {
         assertEquals("Aspirin", savedTreatment.getMedicines().get(0).getName());
     }
 
+    @Test
+    @WithMockKeycloakUser(authorities = "ROLE_DOCTOR")
+    void create_WithNameVariantsOfOneMedication_ShouldShareCatalogueEntry_EdgeCase() {
+        // ARRANGE
+        TreatmentCreateDTO createDTO = new TreatmentCreateDTO("Pain relief", testVisit.getId(), List.of(
+                new MedicineCreateDTO("Catalogue Test Drug", "500mg", "Once a day"),
+                new MedicineCreateDTO("  catalogue   test DRUG ", "250mg", "At night")));
+
+        // ACT
+        TreatmentViewDTO result = treatmentService.create(createDTO);
+
+        // ASSERT
+        List<Medicine> medicines = treatmentRepository.findById(result.getId()).orElseThrow().getMedicines();
+        assertEquals(2, medicines.size());
+        assertEquals(medicines.get(0).getMedication().getId(), medicines.get(1).getMedication().getId());
+        assertEquals("Catalogue Test Drug", medicines.get(1).getName());
+    }
+
     @Test
     @WithMockKeycloakUser(authorities = "ROLE_DOCTOR")
     void update_AsDoctorWithValidData_ShouldUpdateAggregate_HappyPath() {
@@ -169,7 +204,7 @@ class TreatmentServiceImplIntegrationTests {
         Treatment treatment = new Treatment();
         treatment.setVisit(testVisit);
         treatment.setDescription("Old description");
-        treatment.getMedicines().add(new Medicine("Old Med", "100mg", "Old Freq", treatment));
+        treatment.getMedicines().add(new Medicine(medicationCatalogue.intern("Old Med"), "100mg", "Old Freq", treatment));
         treatment = treatmentRepository.save(treatment);
 
         MedicineUpdateDTO medDto = new MedicineUpdateDTO(null, "New Med", "200mg", "New Freq");
@@ -185,6 +220,51 @@ class TreatmentServiceImplIntegrationTests {
         assertEquals("New Med", updatedTreatment.getMedicines().get(0).getName());
     }
 
+    @Test
+    @WithMockKeycloakUser(authorities = {"ROLE_DOCTOR", "ROLE_ADMIN"})
+    void update_WithOnlyDosageChanged_ShouldListTreatmentInChangeFeed_EdgeCase() throws InterruptedException {
+        // ARRANGE
+        Duration settleTime = changeFeedProperties.getSettleTime();
+        changeFeedProperties.setSettleTime(Duration.ZERO);
+        try {
+            Treatment treatment = new Treatment();
+            treatment.setVisit(testVisit);
+            treatment.setDescription("Pain relief");
+            treatment.getMedicines().add(new Medicine(medicationCatalogue.intern("Aspirin"), "500mg", "Once a day", treatment));
+            treatment = treatmentRepository.saveAndFlush(treatment);
+            long version = treatment.getVersion();
+
+            String cursor = null;
+            ChangeFeedDTO page;
+            do {
+                page = changeFeedService.getChanges(cursor, changeFeedProperties.getMaxLimit());
+                cursor = page.getNextCursor();
+            } while (page.isHasMore());
+            Thread.sleep(10);
+
+            Medicine aspirin = treatment.getMedicines().get(0);
+            TreatmentUpdateDTO updateDTO = new TreatmentUpdateDTO(treatment.getId(), "Pain relief", testVisit.getId(),
+                    List.of(new MedicineUpdateDTO(aspirin.getId(), "Aspirin", "1000mg", "Once a day")));
+
+            // ACT
+            treatmentService.update(updateDTO);
+            treatmentRepository.flush();
+            ChangeFeedDTO changes = changeFeedService.getChanges(cursor, changeFeedProperties.getMaxLimit());
+
+            // ASSERT
+            long treatmentId = treatment.getId();
+            ChangeDTO change = changes.getChanges().stream()
+                    .filter(c -> c.getData() instanceof TreatmentChangeDTO && c.getEntityId() == treatmentId)
+                    .findFirst().orElseThrow(() -> new AssertionError("Dosage change is missing from the feed"));
+            assertEquals(version + 1, change.getVersion());
+            List<MedicineChangeDTO> medicines = ((TreatmentChangeDTO) change.getData()).getMedicines();
+            assertEquals(1, medicines.size());
+            assertEquals("1000mg", medicines.get(0).getDosage());
+        } finally {
+            changeFeedProperties.setSettleTime(settleTime);
+        }
+    }
+
     @Test
     @WithMockKeycloakUser(authorities = "ROLE_DOCTOR")
     void delete_AsDoctor_ShouldDeleteAggregate_HappyPath() {
@@ -1,7 +1,10 @@
 package nbu.cscb869.services.services.integrationtests;
 
+import nbu.cscb869.common.exceptions.EditConflictException;
+import nbu.cscb869.common.exceptions.EditConflictException.FieldConflict;
 import nbu.cscb869.common.exceptions.InvalidInputException;
 import nbu.cscb869.common.exceptions.PatientInsuranceException;
+import nbu.cscb869.config.metrics.SqlStatementCounter;
 import nbu.cscb869.data.models.*;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.data.repositories.*;
@@ -9,9 +12,15 @@ import nbu.cscb869.data.utils.TestDataUtils;
 import nbu.cscb869.security.WithMockKeycloakUser;
 import nbu.cscb869.services.data.dtos.*;
 import nbu.cscb869.services.services.contracts.VisitService;
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
+import nbu.cscb869.services.services.utility.PatientHistoryCache;
+import nbu.cscb869.services.services.utility.PatientHistoryCache.PatientTimeline;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.*;
 import org.keycloak.admin.client.Keycloak;
 import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -31,10 +40,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +58,8 @@ import static org.junit.jupiter.api.Assertions.*;
 @Import({VisitServiceImplIntegrationTests.AsyncTestConfig.class, VisitServiceImplIntegrationTests.TestConfig.class})
 class VisitServiceImplIntegrationTests {
 
+    private static final Logger logger = LoggerFactory.getLogger(VisitServiceImplIntegrationTests.class);
+
     @TestConfiguration
     static class TestConfig {
         @Bean
@@ -84,6 +99,14 @@ class VisitServiceImplIntegrationTests {
     private DiagnosisRepository diagnosisRepository;
     @Autowired
     private SickLeaveRepository sickLeaveRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private SqlStatementCounter statementCounter;
+    @Autowired
+    private MedicationCatalogue medicationCatalogue;
+    @Autowired
+    private PatientHistoryCache patientHistoryCache;
 
     private Doctor testDoctor;
     private Patient testPatient;
@@ -199,6 +222,41 @@ class VisitServiceImplIntegrationTests {
             Visit updatedVisit = visitRepository.findById(visit.getId()).get();
             assertEquals(LocalTime.of(12, 0), updatedVisit.getVisitTime());
         }
+
+        @Test
+        @WithMockKeycloakUser(authorities = "ROLE_DOCTOR")
+        void update_TwoTreatmentEditsFromSameVersion_ShouldRejectTheSecond_ErrorCase() {
+            Visit visit = visitRepository.save(Visit.builder().visitDate(LocalDate.now()).visitTime(LocalTime.of(9, 0)).patient(testPatient).doctor(testDoctor).status(VisitStatus.COMPLETED).build());
+            Long baseVersion = visitService.update(treatmentEdit(visit, null, "Rest")).getVersion();
+            entityManager.clear();
+
+            VisitViewDTO first = visitService.update(treatmentEdit(visit, baseVersion, "Rest and fluids"));
+            entityManager.clear();
+
+            // Only the treatment changed, yet the visit's version moved on, so the second edit is merged, not applied.
+            assertThat(first.getVersion()).isGreaterThan(baseVersion);
+            EditConflictException ex = assertThrows(EditConflictException.class,
+                    () -> visitService.update(treatmentEdit(visit, baseVersion, "Antibiotics")));
+            assertThat(ex.getConflicts()).extracting(FieldConflict::field).containsExactly("TREATMENT");
+            entityManager.clear();
+            assertThat(visitRepository.findById(visit.getId()).orElseThrow().getTreatment().getDescription())
+                    .isEqualTo("Rest and fluids");
+        }
+
+        private VisitUpdateDTO treatmentEdit(Visit visit, Long baseVersion, String description) {
+            TreatmentUpdateDTO treatment = new TreatmentUpdateDTO();
+            treatment.setDescription(description);
+            return VisitUpdateDTO.builder()
+                    .id(visit.getId())
+                    .version(baseVersion)
+                    .visitDate(visit.getVisitDate())
+                    .visitTime(visit.getVisitTime())
+                    .patientId(testPatient.getId())
+                    .doctorId(testDoctor.getId())
+                    .status(VisitStatus.COMPLETED)
+                    .treatment(treatment)
+                    .build();
+        }
     }
 
     @Nested
@@ -360,6 +418,37 @@ class VisitServiceImplIntegrationTests {
             assertThat(updatedVisit.getDiagnosis().getId()).isEqualTo(testDiagnosis.getId());
         }
 
+        @Test
+        @WithMockKeycloakUser(authorities = "ROLE_DOCTOR")
+        void documentVisit_WithTreatment_ShouldUpdateCachedHistoryInPlace_HappyPath() {
+            // ARRANGE
+            Visit visit = visitRepository.save(Visit.builder().visitDate(LocalDate.now()).visitTime(LocalTime.of(11, 0)).patient(testPatient).doctor(testDoctor).status(VisitStatus.SCHEDULED).build());
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+            TestTransaction.start();
+            visitService.getVisitsByPatient(testPatient.getId(), 0, 10);
+            assertTrue(patientHistoryCache.get(testPatient.getId()).isPresent());
+            TreatmentUpdateDTO treatment = new TreatmentUpdateDTO();
+            treatment.setDescription("Rest and fluids");
+            treatment.setMedicines(List.of(new MedicineUpdateDTO(null, "Paracetamol", "500mg", "Twice a day")));
+            VisitDocumentationDTO dto = new VisitDocumentationDTO();
+            dto.setDiagnosisId(testDiagnosis.getId());
+            dto.setNotes("Documented with a treatment.");
+            dto.setTreatment(treatment);
+
+            // ACT
+            visitService.documentVisit(visit.getId(), dto);
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+            TestTransaction.start();
+
+            // ASSERT
+            PatientTimeline timeline = patientHistoryCache.get(testPatient.getId()).orElseThrow();
+            VisitViewDTO documented = timeline.visits().stream().filter(v -> v.getId().equals(visit.getId())).findFirst().orElseThrow();
+            assertThat(documented.getNotes()).isEqualTo("Documented with a treatment.");
+            assertThat(documented.getTreatment().getDescription()).isEqualTo("Rest and fluids");
+        }
+
         @Test
         @WithMockKeycloakUser(keycloakId = "patient-owner-id", authorities = "ROLE_PATIENT")
         void cancelVisit_ByPatientOwner_ShouldUpdateStatusToCancelled_HappyPath() {
@@ -394,4 +483,99 @@ class VisitServiceImplIntegrationTests {
             assertEquals(1, result.getFirst().getSickLeaveCount());
         }
     }
+
+    /**
+     * Compares editing a documented treatment by reconciling its medicines with the previous approach of clearing and
+     * re-adding them. Each edit changes the dosage of one of the medicines; statements are counted and timed from the
+     * first write to the flush, which is how long the edit holds its row locks before the commit.
+     */
+    @Nested
+    @DisplayName("Treatment Edit Benchmark Tests")
+    class TreatmentEditBenchmarkTests {
+        private static final int MEDICINES = 10;
+        private static final int EDITS = 20;
+
+        private record Measurement(int statements, long nanos) {
+        }
+
+        @Test
+        @WithMockKeycloakUser(authorities = "ROLE_DOCTOR")
+        void documentVisit_RepeatedSingleDosageEdits_ShouldIssueFewerStatementsThanRebuild_HappyPath() {
+            Long visitId = documentedVisitWithMedicines();
+            List<Long> medicineIds = visitRepository.findById(visitId).orElseThrow().getTreatment().getMedicines().stream()
+                    .sorted(Comparator.comparing(Medicine::getName)).map(Medicine::getId).toList();
+
+            Measurement reconciled = measure(edit -> visitService.documentVisit(visitId, documentation(medicineIds, edit)));
+            Measurement rebuilt = measure(edit -> rebuildMedicines(visitId, edit));
+
+            logger.info("{} edits of {} medicines: reconciled {} statements in {} ms, rebuilt {} statements in {} ms",
+                    EDITS, MEDICINES, reconciled.statements(), TimeUnit.NANOSECONDS.toMillis(reconciled.nanos()),
+                    rebuilt.statements(), TimeUnit.NANOSECONDS.toMillis(rebuilt.nanos()));
+            // Rebuilding deletes and re-inserts every medicine on every edit; reconciling updates one row.
+            assertThat(rebuilt.statements() - reconciled.statements()).isGreaterThan(EDITS * MEDICINES);
+            entityManager.clear();
+            Treatment treatment = visitRepository.findById(visitId).orElseThrow().getTreatment();
+            assertThat(treatment.getMedicines()).hasSize(MEDICINES);
+        }
+
+        private Long documentedVisitWithMedicines() {
+            Visit visit = visitRepository.save(Visit.builder().visitDate(LocalDate.now()).visitTime(LocalTime.of(9, 0))
+                    .patient(testPatient).doctor(testDoctor).status(VisitStatus.SCHEDULED).build());
+            visitService.documentVisit(visit.getId(), documentation(List.of(), -1));
+            entityManager.flush();
+            return visit.getId();
+        }
+
+        /**
+         * Returns documentation with all medicines, the first one with a dosage that depends on the edit, as the
+         * documentation form submits it.
+         * @param medicineIds the IDs of the saved medicines in name order; empty before they are saved
+         */
+        private VisitDocumentationDTO documentation(List<Long> medicineIds, int edit) {
+            List<MedicineUpdateDTO> medicines = new ArrayList<>();
+            for (int i = 0; i < MEDICINES; i++) {
+                Long id = medicineIds.isEmpty() ? null : medicineIds.get(i);
+                medicines.add(new MedicineUpdateDTO(id, "Benchmark medicine " + i, dosage(i, edit), "Twice a day"));
+            }
+            TreatmentUpdateDTO treatment = new TreatmentUpdateDTO();
+            treatment.setDescription("Rest and fluids");
+            treatment.setMedicines(medicines);
+            VisitDocumentationDTO dto = new VisitDocumentationDTO();
+            dto.setNotes("Benchmark notes");
+            dto.setStatus(VisitStatus.COMPLETED.name());
+            dto.setTreatment(treatment);
+            return dto;
+        }
+
+        /**
+         * Applies the same edit the way medicines were saved before: by clearing the list and adding all of them again.
+         */
+        private void rebuildMedicines(Long visitId, int edit) {
+            Treatment treatment = visitRepository.findById(visitId).orElseThrow().getTreatment();
+            treatment.getMedicines().clear();
+            for (int i = 0; i < MEDICINES; i++) {
+                treatment.getMedicines().add(Medicine.builder().medication(medicationCatalogue.intern("Benchmark medicine " + i))
+                        .dosage(dosage(i, edit)).frequency("Twice a day").treatment(treatment).build());
+            }
+        }
+
+        private String dosage(int medicine, int edit) {
+            return medicine == 0 ? (100 + edit) + "mg" : "50mg";
+        }
+
+        private Measurement measure(IntConsumer edits) {
+            int statements = 0;
+            long nanos = 0;
+            for (int edit = 0; edit < EDITS; edit++) {
+                entityManager.clear();
+                statementCounter.startCounting();
+                long start = System.nanoTime();
+                edits.accept(edit);
+                entityManager.flush();
+                nanos += System.nanoTime() - start;
+                statements += statementCounter.stopCounting();
+            }
+            return new Measurement(statements, nanos);
+        }
+    }
 }
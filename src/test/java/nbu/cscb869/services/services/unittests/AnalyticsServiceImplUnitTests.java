@@ -0,0 +1,218 @@
+package nbu.cscb869.services.services.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.analytics.AnalyticsProperties;
+import nbu.cscb869.data.dto.AnalyticsRowDTO;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.AnalyticsMeasure;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import nbu.cscb869.data.repositories.AnalyticsRepository;
+import nbu.cscb869.services.data.dtos.AnalyticsQueryDTO;
+import nbu.cscb869.services.data.dtos.AnalyticsResultDTO;
+import nbu.cscb869.services.data.dtos.FactExportResultDTO;
+import nbu.cscb869.services.data.dtos.PatientReachResultDTO;
+import nbu.cscb869.services.data.dtos.PatientReachRowDTO;
+import nbu.cscb869.services.services.AnalyticsServiceImpl;
+import nbu.cscb869.services.services.utility.PatientReachSketches;
+import nbu.cscb869.services.services.utility.VisitFactExporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsServiceImplUnitTests {
+
+    @Mock
+    private AnalyticsRepository analyticsRepository;
+
+    @Mock
+    private VisitFactExporter visitFactExporter;
+
+    @Mock
+    private PatientReachSketches patientReachSketches;
+
+    private AnalyticsProperties properties;
+    private AnalyticsServiceImpl analyticsService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AnalyticsProperties();
+        analyticsService = new AnalyticsServiceImpl(analyticsRepository, properties, new SimpleMeterRegistry(), visitFactExporter,
+                patientReachSketches);
+    }
+
+    private static AnalyticsRowDTO row(long visits) {
+        return new AnalyticsRowDTO(Map.of(), Map.of(), Map.of(AnalyticsMeasure.VISITS, visits));
+    }
+
+    @Nested
+    @DisplayName("Query Tests")
+    class QueryTests {
+        @Test
+        void query_OverWholeMonths_ShouldReadMonthlyRollup_HappyPath() {
+            AnalyticsQueryDTO query = AnalyticsQueryDTO.builder()
+                    .groupBy(List.of(AnalyticsDimension.MONTH, AnalyticsDimension.DOCTOR))
+                    .from(LocalDate.of(2024, 1, 1)).to(LocalDate.of(2024, 2, 29))
+                    .build();
+            when(analyticsRepository.aggregate(eq(AnalyticsDimension.MONTH), any(), any(), any(), any(), any(), anyInt()))
+                    .thenReturn(List.of(row(3)));
+
+            AnalyticsResultDTO result = analyticsService.query(query);
+
+            assertEquals(AnalyticsDimension.MONTH, result.getGrain());
+            assertEquals(List.of(AnalyticsMeasure.VISITS), result.getMeasures());
+            assertEquals(1, result.getRows().size());
+            assertFalse(result.isTruncated());
+        }
+
+        @Test
+        void query_OverPartialMonth_ShouldReadDailyFacts_HappyPath() {
+            AnalyticsQueryDTO query = AnalyticsQueryDTO.builder()
+                    .groupBy(List.of(AnalyticsDimension.MONTH))
+                    .from(LocalDate.of(2024, 1, 1)).to(LocalDate.of(2024, 1, 15))
+                    .build();
+
+            assertEquals(AnalyticsDimension.DAY, analyticsService.query(query).getGrain());
+        }
+
+        @Test
+        void query_GroupedByDay_ShouldReadDailyFacts_EdgeCase() {
+            AnalyticsQueryDTO query = AnalyticsQueryDTO.builder().groupBy(List.of(AnalyticsDimension.DAY)).build();
+
+            assertEquals(AnalyticsDimension.DAY, analyticsService.query(query).getGrain());
+        }
+
+        @Test
+        void query_WithFilters_ShouldPassThemByDimension_HappyPath() {
+            AnalyticsQueryDTO query = AnalyticsQueryDTO.builder()
+                    .measures(List.of(AnalyticsMeasure.SICK_LEAVE_DAYS, AnalyticsMeasure.SICK_LEAVE_DAYS))
+                    .doctorId(4L).diagnosisChapter(" x ").status(VisitStatus.COMPLETED)
+                    .build();
+
+            analyticsService.query(query);
+
+            verify(analyticsRepository).aggregate(AnalyticsDimension.MONTH, List.of(), List.of(AnalyticsMeasure.SICK_LEAVE_DAYS),
+                    null, null, Map.of(AnalyticsDimension.DOCTOR, 4L, AnalyticsDimension.DIAGNOSIS_CHAPTER, "X",
+                            AnalyticsDimension.STATUS, "COMPLETED"), properties.getMaxRows() + 1);
+        }
+
+        @Test
+        void query_WithMoreGroupsThanMaxRows_ShouldTruncate_EdgeCase() {
+            properties.setMaxRows(2);
+            when(analyticsRepository.aggregate(any(), any(), any(), any(), any(), any(), eq(3)))
+                    .thenReturn(List.of(row(1), row(2), row(3)));
+
+            AnalyticsResultDTO result = analyticsService.query(AnalyticsQueryDTO.builder().groupBy(List.of(AnalyticsDimension.DOCTOR)).build());
+
+            assertEquals(2, result.getRows().size());
+            assertTrue(result.isTruncated());
+        }
+
+        @Test
+        void query_WithRangeEndingBeforeStart_ShouldThrowException_ErrorCase() {
+            AnalyticsQueryDTO query = AnalyticsQueryDTO.builder().from(LocalDate.of(2024, 2, 1)).to(LocalDate.of(2024, 1, 1)).build();
+
+            assertThrows(InvalidInputException.class, () -> analyticsService.query(query));
+            verifyNoInteractions(analyticsRepository);
+        }
+
+        @Test
+        void query_WithRepeatedDimension_ShouldThrowException_ErrorCase() {
+            AnalyticsQueryDTO query = AnalyticsQueryDTO.builder()
+                    .groupBy(List.of(AnalyticsDimension.DOCTOR, AnalyticsDimension.DOCTOR)).build();
+
+            assertThrows(InvalidInputException.class, () -> analyticsService.query(query));
+        }
+
+        @Test
+        void query_WithNullQuery_ShouldThrowException_ErrorCase() {
+            assertThrows(InvalidDTOException.class, () -> analyticsService.query(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Patient Reach Tests")
+    class PatientReachTests {
+        @Test
+        void patientReach_OverMonths_ShouldEstimateFromMonthlySketches_HappyPath() {
+            when(patientReachSketches.estimate(AnalyticsDimension.DOCTOR, null, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 6, 1), 10001))
+                    .thenReturn(List.of(new PatientReachRowDTO(7L, "Dr. House", 120L)));
+
+            PatientReachResultDTO result = analyticsService.patientReach(AnalyticsDimension.DOCTOR, null,
+                    YearMonth.of(2024, 1), YearMonth.of(2024, 6));
+
+            assertEquals(120L, result.getRows().get(0).getPatients());
+            assertEquals(0.01625, result.getStandardError(), 1e-9);
+            assertFalse(result.isTruncated());
+        }
+
+        @Test
+        void patientReach_WithMoreRowsThanAllowed_ShouldTruncate_EdgeCase() {
+            properties.setMaxRows(1);
+            when(patientReachSketches.estimate(eq(AnalyticsDimension.DIAGNOSIS), any(), any(), any(), eq(2)))
+                    .thenReturn(List.of(new PatientReachRowDTO(1L, "Flu", 3L), new PatientReachRowDTO(2L, "Cold", 2L)));
+
+            PatientReachResultDTO result = analyticsService.patientReach(AnalyticsDimension.DIAGNOSIS, null, null, null);
+
+            assertEquals(1, result.getRows().size());
+            assertTrue(result.isTruncated());
+        }
+
+        @Test
+        void patientReach_ByOtherDimension_ShouldThrowInvalidInputException_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> analyticsService.patientReach(AnalyticsDimension.SPECIALTY, null, null, null));
+            assertThrows(InvalidDTOException.class, () -> analyticsService.patientReach(null, null, null, null));
+            verifyNoInteractions(patientReachSketches);
+        }
+
+        @Test
+        void patientReach_WithReversedRange_ShouldThrowInvalidInputException_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> analyticsService.patientReach(AnalyticsDimension.DOCTOR, 7L,
+                    YearMonth.of(2024, 6), YearMonth.of(2024, 1)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Rebuild Tests")
+    class RebuildTests {
+        @Test
+        void rebuild_WithRange_ShouldMarkDays_HappyPath() {
+            when(analyticsRepository.markDirty(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31))).thenReturn(20);
+
+            assertEquals(20, analyticsService.rebuild(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+        }
+
+        @Test
+        void rebuild_WithMissingDate_ShouldThrowException_ErrorCase() {
+            assertThrows(InvalidDTOException.class, () -> analyticsService.rebuild(null, LocalDate.of(2024, 1, 31)));
+            verify(analyticsRepository, never()).markDirty(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Export Tests")
+    class ExportTests {
+        @Test
+        void export_Full_ShouldRunExporter_HappyPath() {
+            FactExportResultDTO exported = FactExportResultDTO.builder().exportedMonths(List.of("2024-01")).build();
+            when(visitFactExporter.export(true)).thenReturn(exported);
+
+            assertSame(exported, analyticsService.export(true));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package nbu.cscb869.services.services.unittests;
+
+import nbu.cscb869.common.exceptions.ChangeCursorExpiredException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.changes.ChangeFeedProperties;
+import nbu.cscb869.config.datasource.DataSourceRoutingProperties;
+import nbu.cscb869.data.dto.MedicineChangeDTO;
+import nbu.cscb869.data.dto.PatientChangeDTO;
+import nbu.cscb869.data.dto.TreatmentChangeDTO;
+import nbu.cscb869.data.dto.VisitChangeDTO;
+import nbu.cscb869.data.models.ChangeTombstone;
+import nbu.cscb869.data.models.enums.ChangeEntityType;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import nbu.cscb869.data.repositories.ChangeTombstoneRepository;
+import nbu.cscb869.data.repositories.MedicineRepository;
+import nbu.cscb869.data.repositories.PatientRepository;
+import nbu.cscb869.data.repositories.SickLeaveRepository;
+import nbu.cscb869.data.repositories.TreatmentRepository;
+import nbu.cscb869.data.repositories.VisitRepository;
+import nbu.cscb869.services.data.dtos.ChangeDTO;
+import nbu.cscb869.services.data.dtos.ChangeDTO.Operation;
+import nbu.cscb869.services.data.dtos.ChangeFeedDTO;
+import nbu.cscb869.services.services.ChangeFeedServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeFeedServiceImplUnitTests {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    @Mock
+    private TreatmentRepository treatmentRepository;
+
+    @Mock
+    private SickLeaveRepository sickLeaveRepository;
+
+    @Mock
+    private MedicineRepository medicineRepository;
+
+    @Mock
+    private ChangeTombstoneRepository changeTombstoneRepository;
+
+    @Mock
+    private ObjectProvider<DataSourceRoutingProperties> routingProperties;
+
+    private ChangeFeedProperties properties;
+    private ChangeFeedServiceImpl changeFeedService;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChangeFeedProperties();
+        changeFeedService = new ChangeFeedServiceImpl(patientRepository, visitRepository, treatmentRepository,
+                sickLeaveRepository, medicineRepository, changeTombstoneRepository, properties, routingProperties);
+        base = LocalDateTime.now().minusHours(1).withNano(0);
+        lenient().when(patientRepository.findChangesAfter(any(), anyLong(), any(), any())).thenReturn(List.of());
+        lenient().when(visitRepository.findChangesAfter(any(), anyLong(), any(), any())).thenReturn(List.of());
+        lenient().when(treatmentRepository.findChangesAfter(any(), anyLong(), any(), any())).thenReturn(List.of());
+        lenient().when(sickLeaveRepository.findChangesAfter(any(), anyLong(), any(), any())).thenReturn(List.of());
+        lenient().when(changeTombstoneRepository.findChangesAfter(any(), anyLong(), any(), any())).thenReturn(List.of());
+    }
+
+    private static PatientChangeDTO patient(long id, long version, LocalDateTime modifiedOn) {
+        return new PatientChangeDTO(id, version, modifiedOn, "Patient " + id, "0000000000", null, 1L, "kc-" + id);
+    }
+
+    private static VisitChangeDTO visit(long id, long version, LocalDateTime modifiedOn) {
+        return new VisitChangeDTO(id, version, modifiedOn, LocalDate.now(), LocalTime.of(9, 0),
+                VisitStatus.COMPLETED, null, 1L, 2L, 3L);
+    }
+
+    private static ChangeTombstone tombstone(long id, ChangeEntityType type, long entityId, LocalDateTime createdOn) {
+        ChangeTombstone tombstone = ChangeTombstone.builder().entityType(type).entityId(entityId).entityVersion(4L).build();
+        tombstone.setId(id);
+        tombstone.setCreatedOn(createdOn);
+        return tombstone;
+    }
+
+    private static String cursor(LocalDateTime at, int source, long id) {
+        String plain = at + "|" + source + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nested
+    @DisplayName("GetChanges Tests")
+    class GetChangesTests {
+        @Test
+        void getChanges_ShouldMergeTablesAndTombstonesInFeedOrder_HappyPath() {
+            when(patientRepository.findChangesAfter(any(), anyLong(), any(), any()))
+                    .thenReturn(List.of(patient(5, 0, base.plusSeconds(2))));
+            when(visitRepository.findChangesAfter(any(), anyLong(), any(), any()))
+                    .thenReturn(List.of(visit(1, 3, base), visit(2, 1, base.plusSeconds(2))));
+            when(changeTombstoneRepository.findChangesAfter(any(), anyLong(), any(), any()))
+                    .thenReturn(List.of(tombstone(9, ChangeEntityType.SICK_LEAVE, 7, base.plusSeconds(1))));
+
+            ChangeFeedDTO result = changeFeedService.getChanges(null, 10);
+
+            List<ChangeDTO> changes = result.getChanges();
+            assertEquals(4, changes.size());
+            assertEquals(List.of(ChangeEntityType.VISIT, ChangeEntityType.SICK_LEAVE, ChangeEntityType.PATIENT,
+                    ChangeEntityType.VISIT), changes.stream().map(ChangeDTO::getEntityType).toList());
+            assertEquals(List.of(Operation.UPDATE, Operation.DELETE, Operation.INSERT, Operation.UPDATE),
+                    changes.stream().map(ChangeDTO::getOperation).toList());
+            assertEquals(7L, changes.get(1).getEntityId());
+            assertNull(changes.get(1).getData());
+            assertFalse(result.isHasMore());
+        }
+
+        @Test
+        void getChanges_WhenMoreThanLimit_ShouldContinueAfterLastListedChange_HappyPath() {
+            when(visitRepository.findChangesAfter(any(), anyLong(), any(), any()))
+                    .thenReturn(List.of(visit(1, 0, base), visit(2, 0, base), visit(3, 0, base)));
+
+            ChangeFeedDTO first = changeFeedService.getChanges(null, 2);
+
+            assertTrue(first.isHasMore());
+            assertEquals(List.of(1L, 2L), first.getChanges().stream().map(ChangeDTO::getEntityId).toList());
+            assertEquals(cursor(base, ChangeEntityType.VISIT.ordinal(), 2), first.getNextCursor());
+
+            changeFeedService.getChanges(first.getNextCursor(), 2);
+
+            // Rows changed at the cursor's instant follow it only in later tables, or in its own table after its ID.
+            verify(patientRepository).findChangesAfter(eq(base), eq(Long.MAX_VALUE), any(), any(Pageable.class));
+            verify(visitRepository).findChangesAfter(eq(base), eq(2L), any(), any(Pageable.class));
+            verify(treatmentRepository).findChangesAfter(eq(base), eq(0L), any(), any(Pageable.class));
+            verify(changeTombstoneRepository).findChangesAfter(eq(base), eq(0L), any(), any(Pageable.class));
+        }
+
+        @Test
+        void getChanges_ShouldAttachMedicinesToTreatments_HappyPath() {
+            TreatmentChangeDTO treatment = new TreatmentChangeDTO(4L, 1L, base, "Rest", 1L);
+            when(treatmentRepository.findChangesAfter(any(), anyLong(), any(), any())).thenReturn(List.of(treatment));
+            MedicineChangeDTO medicine = new MedicineChangeDTO(4L, 8L, "Ibuprofen", "200mg", "Twice a day");
+            when(medicineRepository.findChangesByTreatmentIds(any())).thenReturn(List.of(medicine));
+
+            ChangeFeedDTO result = changeFeedService.getChanges(null, 10);
+
+            TreatmentChangeDTO data = (TreatmentChangeDTO) result.getChanges().get(0).getData();
+            assertEquals(List.of(medicine), data.getMedicines());
+        }
+
+        @Test
+        void getChanges_WithoutTreatments_ShouldNotQueryMedicines_EdgeCase() {
+            changeFeedService.getChanges(null, 10);
+
+            verifyNoInteractions(medicineRepository);
+        }
+
+        @Test
+        void getChanges_ShouldHoldBackChangesWithinSettleTimeAndReplicaLag_EdgeCase() {
+            when(routingProperties.getIfAvailable()).thenReturn(new DataSourceRoutingProperties());
+            changeFeedService = new ChangeFeedServiceImpl(patientRepository, visitRepository, treatmentRepository,
+                    sickLeaveRepository, medicineRepository, changeTombstoneRepository, properties, routingProperties);
+            DataSourceRoutingProperties routing = new DataSourceRoutingProperties();
+
+            changeFeedService.getChanges(null, 10);
+
+            LocalDateTime latest = LocalDateTime.now().minus(properties.getSettleTime())
+                    .minus(routing.getMaxReplicaLag()).minus(routing.getLagCheckInterval());
+
+            ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(visitRepository).findChangesAfter(any(), anyLong(), until.capture(), any());
+            assertFalse(until.getValue().isAfter(latest));
+        }
+
+        @Test
+        void getChanges_WhenDrained_ShouldAdvanceCursorToHorizon_EdgeCase() {
+            ChangeFeedDTO result = changeFeedService.getChanges(cursor(base, 1, 5), 10);
+
+            assertTrue(result.getChanges().isEmpty());
+            assertFalse(result.isHasMore());
+            assertNotEquals(cursor(base, 1, 5), result.getNextCursor());
+
+            changeFeedService.getChanges(result.getNextCursor(), 10);
+
+            ArgumentCaptor<LocalDateTime> after = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(visitRepository, times(2)).findChangesAfter(after.capture(), anyLong(), any(), any());
+            assertTrue(after.getAllValues().get(1).isAfter(base));
+        }
+
+        @Test
+        void getChanges_WithInvalidLimit_ShouldThrowInvalidInputException_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> changeFeedService.getChanges(null, 0));
+            assertThrows(InvalidInputException.class,
+                    () -> changeFeedService.getChanges(null, properties.getMaxLimit() + 1));
+            verifyNoInteractions(visitRepository);
+        }
+
+        @Test
+        void getChanges_WithMalformedCursor_ShouldThrowInvalidInputException_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> changeFeedService.getChanges("not a cursor", 10));
+            assertThrows(InvalidInputException.class, () -> changeFeedService.getChanges(
+                    Base64.getUrlEncoder().encodeToString("2025-01-01T00:00|x".getBytes(StandardCharsets.UTF_8)), 10));
+        }
+
+        @Test
+        void getChanges_WithCursorOlderThanTombstoneRetention_ShouldThrowChangeCursorExpiredException_ErrorCase() {
+            LocalDateTime expired = LocalDateTime.now().minus(properties.getTombstoneRetention()).minusDays(1);
+
+            assertThrows(ChangeCursorExpiredException.class,
+                    () -> changeFeedService.getChanges(cursor(expired, 0, 1), 10));
+            verifyNoInteractions(visitRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("PurgeTombstones Tests")
+    class PurgeTombstonesTests {
+        @Test
+        void purgeTombstones_ShouldDeleteTombstonesOlderThanRetention_HappyPath() {
+            LocalDateTime latest = LocalDateTime.now().minus(properties.getTombstoneRetention());
+
+            changeFeedService.purgeTombstones();
+
+            ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(changeTombstoneRepository).deleteCreatedBefore(cutoff.capture());
+            assertFalse(cutoff.getValue().isBefore(latest));
+        }
+    }
+}
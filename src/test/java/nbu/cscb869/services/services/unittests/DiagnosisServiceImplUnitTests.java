@@ -2,6 +2,7 @@ package nbu.cscb869.services.services.unittests;
 
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
 import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
 import nbu.cscb869.data.dto.PatientDiagnosisDTO;
 import nbu.cscb869.data.models.Diagnosis;
@@ -9,9 +10,16 @@ import nbu.cscb869.data.models.Visit;
 import nbu.cscb869.data.repositories.DiagnosisRepository;
 import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.services.data.dtos.DiagnosisCreateDTO;
+import nbu.cscb869.services.data.dtos.DiagnosisImportResultDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisUpdateDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import nbu.cscb869.services.services.DiagnosisServiceImpl;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions.Catalogue;
+import nbu.cscb869.services.services.utility.DiagnosisCodeLoader;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader;
+import nbu.cscb869.services.services.utility.SuggestionIndex.Entry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -22,6 +30,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -45,6 +55,12 @@ class DiagnosisServiceImplUnitTests {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private CatalogueSuggestions catalogueSuggestions;
+
+    @Mock
+    private DiagnosisCodeLoader diagnosisCodeLoader;
+
     @InjectMocks
     private DiagnosisServiceImpl diagnosisService;
 
@@ -69,6 +85,7 @@ class DiagnosisServiceImplUnitTests {
         // ASSERT
         assertNotNull(result);
         verify(diagnosisRepository).save(diagnosis);
+        verify(catalogueSuggestions).catalogueChanged(Catalogue.DIAGNOSES);
     }
 
     @Test
@@ -411,4 +428,65 @@ class DiagnosisServiceImplUnitTests {
         assertTrue(result.isEmpty());
         verify(diagnosisRepository).findMostFrequentDiagnoses();
     }
+
+    // --- Suggest Tests ---
+
+    @Test
+    void suggest_WithMatchingText_ShouldReturnEntriesWithVisitCounts_HappyPath() {
+        // ARRANGE
+        when(catalogueSuggestions.suggest(Catalogue.DIAGNOSES, "flu", 10))
+                .thenReturn(List.of(new Entry(1L, "Flu", 10L), new Entry(2L, "Avian flu", 0L)));
+
+        // ACT
+        List<SuggestionViewDTO> result = diagnosisService.suggest("flu", 10);
+
+        // ASSERT
+        assertEquals(List.of("Flu", "Avian flu"), result.stream().map(SuggestionViewDTO::getName).toList());
+        assertEquals(10L, result.get(0).getVisitCount());
+        verify(diagnosisRepository, never()).findByNameContainingIgnoreCase(any(), any());
+    }
+
+    // --- Code Tests ---
+
+    @Test
+    void getByCodePrefix_WithTypedPrefix_ShouldQueryStoredForm_HappyPath() {
+        // ARRANGE
+        Diagnosis diagnosis = new Diagnosis();
+        diagnosis.setCode("J45.9");
+        DiagnosisViewDTO viewDTO = new DiagnosisViewDTO();
+        viewDTO.setCode("J45.9");
+        when(diagnosisRepository.findByCodeStartingWith(eq("J45"), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(diagnosis)));
+        when(modelMapper.map(diagnosis, DiagnosisViewDTO.class)).thenReturn(viewDTO);
+
+        // ACT
+        Page<DiagnosisViewDTO> result = diagnosisService.getByCodePrefix("j45.", 0, 10);
+
+        // ASSERT
+        assertEquals("J45.9", result.getContent().get(0).getCode());
+    }
+
+    @Test
+    void getByCodePrefix_WithInvalidPrefix_ShouldThrowException_ErrorCase() {
+        // ACT & ASSERT
+        assertThrows(InvalidInputException.class, () -> diagnosisService.getByCodePrefix("4%", 0, 10));
+        verifyNoInteractions(diagnosisRepository);
+    }
+
+    @Test
+    void importCodes_WithList_ShouldDelegateToLoader_HappyPath() {
+        // ARRANGE
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        DiagnosisImportResultDTO imported = new DiagnosisImportResultDTO();
+        when(diagnosisCodeLoader.load(input, DiagnosisCodeReader.Format.CSV)).thenReturn(imported);
+
+        // ACT & ASSERT
+        assertSame(imported, diagnosisService.importCodes(input, DiagnosisCodeReader.Format.CSV));
+    }
+
+    @Test
+    void importCodes_WithNullFormat_ShouldThrowException_ErrorCase() {
+        // ACT & ASSERT
+        assertThrows(InvalidDTOException.class, () -> diagnosisService.importCodes(new ByteArrayInputStream(new byte[0]), null));
+        verifyNoInteractions(diagnosisCodeLoader);
+    }
 }
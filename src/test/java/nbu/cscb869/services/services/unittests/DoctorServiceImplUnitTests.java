@@ -1,6 +1,7 @@
 package nbu.cscb869.services.services.unittests;
 
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.common.exceptions.ImageProcessingException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
 import nbu.cscb869.common.exceptions.InvalidDoctorException;
 import nbu.cscb869.common.exceptions.InvalidInputException;
@@ -14,8 +15,12 @@ import nbu.cscb869.data.repositories.DoctorRepository;
 import nbu.cscb869.data.repositories.SpecialtyRepository;
 import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.services.data.dtos.*;
+import nbu.cscb869.services.data.events.DoctorApproved;
 import nbu.cscb869.services.services.DoctorServiceImpl;
-import nbu.cscb869.services.services.utility.CloudinaryService;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import nbu.cscb869.services.services.utility.DoctorImagePipeline;
+import nbu.cscb869.services.services.utility.RankedCounts.Ranked;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -28,7 +33,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
@@ -58,7 +62,13 @@ class DoctorServiceImplUnitTests {
     private ModelMapper modelMapper;
 
     @Mock
-    private CloudinaryService cloudinaryService;
+    private DomainEventBus domainEventBus;
+
+    @Mock
+    private DoctorImagePipeline doctorImagePipeline;
+
+    @Mock
+    private FrequencyRankings frequencyRankings;
 
     @InjectMocks
     private DoctorServiceImpl doctorService;
@@ -82,7 +92,6 @@ class DoctorServiceImplUnitTests {
         when(mockImage.isEmpty()).thenReturn(false);
         when(doctorRepository.findByUniqueIdNumber(anyString())).thenReturn(Optional.empty());
         when(specialtyRepository.findByName("Cardiology")).thenReturn(Optional.of(specialty));
-        when(cloudinaryService.uploadImage(mockImage)).thenReturn(CompletableFuture.completedFuture("http://image.url"));
         when(modelMapper.map(createDTO, Doctor.class)).thenReturn(doctor);
         when(doctorRepository.save(any(Doctor.class))).thenReturn(doctor);
         when(modelMapper.map(doctor, DoctorViewDTO.class)).thenReturn(expectedView);
@@ -93,7 +102,7 @@ class DoctorServiceImplUnitTests {
         // ASSERT
         assertNotNull(result);
         assertEquals(expectedView.getId(), result.getId());
-        verify(cloudinaryService).uploadImage(mockImage);
+        verify(doctorImagePipeline).stage(doctor, mockImage);
         verify(doctorRepository).save(doctor);
     }
 
@@ -132,7 +141,7 @@ class DoctorServiceImplUnitTests {
     }
 
     @Test
-    void create_WithImageUploadFailure_ShouldThrowInvalidInputException_ErrorCase() {
+    void create_WithImageStagingFailure_ShouldThrowInvalidInputException_ErrorCase() {
         // ARRANGE
         DoctorCreateDTO createDTO = new DoctorCreateDTO();
         createDTO.setName("Dr. Smith");
@@ -141,9 +150,10 @@ class DoctorServiceImplUnitTests {
         MultipartFile mockImage = mock(MultipartFile.class);
         when(mockImage.isEmpty()).thenReturn(false);
         when(doctorRepository.findByUniqueIdNumber(anyString())).thenReturn(Optional.empty());
-        when(modelMapper.map(createDTO, Doctor.class)).thenReturn(new Doctor());
-        // The service should handle the failed future and throw a domain-specific exception
-        when(cloudinaryService.uploadImage(mockImage)).thenReturn(CompletableFuture.failedFuture(new IOException("Upload failed")));
+        Doctor doctor = new Doctor();
+        when(modelMapper.map(createDTO, Doctor.class)).thenReturn(doctor);
+        // The service should translate the pipeline's exception into a domain-specific one
+        doThrow(new ImageProcessingException("Upload failed")).when(doctorImagePipeline).stage(doctor, mockImage);
 
         // ACT & ASSERT
         assertThrows(InvalidInputException.class, () -> doctorService.create(createDTO, mockImage));
@@ -227,6 +237,43 @@ class DoctorServiceImplUnitTests {
         assertThrows(InvalidDoctorException.class, () -> doctorService.update(updateDTO, null));
     }
 
+    @Test
+    void update_WithDeleteImage_ShouldRemoveImageThroughPipeline_HappyPath() {
+        // ARRANGE
+        DoctorUpdateDTO updateDTO = new DoctorUpdateDTO();
+        updateDTO.setId(1L);
+        updateDTO.setDeleteImage(true);
+
+        Doctor existingDoctor = new Doctor();
+        existingDoctor.setId(1L);
+        existingDoctor.setImageUrl("http://image.url");
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(existingDoctor));
+        when(doctorRepository.save(existingDoctor)).thenReturn(existingDoctor);
+
+        // ACT
+        doctorService.update(updateDTO, null);
+
+        // ASSERT
+        verify(doctorImagePipeline).remove(existingDoctor);
+        verify(doctorImagePipeline, never()).stage(any(), any());
+    }
+
+    @Test
+    void deleteDoctorImage_WithoutImage_ShouldNotTouchPipeline_EdgeCase() {
+        // ARRANGE
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+
+        // ACT
+        doctorService.deleteDoctorImage(1L);
+
+        // ASSERT
+        verifyNoInteractions(doctorImagePipeline);
+        verify(doctorRepository, never()).save(any());
+    }
+
     // --- Delete Tests ---
 
     @Test
@@ -275,6 +322,40 @@ class DoctorServiceImplUnitTests {
         assertThrows(InvalidDoctorException.class, () -> doctorService.delete(1L));
     }
 
+    // --- Approve Tests ---
+
+    @Test
+    void approveDoctor_WithUnapprovedDoctor_ShouldApproveAndPublishEvent_HappyPath() {
+        // ARRANGE
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setApproved(false);
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+
+        // ACT
+        doctorService.approveDoctor(1L);
+
+        // ASSERT
+        assertTrue(doctor.isApproved());
+        verify(doctorRepository).save(doctor);
+        verify(domainEventBus).publish(argThat(event -> event instanceof DoctorApproved approved && approved.doctorId().equals(1L)));
+    }
+
+    @Test
+    void approveDoctor_WithApprovedDoctor_ShouldThrowInvalidDoctorException_ErrorCase() {
+        // ARRANGE
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setApproved(true);
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+
+        // ACT & ASSERT
+        assertThrows(InvalidDoctorException.class, () -> doctorService.approveDoctor(1L));
+        verifyNoInteractions(domainEventBus);
+    }
+
     // --- GetById/GetByUniqueIdNumber/GetByKeycloakId Tests ---
 
     @Test
@@ -490,6 +571,37 @@ class DoctorServiceImplUnitTests {
         verify(doctorRepository).findDoctorsWithMostSickLeaves();
     }
 
+    @Test
+    void getDoctorsWithMostSickLeaves_WithLimit_ShouldLoadOnlyRankedDoctorsInOrder_HappyPath() {
+        Doctor first = Doctor.builder().name("First").build();
+        first.setId(5L);
+        Doctor second = Doctor.builder().name("Second").build();
+        second.setId(3L);
+        when(frequencyRankings.topDoctorsBySickLeaves(2)).thenReturn(Optional.of(List.of(new Ranked<>(5L, 8L), new Ranked<>(3L, 2L))));
+        when(doctorRepository.findAllById(List.of(5L, 3L))).thenReturn(List.of(second, first));
+
+        List<DoctorSickLeaveCountDTO> result = doctorService.getDoctorsWithMostSickLeaves(2);
+
+        assertEquals(List.of("First", "Second"), result.stream().map(entry -> entry.getDoctor().getName()).toList());
+        assertEquals(8L, result.get(0).getSickLeaveCount());
+        verify(doctorRepository, never()).findDoctorsWithMostSickLeaves();
+    }
+
+    @Test
+    void getDoctorsWithMostSickLeaves_WithLimitBeforeRankingsAreReady_ShouldRankInDatabase_EdgeCase() {
+        Doctor first = Doctor.builder().name("First").build();
+        Doctor second = Doctor.builder().name("Second").build();
+        when(frequencyRankings.topDoctorsBySickLeaves(1)).thenReturn(Optional.empty());
+        when(frequencyRankings.limitOf(1)).thenReturn(1);
+        when(doctorRepository.findDoctorsWithMostSickLeaves()).thenReturn(List.of(
+                new DoctorSickLeaveCountDTO(first, 8L), new DoctorSickLeaveCountDTO(second, 2L)));
+
+        List<DoctorSickLeaveCountDTO> result = doctorService.getDoctorsWithMostSickLeaves(1);
+
+        assertEquals(List.of("First"), result.stream().map(entry -> entry.getDoctor().getName()).toList());
+        verify(doctorRepository, never()).findAllById(any());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     void findByCriteria_ShouldReturnPage_HappyPath() {
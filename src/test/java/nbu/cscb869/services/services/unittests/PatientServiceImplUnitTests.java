@@ -4,6 +4,8 @@ import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
 import nbu.cscb869.common.exceptions.InvalidPatientException;
 import nbu.cscb869.data.dto.DoctorPatientCountDTO;
+import nbu.cscb869.data.dto.PatientSummaryDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.models.Doctor;
 import nbu.cscb869.data.models.Patient;
 import nbu.cscb869.data.repositories.DoctorRepository;
@@ -12,7 +14,9 @@ import nbu.cscb869.data.utils.TestDataUtils;
 import nbu.cscb869.services.data.dtos.PatientCreateDTO;
 import nbu.cscb869.services.data.dtos.PatientUpdateDTO;
 import nbu.cscb869.services.data.dtos.PatientViewDTO;
+import nbu.cscb869.services.data.events.PatientReassigned;
 import nbu.cscb869.services.services.PatientServiceImpl;
+import nbu.cscb869.services.services.utility.DomainEventBus;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -27,7 +31,9 @@ import org.mockito.quality.Strictness;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -36,6 +42,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -60,6 +67,9 @@ class PatientServiceImplUnitTests {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private DomainEventBus domainEventBus;
+
     @InjectMocks
     private PatientServiceImpl patientService;
 
@@ -383,6 +393,8 @@ class PatientServiceImplUnitTests {
             assertEquals(dto.getLastInsurancePaymentDate(), result.getLastInsurancePaymentDate());
 
             verify(patientRepository).save(any(Patient.class));
+            verify(domainEventBus).publish(argThat(event -> event instanceof PatientReassigned reassigned
+                    && reassigned.previousGeneralPractitionerId().equals(10L) && reassigned.generalPractitionerId().equals(11L)));
         }
 
         @Test
@@ -426,6 +438,7 @@ class PatientServiceImplUnitTests {
             assertEquals(originalInsuranceDate, result.getLastInsurancePaymentDate()); // Should remain unchanged
 
             verify(patientRepository).save(any(Patient.class));
+            verifyNoInteractions(domainEventBus);
         }
 
         @Test
@@ -605,6 +618,46 @@ class PatientServiceImplUnitTests {
             assertThrows(AccessDeniedException.class, () -> patientService.getById(patientIdToAccess));
         }
 
+        @Test
+        @DisplayName("getVersion_AsPatientOwner_ShouldReturnVersionWithoutLoadingPatient_HappyPath")
+        void getVersion_AsPatientOwner_ShouldReturnVersionWithoutLoadingPatient_HappyPath() {
+            // ARRANGE
+            String keycloakId = "patient-owner-id";
+            when(authentication.getName()).thenReturn(keycloakId);
+            doReturn(Collections.singletonList(new SimpleGrantedAuthority("ROLE_PATIENT"))).when(authentication).getAuthorities();
+            ResourceVersionDTO version = new ResourceVersionDTO(1L, 2L, "-", LocalDateTime.now(), keycloakId);
+            when(patientRepository.findVersionById(1L)).thenReturn(Optional.of(version));
+
+            // ACT
+            ResourceVersionDTO result = patientService.getVersion(1L);
+
+            // ASSERT
+            assertEquals(version.getFingerprint(), result.getFingerprint());
+            verify(patientRepository, never()).findById(any());
+            verifyNoInteractions(modelMapper);
+        }
+
+        @Test
+        @DisplayName("getVersion_AsOtherPatient_ShouldThrowAccessDeniedException_ErrorCase")
+        void getVersion_AsOtherPatient_ShouldThrowAccessDeniedException_ErrorCase() {
+            // ARRANGE
+            when(authentication.getName()).thenReturn("other-patient-id");
+            doReturn(Collections.singletonList(new SimpleGrantedAuthority("ROLE_PATIENT"))).when(authentication).getAuthorities();
+            when(patientRepository.findVersionById(1L))
+                    .thenReturn(Optional.of(new ResourceVersionDTO(1L, 2L, "-", null, "patient-owner-id")));
+
+            // ACT & ASSERT
+            assertThrows(AccessDeniedException.class, () -> patientService.getVersion(1L));
+        }
+
+        @Test
+        @DisplayName("getVersion_WithNonExistentId_ShouldThrowEntityNotFoundException_ErrorCase")
+        void getVersion_WithNonExistentId_ShouldThrowEntityNotFoundException_ErrorCase() {
+            when(patientRepository.findVersionById(99L)).thenReturn(Optional.empty());
+
+            assertThrows(EntityNotFoundException.class, () -> patientService.getVersion(99L));
+        }
+
         @Test
         @DisplayName("getAll_WithFilter_ShouldCallCorrectRepositoryMethod_HappyPath")
         void getAll_WithFilter_ShouldCallCorrectRepositoryMethod_HappyPath() {
@@ -699,6 +752,41 @@ class PatientServiceImplUnitTests {
             verify(patientRepository).findByKeycloakId(keycloakId);
             verify(modelMapper, never()).map(any(Patient.class), any(PatientViewDTO.class));
         }
+
+        @Test
+        @DisplayName("findByDiagnosis_WithUnsortedPage_ShouldOrderByNameAndId_HappyPath")
+        void findByDiagnosis_WithUnsortedPage_ShouldOrderByNameAndId_HappyPath() {
+            PatientSummaryDTO summary = new PatientSummaryDTO(1L, "Test Patient", TestDataUtils.generateValidEgn(),
+                    LocalDate.now(), 2L, "Dr. Test", "patient-keycloak-id");
+            PatientViewDTO viewDTO = new PatientViewDTO();
+            viewDTO.setId(1L);
+            Pageable sorted = PageRequest.of(1, 10, Sort.by("name", "id"));
+            when(patientRepository.findByDiagnosis(1L, sorted)).thenReturn(new PageImpl<>(List.of(summary), sorted, 11));
+            when(modelMapper.map(summary, PatientViewDTO.class)).thenReturn(viewDTO);
+
+            Page<PatientViewDTO> result = patientService.findByDiagnosis(1L, PageRequest.of(1, 10));
+
+            assertEquals(List.of(viewDTO), result.getContent());
+            assertEquals(11, result.getTotalElements());
+            verify(patientRepository).findByDiagnosis(1L, sorted);
+        }
+
+        @Test
+        @DisplayName("findByDiagnosis_WithSortedPage_ShouldKeepSort_EdgeCase")
+        void findByDiagnosis_WithSortedPage_ShouldKeepSort_EdgeCase() {
+            Pageable byEgn = PageRequest.of(0, 10, Sort.by("egn"));
+            when(patientRepository.findByDiagnosis(1L, byEgn)).thenReturn(Page.empty(byEgn));
+
+            assertTrue(patientService.findByDiagnosis(1L, byEgn).isEmpty());
+            verify(patientRepository).findByDiagnosis(1L, byEgn);
+        }
+
+        @Test
+        @DisplayName("findByDiagnosis_WithNullId_ShouldThrowInvalidDTOException_ErrorCase")
+        void findByDiagnosis_WithNullId_ShouldThrowInvalidDTOException_ErrorCase() {
+            assertThrows(InvalidDTOException.class, () -> patientService.findByDiagnosis(null, PageRequest.of(0, 10)));
+            verifyNoInteractions(patientRepository);
+        }
     }
 
     @Nested
@@ -0,0 +1,251 @@
+package nbu.cscb869.services.services.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.common.exceptions.ReportJobNotCompletedException;
+import nbu.cscb869.data.models.ReportJob;
+import nbu.cscb869.data.models.enums.ReportJobStatus;
+import nbu.cscb869.data.models.enums.ReportType;
+import nbu.cscb869.data.repositories.ReportJobRepository;
+import nbu.cscb869.services.data.dtos.ReportJobDTO;
+import nbu.cscb869.services.data.dtos.ReportJobRequestDTO;
+import nbu.cscb869.services.services.ReportJobServiceImpl;
+import nbu.cscb869.services.services.utility.ReportJobWorker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceImplUnitTests {
+
+    @Mock
+    private ReportJobRepository reportJobRepository;
+    @Mock
+    private ReportJobWorker reportJobWorker;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReportJobServiceImpl reportJobService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        meterRegistry = new SimpleMeterRegistry();
+        reportJobService = new ReportJobServiceImpl(reportJobRepository, reportJobWorker, objectMapper,
+                transactionManager, meterRegistry);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("admin-id", "pass", List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static ReportJobRequestDTO visitsByDate() {
+        return ReportJobRequestDTO.builder()
+                .type(ReportType.VISITS_BY_DATE)
+                .startDate(LocalDate.of(2024, 1, 1))
+                .endDate(LocalDate.of(2024, 12, 31))
+                .build();
+    }
+
+    private ReportJob savedJob(ReportJobStatus status) {
+        ReportJob job = ReportJob.builder()
+                .reportType(ReportType.VISITS_BY_DATE)
+                .parameters("{\"type\":\"VISITS_BY_DATE\",\"startDate\":\"2024-01-01\",\"endDate\":\"2024-12-31\",\"page\":0,\"size\":20}")
+                .status(status)
+                .build();
+        job.setId(7L);
+        return job;
+    }
+
+    private double submitted(String result) {
+        return meterRegistry.get("medical.reports.jobs.submitted").tag("result", result).counter().count();
+    }
+
+    @Nested
+    @DisplayName("Submit Tests")
+    class SubmitTests {
+        @Test
+        void submit_WithNewRequest_ShouldQueueAndDispatchJob_HappyPath() {
+            when(reportJobRepository.findByLiveKey(any())).thenReturn(Optional.empty());
+            when(reportJobRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+                ReportJob job = invocation.getArgument(0);
+                job.setId(7L);
+                return job;
+            });
+
+            ReportJobDTO result = reportJobService.submit(visitsByDate());
+
+            ArgumentCaptor<ReportJob> saved = ArgumentCaptor.forClass(ReportJob.class);
+            verify(reportJobRepository).saveAndFlush(saved.capture());
+            assertEquals(ReportJobStatus.QUEUED, saved.getValue().getStatus());
+            assertEquals("admin-id", saved.getValue().getRequestedBy());
+            assertEquals(64, saved.getValue().getRequestKey().length());
+            assertEquals(saved.getValue().getRequestKey(), saved.getValue().getLiveKey());
+            assertEquals(0, result.getRequest().getPage());
+            assertEquals(20, result.getRequest().getSize());
+            verify(reportJobWorker).dispatch(7L);
+            assertEquals(1.0, submitted("created"));
+        }
+
+        @Test
+        void submit_WithSameReportAndIgnoredParameters_ShouldHashTheSame_HappyPath() {
+            when(reportJobRepository.findByLiveKey(any())).thenReturn(Optional.empty());
+            when(reportJobRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            reportJobService.submit(visitsByDate());
+            reportJobService.submit(visitsByDate().toBuilder().doctorId(3L).diagnosisId(4L).page(0).size(20).build());
+
+            ArgumentCaptor<ReportJob> saved = ArgumentCaptor.forClass(ReportJob.class);
+            verify(reportJobRepository, times(2)).saveAndFlush(saved.capture());
+            assertEquals(saved.getAllValues().get(0).getRequestKey(), saved.getAllValues().get(1).getRequestKey());
+            assertFalse(saved.getAllValues().get(1).getParameters().contains("doctorId"));
+        }
+
+        @Test
+        void submit_WithIdenticalPendingRequest_ShouldShareItsJob_HappyPath() {
+            when(reportJobRepository.findByLiveKey(any())).thenReturn(Optional.of(savedJob(ReportJobStatus.RUNNING)));
+
+            ReportJobDTO result = reportJobService.submit(visitsByDate());
+
+            assertEquals(7L, result.getId());
+            assertEquals(ReportJobStatus.RUNNING, result.getStatus());
+            verify(reportJobRepository, never()).saveAndFlush(any());
+            verifyNoInteractions(reportJobWorker);
+            assertEquals(1.0, submitted("shared"));
+        }
+
+        @Test
+        void submit_WithIdenticalExpiredJob_ShouldReleaseItAndQueueAnother_EdgeCase() {
+            ReportJob expired = savedJob(ReportJobStatus.COMPLETED);
+            expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+            when(reportJobRepository.findByLiveKey(any())).thenReturn(Optional.of(expired));
+            when(reportJobRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+                ReportJob job = invocation.getArgument(0);
+                job.setId(8L);
+                return job;
+            });
+
+            ReportJobDTO result = reportJobService.submit(visitsByDate());
+
+            assertEquals(8L, result.getId());
+            verify(reportJobRepository).releaseLiveKey(7L);
+            verify(reportJobWorker).dispatch(8L);
+        }
+
+        @Test
+        void submit_WhenIdenticalRequestInsertsFirst_ShouldShareItsJob_EdgeCase() {
+            when(reportJobRepository.findByLiveKey(any()))
+                    .thenReturn(Optional.empty())
+                    .thenReturn(Optional.of(savedJob(ReportJobStatus.QUEUED)));
+            when(reportJobRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_report_jobs_live_key"));
+
+            ReportJobDTO result = reportJobService.submit(visitsByDate());
+
+            assertEquals(7L, result.getId());
+            verifyNoInteractions(reportJobWorker);
+        }
+
+        @Test
+        void submit_WithoutRequiredParameter_ShouldThrowInvalidInputException_ErrorCase() {
+            ReportJobRequestDTO request = ReportJobRequestDTO.builder().type(ReportType.PATIENTS_BY_DIAGNOSIS).build();
+
+            InvalidInputException exception = assertThrows(InvalidInputException.class, () -> reportJobService.submit(request));
+            assertTrue(exception.getMessage().contains("diagnosisId"));
+            verifyNoInteractions(reportJobRepository);
+        }
+
+        @Test
+        void submit_WithReversedRange_ShouldThrowInvalidInputException_ErrorCase() {
+            ReportJobRequestDTO request = visitsByDate().toBuilder().startDate(LocalDate.of(2025, 1, 1)).build();
+
+            assertThrows(InvalidInputException.class, () -> reportJobService.submit(request));
+        }
+
+        @Test
+        void submit_WithOversizedPage_ShouldThrowInvalidInputException_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> reportJobService.submit(visitsByDate().toBuilder().size(101).build()));
+        }
+
+        @Test
+        void submit_WithoutType_ShouldThrowInvalidDTOException_ErrorCase() {
+            assertThrows(InvalidDTOException.class, () -> reportJobService.submit(new ReportJobRequestDTO()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Poll Tests")
+    class PollTests {
+        @Test
+        void getJob_WithExistingJob_ShouldReturnItsRequest_HappyPath() {
+            when(reportJobRepository.findById(7L)).thenReturn(Optional.of(savedJob(ReportJobStatus.QUEUED)));
+
+            ReportJobDTO result = reportJobService.getJob(7L);
+
+            assertEquals(ReportType.VISITS_BY_DATE, result.getRequest().getType());
+            assertEquals(LocalDate.of(2024, 12, 31), result.getRequest().getEndDate());
+        }
+
+        @Test
+        void getJob_WhenExpired_ShouldThrowEntityNotFoundException_ErrorCase() {
+            ReportJob job = savedJob(ReportJobStatus.COMPLETED);
+            job.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+            when(reportJobRepository.findById(7L)).thenReturn(Optional.of(job));
+
+            assertThrows(EntityNotFoundException.class, () -> reportJobService.getJob(7L));
+        }
+
+        @Test
+        void getResult_WhenCompleted_ShouldDecompressUnlessAskedNotTo_HappyPath() throws Exception {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write("[{\"visitCount\":3}]".getBytes(StandardCharsets.UTF_8));
+            }
+            ReportJob job = savedJob(ReportJobStatus.COMPLETED);
+            job.setExpiresAt(LocalDateTime.now().plusHours(1));
+            when(reportJobRepository.findById(7L)).thenReturn(Optional.of(job));
+            when(reportJobRepository.findResultById(7L)).thenReturn(bytes.toByteArray());
+
+            assertEquals("[{\"visitCount\":3}]", new String(reportJobService.getResult(7L, false), StandardCharsets.UTF_8));
+            assertArrayEquals(bytes.toByteArray(), reportJobService.getResult(7L, true));
+        }
+
+        @Test
+        void getResult_WhenFailed_ShouldThrowReportJobNotCompletedException_ErrorCase() {
+            when(reportJobRepository.findById(7L)).thenReturn(Optional.of(savedJob(ReportJobStatus.FAILED)));
+
+            assertThrows(ReportJobNotCompletedException.class, () -> reportJobService.getResult(7L, false));
+            verify(reportJobRepository, never()).findResultById(any());
+        }
+    }
+}
@@ -11,7 +11,10 @@ import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.services.data.dtos.SickLeaveCreateDTO;
 import nbu.cscb869.services.data.dtos.SickLeaveUpdateDTO;
 import nbu.cscb869.services.data.dtos.SickLeaveViewDTO;
+import nbu.cscb869.services.data.events.SickLeaveIssued;
 import nbu.cscb869.services.services.SickLeaveServiceImpl;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import nbu.cscb869.services.services.utility.VisitVersions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -51,6 +54,12 @@ class SickLeaveServiceImplUnitTests {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private VisitVersions visitVersions;
+
+    @Mock
+    private DomainEventBus domainEventBus;
+
     @InjectMocks
     private SickLeaveServiceImpl sickLeaveService;
 
@@ -69,7 +78,11 @@ class SickLeaveServiceImplUnitTests {
             createDTO.setStartDate(LocalDate.now());
             createDTO.setDurationDays(5);
 
+            Patient patient = new Patient();
+            patient.setId(7L);
             Visit visit = new Visit();
+            visit.setId(1L);
+            visit.setPatient(patient);
             SickLeave savedSickLeave = new SickLeave();
 
             when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
@@ -80,6 +93,9 @@ class SickLeaveServiceImplUnitTests {
 
             assertNotNull(result);
             verify(sickLeaveRepository).save(any(SickLeave.class));
+            verify(domainEventBus).publish(argThat(event -> event instanceof SickLeaveIssued issued
+                    && issued.visitId().equals(1L) && issued.patientId().equals(7L)));
+            verify(visitVersions).touch(visit);
         }
 
         @Test
@@ -123,6 +139,34 @@ class SickLeaveServiceImplUnitTests {
             verify(sickLeaveRepository).save(existingSickLeave);
         }
 
+        @Test
+        void update_WhenMovedToAnotherPatientsVisit_ShouldTouchBothVisits_EdgeCase() {
+            SickLeaveUpdateDTO updateDTO = new SickLeaveUpdateDTO();
+            updateDTO.setId(10L);
+            updateDTO.setVisitId(2L);
+            updateDTO.setStartDate(LocalDate.now());
+            updateDTO.setDurationDays(3);
+
+            Patient previousPatient = new Patient();
+            previousPatient.setId(7L);
+            Visit previousVisit = new Visit();
+            previousVisit.setPatient(previousPatient);
+            SickLeave existingSickLeave = new SickLeave();
+            existingSickLeave.setVisit(previousVisit);
+            Patient patient = new Patient();
+            patient.setId(8L);
+            Visit visit = new Visit();
+            visit.setPatient(patient);
+
+            when(sickLeaveRepository.findById(10L)).thenReturn(Optional.of(existingSickLeave));
+            when(visitRepository.findById(2L)).thenReturn(Optional.of(visit));
+            when(sickLeaveRepository.save(existingSickLeave)).thenReturn(existingSickLeave);
+
+            sickLeaveService.update(updateDTO);
+
+            verify(visitVersions).touch(previousVisit, visit);
+        }
+
         @Test
         void update_WithNullDto_ShouldThrowInvalidDTOException_ErrorCase() {
             assertThrows(InvalidDTOException.class, () -> sickLeaveService.update(null));
@@ -173,6 +217,21 @@ class SickLeaveServiceImplUnitTests {
             assertNull(visit.getSickLeave());
         }
 
+        @Test
+        void delete_WithExistingId_ShouldTouchItsVisit_HappyPath() {
+            Patient patient = new Patient();
+            patient.setId(7L);
+            Visit visit = new Visit();
+            visit.setPatient(patient);
+            SickLeave sickLeave = new SickLeave();
+            sickLeave.setVisit(visit);
+            when(sickLeaveRepository.findById(1L)).thenReturn(Optional.of(sickLeave));
+
+            sickLeaveService.delete(1L);
+
+            verify(visitVersions).touch(visit);
+        }
+
         @Test
         void delete_WithNullId_ShouldThrowInvalidDTOException_ErrorCase() {
             assertThrows(InvalidDTOException.class, () -> sickLeaveService.delete(null));
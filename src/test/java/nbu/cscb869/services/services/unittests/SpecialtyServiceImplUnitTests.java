@@ -3,6 +3,7 @@ package nbu.cscb869.services.services.unittests;
 import nbu.cscb869.common.exceptions.EntityInUseException;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.data.dto.RowVersionDTO;
 import nbu.cscb869.data.models.Doctor;
 import nbu.cscb869.data.models.Specialty;
 import nbu.cscb869.data.repositories.DoctorRepository;
@@ -10,7 +11,11 @@ import nbu.cscb869.data.repositories.SpecialtyRepository;
 import nbu.cscb869.services.data.dtos.SpecialtyCreateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyUpdateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import nbu.cscb869.services.services.SpecialtyServiceImpl;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions.Catalogue;
+import nbu.cscb869.services.services.utility.SuggestionIndex.Entry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -21,6 +26,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -43,6 +49,9 @@ class SpecialtyServiceImplUnitTests {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private CatalogueSuggestions catalogueSuggestions;
+
     @InjectMocks
     private SpecialtyServiceImpl specialtyService;
 
@@ -67,6 +76,7 @@ class SpecialtyServiceImplUnitTests {
         // ASSERT
         assertNotNull(result);
         verify(specialtyRepository).save(specialty);
+        verify(catalogueSuggestions).catalogueChanged(Catalogue.SPECIALTIES);
     }
 
     @Test
@@ -184,6 +194,7 @@ class SpecialtyServiceImplUnitTests {
 
         // ASSERT
         verify(specialtyRepository).delete(specialty);
+        verify(catalogueSuggestions).catalogueChanged(Catalogue.SPECIALTIES);
     }
 
     @Test
@@ -248,4 +259,50 @@ class SpecialtyServiceImplUnitTests {
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
     }
+
+    // --- Suggest Tests ---
+
+    @Test
+    void Suggest_WithMatchingText_ShouldReturnEntriesWithVisitCounts_HappyPath() {
+        // ARRANGE
+        when(catalogueSuggestions.suggest(Catalogue.SPECIALTIES, "car", 5))
+                .thenReturn(List.of(new Entry(1L, "Cardiology", 42L)));
+
+        // ACT
+        List<SuggestionViewDTO> result = specialtyService.suggest("car", 5);
+
+        // ASSERT
+        assertEquals(1, result.size());
+        assertEquals("Cardiology", result.get(0).getName());
+        assertEquals(42L, result.get(0).getVisitCount());
+        verifyNoInteractions(specialtyRepository);
+    }
+
+    // --- Collection Version Tests ---
+
+    @Test
+    void GetCollectionVersion_WhenCalled_ShouldUseLatestModificationTime_HappyPath() {
+        // ARRANGE
+        LocalDateTime latest = LocalDateTime.of(2024, 5, 1, 10, 0);
+        when(specialtyRepository.findAllVersions()).thenReturn(List.of(
+                new RowVersionDTO(1L, 1L, latest.minusDays(1)), new RowVersionDTO(2L, 3L, latest)));
+
+        // ACT & ASSERT
+        assertEquals(latest, specialtyService.getCollectionVersion().getLastModified());
+    }
+
+    @Test
+    void GetCollectionVersion_WhenVersionsAreSwapped_ShouldChangeFingerprint_EdgeCase() {
+        // ARRANGE
+        when(specialtyRepository.findAllVersions())
+                .thenReturn(List.of(new RowVersionDTO(1L, 2L, null), new RowVersionDTO(2L, 1L, null)))
+                .thenReturn(List.of(new RowVersionDTO(1L, 1L, null), new RowVersionDTO(2L, 2L, null)));
+
+        // ACT
+        String before = specialtyService.getCollectionVersion().getFingerprint();
+        String after = specialtyService.getCollectionVersion().getFingerprint();
+
+        // ASSERT
+        assertNotEquals(before, after);
+    }
 }
@@ -2,6 +2,7 @@ package nbu.cscb869.services.services.unittests;
 
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
+import nbu.cscb869.data.models.Medication;
 import nbu.cscb869.data.models.Medicine;
 import nbu.cscb869.data.models.Patient;
 import nbu.cscb869.data.models.Treatment;
@@ -14,6 +15,8 @@ import nbu.cscb869.services.data.dtos.TreatmentCreateDTO;
 import nbu.cscb869.services.data.dtos.TreatmentUpdateDTO;
 import nbu.cscb869.services.data.dtos.TreatmentViewDTO;
 import nbu.cscb869.services.services.TreatmentServiceImpl;
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
+import nbu.cscb869.services.services.utility.VisitVersions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -51,6 +54,12 @@ class TreatmentServiceImplUnitTests {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private VisitVersions visitVersions;
+
+    @Mock
+    private MedicationCatalogue medicationCatalogue;
+
     @InjectMocks
     private TreatmentServiceImpl treatmentService;
 
@@ -65,6 +74,7 @@ class TreatmentServiceImplUnitTests {
         Treatment savedTreatment = new Treatment();
 
         when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+        when(medicationCatalogue.intern("Aspirin")).thenReturn(Medication.builder().name("Aspirin").build());
         when(treatmentRepository.save(any(Treatment.class))).thenReturn(savedTreatment);
         when(modelMapper.map(savedTreatment, TreatmentViewDTO.class)).thenReturn(new TreatmentViewDTO());
 
@@ -81,6 +91,24 @@ class TreatmentServiceImplUnitTests {
         assertEquals("Aspirin", capturedTreatment.getMedicines().get(0).getName());
     }
 
+    @Test
+    void Create_WithValidData_ShouldTouchItsVisit_HappyPath() {
+        // ARRANGE
+        TreatmentCreateDTO createDTO = new TreatmentCreateDTO("Rest", 1L, null);
+        Patient patient = new Patient();
+        patient.setId(7L);
+        Visit visit = new Visit();
+        visit.setPatient(patient);
+        when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+        when(treatmentRepository.save(any(Treatment.class))).thenReturn(new Treatment());
+
+        // ACT
+        treatmentService.create(createDTO);
+
+        // ASSERT
+        verify(visitVersions).touch(visit);
+    }
+
     @Test
     void Create_WithNullMedicinesList_ShouldSucceed_EdgeCase() {
         // ARRANGE
@@ -129,6 +157,7 @@ class TreatmentServiceImplUnitTests {
 
         when(treatmentRepository.findById(10L)).thenReturn(Optional.of(existingTreatment));
         when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+        when(medicationCatalogue.intern("Ibuprofen")).thenReturn(Medication.builder().name("Ibuprofen").build());
         when(treatmentRepository.save(any(Treatment.class))).thenReturn(existingTreatment);
         when(modelMapper.map(existingTreatment, TreatmentViewDTO.class)).thenReturn(new TreatmentViewDTO());
 
@@ -145,6 +174,33 @@ class TreatmentServiceImplUnitTests {
         assertEquals("Ibuprofen", capturedTreatment.getMedicines().get(0).getName());
     }
 
+    @Test
+    void Update_WhenMovedToAnotherPatientsVisit_ShouldTouchBothVisits_EdgeCase() {
+        // ARRANGE
+        TreatmentUpdateDTO updateDTO = new TreatmentUpdateDTO(10L, "Moved", 2L, null);
+        Patient previousPatient = new Patient();
+        previousPatient.setId(7L);
+        Visit previousVisit = new Visit();
+        previousVisit.setPatient(previousPatient);
+        Treatment existingTreatment = new Treatment();
+        existingTreatment.setVisit(previousVisit);
+        existingTreatment.setMedicines(new ArrayList<>());
+        Patient patient = new Patient();
+        patient.setId(8L);
+        Visit visit = new Visit();
+        visit.setPatient(patient);
+
+        when(treatmentRepository.findById(10L)).thenReturn(Optional.of(existingTreatment));
+        when(visitRepository.findById(2L)).thenReturn(Optional.of(visit));
+        when(treatmentRepository.save(existingTreatment)).thenReturn(existingTreatment);
+
+        // ACT
+        treatmentService.update(updateDTO);
+
+        // ASSERT
+        verify(visitVersions).touch(previousVisit, visit);
+    }
+
     @Test
     void Update_WithNullMedicinesList_ShouldClearExistingMedicines_EdgeCase() {
         // ARRANGE
@@ -202,14 +258,20 @@ class TreatmentServiceImplUnitTests {
     @Test
     void Delete_WithExistingId_ShouldSucceed_HappyPath() {
         // ARRANGE
-        when(treatmentRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(treatmentRepository).deleteById(1L);
+        Patient patient = new Patient();
+        patient.setId(7L);
+        Visit visit = new Visit();
+        visit.setPatient(patient);
+        Treatment treatment = new Treatment();
+        treatment.setVisit(visit);
+        when(treatmentRepository.findById(1L)).thenReturn(Optional.of(treatment));
 
         // ACT
         treatmentService.delete(1L);
 
         // ASSERT
-        verify(treatmentRepository).deleteById(1L);
+        verify(treatmentRepository).delete(treatment);
+        verify(visitVersions).touch(visit);
     }
 
     @Test
@@ -220,7 +282,7 @@ class TreatmentServiceImplUnitTests {
     @Test
     void Delete_WithNonExistentId_ShouldThrowEntityNotFoundException_ErrorCase() {
         // ARRANGE
-        when(treatmentRepository.existsById(99L)).thenReturn(false);
+        when(treatmentRepository.findById(99L)).thenReturn(Optional.empty());
 
         // ACT & ASSERT
         assertThrows(EntityNotFoundException.class, () -> treatmentService.delete(99L));
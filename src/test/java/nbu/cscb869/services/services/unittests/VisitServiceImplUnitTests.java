@@ -1,9 +1,14 @@
 package nbu.cscb869.services.services.unittests;
 
+import nbu.cscb869.common.exceptions.EditConflictException;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
 import nbu.cscb869.common.exceptions.InvalidInputException;
 import nbu.cscb869.common.exceptions.PatientInsuranceException;
+import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
+import nbu.cscb869.data.dto.MonthSickLeaveCountDTO;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
+import nbu.cscb869.data.dto.RowVersionDTO;
 import nbu.cscb869.data.models.*;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.data.repositories.DiagnosisRepository;
@@ -11,7 +16,23 @@ import nbu.cscb869.data.repositories.DoctorRepository;
 import nbu.cscb869.data.repositories.PatientRepository;
 import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.services.data.dtos.*;
+import nbu.cscb869.services.data.events.VisitCancelled;
+import nbu.cscb869.services.data.events.VisitDeleted;
+import nbu.cscb869.services.data.events.VisitDocumented;
+import nbu.cscb869.services.data.events.VisitRescheduled;
+import nbu.cscb869.services.data.events.VisitScheduled;
 import nbu.cscb869.services.services.VisitServiceImpl;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import nbu.cscb869.services.services.utility.PatientHistoryCache;
+import nbu.cscb869.services.services.utility.PatientHistoryCache.PatientTimeline;
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
+import nbu.cscb869.services.services.utility.PartitionedReports;
+import nbu.cscb869.services.services.utility.PartitionedReports.DateRange;
+import nbu.cscb869.services.services.utility.PartitionedReports.RangeSource;
+import nbu.cscb869.services.services.utility.RankedCounts.Ranked;
+import nbu.cscb869.services.services.utility.VisitEditMerger;
+import nbu.cscb869.services.services.utility.VisitEditMerger.Field;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -24,6 +45,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -32,8 +54,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -53,6 +77,18 @@ class VisitServiceImplUnitTests {
     private DiagnosisRepository diagnosisRepository;
     @Mock
     private ModelMapper modelMapper;
+    @Mock
+    private PatientHistoryCache patientHistoryCache;
+    @Mock
+    private DomainEventBus domainEventBus;
+    @Mock
+    private VisitEditMerger visitEditMerger;
+    @Mock
+    private MedicationCatalogue medicationCatalogue;
+    @Mock
+    private PartitionedReports partitionedReports;
+    @Mock
+    private FrequencyRankings frequencyRankings;
 
     @InjectMocks
     private VisitServiceImpl visitService;
@@ -70,6 +106,34 @@ class VisitServiceImplUnitTests {
         return patient;
     }
 
+    private Doctor setupDoctor(Long id) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        return doctor;
+    }
+
+    private Visit setupScheduledVisit(Patient patient, Doctor doctor) {
+        Visit visit = new Visit();
+        visit.setId(1L);
+        visit.setPatient(patient);
+        visit.setDoctor(doctor);
+        visit.setVisitDate(LocalDate.now());
+        visit.setVisitTime(LocalTime.of(10, 0));
+        visit.setStatus(VisitStatus.SCHEDULED);
+        return visit;
+    }
+
+    private VisitUpdateDTO setupUpdate(Visit visit, Long doctorId, VisitStatus status) {
+        VisitUpdateDTO dto = new VisitUpdateDTO();
+        dto.setId(visit.getId());
+        dto.setPatientId(visit.getPatient().getId());
+        dto.setDoctorId(doctorId);
+        dto.setVisitDate(visit.getVisitDate());
+        dto.setVisitTime(visit.getVisitTime());
+        dto.setStatus(status);
+        return dto;
+    }
+
     @Nested
     @DisplayName("Create and Schedule Tests")
     class CreateAndScheduleTests {
@@ -115,6 +179,7 @@ class VisitServiceImplUnitTests {
             ArgumentCaptor<Visit> visitCaptor = ArgumentCaptor.forClass(Visit.class);
             verify(visitRepository).save(visitCaptor.capture());
             assertEquals(VisitStatus.SCHEDULED, visitCaptor.getValue().getStatus());
+            verify(domainEventBus).publish(any(VisitScheduled.class));
         }
 
         @Test
@@ -181,6 +246,212 @@ class VisitServiceImplUnitTests {
             verify(visitRepository).save(any(Visit.class));
         }
 
+        @Test
+        void update_WhenMovedToOtherPatient_ShouldMoveVisitBetweenHistories_EdgeCase() {
+            VisitUpdateDTO dto = new VisitUpdateDTO();
+            dto.setId(1L);
+            dto.setPatientId(1L);
+            dto.setDoctorId(2L);
+            dto.setVisitDate(LocalDate.now());
+            dto.setVisitTime(LocalTime.of(10, 0));
+            Patient previousPatient = new Patient();
+            previousPatient.setId(9L);
+            Visit visit = new Visit();
+            visit.setId(1L);
+            visit.setPatient(previousPatient);
+            VisitViewDTO view = new VisitViewDTO();
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(setupPatient(true)));
+            when(doctorRepository.findById(2L)).thenReturn(Optional.of(new Doctor()));
+            when(visitRepository.save(visit)).thenReturn(visit);
+            when(modelMapper.map(visit, VisitViewDTO.class)).thenReturn(view);
+
+            visitService.update(dto);
+
+            verify(patientHistoryCache).removeVisit(9L, 1L);
+            verify(patientHistoryCache).upsertVisit(1L, view);
+        }
+
+        @Test
+        void update_WhenOthersChangedFieldsSinceBaseVersion_ShouldKeepTheirValues_EdgeCase() {
+            VisitUpdateDTO dto = new VisitUpdateDTO();
+            dto.setId(1L);
+            dto.setPatientId(1L);
+            dto.setDoctorId(2L);
+            dto.setVisitDate(LocalDate.now());
+            dto.setVisitTime(LocalTime.of(10, 0));
+            dto.setNotes("Stale notes");
+            dto.setStatus(VisitStatus.COMPLETED);
+            dto.setVersion(3L);
+            Visit visit = new Visit();
+            visit.setId(1L);
+            visit.setVersion(4L);
+            visit.setNotes("Notes written meanwhile");
+            visit.setStatus(VisitStatus.SCHEDULED);
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(visitEditMerger.resolve(eq(visit), eq(3L), any())).thenReturn(Set.of(Field.NOTES));
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(setupPatient(true)));
+            when(doctorRepository.findById(2L)).thenReturn(Optional.of(new Doctor()));
+            when(visitRepository.save(visit)).thenReturn(visit);
+
+            visitService.update(dto);
+
+            assertEquals("Notes written meanwhile", visit.getNotes());
+            assertEquals(VisitStatus.COMPLETED, visit.getStatus());
+            verify(visitEditMerger).recordSuperseded(visit);
+        }
+
+        @Test
+        void update_WhenGivenCancelledStatus_ShouldPublishVisitCancelled_HappyPath() {
+            Patient patient = setupPatient(true);
+            Doctor doctor = setupDoctor(2L);
+            Visit visit = setupScheduledVisit(patient, doctor);
+            VisitUpdateDTO dto = setupUpdate(visit, 2L, VisitStatus.CANCELLED_BY_DOCTOR);
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+            when(doctorRepository.findById(2L)).thenReturn(Optional.of(doctor));
+            when(visitRepository.save(visit)).thenReturn(visit);
+
+            visitService.update(dto);
+
+            verify(domainEventBus).publish(argThat(event -> event instanceof VisitCancelled cancelled
+                    && cancelled.visitId().equals(1L) && cancelled.doctorId().equals(2L)
+                    && cancelled.status() == VisitStatus.CANCELLED_BY_DOCTOR));
+            verify(domainEventBus, never()).publish(any(VisitRescheduled.class));
+        }
+
+        @Test
+        void update_WhenAlreadyCancelled_ShouldNotPublishVisitCancelledAgain_EdgeCase() {
+            Patient patient = setupPatient(true);
+            Doctor doctor = setupDoctor(2L);
+            Visit visit = setupScheduledVisit(patient, doctor);
+            visit.setStatus(VisitStatus.CANCELLED_BY_PATIENT);
+            VisitUpdateDTO dto = setupUpdate(visit, 2L, VisitStatus.NO_SHOW);
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+            when(doctorRepository.findById(2L)).thenReturn(Optional.of(doctor));
+            when(visitRepository.save(visit)).thenReturn(visit);
+
+            visitService.update(dto);
+
+            verify(domainEventBus, never()).publish(any());
+        }
+
+        @Test
+        void update_WhenReassignedToOtherDoctor_ShouldPublishVisitRescheduledNamingBothDoctors_HappyPath() {
+            Patient patient = setupPatient(true);
+            Visit visit = setupScheduledVisit(patient, setupDoctor(2L));
+            VisitUpdateDTO dto = setupUpdate(visit, 3L, VisitStatus.SCHEDULED);
+            dto.setVisitTime(LocalTime.of(11, 0));
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+            when(doctorRepository.findById(3L)).thenReturn(Optional.of(setupDoctor(3L)));
+            when(visitRepository.save(visit)).thenReturn(visit);
+
+            visitService.update(dto);
+
+            ArgumentCaptor<VisitRescheduled> eventCaptor = ArgumentCaptor.forClass(VisitRescheduled.class);
+            verify(domainEventBus).publish(eventCaptor.capture());
+            VisitRescheduled event = eventCaptor.getValue();
+            assertEquals(1L, event.visitId());
+            assertEquals(2L, event.previousDoctorId());
+            assertEquals(3L, event.doctorId());
+            assertEquals(LocalTime.of(11, 0), event.visitTime());
+        }
+
+        @Test
+        void update_WithSameDoctorDateAndTime_ShouldNotPublishVisitRescheduled_EdgeCase() {
+            Patient patient = setupPatient(true);
+            Doctor doctor = setupDoctor(2L);
+            Visit visit = setupScheduledVisit(patient, doctor);
+            VisitUpdateDTO dto = setupUpdate(visit, 2L, VisitStatus.SCHEDULED);
+            dto.setNotes("Bring previous results.");
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+            when(doctorRepository.findById(2L)).thenReturn(Optional.of(doctor));
+            when(visitRepository.save(visit)).thenReturn(visit);
+
+            visitService.update(dto);
+
+            verify(domainEventBus, never()).publish(any());
+        }
+
+        @Test
+        void update_WhenOnlyTreatmentChanges_ShouldTouchVisit_EdgeCase() {
+            Patient patient = setupPatient(true);
+            Doctor doctor = setupDoctor(2L);
+            Visit visit = setupScheduledVisit(patient, doctor);
+            Treatment treatment = new Treatment();
+            treatment.setDescription("Rest");
+            treatment.setVisit(visit);
+            visit.setTreatment(treatment);
+            VisitUpdateDTO dto = setupUpdate(visit, 2L, VisitStatus.SCHEDULED);
+            TreatmentUpdateDTO treatmentDto = new TreatmentUpdateDTO();
+            treatmentDto.setDescription("Rest and fluids");
+            dto.setTreatment(treatmentDto);
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+            when(doctorRepository.findById(2L)).thenReturn(Optional.of(doctor));
+            when(visitRepository.save(visit)).thenReturn(visit);
+
+            visitService.update(dto);
+
+            assertEquals("Rest and fluids", visit.getTreatment().getDescription());
+            assertNotNull(visit.getModifiedOn());
+        }
+
+        @Test
+        void update_WithUnchangedTreatment_ShouldNotTouchVisit_EdgeCase() {
+            Patient patient = setupPatient(true);
+            Doctor doctor = setupDoctor(2L);
+            Visit visit = setupScheduledVisit(patient, doctor);
+            Treatment treatment = new Treatment();
+            treatment.setDescription("Rest");
+            treatment.setVisit(visit);
+            visit.setTreatment(treatment);
+            VisitUpdateDTO dto = setupUpdate(visit, 2L, VisitStatus.SCHEDULED);
+            TreatmentUpdateDTO treatmentDto = new TreatmentUpdateDTO();
+            treatmentDto.setDescription("Rest");
+            dto.setTreatment(treatmentDto);
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+            when(doctorRepository.findById(2L)).thenReturn(Optional.of(doctor));
+            when(visitRepository.save(visit)).thenReturn(visit);
+
+            visitService.update(dto);
+
+            assertNull(visit.getModifiedOn());
+        }
+
+        @Test
+        void documentVisit_WhenEditConflicts_ShouldNotChangeVisit_ErrorCase() {
+            VisitDocumentationDTO dto = new VisitDocumentationDTO();
+            dto.setNotes("Mine");
+            dto.setVersion(3L);
+            Visit visit = new Visit();
+            visit.setId(1L);
+            visit.setVersion(4L);
+            visit.setNotes("Theirs");
+            visit.setStatus(VisitStatus.SCHEDULED);
+
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+            when(visitEditMerger.resolve(eq(visit), eq(3L), any()))
+                    .thenThrow(new EditConflictException("conflict", 4L, List.of()));
+
+            assertThrows(EditConflictException.class, () -> visitService.documentVisit(1L, dto));
+            assertEquals("Theirs", visit.getNotes());
+            verify(visitEditMerger, never()).recordSuperseded(any());
+            verify(visitRepository, never()).save(any());
+        }
+
         @Test
         void documentVisit_WithScheduledVisit_ShouldSucceed_HappyPath() {
             VisitDocumentationDTO dto = new VisitDocumentationDTO();
@@ -188,6 +459,8 @@ class VisitServiceImplUnitTests {
             dto.setNotes("Patient is recovering well.");
 
             Visit visit = new Visit();
+            visit.setPatient(setupPatient(true));
+            visit.setDoctor(new Doctor());
             visit.setStatus(VisitStatus.SCHEDULED); // Correct initial state
 
             when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
@@ -200,6 +473,7 @@ class VisitServiceImplUnitTests {
             verify(visitRepository).save(visitCaptor.capture());
             assertEquals(VisitStatus.COMPLETED, visitCaptor.getValue().getStatus());
             assertEquals("Patient is recovering well.", visitCaptor.getValue().getNotes());
+            verify(domainEventBus).publish(any(VisitDocumented.class));
         }
 
         @Test
@@ -232,9 +506,18 @@ class VisitServiceImplUnitTests {
     class DeleteAndCancelTests {
         @Test
         void delete_WithExistingId_ShouldSucceed_HappyPath() {
-            when(visitRepository.existsById(1L)).thenReturn(true);
+            Patient patient = new Patient();
+            patient.setId(5L);
+            Visit visit = setupScheduledVisit(patient, setupDoctor(2L));
+            when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+
             visitService.delete(1L);
-            verify(visitRepository).deleteById(1L);
+
+            verify(visitRepository).delete(visit);
+            verify(patientHistoryCache).removeVisit(5L, 1L);
+            ArgumentCaptor<VisitDeleted> eventCaptor = ArgumentCaptor.forClass(VisitDeleted.class);
+            verify(domainEventBus).publish(eventCaptor.capture());
+            assertEquals(new VisitDeleted(1L, 5L, 2L, eventCaptor.getValue().occurredAt()), eventCaptor.getValue());
         }
 
         @Test
@@ -244,6 +527,7 @@ class VisitServiceImplUnitTests {
             );
             Visit visit = new Visit();
             visit.setPatient(setupPatient(true));
+            visit.setDoctor(new Doctor());
             visit.setStatus(VisitStatus.SCHEDULED);
 
             when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
@@ -253,6 +537,8 @@ class VisitServiceImplUnitTests {
             ArgumentCaptor<Visit> visitCaptor = ArgumentCaptor.forClass(Visit.class);
             verify(visitRepository).save(visitCaptor.capture());
             assertEquals(VisitStatus.CANCELLED_BY_PATIENT, visitCaptor.getValue().getStatus());
+            verify(domainEventBus).publish(argThat(event -> event instanceof VisitCancelled cancelled
+                    && cancelled.status() == VisitStatus.CANCELLED_BY_PATIENT));
         }
 
         @Test
@@ -267,12 +553,14 @@ class VisitServiceImplUnitTests {
             when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
 
             assertThrows(InvalidInputException.class, () -> visitService.cancelVisit(1L));
+            verifyNoInteractions(domainEventBus);
         }
 
         @Test
         void delete_WithNonExistentId_ShouldThrowEntityNotFoundException_ErrorCase() {
-            when(visitRepository.existsById(99L)).thenReturn(false);
+            when(visitRepository.findById(99L)).thenReturn(Optional.empty());
             assertThrows(EntityNotFoundException.class, () -> visitService.delete(99L));
+            verifyNoInteractions(patientHistoryCache, domainEventBus);
         }
     }
 
@@ -305,6 +593,53 @@ class VisitServiceImplUnitTests {
 
             assertThrows(AccessDeniedException.class, () -> visitService.getById(1L));
         }
+
+        @Test
+        void getVersion_AsPatientOwner_ShouldReturnVersionWithoutLoadingVisit_HappyPath() {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("patient-owner-id", "pass", List.of(new SimpleGrantedAuthority("ROLE_PATIENT")))
+            );
+            ResourceVersionDTO version = new ResourceVersionDTO(1L, 3L, "7:2;3:1;-;-;-;-", null, "patient-owner-id");
+            List<RowVersionDTO> specialties = List.of(new RowVersionDTO(4L, 1L, null));
+            List<RowVersionDTO> medicines = List.of(new RowVersionDTO(5L, 1L, null));
+            when(visitRepository.findVersionById(1L)).thenReturn(Optional.of(version));
+            when(visitRepository.findSpecialtyVersions(1L)).thenReturn(specialties);
+            when(visitRepository.findMedicineVersions(1L)).thenReturn(medicines);
+
+            assertEquals(version.embedding(specialties).embedding(medicines).getFingerprint(),
+                    visitService.getVersion(1L).getFingerprint());
+            verify(visitRepository, never()).findByIdWithChildren(any());
+            verifyNoInteractions(modelMapper);
+        }
+
+        @Test
+        void getVersion_WhenMedicineVersionsAreSwapped_ShouldChangeFingerprint_EdgeCase() {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("patient-owner-id", "pass", List.of(new SimpleGrantedAuthority("ROLE_PATIENT")))
+            );
+            when(visitRepository.findVersionById(1L))
+                    .thenReturn(Optional.of(new ResourceVersionDTO(1L, 3L, "7:2;3:1;-;-;9:1;10:1", null, "patient-owner-id")));
+            when(visitRepository.findSpecialtyVersions(1L)).thenReturn(List.of());
+            when(visitRepository.findMedicineVersions(1L))
+                    .thenReturn(List.of(new RowVersionDTO(1L, 2L, null), new RowVersionDTO(2L, 1L, null)))
+                    .thenReturn(List.of(new RowVersionDTO(1L, 1L, null), new RowVersionDTO(2L, 2L, null)));
+
+            String before = visitService.getVersion(1L).getFingerprint();
+            String after = visitService.getVersion(1L).getFingerprint();
+
+            assertNotEquals(before, after);
+        }
+
+        @Test
+        void getVersion_AsOtherPatient_ShouldThrowAccessDeniedException_ErrorCase() {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("other-patient-id", "pass", List.of(new SimpleGrantedAuthority("ROLE_PATIENT")))
+            );
+            when(visitRepository.findVersionById(1L))
+                    .thenReturn(Optional.of(new ResourceVersionDTO(1L, 3L, "7:2;3:1;-;-;-;-", null, "patient-owner-id")));
+
+            assertThrows(AccessDeniedException.class, () -> visitService.getVersion(1L));
+        }
     }
 
     @Nested
@@ -318,11 +653,78 @@ class VisitServiceImplUnitTests {
             Patient patient = setupPatient(true);
 
             when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
-            when(visitRepository.findByPatient(any(), any())).thenReturn(Page.empty());
+            when(visitRepository.findByPatientIdOrderByVisitDateDescVisitTimeDescIdDesc(1L)).thenReturn(List.of());
 
             assertDoesNotThrow(() -> visitService.getVisitsByPatient(1L, 0, 10));
         }
 
+        @Test
+        void getVisitsByPatient_WhenNotCached_ShouldLoadWholeHistoryAndCacheIt_HappyPath() {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("doctor-id", "pass", List.of(new SimpleGrantedAuthority("ROLE_DOCTOR")))
+            );
+            Patient patient = setupPatient(true);
+            Visit older = new Visit();
+            older.setId(1L);
+            Visit newer = new Visit();
+            newer.setId(2L);
+            VisitViewDTO olderView = new VisitViewDTO();
+            olderView.setId(1L);
+            VisitViewDTO newerView = new VisitViewDTO();
+            newerView.setId(2L);
+
+            when(patientHistoryCache.currentSequence()).thenReturn(7L);
+            when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+            when(visitRepository.findByPatientIdOrderByVisitDateDescVisitTimeDescIdDesc(1L)).thenReturn(List.of(newer, older));
+            when(modelMapper.map(newer, VisitViewDTO.class)).thenReturn(newerView);
+            when(modelMapper.map(older, VisitViewDTO.class)).thenReturn(olderView);
+
+            Page<VisitViewDTO> result = visitService.getVisitsByPatient(1L, 1, 1);
+
+            assertEquals(2, result.getTotalElements());
+            assertEquals(List.of(olderView), result.getContent());
+            verify(visitRepository).fetchTreatmentMedicinesByPatientId(1L);
+            verify(visitRepository).fetchDoctorSpecialtiesByPatientId(1L);
+            verify(patientHistoryCache).put(1L, new PatientTimeline("patient-owner-id", List.of(newerView, olderView)), 7L);
+        }
+
+        @Test
+        void getVisitsByPatient_WhenCached_ShouldNotQueryDatabase_HappyPath() {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("patient-owner-id", "pass", List.of(new SimpleGrantedAuthority("ROLE_PATIENT")))
+            );
+            VisitViewDTO visit = new VisitViewDTO();
+            when(patientHistoryCache.get(1L)).thenReturn(Optional.of(new PatientTimeline("patient-owner-id", List.of(visit))));
+
+            Page<VisitViewDTO> result = visitService.getVisitsByPatient(1L, 0, 10);
+
+            assertEquals(List.of(visit), result.getContent());
+            verifyNoInteractions(visitRepository, patientRepository, modelMapper);
+        }
+
+        @Test
+        void getVisitsByPatient_WhenCachedForOtherPatient_ShouldThrowAccessDeniedException_ErrorCase() {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("other-patient-id", "pass", List.of(new SimpleGrantedAuthority("ROLE_PATIENT")))
+            );
+            when(patientHistoryCache.get(1L)).thenReturn(Optional.of(new PatientTimeline("patient-owner-id", List.of())));
+
+            assertThrows(AccessDeniedException.class, () -> visitService.getVisitsByPatient(1L, 0, 10));
+        }
+
+        @Test
+        void getVisitsByPatient_WithPageBeyondHistory_ShouldReturnEmptyPage_EdgeCase() {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken("doctor-id", "pass", List.of(new SimpleGrantedAuthority("ROLE_DOCTOR")))
+            );
+            when(patientHistoryCache.get(1L)).thenReturn(Optional.of(new PatientTimeline("patient-owner-id", List.of(new VisitViewDTO()))));
+
+            Page<VisitViewDTO> result = visitService.getVisitsByPatient(1L, 3, 10);
+
+            assertTrue(result.getContent().isEmpty());
+            assertEquals(1, result.getTotalElements());
+        }
+
         @Test
         void getVisitsByPatient_AsOtherPatient_ShouldThrowAccessDeniedException_ErrorCase() {
             SecurityContextHolder.getContext().setAuthentication(
@@ -342,6 +744,56 @@ class VisitServiceImplUnitTests {
             assertThrows(InvalidInputException.class, () -> visitService.getVisitsByDateRange(start, end, 0, 10));
         }
 
+        @Test
+        @SuppressWarnings("unchecked")
+        void getVisitsByDateRange_WithValidRange_ShouldReadPartitionsOfAllDoctors_HappyPath() {
+            LocalDate start = LocalDate.of(2023, 1, 1);
+            LocalDate end = LocalDate.of(2024, 12, 31);
+            DateRange range = new DateRange(start, end);
+            Visit visit = new Visit();
+            VisitViewDTO dto = new VisitViewDTO();
+            ArgumentCaptor<RangeSource<VisitViewDTO>> source = ArgumentCaptor.forClass(RangeSource.class);
+            when(partitionedReports.page(eq(start), eq(end), eq(PageRequest.of(1, 10)), source.capture()))
+                    .thenReturn(new PageImpl<>(List.of(dto), PageRequest.of(1, 10), 11));
+            when(visitRepository.countInRange(null, start, end)).thenReturn(11L);
+            when(visitRepository.findInRange(null, start, end, 10, 1)).thenReturn(List.of(visit));
+            when(modelMapper.map(visit, VisitViewDTO.class)).thenReturn(dto);
+
+            Page<VisitViewDTO> result = visitService.getVisitsByDateRange(start, end, 1, 10);
+
+            assertEquals(List.of(dto), result.getContent());
+            assertEquals(11, result.getTotalElements());
+            assertEquals(11L, source.getValue().count(range));
+            assertEquals(List.of(dto), source.getValue().fetch(range, 10, 1));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void getVisitsByDoctorAndDateRange_WithValidData_ShouldReadPartitionsOfDoctor_HappyPath() {
+            LocalDate start = LocalDate.of(2024, 1, 1);
+            LocalDate end = LocalDate.of(2024, 6, 30);
+            DateRange range = new DateRange(start, end);
+            when(doctorRepository.findById(1L)).thenReturn(Optional.of(new Doctor()));
+            ArgumentCaptor<RangeSource<VisitViewDTO>> source = ArgumentCaptor.forClass(RangeSource.class);
+            when(partitionedReports.page(eq(start), eq(end), eq(PageRequest.of(0, 10)), source.capture()))
+                    .thenReturn(new PageImpl<>(List.of()));
+            when(visitRepository.countInRange(1L, start, end)).thenReturn(0L);
+
+            visitService.getVisitsByDoctorAndDateRange(1L, start, end, 0, 10);
+
+            assertEquals(0L, source.getValue().count(range));
+            verify(visitRepository).countInRange(1L, start, end);
+        }
+
+        @Test
+        void getVisitsByDoctorAndDateRange_WithUnknownDoctor_ShouldThrowEntityNotFoundException_ErrorCase() {
+            when(doctorRepository.findById(1L)).thenReturn(Optional.empty());
+
+            assertThrows(EntityNotFoundException.class,
+                    () -> visitService.getVisitsByDoctorAndDateRange(1L, LocalDate.now(), LocalDate.now(), 0, 10));
+            verifyNoInteractions(partitionedReports);
+        }
+
         @Test
         void getVisitsByDoctorAndStatusAndDateRange_WithValidData_ShouldCallRepository_HappyPath() {
             Long doctorId = 1L;
@@ -371,6 +823,59 @@ class VisitServiceImplUnitTests {
             visitService.getMostFrequentSickLeaveMonth();
             verify(visitRepository, times(1)).findMostFrequentSickLeaveMonth();
         }
+
+        @Test
+        void getMostFrequentDiagnoses_WithLimit_ShouldNameRankedDiagnosesInOrder_HappyPath() {
+            Diagnosis flu = Diagnosis.builder().name("Flu").build();
+            flu.setId(2L);
+            Diagnosis cold = Diagnosis.builder().name("Cold").build();
+            cold.setId(1L);
+            when(frequencyRankings.topDiagnoses(2)).thenReturn(Optional.of(List.of(new Ranked<>(2L, 9L), new Ranked<>(1L, 4L))));
+            when(diagnosisRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(cold, flu));
+
+            List<DiagnosisVisitCountDTO> result = visitService.getMostFrequentDiagnoses(null, 2);
+
+            assertEquals(List.of("Flu", "Cold"), result.stream().map(DiagnosisVisitCountDTO::getDiagnosisName).toList());
+            assertEquals(9L, result.get(0).getVisitCount());
+            verify(visitRepository, never()).findMostFrequentDiagnoses();
+        }
+
+        @Test
+        void getMostFrequentDiagnoses_BeforeRankingsAreReady_ShouldRankInDatabase_EdgeCase() {
+            when(frequencyRankings.topDiagnoses(1)).thenReturn(Optional.empty());
+            when(frequencyRankings.limitOf(1)).thenReturn(1);
+            when(visitRepository.findMostFrequentDiagnoses()).thenReturn(List.of(
+                    new DiagnosisVisitCountDTO(2L, "Flu", 9L), new DiagnosisVisitCountDTO(1L, "Cold", 4L)));
+
+            List<DiagnosisVisitCountDTO> result = visitService.getMostFrequentDiagnoses(null, 1);
+
+            assertEquals(List.of("Flu"), result.stream().map(DiagnosisVisitCountDTO::getDiagnosisName).toList());
+            verifyNoInteractions(diagnosisRepository);
+        }
+
+        @Test
+        void getMostFrequentDiagnoses_WithMonthNoLongerRanked_ShouldRankInDatabase_EdgeCase() {
+            YearMonth month = YearMonth.of(2020, 1);
+            when(frequencyRankings.topDiagnoses(month, null)).thenReturn(Optional.empty());
+            when(frequencyRankings.limitOf(null)).thenReturn(100);
+
+            visitService.getMostFrequentDiagnoses(month, null);
+
+            verify(visitRepository).findMostFrequentDiagnosesBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 31),
+                    PageRequest.of(0, 100));
+            verifyNoInteractions(diagnosisRepository);
+        }
+
+        @Test
+        void getMostFrequentSickLeaveMonth_WithLimit_ShouldMapRankedMonths_HappyPath() {
+            when(frequencyRankings.topSickLeaveMonths(1)).thenReturn(Optional.of(List.of(new Ranked<>(12, 30L))));
+
+            List<MonthSickLeaveCountDTO> result = visitService.getMostFrequentSickLeaveMonth(1);
+
+            assertEquals(12, result.get(0).getMonth());
+            assertEquals(30L, result.get(0).getSickLeaveCount());
+            verifyNoInteractions(visitRepository);
+        }
     }
 
     @Nested
@@ -0,0 +1,226 @@
+package nbu.cscb869.services.services.utility.integrationtests;
+
+import com.cloudinary.Cloudinary;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.enums.ImageStatus;
+import nbu.cscb869.data.repositories.DoctorRepository;
+import nbu.cscb869.data.repositories.ImageDeletionRepository;
+import nbu.cscb869.data.utils.TestDataUtils;
+import nbu.cscb869.security.WithMockKeycloakUser;
+import nbu.cscb869.services.data.dtos.DoctorCreateDTO;
+import nbu.cscb869.services.data.dtos.DoctorUpdateDTO;
+import nbu.cscb869.services.data.dtos.DoctorViewDTO;
+import nbu.cscb869.services.services.contracts.DoctorService;
+import nbu.cscb869.services.services.utility.DoctorImagePipeline;
+import nbu.cscb869.services.services.utility.ImageDeletionQueue;
+import nbu.cscb869.services.services.utility.OrphanImageReconciler;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the image pipeline end to end against the local image store configured for the test profile. Uploads run
+ * synchronously right after the commit, so their results can be asserted without waiting; the deletion queue is
+ * drained explicitly.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(DoctorImagePipelineIntegrationTests.TestConfig.class)
+class DoctorImagePipelineIntegrationTests {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ClientRegistrationRepository clientRegistrationRepository() {
+            ClientRegistrationRepository repo = Mockito.mock(ClientRegistrationRepository.class);
+            ClientRegistration registration = Mockito.mock(ClientRegistration.class);
+            ClientRegistration.ProviderDetails providerDetails = Mockito.mock(ClientRegistration.ProviderDetails.class);
+
+            when(providerDetails.getIssuerUri()).thenReturn("http://localhost:8081/realms/test-realm");
+            when(registration.getProviderDetails()).thenReturn(providerDetails);
+            when(registration.getClientId()).thenReturn("test-client");
+            when(registration.getClientSecret()).thenReturn("test-secret");
+            when(repo.findByRegistrationId("keycloak")).thenReturn(registration);
+
+            return repo;
+        }
+
+        @Bean
+        @Primary
+        public JwtDecoder jwtDecoder() {
+            return Mockito.mock(JwtDecoder.class);
+        }
+
+        @Bean(name = "imageUploadExecutor")
+        public TaskExecutor imageUploadExecutor() {
+            return new SyncTaskExecutor();
+        }
+    }
+
+    @MockBean
+    private Keycloak keycloak;
+
+    @MockBean
+    private Cloudinary cloudinary;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private DoctorImagePipeline doctorImagePipeline;
+
+    @Autowired
+    private ImageDeletionQueue imageDeletionQueue;
+
+    @Autowired
+    private ImageDeletionRepository imageDeletionRepository;
+
+    @Autowired
+    private OrphanImageReconciler orphanImageReconciler;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @BeforeEach
+    void setUp() {
+        doctorRepository.deleteAll();
+        imageDeletionRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+        imageDeletionRepository.deleteAll();
+    }
+
+    private static MockMultipartFile image(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return new MockMultipartFile("image", "portrait.png", "image/png", out.toByteArray());
+    }
+
+    private DoctorViewDTO createDoctorWithImage() throws IOException {
+        DoctorCreateDTO createDTO = new DoctorCreateDTO();
+        createDTO.setName("Dr. Image Test");
+        createDTO.setUniqueIdNumber(TestDataUtils.generateUniqueIdNumber());
+        createDTO.setKeycloakId(TestDataUtils.generateKeycloakId());
+        return doctorService.create(createDTO, image(400, 400));
+    }
+
+    @Test
+    @WithMockKeycloakUser(authorities = "ROLE_ADMIN")
+    void create_WithImage_ShouldUploadToLocalStoreAfterCommit_HappyPath() throws IOException {
+        DoctorViewDTO created = createDoctorWithImage();
+
+        Doctor doctor = doctorRepository.findById(created.getId()).orElseThrow();
+        assertEquals(ImageStatus.READY, doctor.getImageStatus());
+        assertNull(doctor.getImageStagingPath());
+        assertTrue(doctor.getImageUrl().startsWith("file:"));
+        assertTrue(Files.exists(Path.of(URI.create(doctor.getImageUrl()))));
+        assertTrue(doctorImagePipeline.findThumbnail(doctor.getId()).isPresent());
+        verifyNoInteractions(cloudinary);
+    }
+
+    @Test
+    @WithMockKeycloakUser(authorities = "ROLE_ADMIN")
+    void update_WithDeleteImage_ShouldRemoveStoredImageAndThumbnail_HappyPath() throws IOException {
+        DoctorViewDTO created = createDoctorWithImage();
+        String imageUrl = doctorRepository.findById(created.getId()).orElseThrow().getImageUrl();
+
+        DoctorUpdateDTO updateDTO = new DoctorUpdateDTO();
+        updateDTO.setId(created.getId());
+        updateDTO.setDeleteImage(true);
+        doctorService.update(updateDTO, null);
+
+        Doctor doctor = doctorRepository.findById(created.getId()).orElseThrow();
+        assertEquals(ImageStatus.NONE, doctor.getImageStatus());
+        assertNull(doctor.getImageUrl());
+        assertEquals(1, imageDeletionRepository.count());
+        assertTrue(Files.exists(Path.of(URI.create(imageUrl))));
+
+        imageDeletionQueue.processQueue();
+
+        assertEquals(0, imageDeletionRepository.count());
+        assertFalse(Files.exists(Path.of(URI.create(imageUrl))));
+        assertTrue(doctorImagePipeline.findThumbnail(doctor.getId()).isEmpty());
+    }
+
+    @Test
+    @WithMockKeycloakUser(authorities = "ROLE_ADMIN")
+    void update_WithNewImage_ShouldReplaceAndDeletePreviousImage_HappyPath() throws IOException {
+        DoctorViewDTO created = createDoctorWithImage();
+        Doctor before = doctorRepository.findById(created.getId()).orElseThrow();
+
+        DoctorUpdateDTO updateDTO = new DoctorUpdateDTO();
+        updateDTO.setId(created.getId());
+        doctorService.update(updateDTO, image(200, 100));
+
+        Doctor after = doctorRepository.findById(created.getId()).orElseThrow();
+        assertEquals(ImageStatus.READY, after.getImageStatus());
+        assertNotEquals(before.getImageUrl(), after.getImageUrl());
+        assertTrue(after.getVersion() > before.getVersion());
+
+        imageDeletionQueue.processQueue();
+
+        assertFalse(Files.exists(Path.of(URI.create(before.getImageUrl()))));
+        assertTrue(Files.exists(Path.of(URI.create(after.getImageUrl()))));
+    }
+
+    @Test
+    @WithMockKeycloakUser(authorities = "ROLE_ADMIN")
+    void reconcile_ShouldDeleteStoredImagesNoDoctorReferences_HappyPath() throws IOException {
+        DoctorViewDTO created = createDoctorWithImage();
+        String referenced = doctorRepository.findById(created.getId()).orElseThrow().getImageUrl();
+        Path source = Files.createTempFile("orphan-", ".png");
+        Path orphan = Path.of(URI.create(imageStore.upload(source)));
+        Path recent = Path.of(URI.create(imageStore.upload(source)));
+        Files.delete(source);
+        FileTime longAgo = FileTime.from(Instant.now().minus(Duration.ofDays(1)));
+        Files.setLastModifiedTime(orphan, longAgo);
+        Files.setLastModifiedTime(Path.of(URI.create(referenced)), longAgo);
+
+        int queued = orphanImageReconciler.reconcile();
+        imageDeletionQueue.processQueue();
+
+        assertTrue(queued >= 1);
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(Path.of(URI.create(referenced))));
+    }
+}
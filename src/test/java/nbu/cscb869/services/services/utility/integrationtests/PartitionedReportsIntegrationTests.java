@@ -0,0 +1,253 @@
+package nbu.cscb869.services.services.utility.integrationtests;
+
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.datasource.WorkloadPoolProperties;
+import nbu.cscb869.config.reports.ReportPartitionProperties;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.Patient;
+import nbu.cscb869.data.models.Visit;
+import nbu.cscb869.data.repositories.DoctorRepository;
+import nbu.cscb869.data.repositories.PatientRepository;
+import nbu.cscb869.data.repositories.VisitRepository;
+import nbu.cscb869.data.utils.TestDataUtils;
+import nbu.cscb869.security.WithMockKeycloakUser;
+import nbu.cscb869.services.data.dtos.VisitViewDTO;
+import nbu.cscb869.services.services.contracts.VisitService;
+import nbu.cscb869.services.services.utility.PartitionedReports;
+import nbu.cscb869.services.services.utility.PartitionedReports.DateRange;
+import nbu.cscb869.services.services.utility.PartitionedReports.RangeSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.keycloak.admin.client.Keycloak;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads date range reports from committed data, as the partitions do: each runs in a transaction of its own on another
+ * thread and would not see the rows of a test transaction. The rows are removed again after every test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(PartitionedReportsIntegrationTests.TestConfig.class)
+class PartitionedReportsIntegrationTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedReportsIntegrationTests.class);
+    private static final LocalDate FIRST_DAY = LocalDate.of(2001, 1, 1);
+    private static final int YEARS = 4;
+    private static final int VISITS_PER_DAY = 20;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public ClientRegistrationRepository clientRegistrationRepository() {
+            return Mockito.mock(ClientRegistrationRepository.class);
+        }
+
+        @Bean
+        @Primary
+        public JwtDecoder jwtDecoder() {
+            return Mockito.mock(JwtDecoder.class);
+        }
+    }
+
+    @MockBean
+    private Keycloak keycloak;
+
+    @Autowired
+    private PartitionedReports partitionedReports;
+    @Autowired
+    private ReportPartitionProperties properties;
+    @Autowired
+    @Qualifier("reportPartitionExecutor")
+    private ThreadPoolTaskExecutor reportPartitionExecutor;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private VisitService visitService;
+    @Autowired
+    private VisitRepository visitRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private WorkloadPoolProperties poolProperties;
+
+    private Doctor doctor;
+    private Patient patient;
+    private LocalDate lastDay;
+    private int visits;
+
+    @BeforeEach
+    void setUp() {
+        doctor = new Doctor();
+        doctor.setKeycloakId(TestDataUtils.generateKeycloakId());
+        doctor.setUniqueIdNumber(TestDataUtils.generateUniqueIdNumber());
+        doctor.setName("Dr. Partition");
+        doctor.setGeneralPractitioner(true);
+        doctor = doctorRepository.save(doctor);
+
+        patient = new Patient();
+        patient.setKeycloakId(TestDataUtils.generateKeycloakId());
+        patient.setEgn(TestDataUtils.generateValidEgn());
+        patient.setName("Partition Patient");
+        patient.setGeneralPractitioner(doctor);
+        patient.setLastInsurancePaymentDate(LocalDate.now());
+        patient = patientRepository.save(patient);
+
+        lastDay = FIRST_DAY.plusYears(YEARS).minusDays(1);
+        List<Object[]> rows = new ArrayList<>();
+        for (LocalDate day = FIRST_DAY; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            for (int i = 0; i < VISITS_PER_DAY; i++) {
+                rows.add(new Object[]{Date.valueOf(day), Time.valueOf(LocalTime.of(8, 0).plusMinutes(20L * i)),
+                        doctor.getId(), patient.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into visits (version, status, visit_date, visit_time, doctor_id, patient_id) "
+                + "values (0, 'COMPLETED', ?, ?, ?, ?)", rows);
+        visits = rows.size();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from visits where patient_id = ?", patient.getId());
+        patientRepository.deleteById(patient.getId());
+        doctorRepository.deleteById(doctor.getId());
+    }
+
+    @Test
+    @WithMockKeycloakUser(authorities = "ROLE_ADMIN")
+    void getVisitsByDateRange_OverSeveralYears_ShouldPageInDateOrder_HappyPath() {
+        int size = 50;
+        int lastPage = (visits - 1) / size;
+
+        Page<VisitViewDTO> first = visitService.getVisitsByDateRange(FIRST_DAY, lastDay, 0, size);
+        Page<VisitViewDTO> last = visitService.getVisitsByDateRange(FIRST_DAY, lastDay, lastPage, size);
+
+        assertEquals(visits, first.getTotalElements());
+        assertEquals(size, first.getContent().size());
+        assertEquals(FIRST_DAY, first.getContent().get(0).getVisitDate());
+        assertEquals(lastDay, last.getContent().get(last.getContent().size() - 1).getVisitDate());
+        assertEquals(visits - lastPage * size, last.getContent().size());
+    }
+
+    @Test
+    @WithMockKeycloakUser(authorities = "ROLE_ADMIN")
+    void getVisitsByDoctorAndDateRange_AcrossPartitionBoundary_ShouldNotSkipOrRepeatRows_EdgeCase() {
+        int size = 30;
+        long boundary = FIRST_DAY.plus(properties.getPartitionLength()).toEpochDay() - FIRST_DAY.toEpochDay();
+        int page = (int) (boundary * VISITS_PER_DAY / size);
+
+        List<VisitViewDTO> content = visitService.getVisitsByDoctorAndDateRange(doctor.getId(), FIRST_DAY, lastDay,
+                page, size).getContent();
+
+        assertEquals(size, content.size());
+        for (int i = 0; i < size; i++) {
+            int row = page * size + i;
+            assertEquals(FIRST_DAY.plusDays(row / VISITS_PER_DAY), content.get(i).getVisitDate());
+            assertEquals(LocalTime.of(8, 0).plusMinutes(20L * (row % VISITS_PER_DAY)), content.get(i).getVisitTime());
+        }
+    }
+
+    @Test
+    void reportPartitionExecutor_ShouldLeaveReportingConnectionFree_EdgeCase() {
+        int connections = poolProperties.forWorkload(Workload.REPORTING).getMaximumPoolSize();
+
+        assertTrue(reportPartitionExecutor.getMaxPoolSize() < connections);
+        assertTrue(reportPartitionExecutor.getMaxPoolSize() <= properties.getParallelism());
+    }
+
+    @Nested
+    @DisplayName("Partitioned Report Benchmark Tests")
+    class PartitionedReportBenchmarkTests {
+        private static final int SIZE = 100;
+        private static final int ROUNDS = 5;
+
+        private record Measurement(List<List<Long>> pages, long nanos) {
+        }
+
+        @Test
+        void page_WithParallelPartitions_ShouldMatchSequentialPartitions_HappyPath() {
+            ThreadPoolTaskExecutor single = new ThreadPoolTaskExecutor();
+            single.setCorePoolSize(1);
+            single.setMaxPoolSize(1);
+            single.setThreadNamePrefix("ReportPartitionSequential-");
+            single.initialize();
+            try {
+                PartitionedReports sequential = new PartitionedReports(properties, single, transactionManager,
+                        new SimpleMeterRegistry());
+                List<Integer> pages = List.of(0, visits / SIZE / 2, (visits - 1) / SIZE);
+
+                measure(sequential, pages);
+                measure(partitionedReports, pages);
+                Measurement one = measure(sequential, pages);
+                Measurement many = measure(partitionedReports, pages);
+
+                logger.info("{} visits over {} years in {} partitions: {} ms with 1 worker, {} ms with {} workers",
+                        visits, YEARS, PartitionedReports.partition(FIRST_DAY, lastDay, properties.getPartitionLength()).size(),
+                        TimeUnit.NANOSECONDS.toMillis(one.nanos()), TimeUnit.NANOSECONDS.toMillis(many.nanos()),
+                        reportPartitionExecutor.getMaxPoolSize());
+                assertEquals(one.pages(), many.pages());
+                assertEquals(SIZE, many.pages().get(1).size());
+            } finally {
+                single.shutdown();
+            }
+        }
+
+        private Measurement measure(PartitionedReports reports, List<Integer> pages) {
+            RangeSource<Long> source = new RangeSource<>() {
+                @Override
+                public long count(DateRange range) {
+                    return visitRepository.countInRange(null, range.from(), range.to());
+                }
+
+                @Override
+                public List<Long> fetch(DateRange range, int offset, int limit) {
+                    return visitRepository.findInRange(null, range.from(), range.to(), offset, limit).stream()
+                            .map(Visit::getId).toList();
+                }
+            };
+            List<List<Long>> content = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                content.clear();
+                for (int page : pages) {
+                    content.add(WorkloadContext.callWithin(Workload.REPORTING,
+                            () -> reports.page(FIRST_DAY, lastDay, PageRequest.of(page, SIZE), source).getContent()));
+                }
+            }
+            return new Measurement(List.copyOf(content), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.analytics.AnalyticsProperties;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.repositories.AnalyticsRepository;
+import nbu.cscb869.data.repositories.PatientReachRepository.Key;
+import nbu.cscb869.services.services.utility.AnalyticsRollup;
+import nbu.cscb869.services.services.utility.PatientReachSketches;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsRollupUnitTests {
+
+    @Mock
+    private AnalyticsRepository analyticsRepository;
+
+    @Mock
+    private PatientReachSketches patientReachSketches;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AnalyticsProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AnalyticsProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        rollup = new AnalyticsRollup(analyticsRepository, patientReachSketches, properties, transactionManager, meterRegistry);
+    }
+
+    @Test
+    void refresh_WithDirtyDays_ShouldRebuildDaysThenTheirMonthsThenClearMarks_HappyPath() {
+        List<LocalDate> days = List.of(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 15));
+        when(analyticsRepository.lockDirtyDays(50)).thenReturn(days);
+
+        rollup.refresh();
+
+        InOrder inOrder = inOrder(analyticsRepository);
+        inOrder.verify(analyticsRepository).lockDirtyDays(50);
+        inOrder.verify(analyticsRepository).rebuildDays(days);
+        inOrder.verify(analyticsRepository).rebuildMonths(Set.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1)));
+        inOrder.verify(analyticsRepository).clearDirtyDays(days);
+        assertEquals(3.0, meterRegistry.get("medical.analytics.refreshed-days").counter().count());
+    }
+
+    @Test
+    void refresh_WithDirtyDays_ShouldRebuildReachOfDoctorsAndDiagnosesBeforeAndAfter_HappyPath() {
+        List<LocalDate> days = List.of(LocalDate.of(2024, 3, 5));
+        Key before = new Key(AnalyticsDimension.DIAGNOSIS, 4L, LocalDate.of(2024, 3, 1));
+        Key after = new Key(AnalyticsDimension.DIAGNOSIS, 5L, LocalDate.of(2024, 3, 1));
+        Key doctor = new Key(AnalyticsDimension.DOCTOR, 7L, LocalDate.of(2024, 3, 1));
+        when(analyticsRepository.lockDirtyDays(50)).thenReturn(days);
+        when(patientReachSketches.keysOf(days)).thenReturn(List.of(before, doctor)).thenReturn(List.of(after, doctor));
+
+        rollup.refresh();
+
+        InOrder inOrder = inOrder(analyticsRepository, patientReachSketches);
+        inOrder.verify(patientReachSketches).keysOf(days);
+        inOrder.verify(analyticsRepository).rebuildDays(days);
+        inOrder.verify(patientReachSketches).keysOf(days);
+        inOrder.verify(patientReachSketches).rebuild(Set.of(before, after, doctor));
+        inOrder.verify(analyticsRepository).clearDirtyDays(days);
+    }
+
+    @Test
+    void refresh_WithFullBatches_ShouldContinueUntilBatchIsShort_HappyPath() {
+        properties.setRefreshBatchSize(2);
+        when(analyticsRepository.lockDirtyDays(2))
+                .thenReturn(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2)))
+                .thenReturn(List.of(LocalDate.of(2024, 1, 3)));
+
+        rollup.refresh();
+
+        verify(analyticsRepository, times(2)).lockDirtyDays(2);
+        verify(analyticsRepository, times(2)).clearDirtyDays(anyCollection());
+    }
+
+    @Test
+    void refresh_WithoutDirtyDays_ShouldRebuildNothing_EdgeCase() {
+        when(analyticsRepository.lockDirtyDays(anyInt())).thenReturn(List.of());
+
+        rollup.refresh();
+
+        verify(analyticsRepository, never()).rebuildDays(any());
+        verify(analyticsRepository, never()).clearDirtyDays(any());
+    }
+
+    @Test
+    void refresh_ShouldReadCommittedDataInItsOwnTransaction_HappyPath() {
+        when(analyticsRepository.lockDirtyDays(anyInt())).thenReturn(List.of());
+
+        rollup.refresh();
+
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getIsolationLevel() == TransactionDefinition.ISOLATION_READ_COMMITTED
+                        && definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+}
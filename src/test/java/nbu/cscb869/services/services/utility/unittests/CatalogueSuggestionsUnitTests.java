@@ -0,0 +1,137 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.suggestions.SuggestionProperties;
+import nbu.cscb869.data.dto.CatalogueNameDTO;
+import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
+import nbu.cscb869.data.dto.SpecialtyVisitCountDTO;
+import nbu.cscb869.data.repositories.DiagnosisRepository;
+import nbu.cscb869.data.repositories.SpecialtyRepository;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions.Catalogue;
+import nbu.cscb869.services.services.utility.SuggestionIndex.Entry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogueSuggestionsUnitTests {
+
+    @Mock
+    private DiagnosisRepository diagnosisRepository;
+
+    @Mock
+    private SpecialtyRepository specialtyRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SuggestionProperties properties;
+    private CatalogueSuggestions suggestions;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new SuggestionProperties();
+        suggestions = new CatalogueSuggestions(diagnosisRepository, specialtyRepository, properties, meterRegistry);
+    }
+
+    private void givenDiagnoses(CatalogueNameDTO... names) {
+        when(diagnosisRepository.findAllNames()).thenReturn(List.of(names));
+    }
+
+    private static List<String> names(List<Entry> entries) {
+        return entries.stream().map(Entry::name).toList();
+    }
+
+    @Nested
+    @DisplayName("Suggest Tests")
+    class SuggestTests {
+        @Test
+        void suggest_WithVisitCounts_ShouldRankMostVisitedFirst_HappyPath() {
+            givenDiagnoses(new CatalogueNameDTO(1L, "Flu"), new CatalogueNameDTO(2L, "Avian flu"));
+            when(diagnosisRepository.findMostFrequentDiagnoses()).thenReturn(List.of(new DiagnosisVisitCountDTO(2L, "Avian flu", 5L)));
+
+            List<Entry> result = suggestions.suggest(Catalogue.DIAGNOSES, "flu", 10);
+
+            assertEquals(List.of("Avian flu", "Flu"), names(result));
+            assertEquals(5L, result.get(0).weight());
+            assertEquals(0L, result.get(1).weight());
+        }
+
+        @Test
+        void suggest_CalledRepeatedly_ShouldLoadCatalogueOnce_HappyPath() {
+            givenDiagnoses(new CatalogueNameDTO(1L, "Flu"));
+
+            suggestions.suggest(Catalogue.DIAGNOSES, "fl", 10);
+            suggestions.suggest(Catalogue.DIAGNOSES, "flu", 10);
+
+            verify(diagnosisRepository, times(1)).findAllNames();
+            verify(diagnosisRepository, times(1)).findMostFrequentDiagnoses();
+            verify(diagnosisRepository, never()).findByNameContainingIgnoreCase(any(), any());
+            assertEquals(2, meterRegistry.get("medical.suggestions.latency").tag("catalogue", "diagnoses").timer().count());
+        }
+
+        @Test
+        void suggest_Specialties_ShouldRankBySpecialtyVisits_HappyPath() {
+            when(specialtyRepository.findAllNames()).thenReturn(List.of(new CatalogueNameDTO(1L, "Cardiology"), new CatalogueNameDTO(2L, "Cardiac surgery")));
+            when(specialtyRepository.findMostFrequentSpecialties()).thenReturn(List.of(new SpecialtyVisitCountDTO(2L, "Cardiac surgery", 3L)));
+
+            assertEquals(List.of("Cardiac surgery", "Cardiology"), names(suggestions.suggest(Catalogue.SPECIALTIES, "card", 10)));
+            verifyNoInteractions(diagnosisRepository);
+        }
+
+        @Test
+        void suggest_WithLimitAboveMaximum_ShouldCapAtMaximum_EdgeCase() {
+            properties.setMaxResults(1);
+            givenDiagnoses(new CatalogueNameDTO(1L, "Flu"), new CatalogueNameDTO(2L, "Avian flu"));
+
+            assertEquals(1, suggestions.suggest(Catalogue.DIAGNOSES, "flu", 50).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Refresh Tests")
+    class RefreshTests {
+        @Test
+        void catalogueChanged_WithoutTransaction_ShouldReindexNamesAndKeepVisitCounts_HappyPath() {
+            givenDiagnoses(new CatalogueNameDTO(1L, "Flu"));
+            when(diagnosisRepository.findMostFrequentDiagnoses()).thenReturn(List.of(new DiagnosisVisitCountDTO(1L, "Flu", 9L)));
+            suggestions.suggest(Catalogue.DIAGNOSES, "flu", 10);
+            givenDiagnoses(new CatalogueNameDTO(1L, "Flu"), new CatalogueNameDTO(2L, "Stomach flu"));
+
+            suggestions.catalogueChanged(Catalogue.DIAGNOSES);
+
+            assertEquals(List.of("Flu", "Stomach flu"), names(suggestions.suggest(Catalogue.DIAGNOSES, "flu", 10)));
+            verify(diagnosisRepository, times(1)).findMostFrequentDiagnoses();
+        }
+
+        @Test
+        void catalogueChanged_BeforeFirstUse_ShouldNotLoad_EdgeCase() {
+            suggestions.catalogueChanged(Catalogue.SPECIALTIES);
+
+            verifyNoInteractions(specialtyRepository);
+        }
+
+        @Test
+        void refresh_ShouldReloadVisitCounts_HappyPath() {
+            givenDiagnoses(new CatalogueNameDTO(1L, "Flu"), new CatalogueNameDTO(2L, "Avian flu"));
+            when(diagnosisRepository.findMostFrequentDiagnoses())
+                    .thenReturn(List.of())
+                    .thenReturn(List.of(new DiagnosisVisitCountDTO(1L, "Flu", 4L)));
+            when(specialtyRepository.findAllNames()).thenReturn(List.of());
+            assertEquals(List.of("Avian flu", "Flu"), names(suggestions.suggest(Catalogue.DIAGNOSES, "flu", 10)));
+
+            suggestions.refresh();
+
+            assertEquals(List.of("Flu", "Avian flu"), names(suggestions.suggest(Catalogue.DIAGNOSES, "flu", 10)));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import nbu.cscb869.services.services.utility.CloudinaryImageStore;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import nbu.cscb869.services.services.utility.contracts.ImageStore.StoredImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Cloudinary store against a fake Admin API served by a local HTTP server.
+ */
+class CloudinaryImageStoreUnitTests {
+
+    private HttpServer server;
+    private final List<RecordedRequest> requests = Collections.synchronizedList(new ArrayList<>());
+    private final List<FakeResponse> responses = Collections.synchronizedList(new ArrayList<>());
+    private CloudinaryImageStore store;
+
+    private record RecordedRequest(String method, String path, String parameters) {
+    }
+
+    private record FakeResponse(int status, String body) {
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        Cloudinary cloudinary = new Cloudinary(ObjectUtils.asMap(
+                "cloud_name", "demo",
+                "api_key", "key",
+                "api_secret", "secret",
+                "upload_prefix", "http://127.0.0.1:" + server.getAddress().getPort()
+        ));
+        store = new CloudinaryImageStore(cloudinary);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String query = exchange.getRequestURI().getRawQuery();
+        String parameters = URLDecoder.decode((query == null ? "" : query) + "&" + body, StandardCharsets.UTF_8);
+        requests.add(new RecordedRequest(exchange.getRequestMethod(), exchange.getRequestURI().getPath(), parameters));
+
+        FakeResponse response = responses.isEmpty() ? new FakeResponse(404, "{}") : responses.remove(0);
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Nested
+    @DisplayName("DeleteAll Tests")
+    class DeleteAllTests {
+        @Test
+        void deleteAll_ShouldDeleteAllPublicIdsInOneCall_HappyPath() throws IOException {
+            responses.add(new FakeResponse(200,
+                    "{\"deleted\":{\"medical_record/doctors/a\":\"deleted\",\"medical_record/doctors/b\":\"not_found\"}}"));
+
+            store.deleteAll(List.of("medical_record/doctors/a", "medical_record/doctors/b"));
+
+            assertEquals(1, requests.size());
+            RecordedRequest request = requests.get(0);
+            assertEquals("/v1_1/demo/resources/image/upload", request.path());
+            assertTrue(request.parameters().contains("public_ids[]=medical_record/doctors/a"));
+            assertTrue(request.parameters().contains("public_ids[]=medical_record/doctors/b"));
+        }
+
+        @Test
+        void deleteAll_WhenRateLimited_ShouldThrowIOException_ErrorCase() {
+            responses.add(new FakeResponse(420, "{\"error\":{\"message\":\"Rate Limit Exceeded\"}}"));
+
+            assertThrows(IOException.class, () -> store.deleteAll(List.of("medical_record/doctors/a")));
+        }
+
+        @Test
+        void deleteAll_WithEmptyBatch_ShouldNotCallApi_EdgeCase() throws IOException {
+            store.deleteAll(List.of());
+
+            assertTrue(requests.isEmpty());
+        }
+
+        @Test
+        void deleteAll_WithBatchOverLimit_ShouldThrowIllegalArgumentException_ErrorCase() {
+            List<String> publicIds = IntStream.rangeClosed(0, ImageStore.MAX_DELETE_BATCH)
+                    .mapToObj(i -> "medical_record/doctors/" + i)
+                    .toList();
+
+            assertThrows(IllegalArgumentException.class, () -> store.deleteAll(publicIds));
+            assertTrue(requests.isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("List Tests")
+    class ListTests {
+        @Test
+        void list_ShouldFollowCursorsThroughAllPages_HappyPath() throws IOException {
+            responses.add(new FakeResponse(200, "{\"resources\":[{\"public_id\":\"medical_record/doctors/a\"," +
+                    "\"created_at\":\"2024-01-01T10:00:00Z\"}],\"next_cursor\":\"page2\"}"));
+            responses.add(new FakeResponse(200, "{\"resources\":[{\"public_id\":\"medical_record/doctors/b\"," +
+                    "\"created_at\":\"2024-02-01T10:00:00Z\"}]}"));
+
+            List<StoredImage> images = store.list();
+
+            assertEquals(List.of(
+                    new StoredImage("medical_record/doctors/a", Instant.parse("2024-01-01T10:00:00Z")),
+                    new StoredImage("medical_record/doctors/b", Instant.parse("2024-02-01T10:00:00Z"))), images);
+            assertEquals(2, requests.size());
+            assertEquals("/v1_1/demo/resources/image/upload", requests.get(0).path());
+            assertTrue(requests.get(0).parameters().contains("prefix=medical_record/doctors/"));
+            assertTrue(requests.get(1).parameters().contains("next_cursor=page2"));
+        }
+
+        @Test
+        void list_WhenApiFails_ShouldThrowIOException_ErrorCase() {
+            responses.add(new FakeResponse(500, "{\"error\":{\"message\":\"General Error\"}}"));
+
+            assertThrows(IOException.class, () -> store.list());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.diagnoses.DiagnosisCodeProperties;
+import nbu.cscb869.data.dto.DiagnosisCodeDTO;
+import nbu.cscb869.data.repositories.DiagnosisRepository;
+import nbu.cscb869.services.data.dtos.DiagnosisImportResultDTO;
+import nbu.cscb869.services.data.events.DiagnosisCodesLoaded;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions;
+import nbu.cscb869.services.services.utility.CatalogueSuggestions.Catalogue;
+import nbu.cscb869.services.services.utility.DiagnosisCodeLoader;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader.Format;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DiagnosisCodeLoaderUnitTests {
+
+    @Mock
+    private DiagnosisRepository diagnosisRepository;
+
+    @Mock
+    private CatalogueSuggestions catalogueSuggestions;
+
+    @Mock
+    private DomainEventBus domainEventBus;
+
+    private DiagnosisCodeProperties properties;
+    private DiagnosisCodeLoader loader;
+    private List<List<DiagnosisCodeDTO>> batches;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DiagnosisCodeProperties();
+        loader = new DiagnosisCodeLoader(diagnosisRepository, properties, catalogueSuggestions, domainEventBus);
+        batches = new ArrayList<>();
+        lenient().doAnswer(invocation -> batches.add(List.copyOf(invocation.<List<DiagnosisCodeDTO>>getArgument(0))))
+                .when(diagnosisRepository).upsertCoded(any());
+    }
+
+    private DiagnosisImportResultDTO load(String csv, DiagnosisCodeDTO... existing) {
+        when(diagnosisRepository.findAllCodes()).thenReturn(List.of(existing));
+        return loader.load(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), Format.CSV);
+    }
+
+    private List<DiagnosisCodeDTO> written() {
+        return batches.stream().flatMap(List::stream).toList();
+    }
+
+    @Nested
+    @DisplayName("Load Tests")
+    class LoadTests {
+        @Test
+        void load_WithNewCodes_ShouldUpsertNormalizedCodesWithClassification_HappyPath() {
+            DiagnosisImportResultDTO result = load("code,title\nJ40-J47,Chronic lower respiratory diseases\nA00,Cholera\n");
+
+            assertEquals(2, result.getRead());
+            assertEquals(1, result.getInserted());
+            assertEquals(1, result.getRejected());
+            DiagnosisCodeDTO cholera = written().get(0);
+            assertEquals("A00", cholera.getCode());
+            assertEquals("A00", cholera.getCategory());
+            assertEquals("I", cholera.getChapter());
+            assertEquals("Cholera", cholera.getName());
+            verify(catalogueSuggestions).catalogueChanged(Catalogue.DIAGNOSES);
+            verify(domainEventBus).publish(argThat(event -> event instanceof DiagnosisCodesLoaded loaded && loaded.updated() == 0));
+        }
+
+        @Test
+        void load_WithSameListAgain_ShouldCountUnchanged_HappyPath() {
+            DiagnosisImportResultDTO result = load("A00,Cholera\n", new DiagnosisCodeDTO("A00", "A00", "I", "Cholera", null));
+
+            assertEquals(1, result.getUnchanged());
+            assertEquals(0, result.getInserted() + result.getUpdated());
+            verify(catalogueSuggestions, never()).catalogueChanged(any());
+        }
+
+        @Test
+        void load_WithNewTitle_ShouldUpdateAndEvictHistories_HappyPath() {
+            DiagnosisImportResultDTO result = load("J45.9,\"Asthma, unspecified\"\n",
+                    new DiagnosisCodeDTO("J45.9", "J45", "X", "Asthma", null));
+
+            assertEquals(1, result.getUpdated());
+            assertEquals("Asthma, unspecified", written().get(0).getName());
+            verify(domainEventBus).publish(argThat(event -> event instanceof DiagnosisCodesLoaded loaded && loaded.updated() == 1));
+        }
+
+        @Test
+        void load_WithTitleOfUncodedDiagnosis_ShouldGiveItTheCode_HappyPath() {
+            DiagnosisImportResultDTO result = load("A00,cholera\n", new DiagnosisCodeDTO(null, null, null, "Cholera", null));
+
+            assertEquals(1, result.getInserted());
+            assertEquals(0, result.getRenamed());
+            assertEquals("cholera", written().get(0).getName());
+        }
+
+        @Test
+        void load_WithTitleOfAnotherCode_ShouldAppendCode_EdgeCase() {
+            DiagnosisImportResultDTO result = load("A00.0,Cholera\n", new DiagnosisCodeDTO("A00", "A00", "I", "Cholera", null));
+
+            assertEquals(1, result.getRenamed());
+            assertEquals("Cholera (A00.0)", written().get(0).getName());
+        }
+
+        @Test
+        void load_WithLongTitle_ShouldCutNameAndKeepTitleAsDescription_EdgeCase() {
+            String title = "T".repeat(150);
+
+            load("A00," + title + "\n");
+
+            DiagnosisCodeDTO loaded = written().get(0);
+            assertEquals(100, loaded.getName().length());
+            assertEquals(title, loaded.getDescription());
+        }
+
+        @Test
+        void load_WithDuplicateCodeAndBlankTitle_ShouldReject_ErrorCase() {
+            DiagnosisImportResultDTO result = load("A00,Cholera\nA00,Cholera again\nA01,\nA01-A09,Block\n");
+
+            assertEquals(1, result.getInserted());
+            assertEquals(3, result.getRejected());
+        }
+
+        @Test
+        void load_AboveBatchSize_ShouldWriteInBatches_HappyPath() {
+            properties.setBatchSize(2);
+
+            load("A00,Cholera\nA01,Typhoid\nA02,Salmonella\n");
+
+            assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+        }
+
+        @Test
+        void load_WithMalformedList_ShouldThrow_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> load("A00,\"Cholera\n"));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader.Format;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader.Row;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagnosisCodeReaderUnitTests {
+
+    private static List<Row> read(String content, Format format) {
+        List<Row> rows = new ArrayList<>();
+        DiagnosisCodeReader.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, rows::add);
+        return rows;
+    }
+
+    @Nested
+    @DisplayName("CSV Tests")
+    class CsvTests {
+        @Test
+        void read_WithHeaderAndQuotedFields_ShouldReturnRows_HappyPath() {
+            String csv = "\uFEFFcode,title,description\r\n"
+                    + "A00,Cholera,\r\n"
+                    + "J45.9,\"Asthma, unspecified\",\"Includes \"\"asthmatic\"\"\nbronchitis\"\r\n";
+
+            List<Row> rows = read(csv, Format.CSV);
+
+            assertEquals(List.of(new Row("A00", "Cholera", null),
+                    new Row("J45.9", "Asthma, unspecified", "Includes \"asthmatic\"\nbronchitis")), rows);
+        }
+
+        @Test
+        void read_WithoutHeaderAndWithBlankLines_ShouldReturnEveryRow_EdgeCase() {
+            List<Row> rows = read("A00,Cholera\n\nA01,Typhoid fever\n", Format.CSV);
+
+            assertEquals(List.of("A00", "A01"), rows.stream().map(Row::code).toList());
+        }
+
+        @Test
+        void read_WithUnterminatedQuote_ShouldThrow_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> read("A00,\"Cholera\n", Format.CSV));
+        }
+    }
+
+    @Nested
+    @DisplayName("XML Tests")
+    class XmlTests {
+        @Test
+        void read_WithTabularList_ShouldReturnNestedDiagnoses_HappyPath() {
+            String xml = "<ICD10CM.tabular><chapter><name>1</name><desc>Certain infectious diseases</desc>"
+                    + "<section id=\"A00-A09\"><desc>Intestinal infectious diseases</desc>"
+                    + "<diag><name>A00</name><desc>Cholera</desc>"
+                    + "<diag><name>A00.0</name><desc>Cholera due to Vibrio cholerae 01, biovar cholerae</desc></diag>"
+                    + "</diag></section></chapter></ICD10CM.tabular>";
+
+            List<Row> rows = read(xml, Format.XML);
+
+            assertEquals(List.of(new Row("A00", "Cholera", null),
+                    new Row("A00.0", "Cholera due to Vibrio cholerae 01, biovar cholerae", null)), rows);
+        }
+
+        @Test
+        void read_WithClaml_ShouldReturnCategoriesOnly_HappyPath() {
+            String xml = "<ClaML><Class code=\"I\" kind=\"chapter\"><Rubric kind=\"preferred\"><Label>Infections</Label></Rubric></Class>"
+                    + "<Class code=\"A00\" kind=\"category\"><Rubric kind=\"inclusion\"><Label>Not this</Label></Rubric>"
+                    + "<Rubric kind=\"preferred\"><Label xml:lang=\"en\">Cholera <Reference>(A00)</Reference></Label></Rubric></Class>"
+                    + "</ClaML>";
+
+            List<Row> rows = read(xml, Format.XML);
+
+            assertEquals(List.of(new Row("A00", "Cholera (A00)", null)), rows);
+        }
+
+        @Test
+        void read_WithMalformedXml_ShouldThrow_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> read("<diag><name>A00</name>", Format.XML));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.services.services.utility.DiagnosisCodes;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagnosisCodesUnitTests {
+
+    @Test
+    void normalize_WithWrittenForms_ShouldReturnDottedUpperCase_HappyPath() {
+        assertEquals("J45.9", DiagnosisCodes.normalize("J45.9"));
+        assertEquals("J45.9", DiagnosisCodes.normalize(" j459 "));
+        assertEquals("A17.0", DiagnosisCodes.normalize("A17.0†"));
+        assertEquals("G01", DiagnosisCodes.normalize("G01*"));
+        assertEquals("S72.001A", DiagnosisCodes.normalize("S72001A"));
+    }
+
+    @Test
+    void normalize_WithRangesAndNonCodes_ShouldReturnNull_ErrorCase() {
+        assertNull(DiagnosisCodes.normalize("J40-J47"));
+        assertNull(DiagnosisCodes.normalize("XXI"));
+        assertNull(DiagnosisCodes.normalize("code"));
+        assertNull(DiagnosisCodes.normalize("J4"));
+        assertNull(DiagnosisCodes.normalize(null));
+    }
+
+    @Test
+    void normalizePrefix_WithPartialCodes_ShouldReturnStoredForm_HappyPath() {
+        assertEquals("J", DiagnosisCodes.normalizePrefix("j"));
+        assertEquals("J4", DiagnosisCodes.normalizePrefix("J4"));
+        assertEquals("J45", DiagnosisCodes.normalizePrefix("J45."));
+        assertEquals("J45.9", DiagnosisCodes.normalizePrefix("J459"));
+        assertNull(DiagnosisCodes.normalizePrefix("J%"));
+        assertNull(DiagnosisCodes.normalizePrefix(""));
+    }
+
+    @Test
+    void chapter_AcrossChapterBoundaries_ShouldFollowClassification_HappyPath() {
+        assertEquals("I", DiagnosisCodes.chapter("A00.0"));
+        assertEquals("II", DiagnosisCodes.chapter("D48.9"));
+        assertEquals("III", DiagnosisCodes.chapter("D50"));
+        assertEquals("VIII", DiagnosisCodes.chapter("H60.1"));
+        assertEquals("X", DiagnosisCodes.chapter("J45.9"));
+        assertEquals("XV", DiagnosisCodes.chapter("O9A.1"));
+        assertEquals("XIX", DiagnosisCodes.chapter("T88.7"));
+        assertEquals("XX", DiagnosisCodes.chapter("W19"));
+        assertEquals("XXI", DiagnosisCodes.chapter("Z00.0"));
+        assertEquals("XXII", DiagnosisCodes.chapter("U07.1"));
+        assertEquals("J45", DiagnosisCodes.category("J45.9"));
+    }
+}
@@ -0,0 +1,344 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.common.exceptions.ImageProcessingException;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.enums.ImageStatus;
+import nbu.cscb869.data.repositories.DoctorRepository;
+import nbu.cscb869.services.data.events.DoctorImageChanged;
+import nbu.cscb869.services.services.utility.DoctorImagePipeline;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import nbu.cscb869.services.services.utility.ImageDeletionQueue;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DoctorImagePipelineUnitTests {
+
+    private static final long DOCTOR_ID = 7L;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private ImageDeletionQueue imageDeletionQueue;
+
+    @Mock
+    private DomainEventBus domainEventBus;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path tempDir;
+
+    private final List<Runnable> queuedTasks = new ArrayList<>();
+    private ImagePipelineProperties properties;
+    private DoctorImagePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ImagePipelineProperties();
+        properties.setStagingDir(tempDir.resolve("staging"));
+        properties.setThumbnailDir(tempDir.resolve("thumbnails"));
+        properties.setUploadAttempts(3);
+        properties.setUploadBackoff(Duration.ofMillis(1));
+        TaskExecutor executor = queuedTasks::add;
+        pipeline = new DoctorImagePipeline(doctorRepository, imageStore, imageDeletionQueue, properties,
+                transactionManager, executor, domainEventBus);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    private static Doctor doctor() {
+        Doctor doctor = new Doctor();
+        doctor.setId(DOCTOR_ID);
+        doctor.setImageStatus(ImageStatus.NONE);
+        return doctor;
+    }
+
+    private void runQueuedTasks() {
+        List<Runnable> tasks = new ArrayList<>(queuedTasks);
+        queuedTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @Nested
+    @DisplayName("Stage Tests")
+    class StageTests {
+        @Test
+        void stage_WithValidImage_ShouldStreamToStagingFileAndMarkPending_HappyPath() throws IOException {
+            Doctor doctor = doctor();
+            byte[] content = png(40, 20);
+
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.PNG", "image/png", content));
+
+            assertEquals(ImageStatus.PENDING, doctor.getImageStatus());
+            Path stagingFile = Path.of(doctor.getImageStagingPath());
+            assertTrue(stagingFile.startsWith(properties.getStagingDir()));
+            assertTrue(stagingFile.toString().endsWith(".png"));
+            assertArrayEquals(content, Files.readAllBytes(stagingFile));
+            assertEquals(1, queuedTasks.size());
+            verifyNoInteractions(imageStore, doctorRepository);
+        }
+
+        @Test
+        void stage_WithinTransaction_ShouldQueueUploadOnlyAfterCommit_HappyPath() throws IOException {
+            TransactionSynchronizationManager.initSynchronization();
+            Doctor doctor = doctor();
+
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.png", "image/png", png(10, 10)));
+            assertTrue(queuedTasks.isEmpty());
+
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+            assertEquals(1, queuedTasks.size());
+        }
+
+        @Test
+        void stage_WhenTransactionRollsBack_ShouldDeleteStagingFile_ErrorCase() throws IOException {
+            TransactionSynchronizationManager.initSynchronization();
+            Doctor doctor = doctor();
+
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.png", "image/png", png(10, 10)));
+            Path stagingFile = Path.of(doctor.getImageStagingPath());
+
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertFalse(Files.exists(stagingFile));
+            assertTrue(queuedTasks.isEmpty());
+        }
+
+        @Test
+        void stage_WithNonImageContentType_ShouldThrowImageProcessingException_ErrorCase() {
+            Doctor doctor = doctor();
+            MockMultipartFile file = new MockMultipartFile("image", "notes.txt", "text/plain", "text".getBytes());
+
+            assertThrows(ImageProcessingException.class, () -> pipeline.stage(doctor, file));
+            assertEquals(ImageStatus.NONE, doctor.getImageStatus());
+        }
+
+        @Test
+        void stage_WithFileOverLimit_ShouldThrowImageProcessingException_ErrorCase() {
+            properties.setMaxFileSize(DataSize.ofBytes(3));
+            MockMultipartFile file = new MockMultipartFile("image", "photo.png", "image/png", new byte[4]);
+
+            assertThrows(ImageProcessingException.class, () -> pipeline.stage(doctor(), file));
+        }
+
+        @Test
+        void stage_WithUnsafeExtension_ShouldDropExtension_EdgeCase() throws IOException {
+            Doctor doctor = doctor();
+
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.png/../x", "image/png", png(5, 5)));
+
+            assertEquals(properties.getStagingDir(), Path.of(doctor.getImageStagingPath()).getParent());
+        }
+    }
+
+    @Nested
+    @DisplayName("Upload Tests")
+    class UploadTests {
+        @Test
+        void upload_WhenStoreSucceeds_ShouldRecordUrlWriteThumbnailAndDeleteStagingFile_HappyPath() throws IOException {
+            Doctor doctor = doctor();
+            doctor.setImageUrl("http://old.url");
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.png", "image/png", png(640, 320)));
+            String stagingPath = doctor.getImageStagingPath();
+            when(imageStore.upload(Path.of(stagingPath))).thenReturn("http://new.url");
+            when(doctorRepository.completeImageUpload(DOCTOR_ID, stagingPath, "http://new.url")).thenReturn(1);
+
+            runQueuedTasks();
+
+            verify(doctorRepository).completeImageUpload(DOCTOR_ID, stagingPath, "http://new.url");
+            verify(imageDeletionQueue).enqueue("http://old.url");
+            verify(domainEventBus).publish(argThat(event -> event instanceof DoctorImageChanged changed
+                    && changed.imageStatus() == ImageStatus.READY));
+            assertFalse(Files.exists(Path.of(stagingPath)));
+            Path thumbnail = pipeline.findThumbnail(DOCTOR_ID).orElseThrow();
+            BufferedImage image = ImageIO.read(thumbnail.toFile());
+            assertEquals(160, image.getWidth());
+            assertEquals(80, image.getHeight());
+        }
+
+        @Test
+        void upload_WhenStoreIsUnreachable_ShouldRetryAndLeaveImagePending_ErrorCase() throws IOException {
+            Doctor doctor = doctor();
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.png", "image/png", png(10, 10)));
+            when(imageStore.upload(any())).thenThrow(new IOException("connection refused"));
+
+            runQueuedTasks();
+
+            verify(imageStore, times(3)).upload(any());
+            verify(doctorRepository, never()).completeImageUpload(anyLong(), anyString(), anyString());
+            verify(doctorRepository, never()).failImageUpload(anyLong(), anyString());
+            assertTrue(Files.exists(Path.of(doctor.getImageStagingPath())));
+        }
+
+        @Test
+        void upload_WhenStoreRejectsImage_ShouldMarkFailed_ErrorCase() throws IOException {
+            Doctor doctor = doctor();
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.png", "image/png", png(10, 10)));
+            when(imageStore.upload(any())).thenThrow(new IllegalStateException("Invalid image file"));
+            when(doctorRepository.failImageUpload(DOCTOR_ID, doctor.getImageStagingPath())).thenReturn(1);
+
+            runQueuedTasks();
+
+            verify(imageStore, times(1)).upload(any());
+            verify(doctorRepository).failImageUpload(DOCTOR_ID, doctor.getImageStagingPath());
+            verify(domainEventBus).publish(argThat(event -> event instanceof DoctorImageChanged changed
+                    && changed.imageStatus() == ImageStatus.FAILED));
+            assertFalse(Files.exists(Path.of(doctor.getImageStagingPath())));
+        }
+
+        @Test
+        void upload_WhenImageChangedMeanwhile_ShouldQueueUploadedImageForDeletion_EdgeCase() throws IOException {
+            Doctor doctor = doctor();
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.png", "image/png", png(10, 10)));
+            when(imageStore.upload(any())).thenReturn("http://stale.url");
+            when(doctorRepository.completeImageUpload(eq(DOCTOR_ID), anyString(), eq("http://stale.url"))).thenReturn(0);
+
+            runQueuedTasks();
+
+            verify(imageDeletionQueue).enqueue("http://stale.url");
+            verify(domainEventBus, never()).publish(any());
+        }
+
+        @Test
+        void upload_WhenStagingFileIsMissing_ShouldMarkFailedWithoutCallingStore_EdgeCase() throws IOException {
+            Doctor doctor = doctor();
+            pipeline.stage(doctor, new MockMultipartFile("image", "photo.png", "image/png", png(10, 10)));
+            Files.delete(Path.of(doctor.getImageStagingPath()));
+
+            runQueuedTasks();
+
+            verify(doctorRepository).failImageUpload(DOCTOR_ID, doctor.getImageStagingPath());
+            verifyNoInteractions(imageStore);
+        }
+    }
+
+    @Nested
+    @DisplayName("Resume and Remove Tests")
+    class ResumeAndRemoveTests {
+        @Test
+        void resumePendingUploads_ShouldQueueEachPendingImageOnce_HappyPath() throws IOException {
+            Doctor pending = doctor();
+            Path stagingFile = Files.createDirectories(properties.getStagingDir()).resolve("doctor-1.png");
+            Files.write(stagingFile, png(10, 10));
+            pending.setImageStatus(ImageStatus.PENDING);
+            pending.setImageStagingPath(stagingFile.toString());
+            when(doctorRepository.findByImageStatus(ImageStatus.PENDING)).thenReturn(List.of(pending));
+
+            pipeline.resumePendingUploads();
+            pipeline.resumePendingUploads();
+
+            assertEquals(1, queuedTasks.size());
+        }
+
+        @Test
+        void resumePendingUploads_WhenUploadCompletes_ShouldQueuePreviousImageForDeletion_HappyPath() throws IOException {
+            Doctor pending = doctor();
+            Path stagingFile = Files.createDirectories(properties.getStagingDir()).resolve("doctor-1.png");
+            Files.write(stagingFile, png(10, 10));
+            pending.setImageStatus(ImageStatus.PENDING);
+            pending.setImageStagingPath(stagingFile.toString());
+            pending.setImageUrl("http://old.url");
+            when(doctorRepository.findByImageStatus(ImageStatus.PENDING)).thenReturn(List.of(pending));
+            when(imageStore.upload(stagingFile)).thenReturn("http://new.url");
+            when(doctorRepository.completeImageUpload(DOCTOR_ID, stagingFile.toString(), "http://new.url")).thenReturn(1);
+
+            pipeline.resumePendingUploads();
+            runQueuedTasks();
+
+            verify(doctorRepository).completeImageUpload(DOCTOR_ID, stagingFile.toString(), "http://new.url");
+            verify(imageDeletionQueue).enqueue("http://old.url");
+            assertFalse(Files.exists(stagingFile));
+        }
+
+        @Test
+        void remove_ShouldClearImageQueueDeletionAndDeleteThumbnailAfterCommit_HappyPath() throws IOException {
+            TransactionSynchronizationManager.initSynchronization();
+            Path thumbnail = Files.write(Files.createDirectories(properties.getThumbnailDir())
+                    .resolve("doctor-" + DOCTOR_ID + ".jpg"), new byte[]{1});
+            Doctor doctor = doctor();
+            doctor.setImageUrl("http://image.url");
+            doctor.setImageStatus(ImageStatus.READY);
+
+            pipeline.remove(doctor);
+
+            assertNull(doctor.getImageUrl());
+            assertEquals(ImageStatus.NONE, doctor.getImageStatus());
+            verify(imageDeletionQueue).enqueue("http://image.url");
+            assertTrue(Files.exists(thumbnail));
+
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+            assertFalse(Files.exists(thumbnail));
+            assertTrue(queuedTasks.isEmpty());
+            verifyNoInteractions(imageStore);
+        }
+
+        @Test
+        void remove_WhenTransactionRollsBack_ShouldKeepThumbnail_EdgeCase() throws IOException {
+            TransactionSynchronizationManager.initSynchronization();
+            Path thumbnail = Files.write(Files.createDirectories(properties.getThumbnailDir())
+                    .resolve("doctor-" + DOCTOR_ID + ".jpg"), new byte[]{1});
+            Doctor doctor = doctor();
+            doctor.setImageUrl("http://image.url");
+
+            pipeline.remove(doctor);
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertTrue(Files.exists(thumbnail));
+            verifyNoInteractions(imageStore);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.events.DomainEventProperties;
+import nbu.cscb869.data.models.DomainEventRecord;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import nbu.cscb869.data.repositories.DomainEventRecordRepository;
+import nbu.cscb869.services.data.events.DoctorApproved;
+import nbu.cscb869.services.data.events.DomainEvent;
+import nbu.cscb869.services.data.events.VisitCancelled;
+import nbu.cscb869.services.data.events.VisitScheduled;
+import nbu.cscb869.services.services.utility.DomainEventBus;
+import nbu.cscb869.services.services.utility.contracts.DomainEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DomainEventBusUnitTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private ObjectProvider<DomainEventListener> listenerProvider;
+
+    @Mock
+    private DomainEventRecordRepository domainEventRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DomainEventProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private DomainEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DomainEventProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) {
+            bus.shutdown();
+        }
+    }
+
+    private void startBus(DomainEventListener... listeners) {
+        lenient().when(listenerProvider.orderedStream()).thenAnswer(invocation -> Stream.of(listeners));
+        bus = new DomainEventBus(properties, listenerProvider, domainEventRecordRepository, objectMapper,
+                transactionManager, meterRegistry);
+    }
+
+    private static VisitCancelled cancelled(long visitId) {
+        return new VisitCancelled(visitId, 1L, 2L, VisitStatus.CANCELLED_BY_PATIENT, Instant.now());
+    }
+
+    @Nested
+    @DisplayName("Delivery Tests")
+    class DeliveryTests {
+        @Test
+        void publish_WithoutTransaction_ShouldDeliverToEveryListener_HappyPath() throws InterruptedException {
+            CountDownLatch delivered = new CountDownLatch(2);
+            List<DomainEvent> received = Collections.synchronizedList(new ArrayList<>());
+            startBus(event -> {
+                received.add(event);
+                delivered.countDown();
+            }, event -> delivered.countDown());
+            DoctorApproved event = new DoctorApproved(5L, Instant.now());
+
+            bus.publish(event);
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(event), received);
+            assertEquals(1.0, meterRegistry.get("medical.events.published").tag("type", "DoctorApproved").counter().count());
+        }
+
+        @Test
+        void publish_ManyEventsOfOneAggregate_ShouldDeliverInPublishOrder_HappyPath() throws InterruptedException {
+            int count = 200;
+            CountDownLatch delivered = new CountDownLatch(count);
+            List<Instant> received = Collections.synchronizedList(new ArrayList<>());
+            startBus(event -> {
+                received.add(event.occurredAt());
+                delivered.countDown();
+            });
+            List<Instant> published = new ArrayList<>();
+
+            for (int i = 0; i < count; i++) {
+                Instant occurredAt = Instant.EPOCH.plusSeconds(i);
+                published.add(occurredAt);
+                bus.publish(new VisitCancelled(1L, 1L, 2L, VisitStatus.CANCELLED_BY_PATIENT, occurredAt));
+            }
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(published, received);
+        }
+
+        @Test
+        void publish_WhenListenerFails_ShouldStillDeliverToOtherListeners_ErrorCase() throws InterruptedException {
+            CountDownLatch delivered = new CountDownLatch(2);
+            startBus(event -> {
+                throw new IllegalStateException("projection unavailable");
+            }, event -> delivered.countDown());
+
+            bus.publish(cancelled(1L));
+            bus.publish(cancelled(1L));
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(2.0, meterRegistry.get("medical.events.listener.failures").counter().count());
+        }
+
+        @Test
+        void publish_WhenLaneIsFull_ShouldDeliverQueuedEventsOnPublisherInOrder_EdgeCase() throws InterruptedException {
+            properties.setLanes(1);
+            properties.setQueueCapacity(1);
+            properties.setPublishTimeout(Duration.ofMillis(200));
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<Long> received = Collections.synchronizedList(new ArrayList<>());
+            startBus(event -> {
+                if (event.aggregateId() == 1L) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                received.add(event.aggregateId());
+            });
+            bus.publish(cancelled(1L));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            bus.publish(cancelled(2L));
+
+            Thread publisher = new Thread(() -> bus.publish(cancelled(3L)));
+            publisher.start();
+            // Past the wait for room, while the publisher waits for the lane's thread to leave the listener.
+            Thread.sleep(300);
+            release.countDown();
+            publisher.join(5000);
+
+            assertFalse(publisher.isAlive());
+            assertEquals(1.0, meterRegistry.get("medical.events.delivered.by-publisher").counter().count());
+            assertEquals(0.0, meterRegistry.get("medical.events.dropped").counter().count());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.size() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(List.of(1L, 2L, 3L), received);
+        }
+
+        @Test
+        void publish_WhenLaneIsFullAndItsListenerIsStuck_ShouldDropEventAfterBoundedWait_EdgeCase() throws InterruptedException {
+            properties.setLanes(1);
+            properties.setQueueCapacity(1);
+            properties.setPublishTimeout(Duration.ofMillis(20));
+            properties.setShutdownTimeout(Duration.ofMillis(100));
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            startBus(event -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            bus.publish(cancelled(1L));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            bus.publish(cancelled(2L));
+            long start = System.nanoTime();
+            bus.publish(cancelled(3L));
+
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+            assertEquals(1.0, meterRegistry.get("medical.events.dropped").counter().count());
+            assertEquals(1, bus.getQueuedEvents());
+            verify(domainEventRecordRepository, times(3)).save(any(DomainEventRecord.class));
+            release.countDown();
+        }
+
+        @Test
+        void publish_AfterShutdown_ShouldDropEvent_EdgeCase() {
+            startBus();
+            bus.shutdown();
+
+            bus.publish(cancelled(1L));
+
+            assertEquals(1.0, meterRegistry.get("medical.events.dropped").counter().count());
+        }
+    }
+
+    @Nested
+    @DisplayName("Event Log Tests")
+    class EventLogTests {
+        @Test
+        void publish_ByDefault_ShouldSaveSerializedEvent_HappyPath() throws Exception {
+            startBus();
+            VisitScheduled event = new VisitScheduled(3L, 1L, 2L, LocalDate.of(2025, 3, 1), LocalTime.of(9, 30), Instant.now());
+
+            bus.publish(event);
+
+            ArgumentCaptor<DomainEventRecord> captor = ArgumentCaptor.forClass(DomainEventRecord.class);
+            verify(domainEventRecordRepository).save(captor.capture());
+            DomainEventRecord record = captor.getValue();
+            assertEquals("VisitScheduled", record.getEventType());
+            assertEquals(DomainEvent.VISIT, record.getAggregateType());
+            assertEquals(3L, record.getAggregateId());
+            assertEquals(event, objectMapper.readValue(record.getPayload(), VisitScheduled.class));
+        }
+
+        @Test
+        void replay_ShouldDeliverLoggedEventsInBatchesAndSkipUnknownTypes_HappyPath() throws Exception {
+            properties.getLog().setEnabled(true);
+            properties.getLog().setReplayBatchSize(2);
+            startBus();
+            DoctorApproved first = new DoctorApproved(1L, Instant.now());
+            VisitCancelled second = cancelled(4L);
+            DomainEventRecord unknown = DomainEventRecord.builder().eventType("VisitArchived").payload("{}").build();
+            unknown.setId(11L);
+            when(domainEventRecordRepository.findAfter(eq(0L), any(Pageable.class)))
+                    .thenReturn(List.of(record(10L, first), unknown));
+            when(domainEventRecordRepository.findAfter(eq(11L), any(Pageable.class)))
+                    .thenReturn(List.of(record(12L, second)));
+            List<DomainEvent> replayed = new ArrayList<>();
+
+            long position = bus.replay(0L, replayed::add);
+
+            assertEquals(12L, position);
+            assertEquals(List.of(first, second), replayed);
+        }
+
+        @Test
+        void replay_WithLogDisabled_ShouldThrowIllegalStateException_ErrorCase() {
+            properties.getLog().setEnabled(false);
+            startBus();
+
+            assertThrows(IllegalStateException.class, () -> bus.replay(0L, event -> { }));
+            verifyNoInteractions(domainEventRecordRepository);
+        }
+
+        private DomainEventRecord record(long id, DomainEvent event) throws Exception {
+            DomainEventRecord record = DomainEventRecord.builder()
+                    .eventType(event.type())
+                    .aggregateType(event.aggregateType())
+                    .aggregateId(event.aggregateId())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .build();
+            record.setId(id);
+            return record;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.rankings.RankingProperties;
+import nbu.cscb869.data.dto.DiagnosisMonthVisitCountDTO;
+import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
+import nbu.cscb869.data.dto.DoctorSickLeaveTotalDTO;
+import nbu.cscb869.data.dto.MonthSickLeaveCountDTO;
+import nbu.cscb869.data.repositories.SickLeaveRepository;
+import nbu.cscb869.data.repositories.VisitRepository;
+import nbu.cscb869.services.services.utility.FrequencyRankings;
+import nbu.cscb869.services.services.utility.RankedCounts.Ranked;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FrequencyRankingsUnitTests {
+
+    private static final YearMonth THIS_MONTH = YearMonth.now();
+
+    @Mock
+    private VisitRepository visitRepository;
+    @Mock
+    private SickLeaveRepository sickLeaveRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RankingProperties properties;
+    private FrequencyRankings rankings;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RankingProperties();
+        properties.setMaxLimit(10);
+        properties.setRetainedMonths(3);
+        rankings = new FrequencyRankings(visitRepository, sickLeaveRepository, properties, transactionManager,
+                new SimpleMeterRegistry());
+        lenient().when(visitRepository.findMostFrequentDiagnoses()).thenReturn(List.of(
+                new DiagnosisVisitCountDTO(1L, "Flu", 5L), new DiagnosisVisitCountDTO(2L, "Cold", 3L)));
+        lenient().when(visitRepository.countDiagnosesByMonthSince(any())).thenReturn(List.of(
+                new DiagnosisMonthVisitCountDTO(THIS_MONTH.getYear(), THIS_MONTH.getMonthValue(), 2L, 3L),
+                new DiagnosisMonthVisitCountDTO(THIS_MONTH.getYear(), THIS_MONTH.getMonthValue(), 1L, 1L)));
+        lenient().when(sickLeaveRepository.countByDoctor()).thenReturn(List.of(
+                new DoctorSickLeaveTotalDTO(7L, 4L), new DoctorSickLeaveTotalDTO(8L, 6L)));
+        lenient().when(visitRepository.findMostFrequentSickLeaveMonth()).thenReturn(List.of(
+                new MonthSickLeaveCountDTO(1, 9L), new MonthSickLeaveCountDTO(7, 2L)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit() {
+        finishCommit(startCommit());
+    }
+
+    private static List<TransactionSynchronization> startCommit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        return synchronizations;
+    }
+
+    private static void finishCommit(List<TransactionSynchronization> synchronizations) {
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    @Nested
+    @DisplayName("Read Tests")
+    class ReadTests {
+        @Test
+        void topDiagnoses_AfterRecount_ShouldRankFromMemory_HappyPath() {
+            rankings.refresh();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(1L, 5L))), rankings.topDiagnoses(1));
+            assertEquals(Optional.of(List.of(new Ranked<>(1L, 5L), new Ranked<>(2L, 3L))), rankings.topDiagnoses(null));
+            verify(visitRepository, times(1)).findMostFrequentDiagnoses();
+        }
+
+        @Test
+        void topRankings_BeforeFirstRecount_ShouldReturnEmptyWithoutQuerying_EdgeCase() {
+            assertTrue(rankings.topDiagnoses(1).isEmpty());
+            assertTrue(rankings.topDiagnoses(THIS_MONTH, 1).isEmpty());
+            assertTrue(rankings.topDoctorsBySickLeaves(1).isEmpty());
+            assertTrue(rankings.topSickLeaveMonths(1).isEmpty());
+            verifyNoInteractions(visitRepository, sickLeaveRepository, transactionManager);
+        }
+
+        @Test
+        void topDiagnoses_ForRetainedMonth_ShouldRankThatMonth_HappyPath() {
+            rankings.refresh();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(2L, 3L), new Ranked<>(1L, 1L))), rankings.topDiagnoses(THIS_MONTH, 5));
+            assertEquals(Optional.of(List.of()), rankings.topDiagnoses(THIS_MONTH.minusMonths(2), 5));
+            verify(visitRepository).countDiagnosesByMonthSince(THIS_MONTH.minusMonths(2).atDay(1));
+        }
+
+        @Test
+        void topDiagnoses_ForMonthBeforeRetainedMonths_ShouldReturnEmpty_EdgeCase() {
+            rankings.refresh();
+
+            assertTrue(rankings.topDiagnoses(THIS_MONTH.minusMonths(3), 5).isEmpty());
+        }
+
+        @Test
+        void topDoctorsAndMonths_ShouldRankSickLeaves_HappyPath() {
+            rankings.refresh();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(8L, 6L), new Ranked<>(7L, 4L))), rankings.topDoctorsBySickLeaves(2));
+            assertEquals(Optional.of(List.of(new Ranked<>(1, 9L))), rankings.topSickLeaveMonths(1));
+        }
+
+        @Test
+        void topDiagnoses_WithLimitOutOfRange_ShouldThrowInvalidInputException_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> rankings.topDiagnoses(0));
+            assertThrows(InvalidInputException.class, () -> rankings.topDiagnoses(11));
+            verifyNoInteractions(visitRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Change Tests")
+    class ChangeTests {
+        @Test
+        void visitChanged_WithNewDiagnosis_ShouldMoveCountsAfterCommit_HappyPath() {
+            rankings.refresh();
+            TransactionSynchronizationManager.initSynchronization();
+
+            rankings.visitChanged(1L, LocalDate.now(), 2L, LocalDate.now());
+            rankings.visitChanged(null, null, 2L, LocalDate.now());
+            rankings.visitChanged(null, null, 2L, LocalDate.now());
+            assertEquals(Optional.of(List.of(new Ranked<>(1L, 5L))), rankings.topDiagnoses(1));
+            assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+            commit();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(2L, 6L), new Ranked<>(1L, 4L))), rankings.topDiagnoses(2));
+            assertEquals(Optional.of(List.of(new Ranked<>(2L, 6L))), rankings.topDiagnoses(THIS_MONTH, 1));
+        }
+
+        @Test
+        void visitChanged_WhenTransactionRollsBack_ShouldCountNothing_EdgeCase() {
+            rankings.refresh();
+            TransactionSynchronizationManager.initSynchronization();
+
+            rankings.visitChanged(null, null, 2L, LocalDate.now());
+            TransactionSynchronizationManager.clearSynchronization();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(1L, 5L))), rankings.topDiagnoses(1));
+        }
+
+        @Test
+        void visitChanged_MovedToAnotherMonth_ShouldKeepOverallCount_HappyPath() {
+            rankings.refresh();
+
+            rankings.visitChanged(2L, LocalDate.now(), 2L, THIS_MONTH.plusMonths(1).atDay(3));
+
+            assertEquals(Optional.of(List.of(new Ranked<>(1L, 5L), new Ranked<>(2L, 3L))), rankings.topDiagnoses(2));
+            assertEquals(Optional.of(List.of(new Ranked<>(2L, 2L), new Ranked<>(1L, 1L))), rankings.topDiagnoses(THIS_MONTH, 5));
+            assertEquals(Optional.of(List.of(new Ranked<>(2L, 1L))), rankings.topDiagnoses(THIS_MONTH.plusMonths(1), 5));
+        }
+
+        @Test
+        void sickLeaveChanged_WithIssuedAndDeletedSickLeaves_ShouldUpdateDoctorsAndMonths_HappyPath() {
+            rankings.refresh();
+
+            rankings.sickLeaveChanged(null, null, 7L, LocalDate.of(2024, 7, 1));
+            rankings.sickLeaveChanged(null, null, 7L, LocalDate.of(2024, 7, 2));
+            rankings.sickLeaveChanged(null, null, 7L, LocalDate.of(2024, 7, 3));
+            rankings.sickLeaveChanged(8L, LocalDate.of(2024, 1, 1), null, null);
+
+            assertEquals(Optional.of(List.of(new Ranked<>(7L, 7L), new Ranked<>(8L, 5L))), rankings.topDoctorsBySickLeaves(2));
+            assertEquals(Optional.of(List.of(new Ranked<>(1, 8L), new Ranked<>(7, 5L))), rankings.topSickLeaveMonths(2));
+        }
+
+        @Test
+        void visitChanged_BeforeFirstRecount_ShouldBeLeftToTheRecount_EdgeCase() {
+            rankings.visitChanged(null, null, 2L, LocalDate.now());
+            rankings.refresh();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(1L, 5L), new Ranked<>(2L, 3L))), rankings.topDiagnoses(2));
+        }
+
+        @Test
+        void refresh_WithChangeCommittedWhileReading_ShouldApplyItToTheRecount_EdgeCase() {
+            rankings.refresh();
+            when(visitRepository.findMostFrequentDiagnoses()).thenAnswer(invocation -> {
+                rankings.visitChanged(null, null, 2L, LocalDate.now());
+                return List.of(new DiagnosisVisitCountDTO(1L, "Flu", 5L), new DiagnosisVisitCountDTO(2L, "Cold", 5L));
+            });
+
+            rankings.refresh();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(2L, 6L), new Ranked<>(1L, 5L))), rankings.topDiagnoses(2));
+        }
+
+        @Test
+        void refresh_WithTransactionCommittedWhileReading_ShouldApplyItToTheRecount_EdgeCase() {
+            rankings.refresh();
+            when(visitRepository.findMostFrequentDiagnoses()).thenAnswer(invocation -> {
+                TransactionSynchronizationManager.initSynchronization();
+                rankings.visitChanged(null, null, 2L, LocalDate.now());
+                commit();
+                return List.of(new DiagnosisVisitCountDTO(1L, "Flu", 5L), new DiagnosisVisitCountDTO(2L, "Cold", 5L));
+            });
+
+            rankings.refresh();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(2L, 6L), new Ranked<>(1L, 5L))), rankings.topDiagnoses(2));
+        }
+
+        @Test
+        void refresh_WithChangeFlushedInsideCommitWhileReading_ShouldApplyItToTheRecount_EdgeCase() {
+            rankings.refresh();
+            when(visitRepository.findMostFrequentDiagnoses()).thenAnswer(invocation -> {
+                TransactionSynchronizationManager.initSynchronization();
+                // Hibernate flushes inside the commit, after the before-commit callbacks have run.
+                rankings.visitChanged(null, null, 2L, LocalDate.now());
+                List<TransactionSynchronization> flushed = TransactionSynchronizationManager.getSynchronizations();
+                TransactionSynchronizationManager.clearSynchronization();
+                finishCommit(flushed);
+                return List.of(new DiagnosisVisitCountDTO(1L, "Flu", 5L), new DiagnosisVisitCountDTO(2L, "Cold", 5L));
+            });
+
+            rankings.refresh();
+
+            assertEquals(Optional.of(List.of(new Ranked<>(2L, 6L), new Ranked<>(1L, 5L))), rankings.topDiagnoses(2));
+        }
+
+        @Test
+        void refresh_WithTransactionCommittingWhenRecountStarts_ShouldCountItOnce_EdgeCase() throws Exception {
+            rankings.refresh();
+            when(visitRepository.findMostFrequentDiagnoses()).thenReturn(List.of(
+                    new DiagnosisVisitCountDTO(1L, "Flu", 5L), new DiagnosisVisitCountDTO(2L, "Cold", 4L)));
+            TransactionSynchronizationManager.initSynchronization();
+            rankings.visitChanged(null, null, 2L, LocalDate.now());
+            List<TransactionSynchronization> committing = startCommit();
+
+            CompletableFuture<Void> refresh = CompletableFuture.runAsync(rankings::refresh);
+            assertThrows(TimeoutException.class, () -> refresh.get(200, TimeUnit.MILLISECONDS));
+            finishCommit(committing);
+            refresh.get(5, TimeUnit.SECONDS);
+
+            assertEquals(Optional.of(List.of(new Ranked<>(1L, 5L), new Ranked<>(2L, 4L))), rankings.topDiagnoses(2));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.services.services.utility.HyperLogLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogUnitTests {
+
+    /** Three standard errors at the default precision: estimates beyond it are a 1 in 370 event. */
+    private static final double TOLERANCE = 3 * HyperLogLog.standardError(HyperLogLog.DEFAULT_PRECISION);
+
+    private static HyperLogLog sketchOf(long from, long to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long value = from; value < to; value++) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+
+    private static void assertWithinTolerance(long exact, long estimate) {
+        double error = Math.abs(estimate - exact) / (double) exact;
+        assertTrue(error <= TOLERANCE, () -> "Estimated " + estimate + " for " + exact + " values, off by " + error);
+    }
+
+    @Nested
+    @DisplayName("Accuracy Tests")
+    class AccuracyTests {
+        @Test
+        void estimate_OfConsecutiveIds_ShouldBeWithinThreeStandardErrors_HappyPath() {
+            for (int count : new int[]{1, 10, 100, 1_000, 5_000, 10_000, 20_000, 100_000, 1_000_000}) {
+                assertWithinTolerance(count, sketchOf(1, count + 1).estimate());
+            }
+        }
+
+        @Test
+        void estimate_OfRandomIdsWithRepeats_ShouldMatchExactDistinctCount_HappyPath() {
+            Random random = new Random(7);
+            HyperLogLog sketch = new HyperLogLog();
+            Set<Long> exact = new HashSet<>();
+            for (int i = 0; i < 200_000; i++) {
+                long patientId = random.nextInt(60_000);
+                sketch.add(patientId);
+                exact.add(patientId);
+            }
+
+            assertWithinTolerance(exact.size(), sketch.estimate());
+        }
+
+        @Test
+        void estimate_OfSmallCounts_ShouldBeNearlyExact_HappyPath() {
+            // Linear counting is off by about count / sqrt(2 * 4096) registers: under 1 for 90 values, 5 for 500.
+            for (int count = 1; count <= 500; count++) {
+                long estimate = sketchOf(1_000, 1_000 + count).estimate();
+                assertTrue(Math.abs(estimate - count) <= 1 + 3 * count / Math.sqrt(2 * 4096), "Estimated " + estimate + " for " + count);
+            }
+        }
+
+        @Test
+        void estimate_AcrossManySketches_ShouldAverageToStandardError_HappyPath() {
+            double squaredErrors = 0;
+            int sketches = 200;
+            for (int i = 0; i < sketches; i++) {
+                long from = i * 1_000_000L;
+                double error = (sketchOf(from, from + 30_000).estimate() - 30_000) / 30_000.0;
+                squaredErrors += error * error;
+            }
+
+            double rootMeanSquare = Math.sqrt(squaredErrors / sketches);
+            assertTrue(rootMeanSquare < 1.25 * HyperLogLog.standardError(HyperLogLog.DEFAULT_PRECISION),
+                    "Root mean square error " + rootMeanSquare);
+        }
+
+        @Test
+        void estimate_OfEmptySketch_ShouldBeZero_EdgeCase() {
+            assertEquals(0, new HyperLogLog().estimate());
+            assertTrue(new HyperLogLog().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Merge Tests")
+    class MergeTests {
+        @Test
+        void merge_OfOverlappingSketches_ShouldEqualSketchOfUnion_HappyPath() {
+            HyperLogLog january = sketchOf(0, 30_000);
+            HyperLogLog february = sketchOf(20_000, 50_000);
+
+            HyperLogLog merged = january.merge(february);
+
+            assertArrayEquals(sketchOf(0, 50_000).toBytes(), merged.toBytes());
+            assertWithinTolerance(50_000, merged.estimate());
+        }
+
+        @Test
+        void merge_OfSameValues_ShouldNotCountThemTwice_EdgeCase() {
+            HyperLogLog merged = sketchOf(0, 1_000).merge(sketchOf(0, 1_000)).merge(sketchOf(0, 1_000));
+
+            assertEquals(sketchOf(0, 1_000).estimate(), merged.estimate());
+        }
+
+        @Test
+        void merge_WithOtherPrecision_ShouldThrowIllegalArgumentException_ErrorCase() {
+            assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(14)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Serialization Tests")
+    class SerializationTests {
+        @Test
+        void toBytes_OfFewValues_ShouldBeSparseAndRoundTrip_HappyPath() {
+            HyperLogLog sketch = sketchOf(0, 200);
+
+            byte[] bytes = sketch.toBytes();
+
+            assertTrue(bytes.length <= 1 + 3 * 200);
+            assertArrayEquals(bytes, HyperLogLog.fromBytes(bytes).toBytes());
+            assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+        }
+
+        @Test
+        void toBytes_OfManyValues_ShouldPackRegistersAndRoundTrip_HappyPath() {
+            HyperLogLog sketch = sketchOf(0, 100_000);
+
+            byte[] bytes = sketch.toBytes();
+
+            assertEquals(1 + 4096 * 6 / 8, bytes.length);
+            assertArrayEquals(bytes, HyperLogLog.fromBytes(bytes).toBytes());
+            assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+        }
+
+        @Test
+        void toBytes_OfEmptySketch_ShouldRoundTrip_EdgeCase() {
+            assertTrue(HyperLogLog.fromBytes(new HyperLogLog().toBytes()).isEmpty());
+        }
+
+        @Test
+        void fromBytes_WithTruncatedBytes_ShouldThrowIllegalArgumentException_ErrorCase() {
+            byte[] dense = sketchOf(0, 100_000).toBytes();
+            byte[] sparse = sketchOf(0, 10).toBytes();
+
+            assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(Arrays.copyOf(dense, 100)));
+            assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(Arrays.copyOf(sparse, sparse.length - 1)));
+            assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[0]));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.data.models.ImageDeletion;
+import nbu.cscb869.data.repositories.ImageDeletionRepository;
+import nbu.cscb869.services.services.utility.CloudinaryService;
+import nbu.cscb869.services.services.utility.ImageDeletionQueue;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageDeletionQueueUnitTests {
+
+    private static final String IMAGE_URL =
+            "https://res.cloudinary.com/demo/image/upload/v1/medical_record/doctors/a.jpg";
+
+    @Mock
+    private ImageDeletionRepository imageDeletionRepository;
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ImagePipelineProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ImageDeletionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ImagePipelineProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        queue = new ImageDeletionQueue(imageDeletionRepository, imageStore, new CloudinaryService(),
+                properties, transactionManager, meterRegistry);
+    }
+
+    private static List<ImageDeletion> deletions(int count, int attempts) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> {
+                    ImageDeletion deletion = ImageDeletion.builder()
+                            .publicId("medical_record/doctors/" + id)
+                            .attempts(attempts)
+                            .nextAttemptAt(LocalDateTime.now())
+                            .build();
+                    deletion.setId(id);
+                    return deletion;
+                })
+                .toList();
+    }
+
+    @Nested
+    @DisplayName("Enqueue Tests")
+    class EnqueueTests {
+        @Test
+        @SuppressWarnings("unchecked")
+        void enqueue_WithStoredImageUrl_ShouldSaveDueDeletionForPublicId_HappyPath() {
+            queue.enqueue(IMAGE_URL);
+
+            ArgumentCaptor<List<ImageDeletion>> captor = ArgumentCaptor.forClass(List.class);
+            verify(imageDeletionRepository).saveAll(captor.capture());
+            ImageDeletion deletion = captor.getValue().get(0);
+            assertEquals("medical_record/doctors/a", deletion.getPublicId());
+            assertEquals(0, deletion.getAttempts());
+            assertFalse(deletion.getNextAttemptAt().isAfter(LocalDateTime.now()));
+            verifyNoInteractions(imageStore);
+        }
+
+        @Test
+        void enqueue_WithUrlWithoutPublicId_ShouldIgnoreIt_EdgeCase() {
+            queue.enqueue("https://example.com/photo");
+
+            verifyNoInteractions(imageDeletionRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Process Queue Tests")
+    class ProcessQueueTests {
+        @Test
+        void processQueue_ShouldDeleteDueImagesInBatchesAndRemoveRows_HappyPath() throws IOException {
+            properties.getDeletion().setBatchSize(2);
+            List<ImageDeletion> full = deletions(2, 0);
+            List<ImageDeletion> rest = List.of(deletions(3, 0).get(2));
+            when(imageDeletionRepository.findDue(any(), any())).thenReturn(full).thenReturn(rest);
+
+            queue.processQueue();
+
+            verify(imageStore).deleteAll(List.of("medical_record/doctors/1", "medical_record/doctors/2"));
+            verify(imageStore).deleteAll(List.of("medical_record/doctors/3"));
+            verify(imageDeletionRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+            verify(imageDeletionRepository).deleteAllByIdInBatch(List.of(3L));
+            assertEquals(3.0, meterRegistry.get("medical.image.deletions").tag("result", "deleted").counter().count());
+        }
+
+        @Test
+        void processQueue_WithBatchSizeOverStoreLimit_ShouldCapBatch_EdgeCase() {
+            properties.getDeletion().setBatchSize(1000);
+            when(imageDeletionRepository.findDue(any(), any())).thenReturn(List.of());
+
+            queue.processQueue();
+
+            ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+            verify(imageDeletionRepository).findDue(any(), captor.capture());
+            assertEquals(ImageStore.MAX_DELETE_BATCH, captor.getValue().getPageSize());
+        }
+
+        @Test
+        void processQueue_WhenStoreFails_ShouldPostponeBatchWithBackoff_ErrorCase() throws IOException {
+            List<ImageDeletion> batch = deletions(2, 2);
+            when(imageDeletionRepository.findDue(any(), any())).thenReturn(batch);
+            doThrow(new IOException("Rate Limit Exceeded")).when(imageStore).deleteAll(anyCollection());
+            LocalDateTime before = LocalDateTime.now();
+
+            queue.processQueue();
+
+            ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(imageDeletionRepository).postpone(eq(List.of(1L, 2L)), nextAttempt.capture(), eq("Rate Limit Exceeded"));
+            Duration backoff = Duration.between(before, nextAttempt.getValue());
+            assertTrue(backoff.compareTo(Duration.ofMinutes(4)) >= 0 && backoff.compareTo(Duration.ofMinutes(5)) < 0);
+            verify(imageDeletionRepository, never()).deleteAllByIdInBatch(any());
+            verify(imageDeletionRepository, times(1)).findDue(any(), any());
+        }
+
+        @Test
+        void processQueue_AfterManyFailures_ShouldCapBackoff_EdgeCase() throws IOException {
+            when(imageDeletionRepository.findDue(any(), any())).thenReturn(deletions(1, 40));
+            doThrow(new IOException("down")).when(imageStore).deleteAll(anyCollection());
+
+            queue.processQueue();
+
+            ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(imageDeletionRepository).postpone(any(), nextAttempt.capture(), any());
+            assertFalse(nextAttempt.getValue().isAfter(LocalDateTime.now().plus(properties.getDeletion().getMaxRetryBackoff())));
+        }
+
+        @Test
+        void processQueue_WhenNothingIsDue_ShouldNotCallStore_EdgeCase() {
+            when(imageDeletionRepository.findDue(any(), any())).thenReturn(List.of());
+
+            queue.processQueue();
+
+            verifyNoInteractions(imageStore);
+        }
+    }
+}
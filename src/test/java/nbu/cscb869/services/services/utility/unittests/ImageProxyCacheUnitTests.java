@@ -0,0 +1,296 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.common.exceptions.ImageProcessingException;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.services.services.utility.ImageProxyCache;
+import nbu.cscb869.services.services.utility.ImageProxyCache.CachedImage;
+import nbu.cscb869.services.services.utility.ImageProxyCache.ImageVariant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fills the cache from a stub HTTP server standing in for Cloudinary.
+ */
+class ImageProxyCacheUnitTests {
+
+    @TempDir
+    private Path tempDir;
+
+    private HttpServer origin;
+    private final Map<String, byte[]> originImages = new ConcurrentHashMap<>();
+    private final AtomicInteger originRequests = new AtomicInteger();
+    private ImagePipelineProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        origin.createContext("/", exchange -> {
+            originRequests.incrementAndGet();
+            byte[] body = originImages.get(exchange.getRequestURI().getPath());
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        origin.start();
+
+        properties = new ImagePipelineProperties();
+        properties.getProxy().setCacheDir(tempDir.resolve("cache"));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        origin.stop(0);
+    }
+
+    private String serve(String path, int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        originImages.put(path, out.toByteArray());
+        return "http://127.0.0.1:" + origin.getAddress().getPort() + path;
+    }
+
+    private ImageProxyCache newCache() {
+        return new ImageProxyCache(properties, meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("Variant Tests")
+    class VariantTests {
+        @Test
+        void variantOf_ShouldRoundWidthUpToConfiguredWidth_HappyPath() {
+            ImageProxyCache cache = newCache();
+
+            assertEquals(160, cache.variantOf("http://x/a.png", 100).width());
+            assertEquals(160, cache.variantOf("http://x/a.png", 160).width());
+            assertNull(cache.variantOf("http://x/a.png", null).width());
+        }
+
+        @Test
+        void variantOf_WithWidthAboveLargest_ShouldUseLargestWidth_EdgeCase() {
+            assertEquals(640, newCache().variantOf("http://x/a.png", 5000).width());
+        }
+
+        @Test
+        void variantOf_ShouldGiveStableAndDistinctEtags_HappyPath() {
+            ImageProxyCache cache = newCache();
+
+            ImageVariant variant = cache.variantOf("http://x/a.png", 160);
+
+            assertEquals(variant.etag(), cache.variantOf("http://x/a.png", 150).etag());
+            assertNotEquals(variant.etag(), cache.variantOf("http://x/a.png", 320).etag());
+            assertNotEquals(variant.etag(), cache.variantOf("http://x/b.png", 160).etag());
+            assertTrue(variant.etag().startsWith("\"") && variant.etag().endsWith("\""));
+        }
+    }
+
+    @Nested
+    @DisplayName("Get Tests")
+    class GetTests {
+        @Test
+        void get_ShouldFetchOnceAndServeRepeatsFromDisk_HappyPath() throws IOException {
+            String url = serve("/upload/a.png", 800, 400);
+            ImageProxyCache cache = newCache();
+
+            CachedImage first = cache.get(cache.variantOf(url, null));
+            CachedImage second = cache.get(cache.variantOf(url, null));
+
+            assertEquals(1, originRequests.get());
+            assertEquals(first.file(), second.file());
+            assertEquals("image/png", first.contentType());
+            assertArrayEquals(originImages.get("/upload/a.png"), Files.readAllBytes(first.file()));
+            assertEquals(1.0, meterRegistry.get("medical.image.cache.requests").tag("result", "hit").counter().count());
+        }
+
+        @Test
+        void get_WithWidth_ShouldResizeFromCachedOriginal_HappyPath() throws IOException {
+            String url = serve("/upload/a.png", 800, 400);
+            ImageProxyCache cache = newCache();
+
+            CachedImage small = cache.get(cache.variantOf(url, 160));
+            CachedImage medium = cache.get(cache.variantOf(url, 320));
+
+            assertEquals(1, originRequests.get());
+            assertEquals("image/jpeg", small.contentType());
+            BufferedImage image = ImageIO.read(small.file().toFile());
+            assertEquals(160, image.getWidth());
+            assertEquals(80, image.getHeight());
+            assertEquals(320, ImageIO.read(medium.file().toFile()).getWidth());
+        }
+
+        @Test
+        void get_WhenOriginReturnsError_ShouldThrowImageProcessingException_ErrorCase() {
+            String url = "http://127.0.0.1:" + origin.getAddress().getPort() + "/upload/missing.png";
+            ImageProxyCache cache = newCache();
+
+            assertThrows(ImageProcessingException.class, () -> cache.get(cache.variantOf(url, null)));
+            assertEquals(0, cache.getTotalBytes());
+        }
+
+        @Test
+        void get_WhenConcurrentMissFails_ShouldShareTheFailedFetch_ErrorCase() throws Exception {
+            CountDownLatch fetching = new CountDownLatch(1);
+            CountDownLatch respond = new CountDownLatch(1);
+            origin.createContext("/slow/", exchange -> {
+                originRequests.incrementAndGet();
+                fetching.countDown();
+                try {
+                    respond.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+            });
+            String url = "http://127.0.0.1:" + origin.getAddress().getPort() + "/slow/a.png";
+            ImageProxyCache cache = newCache();
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<?> first = executor.submit(() -> cache.get(cache.variantOf(url, null)));
+                assertTrue(fetching.await(10, TimeUnit.SECONDS));
+                Future<?> second = executor.submit(() -> cache.get(cache.variantOf(url, null)));
+                Thread.sleep(200);
+                respond.countDown();
+
+                ExecutionException firstFailure = assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+                ExecutionException secondFailure = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+                assertInstanceOf(ImageProcessingException.class, firstFailure.getCause());
+                assertInstanceOf(ImageProcessingException.class, secondFailure.getCause());
+                assertEquals(1, originRequests.get());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void get_WithFileUrl_ShouldCopyFromLocalStore_HappyPath() throws IOException {
+            Path stored = Files.writeString(tempDir.resolve("stored.jpg"), "jpeg bytes");
+            ImageProxyCache cache = newCache();
+
+            CachedImage cached = cache.get(cache.variantOf(stored.toUri().toString(), null));
+
+            assertEquals("jpeg bytes", Files.readString(cached.file()));
+            assertEquals(0, originRequests.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Eviction Tests")
+    class EvictionTests {
+        @Test
+        void get_WhenCacheIsFull_ShouldEvictLeastRecentlyUsed_HappyPath() throws IOException {
+            String a = serve("/upload/a.png", 300, 300);
+            String b = serve("/upload/b.png", 300, 300);
+            String c = serve("/upload/c.png", 300, 300);
+            long imageSize = originImages.get("/upload/a.png").length;
+            properties.getProxy().setMaxCacheSize(DataSize.ofBytes(imageSize * 2));
+            ImageProxyCache cache = newCache();
+
+            CachedImage cachedA = cache.get(cache.variantOf(a, null));
+            CachedImage cachedB = cache.get(cache.variantOf(b, null));
+            cache.release(cachedB, Duration.ZERO);
+            cache.release(cache.get(cache.variantOf(a, null)), Duration.ZERO); // a becomes the most recently used
+            cache.release(cachedA, Duration.ZERO);
+            cache.release(cache.get(cache.variantOf(c, null)), Duration.ZERO);
+
+            assertTrue(Files.exists(cachedA.file()));
+            assertFalse(Files.exists(cachedB.file()));
+            assertEquals(imageSize * 2, cache.getTotalBytes());
+        }
+
+        @Test
+        void get_WhenPinnedFileIsEvicted_ShouldDeleteItOnlyOnRelease_EdgeCase() throws IOException {
+            String a = serve("/upload/a.png", 300, 300);
+            String b = serve("/upload/b.png", 300, 300);
+            properties.getProxy().setMaxCacheSize(DataSize.ofBytes(originImages.get("/upload/a.png").length));
+            ImageProxyCache cache = newCache();
+
+            CachedImage cachedA = cache.get(cache.variantOf(a, null));
+            cache.release(cache.get(cache.variantOf(b, null)), Duration.ZERO);
+
+            assertTrue(Files.exists(cachedA.file()));
+            assertEquals(originImages.get("/upload/b.png").length, cache.getTotalBytes());
+            cache.release(cachedA, Duration.ZERO);
+            assertFalse(Files.exists(cachedA.file()));
+        }
+
+        @Test
+        void release_WithLinger_ShouldKeepEvictedFileForLaterReaders_EdgeCase() throws IOException {
+            String a = serve("/upload/a.png", 300, 300);
+            String b = serve("/upload/b.png", 300, 300);
+            properties.getProxy().setMaxCacheSize(DataSize.ofBytes(originImages.get("/upload/a.png").length));
+            ImageProxyCache cache = newCache();
+
+            CachedImage cachedA = cache.get(cache.variantOf(a, null));
+            cache.release(cachedA, Duration.ofMinutes(1));
+            cache.release(cache.get(cache.variantOf(b, null)), Duration.ZERO);
+
+            assertTrue(Files.exists(cachedA.file()));
+        }
+
+        @Test
+        void get_WithWidth_ShouldReleaseOriginalAfterResizing_EdgeCase() throws IOException {
+            String a = serve("/upload/a.png", 300, 300);
+            String b = serve("/upload/b.png", 300, 300);
+            properties.getProxy().setMaxCacheSize(DataSize.ofBytes(originImages.get("/upload/a.png").length));
+            ImageProxyCache cache = newCache();
+
+            cache.release(cache.get(cache.variantOf(a, 64)), Duration.ZERO);
+            CachedImage original = cache.get(cache.variantOf(a, null));
+            cache.release(original, Duration.ZERO);
+            cache.release(cache.get(cache.variantOf(b, null)), Duration.ZERO);
+
+            assertFalse(Files.exists(original.file()));
+        }
+
+        @Test
+        void newCache_ShouldReloadFilesFromPreviousRun_EdgeCase() throws IOException {
+            String url = serve("/upload/a.png", 100, 100);
+            ImageProxyCache first = newCache();
+            first.get(first.variantOf(url, null));
+            Files.writeString(properties.getProxy().getCacheDir().resolve("download-1.tmp"), "partial");
+
+            ImageProxyCache second = newCache();
+            second.get(second.variantOf(url, null));
+
+            assertEquals(1, originRequests.get());
+            assertEquals(first.getTotalBytes(), second.getTotalBytes());
+            assertFalse(Files.exists(properties.getProxy().getCacheDir().resolve("download-1.tmp")));
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import nbu.cscb869.config.live.LiveUpdateProperties;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import nbu.cscb869.services.data.events.DoctorApproved;
+import nbu.cscb869.services.data.events.VisitCancelled;
+import nbu.cscb869.services.data.events.VisitDeleted;
+import nbu.cscb869.services.data.events.VisitDocumented;
+import nbu.cscb869.services.data.events.VisitRescheduled;
+import nbu.cscb869.services.data.events.VisitScheduled;
+import nbu.cscb869.services.services.utility.LiveUpdateHub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class LiveUpdateHubUnitTests {
+
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean stallSlowClient;
+
+    private LiveUpdateProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private LiveUpdateHub hub;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LiveUpdateProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (hub != null) {
+            hub.shutdown();
+        }
+    }
+
+    private void startHub() {
+        hub = new LiveUpdateHub(properties, meterRegistry);
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(hub))
+                .addFilter(stallingFilter(), "/slow")
+                .build();
+    }
+
+    private MockHttpServletResponse open(String path) throws Exception {
+        MvcResult result = mockMvc.perform(get(path)).andExpect(request().asyncStarted()).andReturn();
+        MockHttpServletResponse response = result.getResponse();
+        awaitContent(response, content -> content.contains(":connected"));
+        return response;
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, Predicate<String> condition)
+            throws InterruptedException, UnsupportedEncodingException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String content = response.getContentAsString();
+        while (!condition.test(content) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            content = response.getContentAsString();
+        }
+        assertTrue(condition.test(content), "Unexpected stream content: " + content);
+        return content;
+    }
+
+    private static VisitScheduled scheduled(long visitId, long doctorId) {
+        return new VisitScheduled(visitId, 1L, doctorId, LocalDate.of(2025, 3, 1), LocalTime.of(9, 30), Instant.now());
+    }
+
+    @Nested
+    @DisplayName("Delivery Tests")
+    class DeliveryTests {
+        @Test
+        void onEvent_ShouldStreamVisitUpdatesToAdmins_HappyPath() throws Exception {
+            startHub();
+            MockHttpServletResponse admin = open("/admin");
+
+            hub.onEvent(scheduled(3L, 2L));
+            hub.onEvent(new DoctorApproved(2L, Instant.now()));
+
+            String content = awaitContent(admin, text -> text.contains("DoctorApproved"));
+            assertTrue(content.contains("event:update"));
+            assertTrue(content.contains("\"type\":\"VisitScheduled\""));
+            assertTrue(content.contains("\"visitId\":3"));
+            assertEquals(1, hub.getConnections());
+        }
+
+        @Test
+        void onEvent_ShouldStreamOnlyTheDoctorsOwnVisits_HappyPath() throws Exception {
+            startHub();
+            MockHttpServletResponse doctor = open("/doctor/2");
+
+            hub.onEvent(scheduled(3L, 7L));
+            hub.onEvent(new DoctorApproved(2L, Instant.now()));
+            hub.onEvent(new VisitDocumented(4L, 1L, 2L, 5L, VisitStatus.COMPLETED, Instant.now()));
+
+            String content = awaitContent(doctor, text -> text.contains("VisitDocumented"));
+            assertFalse(content.contains("VisitScheduled"));
+            assertFalse(content.contains("DoctorApproved"));
+            assertTrue(content.contains("\"status\":\"COMPLETED\""));
+        }
+
+        @Test
+        void onEvent_WhenVisitReassigned_ShouldRemoveItFromPreviousDoctorAndAddItToNewOne_HappyPath() throws Exception {
+            startHub();
+            MockHttpServletResponse previousDoctor = open("/doctor/2");
+            MockHttpServletResponse newDoctor = open("/doctor/3");
+            MockHttpServletResponse admin = open("/admin");
+
+            hub.onEvent(new VisitRescheduled(4L, 1L, 2L, 3L, LocalDate.of(2025, 3, 1), LocalTime.of(9, 30), Instant.now()));
+            // Sent after the reassignment, so once they arrive everything sent before them has been written.
+            hub.onEvent(new VisitDocumented(9L, 1L, 2L, 5L, VisitStatus.COMPLETED, Instant.now()));
+            hub.onEvent(new VisitDocumented(9L, 1L, 3L, 5L, VisitStatus.COMPLETED, Instant.now()));
+
+            String removed = awaitContent(previousDoctor, text -> text.contains("\"visitId\":9"));
+            assertTrue(removed.contains("\"type\":\"" + LiveUpdateHub.VISIT_REMOVED + "\""));
+            assertFalse(removed.contains(LiveUpdateHub.VISIT_ADDED));
+            String added = awaitContent(newDoctor, text -> text.contains("\"visitId\":9"));
+            assertTrue(added.contains("\"type\":\"" + LiveUpdateHub.VISIT_ADDED + "\""));
+            assertFalse(added.contains(LiveUpdateHub.VISIT_REMOVED));
+            String all = awaitContent(admin, text -> text.contains("VisitRescheduled"));
+            assertTrue(all.contains("\"doctorId\":3"));
+        }
+
+        @Test
+        void onEvent_WhenVisitMovedWithinSameDoctor_ShouldStreamTheReschedule_EdgeCase() throws Exception {
+            startHub();
+            MockHttpServletResponse doctor = open("/doctor/2");
+
+            hub.onEvent(new VisitRescheduled(4L, 1L, 2L, 2L, LocalDate.of(2025, 3, 2), LocalTime.of(11, 0), Instant.now()));
+
+            String content = awaitContent(doctor, text -> text.contains("VisitRescheduled"));
+            assertTrue(content.contains("\"visitDate\""));
+            assertFalse(content.contains(LiveUpdateHub.VISIT_REMOVED));
+            assertFalse(content.contains(LiveUpdateHub.VISIT_ADDED));
+        }
+
+        @Test
+        void onEvent_ShouldStreamStaffCancellationsAndDeletionsToTheDoctor_HappyPath() throws Exception {
+            startHub();
+            MockHttpServletResponse doctor = open("/doctor/2");
+            MockHttpServletResponse admin = open("/admin");
+
+            hub.onEvent(new VisitCancelled(4L, 1L, 2L, VisitStatus.CANCELLED_BY_DOCTOR, Instant.now()));
+            hub.onEvent(new VisitDeleted(5L, 1L, 2L, Instant.now()));
+
+            String content = awaitContent(doctor, text -> text.contains("VisitDeleted"));
+            assertTrue(content.contains("\"status\":\"CANCELLED_BY_DOCTOR\""));
+            assertTrue(content.contains("\"visitId\":5"));
+            awaitContent(admin, text -> text.contains("VisitDeleted"));
+        }
+
+        @Test
+        void subscribe_OverMaxConnections_ShouldTellClientToRetryLater_EdgeCase() throws Exception {
+            properties.setMaxConnections(1);
+            startHub();
+            open("/admin");
+
+            MvcResult result = mockMvc.perform(get("/admin")).andReturn();
+
+            String content = awaitContent(result.getResponse(), text -> text.contains(":busy"));
+            assertTrue(content.contains("retry:60000"));
+            assertEquals(1, hub.getConnections());
+            assertEquals(1.0, meterRegistry.get("medical.live.rejected").counter().count());
+        }
+    }
+
+    @Nested
+    @DisplayName("Backpressure Tests")
+    class BackpressureTests {
+        @Test
+        void onEvent_WhenClientFallsBehind_ShouldDropBacklogAndSendResync_EdgeCase() throws Exception {
+            properties.setSenderThreads(1);
+            properties.setBufferSize(1);
+            startHub();
+            open("/slow");
+            MockHttpServletResponse admin = open("/admin");
+            stallSlowClient = true;
+
+            // The only sender thread is now stuck writing to the slow client, so neither client's queue is drained.
+            hub.onEvent(scheduled(3L, 2L));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            hub.onEvent(scheduled(4L, 2L));
+            hub.onEvent(scheduled(5L, 2L));
+
+            assertEquals(2.0, meterRegistry.get("medical.live.overflows").counter().count());
+            release.countDown();
+            String content = awaitContent(admin, text -> text.contains("event:resync"));
+            assertFalse(content.contains("\"visitId\":4"));
+        }
+    }
+
+    private Filter stallingFilter() {
+        return (servletRequest, servletResponse, chain) -> chain.doFilter(servletRequest,
+                new HttpServletResponseWrapper((HttpServletResponse) servletResponse) {
+                    @Override
+                    public ServletOutputStream getOutputStream() throws IOException {
+                        return new StallingOutputStream(super.getOutputStream());
+                    }
+                });
+    }
+
+    /**
+     * Blocks writes made by the hub's sender threads once {@link #stallSlowClient} is set, like a client that stopped
+     * reading.
+     */
+    private final class StallingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        private StallingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            stall();
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            stall();
+            delegate.write(b, off, len);
+        }
+
+        private void stall() {
+            if (stallSlowClient && Thread.currentThread().getName().startsWith("LiveUpdates-")) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+
+    @RestController
+    static class StreamController {
+        private final LiveUpdateHub hub;
+
+        StreamController(LiveUpdateHub hub) {
+            this.hub = hub;
+        }
+
+        @GetMapping("/admin")
+        SseEmitter admin() {
+            return hub.subscribeAdmin();
+        }
+
+        @GetMapping("/slow")
+        SseEmitter slow() {
+            return hub.subscribeAdmin();
+        }
+
+        @GetMapping("/doctor/{id}")
+        SseEmitter doctor(@PathVariable Long id) {
+            return hub.subscribeDoctor(id);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.services.services.utility.CloudinaryService;
+import nbu.cscb869.services.services.utility.LocalImageStore;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalImageStoreUnitTests {
+
+    @TempDir
+    private Path tempDir;
+
+    private final CloudinaryService cloudinaryService = new CloudinaryService();
+    private LocalImageStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalImageStore(tempDir.resolve("store"));
+    }
+
+    @Test
+    void upload_ShouldCopyFileIntoDoctorFolder_HappyPath() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("photo.jpg"), "image");
+
+        String url = store.upload(source);
+
+        Path stored = Path.of(URI.create(url));
+        assertTrue(stored.startsWith(store.getRoot().resolve("upload/medical_record/doctors")));
+        assertTrue(stored.toString().endsWith(".jpg"));
+        assertEquals("image", Files.readString(stored));
+    }
+
+    @Test
+    void upload_ShouldReturnUrlWithCloudinaryShape_HappyPath() throws IOException {
+        String url = store.upload(Files.writeString(tempDir.resolve("photo.png"), "image"));
+
+        String publicId = cloudinaryService.getPublicIdFromUrl(url);
+
+        assertNotNull(publicId);
+        assertTrue(publicId.startsWith("medical_record/doctors/"));
+    }
+
+    @Test
+    void deleteAll_ShouldRemoveStoredFiles_HappyPath() throws IOException {
+        String first = store.upload(Files.writeString(tempDir.resolve("a.jpg"), "image"));
+        String second = store.upload(Files.writeString(tempDir.resolve("b.png"), "image"));
+        String kept = store.upload(Files.writeString(tempDir.resolve("c.png"), "image"));
+
+        store.deleteAll(List.of(cloudinaryService.getPublicIdFromUrl(first), cloudinaryService.getPublicIdFromUrl(second)));
+
+        assertFalse(Files.exists(Path.of(URI.create(first))));
+        assertFalse(Files.exists(Path.of(URI.create(second))));
+        assertTrue(Files.exists(Path.of(URI.create(kept))));
+    }
+
+    @Test
+    void deleteAll_WithPublicIdOutsideStore_ShouldIgnoreIt_EdgeCase() throws IOException {
+        Path outside = Files.writeString(tempDir.resolve("other.jpg"), "image");
+
+        store.deleteAll(List.of("../../other", "medical_record/doctors/unknown", ""));
+
+        assertTrue(Files.exists(outside));
+    }
+
+    @Test
+    void list_ShouldReturnPublicIdsOfStoredImages_HappyPath() throws IOException {
+        String url = store.upload(Files.writeString(tempDir.resolve("a.jpg"), "image"));
+
+        List<ImageStore.StoredImage> images = store.list();
+
+        assertEquals(1, images.size());
+        assertEquals(cloudinaryService.getPublicIdFromUrl(url), images.get(0).publicId());
+        assertNotNull(images.get(0).createdAt());
+    }
+
+    @Test
+    void list_WhenNothingStored_ShouldReturnEmptyList_EdgeCase() throws IOException {
+        assertTrue(store.list().isEmpty());
+    }
+}
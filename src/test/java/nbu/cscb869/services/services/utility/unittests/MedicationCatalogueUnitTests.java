@@ -0,0 +1,188 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.medications.MedicationCatalogueProperties;
+import nbu.cscb869.data.models.Medication;
+import nbu.cscb869.data.repositories.MedicationRepository;
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MedicationCatalogueUnitTests {
+
+    @Mock
+    private MedicationRepository medicationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MedicationCatalogue catalogue;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogue = new MedicationCatalogue(medicationRepository, new MedicationCatalogueProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Medication medication(Long id, String name) {
+        Medication medication = Medication.builder().name(name).build();
+        medication.setId(id);
+        return medication;
+    }
+
+    private void givenCatalogue(Medication... medications) {
+        when(medicationRepository.findAll()).thenReturn(List.of(medications));
+    }
+
+    @Nested
+    @DisplayName("Intern Tests")
+    class InternTests {
+        @Test
+        void intern_WithKnownName_ShouldReturnReferenceWithoutLookup_HappyPath() {
+            givenCatalogue(medication(1L, "Aspirin"));
+            Medication reference = medication(1L, "Aspirin");
+            when(medicationRepository.getReferenceById(1L)).thenReturn(reference);
+
+            assertSame(reference, catalogue.intern("  ASPIRIN "));
+            verify(medicationRepository, never()).findLockedByName(any());
+            verify(medicationRepository, never()).insertIfAbsent(any());
+        }
+
+        @Test
+        void intern_WithKnownNameDifferingInAccents_ShouldReturnReferenceWithoutLookup_HappyPath() {
+            givenCatalogue(medication(1L, "Аспирин"), medication(2L, "Café"));
+            when(medicationRepository.getReferenceById(anyLong())).thenAnswer(invocation -> medication(invocation.getArgument(0), ""));
+
+            assertEquals(1L, catalogue.intern("аспирин").getId());
+            assertEquals(2L, catalogue.intern("CAFE").getId());
+            verify(medicationRepository, never()).findLockedByName(any());
+        }
+
+        @Test
+        void intern_WithNewName_ShouldAddNormalizedNameOnce_HappyPath() {
+            givenCatalogue();
+            Medication created = medication(5L, "Vitamin D3");
+            when(medicationRepository.findLockedByName("Vitamin D3")).thenReturn(Optional.empty(), Optional.of(created));
+            when(medicationRepository.getReferenceById(5L)).thenReturn(created);
+
+            assertSame(created, catalogue.intern(" Vitamin   D3"));
+
+            verify(medicationRepository).insertIfAbsent("Vitamin D3");
+            assertEquals(1.0, meterRegistry.get("medical.medications.added").counter().count());
+            // Without a transaction the name is known at once.
+            assertSame(created, catalogue.intern("vitamin d3"));
+            verify(medicationRepository, times(1)).insertIfAbsent(any());
+            assertEquals(List.of("Vitamin D3"), catalogue.suggest("d3", 5));
+        }
+
+        @Test
+        void intern_WithNewNameInTransaction_ShouldKnowItOnlyAfterCommit_HappyPath() {
+            givenCatalogue();
+            Medication created = medication(5L, "Vitamin D3");
+            when(medicationRepository.findLockedByName("Vitamin D3")).thenReturn(Optional.empty(), Optional.of(created));
+            TransactionSynchronizationManager.initSynchronization();
+
+            catalogue.intern("Vitamin D3");
+            assertTrue(catalogue.suggest("d3", 5).isEmpty());
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+            assertEquals(List.of("Vitamin D3"), catalogue.suggest("d3", 5));
+        }
+
+        @Test
+        void intern_WhenRolledBack_ShouldNotCatalogueTheName_EdgeCase() {
+            givenCatalogue();
+            when(medicationRepository.findLockedByName("Vitamin D3"))
+                    .thenReturn(Optional.empty(), Optional.of(medication(5L, "Vitamin D3")));
+            TransactionSynchronizationManager.initSynchronization();
+
+            catalogue.intern("Vitamin D3");
+            TransactionSynchronizationManager.clearSynchronization();
+
+            assertTrue(catalogue.suggest("d3", 5).isEmpty());
+        }
+
+        @Test
+        void intern_WithNameAddedElsewhere_ShouldUseExistingRowWithoutInserting_EdgeCase() {
+            givenCatalogue();
+            Medication existing = medication(9L, "Metformin");
+            when(medicationRepository.findLockedByName("metformin")).thenReturn(Optional.of(existing));
+
+            assertSame(existing, catalogue.intern("metformin"));
+            verify(medicationRepository, never()).insertIfAbsent(any());
+            assertEquals(0.0, meterRegistry.get("medical.medications.added").counter().count());
+            assertEquals(List.of("Metformin"), catalogue.suggest("met", 5));
+        }
+
+        @Test
+        void intern_WithBlankName_ShouldThrow_ErrorCase() {
+            assertThrows(InvalidInputException.class, () -> catalogue.intern("   "));
+            verifyNoInteractions(medicationRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Suggest Tests")
+    class SuggestTests {
+        @Test
+        void suggest_ShouldMatchAnyWordIgnoringCase_HappyPath() {
+            givenCatalogue(medication(1L, "Acetylsalicylic acid"), medication(2L, "Amoxicillin"),
+                    medication(3L, "Folic Acid"));
+
+            assertEquals(List.of("Acetylsalicylic acid", "Folic Acid"), catalogue.suggest("ACI", 10));
+            assertEquals(List.of("Amoxicillin"), catalogue.suggest("amox", 10));
+        }
+
+        @Test
+        void suggest_ShouldCapLimitAtConfiguredMaximum_EdgeCase() {
+            MedicationCatalogueProperties properties = new MedicationCatalogueProperties();
+            properties.setMaxSuggestions(1);
+            catalogue = new MedicationCatalogue(medicationRepository, properties, meterRegistry);
+            givenCatalogue(medication(1L, "Amlodipine"), medication(2L, "Amoxicillin"));
+
+            assertEquals(List.of("Amlodipine"), catalogue.suggest("am", 50));
+        }
+
+        @Test
+        void suggest_WithBlankText_ShouldReturnEmpty_EdgeCase() {
+            assertTrue(catalogue.suggest(" ", 10).isEmpty());
+            verifyNoInteractions(medicationRepository);
+        }
+
+        @Test
+        void refresh_ShouldReplaceCatalogue_HappyPath() {
+            givenCatalogue(medication(1L, "Aspirin"));
+            assertEquals(List.of("Aspirin"), catalogue.suggest("a", 10));
+
+            givenCatalogue(medication(1L, "Aspirin"), medication(2L, "Atenolol"));
+            catalogue.refresh();
+
+            assertEquals(List.of("Aspirin", "Atenolol"), catalogue.suggest("a", 10));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.data.models.Medication;
+import nbu.cscb869.data.models.Medicine;
+import nbu.cscb869.data.models.Treatment;
+import nbu.cscb869.services.data.dtos.MedicineUpdateDTO;
+import nbu.cscb869.services.services.utility.MedicationCatalogue;
+import nbu.cscb869.services.services.utility.MedicineReconciler;
+import nbu.cscb869.services.services.utility.MedicineReconciler.Changes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MedicineReconcilerUnitTests {
+
+    private Treatment treatment;
+    private Medicine aspirin;
+    private Medicine ibuprofen;
+    private List<String> resolved;
+    private Function<String, Medication> medications;
+
+    @BeforeEach
+    void setUp() {
+        resolved = new ArrayList<>();
+        medications = name -> {
+            resolved.add(name);
+            return medication(name);
+        };
+        treatment = new Treatment();
+        aspirin = medicine(1L, "Aspirin", "500mg", "Once a day");
+        ibuprofen = medicine(2L, "Ibuprofen", "200mg", "Twice a day");
+        treatment.getMedicines().add(aspirin);
+        treatment.getMedicines().add(ibuprofen);
+    }
+
+    private Medicine medicine(Long id, String name, String dosage, String frequency) {
+        Medicine medicine = Medicine.builder().medication(medication(name)).dosage(dosage).frequency(frequency).treatment(treatment).build();
+        medicine.setId(id);
+        return medicine;
+    }
+
+    private static Medication medication(String name) {
+        return Medication.builder().name(MedicationCatalogue.normalize(name)).build();
+    }
+
+    @Test
+    void reconcile_WithUnchangedList_ShouldChangeNothing_HappyPath() {
+        Changes changes = MedicineReconciler.reconcile(treatment, List.of(
+                new MedicineUpdateDTO(2L, "Ibuprofen", "200mg", "Twice a day"),
+                new MedicineUpdateDTO(1L, "Aspirin", "500mg", "Once a day")), medications);
+
+        assertEquals(new Changes(0, 0, 0), changes);
+        assertSame(aspirin, treatment.getMedicines().get(0));
+        assertSame(ibuprofen, treatment.getMedicines().get(1));
+        assertTrue(resolved.isEmpty());
+        assertNull(treatment.getModifiedOn());
+    }
+
+    @Test
+    void reconcile_WithOnlyDosageChanged_ShouldTouchTreatment_EdgeCase() {
+        Changes changes = MedicineReconciler.reconcile(treatment, List.of(
+                new MedicineUpdateDTO(1L, "Aspirin", "1000mg", "Once a day"),
+                new MedicineUpdateDTO(2L, "Ibuprofen", "200mg", "Twice a day")), medications);
+
+        assertEquals(new Changes(0, 1, 0), changes);
+        assertEquals("1000mg", aspirin.getDosage());
+        assertNotNull(treatment.getModifiedOn());
+    }
+
+    @Test
+    void reconcile_WithChangedAddedAndDroppedMedicines_ShouldTouchOnlyThose_HappyPath() {
+        Changes changes = MedicineReconciler.reconcile(treatment, List.of(
+                new MedicineUpdateDTO(1L, "Aspirin", "1000mg", "Once a day"),
+                new MedicineUpdateDTO(null, "Paracetamol", "500mg", "As needed")), medications);
+
+        assertEquals(new Changes(1, 1, 1), changes);
+        assertEquals(2, treatment.getMedicines().size());
+        assertSame(aspirin, treatment.getMedicines().get(0));
+        assertEquals("1000mg", aspirin.getDosage());
+        Medicine added = treatment.getMedicines().get(1);
+        assertNull(added.getId());
+        assertEquals("Paracetamol", added.getName());
+        assertSame(treatment, added.getTreatment());
+        assertEquals(List.of("Paracetamol"), resolved);
+    }
+
+    @Test
+    void reconcile_WithoutIds_ShouldMatchByCatalogueKey_EdgeCase() {
+        Changes changes = MedicineReconciler.reconcile(treatment, List.of(
+                new MedicineUpdateDTO(null, " aspirin ", "500mg", "Once a day"),
+                new MedicineUpdateDTO(null, "Ibuprofen", "200mg", "Twice a day")), medications);
+
+        assertEquals(new Changes(0, 0, 0), changes);
+        assertSame(aspirin, treatment.getMedicines().get(0));
+        assertEquals("Aspirin", aspirin.getName());
+        assertTrue(resolved.isEmpty());
+    }
+
+    @Test
+    void reconcile_WithRenamedMedicine_ShouldPrescribeOtherMedication_HappyPath() {
+        Medication before = aspirin.getMedication();
+
+        Changes changes = MedicineReconciler.reconcile(treatment, List.of(
+                new MedicineUpdateDTO(1L, "Acetylsalicylic  acid", "500mg", "Once a day"),
+                new MedicineUpdateDTO(2L, "Ibuprofen", "200mg", "Twice a day")), medications);
+
+        assertEquals(new Changes(0, 1, 0), changes);
+        assertSame(aspirin, treatment.getMedicines().get(0));
+        assertNotSame(before, aspirin.getMedication());
+        assertEquals("Acetylsalicylic acid", aspirin.getName());
+        assertEquals(List.of("Acetylsalicylic  acid"), resolved);
+    }
+
+    @Test
+    void reconcile_WithUnknownId_ShouldFallBackToName_EdgeCase() {
+        Changes changes = MedicineReconciler.reconcile(treatment, List.of(
+                new MedicineUpdateDTO(99L, "Ibuprofen", "200mg", "Twice a day")), medications);
+
+        assertEquals(new Changes(0, 0, 1), changes);
+        assertEquals(List.of(ibuprofen), treatment.getMedicines());
+    }
+
+    @Test
+    void reconcile_WithNullList_ShouldRemoveAllMedicines_EdgeCase() {
+        Changes changes = MedicineReconciler.reconcile(treatment, null, medications);
+
+        assertEquals(new Changes(0, 0, 2), changes);
+        assertTrue(treatment.getMedicines().isEmpty());
+    }
+}
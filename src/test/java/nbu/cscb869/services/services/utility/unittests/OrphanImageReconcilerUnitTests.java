@@ -0,0 +1,91 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.data.repositories.DoctorRepository;
+import nbu.cscb869.data.repositories.ImageDeletionRepository;
+import nbu.cscb869.services.services.utility.CloudinaryService;
+import nbu.cscb869.services.services.utility.ImageDeletionQueue;
+import nbu.cscb869.services.services.utility.OrphanImageReconciler;
+import nbu.cscb869.services.services.utility.contracts.ImageStore;
+import nbu.cscb869.services.services.utility.contracts.ImageStore.StoredImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrphanImageReconcilerUnitTests {
+
+    private static final Instant OLD = Instant.now().minus(Duration.ofDays(2));
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private ImageDeletionRepository imageDeletionRepository;
+
+    @Mock
+    private ImageDeletionQueue imageDeletionQueue;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrphanImageReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new OrphanImageReconciler(imageStore, doctorRepository, imageDeletionRepository, imageDeletionQueue,
+                new CloudinaryService(), new ImagePipelineProperties(), transactionManager,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void reconcile_ShouldQueueOnlyUnreferencedImagesPastGracePeriod_HappyPath() throws IOException {
+        when(imageStore.list()).thenReturn(List.of(
+                new StoredImage("medical_record/doctors/referenced", OLD),
+                new StoredImage("medical_record/doctors/queued", OLD),
+                new StoredImage("medical_record/doctors/orphan", OLD),
+                new StoredImage("medical_record/doctors/just-uploaded", Instant.now())));
+        when(doctorRepository.findAllImageUrls()).thenReturn(List.of(
+                "https://res.cloudinary.com/demo/image/upload/v17/medical_record/doctors/referenced.jpg",
+                "https://example.com/not-a-stored-image"));
+        when(imageDeletionRepository.findAllPublicIds()).thenReturn(List.of("medical_record/doctors/queued"));
+
+        int queued = reconciler.reconcile();
+
+        assertEquals(1, queued);
+        verify(imageDeletionQueue).enqueuePublicIds(List.of("medical_record/doctors/orphan"));
+    }
+
+    @Test
+    void reconcile_WhenNoOrphans_ShouldNotQueueAnything_EdgeCase() throws IOException {
+        when(imageStore.list()).thenReturn(List.of(new StoredImage("medical_record/doctors/a", OLD)));
+        when(doctorRepository.findAllImageUrls()).thenReturn(List.of(
+                "https://res.cloudinary.com/demo/image/upload/v1/medical_record/doctors/a.png"));
+
+        assertEquals(0, reconciler.reconcile());
+        verifyNoInteractions(imageDeletionQueue);
+    }
+
+    @Test
+    void reconcile_WhenStoreCannotBeListed_ShouldSkipPass_ErrorCase() throws IOException {
+        when(imageStore.list()).thenThrow(new IOException("connection refused"));
+
+        assertEquals(0, reconciler.reconcile());
+        verifyNoInteractions(doctorRepository, imageDeletionQueue);
+    }
+}
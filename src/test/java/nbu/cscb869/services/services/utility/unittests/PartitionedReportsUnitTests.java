@@ -0,0 +1,207 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.reports.ReportPartitionProperties;
+import nbu.cscb869.services.services.utility.PartitionedReports;
+import nbu.cscb869.services.services.utility.PartitionedReports.DateRange;
+import nbu.cscb869.services.services.utility.PartitionedReports.RangeSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedReportsUnitTests {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor executor;
+    private SimpleMeterRegistry meterRegistry;
+    private PartitionedReports reports;
+
+    @BeforeEach
+    void setUp() {
+        ReportPartitionProperties properties = new ReportPartitionProperties();
+        properties.setPartitionLength(Period.ofMonths(1));
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(3);
+        executor.setMaxPoolSize(3);
+        executor.setThreadNamePrefix("ReportPartitionTest-");
+        executor.initialize();
+        meterRegistry = new SimpleMeterRegistry();
+        reports = new PartitionedReports(properties, executor, transactionManager, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * One row per day of the range, numbered by the day of the year, recording the threads and users reading them.
+     */
+    private static class DailyRows implements RangeSource<Long> {
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final Map<DateRange, Object> users = new ConcurrentHashMap<>();
+        final List<DateRange> fetched = new ArrayList<>();
+
+        @Override
+        public long count(DateRange range) {
+            record(range);
+            return range.to().toEpochDay() - range.from().toEpochDay() + 1;
+        }
+
+        @Override
+        public List<Long> fetch(DateRange range, int offset, int limit) {
+            record(range);
+            synchronized (fetched) {
+                fetched.add(range);
+            }
+            long first = range.from().getDayOfYear() + offset;
+            return LongStream.range(first, first + limit).boxed().toList();
+        }
+
+        private void record(DateRange range) {
+            threads.add(Thread.currentThread().getName());
+            Object user = SecurityContextHolder.getContext().getAuthentication();
+            users.put(range, user == null ? "none" : user);
+        }
+    }
+
+    @Test
+    void partition_WithLongRange_ShouldSplitIntoConsecutivePartitions_HappyPath() {
+        List<DateRange> ranges = PartitionedReports.partition(START, LocalDate.of(2024, 3, 10), Period.ofMonths(1));
+
+        assertEquals(List.of(
+                new DateRange(START, LocalDate.of(2024, 1, 31)),
+                new DateRange(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29)),
+                new DateRange(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 10))), ranges);
+    }
+
+    @Test
+    void partition_WithSingleDay_ShouldReturnOnePartition_EdgeCase() {
+        assertEquals(List.of(new DateRange(START, START)), PartitionedReports.partition(START, START, Period.ofMonths(1)));
+    }
+
+    @Test
+    void partition_WithZeroLength_ShouldReturnWholeRange_EdgeCase() {
+        LocalDate end = LocalDate.of(2030, 1, 1);
+        assertEquals(List.of(new DateRange(START, end)), PartitionedReports.partition(START, end, Period.ZERO));
+    }
+
+    @Test
+    void page_AcrossPartitions_ShouldConcatenateOnlyTheNeededSlicesInOrder_HappyPath() {
+        DailyRows rows = new DailyRows();
+
+        // Days 21 to 40 of 2024: the end of January and the start of February.
+        Page<Long> page = reports.page(START, LocalDate.of(2024, 12, 31), PageRequest.of(1, 20), rows);
+
+        assertEquals(LongStream.rangeClosed(21, 40).boxed().toList(), page.getContent());
+        assertEquals(366, page.getTotalElements());
+        assertEquals(List.of(new DateRange(START, LocalDate.of(2024, 1, 31)),
+                new DateRange(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29))),
+                rows.fetched.stream().sorted((a, b) -> a.from().compareTo(b.from())).toList());
+        assertTrue(rows.threads.stream().allMatch(name -> name.startsWith("ReportPartitionTest-")));
+        assertEquals(2, meterRegistry.get("medical.reports.partitioned").tag("mode", "parallel").timer().count());
+    }
+
+    @Test
+    void page_BeyondLastRow_ShouldReturnEmptyPageWithTotal_EdgeCase() {
+        DailyRows rows = new DailyRows();
+
+        Page<Long> page = reports.page(START, LocalDate.of(2024, 2, 29), PageRequest.of(10, 50), rows);
+
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(60, page.getTotalElements());
+        assertTrue(rows.fetched.isEmpty());
+    }
+
+    @Test
+    void page_WithSinglePartition_ShouldRunOnCallerThread_EdgeCase() {
+        DailyRows rows = new DailyRows();
+
+        Page<Long> page = reports.page(START, LocalDate.of(2024, 1, 10), PageRequest.of(0, 5), rows);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), page.getContent());
+        assertEquals(Set.of(Thread.currentThread().getName()), rows.threads);
+    }
+
+    @Test
+    void page_WithinTransaction_ShouldRunOnCallerThread_EdgeCase() {
+        DailyRows rows = new DailyRows();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            Page<Long> page = reports.page(START, LocalDate.of(2024, 12, 31), PageRequest.of(0, 40), rows);
+
+            assertEquals(40, page.getContent().size());
+            assertEquals(Set.of(Thread.currentThread().getName()), rows.threads);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    void page_OnWorkers_ShouldRunAsCallerAndWithinCallerWorkload_HappyPath() {
+        UsernamePasswordAuthenticationToken user = new UsernamePasswordAuthenticationToken("admin", "pass", List.of());
+        SecurityContextHolder.getContext().setAuthentication(user);
+        Map<DateRange, Workload> workloads = new ConcurrentHashMap<>();
+        DailyRows rows = new DailyRows() {
+            @Override
+            public long count(DateRange range) {
+                workloads.put(range, WorkloadContext.current());
+                return super.count(range);
+            }
+        };
+
+        WorkloadContext.callWithin(Workload.REPORTING,
+                () -> reports.page(START, LocalDate.of(2024, 6, 30), PageRequest.of(0, 10), rows));
+
+        assertEquals(6, workloads.size());
+        assertTrue(workloads.values().stream().allMatch(Workload.REPORTING::equals));
+        assertTrue(rows.users.values().stream().allMatch(user::equals));
+    }
+
+    @Test
+    void page_WhenPartitionFails_ShouldRethrowItsException_ErrorCase() {
+        DailyRows rows = new DailyRows() {
+            @Override
+            public long count(DateRange range) {
+                if (range.from().getMonthValue() == 3) {
+                    throw new InvalidInputException("broken partition");
+                }
+                return super.count(range);
+            }
+        };
+
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> reports.page(START, LocalDate.of(2024, 6, 30), PageRequest.of(0, 10), rows));
+        assertEquals("broken partition", exception.getMessage());
+    }
+}
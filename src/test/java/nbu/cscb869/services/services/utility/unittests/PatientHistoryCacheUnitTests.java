@@ -0,0 +1,302 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.datasource.DataSourceRoutingProperties;
+import nbu.cscb869.config.history.PatientHistoryCacheProperties;
+import nbu.cscb869.services.data.dtos.VisitViewDTO;
+import nbu.cscb869.services.services.utility.PatientHistoryCache;
+import nbu.cscb869.services.services.utility.PatientHistoryCache.PatientTimeline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PatientHistoryCacheUnitTests {
+
+    private static final String OWNER = "patient-owner-id";
+
+    @Mock
+    private ObjectProvider<DataSourceRoutingProperties> routingProperties;
+
+    private PatientHistoryCacheProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private PatientHistoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PatientHistoryCacheProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2025-01-01T08:00:00Z"));
+        cache = newCache();
+    }
+
+    private PatientHistoryCache newCache() {
+        return new PatientHistoryCache(properties, new ObjectMapper().findAndRegisterModules(), routingProperties,
+                meterRegistry, clock);
+    }
+
+    private static VisitViewDTO visit(long id, LocalDate date) {
+        VisitViewDTO visit = new VisitViewDTO();
+        visit.setId(id);
+        visit.setVisitDate(date);
+        visit.setVisitTime(LocalTime.of(10, 0));
+        visit.setNotes("Visit " + id);
+        return visit;
+    }
+
+    private static List<Long> ids(PatientTimeline timeline) {
+        return timeline.visits().stream().map(VisitViewDTO::getId).toList();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    @Nested
+    @DisplayName("Put and Get Tests")
+    class PutAndGetTests {
+        @Test
+        void get_AfterPut_ShouldReturnCopyOrderedNewestFirst_HappyPath() {
+            LocalDate today = LocalDate.now();
+            cache.put(1L, new PatientTimeline(OWNER, List.of(visit(1, today.minusDays(3)), visit(2, today))),
+                    cache.currentSequence());
+
+            PatientTimeline first = cache.get(1L).orElseThrow();
+            first.visits().get(0).setNotes("changed by caller");
+            PatientTimeline second = cache.get(1L).orElseThrow();
+
+            assertEquals(OWNER, second.ownerKeycloakId());
+            assertEquals(List.of(2L, 1L), ids(second));
+            assertEquals("Visit 2", second.visits().get(0).getNotes());
+            assertEquals(2.0, meterRegistry.get("medical.history.cache.requests").tag("result", "hit").counter().count());
+        }
+
+        @Test
+        void get_WhenNotCached_ShouldCountMiss_EdgeCase() {
+            assertTrue(cache.get(1L).isEmpty());
+            assertEquals(1.0, meterRegistry.get("medical.history.cache.requests").tag("result", "miss").counter().count());
+        }
+
+        @Test
+        void get_AfterTimeToLive_ShouldCountMissAndReadAgain_EdgeCase() {
+            properties.setTimeToLive(Duration.ofMinutes(30));
+            cache.put(1L, new PatientTimeline(OWNER, List.of(visit(1, LocalDate.now()))), cache.currentSequence());
+            clock.advance(Duration.ofMinutes(30));
+            assertTrue(cache.get(1L).isPresent());
+
+            clock.advance(Duration.ofSeconds(1));
+
+            assertTrue(cache.get(1L).isEmpty());
+            assertEquals(0, cache.getTotalBytes());
+        }
+
+        @Test
+        void get_AfterTimeToLiveOfSnapshotUpdatedInPlace_ShouldStillExpire_EdgeCase() {
+            properties.setTimeToLive(Duration.ofMinutes(30));
+            cache.put(1L, new PatientTimeline(OWNER, List.of(visit(1, LocalDate.now()))), cache.currentSequence());
+
+            clock.advance(Duration.ofMinutes(20));
+            cache.upsertVisit(1L, visit(2, LocalDate.now()));
+            assertEquals(List.of(2L, 1L), ids(cache.get(1L).orElseThrow()));
+            clock.advance(Duration.ofMinutes(20));
+
+            assertTrue(cache.get(1L).isEmpty());
+        }
+
+        @Test
+        void put_WhenPatientChangedDuringRead_ShouldDiscardTimeline_EdgeCase() {
+            long readSequence = cache.currentSequence();
+            cache.evict(1L);
+
+            cache.put(1L, new PatientTimeline(OWNER, List.of(visit(1, LocalDate.now()))), readSequence);
+
+            assertTrue(cache.get(1L).isEmpty());
+        }
+
+        @Test
+        void put_WhenOtherPatientChangedDuringRead_ShouldStoreTimeline_HappyPath() {
+            long readSequence = cache.currentSequence();
+            cache.evict(2L);
+
+            cache.put(1L, new PatientTimeline(OWNER, List.of(visit(1, LocalDate.now()))), readSequence);
+
+            assertTrue(cache.get(1L).isPresent());
+        }
+
+        @Test
+        void put_WhenPatientChangedWithinReplicaLag_ShouldDiscardTimeline_EdgeCase() {
+            when(routingProperties.getIfAvailable()).thenReturn(new DataSourceRoutingProperties());
+            cache = newCache();
+            cache.evict(1L);
+
+            cache.put(1L, new PatientTimeline(OWNER, List.of(visit(1, LocalDate.now()))), cache.currentSequence());
+            assertTrue(cache.get(1L).isEmpty());
+
+            clock.advance(Duration.ofSeconds(15));
+            cache.put(1L, new PatientTimeline(OWNER, List.of(visit(1, LocalDate.now()))), cache.currentSequence());
+            assertTrue(cache.get(1L).isPresent());
+        }
+
+        @Test
+        void put_WhenOverSizeLimit_ShouldEvictLeastRecentlyViewed_EdgeCase() {
+            PatientTimeline timeline = new PatientTimeline(OWNER, List.of(visit(1, LocalDate.now())));
+            cache.put(1L, timeline, cache.currentSequence());
+            long snapshotSize = cache.getTotalBytes();
+            properties.setMaxSize(DataSize.ofBytes(snapshotSize * 2));
+            cache.put(2L, timeline, cache.currentSequence());
+            cache.get(1L);
+
+            cache.put(3L, timeline, cache.currentSequence());
+
+            assertTrue(cache.get(1L).isPresent());
+            assertTrue(cache.get(2L).isEmpty());
+            assertTrue(cache.get(3L).isPresent());
+            assertEquals(snapshotSize * 2, cache.getTotalBytes());
+        }
+    }
+
+    @Nested
+    @DisplayName("Change Tests")
+    class ChangeTests {
+        @BeforeEach
+        void cacheTimeline() {
+            cache.put(1L, new PatientTimeline(OWNER, List.of(visit(1, LocalDate.now().minusDays(1)))),
+                    cache.currentSequence());
+        }
+
+        @Test
+        void upsertVisit_ShouldAddNewAndReplaceExistingVisits_HappyPath() {
+            VisitViewDTO documented = visit(1, LocalDate.now().minusDays(1));
+            documented.setNotes("Documented");
+
+            cache.upsertVisit(1L, visit(2, LocalDate.now()));
+            cache.upsertVisit(1L, documented);
+
+            PatientTimeline timeline = cache.get(1L).orElseThrow();
+            assertEquals(List.of(2L, 1L), ids(timeline));
+            assertEquals("Documented", timeline.visits().get(1).getNotes());
+        }
+
+        @Test
+        void removeVisit_ShouldDropVisitFromTimeline_HappyPath() {
+            cache.removeVisit(1L, 1L);
+
+            assertEquals(List.of(), ids(cache.get(1L).orElseThrow()));
+        }
+
+        @Test
+        void upsertVisit_WhenPatientNotCached_ShouldNotCreateTimeline_EdgeCase() {
+            cache.upsertVisit(2L, visit(5, LocalDate.now()));
+
+            assertTrue(cache.get(2L).isEmpty());
+        }
+
+        @Test
+        void visitRecordChanged_WithVisitUpsertedInSameTransaction_ShouldKeepUpdatedSnapshot_HappyPath() {
+            VisitViewDTO documented = visit(1, LocalDate.now().minusDays(1));
+            documented.setNotes("Documented with treatment");
+            TransactionSynchronizationManager.initSynchronization();
+
+            cache.upsertVisit(1L, documented);
+            // The treatment is flushed at commit, after the visit service recorded the visit.
+            cache.visitRecordChanged(1L, 1L);
+            commit();
+
+            assertEquals("Documented with treatment", cache.get(1L).orElseThrow().visits().get(0).getNotes());
+        }
+
+        @Test
+        void visitRecordChanged_WithoutTheVisitUpserted_ShouldEvictSnapshotAfterCommit_HappyPath() {
+            TransactionSynchronizationManager.initSynchronization();
+
+            cache.upsertVisit(1L, visit(2, LocalDate.now()));
+            cache.visitRecordChanged(1L, 1L);
+            assertTrue(cache.get(1L).isPresent());
+            commit();
+
+            assertTrue(cache.get(1L).isEmpty());
+        }
+
+        @Test
+        void visitRecordChanged_WhenRolledBack_ShouldKeepSnapshot_EdgeCase() {
+            TransactionSynchronizationManager.initSynchronization();
+
+            cache.visitRecordChanged(1L, 1L);
+            TransactionSynchronizationManager.clearSynchronization();
+
+            assertTrue(cache.get(1L).isPresent());
+        }
+
+        @Test
+        void evictAll_ShouldDropEverySnapshotAndRejectOlderReads_HappyPath() {
+            long readSequence = cache.currentSequence();
+
+            cache.evictAll();
+            cache.put(2L, new PatientTimeline(OWNER, List.of()), readSequence);
+
+            assertTrue(cache.get(1L).isEmpty());
+            assertTrue(cache.get(2L).isEmpty());
+            assertEquals(0, cache.getTotalBytes());
+        }
+
+        @Test
+        void get_WhenDisabled_ShouldNeverServeSnapshots_EdgeCase() {
+            properties.setEnabled(false);
+
+            assertTrue(cache.get(1L).isEmpty());
+            cache.put(2L, new PatientTimeline(OWNER, List.of()), cache.currentSequence());
+            properties.setEnabled(true);
+            assertTrue(cache.get(2L).isEmpty());
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.repositories.PatientReachRepository;
+import nbu.cscb869.data.repositories.PatientReachRepository.Key;
+import nbu.cscb869.data.repositories.PatientReachRepository.PatientConsumer;
+import nbu.cscb869.data.repositories.PatientReachRepository.Sketch;
+import nbu.cscb869.services.data.dtos.PatientReachRowDTO;
+import nbu.cscb869.services.services.utility.HyperLogLog;
+import nbu.cscb869.services.services.utility.PatientReachSketches;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientReachSketchesUnitTests {
+
+    private static final LocalDate MARCH = LocalDate.of(2024, 3, 1);
+
+    @Mock
+    private PatientReachRepository patientReachRepository;
+
+    private PatientReachSketches sketches;
+
+    @BeforeEach
+    void setUp() {
+        sketches = new PatientReachSketches(patientReachRepository);
+    }
+
+    private static byte[] sketchOf(long... patientIds) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long patientId : patientIds) {
+            sketch.add(patientId);
+        }
+        return sketch.toBytes();
+    }
+
+    private void givenSketches(Sketch... stored) {
+        doAnswer(invocation -> {
+            Consumer<Sketch> consumer = invocation.getArgument(4);
+            for (Sketch sketch : stored) {
+                consumer.accept(sketch);
+            }
+            return null;
+        }).when(patientReachRepository).forEachSketch(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_WithKeys_ShouldSketchDistinctPatientsPerDoctorOfMonth_HappyPath() {
+        doAnswer(invocation -> {
+            PatientConsumer consumer = invocation.getArgument(3);
+            consumer.accept(7L, 1L);
+            consumer.accept(7L, 1L);
+            consumer.accept(7L, 2L);
+            return null;
+        }).when(patientReachRepository).forEachPatient(eq(AnalyticsDimension.DOCTOR), eq(MARCH), any(), any());
+
+        sketches.rebuild(List.of(new Key(AnalyticsDimension.DOCTOR, 7L, MARCH), new Key(AnalyticsDimension.DOCTOR, 8L, MARCH),
+                new Key(AnalyticsDimension.DOCTOR, 7L, MARCH)));
+
+        ArgumentCaptor<Map<Long, byte[]>> replaced = ArgumentCaptor.forClass(Map.class);
+        verify(patientReachRepository).replace(eq(AnalyticsDimension.DOCTOR), eq(MARCH), eq(List.of(7L, 8L)), replaced.capture());
+        assertEquals(2L, HyperLogLog.fromBytes(replaced.getValue().get(7L)).estimate());
+        assertEquals(1, replaced.getValue().size());
+    }
+
+    @Test
+    void rebuild_WithDoctorsAndDiagnosesOfTwoMonths_ShouldReplaceEachGroupOnce_HappyPath() {
+        sketches.rebuild(List.of(new Key(AnalyticsDimension.DOCTOR, 7L, MARCH), new Key(AnalyticsDimension.DIAGNOSIS, 4L, MARCH),
+                new Key(AnalyticsDimension.DIAGNOSIS, 4L, MARCH.plusMonths(1))));
+
+        verify(patientReachRepository).replace(AnalyticsDimension.DOCTOR, MARCH, List.of(7L), Map.of());
+        verify(patientReachRepository).replace(AnalyticsDimension.DIAGNOSIS, MARCH, List.of(4L), Map.of());
+        verify(patientReachRepository).replace(AnalyticsDimension.DIAGNOSIS, MARCH.plusMonths(1), List.of(4L), Map.of());
+    }
+
+    @Test
+    void estimate_OverMonths_ShouldCountPatientSeenInSeveralMonthsOnce_HappyPath() {
+        givenSketches(new Sketch(7L, "Dr. House", sketchOf(1, 2, 3)), new Sketch(7L, "Dr. House", sketchOf(3, 4)),
+                new Sketch(8L, "Dr. Grey", sketchOf(5)));
+
+        List<PatientReachRowDTO> rows = sketches.estimate(AnalyticsDimension.DOCTOR, null, MARCH, MARCH.plusMonths(1), 10);
+
+        assertEquals(2, rows.size());
+        assertEquals("Dr. House", rows.get(0).getName());
+        assertEquals(4L, rows.get(0).getPatients());
+        assertEquals(1L, rows.get(1).getPatients());
+    }
+
+    @Test
+    void estimate_WithMoreIdsThanLimit_ShouldStopAtLimit_EdgeCase() {
+        givenSketches(new Sketch(1L, "A", sketchOf(1)), new Sketch(2L, "B", sketchOf(1)), new Sketch(2L, "B", sketchOf(2)),
+                new Sketch(3L, "C", sketchOf(1)));
+
+        List<PatientReachRowDTO> rows = sketches.estimate(AnalyticsDimension.DIAGNOSIS, null, null, null, 2);
+
+        assertEquals(List.of(1L, 2L), rows.stream().map(PatientReachRowDTO::getId).toList());
+        assertEquals(2L, rows.get(1).getPatients());
+    }
+
+    @Test
+    void estimate_WithoutSketches_ShouldReturnNoRows_EdgeCase() {
+        assertTrue(sketches.estimate(AnalyticsDimension.DOCTOR, 7L, null, null, 10).isEmpty());
+    }
+}
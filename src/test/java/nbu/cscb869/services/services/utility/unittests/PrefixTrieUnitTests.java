@@ -0,0 +1,56 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.services.services.utility.PrefixTrie;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieUnitTests {
+
+    private final PrefixTrie<String> trie = PrefixTrie.<String>empty()
+            .with("ibuprofen", "Ibuprofen")
+            .with("aspirin", "Aspirin")
+            .with("amoxicillin", "Amoxicillin")
+            .with("acid", "Acetylsalicylic acid")
+            .with("acetylsalicylic acid", "Acetylsalicylic acid");
+
+    @Test
+    void find_WithPrefix_ShouldReturnMatchesInKeyOrder_HappyPath() {
+        assertEquals(List.of("Acetylsalicylic acid", "Amoxicillin", "Aspirin"), trie.find("a", 10));
+        assertEquals(List.of("Ibuprofen"), trie.find("ibu", 10));
+    }
+
+    @Test
+    void find_WithValueUnderSeveralKeys_ShouldReturnItOnce_EdgeCase() {
+        assertEquals(List.of("Acetylsalicylic acid"), trie.find("ac", 10));
+    }
+
+    @Test
+    void find_WithLimit_ShouldStopAtLimit_EdgeCase() {
+        assertEquals(List.of("Acetylsalicylic acid", "Amoxicillin"), trie.find("a", 2));
+        assertEquals(List.of(), trie.find("a", 0));
+    }
+
+    @Test
+    void find_WithUnknownPrefix_ShouldReturnEmpty_ErrorCase() {
+        assertTrue(trie.find("x", 10).isEmpty());
+        assertTrue(trie.find("aspirins", 10).isEmpty());
+    }
+
+    @Test
+    void with_ShouldLeaveOriginalUnchanged_HappyPath() {
+        PrefixTrie<String> extended = trie.with("atenolol", "Atenolol");
+
+        assertEquals(List.of("Atenolol"), extended.find("at", 10));
+        assertTrue(trie.find("at", 10).isEmpty());
+        assertEquals(5, trie.size());
+        assertEquals(6, extended.size());
+    }
+
+    @Test
+    void with_WithExistingPair_ShouldReturnSameTrie_EdgeCase() {
+        assertSame(trie, trie.with("aspirin", "Aspirin"));
+    }
+}
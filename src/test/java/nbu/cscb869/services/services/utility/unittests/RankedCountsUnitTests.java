@@ -0,0 +1,78 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.services.services.utility.RankedCounts;
+import nbu.cscb869.services.services.utility.RankedCounts.Ranked;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedCountsUnitTests {
+
+    @Test
+    void top_WithCounts_ShouldReturnHighestFirstAndTiesByKey_HappyPath() {
+        RankedCounts<Long> counts = RankedCounts.of(Map.of(1L, 3L, 2L, 7L, 3L, 3L, 4L, 1L));
+
+        assertEquals(List.of(new Ranked<>(2L, 7L), new Ranked<>(1L, 3L), new Ranked<>(3L, 3L)), counts.top(3));
+    }
+
+    @Test
+    void add_ToExistingKey_ShouldMoveItInTheRanking_HappyPath() {
+        RankedCounts<Long> counts = RankedCounts.of(Map.of(1L, 3L, 2L, 7L));
+
+        counts.add(1L, 5);
+
+        assertEquals(List.of(new Ranked<>(1L, 8L), new Ranked<>(2L, 7L)), counts.top(2));
+        assertEquals(8L, counts.count(1L));
+    }
+
+    @Test
+    void add_DroppingCountToZero_ShouldRemoveKey_EdgeCase() {
+        RankedCounts<Long> counts = RankedCounts.of(Map.of(1L, 1L, 2L, 2L));
+
+        counts.add(1L, -1);
+        counts.add(3L, -1);
+
+        assertEquals(List.of(new Ranked<>(2L, 2L)), counts.top(10));
+        assertEquals(1, counts.size());
+        assertEquals(0L, counts.count(3L));
+    }
+
+    @Test
+    void top_WithLimitAboveSize_ShouldReturnAllKeys_EdgeCase() {
+        RankedCounts<Integer> counts = RankedCounts.of(Map.of(1, 2L));
+
+        assertEquals(1, counts.top(100).size());
+        assertTrue(new RankedCounts<Integer>().top(5).isEmpty());
+    }
+
+    @Test
+    void top_AfterRandomUpdates_ShouldMatchFullSort_HappyPath() {
+        Random random = new Random(42);
+        RankedCounts<Long> counts = new RankedCounts<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(500);
+            int delta = random.nextInt(4) == 0 ? -1 : 1;
+            counts.add(key, delta);
+            long updated = expected.getOrDefault(key, 0L) + delta;
+            if (updated > 0) {
+                expected.put(key, updated);
+            } else {
+                expected.remove(key);
+            }
+        }
+
+        List<Ranked<Long>> sorted = expected.entrySet().stream()
+                .map(entry -> new Ranked<>(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.<Ranked<Long>>comparingLong(Ranked::count).reversed().thenComparing(Ranked::key))
+                .toList();
+        assertEquals(sorted.subList(0, 10), counts.top(10));
+        assertEquals(expected.size(), counts.size());
+    }
+}
@@ -0,0 +1,229 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.datasource.Workload;
+import nbu.cscb869.config.datasource.WorkloadContext;
+import nbu.cscb869.config.reports.ReportJobProperties;
+import nbu.cscb869.data.dto.DiagnosisGroupVisitCountDTO;
+import nbu.cscb869.data.models.ReportJob;
+import nbu.cscb869.data.models.enums.ReportJobStatus;
+import nbu.cscb869.data.models.enums.ReportType;
+import nbu.cscb869.data.repositories.ReportJobRepository;
+import nbu.cscb869.services.data.dtos.PatientViewDTO;
+import nbu.cscb869.services.services.contracts.DiagnosisService;
+import nbu.cscb869.services.services.contracts.DoctorService;
+import nbu.cscb869.services.services.contracts.PatientService;
+import nbu.cscb869.services.services.contracts.VisitService;
+import nbu.cscb869.services.services.utility.ReportJobWorker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobWorkerUnitTests {
+
+    @Mock
+    private ReportJobRepository reportJobRepository;
+    @Mock
+    private VisitService visitService;
+    @Mock
+    private DoctorService doctorService;
+    @Mock
+    private DiagnosisService diagnosisService;
+    @Mock
+    private PatientService patientService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReportJobProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ReportJobProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private ReportJobWorker worker(TaskExecutor executor) {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return new ReportJobWorker(reportJobRepository, visitService, doctorService, diagnosisService, patientService,
+                properties, executor, objectMapper, transactionManager, meterRegistry);
+    }
+
+    private static ReportJob chaptersJob() {
+        ReportJob job = ReportJob.builder()
+                .reportType(ReportType.DIAGNOSIS_CHAPTERS)
+                .parameters("{\"type\":\"DIAGNOSIS_CHAPTERS\"}")
+                .status(ReportJobStatus.RUNNING)
+                .requestedBy("admin-id")
+                .build();
+        job.setId(7L);
+        return job;
+    }
+
+    private static String gunzip(byte[] bytes) throws Exception {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Nested
+    @DisplayName("Run Tests")
+    class RunTests {
+        @Test
+        void dispatch_WithClaimedJob_ShouldStoreCompressedReport_HappyPath() throws Exception {
+            when(reportJobRepository.claim(eq(7L), any())).thenReturn(1);
+            when(reportJobRepository.findById(7L)).thenReturn(Optional.of(chaptersJob()));
+            when(diagnosisService.getVisitCountsByChapter())
+                    .thenReturn(List.of(new DiagnosisGroupVisitCountDTO("X", 4L)));
+
+            worker(new SyncTaskExecutor()).dispatch(7L);
+
+            ArgumentCaptor<byte[]> result = ArgumentCaptor.forClass(byte[].class);
+            ArgumentCaptor<LocalDateTime> completedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+            ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(reportJobRepository).complete(eq(7L), result.capture(), completedAt.capture(), expiresAt.capture());
+            assertTrue(gunzip(result.getValue()).contains("\"visitCount\":4"));
+            assertEquals(properties.getResultTtl(), Duration.between(completedAt.getValue(), expiresAt.getValue()));
+            assertEquals(1, meterRegistry.get("medical.reports.jobs").tag("outcome", "completed").timer().count());
+        }
+
+        @Test
+        void dispatch_WithPatientsByDiagnosisJob_ShouldStorePageOfDistinctPatients_HappyPath() throws Exception {
+            ReportJob job = ReportJob.builder()
+                    .reportType(ReportType.PATIENTS_BY_DIAGNOSIS)
+                    .parameters("{\"type\":\"PATIENTS_BY_DIAGNOSIS\",\"diagnosisId\":4,\"page\":1,\"size\":20}")
+                    .status(ReportJobStatus.RUNNING)
+                    .requestedBy("admin-id")
+                    .build();
+            job.setId(7L);
+            PatientViewDTO patient = new PatientViewDTO();
+            patient.setName("Ivan Petrov");
+            when(reportJobRepository.claim(eq(7L), any())).thenReturn(1);
+            when(reportJobRepository.findById(7L)).thenReturn(Optional.of(job));
+            when(patientService.findByDiagnosis(4L, PageRequest.of(1, 20)))
+                    .thenReturn(new PageImpl<>(List.of(patient), PageRequest.of(1, 20), 21));
+
+            worker(new SyncTaskExecutor()).dispatch(7L);
+
+            ArgumentCaptor<byte[]> result = ArgumentCaptor.forClass(byte[].class);
+            verify(reportJobRepository).complete(eq(7L), result.capture(), any(), any());
+            String report = gunzip(result.getValue());
+            assertTrue(report.contains("\"name\":\"Ivan Petrov\""));
+            assertTrue(report.contains("\"totalElements\":21"));
+            verifyNoInteractions(visitService);
+        }
+
+        @Test
+        void dispatch_WithJobClaimedElsewhere_ShouldDoNothing_EdgeCase() {
+            when(reportJobRepository.claim(eq(7L), any())).thenReturn(0);
+
+            worker(new SyncTaskExecutor()).dispatch(7L);
+
+            verify(reportJobRepository, never()).findById(anyLong());
+            verifyNoInteractions(diagnosisService);
+            verify(reportJobRepository, never()).complete(anyLong(), any(), any(), any());
+        }
+
+        @Test
+        void dispatch_WhenReportFails_ShouldRecordTheError_ErrorCase() {
+            when(reportJobRepository.claim(eq(7L), any())).thenReturn(1);
+            when(reportJobRepository.findById(7L)).thenReturn(Optional.of(chaptersJob()));
+            when(diagnosisService.getVisitCountsByChapter()).thenThrow(new IllegalStateException("x".repeat(600)));
+
+            worker(new SyncTaskExecutor()).dispatch(7L);
+
+            ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+            verify(reportJobRepository).fail(eq(7L), error.capture(), any(), any());
+            assertEquals(512, error.getValue().length());
+            verify(reportJobRepository, never()).complete(anyLong(), any(), any(), any());
+            assertEquals(1, meterRegistry.get("medical.reports.jobs").tag("outcome", "failed").timer().count());
+        }
+
+        @Test
+        void dispatch_WithClaimedJob_ShouldComputeAsRequestingAdminOnReportingPool_HappyPath() {
+            AtomicReference<Authentication> authentication = new AtomicReference<>();
+            AtomicReference<Workload> workload = new AtomicReference<>();
+            when(reportJobRepository.claim(eq(7L), any())).thenReturn(1);
+            when(reportJobRepository.findById(7L)).thenReturn(Optional.of(chaptersJob()));
+            when(diagnosisService.getVisitCountsByChapter()).thenAnswer(invocation -> {
+                authentication.set(SecurityContextHolder.getContext().getAuthentication());
+                workload.set(WorkloadContext.current());
+                return List.of();
+            });
+
+            worker(new SyncTaskExecutor()).dispatch(7L);
+
+            assertEquals("admin-id", authentication.get().getName());
+            assertEquals(List.of("ROLE_ADMIN"),
+                    authentication.get().getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+            assertEquals(Workload.REPORTING, workload.get());
+            assertNull(SecurityContextHolder.getContext().getAuthentication());
+        }
+
+        @Test
+        void dispatch_WhenWorkersAreBusy_ShouldLeaveJobQueued_EdgeCase() {
+            TaskExecutor full = task -> {
+                throw new TaskRejectedException("full");
+            };
+
+            assertDoesNotThrow(() -> worker(full).dispatch(7L));
+            verifyNoInteractions(reportJobRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Poll Tests")
+    class PollTests {
+        @Test
+        void poll_WithQueuedJobs_ShouldRequeueStalePurgeExpiredAndDispatch_HappyPath() {
+            when(reportJobRepository.findQueuedIds(any(), any())).thenReturn(List.of(7L, 8L));
+
+            worker(new SyncTaskExecutor()).poll();
+
+            verify(reportJobRepository).requeueStale(any(), any());
+            verify(reportJobRepository).deleteExpired(any());
+            verify(reportJobRepository).claim(eq(7L), any());
+            verify(reportJobRepository).claim(eq(8L), any());
+        }
+    }
+}
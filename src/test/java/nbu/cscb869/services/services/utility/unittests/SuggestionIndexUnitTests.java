@@ -0,0 +1,102 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.services.services.utility.SuggestionIndex;
+import nbu.cscb869.services.services.utility.SuggestionIndex.Entry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexUnitTests {
+
+    private final SuggestionIndex index = SuggestionIndex.of(List.of(
+            new Entry(1L, "Influenza", 40),
+            new Entry(2L, "Avian influenza", 3),
+            new Entry(3L, "Acute bronchitis", 25),
+            new Entry(4L, "Chronic bronchitis", 25),
+            new Entry(5L, "Asthma", 0)));
+
+    private static List<Long> ids(List<Entry> entries) {
+        return entries.stream().map(Entry::id).toList();
+    }
+
+    @Test
+    void top_WithSubstring_ShouldReturnContainingNamesByWeight_HappyPath() {
+        assertEquals(List.of(1L, 2L), ids(index.top("fluen", 10)));
+        assertEquals(List.of(3L, 4L), ids(index.top("BRONCH", 10)));
+    }
+
+    @Test
+    void top_WithShortText_ShouldMatchWordStartsOnly_HappyPath() {
+        assertEquals(List.of(1L, 2L), ids(index.top("in", 10)));
+        assertEquals(List.of(3L, 2L, 5L), ids(index.top("a", 10)));
+    }
+
+    @Test
+    void top_WithEqualWeights_ShouldOrderByName_EdgeCase() {
+        assertEquals(List.of(3L, 4L), ids(index.top("itis", 10)));
+    }
+
+    @Test
+    void top_WithLimit_ShouldReturnBestEntries_EdgeCase() {
+        assertEquals(List.of(3L), ids(index.top("a", 1)));
+        assertEquals(List.of(1L), ids(index.top("nza", 1)));
+        assertTrue(index.top("a", 0).isEmpty());
+    }
+
+    @Test
+    void top_WithNameMatchingSeveralWords_ShouldReturnItOnce_EdgeCase() {
+        SuggestionIndex repeated = SuggestionIndex.of(List.of(new Entry(1L, "Bacterial bronchitis, bilateral", 1)));
+
+        assertEquals(List.of(1L), ids(repeated.top("b", 10)));
+    }
+
+    @Test
+    void top_WithBlankOrUnknownText_ShouldReturnEmpty_ErrorCase() {
+        assertTrue(index.top("  ", 10).isEmpty());
+        assertTrue(index.top(null, 10).isEmpty());
+        assertTrue(index.top("xyz", 10).isEmpty());
+        assertTrue(index.top("asthmatic", 10).isEmpty());
+        assertTrue(SuggestionIndex.empty().top("flu", 10).isEmpty());
+    }
+
+    @Test
+    void top_WithRandomCatalogue_ShouldMatchFullScan_EdgeCase() {
+        Random random = new Random(42);
+        String[] syllables = {"ar", "thr", "itis", "card", "io", "neu", "ro", "gast", "ric", " ", "a"};
+        List<Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 2 + random.nextInt(5); i++) {
+                name.append(syllables[random.nextInt(syllables.length)]);
+            }
+            entries.add(new Entry(id, name.toString().trim() + id, random.nextInt(20)));
+        }
+        SuggestionIndex large = SuggestionIndex.of(entries);
+        List<Entry> ranked = entries.stream()
+                .sorted(Comparator.comparingLong(Entry::weight).reversed()
+                        .thenComparing(Entry::name, String.CASE_INSENSITIVE_ORDER))
+                .toList();
+
+        for (String query : List.of("a", "ar", "ne", "thr", "itis", "card", "roga", "io n", "gastric")) {
+            List<Entry> expected = ranked.stream()
+                    .filter(entry -> matches(entry.name(), query))
+                    .limit(7)
+                    .toList();
+            assertEquals(ids(expected), ids(large.top(query, 7)), query);
+        }
+    }
+
+    private static boolean matches(String name, String query) {
+        String key = name.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (query.length() >= SuggestionIndex.GRAM) {
+            return key.contains(query);
+        }
+        return key.startsWith(query) || key.contains(" " + query);
+    }
+}
@@ -0,0 +1,230 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.common.exceptions.EditConflictException;
+import nbu.cscb869.common.exceptions.EditConflictException.FieldConflict;
+import nbu.cscb869.config.edits.VisitEditProperties;
+import nbu.cscb869.data.models.Doctor;
+import nbu.cscb869.data.models.Medication;
+import nbu.cscb869.data.models.Medicine;
+import nbu.cscb869.data.models.Patient;
+import nbu.cscb869.data.models.Treatment;
+import nbu.cscb869.data.models.Visit;
+import nbu.cscb869.data.models.VisitRevision;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import nbu.cscb869.data.repositories.VisitRevisionRepository;
+import nbu.cscb869.services.services.utility.VisitEditMerger;
+import nbu.cscb869.services.services.utility.VisitEditMerger.Field;
+import nbu.cscb869.services.services.utility.VisitEditMerger.MedicineSnapshot;
+import nbu.cscb869.services.services.utility.VisitEditMerger.TreatmentSnapshot;
+import nbu.cscb869.services.services.utility.VisitEditMerger.VisitSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitEditMergerUnitTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private VisitRevisionRepository visitRevisionRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VisitEditMerger merger;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        merger = new VisitEditMerger(visitRevisionRepository, new VisitEditProperties(), objectMapper, meterRegistry);
+    }
+
+    /** A visit at version 2, documented with the given notes and status. */
+    private static Visit visit(String notes, VisitStatus status) {
+        Patient patient = new Patient();
+        patient.setId(1L);
+        Doctor doctor = new Doctor();
+        doctor.setId(2L);
+        Visit visit = new Visit();
+        visit.setId(7L);
+        visit.setVersion(2L);
+        visit.setVisitDate(LocalDate.of(2025, 3, 1));
+        visit.setVisitTime(LocalTime.of(9, 30));
+        visit.setPatient(patient);
+        visit.setDoctor(doctor);
+        visit.setNotes(notes);
+        visit.setStatus(status);
+        return visit;
+    }
+
+    private static VisitSnapshot edit(Visit base, String notes, VisitStatus status, TreatmentSnapshot treatment) {
+        VisitSnapshot snapshot = VisitSnapshot.of(base);
+        return new VisitSnapshot(snapshot.visitDate(), snapshot.visitTime(), snapshot.patientId(), snapshot.doctorId(),
+                snapshot.diagnosisId(), notes, status, treatment, snapshot.sickLeave());
+    }
+
+    private void givenRevision(long version, Visit content) throws Exception {
+        VisitRevision revision = VisitRevision.builder().visitId(7L).visitVersion(version)
+                .snapshot(objectMapper.writeValueAsString(VisitSnapshot.of(content))).build();
+        when(visitRevisionRepository.findByVisitIdAndVisitVersion(7L, version)).thenReturn(Optional.of(revision));
+    }
+
+    private double outcomes(String outcome) {
+        return meterRegistry.get("medical.visits.edits").tag("outcome", outcome).counter().count();
+    }
+
+    @Nested
+    @DisplayName("Resolve Tests")
+    class ResolveTests {
+        @Test
+        void resolve_WithCurrentVersion_ShouldApplyWholeEdit_HappyPath() {
+            Visit current = visit("Notes", VisitStatus.SCHEDULED);
+
+            Set<Field> keep = merger.resolve(current, 2L, edit(current, "Other", VisitStatus.COMPLETED, null));
+
+            assertTrue(keep.isEmpty());
+            assertEquals(1.0, outcomes("current"));
+            verifyNoInteractions(visitRevisionRepository);
+        }
+
+        @Test
+        void resolve_WhenEditAndOthersChangedDifferentFields_ShouldKeepOthersChanges_HappyPath() throws Exception {
+            givenRevision(1L, visit(null, VisitStatus.SCHEDULED));
+            Visit current = visit(null, VisitStatus.CANCELLED_BY_PATIENT);
+
+            Set<Field> keep = merger.resolve(current, 1L, edit(current, "Diagnosed flu", VisitStatus.SCHEDULED, null));
+
+            assertEquals(Set.of(Field.STATUS), keep);
+            assertEquals(1.0, outcomes("merged"));
+        }
+
+        @Test
+        void resolve_WhenBothMadeTheSameChange_ShouldMerge_EdgeCase() throws Exception {
+            givenRevision(1L, visit(null, VisitStatus.SCHEDULED));
+            Visit current = visit("Done", VisitStatus.COMPLETED);
+
+            Set<Field> keep = merger.resolve(current, 1L, edit(current, "Done", VisitStatus.COMPLETED, null));
+
+            assertTrue(keep.isEmpty());
+            assertEquals(1.0, outcomes("merged"));
+        }
+
+        @Test
+        void resolve_WhenMedicinesOnlyReordered_ShouldNotCountAsChange_EdgeCase() throws Exception {
+            Visit base = visit(null, VisitStatus.SCHEDULED);
+            Treatment treatment = new Treatment();
+            treatment.setDescription("Rest");
+            treatment.getMedicines().add(Medicine.builder().medication(Medication.builder().name("Paracetamol").build()).dosage("500mg").frequency("3x").build());
+            treatment.getMedicines().add(Medicine.builder().medication(Medication.builder().name("Ibuprofen").build()).dosage("200mg").frequency("2x").build());
+            base.setTreatment(treatment);
+            givenRevision(1L, base);
+            Visit current = visit("Theirs", VisitStatus.SCHEDULED);
+            current.setTreatment(treatment);
+            TreatmentSnapshot reordered = new TreatmentSnapshot("Rest", List.of(
+                    new MedicineSnapshot("Paracetamol", "500mg", "3x"), new MedicineSnapshot("Ibuprofen", "200mg", "2x")));
+
+            Set<Field> keep = merger.resolve(current, 1L, edit(current, null, VisitStatus.SCHEDULED, reordered));
+
+            assertEquals(Set.of(Field.NOTES), keep);
+        }
+
+        @Test
+        void resolve_WhenBothChangedSameFieldDifferently_ShouldThrowWithDiff_ErrorCase() throws Exception {
+            givenRevision(1L, visit("Initial", VisitStatus.SCHEDULED));
+            Visit current = visit("Theirs", VisitStatus.SCHEDULED);
+
+            EditConflictException ex = assertThrows(EditConflictException.class,
+                    () -> merger.resolve(current, 1L, edit(current, "Mine", VisitStatus.SCHEDULED, null)));
+
+            assertEquals(2L, ex.getCurrentVersion());
+            assertEquals(List.of(new FieldConflict("NOTES", "Initial", "Mine", "Theirs")), ex.getConflicts());
+            assertTrue(ex.getMessage().contains("NOTES"));
+            assertEquals(1.0, outcomes("conflict"));
+        }
+
+        @Test
+        void resolve_WhenBaseRevisionIsGone_ShouldTreatEveryDifferenceAsConflict_EdgeCase() {
+            when(visitRevisionRepository.findByVisitIdAndVisitVersion(7L, 1L)).thenReturn(Optional.empty());
+            Visit current = visit("Theirs", VisitStatus.SCHEDULED);
+
+            EditConflictException ex = assertThrows(EditConflictException.class,
+                    () -> merger.resolve(current, 1L, edit(current, "Mine", VisitStatus.SCHEDULED, null)));
+
+            assertEquals(List.of(new FieldConflict("NOTES", null, "Mine", "Theirs")), ex.getConflicts());
+        }
+    }
+
+    @Nested
+    @DisplayName("Revision Tests")
+    class RevisionTests {
+        @Test
+        void recordSuperseded_ShouldSaveSnapshotOfCurrentVersion_HappyPath() throws Exception {
+            Visit visit = visit("Notes", VisitStatus.SCHEDULED);
+
+            merger.recordSuperseded(visit);
+
+            ArgumentCaptor<VisitRevision> captor = ArgumentCaptor.forClass(VisitRevision.class);
+            verify(visitRevisionRepository).save(captor.capture());
+            assertEquals(7L, captor.getValue().getVisitId());
+            assertEquals(2L, captor.getValue().getVisitVersion());
+            assertEquals(VisitSnapshot.of(visit), objectMapper.readValue(captor.getValue().getSnapshot(), VisitSnapshot.class));
+        }
+
+        @Test
+        void recordSuperseded_WhenVersionAlreadyRecorded_ShouldKeepTheFirstRevision_EdgeCase() {
+            Visit visit = visit("Notes", VisitStatus.SCHEDULED);
+            when(visitRevisionRepository.existsByVisitIdAndVisitVersion(7L, 2L)).thenReturn(true);
+
+            merger.recordSuperseded(visit);
+
+            verify(visitRevisionRepository, never()).save(any());
+        }
+
+        @Test
+        void recordSuperseded_WhenConcurrentEditRecordsSameVersion_ShouldFailAsOptimisticLockRace_ErrorCase() {
+            Visit visit = visit("Notes", VisitStatus.SCHEDULED);
+            when(visitRevisionRepository.save(any(VisitRevision.class)))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate entry '7-2'"));
+
+            assertThrows(OptimisticLockingFailureException.class, () -> merger.recordSuperseded(visit));
+        }
+
+        @Test
+        void recordSuperseded_WithUnsavedVisit_ShouldDoNothing_EdgeCase() {
+            merger.recordSuperseded(new Visit());
+
+            verifyNoInteractions(visitRevisionRepository);
+        }
+
+        @Test
+        void purgeRevisions_ShouldDeleteRevisionsPastRetention_HappyPath() {
+            LocalDateTime before = LocalDateTime.now().minusDays(30);
+
+            merger.purgeRevisions();
+
+            ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(visitRevisionRepository).deleteCreatedBefore(cutoff.capture());
+            assertFalse(cutoff.getValue().isBefore(before));
+            verify(visitRevisionRepository, never()).save(any());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nbu.cscb869.config.exports.FactExportProperties;
+import nbu.cscb869.data.repositories.VisitExportRepository;
+import nbu.cscb869.data.repositories.VisitExportRepository.Catalogue;
+import nbu.cscb869.data.repositories.VisitExportRepository.MonthSignature;
+import nbu.cscb869.data.repositories.VisitExportRepository.PrescriptionRow;
+import nbu.cscb869.data.repositories.VisitExportRepository.VisitRow;
+import nbu.cscb869.services.data.dtos.FactExportResultDTO;
+import nbu.cscb869.services.services.utility.VisitFactExporter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitFactExporterUnitTests {
+
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+    private static final LocalDateTime CHANGED = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @Mock
+    private VisitExportRepository visitExportRepository;
+
+    @TempDir
+    private Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VisitFactExporter exporter;
+    private Map<YearMonth, MonthSignature> months;
+
+    @BeforeEach
+    void setUp() {
+        FactExportProperties properties = new FactExportProperties();
+        properties.setDirectory(directory);
+        properties.setBatchRows(2);
+        meterRegistry = new SimpleMeterRegistry();
+        exporter = new VisitFactExporter(visitExportRepository, properties, new ObjectMapper().findAndRegisterModules(),
+                meterRegistry);
+
+        months = new LinkedHashMap<>();
+        months.put(JANUARY, new MonthSignature(3, 1, 1, 1, CHANGED));
+        months.put(FEBRUARY, new MonthSignature(1, 0, 0, 0, CHANGED));
+        lenient().when(visitExportRepository.findMonthSignatures()).thenAnswer(invocation -> new LinkedHashMap<>(months));
+        lenient().when(visitExportRepository.findNames(Catalogue.DOCTORS)).thenReturn(Map.of(4L, "Dr. House"));
+        lenient().when(visitExportRepository.findNames(Catalogue.DIAGNOSES)).thenReturn(Map.of(8L, "Flu"));
+        lenient().when(visitExportRepository.findNames(Catalogue.MEDICATIONS)).thenReturn(Map.of(2L, "Aspirin"));
+        lenient().doAnswer(invocation -> {
+            Consumer<VisitRow> consumer = invocation.getArgument(1);
+            if (JANUARY.equals(invocation.getArgument(0))) {
+                consumer.accept(new VisitRow(1, LocalDate.of(2024, 1, 3), "COMPLETED", 10, 4L, 4, 8L, "J11", 5L,
+                        "Rest", LocalDate.of(2024, 1, 3), 5));
+                consumer.accept(new VisitRow(2, LocalDate.of(2024, 1, 9), "COMPLETED", 11, null, 4, null, null, null,
+                        null, null, null));
+                consumer.accept(new VisitRow(3, LocalDate.of(2024, 1, 20), "SCHEDULED", 10, 4L, 4, null, null, null,
+                        null, null, null));
+            } else {
+                consumer.accept(new VisitRow(4, LocalDate.of(2024, 2, 1), "SCHEDULED", 12, null, 4, null, null, null,
+                        null, null, null));
+            }
+            return null;
+        }).when(visitExportRepository).streamVisits(any(), any());
+        lenient().doAnswer(invocation -> {
+            Consumer<PrescriptionRow> consumer = invocation.getArgument(1);
+            if (JANUARY.equals(invocation.getArgument(0))) {
+                consumer.accept(new PrescriptionRow(1, 5, 2, "500mg", "Twice a day"));
+            }
+            return null;
+        }).when(visitExportRepository).streamPrescriptions(any(), any());
+    }
+
+    private Path file(YearMonth month, String name) {
+        return directory.resolve("month=" + month).resolve(name);
+    }
+
+    @Test
+    void export_FirstRun_ShouldWriteMonthlyPartitionsInBatches_HappyPath() throws Exception {
+        FactExportResultDTO result = exporter.export(false);
+
+        assertEquals(List.of("2024-01", "2024-02"), result.getExportedMonths());
+        assertEquals(4, result.getVisits());
+        assertEquals(1, result.getPrescriptions());
+        assertEquals(5.0, meterRegistry.get("medical.export.rows").counter().count());
+        assertTrue(Files.exists(directory.resolve("_manifest.json")));
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowFileReader reader = new ArrowFileReader(Files.newByteChannel(file(JANUARY, "visits.arrow")), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            List<Long> ids = new ArrayList<>();
+            List<String> doctors = new ArrayList<>();
+            List<Integer> sickLeaveDays = new ArrayList<>();
+            List<Boolean> withoutDiagnosis = new ArrayList<>();
+            int batches = 0;
+            while (reader.loadNextBatch()) {
+                batches++;
+                VarCharVector doctorNames = (VarCharVector) reader.getDictionaryVectors().get(0L).getVector();
+                for (int row = 0; row < root.getRowCount(); row++) {
+                    ids.add(((BigIntVector) root.getVector("visit_id")).get(row));
+                    int doctor = ((IntVector) root.getVector("doctor")).get(row);
+                    doctors.add(new String(doctorNames.get(doctor), StandardCharsets.UTF_8));
+                    IntVector days = (IntVector) root.getVector("sick_leave_days");
+                    sickLeaveDays.add(days.isNull(row) ? null : days.get(row));
+                    withoutDiagnosis.add(root.getVector("diagnosis").isNull(row));
+                }
+            }
+            assertEquals(2, batches);
+            assertEquals(List.of(1L, 2L, 3L), ids);
+            assertEquals(List.of("Dr. House", "Dr. House", "Dr. House"), doctors);
+            assertEquals(5, sickLeaveDays.get(0));
+            assertNull(sickLeaveDays.get(1));
+            assertEquals(List.of(false, true, true), withoutDiagnosis);
+        }
+        assertTrue(Files.exists(file(FEBRUARY, "prescriptions.arrow")));
+        assertFalse(Files.exists(file(JANUARY, "visits.arrow.tmp")));
+    }
+
+    @Test
+    void export_WithPrescriptions_ShouldDictionaryEncodeMedications_HappyPath() throws Exception {
+        exporter.export(false);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowFileReader reader = new ArrowFileReader(Files.newByteChannel(file(JANUARY, "prescriptions.arrow")), allocator)) {
+            assertTrue(reader.loadNextBatch());
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(1, root.getRowCount());
+            assertNotNull(root.getSchema().findField("medication").getDictionary());
+            VarCharVector names = (VarCharVector) reader.getDictionaryVectors().get(2L).getVector();
+            int medication = ((IntVector) root.getVector("medication")).get(0);
+            assertEquals("Aspirin", new String(names.get(medication), StandardCharsets.UTF_8));
+            assertEquals("500mg", new String(((VarCharVector) root.getVector("dosage")).get(0), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void export_WithNothingChanged_ShouldWriteNothing_EdgeCase() {
+        exporter.export(false);
+        clearInvocations(visitExportRepository);
+
+        FactExportResultDTO result = exporter.export(false);
+
+        assertEquals(List.of(), result.getExportedMonths());
+        assertEquals(2, result.getUnchangedMonths());
+        verify(visitExportRepository, never()).streamVisits(any(), any());
+        verify(visitExportRepository, never()).findNames(any());
+    }
+
+    @Test
+    void export_WithOneMonthChanged_ShouldRewriteOnlyThatMonth_HappyPath() {
+        exporter.export(false);
+        clearInvocations(visitExportRepository);
+        months.put(FEBRUARY, new MonthSignature(1, 0, 0, 0, CHANGED.plusMinutes(1)));
+
+        FactExportResultDTO result = exporter.export(false);
+
+        assertEquals(List.of("2024-02"), result.getExportedMonths());
+        assertEquals(1, result.getUnchangedMonths());
+        verify(visitExportRepository).streamVisits(eq(FEBRUARY), any());
+        verify(visitExportRepository, never()).streamVisits(eq(JANUARY), any());
+    }
+
+    @Test
+    void export_WithMonthLeftWithoutVisits_ShouldRemoveItsPartition_HappyPath() {
+        exporter.export(false);
+        months.remove(FEBRUARY);
+
+        FactExportResultDTO result = exporter.export(false);
+
+        assertEquals(List.of("2024-02"), result.getRemovedMonths());
+        assertFalse(Files.exists(directory.resolve("month=2024-02")));
+        assertTrue(Files.exists(file(JANUARY, "visits.arrow")));
+    }
+
+    @Test
+    void export_Full_ShouldRewriteUnchangedMonths_HappyPath() {
+        exporter.export(false);
+
+        FactExportResultDTO result = exporter.export(true);
+
+        assertEquals(List.of("2024-01", "2024-02"), result.getExportedMonths());
+        assertEquals(0, result.getUnchangedMonths());
+    }
+}
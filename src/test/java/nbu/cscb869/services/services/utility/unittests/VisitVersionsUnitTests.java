@@ -0,0 +1,32 @@
+package nbu.cscb869.services.services.utility.unittests;
+
+import nbu.cscb869.data.models.Visit;
+import nbu.cscb869.services.services.utility.VisitVersions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitVersionsUnitTests {
+
+    private final VisitVersions visitVersions = new VisitVersions();
+
+    @Test
+    void touch_WithTwoVisits_ShouldTouchBoth_HappyPath() {
+        Visit previousVisit = new Visit();
+        Visit visit = new Visit();
+
+        visitVersions.touch(previousVisit, visit);
+
+        assertNotNull(previousVisit.getModifiedOn());
+        assertNotNull(visit.getModifiedOn());
+    }
+
+    @Test
+    void touch_WithNullVisit_ShouldSkipIt_EdgeCase() {
+        Visit visit = new Visit();
+
+        assertDoesNotThrow(() -> visitVersions.touch(null, visit));
+
+        assertNotNull(visit.getModifiedOn());
+    }
+}
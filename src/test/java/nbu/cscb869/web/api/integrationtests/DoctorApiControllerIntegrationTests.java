@@ -29,13 +29,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.concurrent.CompletableFuture;
-
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -268,7 +263,6 @@ class DoctorApiControllerIntegrationTests {
         @Test
         @WithMockKeycloakUser(authorities = "ROLE_ADMIN")
         void deleteDoctorImage_AsAdmin_ShouldSucceed_HappyPath() throws Exception {
-            doNothing().when(cloudinaryService).deleteImage(any());
             mockMvc.perform(delete("/api/doctors/{id}/image", testDoctor.getId()).with(csrf()))
                     .andExpect(status().isNoContent());
         }
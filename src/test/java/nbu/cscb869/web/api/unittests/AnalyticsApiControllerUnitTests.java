@@ -0,0 +1,156 @@
+package nbu.cscb869.web.api.unittests;
+
+import nbu.cscb869.data.dto.AnalyticsRowDTO;
+import nbu.cscb869.data.models.enums.AnalyticsDimension;
+import nbu.cscb869.data.models.enums.AnalyticsMeasure;
+import nbu.cscb869.services.data.dtos.AnalyticsQueryDTO;
+import nbu.cscb869.services.data.dtos.AnalyticsResultDTO;
+import nbu.cscb869.services.data.dtos.FactExportResultDTO;
+import nbu.cscb869.services.data.dtos.PatientReachResultDTO;
+import nbu.cscb869.services.data.dtos.PatientReachRowDTO;
+import nbu.cscb869.services.services.contracts.AnalyticsService;
+import nbu.cscb869.web.api.controllers.AnalyticsApiController;
+import nbu.cscb869.web.api.controllers.ApiGlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsApiControllerUnitTests {
+
+    @Mock
+    private AnalyticsService analyticsService;
+
+    @InjectMocks
+    private AnalyticsApiController analyticsApiController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(analyticsApiController)
+                .setControllerAdvice(new ApiGlobalExceptionHandler())
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Query Endpoints")
+    class QueryEndpoints {
+        @Test
+        void query_WithDimensionsAndRange_ShouldReturnGroups_HappyPath() throws Exception {
+            Map<AnalyticsDimension, String> dimensions = new LinkedHashMap<>();
+            dimensions.put(AnalyticsDimension.MONTH, "2024-01");
+            dimensions.put(AnalyticsDimension.DOCTOR, "4");
+            AnalyticsResultDTO result = AnalyticsResultDTO.builder()
+                    .grain(AnalyticsDimension.MONTH)
+                    .rows(List.of(new AnalyticsRowDTO(dimensions, Map.of(AnalyticsDimension.DOCTOR, "Dr. House"),
+                            Map.of(AnalyticsMeasure.VISITS, 12L))))
+                    .build();
+            when(analyticsService.query(any())).thenReturn(result);
+
+            mockMvc.perform(get("/api/analytics")
+                            .param("groupBy", "MONTH,DOCTOR")
+                            .param("measures", "VISITS")
+                            .param("from", "2024-01-01")
+                            .param("to", "2024-01-31")
+                            .param("specialtyId", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.grain").value("MONTH"))
+                    .andExpect(jsonPath("$.rows[0].dimensions.MONTH").value("2024-01"))
+                    .andExpect(jsonPath("$.rows[0].labels.DOCTOR").value("Dr. House"))
+                    .andExpect(jsonPath("$.rows[0].measures.VISITS").value(12));
+
+            ArgumentCaptor<AnalyticsQueryDTO> query = ArgumentCaptor.forClass(AnalyticsQueryDTO.class);
+            verify(analyticsService).query(query.capture());
+            assertEquals(List.of(AnalyticsDimension.MONTH, AnalyticsDimension.DOCTOR), query.getValue().getGroupBy());
+            assertEquals(LocalDate.of(2024, 1, 31), query.getValue().getTo());
+            assertEquals(2L, query.getValue().getSpecialtyId());
+        }
+
+        @Test
+        void query_WithUnknownDimension_ShouldReturnBadRequest_ErrorCase() throws Exception {
+            mockMvc.perform(get("/api/analytics").param("groupBy", "WEEKDAY"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(analyticsService);
+        }
+    }
+
+    @Nested
+    @DisplayName("Patient Reach Endpoints")
+    class PatientReachEndpoints {
+        @Test
+        void patientReach_WithMonthRange_ShouldReturnEstimates_HappyPath() throws Exception {
+            when(analyticsService.patientReach(AnalyticsDimension.DOCTOR, 7L, YearMonth.of(2024, 1), YearMonth.of(2024, 6)))
+                    .thenReturn(PatientReachResultDTO.builder()
+                            .dimension(AnalyticsDimension.DOCTOR)
+                            .rows(List.of(new PatientReachRowDTO(7L, "Dr. House", 120L)))
+                            .build());
+
+            mockMvc.perform(get("/api/analytics/patient-reach")
+                            .param("dimension", "DOCTOR").param("id", "7").param("from", "2024-01").param("to", "2024-06"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rows[0].name").value("Dr. House"))
+                    .andExpect(jsonPath("$.rows[0].patients").value(120));
+        }
+
+        @Test
+        void patientReach_WithoutDimension_ShouldReturnBadRequest_ErrorCase() throws Exception {
+            mockMvc.perform(get("/api/analytics/patient-reach").param("from", "2024-01"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(analyticsService);
+        }
+    }
+
+    @Nested
+    @DisplayName("Rebuild Endpoints")
+    class RebuildEndpoints {
+        @Test
+        void rebuild_WithRange_ShouldReturnMarkedDays_HappyPath() throws Exception {
+            when(analyticsService.rebuild(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31))).thenReturn(250);
+
+            mockMvc.perform(post("/api/analytics/rebuild").param("from", "2024-01-01").param("to", "2024-12-31"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").value(250));
+        }
+    }
+
+    @Nested
+    @DisplayName("Export Endpoints")
+    class ExportEndpoints {
+        @Test
+        void export_WithoutFull_ShouldExportIncrementally_HappyPath() throws Exception {
+            when(analyticsService.export(false)).thenReturn(FactExportResultDTO.builder()
+                    .exportedMonths(List.of("2024-03")).removedMonths(List.of()).unchangedMonths(14).visits(120).build());
+
+            mockMvc.perform(post("/api/analytics/export"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.exportedMonths[0]").value("2024-03"))
+                    .andExpect(jsonPath("$.unchangedMonths").value(14))
+                    .andExpect(jsonPath("$.visits").value(120));
+        }
+    }
+}
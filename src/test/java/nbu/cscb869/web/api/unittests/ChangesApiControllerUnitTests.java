@@ -0,0 +1,83 @@
+package nbu.cscb869.web.api.unittests;
+
+import nbu.cscb869.common.exceptions.ChangeCursorExpiredException;
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.data.models.enums.ChangeEntityType;
+import nbu.cscb869.services.data.dtos.ChangeDTO;
+import nbu.cscb869.services.data.dtos.ChangeFeedDTO;
+import nbu.cscb869.services.services.contracts.ChangeFeedService;
+import nbu.cscb869.web.api.controllers.ApiGlobalExceptionHandler;
+import nbu.cscb869.web.api.controllers.ChangesApiController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ChangesApiControllerUnitTests {
+    @Mock
+    private ChangeFeedService changeFeedService;
+
+    @InjectMocks
+    private ChangesApiController changesApiController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(changesApiController)
+                .setControllerAdvice(new ApiGlobalExceptionHandler())
+                .build();
+    }
+
+    @Nested
+    @DisplayName("GET /api/changes")
+    class GetChanges {
+        @Test
+        void getChanges_WithoutCursor_ShouldReturnFirstPageWithDefaultLimit_HappyPath() throws Exception {
+            ChangeDTO change = new ChangeDTO(ChangeEntityType.VISIT, 3L, ChangeDTO.Operation.DELETE, 2L, null, null);
+            when(changeFeedService.getChanges(isNull(), eq(100)))
+                    .thenReturn(new ChangeFeedDTO(List.of(change), "next", false));
+
+            mockMvc.perform(get("/api/changes"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes[0].entityType").value("VISIT"))
+                    .andExpect(jsonPath("$.changes[0].operation").value("DELETE"))
+                    .andExpect(jsonPath("$.nextCursor").value("next"))
+                    .andExpect(jsonPath("$.hasMore").value(false));
+        }
+
+        @Test
+        void getChanges_WithInvalidCursor_ShouldReturnBadRequest_ErrorCase() throws Exception {
+            when(changeFeedService.getChanges("bogus", 10)).thenThrow(new InvalidInputException("invalid cursor"));
+
+            mockMvc.perform(get("/api/changes").param("since", "bogus").param("limit", "10"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void getChanges_WithExpiredCursor_ShouldReturnGone_ErrorCase() throws Exception {
+            when(changeFeedService.getChanges(eq("old"), anyInt()))
+                    .thenThrow(new ChangeCursorExpiredException("expired"));
+
+            mockMvc.perform(get("/api/changes").param("since", "old"))
+                    .andExpect(status().isGone());
+        }
+    }
+}
@@ -4,9 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
 import nbu.cscb869.services.data.dtos.DiagnosisCreateDTO;
+import nbu.cscb869.services.data.dtos.DiagnosisImportResultDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisUpdateDTO;
 import nbu.cscb869.services.data.dtos.DiagnosisViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import nbu.cscb869.services.services.contracts.DiagnosisService;
+import nbu.cscb869.services.services.utility.DiagnosisCodeReader;
 import nbu.cscb869.web.api.controllers.DiagnosisApiController;
 import nbu.cscb869.web.api.controllers.ApiGlobalExceptionHandler;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,9 +30,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -83,6 +88,27 @@ class DiagnosisApiControllerUnitTests {
                     .andExpect(jsonPath("$.name").value("Flu"));
         }
 
+        @Test
+        void suggestDiagnoses_WithQuery_ShouldReturnSuggestions_HappyPath() throws Exception {
+            when(diagnosisService.suggest("flu", 5)).thenReturn(List.of(new SuggestionViewDTO(1L, "Flu", 12L)));
+
+            mockMvc.perform(get("/api/diagnoses/suggest").param("q", "flu").param("limit", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(1L))
+                    .andExpect(jsonPath("$[0].visitCount").value(12));
+        }
+
+        @Test
+        void getDiagnosesByCodePrefix_WithPrefix_ShouldReturnPage_HappyPath() throws Exception {
+            DiagnosisViewDTO viewDTO = new DiagnosisViewDTO();
+            viewDTO.setCode("J45.9");
+            when(diagnosisService.getByCodePrefix("J45", 0, 10)).thenReturn(new PageImpl<>(List.of(viewDTO), PageRequest.of(0, 10), 1));
+
+            mockMvc.perform(get("/api/diagnoses/codes").param("prefix", "J45").param("size", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].code").value("J45.9"));
+        }
+
         @Test
         void getDiagnosisById_WithInvalidId_ShouldReturnNotFound_ErrorCase() throws Exception {
             when(diagnosisService.getById(99L)).thenThrow(new EntityNotFoundException("Diagnosis not found"));
@@ -123,6 +149,29 @@ class DiagnosisApiControllerUnitTests {
         }
     }
 
+    @Nested
+    @DisplayName("Import Endpoints")
+    class ImportEndpoints {
+        @Test
+        void importDiagnosisCodes_WithCsvBody_ShouldLoadAsCsv_HappyPath() throws Exception {
+            DiagnosisImportResultDTO result = new DiagnosisImportResultDTO();
+            result.setInserted(1);
+            when(diagnosisService.importCodes(any(), eq(DiagnosisCodeReader.Format.CSV))).thenReturn(result);
+
+            mockMvc.perform(post("/api/diagnoses/import").contentType("text/csv;charset=UTF-8").content("A00,Cholera\n"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.inserted").value(1));
+        }
+
+        @Test
+        void importDiagnosisCodes_WithXmlBody_ShouldLoadAsXml_HappyPath() throws Exception {
+            when(diagnosisService.importCodes(any(), eq(DiagnosisCodeReader.Format.XML))).thenReturn(new DiagnosisImportResultDTO());
+
+            mockMvc.perform(post("/api/diagnoses/import").contentType(MediaType.APPLICATION_XML).content("<ICD10CM.tabular/>"))
+                    .andExpect(status().isOk());
+        }
+    }
+
     @Nested
     @DisplayName("PATCH Endpoints")
     class PatchEndpoints {
@@ -2,6 +2,7 @@ package nbu.cscb869.web.api.unittests;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.services.data.dtos.DoctorCreateDTO;
 import nbu.cscb869.services.data.dtos.DoctorUpdateDTO;
 import nbu.cscb869.services.data.dtos.DoctorViewDTO;
@@ -21,10 +22,12 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 
@@ -42,6 +45,9 @@ class DoctorApiControllerUnitTests {
     @InjectMocks
     private DoctorApiController doctorApiController;
 
+    private static final ResourceVersionDTO VERSION =
+            new ResourceVersionDTO(1L, 3L, "", LocalDateTime.of(2024, 5, 1, 10, 0), "doctor-keycloak-id");
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -74,17 +80,44 @@ class DoctorApiControllerUnitTests {
             DoctorViewDTO doctor = new DoctorViewDTO();
             doctor.setId(1L);
             doctor.setName("Dr. Test");
+            when(doctorService.getVersion(1L)).thenReturn(VERSION);
             when(doctorService.getById(1L)).thenReturn(doctor);
 
             mockMvc.perform(get("/api/doctors/1"))
                     .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"doctor-" + VERSION.getFingerprint() + "\""))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, private"))
+                    .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
                     .andExpect(jsonPath("$.id").value(1L))
                     .andExpect(jsonPath("$.name").value("Dr. Test"));
         }
 
+        @Test
+        void getDoctorById_WithCurrentETag_ShouldReturnNotModifiedWithoutLoadingDoctor_HappyPath() throws Exception {
+            when(doctorService.getVersion(1L)).thenReturn(VERSION);
+
+            mockMvc.perform(get("/api/doctors/1").header(HttpHeaders.IF_NONE_MATCH, "\"doctor-" + VERSION.getFingerprint() + "\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"doctor-" + VERSION.getFingerprint() + "\""))
+                    .andExpect(content().string(""));
+            verify(doctorService, never()).getById(any());
+        }
+
+        @Test
+        void getDoctorById_WithStaleETag_ShouldReturnDoctor_EdgeCase() throws Exception {
+            DoctorViewDTO doctor = new DoctorViewDTO();
+            doctor.setId(1L);
+            when(doctorService.getVersion(1L)).thenReturn(VERSION);
+            when(doctorService.getById(1L)).thenReturn(doctor);
+
+            mockMvc.perform(get("/api/doctors/1").header(HttpHeaders.IF_NONE_MATCH, "\"doctor-1.2.0\""))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(1L));
+        }
+
         @Test
         void getDoctorById_WithInvalidId_ShouldReturnNotFound_ErrorCase() throws Exception {
-            when(doctorService.getById(99L)).thenThrow(new EntityNotFoundException("Doctor not found"));
+            when(doctorService.getVersion(99L)).thenThrow(new EntityNotFoundException("Doctor not found"));
 
             mockMvc.perform(get("/api/doctors/99"))
                     .andExpect(status().isNotFound());
@@ -2,6 +2,7 @@ package nbu.cscb869.web.api.unittests;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.data.utils.TestDataUtils;
 import nbu.cscb869.services.data.dtos.PatientCreateDTO;
 import nbu.cscb869.services.data.dtos.PatientUpdateDTO;
@@ -22,7 +23,9 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
@@ -42,6 +45,9 @@ class PatientApiControllerUnitTests {
     @InjectMocks
     private PatientApiController patientApiController;
 
+    private static final ResourceVersionDTO VERSION =
+            new ResourceVersionDTO(1L, 2L, "7:2", null, "patient-keycloak-id");
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -73,16 +79,37 @@ class PatientApiControllerUnitTests {
         void getPatientById_WithValidId_ShouldReturnPatient_HappyPath() throws Exception {
             PatientViewDTO patient = new PatientViewDTO();
             patient.setId(1L);
+            when(patientService.getVersion(1L)).thenReturn(VERSION);
             when(patientService.getById(1L)).thenReturn(patient);
 
             mockMvc.perform(get("/api/patients/1"))
                     .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"patient-" + VERSION.getFingerprint() + "\""))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
                     .andExpect(jsonPath("$.id").value(1L));
         }
 
+        @Test
+        void getPatientById_WithCurrentETag_ShouldReturnNotModifiedWithoutLoadingPatient_HappyPath() throws Exception {
+            when(patientService.getVersion(1L)).thenReturn(VERSION);
+
+            mockMvc.perform(get("/api/patients/1").header(HttpHeaders.IF_NONE_MATCH, "\"patient-" + VERSION.getFingerprint() + "\""))
+                    .andExpect(status().isNotModified());
+            verify(patientService, never()).getById(any());
+        }
+
+        @Test
+        void getPatientById_AsOtherPatient_ShouldReturnForbidden_ErrorCase() throws Exception {
+            when(patientService.getVersion(1L)).thenThrow(new AccessDeniedException("Access denied"));
+
+            mockMvc.perform(get("/api/patients/1").header(HttpHeaders.IF_NONE_MATCH, "\"patient-" + VERSION.getFingerprint() + "\""))
+                    .andExpect(status().isForbidden());
+            verify(patientService, never()).getById(any());
+        }
+
         @Test
         void getPatientById_WithInvalidId_ShouldReturnNotFound_ErrorCase() throws Exception {
-            when(patientService.getById(99L)).thenThrow(new EntityNotFoundException("Patient not found"));
+            when(patientService.getVersion(99L)).thenThrow(new EntityNotFoundException("Patient not found"));
 
             mockMvc.perform(get("/api/patients/99"))
                     .andExpect(status().isNotFound());
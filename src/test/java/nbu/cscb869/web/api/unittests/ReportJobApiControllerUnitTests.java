@@ -0,0 +1,149 @@
+package nbu.cscb869.web.api.unittests;
+
+import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.common.exceptions.ReportJobNotCompletedException;
+import nbu.cscb869.data.models.enums.ReportJobStatus;
+import nbu.cscb869.data.models.enums.ReportType;
+import nbu.cscb869.services.data.dtos.ReportJobDTO;
+import nbu.cscb869.services.data.dtos.ReportJobRequestDTO;
+import nbu.cscb869.services.services.contracts.ReportJobService;
+import nbu.cscb869.web.api.controllers.ApiGlobalExceptionHandler;
+import nbu.cscb869.web.api.controllers.ReportJobApiController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobApiControllerUnitTests {
+
+    @Mock
+    private ReportJobService reportJobService;
+
+    @InjectMocks
+    private ReportJobApiController reportJobApiController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(reportJobApiController)
+                .setControllerAdvice(new ApiGlobalExceptionHandler())
+                .build();
+    }
+
+    private static ReportJobDTO job(ReportJobStatus status) {
+        return ReportJobDTO.builder()
+                .id(7L)
+                .request(ReportJobRequestDTO.builder().type(ReportType.VISITS_BY_DATE).build())
+                .status(status)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Submit Endpoint")
+    class SubmitEndpoint {
+        @Test
+        void submit_WithRequest_ShouldReturnAcceptedWithLocation_HappyPath() throws Exception {
+            when(reportJobService.submit(any())).thenReturn(job(ReportJobStatus.QUEUED));
+
+            mockMvc.perform(post("/api/reports/jobs")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"type\":\"VISITS_BY_DATE\",\"startDate\":\"2024-01-01\",\"endDate\":\"2024-12-31\"}"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/reports/jobs/7"))
+                    .andExpect(jsonPath("$.id").value(7))
+                    .andExpect(jsonPath("$.status").value("QUEUED"));
+
+            ArgumentCaptor<ReportJobRequestDTO> request = ArgumentCaptor.forClass(ReportJobRequestDTO.class);
+            verify(reportJobService).submit(request.capture());
+            assertEquals(ReportType.VISITS_BY_DATE, request.getValue().getType());
+            assertEquals(LocalDate.of(2024, 12, 31), request.getValue().getEndDate());
+        }
+    }
+
+    @Nested
+    @DisplayName("Poll Endpoints")
+    class PollEndpoints {
+        @Test
+        void getJob_WhilePending_ShouldAskToRetry_HappyPath() throws Exception {
+            when(reportJobService.getJob(7L)).thenReturn(job(ReportJobStatus.RUNNING));
+
+            mockMvc.perform(get("/api/reports/jobs/7"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                    .andExpect(jsonPath("$.status").value("RUNNING"));
+        }
+
+        @Test
+        void getJob_WhenCompleted_ShouldNotAskToRetry_HappyPath() throws Exception {
+            when(reportJobService.getJob(7L)).thenReturn(job(ReportJobStatus.COMPLETED));
+
+            mockMvc.perform(get("/api/reports/jobs/7"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+        }
+
+        @Test
+        void getJob_WithUnknownId_ShouldReturnNotFound_ErrorCase() throws Exception {
+            when(reportJobService.getJob(7L)).thenThrow(new EntityNotFoundException("Report job not found with ID: 7"));
+
+            mockMvc.perform(get("/api/reports/jobs/7"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("Result Endpoint")
+    class ResultEndpoint {
+        @Test
+        void getResult_AcceptingGzip_ShouldReturnStoredBytes_HappyPath() throws Exception {
+            byte[] compressed = {31, -117, 8, 0};
+            when(reportJobService.getResult(7L, true)).thenReturn(compressed);
+
+            mockMvc.perform(get("/api/reports/jobs/7/result").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andExpect(content().bytes(compressed));
+        }
+
+        @Test
+        void getResult_WithoutGzip_ShouldReturnPlainJson_HappyPath() throws Exception {
+            when(reportJobService.getResult(7L, false)).thenReturn("[]".getBytes(StandardCharsets.UTF_8));
+
+            mockMvc.perform(get("/api/reports/jobs/7/result"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(content().string("[]"));
+        }
+
+        @Test
+        void getResult_WhilePending_ShouldReturnConflict_ErrorCase() throws Exception {
+            when(reportJobService.getResult(7L, false))
+                    .thenThrow(new ReportJobNotCompletedException("Report job 7 is RUNNING; it has no result."));
+
+            mockMvc.perform(get("/api/reports/jobs/7/result"))
+                    .andExpect(status().isConflict());
+        }
+    }
+}
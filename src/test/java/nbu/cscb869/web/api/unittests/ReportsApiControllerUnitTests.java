@@ -1,6 +1,13 @@
 package nbu.cscb869.web.api.unittests;
 
+import nbu.cscb869.common.exceptions.InvalidInputException;
+import nbu.cscb869.data.dto.DiagnosisGroupVisitCountDTO;
+import nbu.cscb869.data.dto.DiagnosisVisitCountDTO;
+import nbu.cscb869.data.dto.MonthSickLeaveCountDTO;
+import nbu.cscb869.services.data.dtos.PatientViewDTO;
+import nbu.cscb869.services.services.contracts.DiagnosisService;
 import nbu.cscb869.services.services.contracts.DoctorService;
+import nbu.cscb869.services.services.contracts.PatientService;
 import nbu.cscb869.services.services.contracts.VisitService;
 import nbu.cscb869.web.api.controllers.ReportsApiController;
 import nbu.cscb869.web.api.controllers.ApiGlobalExceptionHandler;
@@ -12,7 +19,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -21,9 +27,13 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -37,6 +47,12 @@ class ReportsApiControllerUnitTests {
     @Mock
     private VisitService visitService;
 
+    @Mock
+    private DiagnosisService diagnosisService;
+
+    @Mock
+    private PatientService patientService;
+
     @InjectMocks
     private ReportsApiController reportsApiController;
 
@@ -55,10 +71,16 @@ class ReportsApiControllerUnitTests {
     class ReportEndpoints {
         @Test
         void getPatientsByDiagnosis_ShouldReturnPage_HappyPath() throws Exception {
-            when(visitService.getVisitsByDiagnosis(anyLong(), anyInt(), anyInt())).thenReturn(Page.empty());
-            mockMvc.perform(get("/api/reports/patients-by-diagnosis").param("diagnosisId", "1"))
+            PatientViewDTO patient = new PatientViewDTO();
+            patient.setId(5L);
+            when(patientService.findByDiagnosis(eq(1L), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(patient), PageRequest.of(0, 1), 3));
+            mockMvc.perform(get("/api/reports/patients-by-diagnosis").param("diagnosisId", "1").param("size", "1"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$.content").isArray());
+                    .andExpect(jsonPath("$.content[0].id").value(5))
+                    .andExpect(jsonPath("$.totalElements").value(3));
+            verify(patientService).findByDiagnosis(1L, PageRequest.of(0, 1));
+            verify(visitService, never()).getVisitsByDiagnosis(anyLong(), anyInt(), anyInt());
         }
 
         @Test
@@ -69,6 +91,15 @@ class ReportsApiControllerUnitTests {
                     .andExpect(jsonPath("$").isArray());
         }
 
+        @Test
+        void getMostFrequentDiagnosisChapters_ShouldReturnList_HappyPath() throws Exception {
+            when(diagnosisService.getVisitCountsByChapter()).thenReturn(List.of(new DiagnosisGroupVisitCountDTO("X", 7L)));
+            mockMvc.perform(get("/api/reports/most-frequent-diagnoses/chapters"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].group").value("X"))
+                    .andExpect(jsonPath("$[0].visitCount").value(7));
+        }
+
         @Test
         void getGpPatientCounts_ShouldReturnList_HappyPath() throws Exception {
             when(doctorService.getPatientCountByGeneralPractitioner()).thenReturn(Collections.emptyList());
@@ -101,6 +132,34 @@ class ReportsApiControllerUnitTests {
                     .andExpect(jsonPath("$").isArray());
         }
 
+        @Test
+        void getMostFrequentDiagnoses_WithLimitAndMonth_ShouldReturnTopOfMonth_HappyPath() throws Exception {
+            when(visitService.getMostFrequentDiagnoses(YearMonth.of(2024, 5), 10))
+                    .thenReturn(List.of(new DiagnosisVisitCountDTO(1L, "Flu", 12L)));
+            mockMvc.perform(get("/api/reports/most-frequent-diagnoses").param("limit", "10").param("month", "2024-05"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].diagnosisName").value("Flu"))
+                    .andExpect(jsonPath("$[0].visitCount").value(12));
+            verify(visitService, never()).getMostFrequentDiagnoses();
+        }
+
+        @Test
+        void getDoctorsWithMostSickLeaves_WithLimit_ShouldReturnTopDoctors_HappyPath() throws Exception {
+            when(doctorService.getDoctorsWithMostSickLeaves(5)).thenReturn(Collections.emptyList());
+            mockMvc.perform(get("/api/reports/doctors-with-most-sick-leaves").param("limit", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isArray());
+            verify(doctorService, never()).getDoctorsWithMostSickLeaves();
+        }
+
+        @Test
+        void getMostFrequentSickLeaveMonth_WithLimit_ShouldReturnTopMonths_HappyPath() throws Exception {
+            when(visitService.getMostFrequentSickLeaveMonth(1)).thenReturn(List.of(new MonthSickLeaveCountDTO(1, 40L)));
+            mockMvc.perform(get("/api/reports/most-frequent-sick-leave-month").param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].month").value(1));
+        }
+
         @Test
         void getVisitsByDateRange_ShouldReturnPage_HappyPath() throws Exception {
             Pageable pageable = PageRequest.of(0, 10);
@@ -134,6 +193,14 @@ class ReportsApiControllerUnitTests {
                     .andExpect(status().isBadRequest());
         }
 
+        @Test
+        void getMostFrequentDiagnoses_WithLimitTooLarge_ShouldReturnBadRequest_ErrorCase() throws Exception {
+            when(visitService.getMostFrequentDiagnoses(null, 1000))
+                    .thenThrow(new InvalidInputException("The ranking limit must be between 1 and 100"));
+            mockMvc.perform(get("/api/reports/most-frequent-diagnoses").param("limit", "1000"))
+                    .andExpect(status().isBadRequest());
+        }
+
         @Test
         void getVisitsByDateRange_WithoutDates_ShouldReturnBadRequest_ErrorCase() throws Exception {
             mockMvc.perform(get("/api/reports/visits-by-date"))
@@ -5,9 +5,12 @@ import nbu.cscb869.common.exceptions.EntityInUseException;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.common.exceptions.InvalidDTOException;
 import nbu.cscb869.config.SecurityConfig;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
+import nbu.cscb869.data.dto.RowVersionDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyCreateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyUpdateDTO;
 import nbu.cscb869.services.data.dtos.SpecialtyViewDTO;
+import nbu.cscb869.services.data.dtos.SuggestionViewDTO;
 import nbu.cscb869.services.services.contracts.DoctorService;
 import nbu.cscb869.services.services.contracts.PatientService;
 import nbu.cscb869.services.services.contracts.SpecialtyService;
@@ -22,12 +25,14 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -35,10 +40,13 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -67,17 +75,34 @@ class SpecialtyApiControllerUnitTests {
     @Nested
     @DisplayName("GET /api/specialties")
     class GetAllSpecialtiesTests {
+        private final ResourceVersionDTO version = ResourceVersionDTO.ofCollection(
+                List.of(new RowVersionDTO(1L, 2L, null), new RowVersionDTO(2L, 1L, null), new RowVersionDTO(3L, 2L, null)));
+
         @Test
         void getAllSpecialties_AsAdmin_ShouldReturnPage_HappyPath() throws Exception {
             Page<SpecialtyViewDTO> page = new PageImpl<>(Collections.singletonList(new SpecialtyViewDTO()));
+            when(specialtyService.getCollectionVersion()).thenReturn(version);
             when(specialtyService.getAll(anyInt(), anyInt(), anyString(), any(Boolean.class))).thenReturn(CompletableFuture.completedFuture(page));
 
             mockMvc.perform(get("/api/specialties")
                             .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
                     .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"specialties-" + version.getFingerprint() + "\""))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, private"))
                     .andExpect(jsonPath("$.content").isArray());
         }
 
+        @Test
+        void getAllSpecialties_WithCurrentETag_ShouldReturnNotModified_HappyPath() throws Exception {
+            when(specialtyService.getCollectionVersion()).thenReturn(version);
+
+            mockMvc.perform(get("/api/specialties")
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"specialties-" + version.getFingerprint() + "\"")
+                            .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                    .andExpect(status().isNotModified());
+            verify(specialtyService, never()).getAll(anyInt(), anyInt(), anyString(), any(Boolean.class));
+        }
+
         @Test
         void getAllSpecialties_AsDoctor_ShouldReturnForbidden_ErrorCase() throws Exception {
             mockMvc.perform(get("/api/specialties")
@@ -88,6 +113,7 @@ class SpecialtyApiControllerUnitTests {
         @Test
         void getAllSpecialties_WhenNoneExist_ShouldReturnEmptyPage_EdgeCase() throws Exception {
             Page<SpecialtyViewDTO> emptyPage = new PageImpl<>(Collections.emptyList());
+            when(specialtyService.getCollectionVersion()).thenReturn(ResourceVersionDTO.ofCollection(List.of()));
             when(specialtyService.getAll(anyInt(), anyInt(), anyString(), any(Boolean.class))).thenReturn(CompletableFuture.completedFuture(emptyPage));
 
             mockMvc.perform(get("/api/specialties")
@@ -97,6 +123,28 @@ class SpecialtyApiControllerUnitTests {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/specialties/suggest")
+    class SuggestSpecialtiesTests {
+        @Test
+        void suggestSpecialties_AsDoctor_ShouldReturnSuggestions_HappyPath() throws Exception {
+            when(specialtyService.suggest("card", 10)).thenReturn(List.of(new SuggestionViewDTO(1L, "Cardiology", 7L)));
+
+            mockMvc.perform(get("/api/specialties/suggest").param("q", "card")
+                            .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_DOCTOR"))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].name").value("Cardiology"))
+                    .andExpect(jsonPath("$[0].visitCount").value(7));
+        }
+
+        @Test
+        void suggestSpecialties_AsPatient_ShouldReturnForbidden_ErrorCase() throws Exception {
+            mockMvc.perform(get("/api/specialties/suggest").param("q", "card")
+                            .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_PATIENT"))))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
     @Nested
     @DisplayName("POST /api/specialties")
     class CreateSpecialtyTests {
@@ -2,6 +2,7 @@ package nbu.cscb869.web.api.unittests;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
+import nbu.cscb869.data.dto.ResourceVersionDTO;
 import nbu.cscb869.services.data.dtos.VisitCreateDTO;
 import nbu.cscb869.services.data.dtos.VisitUpdateDTO;
 import nbu.cscb869.services.data.dtos.VisitViewDTO;
@@ -17,11 +18,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
@@ -29,10 +32,13 @@ import java.util.concurrent.CompletableFuture;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -84,6 +90,48 @@ class VisitApiControllerUnitTests {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/visits/{id}")
+    class GetVisitByIdTests {
+        private final ResourceVersionDTO version =
+                new ResourceVersionDTO(1L, 4L, "7:2;3:1;-;-;-;-", LocalDateTime.of(2024, 5, 1, 10, 0), "patient-keycloak-id");
+
+        @Test
+        void getVisitById_AsDoctor_ShouldReturnVisitWithETag_HappyPath() throws Exception {
+            VisitViewDTO viewDTO = new VisitViewDTO();
+            viewDTO.setId(1L);
+            when(visitService.getVersion(1L)).thenReturn(version);
+            when(visitService.getById(1L)).thenReturn(viewDTO);
+
+            mockMvc.perform(get("/api/visits/1")
+                            .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_DOCTOR"))))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"visit-" + version.getFingerprint() + "\""))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                    .andExpect(jsonPath("$.id").value(1L));
+        }
+
+        @Test
+        void getVisitById_WithCurrentETag_ShouldReturnNotModifiedWithoutLoadingVisit_HappyPath() throws Exception {
+            when(visitService.getVersion(1L)).thenReturn(version);
+
+            mockMvc.perform(get("/api/visits/1")
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"visit-" + version.getFingerprint() + "\"")
+                            .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_PATIENT"))))
+                    .andExpect(status().isNotModified());
+            verify(visitService, never()).getById(any());
+        }
+
+        @Test
+        void getVisitById_ForNonExistentVisit_ShouldReturnNotFound_ErrorCase() throws Exception {
+            when(visitService.getVersion(999L)).thenThrow(new EntityNotFoundException("Visit not found"));
+
+            mockMvc.perform(get("/api/visits/999")
+                            .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
     @Nested
     @DisplayName("POST /api/visits")
     class CreateVisitTests {
@@ -27,14 +27,10 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.concurrent.CompletableFuture;
-
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
@@ -117,8 +113,6 @@ class AdminDoctorControllerIntegrationTests {
 
         @Test
         void editDoctor_WithValidData_ShouldUpdateDoctorAndRedirect_HappyPath() throws Exception {
-            when(cloudinaryService.uploadImage(any())).thenReturn(CompletableFuture.completedFuture("http://mock.url/image.jpg"));
-
             MockMultipartFile imageFile = new MockMultipartFile("imageFile", "test.jpg", MediaType.IMAGE_JPEG_VALUE, "test image".getBytes());
 
             mockMvc.perform(multipart("/admin/doctors/edit/{id}", testDoctor.getId())
@@ -1,5 +1,7 @@
 package nbu.cscb869.web.controllers.admin.unittests;
 
+import nbu.cscb869.common.exceptions.EditConflictException;
+import nbu.cscb869.common.exceptions.EditConflictException.FieldConflict;
 import nbu.cscb869.common.exceptions.EntityNotFoundException;
 import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.services.data.dtos.DiagnosisViewDTO;
@@ -32,8 +34,11 @@ import org.springframework.validation.BindingResult;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -189,6 +194,36 @@ class AdminVisitControllerUnitTests {
                     .andExpect(redirectedUrl("/admin/visits"))
                     .andExpect(flash().attributeExists("errorMessage"));
         }
+
+        @Test
+        void editVisit_WhenEditConflicts_ShouldShowFormWithConflictsAndSubmittedValues_ErrorCase() throws Exception {
+            List<FieldConflict> conflicts = List.of(new FieldConflict("notes", "Cough", "Dry cough", "Wet cough"));
+            doThrow(new EditConflictException("Visit 1 was changed since version 3", 4L, conflicts))
+                    .when(visitService).update(any(VisitUpdateDTO.class));
+            when(patientService.getAll(anyInt(), anyInt(), anyString(), anyBoolean(), isNull())).thenReturn(CompletableFuture.completedFuture(Page.empty()));
+            when(doctorService.getAllAsync(anyInt(), anyInt(), anyString(), anyBoolean(), isNull())).thenReturn(CompletableFuture.completedFuture(Page.empty()));
+            when(diagnosisService.getAll(anyInt(), anyInt(), anyString(), anyBoolean(), isNull())).thenReturn(CompletableFuture.completedFuture(Page.empty()));
+
+            mockMvc.perform(post("/admin/visits/edit/1")
+                            .param("id", "1")
+                            .param("visitDate", LocalDate.now().toString())
+                            .param("visitTime", "10:00")
+                            .param("patientId", "1")
+                            .param("doctorId", "1")
+                            .param("diagnosisId", "1")
+                            .param("notes", "Dry cough")
+                            .param("status", VisitStatus.SCHEDULED.name())
+                            .param("version", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("admin/visits/edit"))
+                    .andExpect(model().attribute("conflicts", conflicts))
+                    .andExpect(model().attribute("visit", hasProperty("notes", is("Dry cough"))))
+                    .andExpect(model().attribute("visit", hasProperty("version", is(4L))))
+                    .andExpect(model().attributeHasErrors("visit"))
+                    .andExpect(model().attributeExists("patients", "doctors", "diagnoses", "statuses"));
+
+            verify(visitService, never()).getById(anyLong());
+        }
     }
 
     @Nested
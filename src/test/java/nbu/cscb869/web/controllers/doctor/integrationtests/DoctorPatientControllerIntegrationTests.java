@@ -1,11 +1,16 @@
 package nbu.cscb869.web.controllers.doctor.integrationtests;
 
-import nbu.cscb869.data.models.Doctor;
-import nbu.cscb869.data.models.Patient;
+import jakarta.persistence.EntityManager;
+import nbu.cscb869.config.metrics.SqlStatementCounter;
+import nbu.cscb869.data.models.*;
+import nbu.cscb869.data.models.enums.VisitStatus;
+import nbu.cscb869.data.repositories.DiagnosisRepository;
 import nbu.cscb869.data.repositories.DoctorRepository;
 import nbu.cscb869.data.repositories.PatientRepository;
+import nbu.cscb869.data.repositories.VisitRepository;
 import nbu.cscb869.data.utils.TestDataUtils;
 import nbu.cscb869.security.WithMockKeycloakUser;
+import nbu.cscb869.services.services.contracts.VisitService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -26,7 +31,13 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -65,6 +76,21 @@ class DoctorPatientControllerIntegrationTests {
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private DiagnosisRepository diagnosisRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private Doctor testDoctor;
     private Patient patient1;
     private Patient patient2;
@@ -120,6 +146,55 @@ class DoctorPatientControllerIntegrationTests {
         }
     }
 
+    @Nested
+    @DisplayName("SQL Budget Tests")
+    @WithMockKeycloakUser(keycloakId = "doctor-keycloak-id", authorities = "ROLE_DOCTOR")
+    class SqlBudgetTests {
+
+        private static final int VISIT_COUNT = 30;
+
+        @BeforeEach
+        void createHistory() {
+            Diagnosis diagnosis = diagnosisRepository.save(Diagnosis.builder().name("Flu-" + System.nanoTime()).description("Influenza").build());
+            for (int i = 0; i < VISIT_COUNT; i++) {
+                Visit visit = Visit.builder()
+                        .patient(patient1)
+                        .doctor(testDoctor)
+                        .diagnosis(diagnosis)
+                        .visitDate(LocalDate.now().minusDays(i + 1))
+                        .visitTime(LocalTime.of(9, 0))
+                        .status(VisitStatus.COMPLETED)
+                        .build();
+                Treatment treatment = Treatment.builder().description("Rest").visit(visit).medicines(new ArrayList<>()).build();
+                SickLeave sickLeave = SickLeave.builder().startDate(visit.getVisitDate()).durationDays(3).visit(visit).build();
+                visit.setTreatment(treatment);
+                visit.setSickLeave(sickLeave);
+                visitRepository.save(visit);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        @Test
+        void showPatientHistory_WithManyDocumentedVisits_ShouldStayWithinSqlBudget_HappyPath() throws Exception {
+            // The test profile enforces @SqlBudget, so a per-visit query would fail this request.
+            mockMvc.perform(get("/doctor/patients/{id}/history", patient1.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(model().attribute("patient", hasProperty("visits", hasSize(VISIT_COUNT))));
+        }
+
+        @Test
+        void getVisitsByPatient_WithManyDocumentedVisits_ShouldNotIssueStatementPerVisit_HappyPath() {
+            statementCounter.startCounting();
+            try {
+                visitService.getVisitsByPatient(patient1.getId(), 0, 100);
+            } finally {
+                int statements = statementCounter.stopCounting();
+                assertTrue(statements <= 3, "Expected at most 3 statements but got " + statements);
+            }
+        }
+    }
+
     @Nested
     @DisplayName("Error Case Tests")
     class ErrorCaseTests {
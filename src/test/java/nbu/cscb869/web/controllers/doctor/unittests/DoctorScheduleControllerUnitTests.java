@@ -5,6 +5,7 @@ import nbu.cscb869.data.models.enums.VisitStatus;
 import nbu.cscb869.services.data.dtos.DoctorViewDTO;
 import nbu.cscb869.services.services.contracts.DoctorService;
 import nbu.cscb869.services.services.contracts.VisitService;
+import nbu.cscb869.services.services.utility.LiveUpdateHub;
 import nbu.cscb869.web.controllers.GlobalExceptionHandler;
 import nbu.cscb869.web.controllers.doctor.DoctorDashboardController;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,6 +23,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Collections;
 
@@ -39,6 +41,9 @@ class DoctorScheduleControllerUnitTests {
     @Mock
     private VisitService visitService;
 
+    @Mock
+    private LiveUpdateHub liveUpdateHub;
+
     @InjectMocks
     private DoctorDashboardController doctorDashboardController;
 
@@ -101,5 +106,16 @@ class DoctorScheduleControllerUnitTests {
                     .andExpect(view().name("doctor/dashboard"))
                     .andExpect(model().attribute("visits", emptyPage));
         }
+
+        @Test
+        void liveUpdates_AsAuthenticatedDoctor_ShouldStreamTheDoctorsUpdates_HappyPath() throws Exception {
+            DoctorViewDTO doctor = new DoctorViewDTO();
+            doctor.setId(5L);
+            when(doctorService.getByKeycloakId("doctor-id")).thenReturn(doctor);
+            when(liveUpdateHub.subscribeDoctor(5L)).thenReturn(new SseEmitter());
+
+            mockMvc.perform(get("/doctor/dashboard/live").principal(authentication))
+                    .andExpect(request().asyncStarted());
+        }
     }
 }
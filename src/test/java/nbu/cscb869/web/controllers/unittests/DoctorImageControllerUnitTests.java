@@ -0,0 +1,163 @@
+package nbu.cscb869.web.controllers.unittests;
+
+import nbu.cscb869.common.exceptions.ImageProcessingException;
+import nbu.cscb869.common.validation.ErrorMessages;
+import nbu.cscb869.config.images.ImagePipelineProperties;
+import nbu.cscb869.services.data.dtos.DoctorViewDTO;
+import nbu.cscb869.services.services.contracts.DoctorService;
+import nbu.cscb869.services.services.utility.DoctorImagePipeline;
+import nbu.cscb869.services.services.utility.ImageProxyCache;
+import nbu.cscb869.services.services.utility.ImageProxyCache.CachedImage;
+import nbu.cscb869.services.services.utility.ImageProxyCache.ImageVariant;
+import nbu.cscb869.web.controllers.DoctorImageController;
+import nbu.cscb869.web.controllers.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class DoctorImageControllerUnitTests {
+
+    private static final String IMAGE_URL = "https://res.cloudinary.com/demo/image/upload/v1/medical_record/doctors/a.jpg";
+
+    @Mock
+    private DoctorService doctorService;
+
+    @Mock
+    private DoctorImagePipeline doctorImagePipeline;
+
+    @Mock
+    private ImageProxyCache imageProxyCache;
+
+    @TempDir
+    private Path tempDir;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        DoctorImageController doctorImageController = new DoctorImageController(
+                doctorService, doctorImagePipeline, imageProxyCache, new ImagePipelineProperties());
+        mockMvc = MockMvcBuilders.standaloneSetup(doctorImageController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private DoctorViewDTO doctorWithImage() {
+        DoctorViewDTO doctor = new DoctorViewDTO();
+        doctor.setImageUrl(IMAGE_URL);
+        return doctor;
+    }
+
+    @Test
+    void getThumbnail_WhenGeneratedLocally_ShouldServeFile_HappyPath() throws Exception {
+        Path thumbnail = Files.write(tempDir.resolve("doctor-1.jpg"), new byte[]{1, 2, 3});
+        when(doctorImagePipeline.findThumbnail(1L)).thenReturn(Optional.of(thumbnail));
+
+        mockMvc.perform(get("/media/doctors/1/thumbnail"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(header().string("Cache-Control", "max-age=600, public"))
+                .andExpect(content().bytes(new byte[]{1, 2, 3}));
+        verifyNoInteractions(doctorService);
+    }
+
+    @Test
+    void getThumbnail_WhenMissingLocally_ShouldRedirectToImageProxy_EdgeCase() throws Exception {
+        when(doctorImagePipeline.findThumbnail(1L)).thenReturn(Optional.empty());
+        when(doctorService.getById(1L)).thenReturn(doctorWithImage());
+
+        mockMvc.perform(get("/media/doctors/1/thumbnail"))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("http://localhost/media/doctors/1/image?w=160"));
+    }
+
+    @Test
+    void getThumbnail_WhenDoctorHasNoImage_ShouldReturnNotFound_ErrorCase() throws Exception {
+        when(doctorImagePipeline.findThumbnail(1L)).thenReturn(Optional.empty());
+        when(doctorService.getById(1L)).thenReturn(new DoctorViewDTO());
+
+        mockMvc.perform(get("/media/doctors/1/thumbnail"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getImage_WhenCached_ShouldStreamFileWithEtag_HappyPath() throws Exception {
+        Path file = Files.write(tempDir.resolve("cached"), new byte[]{4, 5, 6, 7});
+        ImageVariant variant = new ImageVariant(IMAGE_URL, 320, "abc");
+        when(doctorService.getById(1L)).thenReturn(doctorWithImage());
+        when(imageProxyCache.variantOf(IMAGE_URL, 300)).thenReturn(variant);
+        CachedImage image = new CachedImage(file, 4, "image/jpeg");
+        when(imageProxyCache.get(variant)).thenReturn(image);
+
+        mockMvc.perform(get("/media/doctors/1/image").param("w", "300"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(header().string("Cache-Control", "max-age=3600, public"))
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(content().bytes(new byte[]{4, 5, 6, 7}));
+        verify(imageProxyCache).release(image, Duration.ZERO);
+    }
+
+    @Test
+    void getImage_WithSendfileSupport_ShouldHandFileToConnectorAndLingerOnRelease_HappyPath() throws Exception {
+        CachedImage image = new CachedImage(tempDir.resolve("cached"), 4, "image/jpeg");
+        ImageVariant variant = new ImageVariant(IMAGE_URL, null, "abc");
+        when(doctorService.getById(1L)).thenReturn(doctorWithImage());
+        when(imageProxyCache.variantOf(IMAGE_URL, null)).thenReturn(variant);
+        when(imageProxyCache.get(variant)).thenReturn(image);
+
+        mockMvc.perform(get("/media/doctors/1/image").requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename",
+                        image.file().toAbsolutePath().toString()));
+        verify(imageProxyCache).release(image, new ImagePipelineProperties().getProxy().getSendfileLinger());
+    }
+
+    @Test
+    void getImage_WithMatchingEtag_ShouldReturnNotModifiedWithoutReadingCache_HappyPath() throws Exception {
+        when(doctorService.getById(1L)).thenReturn(doctorWithImage());
+        when(imageProxyCache.variantOf(IMAGE_URL, null)).thenReturn(new ImageVariant(IMAGE_URL, null, "abc"));
+
+        mockMvc.perform(get("/media/doctors/1/image").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified());
+        verify(imageProxyCache, never()).get(any());
+    }
+
+    @Test
+    void getImage_WhenFetchFails_ShouldReturnBadGateway_ErrorCase() throws Exception {
+        ImageVariant variant = new ImageVariant(IMAGE_URL, null, "abc");
+        when(doctorService.getById(1L)).thenReturn(doctorWithImage());
+        when(imageProxyCache.variantOf(IMAGE_URL, null)).thenReturn(variant);
+        when(imageProxyCache.get(variant))
+                .thenThrow(new ImageProcessingException(ErrorMessages.IMAGE_FETCH_FAILED, IMAGE_URL, "HTTP 500"));
+
+        mockMvc.perform(get("/media/doctors/1/image"))
+                .andExpect(status().isBadGateway());
+    }
+
+    @Test
+    void getImage_WhenDoctorHasNoImage_ShouldReturnNotFound_ErrorCase() throws Exception {
+        when(doctorService.getById(1L)).thenReturn(new DoctorViewDTO());
+
+        mockMvc.perform(get("/media/doctors/1/image"))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(imageProxyCache);
+    }
+}